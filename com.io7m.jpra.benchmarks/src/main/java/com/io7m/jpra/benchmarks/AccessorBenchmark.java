@@ -0,0 +1,431 @@
+/*
+ * Copyright © 2015 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.jpra.benchmarks;
+
+import com.io7m.ieee754b16.Binary16;
+import com.io7m.jnfp.core.NFPSignedDoubleInt;
+import com.io7m.jnfp.core.NFPUnsignedDoubleInt;
+import com.io7m.jpra.benchmarks.schema.FloatsByteBuffered;
+import com.io7m.jpra.benchmarks.schema.FloatsType;
+import com.io7m.jpra.benchmarks.schema.IntegersByteBuffered;
+import com.io7m.jpra.benchmarks.schema.IntegersType;
+import com.io7m.jpra.benchmarks.schema.NormalizedByteBuffered;
+import com.io7m.jpra.benchmarks.schema.NormalizedType;
+import com.io7m.jpra.runtime.java.JPRACursor1DByteBufferedChecked;
+import com.io7m.jpra.runtime.java.JPRACursor1DType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generated integer, floating point, and normalized integer getters and
+ * setters, compared against hand-written absolute {@code ByteBuffer}
+ * accesses at the same offsets.
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class AccessorBenchmark
+{
+  @Param({BenchmarkBuffers.HEAP, BenchmarkBuffers.DIRECT})
+  private String kind;
+
+  @Param({"BIG_ENDIAN", "LITTLE_ENDIAN"})
+  private String order;
+
+  private ByteBuffer integers_buffer;
+  private ByteBuffer floats_buffer;
+  private ByteBuffer normalized_buffer;
+  private IntegersType integers;
+  private FloatsType floats;
+  private NormalizedType normalized;
+  private int s32_offset;
+  private int s64_offset;
+  private int f16_offset;
+  private int f32_offset;
+  private int f64_offset;
+  private int un16_offset;
+  private int sn32_offset;
+  private int int_value;
+  private long long_value;
+  private float float_value;
+  private double double_value;
+
+  /**
+   * Construct a benchmark.
+   */
+
+  public AccessorBenchmark()
+  {
+
+  }
+
+  /**
+   * Allocate the buffers and position the views on the second element.
+   */
+
+  @Setup
+  public void setup()
+  {
+    {
+      final int size = IntegersByteBuffered.sizeInOctets();
+      this.integers_buffer =
+        BenchmarkBuffers.allocate(this.kind, this.order, size * 2);
+      final JPRACursor1DType<IntegersType> c =
+        JPRACursor1DByteBufferedChecked.newCursor(
+          this.integers_buffer, IntegersByteBuffered::newValueWithOffset);
+      c.setElementIndex(1);
+      this.integers = c.getElementView();
+      this.s32_offset = size + this.integers.metaS32OffsetFromType();
+      this.s64_offset = size + this.integers.metaS64OffsetFromType();
+    }
+
+    {
+      final int size = FloatsByteBuffered.sizeInOctets();
+      this.floats_buffer =
+        BenchmarkBuffers.allocate(this.kind, this.order, size * 2);
+      final JPRACursor1DType<FloatsType> c =
+        JPRACursor1DByteBufferedChecked.newCursor(
+          this.floats_buffer, FloatsByteBuffered::newValueWithOffset);
+      c.setElementIndex(1);
+      this.floats = c.getElementView();
+      this.f16_offset = size + this.floats.metaF16OffsetFromType();
+      this.f32_offset = size + this.floats.metaF32OffsetFromType();
+      this.f64_offset = size + this.floats.metaF64OffsetFromType();
+    }
+
+    {
+      final int size = NormalizedByteBuffered.sizeInOctets();
+      this.normalized_buffer =
+        BenchmarkBuffers.allocate(this.kind, this.order, size * 2);
+      final JPRACursor1DType<NormalizedType> c =
+        JPRACursor1DByteBufferedChecked.newCursor(
+          this.normalized_buffer, NormalizedByteBuffered::newValueWithOffset);
+      c.setElementIndex(1);
+      this.normalized = c.getElementView();
+      this.un16_offset = size + this.normalized.metaUn16OffsetFromType();
+      this.sn32_offset = size + this.normalized.metaSn32OffsetFromType();
+    }
+
+    this.int_value = 0x10203040;
+    this.long_value = 0x1020304050607080L;
+    this.float_value = 23.0f;
+    this.double_value = 0.5;
+  }
+
+  /**
+   * @return The value of the field
+   */
+
+  @Benchmark
+  public int getS32()
+  {
+    return this.integers.getS32();
+  }
+
+  /**
+   * @return The value of the field
+   */
+
+  @Benchmark
+  public int getS32Baseline()
+  {
+    return this.integers_buffer.getInt(this.s32_offset);
+  }
+
+  /**
+   * Set the value of the field.
+   */
+
+  @Benchmark
+  public void setS32()
+  {
+    this.integers.setS32(this.int_value);
+  }
+
+  /**
+   * Set the value of the field.
+   */
+
+  @Benchmark
+  public void setS32Baseline()
+  {
+    this.integers_buffer.putInt(this.s32_offset, this.int_value);
+  }
+
+  /**
+   * @return The value of the field
+   */
+
+  @Benchmark
+  public long getS64()
+  {
+    return this.integers.getS64();
+  }
+
+  /**
+   * @return The value of the field
+   */
+
+  @Benchmark
+  public long getS64Baseline()
+  {
+    return this.integers_buffer.getLong(this.s64_offset);
+  }
+
+  /**
+   * Set the value of the field.
+   */
+
+  @Benchmark
+  public void setS64()
+  {
+    this.integers.setS64(this.long_value);
+  }
+
+  /**
+   * Set the value of the field.
+   */
+
+  @Benchmark
+  public void setS64Baseline()
+  {
+    this.integers_buffer.putLong(this.s64_offset, this.long_value);
+  }
+
+  /**
+   * @return The value of the field
+   */
+
+  @Benchmark
+  public double getF16()
+  {
+    return this.floats.getF16();
+  }
+
+  /**
+   * @return The value of the field
+   */
+
+  @Benchmark
+  public double getF16Baseline()
+  {
+    return Binary16.unpackDouble(this.floats_buffer.getChar(this.f16_offset));
+  }
+
+  /**
+   * Set the value of the field.
+   */
+
+  @Benchmark
+  public void setF16()
+  {
+    this.floats.setF16(this.double_value);
+  }
+
+  /**
+   * Set the value of the field.
+   */
+
+  @Benchmark
+  public void setF16Baseline()
+  {
+    this.floats_buffer.putChar(
+      this.f16_offset, Binary16.packDouble(this.double_value));
+  }
+
+  /**
+   * @return The value of the field
+   */
+
+  @Benchmark
+  public float getF32()
+  {
+    return this.floats.getF32();
+  }
+
+  /**
+   * @return The value of the field
+   */
+
+  @Benchmark
+  public float getF32Baseline()
+  {
+    return this.floats_buffer.getFloat(this.f32_offset);
+  }
+
+  /**
+   * Set the value of the field.
+   */
+
+  @Benchmark
+  public void setF32()
+  {
+    this.floats.setF32(this.float_value);
+  }
+
+  /**
+   * Set the value of the field.
+   */
+
+  @Benchmark
+  public void setF32Baseline()
+  {
+    this.floats_buffer.putFloat(this.f32_offset, this.float_value);
+  }
+
+  /**
+   * @return The value of the field
+   */
+
+  @Benchmark
+  public double getF64()
+  {
+    return this.floats.getF64();
+  }
+
+  /**
+   * @return The value of the field
+   */
+
+  @Benchmark
+  public double getF64Baseline()
+  {
+    return this.floats_buffer.getDouble(this.f64_offset);
+  }
+
+  /**
+   * Set the value of the field.
+   */
+
+  @Benchmark
+  public void setF64()
+  {
+    this.floats.setF64(this.double_value);
+  }
+
+  /**
+   * Set the value of the field.
+   */
+
+  @Benchmark
+  public void setF64Baseline()
+  {
+    this.floats_buffer.putDouble(this.f64_offset, this.double_value);
+  }
+
+  /**
+   * @return The value of the field
+   */
+
+  @Benchmark
+  public double getUn16()
+  {
+    return this.normalized.getUn16();
+  }
+
+  /**
+   * @return The value of the field
+   */
+
+  @Benchmark
+  public double getUn16Baseline()
+  {
+    return NFPUnsignedDoubleInt.fromUnsignedNormalized16(
+      Short.toUnsignedInt(this.normalized_buffer.getShort(this.un16_offset)));
+  }
+
+  /**
+   * Set the value of the field.
+   */
+
+  @Benchmark
+  public void setUn16()
+  {
+    this.normalized.setUn16(this.double_value);
+  }
+
+  /**
+   * Set the value of the field.
+   */
+
+  @Benchmark
+  public void setUn16Baseline()
+  {
+    this.normalized_buffer.putShort(
+      this.un16_offset,
+      (short) NFPUnsignedDoubleInt.toUnsignedNormalized16(this.double_value));
+  }
+
+  /**
+   * @return The value of the field
+   */
+
+  @Benchmark
+  public double getSn32()
+  {
+    return this.normalized.getSn32();
+  }
+
+  /**
+   * @return The value of the field
+   */
+
+  @Benchmark
+  public double getSn32Baseline()
+  {
+    return NFPSignedDoubleInt.fromSignedNormalizedWithZero32(
+      this.normalized_buffer.getInt(this.sn32_offset));
+  }
+
+  /**
+   * Set the value of the field.
+   */
+
+  @Benchmark
+  public void setSn32()
+  {
+    this.normalized.setSn32(this.double_value);
+  }
+
+  /**
+   * Set the value of the field.
+   */
+
+  @Benchmark
+  public void setSn32Baseline()
+  {
+    this.normalized_buffer.putInt(
+      this.sn32_offset,
+      NFPSignedDoubleInt.toSignedNormalizedWithZero32(this.double_value));
+  }
+}
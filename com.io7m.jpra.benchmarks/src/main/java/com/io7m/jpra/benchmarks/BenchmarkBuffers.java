@@ -0,0 +1,85 @@
+/*
+ * Copyright © 2015 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.jpra.benchmarks;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Functions to allocate the buffers used by benchmarks.
+ */
+
+public final class BenchmarkBuffers
+{
+  /**
+   * The name of the heap buffer kind, for use in {@code @Param} annotations.
+   */
+
+  public static final String HEAP = "HEAP";
+
+  /**
+   * The name of the direct buffer kind, for use in {@code @Param}
+   * annotations.
+   */
+
+  public static final String DIRECT = "DIRECT";
+
+  private BenchmarkBuffers()
+  {
+    throw new AssertionError("Unreachable code!");
+  }
+
+  /**
+   * Allocate a buffer.
+   *
+   * @param kind   The kind of buffer ({@link #HEAP} or {@link #DIRECT})
+   * @param order  The byte order ({@code BIG_ENDIAN} or {@code
+   *               LITTLE_ENDIAN})
+   * @param octets The size of the buffer in octets
+   *
+   * @return A new buffer
+   */
+
+  public static ByteBuffer allocate(
+    final String kind,
+    final String order,
+    final int octets)
+  {
+    final ByteBuffer buffer;
+    switch (kind) {
+      case HEAP:
+        buffer = ByteBuffer.allocate(octets);
+        break;
+      case DIRECT:
+        buffer = ByteBuffer.allocateDirect(octets);
+        break;
+      default:
+        throw new IllegalArgumentException(
+          String.format("Unrecognized buffer kind: %s", kind));
+    }
+
+    if (ByteOrder.BIG_ENDIAN.toString().equals(order)) {
+      buffer.order(ByteOrder.BIG_ENDIAN);
+    } else if (ByteOrder.LITTLE_ENDIAN.toString().equals(order)) {
+      buffer.order(ByteOrder.LITTLE_ENDIAN);
+    } else {
+      throw new IllegalArgumentException(
+        String.format("Unrecognized byte order: %s", order));
+    }
+    return buffer;
+  }
+}
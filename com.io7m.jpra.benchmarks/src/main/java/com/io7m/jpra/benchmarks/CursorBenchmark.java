@@ -0,0 +1,199 @@
+/*
+ * Copyright © 2015 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.jpra.benchmarks;
+
+import com.io7m.jpra.benchmarks.schema.IntegersByteBuffered;
+import com.io7m.jpra.benchmarks.schema.IntegersType;
+import com.io7m.jpra.runtime.java.JPRACursor1DByteBufferedChecked;
+import com.io7m.jpra.runtime.java.JPRACursor1DByteBufferedUnchecked;
+import com.io7m.jpra.runtime.java.JPRACursor1DType;
+import com.io7m.jpra.runtime.java.JPRACursor2DByteBufferedChecked;
+import com.io7m.jpra.runtime.java.JPRACursor2DByteBufferedUnchecked;
+import com.io7m.jpra.runtime.java.JPRACursor2DType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Iteration over all elements of a buffer with checked and unchecked 1D and
+ * 2D cursors, compared against a hand-written loop over the buffer.
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class CursorBenchmark
+{
+  private static final int WIDTH = 64;
+
+  @Param({BenchmarkBuffers.HEAP, BenchmarkBuffers.DIRECT})
+  private String kind;
+
+  @Param({"BIG_ENDIAN", "LITTLE_ENDIAN"})
+  private String order;
+
+  @Param({"4096"})
+  private int count;
+
+  private ByteBuffer buffer;
+  private int size;
+  private int s32_offset;
+  private JPRACursor1DType<IntegersType> cursor_1d_checked;
+  private JPRACursor1DType<IntegersType> cursor_1d_unchecked;
+  private JPRACursor2DType<IntegersType> cursor_2d_checked;
+  private JPRACursor2DType<IntegersType> cursor_2d_unchecked;
+
+  /**
+   * Construct a benchmark.
+   */
+
+  public CursorBenchmark()
+  {
+
+  }
+
+  /**
+   * Allocate and fill the buffer.
+   */
+
+  @Setup
+  public void setup()
+  {
+    this.size = IntegersByteBuffered.sizeInOctets();
+    this.buffer = BenchmarkBuffers.allocate(
+      this.kind, this.order, this.count * this.size);
+
+    this.cursor_1d_checked = JPRACursor1DByteBufferedChecked.newCursor(
+      this.buffer, IntegersByteBuffered::newValueWithOffset);
+    this.cursor_1d_unchecked = JPRACursor1DByteBufferedUnchecked.newCursor(
+      this.buffer, IntegersByteBuffered::newValueWithOffset);
+    this.cursor_2d_checked = JPRACursor2DByteBufferedChecked.newCursor(
+      this.buffer,
+      WIDTH,
+      this.count / WIDTH,
+      IntegersByteBuffered::newValueWithOffset);
+    this.cursor_2d_unchecked = JPRACursor2DByteBufferedUnchecked.newCursor(
+      this.buffer,
+      WIDTH,
+      this.count / WIDTH,
+      IntegersByteBuffered::newValueWithOffset);
+
+    this.s32_offset =
+      this.cursor_1d_checked.getElementView().metaS32OffsetFromType();
+
+    for (int index = 0; index < this.count; ++index) {
+      this.buffer.putInt((index * this.size) + this.s32_offset, index);
+    }
+  }
+
+  /**
+   * @return The sum of all {@code s32} fields
+   */
+
+  @Benchmark
+  public long baseline()
+  {
+    final ByteBuffer b = this.buffer;
+    long sum = 0L;
+    for (int index = 0; index < this.count; ++index) {
+      sum += (long) b.getInt((index * this.size) + this.s32_offset);
+    }
+    return sum;
+  }
+
+  /**
+   * @return The sum of all {@code s32} fields
+   */
+
+  @Benchmark
+  public long cursor1DChecked()
+  {
+    return sum1D(this.cursor_1d_checked, this.count);
+  }
+
+  /**
+   * @return The sum of all {@code s32} fields
+   */
+
+  @Benchmark
+  public long cursor1DUnchecked()
+  {
+    return sum1D(this.cursor_1d_unchecked, this.count);
+  }
+
+  /**
+   * @return The sum of all {@code s32} fields
+   */
+
+  @Benchmark
+  public long cursor2DChecked()
+  {
+    return sum2D(this.cursor_2d_checked, this.count / WIDTH);
+  }
+
+  /**
+   * @return The sum of all {@code s32} fields
+   */
+
+  @Benchmark
+  public long cursor2DUnchecked()
+  {
+    return sum2D(this.cursor_2d_unchecked, this.count / WIDTH);
+  }
+
+  private static long sum1D(
+    final JPRACursor1DType<IntegersType> c,
+    final int count)
+  {
+    final IntegersType v = c.getElementView();
+    long sum = 0L;
+    for (int index = 0; index < count; ++index) {
+      c.setElementIndex(index);
+      sum += (long) v.getS32();
+    }
+    return sum;
+  }
+
+  private static long sum2D(
+    final JPRACursor2DType<IntegersType> c,
+    final int height)
+  {
+    final IntegersType v = c.getElementView();
+    long sum = 0L;
+    for (int y = 0; y < height; ++y) {
+      for (int x = 0; x < WIDTH; ++x) {
+        c.setElementPosition(x, y);
+        sum += (long) v.getS32();
+      }
+    }
+    return sum;
+  }
+}
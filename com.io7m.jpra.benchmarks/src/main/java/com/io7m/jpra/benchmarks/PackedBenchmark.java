@@ -0,0 +1,177 @@
+/*
+ * Copyright © 2015 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.jpra.benchmarks;
+
+import com.io7m.jpra.benchmarks.schema.Color8888ByteBuffered;
+import com.io7m.jpra.benchmarks.schema.Color8888Type;
+import com.io7m.jpra.runtime.java.JPRACursor1DByteBufferedChecked;
+import com.io7m.jpra.runtime.java.JPRACursor1DType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generated packed field getters and setters, compared against hand-written
+ * shifting and masking of a big-endian container read from the buffer.
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class PackedBenchmark
+{
+  @Param({BenchmarkBuffers.HEAP, BenchmarkBuffers.DIRECT})
+  private String kind;
+
+  @Param({"BIG_ENDIAN", "LITTLE_ENDIAN"})
+  private String order;
+
+  private ByteBuffer buffer;
+  private Color8888Type view;
+  private int offset;
+  private boolean swap;
+  private int value;
+
+  /**
+   * Construct a benchmark.
+   */
+
+  public PackedBenchmark()
+  {
+
+  }
+
+  /**
+   * Allocate the buffer and position the view on the second element.
+   */
+
+  @Setup
+  public void setup()
+  {
+    final int size = Color8888ByteBuffered.sizeInOctets();
+    this.buffer = BenchmarkBuffers.allocate(this.kind, this.order, size * 2);
+    final JPRACursor1DType<Color8888Type> c =
+      JPRACursor1DByteBufferedChecked.newCursor(
+        this.buffer, Color8888ByteBuffered::newValueWithOffset);
+    c.setElementIndex(1);
+    this.view = c.getElementView();
+    this.offset = size;
+    this.swap = this.buffer.order() != ByteOrder.BIG_ENDIAN;
+    this.value = 0x7f;
+    this.view.set(0x10, 0x20, 0x30, 0x40);
+  }
+
+  private int readContainer()
+  {
+    final int x = this.buffer.getInt(this.offset);
+    return this.swap ? Integer.reverseBytes(x) : x;
+  }
+
+  private void writeContainer(
+    final int x)
+  {
+    this.buffer.putInt(this.offset, this.swap ? Integer.reverseBytes(x) : x);
+  }
+
+  /**
+   * @return The value of the field
+   */
+
+  @Benchmark
+  public int getG()
+  {
+    return this.view.getGRaw();
+  }
+
+  /**
+   * @return The value of the field
+   */
+
+  @Benchmark
+  public int getGBaseline()
+  {
+    return (this.readContainer() >>> 16) & 0xff;
+  }
+
+  /**
+   * Set the value of the field.
+   */
+
+  @Benchmark
+  public void setG()
+  {
+    this.view.setGRaw(this.value);
+  }
+
+  /**
+   * Set the value of the field.
+   */
+
+  @Benchmark
+  public void setGBaseline()
+  {
+    final int x = this.readContainer();
+    this.writeContainer((x & 0xff00ffff) | ((this.value & 0xff) << 16));
+  }
+
+  /**
+   * @return The value of the field in normalized form
+   */
+
+  @Benchmark
+  public double getGNormalized()
+  {
+    return this.view.getG();
+  }
+
+  /**
+   * Set all fields at once.
+   */
+
+  @Benchmark
+  public void setAll()
+  {
+    final int x = this.value;
+    this.view.set(x, x, x, x);
+  }
+
+  /**
+   * Set all fields at once.
+   */
+
+  @Benchmark
+  public void setAllBaseline()
+  {
+    final int x = this.value & 0xff;
+    this.writeContainer((x << 24) | (x << 16) | (x << 8) | x);
+  }
+}
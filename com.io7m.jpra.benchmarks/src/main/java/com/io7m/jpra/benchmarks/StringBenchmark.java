@@ -0,0 +1,142 @@
+/*
+ * Copyright © 2015 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.jpra.benchmarks;
+
+import com.io7m.jpra.benchmarks.schema.StringsByteBuffered;
+import com.io7m.jpra.benchmarks.schema.StringsType;
+import com.io7m.jpra.runtime.java.JPRACursor1DByteBufferedChecked;
+import com.io7m.jpra.runtime.java.JPRACursor1DType;
+import com.io7m.jpra.runtime.java.JPRAStringTruncation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generated string field reads and writes, compared against hand-written
+ * encoding and decoding of a length-prefixed UTF-8 string at the same
+ * offset.
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class StringBenchmark
+{
+  @Param({BenchmarkBuffers.HEAP, BenchmarkBuffers.DIRECT})
+  private String kind;
+
+  @Param({"BIG_ENDIAN", "LITTLE_ENDIAN"})
+  private String order;
+
+  @Param({"Hello", "A string of exactly thirty-two!!"})
+  private String text;
+
+  private ByteBuffer buffer;
+  private StringsType view;
+  private int offset;
+
+  /**
+   * Construct a benchmark.
+   */
+
+  public StringBenchmark()
+  {
+
+  }
+
+  /**
+   * Allocate the buffer and position the view on the second element.
+   */
+
+  @Setup
+  public void setup()
+  {
+    final int size = StringsByteBuffered.sizeInOctets();
+    this.buffer = BenchmarkBuffers.allocate(this.kind, this.order, size * 2);
+    final JPRACursor1DType<StringsType> c =
+      JPRACursor1DByteBufferedChecked.newCursor(
+        this.buffer, StringsByteBuffered::newValueWithOffset);
+    c.setElementIndex(1);
+    this.view = c.getElementView();
+    this.offset = size + this.view.metaSOffsetFromType();
+    this.view.getSWritable().setValue(this.text, JPRAStringTruncation.TRUNCATE);
+  }
+
+  /**
+   * @return The value of the field
+   */
+
+  @Benchmark
+  public String read()
+  {
+    return this.view.getSReadable().getNewValue();
+  }
+
+  /**
+   * @return The value of the field
+   */
+
+  @Benchmark
+  public String readBaseline()
+  {
+    final int length = this.buffer.getInt(this.offset);
+    final ByteBuffer data = this.buffer.duplicate();
+    data.limit(this.offset + 4 + length);
+    data.position(this.offset + 4);
+    return StandardCharsets.UTF_8.decode(data).toString();
+  }
+
+  /**
+   * Set the value of the field.
+   */
+
+  @Benchmark
+  public void write()
+  {
+    this.view.getSWritable().setValue(this.text, JPRAStringTruncation.TRUNCATE);
+  }
+
+  /**
+   * Set the value of the field.
+   */
+
+  @Benchmark
+  public void writeBaseline()
+  {
+    final byte[] data = this.text.getBytes(StandardCharsets.UTF_8);
+    final int length = Math.min(data.length, 32);
+    this.buffer.putInt(this.offset, length);
+    for (int index = 0; index < length; ++index) {
+      this.buffer.put(this.offset + 4 + index, data[index]);
+    }
+  }
+}
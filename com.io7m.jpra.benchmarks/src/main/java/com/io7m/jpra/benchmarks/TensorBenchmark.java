@@ -0,0 +1,266 @@
+/*
+ * Copyright © 2015 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.jpra.benchmarks;
+
+import com.io7m.jpra.benchmarks.schema.TensorsByteBuffered;
+import com.io7m.jpra.benchmarks.schema.TensorsType;
+import com.io7m.jpra.runtime.java.JPRACursor1DByteBufferedChecked;
+import com.io7m.jpra.runtime.java.JPRACursor1DType;
+import com.io7m.jtensors.core.unparameterized.matrices.Matrix4x4D;
+import com.io7m.jtensors.core.unparameterized.matrices.MatrixReadable4x4DType;
+import com.io7m.jtensors.core.unparameterized.vectors.VectorReadable3DType;
+import com.io7m.jtensors.core.unparameterized.vectors.VectorReadable4DType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generated vector and matrix field access, compared against hand-written
+ * absolute {@code ByteBuffer} accesses of the individual components.
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class TensorBenchmark
+{
+  @Param({BenchmarkBuffers.HEAP, BenchmarkBuffers.DIRECT})
+  private String kind;
+
+  @Param({"BIG_ENDIAN", "LITTLE_ENDIAN"})
+  private String order;
+
+  private ByteBuffer buffer;
+  private TensorsType view;
+  private int v3f_offset;
+  private int v4d_offset;
+  private int m4f_offset;
+  private double value;
+  private Matrix4x4D matrix;
+
+  /**
+   * Construct a benchmark.
+   */
+
+  public TensorBenchmark()
+  {
+
+  }
+
+  /**
+   * Allocate the buffer and position the view on the second element.
+   */
+
+  @Setup
+  public void setup()
+  {
+    final int size = TensorsByteBuffered.sizeInOctets();
+    this.buffer = BenchmarkBuffers.allocate(this.kind, this.order, size * 2);
+    final JPRACursor1DType<TensorsType> c =
+      JPRACursor1DByteBufferedChecked.newCursor(
+        this.buffer, TensorsByteBuffered::newValueWithOffset);
+    c.setElementIndex(1);
+    this.view = c.getElementView();
+    this.v3f_offset = size + this.view.metaV3fOffsetFromType();
+    this.v4d_offset = size + this.view.metaV4dOffsetFromType();
+    this.m4f_offset = size + this.view.metaM4fOffsetFromType();
+    this.value = 1.0;
+    this.matrix = Matrix4x4D.of(
+      1.0, 2.0, 3.0, 4.0,
+      5.0, 6.0, 7.0, 8.0,
+      9.0, 10.0, 11.0, 12.0,
+      13.0, 14.0, 15.0, 16.0);
+  }
+
+  /**
+   * @return The sum of the vector components
+   */
+
+  @Benchmark
+  public double readVector3F()
+  {
+    final VectorReadable3DType v = this.view.getV3fReadable();
+    return v.x() + v.y() + v.z();
+  }
+
+  /**
+   * @return The sum of the vector components
+   */
+
+  @Benchmark
+  public double readVector3FBaseline()
+  {
+    final ByteBuffer b = this.buffer;
+    final int o = this.v3f_offset;
+    return (double) b.getFloat(o)
+      + (double) b.getFloat(o + 4)
+      + (double) b.getFloat(o + 8);
+  }
+
+  /**
+   * Set the vector components.
+   */
+
+  @Benchmark
+  public void writeVector3F()
+  {
+    final double x = this.value;
+    this.view.getV3fWritable().setXYZ(x, x, x);
+  }
+
+  /**
+   * Set the vector components.
+   */
+
+  @Benchmark
+  public void writeVector3FBaseline()
+  {
+    final ByteBuffer b = this.buffer;
+    final int o = this.v3f_offset;
+    final float x = (float) this.value;
+    b.putFloat(o, x);
+    b.putFloat(o + 4, x);
+    b.putFloat(o + 8, x);
+  }
+
+  /**
+   * @return The sum of the vector components
+   */
+
+  @Benchmark
+  public double readVector4D()
+  {
+    final VectorReadable4DType v = this.view.getV4dReadable();
+    return v.x() + v.y() + v.z() + v.w();
+  }
+
+  /**
+   * @return The sum of the vector components
+   */
+
+  @Benchmark
+  public double readVector4DBaseline()
+  {
+    final ByteBuffer b = this.buffer;
+    final int o = this.v4d_offset;
+    return b.getDouble(o)
+      + b.getDouble(o + 8)
+      + b.getDouble(o + 16)
+      + b.getDouble(o + 24);
+  }
+
+  /**
+   * Set the vector components.
+   */
+
+  @Benchmark
+  public void writeVector4D()
+  {
+    final double x = this.value;
+    this.view.getV4dWritable().setXYZW(x, x, x, x);
+  }
+
+  /**
+   * Set the vector components.
+   */
+
+  @Benchmark
+  public void writeVector4DBaseline()
+  {
+    final ByteBuffer b = this.buffer;
+    final int o = this.v4d_offset;
+    final double x = this.value;
+    b.putDouble(o, x);
+    b.putDouble(o + 8, x);
+    b.putDouble(o + 16, x);
+    b.putDouble(o + 24, x);
+  }
+
+  /**
+   * @return The sum of the matrix components
+   */
+
+  @Benchmark
+  public double readMatrix4F()
+  {
+    final MatrixReadable4x4DType m = this.view.getM4fReadable();
+    double sum = 0.0;
+    for (int row = 0; row < 4; ++row) {
+      for (int col = 0; col < 4; ++col) {
+        sum += m.rowColumn(row, col);
+      }
+    }
+    return sum;
+  }
+
+  /**
+   * @return The sum of the matrix components
+   */
+
+  @Benchmark
+  public double readMatrix4FBaseline()
+  {
+    final ByteBuffer b = this.buffer;
+    final int o = this.m4f_offset;
+    double sum = 0.0;
+    for (int index = 0; index < 16; ++index) {
+      sum += (double) b.getFloat(o + (index * 4));
+    }
+    return sum;
+  }
+
+  /**
+   * Set the matrix components.
+   */
+
+  @Benchmark
+  public void writeMatrix4F()
+  {
+    this.view.getM4fWritable().setMatrix4x4D(this.matrix);
+  }
+
+  /**
+   * Set the matrix components.
+   */
+
+  @Benchmark
+  public void writeMatrix4FBaseline()
+  {
+    final ByteBuffer b = this.buffer;
+    final int o = this.m4f_offset;
+    final Matrix4x4D m = this.matrix;
+    for (int col = 0; col < 4; ++col) {
+      for (int row = 0; row < 4; ++row) {
+        b.putFloat(o + (((col * 4) + row) * 4), (float) m.rowColumn(row, col));
+      }
+    }
+  }
+}
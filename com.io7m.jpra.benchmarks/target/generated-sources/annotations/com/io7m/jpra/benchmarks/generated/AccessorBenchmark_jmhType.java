@@ -0,0 +1,4 @@
+package com.io7m.jpra.benchmarks.generated;
+public class AccessorBenchmark_jmhType extends AccessorBenchmark_jmhType_B3 {
+}
+
@@ -0,0 +1,4 @@
+package com.io7m.jpra.benchmarks.generated;
+public class CursorBenchmark_jmhType extends CursorBenchmark_jmhType_B3 {
+}
+
@@ -0,0 +1,4 @@
+package com.io7m.jpra.benchmarks.generated;
+public class PackedBenchmark_jmhType extends PackedBenchmark_jmhType_B3 {
+}
+
@@ -0,0 +1,4 @@
+package com.io7m.jpra.benchmarks.generated;
+public class StringBenchmark_jmhType extends StringBenchmark_jmhType_B3 {
+}
+
@@ -0,0 +1,4 @@
+package com.io7m.jpra.benchmarks.generated;
+public class TensorBenchmark_jmhType extends TensorBenchmark_jmhType_B3 {
+}
+
@@ -0,0 +1,330 @@
+package com.io7m.jpra.benchmarks.schema;
+
+import com.io7m.jnfp.core.NFPUnsignedDoubleInt;
+import com.io7m.jpra.runtime.java.JPRAByteBufferedRebindableType;
+import com.io7m.jpra.runtime.java.JPRACursorByteReadableType;
+import com.io7m.jpra.runtime.java.JPRAPayloadLayout;
+import java.lang.Override;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Objects;
+
+/**
+ * A {@code ByteBuffer} based implementation of the {@code TypeName{value=Color8888}} packed type. */
+public final class Color8888ByteBuffered implements Color8888Type, JPRAByteBufferedRebindableType {
+  private static final int SIZE_OCTETS = 4;
+
+  private static final JPRAPayloadLayout PAYLOAD_LAYOUT = JPRAPayloadLayout.of(4, new int[]{0, 4}, new int[]{}, new byte[]{});
+
+  /**
+   * The layout fingerprint of the type. Two builds agree on the byte
+   * layout of the type if their fingerprints are equal.
+   */
+  public static final long LAYOUT_FINGERPRINT = 0xedda0c31a0ffe045L;
+
+  private ByteBuffer buffer;
+
+  private final ByteBuffer pack_buffer;
+
+  private final int base_offset;
+
+  private final JPRACursorByteReadableType pointer;
+
+  private Color8888ByteBuffered(final ByteBuffer in_buffer,
+      final JPRACursorByteReadableType in_pointer, final int in_base_offset) {
+    this.buffer = Objects.requireNonNull(in_buffer, "Buffer");
+    this.pack_buffer = ByteBuffer.allocate(4);
+    this.pack_buffer.order(ByteOrder.BIG_ENDIAN);
+    this.pointer = Objects.requireNonNull(in_pointer, "Pointer");
+    this.base_offset = in_base_offset;
+  }
+
+  /**
+   * Construct a view of a type.
+   * @param in_buffer A byte buffer
+   * @param in_pointer A cursor
+   * @param in_base_offset The base offset from the cursor
+   * @return A view of a type
+   */
+  public static Color8888Type newValueWithOffset(final ByteBuffer in_buffer,
+      final JPRACursorByteReadableType in_pointer, final int in_base_offset) {
+    return new Color8888ByteBuffered(in_buffer, in_pointer, in_base_offset);
+  }
+
+  /**
+   * Construct a view of a type.
+   * @param in_buffer A byte buffer
+   * @param in_pointer A cursor
+   * @return A view of a type
+   */
+  public static Color8888Type newValue(final ByteBuffer in_buffer,
+      final JPRACursorByteReadableType in_pointer) {
+    return new Color8888ByteBuffered(in_buffer, in_pointer, 0);
+  }
+
+  @Override
+  public int sizeOctets() {
+    return SIZE_OCTETS;
+  }
+
+  /**
+   * @return The size of the type in octets
+   */
+  public static int sizeInOctets() {
+    return SIZE_OCTETS;
+  }
+
+  @Override
+  public void rebind(final ByteBuffer in_buffer) {
+    this.buffer = Objects.requireNonNull(in_buffer, "Buffer");
+  }
+
+  private int getByteOffset() {
+    final int b = (int) this.pointer.getByteOffsetObservable().value();
+    return b + this.base_offset;
+  }
+
+  @Override
+  public int getRRaw() {
+     {
+      final int off = this.getByteOffset();
+      this.pack_buffer.put(0, this.buffer.get(off + 0));
+      this.pack_buffer.put(1, this.buffer.get(off + 1));
+      this.pack_buffer.put(2, this.buffer.get(off + 2));
+      this.pack_buffer.put(3, this.buffer.get(off + 3));
+    }
+    final int read = this.pack_buffer.getInt(0);
+    return (int) ((read >>> 24) & 0b00000000_00000000_00000000_11111111);
+  }
+
+  @Override
+  public void setRRaw(final int x) {
+     {
+      final int off = this.getByteOffset();
+      this.pack_buffer.put(0, this.buffer.get(off + 0));
+      this.pack_buffer.put(1, this.buffer.get(off + 1));
+      this.pack_buffer.put(2, this.buffer.get(off + 2));
+      this.pack_buffer.put(3, this.buffer.get(off + 3));
+    }
+    final int result = this.pack_buffer.getInt(0);
+    final int r_mask = 0b00000000_11111111_11111111_11111111;
+    final int x_mask = 0b00000000_00000000_00000000_11111111;
+    final int x_valu = (x & x_mask) << 24;
+    final int w_valu = (result & r_mask) | x_valu;
+     {
+      final int off = this.getByteOffset();
+      this.pack_buffer.putInt(0, (int) w_valu);
+      this.buffer.put(off + 0, this.pack_buffer.get(0));
+      this.buffer.put(off + 1, this.pack_buffer.get(1));
+      this.buffer.put(off + 2, this.pack_buffer.get(2));
+      this.buffer.put(off + 3, this.pack_buffer.get(3));
+    }
+  }
+
+  @Override
+  public double getR() {
+    return NFPUnsignedDoubleInt.fromUnsignedNormalized8(this.getRRaw());
+  }
+
+  @Override
+  public void setR(final double x) {
+    this.setRRaw(NFPUnsignedDoubleInt.toUnsignedNormalized8(x));
+  }
+
+  @Override
+  public int getGRaw() {
+     {
+      final int off = this.getByteOffset();
+      this.pack_buffer.put(0, this.buffer.get(off + 0));
+      this.pack_buffer.put(1, this.buffer.get(off + 1));
+      this.pack_buffer.put(2, this.buffer.get(off + 2));
+      this.pack_buffer.put(3, this.buffer.get(off + 3));
+    }
+    final int read = this.pack_buffer.getInt(0);
+    return (int) ((read >>> 16) & 0b00000000_00000000_00000000_11111111);
+  }
+
+  @Override
+  public void setGRaw(final int x) {
+     {
+      final int off = this.getByteOffset();
+      this.pack_buffer.put(0, this.buffer.get(off + 0));
+      this.pack_buffer.put(1, this.buffer.get(off + 1));
+      this.pack_buffer.put(2, this.buffer.get(off + 2));
+      this.pack_buffer.put(3, this.buffer.get(off + 3));
+    }
+    final int result = this.pack_buffer.getInt(0);
+    final int r_mask = 0b11111111_00000000_11111111_11111111;
+    final int x_mask = 0b00000000_00000000_00000000_11111111;
+    final int x_valu = (x & x_mask) << 16;
+    final int w_valu = (result & r_mask) | x_valu;
+     {
+      final int off = this.getByteOffset();
+      this.pack_buffer.putInt(0, (int) w_valu);
+      this.buffer.put(off + 0, this.pack_buffer.get(0));
+      this.buffer.put(off + 1, this.pack_buffer.get(1));
+      this.buffer.put(off + 2, this.pack_buffer.get(2));
+      this.buffer.put(off + 3, this.pack_buffer.get(3));
+    }
+  }
+
+  @Override
+  public double getG() {
+    return NFPUnsignedDoubleInt.fromUnsignedNormalized8(this.getGRaw());
+  }
+
+  @Override
+  public void setG(final double x) {
+    this.setGRaw(NFPUnsignedDoubleInt.toUnsignedNormalized8(x));
+  }
+
+  @Override
+  public int getBRaw() {
+     {
+      final int off = this.getByteOffset();
+      this.pack_buffer.put(0, this.buffer.get(off + 0));
+      this.pack_buffer.put(1, this.buffer.get(off + 1));
+      this.pack_buffer.put(2, this.buffer.get(off + 2));
+      this.pack_buffer.put(3, this.buffer.get(off + 3));
+    }
+    final int read = this.pack_buffer.getInt(0);
+    return (int) ((read >>> 8) & 0b00000000_00000000_00000000_11111111);
+  }
+
+  @Override
+  public void setBRaw(final int x) {
+     {
+      final int off = this.getByteOffset();
+      this.pack_buffer.put(0, this.buffer.get(off + 0));
+      this.pack_buffer.put(1, this.buffer.get(off + 1));
+      this.pack_buffer.put(2, this.buffer.get(off + 2));
+      this.pack_buffer.put(3, this.buffer.get(off + 3));
+    }
+    final int result = this.pack_buffer.getInt(0);
+    final int r_mask = 0b11111111_11111111_00000000_11111111;
+    final int x_mask = 0b00000000_00000000_00000000_11111111;
+    final int x_valu = (x & x_mask) << 8;
+    final int w_valu = (result & r_mask) | x_valu;
+     {
+      final int off = this.getByteOffset();
+      this.pack_buffer.putInt(0, (int) w_valu);
+      this.buffer.put(off + 0, this.pack_buffer.get(0));
+      this.buffer.put(off + 1, this.pack_buffer.get(1));
+      this.buffer.put(off + 2, this.pack_buffer.get(2));
+      this.buffer.put(off + 3, this.pack_buffer.get(3));
+    }
+  }
+
+  @Override
+  public double getB() {
+    return NFPUnsignedDoubleInt.fromUnsignedNormalized8(this.getBRaw());
+  }
+
+  @Override
+  public void setB(final double x) {
+    this.setBRaw(NFPUnsignedDoubleInt.toUnsignedNormalized8(x));
+  }
+
+  @Override
+  public int getARaw() {
+     {
+      final int off = this.getByteOffset();
+      this.pack_buffer.put(0, this.buffer.get(off + 0));
+      this.pack_buffer.put(1, this.buffer.get(off + 1));
+      this.pack_buffer.put(2, this.buffer.get(off + 2));
+      this.pack_buffer.put(3, this.buffer.get(off + 3));
+    }
+    final int read = this.pack_buffer.getInt(0);
+    return (int) ((read >>> 0) & 0b00000000_00000000_00000000_11111111);
+  }
+
+  @Override
+  public void setARaw(final int x) {
+     {
+      final int off = this.getByteOffset();
+      this.pack_buffer.put(0, this.buffer.get(off + 0));
+      this.pack_buffer.put(1, this.buffer.get(off + 1));
+      this.pack_buffer.put(2, this.buffer.get(off + 2));
+      this.pack_buffer.put(3, this.buffer.get(off + 3));
+    }
+    final int result = this.pack_buffer.getInt(0);
+    final int r_mask = 0b11111111_11111111_11111111_00000000;
+    final int x_mask = 0b00000000_00000000_00000000_11111111;
+    final int x_valu = (x & x_mask) << 0;
+    final int w_valu = (result & r_mask) | x_valu;
+     {
+      final int off = this.getByteOffset();
+      this.pack_buffer.putInt(0, (int) w_valu);
+      this.buffer.put(off + 0, this.pack_buffer.get(0));
+      this.buffer.put(off + 1, this.pack_buffer.get(1));
+      this.buffer.put(off + 2, this.pack_buffer.get(2));
+      this.buffer.put(off + 3, this.pack_buffer.get(3));
+    }
+  }
+
+  @Override
+  public double getA() {
+    return NFPUnsignedDoubleInt.fromUnsignedNormalized8(this.getARaw());
+  }
+
+  @Override
+  public void setA(final double x) {
+    this.setARaw(NFPUnsignedDoubleInt.toUnsignedNormalized8(x));
+  }
+
+  @Override
+  public void set(final double r, final double g, final double b, final double a) {
+    int result = 0;
+    final int r_conv = NFPUnsignedDoubleInt.toUnsignedNormalized8(r);
+    final int r_valu = r_conv << 24;
+    result |= r_valu;
+    final int g_conv = NFPUnsignedDoubleInt.toUnsignedNormalized8(g);
+    final int g_valu = g_conv << 16;
+    result |= g_valu;
+    final int b_conv = NFPUnsignedDoubleInt.toUnsignedNormalized8(b);
+    final int b_valu = b_conv << 8;
+    result |= b_valu;
+    final int a_conv = NFPUnsignedDoubleInt.toUnsignedNormalized8(a);
+    final int a_valu = a_conv << 0;
+    result |= a_valu;
+     {
+      final int off = this.getByteOffset();
+      this.pack_buffer.putInt(0, (int) result);
+      this.buffer.put(off + 0, this.pack_buffer.get(0));
+      this.buffer.put(off + 1, this.pack_buffer.get(1));
+      this.buffer.put(off + 2, this.pack_buffer.get(2));
+      this.buffer.put(off + 3, this.pack_buffer.get(3));
+    }
+  }
+
+  /**
+   * @return The layout of the significant (non-padding) octets of the type
+   */
+  public static JPRAPayloadLayout payloadLayout() {
+    return PAYLOAD_LAYOUT;
+  }
+
+  /**
+   * @return The layout fingerprint of the type
+   */
+  public static long layoutFingerprint() {
+    return LAYOUT_FINGERPRINT;
+  }
+
+  @Override
+  public boolean equalsBytes(final Color8888ReadableType other) {
+    final Color8888ByteBuffered o = (Color8888ByteBuffered) Objects.requireNonNull(other, "Other");
+    return PAYLOAD_LAYOUT.equal(this.buffer, this.getByteOffset(), o.buffer, o.getByteOffset());
+  }
+
+  @Override
+  public int mismatch(final Color8888ReadableType other) {
+    final Color8888ByteBuffered o = (Color8888ByteBuffered) Objects.requireNonNull(other, "Other");
+    return PAYLOAD_LAYOUT.mismatch(this.buffer, this.getByteOffset(), o.buffer, o.getByteOffset());
+  }
+
+  @Override
+  public long hashBytes() {
+    return PAYLOAD_LAYOUT.hash(this.buffer, this.getByteOffset());
+  }
+}
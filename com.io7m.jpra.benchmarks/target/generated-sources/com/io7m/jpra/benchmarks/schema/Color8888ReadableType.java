@@ -0,0 +1,62 @@
+package com.io7m.jpra.benchmarks.schema;
+
+import com.io7m.jpra.runtime.java.JPRAValueType;
+
+/**
+ * The readable interface to values of the {@code TypeName{value=Color8888}} packed type. */
+public interface Color8888ReadableType extends JPRAValueType {
+  /**
+   * @return The value of the {@code FieldName{value=r}} field */
+  double getR();
+
+  /**
+   * @return The value of the {@code FieldName{value=r}} field */
+  int getRRaw();
+
+  /**
+   * @return The value of the {@code FieldName{value=g}} field */
+  double getG();
+
+  /**
+   * @return The value of the {@code FieldName{value=g}} field */
+  int getGRaw();
+
+  /**
+   * @return The value of the {@code FieldName{value=b}} field */
+  double getB();
+
+  /**
+   * @return The value of the {@code FieldName{value=b}} field */
+  int getBRaw();
+
+  /**
+   * @return The value of the {@code FieldName{value=a}} field */
+  double getA();
+
+  /**
+   * @return The value of the {@code FieldName{value=a}} field */
+  int getARaw();
+
+  /**
+   * Compare the significant octets of this value with {@code other}. Padding, and string data past the current length of each string, is ignored.
+   *
+   * @param other A value produced by the same implementation
+   *
+   * @return {@code true} iff the values are bytewise equal
+   */
+  boolean equalsBytes(Color8888ReadableType other);
+
+  /**
+   * Find the first significant octet that differs between this value and {@code other}. Padding is ignored.
+   *
+   * @param other A value produced by the same implementation
+   *
+   * @return The offset of the first differing octet relative to the start of the value, or {@code -1} if the values are equal
+   */
+  int mismatch(Color8888ReadableType other);
+
+  /**
+   * @return A 64-bit hash of the significant octets of this value. The hash depends only on those octets and is therefore the same on every JVM, but values written in different byte orders have different octets
+   */
+  long hashBytes();
+}
@@ -0,0 +1,8 @@
+package com.io7m.jpra.benchmarks.schema;
+
+import com.io7m.jpra.runtime.java.JPRAValueType;
+
+/**
+ * The interface to values of the {@code TypeName{value=Color8888}} packed type. */
+public interface Color8888Type extends Color8888WritableType, Color8888ReadableType, JPRAValueType {
+}
@@ -0,0 +1,60 @@
+package com.io7m.jpra.benchmarks.schema;
+
+import com.io7m.jpra.runtime.java.JPRAValueType;
+
+/**
+ * The writable interface to values of the {@code Color8888WritableType} packed type. */
+public interface Color8888WritableType extends JPRAValueType {
+  /**
+   * Set the value of the {@code FieldName{value=r}} field.
+   * @param x The new value (in the range {@code [0, 1]}) */
+  void setR(final double x);
+
+  /**
+   * Set the value of the {@code FieldName{value=r}} field.
+   * The 8 least significant bits of {@code x} will be used.
+   * @param x The new value */
+  void setRRaw(final int x);
+
+  /**
+   * Set the value of the {@code FieldName{value=g}} field.
+   * @param x The new value (in the range {@code [0, 1]}) */
+  void setG(final double x);
+
+  /**
+   * Set the value of the {@code FieldName{value=g}} field.
+   * The 8 least significant bits of {@code x} will be used.
+   * @param x The new value */
+  void setGRaw(final int x);
+
+  /**
+   * Set the value of the {@code FieldName{value=b}} field.
+   * @param x The new value (in the range {@code [0, 1]}) */
+  void setB(final double x);
+
+  /**
+   * Set the value of the {@code FieldName{value=b}} field.
+   * The 8 least significant bits of {@code x} will be used.
+   * @param x The new value */
+  void setBRaw(final int x);
+
+  /**
+   * Set the value of the {@code FieldName{value=a}} field.
+   * @param x The new value (in the range {@code [0, 1]}) */
+  void setA(final double x);
+
+  /**
+   * Set the value of the {@code FieldName{value=a}} field.
+   * The 8 least significant bits of {@code x} will be used.
+   * @param x The new value */
+  void setARaw(final int x);
+
+  /**
+   * Set the value of all fields.
+   * @param FieldName{value=r} The value for field {@code FieldName{value=r}}
+   * @param FieldName{value=g} The value for field {@code FieldName{value=g}}
+   * @param FieldName{value=b} The value for field {@code FieldName{value=b}}
+   * @param FieldName{value=a} The value for field {@code FieldName{value=a}}
+   */
+  void set(final double r, final double g, final double b, final double a);
+}
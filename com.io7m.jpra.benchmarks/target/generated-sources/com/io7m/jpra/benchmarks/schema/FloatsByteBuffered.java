@@ -0,0 +1,224 @@
+package com.io7m.jpra.benchmarks.schema;
+
+import com.io7m.ieee754b16.Binary16;
+import com.io7m.jpra.runtime.java.JPRAByteBufferedRebindableType;
+import com.io7m.jpra.runtime.java.JPRACursorByteReadableType;
+import com.io7m.jpra.runtime.java.JPRAPayloadLayout;
+import com.io7m.jpra.runtime.java.JPRATypeModel;
+import java.lang.Override;
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
+/**
+ * A {@code ByteBuffer} based implementation of the {@code TypeName{value=Floats}} record type. */
+public final class FloatsByteBuffered implements FloatsType, JPRAByteBufferedRebindableType {
+  private static final int SIZE_OCTETS = 16;
+
+  private static final int FIELD_F16_OFFSET_OCTETS = 0;
+
+  private static final int FIELD_F32_OFFSET_OCTETS = 4;
+
+  private static final int FIELD_F64_OFFSET_OCTETS = 8;
+
+  private static final JPRAPayloadLayout PAYLOAD_LAYOUT = JPRAPayloadLayout.of(16, new int[]{0, 2, 4, 12}, new int[]{}, new byte[]{});
+
+  /**
+   * The layout fingerprint of the type. Two builds agree on the byte
+   * layout of the type if their fingerprints are equal.
+   */
+  public static final long LAYOUT_FINGERPRINT = 0x73089e0052ae38b9L;
+
+  private ByteBuffer buffer;
+
+  private final int base_offset;
+
+  private final JPRACursorByteReadableType pointer;
+
+  private final JPRATypeModel.JPRAFloat meta_type_f16;
+
+  private final JPRATypeModel.JPRAFloat meta_type_f32;
+
+  private final JPRATypeModel.JPRAFloat meta_type_f64;
+
+  private FloatsByteBuffered(final ByteBuffer in_buffer,
+      final JPRACursorByteReadableType in_pointer, final int in_base_offset) {
+    this.buffer = Objects.requireNonNull(in_buffer, "Buffer");
+    this.pointer = Objects.requireNonNull(in_pointer, "Pointer");
+    this.base_offset = in_base_offset;
+    this.meta_type_f16 = JPRATypeModel.JPRAFloat.of(16);
+    this.meta_type_f32 = JPRATypeModel.JPRAFloat.of(32);
+    this.meta_type_f64 = JPRATypeModel.JPRAFloat.of(64);
+  }
+
+  /**
+   * Construct a view of a type.
+   * @param in_buffer A byte buffer
+   * @param in_pointer A cursor
+   * @param in_base_offset The base offset from the cursor
+   * @return A view of a type
+   */
+  public static FloatsType newValueWithOffset(final ByteBuffer in_buffer,
+      final JPRACursorByteReadableType in_pointer, final int in_base_offset) {
+    return new FloatsByteBuffered(in_buffer, in_pointer, in_base_offset);
+  }
+
+  /**
+   * Construct a view of a type.
+   * @param in_buffer A byte buffer
+   * @param in_pointer A cursor
+   * @return A view of a type
+   */
+  public static FloatsType newValue(final ByteBuffer in_buffer,
+      final JPRACursorByteReadableType in_pointer) {
+    return new FloatsByteBuffered(in_buffer, in_pointer, 0);
+  }
+
+  @Override
+  public int sizeOctets() {
+    return SIZE_OCTETS;
+  }
+
+  /**
+   * @return The size of the type in octets
+   */
+  public static int sizeInOctets() {
+    return SIZE_OCTETS;
+  }
+
+  @Override
+  public void rebind(final ByteBuffer in_buffer) {
+    this.buffer = Objects.requireNonNull(in_buffer, "Buffer");
+  }
+
+  private int getByteOffsetFor(final int field_offset) {
+    final int b = (int) this.pointer.getByteOffsetObservable().value();
+    return b + this.base_offset + field_offset;
+  }
+
+  @Override
+  public int metaF16OffsetFromType() {
+    return FIELD_F16_OFFSET_OCTETS;
+  }
+
+  /**
+   * @return The offset in octets of field {@code f16} from the start of the type
+   */
+  public static int metaF16StaticOffsetFromType() {
+    return FIELD_F16_OFFSET_OCTETS;
+  }
+
+  @Override
+  public int metaF16OffsetFromCursor() {
+    return FIELD_F16_OFFSET_OCTETS + this.base_offset;
+  }
+
+  @Override
+  public JPRATypeModel.JPRAFloat metaF16Type() {
+    return this.meta_type_f16;
+  }
+
+  @Override
+  public double getF16() {
+    return Binary16.unpackDouble(buffer.getChar(this.getByteOffsetFor(FIELD_F16_OFFSET_OCTETS)));
+  }
+
+  @Override
+  public void setF16(final double x) {
+    this.buffer.putChar(this.getByteOffsetFor(FIELD_F16_OFFSET_OCTETS), Binary16.packDouble(x));
+  }
+
+  @Override
+  public int metaF32OffsetFromType() {
+    return FIELD_F32_OFFSET_OCTETS;
+  }
+
+  /**
+   * @return The offset in octets of field {@code f32} from the start of the type
+   */
+  public static int metaF32StaticOffsetFromType() {
+    return FIELD_F32_OFFSET_OCTETS;
+  }
+
+  @Override
+  public int metaF32OffsetFromCursor() {
+    return FIELD_F32_OFFSET_OCTETS + this.base_offset;
+  }
+
+  @Override
+  public JPRATypeModel.JPRAFloat metaF32Type() {
+    return this.meta_type_f32;
+  }
+
+  @Override
+  public float getF32() {
+    return this.buffer.getFloat(this.getByteOffsetFor(FIELD_F32_OFFSET_OCTETS));
+  }
+
+  @Override
+  public void setF32(final float x) {
+    this.buffer.putFloat(this.getByteOffsetFor(FIELD_F32_OFFSET_OCTETS), x);
+  }
+
+  @Override
+  public int metaF64OffsetFromType() {
+    return FIELD_F64_OFFSET_OCTETS;
+  }
+
+  /**
+   * @return The offset in octets of field {@code f64} from the start of the type
+   */
+  public static int metaF64StaticOffsetFromType() {
+    return FIELD_F64_OFFSET_OCTETS;
+  }
+
+  @Override
+  public int metaF64OffsetFromCursor() {
+    return FIELD_F64_OFFSET_OCTETS + this.base_offset;
+  }
+
+  @Override
+  public JPRATypeModel.JPRAFloat metaF64Type() {
+    return this.meta_type_f64;
+  }
+
+  @Override
+  public double getF64() {
+    return this.buffer.getDouble(this.getByteOffsetFor(FIELD_F64_OFFSET_OCTETS));
+  }
+
+  @Override
+  public void setF64(final double x) {
+    this.buffer.putDouble(this.getByteOffsetFor(FIELD_F64_OFFSET_OCTETS), x);
+  }
+
+  /**
+   * @return The layout of the significant (non-padding) octets of the type
+   */
+  public static JPRAPayloadLayout payloadLayout() {
+    return PAYLOAD_LAYOUT;
+  }
+
+  /**
+   * @return The layout fingerprint of the type
+   */
+  public static long layoutFingerprint() {
+    return LAYOUT_FINGERPRINT;
+  }
+
+  @Override
+  public boolean equalsBytes(final FloatsReadableType other) {
+    final FloatsByteBuffered o = (FloatsByteBuffered) Objects.requireNonNull(other, "Other");
+    return PAYLOAD_LAYOUT.equal(this.buffer, this.getByteOffsetFor(0), o.buffer, o.getByteOffsetFor(0));
+  }
+
+  @Override
+  public int mismatch(final FloatsReadableType other) {
+    final FloatsByteBuffered o = (FloatsByteBuffered) Objects.requireNonNull(other, "Other");
+    return PAYLOAD_LAYOUT.mismatch(this.buffer, this.getByteOffsetFor(0), o.buffer, o.getByteOffsetFor(0));
+  }
+
+  @Override
+  public long hashBytes() {
+    return PAYLOAD_LAYOUT.hash(this.buffer, this.getByteOffsetFor(0));
+  }
+}
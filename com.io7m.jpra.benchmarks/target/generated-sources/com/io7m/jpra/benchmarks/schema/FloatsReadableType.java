@@ -0,0 +1,79 @@
+package com.io7m.jpra.benchmarks.schema;
+
+import com.io7m.jpra.runtime.java.JPRATypeModel;
+import com.io7m.jpra.runtime.java.JPRAValueType;
+
+/**
+ * The readable interface to values of the {@code TypeName{value=Floats}} record type. */
+public interface FloatsReadableType extends JPRAValueType {
+  /**
+   * @return The offset in octets of the {@code FieldName{value=f16}} field, from the start of the type */
+  int metaF16OffsetFromType();
+
+  /**
+   * @return The offset in octets of the {@code FieldName{value=f16}} field, from the cursor */
+  int metaF16OffsetFromCursor();
+
+  /**
+   * @return The type of the {@code FieldName{value=f16}} field */
+  JPRATypeModel.JPRAFloat metaF16Type();
+
+  /**
+   * @return The value of the {@code FieldName{value=f16}} field */
+  double getF16();
+
+  /**
+   * @return The offset in octets of the {@code FieldName{value=f32}} field, from the start of the type */
+  int metaF32OffsetFromType();
+
+  /**
+   * @return The offset in octets of the {@code FieldName{value=f32}} field, from the cursor */
+  int metaF32OffsetFromCursor();
+
+  /**
+   * @return The type of the {@code FieldName{value=f32}} field */
+  JPRATypeModel.JPRAFloat metaF32Type();
+
+  /**
+   * @return The value of the {@code FieldName{value=f32}} field */
+  float getF32();
+
+  /**
+   * @return The offset in octets of the {@code FieldName{value=f64}} field, from the start of the type */
+  int metaF64OffsetFromType();
+
+  /**
+   * @return The offset in octets of the {@code FieldName{value=f64}} field, from the cursor */
+  int metaF64OffsetFromCursor();
+
+  /**
+   * @return The type of the {@code FieldName{value=f64}} field */
+  JPRATypeModel.JPRAFloat metaF64Type();
+
+  /**
+   * @return The value of the {@code FieldName{value=f64}} field */
+  double getF64();
+
+  /**
+   * Compare the significant octets of this value with {@code other}. Padding, and string data past the current length of each string, is ignored.
+   *
+   * @param other A value produced by the same implementation
+   *
+   * @return {@code true} iff the values are bytewise equal
+   */
+  boolean equalsBytes(FloatsReadableType other);
+
+  /**
+   * Find the first significant octet that differs between this value and {@code other}. Padding is ignored.
+   *
+   * @param other A value produced by the same implementation
+   *
+   * @return The offset of the first differing octet relative to the start of the value, or {@code -1} if the values are equal
+   */
+  int mismatch(FloatsReadableType other);
+
+  /**
+   * @return A 64-bit hash of the significant octets of this value. The hash depends only on those octets and is therefore the same on every JVM, but values written in different byte orders have different octets
+   */
+  long hashBytes();
+}
@@ -0,0 +1,22 @@
+package com.io7m.jpra.benchmarks.schema;
+
+import com.io7m.jpra.runtime.java.JPRAValueType;
+
+/**
+ * The writable interface to values of the {@code FloatsWritableType} record type. */
+public interface FloatsWritableType extends JPRAValueType {
+  /**
+   * Set the value of the {@code FieldName{value=f16}} field
+   * @param x The new value */
+  void setF16(final double x);
+
+  /**
+   * Set the value of the {@code FieldName{value=f32}} field
+   * @param x The new value */
+  void setF32(final float x);
+
+  /**
+   * Set the value of the {@code FieldName{value=f64}} field
+   * @param x The new value */
+  void setF64(final double x);
+}
@@ -0,0 +1,260 @@
+package com.io7m.jpra.benchmarks.schema;
+
+import com.io7m.jpra.runtime.java.JPRAByteBufferedRebindableType;
+import com.io7m.jpra.runtime.java.JPRACursorByteReadableType;
+import com.io7m.jpra.runtime.java.JPRAPayloadLayout;
+import com.io7m.jpra.runtime.java.JPRATypeModel;
+import java.lang.Override;
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
+/**
+ * A {@code ByteBuffer} based implementation of the {@code TypeName{value=Integers}} record type. */
+public final class IntegersByteBuffered implements IntegersType, JPRAByteBufferedRebindableType {
+  private static final int SIZE_OCTETS = 16;
+
+  private static final int FIELD_S8_OFFSET_OCTETS = 0;
+
+  private static final int FIELD_S16_OFFSET_OCTETS = 2;
+
+  private static final int FIELD_S32_OFFSET_OCTETS = 4;
+
+  private static final int FIELD_S64_OFFSET_OCTETS = 8;
+
+  private static final JPRAPayloadLayout PAYLOAD_LAYOUT = JPRAPayloadLayout.of(16, new int[]{0, 1, 2, 14}, new int[]{}, new byte[]{});
+
+  /**
+   * The layout fingerprint of the type. Two builds agree on the byte
+   * layout of the type if their fingerprints are equal.
+   */
+  public static final long LAYOUT_FINGERPRINT = 0x230cd0ae23b024d2L;
+
+  private ByteBuffer buffer;
+
+  private final int base_offset;
+
+  private final JPRACursorByteReadableType pointer;
+
+  private final JPRATypeModel.JPRAIntegerSigned meta_type_s8;
+
+  private final JPRATypeModel.JPRAIntegerSigned meta_type_s16;
+
+  private final JPRATypeModel.JPRAIntegerSigned meta_type_s32;
+
+  private final JPRATypeModel.JPRAIntegerSigned meta_type_s64;
+
+  private IntegersByteBuffered(final ByteBuffer in_buffer,
+      final JPRACursorByteReadableType in_pointer, final int in_base_offset) {
+    this.buffer = Objects.requireNonNull(in_buffer, "Buffer");
+    this.pointer = Objects.requireNonNull(in_pointer, "Pointer");
+    this.base_offset = in_base_offset;
+    this.meta_type_s8 = JPRATypeModel.JPRAIntegerSigned.of(8);
+    this.meta_type_s16 = JPRATypeModel.JPRAIntegerSigned.of(16);
+    this.meta_type_s32 = JPRATypeModel.JPRAIntegerSigned.of(32);
+    this.meta_type_s64 = JPRATypeModel.JPRAIntegerSigned.of(64);
+  }
+
+  /**
+   * Construct a view of a type.
+   * @param in_buffer A byte buffer
+   * @param in_pointer A cursor
+   * @param in_base_offset The base offset from the cursor
+   * @return A view of a type
+   */
+  public static IntegersType newValueWithOffset(final ByteBuffer in_buffer,
+      final JPRACursorByteReadableType in_pointer, final int in_base_offset) {
+    return new IntegersByteBuffered(in_buffer, in_pointer, in_base_offset);
+  }
+
+  /**
+   * Construct a view of a type.
+   * @param in_buffer A byte buffer
+   * @param in_pointer A cursor
+   * @return A view of a type
+   */
+  public static IntegersType newValue(final ByteBuffer in_buffer,
+      final JPRACursorByteReadableType in_pointer) {
+    return new IntegersByteBuffered(in_buffer, in_pointer, 0);
+  }
+
+  @Override
+  public int sizeOctets() {
+    return SIZE_OCTETS;
+  }
+
+  /**
+   * @return The size of the type in octets
+   */
+  public static int sizeInOctets() {
+    return SIZE_OCTETS;
+  }
+
+  @Override
+  public void rebind(final ByteBuffer in_buffer) {
+    this.buffer = Objects.requireNonNull(in_buffer, "Buffer");
+  }
+
+  private int getByteOffsetFor(final int field_offset) {
+    final int b = (int) this.pointer.getByteOffsetObservable().value();
+    return b + this.base_offset + field_offset;
+  }
+
+  @Override
+  public int metaS8OffsetFromType() {
+    return FIELD_S8_OFFSET_OCTETS;
+  }
+
+  /**
+   * @return The offset in octets of field {@code s8} from the start of the type
+   */
+  public static int metaS8StaticOffsetFromType() {
+    return FIELD_S8_OFFSET_OCTETS;
+  }
+
+  @Override
+  public int metaS8OffsetFromCursor() {
+    return FIELD_S8_OFFSET_OCTETS + this.base_offset;
+  }
+
+  @Override
+  public JPRATypeModel.JPRAIntegerSigned metaS8Type() {
+    return this.meta_type_s8;
+  }
+
+  @Override
+  public byte getS8() {
+    return this.buffer.get(this.getByteOffsetFor(FIELD_S8_OFFSET_OCTETS));
+  }
+
+  @Override
+  public void setS8(final byte x) {
+    this.buffer.put(this.getByteOffsetFor(FIELD_S8_OFFSET_OCTETS), x);
+  }
+
+  @Override
+  public int metaS16OffsetFromType() {
+    return FIELD_S16_OFFSET_OCTETS;
+  }
+
+  /**
+   * @return The offset in octets of field {@code s16} from the start of the type
+   */
+  public static int metaS16StaticOffsetFromType() {
+    return FIELD_S16_OFFSET_OCTETS;
+  }
+
+  @Override
+  public int metaS16OffsetFromCursor() {
+    return FIELD_S16_OFFSET_OCTETS + this.base_offset;
+  }
+
+  @Override
+  public JPRATypeModel.JPRAIntegerSigned metaS16Type() {
+    return this.meta_type_s16;
+  }
+
+  @Override
+  public short getS16() {
+    return this.buffer.getShort(this.getByteOffsetFor(FIELD_S16_OFFSET_OCTETS));
+  }
+
+  @Override
+  public void setS16(final short x) {
+    this.buffer.putShort(this.getByteOffsetFor(FIELD_S16_OFFSET_OCTETS), x);
+  }
+
+  @Override
+  public int metaS32OffsetFromType() {
+    return FIELD_S32_OFFSET_OCTETS;
+  }
+
+  /**
+   * @return The offset in octets of field {@code s32} from the start of the type
+   */
+  public static int metaS32StaticOffsetFromType() {
+    return FIELD_S32_OFFSET_OCTETS;
+  }
+
+  @Override
+  public int metaS32OffsetFromCursor() {
+    return FIELD_S32_OFFSET_OCTETS + this.base_offset;
+  }
+
+  @Override
+  public JPRATypeModel.JPRAIntegerSigned metaS32Type() {
+    return this.meta_type_s32;
+  }
+
+  @Override
+  public int getS32() {
+    return this.buffer.getInt(this.getByteOffsetFor(FIELD_S32_OFFSET_OCTETS));
+  }
+
+  @Override
+  public void setS32(final int x) {
+    this.buffer.putInt(this.getByteOffsetFor(FIELD_S32_OFFSET_OCTETS), x);
+  }
+
+  @Override
+  public int metaS64OffsetFromType() {
+    return FIELD_S64_OFFSET_OCTETS;
+  }
+
+  /**
+   * @return The offset in octets of field {@code s64} from the start of the type
+   */
+  public static int metaS64StaticOffsetFromType() {
+    return FIELD_S64_OFFSET_OCTETS;
+  }
+
+  @Override
+  public int metaS64OffsetFromCursor() {
+    return FIELD_S64_OFFSET_OCTETS + this.base_offset;
+  }
+
+  @Override
+  public JPRATypeModel.JPRAIntegerSigned metaS64Type() {
+    return this.meta_type_s64;
+  }
+
+  @Override
+  public long getS64() {
+    return this.buffer.getLong(this.getByteOffsetFor(FIELD_S64_OFFSET_OCTETS));
+  }
+
+  @Override
+  public void setS64(final long x) {
+    this.buffer.putLong(this.getByteOffsetFor(FIELD_S64_OFFSET_OCTETS), x);
+  }
+
+  /**
+   * @return The layout of the significant (non-padding) octets of the type
+   */
+  public static JPRAPayloadLayout payloadLayout() {
+    return PAYLOAD_LAYOUT;
+  }
+
+  /**
+   * @return The layout fingerprint of the type
+   */
+  public static long layoutFingerprint() {
+    return LAYOUT_FINGERPRINT;
+  }
+
+  @Override
+  public boolean equalsBytes(final IntegersReadableType other) {
+    final IntegersByteBuffered o = (IntegersByteBuffered) Objects.requireNonNull(other, "Other");
+    return PAYLOAD_LAYOUT.equal(this.buffer, this.getByteOffsetFor(0), o.buffer, o.getByteOffsetFor(0));
+  }
+
+  @Override
+  public int mismatch(final IntegersReadableType other) {
+    final IntegersByteBuffered o = (IntegersByteBuffered) Objects.requireNonNull(other, "Other");
+    return PAYLOAD_LAYOUT.mismatch(this.buffer, this.getByteOffsetFor(0), o.buffer, o.getByteOffsetFor(0));
+  }
+
+  @Override
+  public long hashBytes() {
+    return PAYLOAD_LAYOUT.hash(this.buffer, this.getByteOffsetFor(0));
+  }
+}
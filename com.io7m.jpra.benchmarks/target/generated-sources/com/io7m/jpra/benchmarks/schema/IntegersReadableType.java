@@ -0,0 +1,95 @@
+package com.io7m.jpra.benchmarks.schema;
+
+import com.io7m.jpra.runtime.java.JPRATypeModel;
+import com.io7m.jpra.runtime.java.JPRAValueType;
+
+/**
+ * The readable interface to values of the {@code TypeName{value=Integers}} record type. */
+public interface IntegersReadableType extends JPRAValueType {
+  /**
+   * @return The offset in octets of the {@code FieldName{value=s8}} field, from the start of the type */
+  int metaS8OffsetFromType();
+
+  /**
+   * @return The offset in octets of the {@code FieldName{value=s8}} field, from the cursor */
+  int metaS8OffsetFromCursor();
+
+  /**
+   * @return The type of the {@code FieldName{value=s8}} field */
+  JPRATypeModel.JPRAIntegerSigned metaS8Type();
+
+  /**
+   * @return The value of the {@code FieldName{value=s8}} field */
+  byte getS8();
+
+  /**
+   * @return The offset in octets of the {@code FieldName{value=s16}} field, from the start of the type */
+  int metaS16OffsetFromType();
+
+  /**
+   * @return The offset in octets of the {@code FieldName{value=s16}} field, from the cursor */
+  int metaS16OffsetFromCursor();
+
+  /**
+   * @return The type of the {@code FieldName{value=s16}} field */
+  JPRATypeModel.JPRAIntegerSigned metaS16Type();
+
+  /**
+   * @return The value of the {@code FieldName{value=s16}} field */
+  short getS16();
+
+  /**
+   * @return The offset in octets of the {@code FieldName{value=s32}} field, from the start of the type */
+  int metaS32OffsetFromType();
+
+  /**
+   * @return The offset in octets of the {@code FieldName{value=s32}} field, from the cursor */
+  int metaS32OffsetFromCursor();
+
+  /**
+   * @return The type of the {@code FieldName{value=s32}} field */
+  JPRATypeModel.JPRAIntegerSigned metaS32Type();
+
+  /**
+   * @return The value of the {@code FieldName{value=s32}} field */
+  int getS32();
+
+  /**
+   * @return The offset in octets of the {@code FieldName{value=s64}} field, from the start of the type */
+  int metaS64OffsetFromType();
+
+  /**
+   * @return The offset in octets of the {@code FieldName{value=s64}} field, from the cursor */
+  int metaS64OffsetFromCursor();
+
+  /**
+   * @return The type of the {@code FieldName{value=s64}} field */
+  JPRATypeModel.JPRAIntegerSigned metaS64Type();
+
+  /**
+   * @return The value of the {@code FieldName{value=s64}} field */
+  long getS64();
+
+  /**
+   * Compare the significant octets of this value with {@code other}. Padding, and string data past the current length of each string, is ignored.
+   *
+   * @param other A value produced by the same implementation
+   *
+   * @return {@code true} iff the values are bytewise equal
+   */
+  boolean equalsBytes(IntegersReadableType other);
+
+  /**
+   * Find the first significant octet that differs between this value and {@code other}. Padding is ignored.
+   *
+   * @param other A value produced by the same implementation
+   *
+   * @return The offset of the first differing octet relative to the start of the value, or {@code -1} if the values are equal
+   */
+  int mismatch(IntegersReadableType other);
+
+  /**
+   * @return A 64-bit hash of the significant octets of this value. The hash depends only on those octets and is therefore the same on every JVM, but values written in different byte orders have different octets
+   */
+  long hashBytes();
+}
@@ -0,0 +1,8 @@
+package com.io7m.jpra.benchmarks.schema;
+
+import com.io7m.jpra.runtime.java.JPRAValueType;
+
+/**
+ * The interface to values of the {@code TypeName{value=Integers}} record type. */
+public interface IntegersType extends IntegersWritableType, IntegersReadableType, JPRAValueType {
+}
@@ -0,0 +1,27 @@
+package com.io7m.jpra.benchmarks.schema;
+
+import com.io7m.jpra.runtime.java.JPRAValueType;
+
+/**
+ * The writable interface to values of the {@code IntegersWritableType} record type. */
+public interface IntegersWritableType extends JPRAValueType {
+  /**
+   * Set the value of the {@code FieldName{value=s8}} field
+   * @param x The new value */
+  void setS8(final byte x);
+
+  /**
+   * Set the value of the {@code FieldName{value=s16}} field
+   * @param x The new value */
+  void setS16(final short x);
+
+  /**
+   * Set the value of the {@code FieldName{value=s32}} field
+   * @param x The new value */
+  void setS32(final int x);
+
+  /**
+   * Set the value of the {@code FieldName{value=s64}} field
+   * @param x The new value */
+  void setS64(final long x);
+}
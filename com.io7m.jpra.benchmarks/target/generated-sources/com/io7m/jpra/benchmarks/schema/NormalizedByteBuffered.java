@@ -0,0 +1,261 @@
+package com.io7m.jpra.benchmarks.schema;
+
+import com.io7m.jnfp.core.NFPSignedDoubleInt;
+import com.io7m.jnfp.core.NFPUnsignedDoubleInt;
+import com.io7m.jpra.runtime.java.JPRAByteBufferedRebindableType;
+import com.io7m.jpra.runtime.java.JPRACursorByteReadableType;
+import com.io7m.jpra.runtime.java.JPRAPayloadLayout;
+import com.io7m.jpra.runtime.java.JPRATypeModel;
+import java.lang.Byte;
+import java.lang.Override;
+import java.lang.Short;
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
+/**
+ * A {@code ByteBuffer} based implementation of the {@code TypeName{value=Normalized}} record type. */
+public final class NormalizedByteBuffered implements NormalizedType, JPRAByteBufferedRebindableType {
+  private static final int SIZE_OCTETS = 8;
+
+  private static final int FIELD_UN8_OFFSET_OCTETS = 0;
+
+  private static final int FIELD_UN16_OFFSET_OCTETS = 2;
+
+  private static final int FIELD_SN32_OFFSET_OCTETS = 4;
+
+  private static final JPRAPayloadLayout PAYLOAD_LAYOUT = JPRAPayloadLayout.of(8, new int[]{0, 1, 2, 6}, new int[]{}, new byte[]{});
+
+  /**
+   * The layout fingerprint of the type. Two builds agree on the byte
+   * layout of the type if their fingerprints are equal.
+   */
+  public static final long LAYOUT_FINGERPRINT = 0xa90af4d280e38d61L;
+
+  private ByteBuffer buffer;
+
+  private final int base_offset;
+
+  private final JPRACursorByteReadableType pointer;
+
+  private final JPRATypeModel.JPRAIntegerUnsignedNormalized meta_type_un8;
+
+  private final JPRATypeModel.JPRAIntegerUnsignedNormalized meta_type_un16;
+
+  private final JPRATypeModel.JPRAIntegerSignedNormalized meta_type_sn32;
+
+  private NormalizedByteBuffered(final ByteBuffer in_buffer,
+      final JPRACursorByteReadableType in_pointer, final int in_base_offset) {
+    this.buffer = Objects.requireNonNull(in_buffer, "Buffer");
+    this.pointer = Objects.requireNonNull(in_pointer, "Pointer");
+    this.base_offset = in_base_offset;
+    this.meta_type_un8 = JPRATypeModel.JPRAIntegerUnsignedNormalized.of(8);
+    this.meta_type_un16 = JPRATypeModel.JPRAIntegerUnsignedNormalized.of(16);
+    this.meta_type_sn32 = JPRATypeModel.JPRAIntegerSignedNormalized.of(32);
+  }
+
+  /**
+   * Construct a view of a type.
+   * @param in_buffer A byte buffer
+   * @param in_pointer A cursor
+   * @param in_base_offset The base offset from the cursor
+   * @return A view of a type
+   */
+  public static NormalizedType newValueWithOffset(final ByteBuffer in_buffer,
+      final JPRACursorByteReadableType in_pointer, final int in_base_offset) {
+    return new NormalizedByteBuffered(in_buffer, in_pointer, in_base_offset);
+  }
+
+  /**
+   * Construct a view of a type.
+   * @param in_buffer A byte buffer
+   * @param in_pointer A cursor
+   * @return A view of a type
+   */
+  public static NormalizedType newValue(final ByteBuffer in_buffer,
+      final JPRACursorByteReadableType in_pointer) {
+    return new NormalizedByteBuffered(in_buffer, in_pointer, 0);
+  }
+
+  @Override
+  public int sizeOctets() {
+    return SIZE_OCTETS;
+  }
+
+  /**
+   * @return The size of the type in octets
+   */
+  public static int sizeInOctets() {
+    return SIZE_OCTETS;
+  }
+
+  @Override
+  public void rebind(final ByteBuffer in_buffer) {
+    this.buffer = Objects.requireNonNull(in_buffer, "Buffer");
+  }
+
+  private int getByteOffsetFor(final int field_offset) {
+    final int b = (int) this.pointer.getByteOffsetObservable().value();
+    return b + this.base_offset + field_offset;
+  }
+
+  @Override
+  public int metaUn8OffsetFromType() {
+    return FIELD_UN8_OFFSET_OCTETS;
+  }
+
+  /**
+   * @return The offset in octets of field {@code un8} from the start of the type
+   */
+  public static int metaUn8StaticOffsetFromType() {
+    return FIELD_UN8_OFFSET_OCTETS;
+  }
+
+  @Override
+  public int metaUn8OffsetFromCursor() {
+    return FIELD_UN8_OFFSET_OCTETS + this.base_offset;
+  }
+
+  @Override
+  public JPRATypeModel.JPRAIntegerUnsignedNormalized metaUn8Type() {
+    return this.meta_type_un8;
+  }
+
+  @Override
+  public byte getUn8Raw() {
+    return this.buffer.get(this.getByteOffsetFor(FIELD_UN8_OFFSET_OCTETS));
+  }
+
+  @Override
+  public void setUn8Raw(final byte x) {
+    this.buffer.put(this.getByteOffsetFor(FIELD_UN8_OFFSET_OCTETS), x);
+  }
+
+  @Override
+  public double getUn8() {
+    final byte x = this.getUn8Raw();
+    final int y = Byte.toUnsignedInt(x);
+    return NFPUnsignedDoubleInt.fromUnsignedNormalized8(y);
+  }
+
+  @Override
+  public void setUn8(final double x) {
+    this.setUn8Raw((byte) NFPUnsignedDoubleInt.toUnsignedNormalized8(x));
+  }
+
+  @Override
+  public int metaUn16OffsetFromType() {
+    return FIELD_UN16_OFFSET_OCTETS;
+  }
+
+  /**
+   * @return The offset in octets of field {@code un16} from the start of the type
+   */
+  public static int metaUn16StaticOffsetFromType() {
+    return FIELD_UN16_OFFSET_OCTETS;
+  }
+
+  @Override
+  public int metaUn16OffsetFromCursor() {
+    return FIELD_UN16_OFFSET_OCTETS + this.base_offset;
+  }
+
+  @Override
+  public JPRATypeModel.JPRAIntegerUnsignedNormalized metaUn16Type() {
+    return this.meta_type_un16;
+  }
+
+  @Override
+  public short getUn16Raw() {
+    return this.buffer.getShort(this.getByteOffsetFor(FIELD_UN16_OFFSET_OCTETS));
+  }
+
+  @Override
+  public void setUn16Raw(final short x) {
+    this.buffer.putShort(this.getByteOffsetFor(FIELD_UN16_OFFSET_OCTETS), x);
+  }
+
+  @Override
+  public double getUn16() {
+    final short x = this.getUn16Raw();
+    final int y = Short.toUnsignedInt(x);
+    return NFPUnsignedDoubleInt.fromUnsignedNormalized16(y);
+  }
+
+  @Override
+  public void setUn16(final double x) {
+    this.setUn16Raw((short) NFPUnsignedDoubleInt.toUnsignedNormalized16(x));
+  }
+
+  @Override
+  public int metaSn32OffsetFromType() {
+    return FIELD_SN32_OFFSET_OCTETS;
+  }
+
+  /**
+   * @return The offset in octets of field {@code sn32} from the start of the type
+   */
+  public static int metaSn32StaticOffsetFromType() {
+    return FIELD_SN32_OFFSET_OCTETS;
+  }
+
+  @Override
+  public int metaSn32OffsetFromCursor() {
+    return FIELD_SN32_OFFSET_OCTETS + this.base_offset;
+  }
+
+  @Override
+  public JPRATypeModel.JPRAIntegerSignedNormalized metaSn32Type() {
+    return this.meta_type_sn32;
+  }
+
+  @Override
+  public int getSn32Raw() {
+    return this.buffer.getInt(this.getByteOffsetFor(FIELD_SN32_OFFSET_OCTETS));
+  }
+
+  @Override
+  public void setSn32Raw(final int x) {
+    this.buffer.putInt(this.getByteOffsetFor(FIELD_SN32_OFFSET_OCTETS), x);
+  }
+
+  @Override
+  public double getSn32() {
+    return NFPSignedDoubleInt.fromSignedNormalizedWithZero32(this.getSn32Raw());
+  }
+
+  @Override
+  public void setSn32(final double x) {
+    this.setSn32Raw((int) NFPSignedDoubleInt.toSignedNormalizedWithZero32(x));
+  }
+
+  /**
+   * @return The layout of the significant (non-padding) octets of the type
+   */
+  public static JPRAPayloadLayout payloadLayout() {
+    return PAYLOAD_LAYOUT;
+  }
+
+  /**
+   * @return The layout fingerprint of the type
+   */
+  public static long layoutFingerprint() {
+    return LAYOUT_FINGERPRINT;
+  }
+
+  @Override
+  public boolean equalsBytes(final NormalizedReadableType other) {
+    final NormalizedByteBuffered o = (NormalizedByteBuffered) Objects.requireNonNull(other, "Other");
+    return PAYLOAD_LAYOUT.equal(this.buffer, this.getByteOffsetFor(0), o.buffer, o.getByteOffsetFor(0));
+  }
+
+  @Override
+  public int mismatch(final NormalizedReadableType other) {
+    final NormalizedByteBuffered o = (NormalizedByteBuffered) Objects.requireNonNull(other, "Other");
+    return PAYLOAD_LAYOUT.mismatch(this.buffer, this.getByteOffsetFor(0), o.buffer, o.getByteOffsetFor(0));
+  }
+
+  @Override
+  public long hashBytes() {
+    return PAYLOAD_LAYOUT.hash(this.buffer, this.getByteOffsetFor(0));
+  }
+}
@@ -0,0 +1,91 @@
+package com.io7m.jpra.benchmarks.schema;
+
+import com.io7m.jpra.runtime.java.JPRATypeModel;
+import com.io7m.jpra.runtime.java.JPRAValueType;
+
+/**
+ * The readable interface to values of the {@code TypeName{value=Normalized}} record type. */
+public interface NormalizedReadableType extends JPRAValueType {
+  /**
+   * @return The offset in octets of the {@code FieldName{value=un8}} field, from the start of the type */
+  int metaUn8OffsetFromType();
+
+  /**
+   * @return The offset in octets of the {@code FieldName{value=un8}} field, from the cursor */
+  int metaUn8OffsetFromCursor();
+
+  /**
+   * @return The type of the {@code FieldName{value=un8}} field */
+  JPRATypeModel.JPRAIntegerUnsignedNormalized metaUn8Type();
+
+  /**
+   * @return The value of the {@code FieldName{value=un8}} field */
+  double getUn8();
+
+  /**
+   * @return The value of the {@code FieldName{value=un8}} field */
+  byte getUn8Raw();
+
+  /**
+   * @return The offset in octets of the {@code FieldName{value=un16}} field, from the start of the type */
+  int metaUn16OffsetFromType();
+
+  /**
+   * @return The offset in octets of the {@code FieldName{value=un16}} field, from the cursor */
+  int metaUn16OffsetFromCursor();
+
+  /**
+   * @return The type of the {@code FieldName{value=un16}} field */
+  JPRATypeModel.JPRAIntegerUnsignedNormalized metaUn16Type();
+
+  /**
+   * @return The value of the {@code FieldName{value=un16}} field */
+  double getUn16();
+
+  /**
+   * @return The value of the {@code FieldName{value=un16}} field */
+  short getUn16Raw();
+
+  /**
+   * @return The offset in octets of the {@code FieldName{value=sn32}} field, from the start of the type */
+  int metaSn32OffsetFromType();
+
+  /**
+   * @return The offset in octets of the {@code FieldName{value=sn32}} field, from the cursor */
+  int metaSn32OffsetFromCursor();
+
+  /**
+   * @return The type of the {@code FieldName{value=sn32}} field */
+  JPRATypeModel.JPRAIntegerSignedNormalized metaSn32Type();
+
+  /**
+   * @return The value of the {@code FieldName{value=sn32}} field */
+  double getSn32();
+
+  /**
+   * @return The value of the {@code FieldName{value=sn32}} field */
+  int getSn32Raw();
+
+  /**
+   * Compare the significant octets of this value with {@code other}. Padding, and string data past the current length of each string, is ignored.
+   *
+   * @param other A value produced by the same implementation
+   *
+   * @return {@code true} iff the values are bytewise equal
+   */
+  boolean equalsBytes(NormalizedReadableType other);
+
+  /**
+   * Find the first significant octet that differs between this value and {@code other}. Padding is ignored.
+   *
+   * @param other A value produced by the same implementation
+   *
+   * @return The offset of the first differing octet relative to the start of the value, or {@code -1} if the values are equal
+   */
+  int mismatch(NormalizedReadableType other);
+
+  /**
+   * @return A 64-bit hash of the significant octets of this value. The hash depends only on those octets and is therefore the same on every JVM, but values written in different byte orders have different octets
+   */
+  long hashBytes();
+}
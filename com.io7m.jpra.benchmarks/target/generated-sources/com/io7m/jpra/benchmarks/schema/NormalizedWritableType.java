@@ -0,0 +1,37 @@
+package com.io7m.jpra.benchmarks.schema;
+
+import com.io7m.jpra.runtime.java.JPRAValueType;
+
+/**
+ * The writable interface to values of the {@code NormalizedWritableType} record type. */
+public interface NormalizedWritableType extends JPRAValueType {
+  /**
+   * Set the value of the {@code FieldName{value=un8}} field
+   * @param x The new value */
+  void setUn8(final double x);
+
+  /**
+   * Set the value of the {@code FieldName{value=un8}} field
+   * @param x The new value */
+  void setUn8Raw(final byte x);
+
+  /**
+   * Set the value of the {@code FieldName{value=un16}} field
+   * @param x The new value */
+  void setUn16(final double x);
+
+  /**
+   * Set the value of the {@code FieldName{value=un16}} field
+   * @param x The new value */
+  void setUn16Raw(final short x);
+
+  /**
+   * Set the value of the {@code FieldName{value=sn32}} field
+   * @param x The new value */
+  void setSn32(final double x);
+
+  /**
+   * Set the value of the {@code FieldName{value=sn32}} field
+   * @param x The new value */
+  void setSn32Raw(final int x);
+}
@@ -0,0 +1,157 @@
+package com.io7m.jpra.benchmarks.schema;
+
+import com.io7m.jpra.runtime.java.JPRAByteBufferedRebindableType;
+import com.io7m.jpra.runtime.java.JPRACursorByteReadableType;
+import com.io7m.jpra.runtime.java.JPRAPayloadLayout;
+import com.io7m.jpra.runtime.java.JPRAStringCursorByteBuffered;
+import com.io7m.jpra.runtime.java.JPRAStringCursorReadableType;
+import com.io7m.jpra.runtime.java.JPRAStringCursorType;
+import com.io7m.jpra.runtime.java.JPRATypeModel;
+import java.lang.Override;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Objects;
+
+/**
+ * A {@code ByteBuffer} based implementation of the {@code TypeName{value=Strings}} record type. */
+public final class StringsByteBuffered implements StringsType, JPRAByteBufferedRebindableType {
+  private static final int SIZE_OCTETS = 36;
+
+  private static final int FIELD_S_OFFSET_OCTETS = 0;
+
+  private static final JPRAPayloadLayout PAYLOAD_LAYOUT = JPRAPayloadLayout.of(36, new int[]{0, 4}, new int[]{}, new byte[]{}, new int[]{0, 32});
+
+  /**
+   * The layout fingerprint of the type. Two builds agree on the byte
+   * layout of the type if their fingerprints are equal.
+   */
+  public static final long LAYOUT_FINGERPRINT = 0x53ae0c88311e43f2L;
+
+  private ByteBuffer buffer;
+
+  private final int base_offset;
+
+  private final JPRACursorByteReadableType pointer;
+
+  private final JPRAStringCursorType field_s;
+
+  private final JPRATypeModel.JPRAString meta_type_s;
+
+  private StringsByteBuffered(final ByteBuffer in_buffer,
+      final JPRACursorByteReadableType in_pointer, final int in_base_offset) {
+    this.buffer = Objects.requireNonNull(in_buffer, "Buffer");
+    this.pointer = Objects.requireNonNull(in_pointer, "Pointer");
+    this.base_offset = in_base_offset;
+    this.field_s = JPRAStringCursorByteBuffered.newString(in_buffer, FIELD_S_OFFSET_OCTETS + in_base_offset, in_pointer, Charset.forName("UTF-8"), 32);
+    this.meta_type_s = JPRATypeModel.JPRAString.of(32, "UTF-8");
+  }
+
+  /**
+   * Construct a view of a type.
+   * @param in_buffer A byte buffer
+   * @param in_pointer A cursor
+   * @param in_base_offset The base offset from the cursor
+   * @return A view of a type
+   */
+  public static StringsType newValueWithOffset(final ByteBuffer in_buffer,
+      final JPRACursorByteReadableType in_pointer, final int in_base_offset) {
+    return new StringsByteBuffered(in_buffer, in_pointer, in_base_offset);
+  }
+
+  /**
+   * Construct a view of a type.
+   * @param in_buffer A byte buffer
+   * @param in_pointer A cursor
+   * @return A view of a type
+   */
+  public static StringsType newValue(final ByteBuffer in_buffer,
+      final JPRACursorByteReadableType in_pointer) {
+    return new StringsByteBuffered(in_buffer, in_pointer, 0);
+  }
+
+  @Override
+  public int sizeOctets() {
+    return SIZE_OCTETS;
+  }
+
+  /**
+   * @return The size of the type in octets
+   */
+  public static int sizeInOctets() {
+    return SIZE_OCTETS;
+  }
+
+  @Override
+  public void rebind(final ByteBuffer in_buffer) {
+    this.buffer = Objects.requireNonNull(in_buffer, "Buffer");
+    ((JPRAByteBufferedRebindableType) this.field_s).rebind(in_buffer);
+  }
+
+  private int getByteOffsetFor(final int field_offset) {
+    final int b = (int) this.pointer.getByteOffsetObservable().value();
+    return b + this.base_offset + field_offset;
+  }
+
+  @Override
+  public int metaSOffsetFromType() {
+    return FIELD_S_OFFSET_OCTETS;
+  }
+
+  /**
+   * @return The offset in octets of field {@code s} from the start of the type
+   */
+  public static int metaSStaticOffsetFromType() {
+    return FIELD_S_OFFSET_OCTETS;
+  }
+
+  @Override
+  public int metaSOffsetFromCursor() {
+    return FIELD_S_OFFSET_OCTETS + this.base_offset;
+  }
+
+  @Override
+  public JPRATypeModel.JPRAString metaSType() {
+    return this.meta_type_s;
+  }
+
+  @Override
+  public JPRAStringCursorReadableType getSReadable() {
+    return this.field_s;
+  }
+
+  @Override
+  public JPRAStringCursorType getSWritable() {
+    return this.field_s;
+  }
+
+  /**
+   * @return The layout of the significant (non-padding) octets of the type
+   */
+  public static JPRAPayloadLayout payloadLayout() {
+    return PAYLOAD_LAYOUT;
+  }
+
+  /**
+   * @return The layout fingerprint of the type
+   */
+  public static long layoutFingerprint() {
+    return LAYOUT_FINGERPRINT;
+  }
+
+  @Override
+  public boolean equalsBytes(final StringsReadableType other) {
+    final StringsByteBuffered o = (StringsByteBuffered) Objects.requireNonNull(other, "Other");
+    return PAYLOAD_LAYOUT.equal(this.buffer, this.getByteOffsetFor(0), o.buffer, o.getByteOffsetFor(0));
+  }
+
+  @Override
+  public int mismatch(final StringsReadableType other) {
+    final StringsByteBuffered o = (StringsByteBuffered) Objects.requireNonNull(other, "Other");
+    return PAYLOAD_LAYOUT.mismatch(this.buffer, this.getByteOffsetFor(0), o.buffer, o.getByteOffsetFor(0));
+  }
+
+  @Override
+  public long hashBytes() {
+    return PAYLOAD_LAYOUT.hash(this.buffer, this.getByteOffsetFor(0));
+  }
+}
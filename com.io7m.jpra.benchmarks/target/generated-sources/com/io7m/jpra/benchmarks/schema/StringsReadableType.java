@@ -0,0 +1,48 @@
+package com.io7m.jpra.benchmarks.schema;
+
+import com.io7m.jpra.runtime.java.JPRAStringCursorReadableType;
+import com.io7m.jpra.runtime.java.JPRATypeModel;
+import com.io7m.jpra.runtime.java.JPRAValueType;
+
+/**
+ * The readable interface to values of the {@code TypeName{value=Strings}} record type. */
+public interface StringsReadableType extends JPRAValueType {
+  /**
+   * @return The offset in octets of the {@code FieldName{value=s}} field, from the start of the type */
+  int metaSOffsetFromType();
+
+  /**
+   * @return The offset in octets of the {@code FieldName{value=s}} field, from the cursor */
+  int metaSOffsetFromCursor();
+
+  /**
+   * @return The type of the {@code FieldName{value=s}} field */
+  JPRATypeModel.JPRAString metaSType();
+
+  /**
+   * @return Read-only access to the {@code FieldName{value=s}} field */
+  JPRAStringCursorReadableType getSReadable();
+
+  /**
+   * Compare the significant octets of this value with {@code other}. Padding, and string data past the current length of each string, is ignored.
+   *
+   * @param other A value produced by the same implementation
+   *
+   * @return {@code true} iff the values are bytewise equal
+   */
+  boolean equalsBytes(StringsReadableType other);
+
+  /**
+   * Find the first significant octet that differs between this value and {@code other}. Padding is ignored.
+   *
+   * @param other A value produced by the same implementation
+   *
+   * @return The offset of the first differing octet relative to the start of the value, or {@code -1} if the values are equal
+   */
+  int mismatch(StringsReadableType other);
+
+  /**
+   * @return A 64-bit hash of the significant octets of this value. The hash depends only on those octets and is therefore the same on every JVM, but values written in different byte orders have different octets
+   */
+  long hashBytes();
+}
@@ -0,0 +1,12 @@
+package com.io7m.jpra.benchmarks.schema;
+
+import com.io7m.jpra.runtime.java.JPRAStringCursorType;
+import com.io7m.jpra.runtime.java.JPRAValueType;
+
+/**
+ * The writable interface to values of the {@code StringsWritableType} record type. */
+public interface StringsWritableType extends JPRAValueType {
+  /**
+   * @return Writable access to the {@code FieldName{value=s}} field */
+  JPRAStringCursorType getSWritable();
+}
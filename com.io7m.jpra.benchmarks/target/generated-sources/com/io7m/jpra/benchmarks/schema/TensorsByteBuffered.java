@@ -0,0 +1,253 @@
+package com.io7m.jpra.benchmarks.schema;
+
+import com.io7m.jpra.runtime.java.JPRAByteBufferedRebindableType;
+import com.io7m.jpra.runtime.java.JPRACursorByteReadableType;
+import com.io7m.jpra.runtime.java.JPRAPayloadLayout;
+import com.io7m.jpra.runtime.java.JPRATypeModel;
+import com.io7m.jtensors.core.unparameterized.matrices.MatrixReadable4x4DType;
+import com.io7m.jtensors.core.unparameterized.vectors.VectorReadable3DType;
+import com.io7m.jtensors.core.unparameterized.vectors.VectorReadable4DType;
+import com.io7m.jtensors.storage.api.unparameterized.matrices.MatrixStorage4x4Type;
+import com.io7m.jtensors.storage.api.unparameterized.vectors.VectorStorageFloating3Type;
+import com.io7m.jtensors.storage.api.unparameterized.vectors.VectorStorageFloating4Type;
+import com.io7m.jtensors.storage.bytebuffered.MatrixByteBuffered4x4s32;
+import com.io7m.jtensors.storage.bytebuffered.VectorByteBufferedFloating3s32;
+import com.io7m.jtensors.storage.bytebuffered.VectorByteBufferedFloating4s64;
+import java.lang.Override;
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
+/**
+ * A {@code ByteBuffer} based implementation of the {@code TypeName{value=Tensors}} record type. */
+public final class TensorsByteBuffered implements TensorsType, JPRAByteBufferedRebindableType {
+  private static final int SIZE_OCTETS = 108;
+
+  private static final int FIELD_V3F_OFFSET_OCTETS = 0;
+
+  private static final int FIELD_V4D_OFFSET_OCTETS = 12;
+
+  private static final int FIELD_M4F_OFFSET_OCTETS = 44;
+
+  private static final JPRAPayloadLayout PAYLOAD_LAYOUT = JPRAPayloadLayout.of(108, new int[]{0, 108}, new int[]{}, new byte[]{});
+
+  /**
+   * The layout fingerprint of the type. Two builds agree on the byte
+   * layout of the type if their fingerprints are equal.
+   */
+  public static final long LAYOUT_FINGERPRINT = 0xe12a5ec78519abffL;
+
+  private ByteBuffer buffer;
+
+  private final int base_offset;
+
+  private final JPRACursorByteReadableType pointer;
+
+  private VectorStorageFloating3Type field_v3f;
+
+  private final JPRATypeModel.JPRAVector meta_type_v3f;
+
+  private VectorStorageFloating4Type field_v4d;
+
+  private final JPRATypeModel.JPRAVector meta_type_v4d;
+
+  private MatrixStorage4x4Type field_m4f;
+
+  private final JPRATypeModel.JPRAMatrix meta_type_m4f;
+
+  private TensorsByteBuffered(final ByteBuffer in_buffer,
+      final JPRACursorByteReadableType in_pointer, final int in_base_offset) {
+    this.buffer = Objects.requireNonNull(in_buffer, "Buffer");
+    this.pointer = Objects.requireNonNull(in_pointer, "Pointer");
+    this.base_offset = in_base_offset;
+    this.field_v3f = VectorByteBufferedFloating3s32.createWithBase(in_buffer, in_pointer.getByteOffsetObservable(), in_base_offset + FIELD_V3F_OFFSET_OCTETS);
+     {
+      final JPRATypeModel.JPRAFloat et = JPRATypeModel.JPRAFloat.of(32);
+      this.meta_type_v3f = JPRATypeModel.JPRAVector.of(3, et);
+    }
+    this.field_v4d = VectorByteBufferedFloating4s64.createWithBase(in_buffer, in_pointer.getByteOffsetObservable(), in_base_offset + FIELD_V4D_OFFSET_OCTETS);
+     {
+      final JPRATypeModel.JPRAFloat et = JPRATypeModel.JPRAFloat.of(64);
+      this.meta_type_v4d = JPRATypeModel.JPRAVector.of(4, et);
+    }
+    this.field_m4f = MatrixByteBuffered4x4s32.createWithBase(in_buffer, in_pointer.getByteOffsetObservable(), in_base_offset + FIELD_M4F_OFFSET_OCTETS);
+     {
+      final JPRATypeModel.JPRAFloat et = JPRATypeModel.JPRAFloat.of(32);
+      this.meta_type_m4f = JPRATypeModel.JPRAMatrix.of(4, 4, et);
+    }
+  }
+
+  /**
+   * Construct a view of a type.
+   * @param in_buffer A byte buffer
+   * @param in_pointer A cursor
+   * @param in_base_offset The base offset from the cursor
+   * @return A view of a type
+   */
+  public static TensorsType newValueWithOffset(final ByteBuffer in_buffer,
+      final JPRACursorByteReadableType in_pointer, final int in_base_offset) {
+    return new TensorsByteBuffered(in_buffer, in_pointer, in_base_offset);
+  }
+
+  /**
+   * Construct a view of a type.
+   * @param in_buffer A byte buffer
+   * @param in_pointer A cursor
+   * @return A view of a type
+   */
+  public static TensorsType newValue(final ByteBuffer in_buffer,
+      final JPRACursorByteReadableType in_pointer) {
+    return new TensorsByteBuffered(in_buffer, in_pointer, 0);
+  }
+
+  @Override
+  public int sizeOctets() {
+    return SIZE_OCTETS;
+  }
+
+  /**
+   * @return The size of the type in octets
+   */
+  public static int sizeInOctets() {
+    return SIZE_OCTETS;
+  }
+
+  @Override
+  public void rebind(final ByteBuffer in_buffer) {
+    this.buffer = Objects.requireNonNull(in_buffer, "Buffer");
+    this.field_v3f = VectorByteBufferedFloating3s32.createWithBase(in_buffer, this.pointer.getByteOffsetObservable(), this.base_offset + FIELD_V3F_OFFSET_OCTETS);
+    this.field_v4d = VectorByteBufferedFloating4s64.createWithBase(in_buffer, this.pointer.getByteOffsetObservable(), this.base_offset + FIELD_V4D_OFFSET_OCTETS);
+    this.field_m4f = MatrixByteBuffered4x4s32.createWithBase(in_buffer, this.pointer.getByteOffsetObservable(), this.base_offset + FIELD_M4F_OFFSET_OCTETS);
+  }
+
+  private int getByteOffsetFor(final int field_offset) {
+    final int b = (int) this.pointer.getByteOffsetObservable().value();
+    return b + this.base_offset + field_offset;
+  }
+
+  @Override
+  public int metaV3fOffsetFromType() {
+    return FIELD_V3F_OFFSET_OCTETS;
+  }
+
+  /**
+   * @return The offset in octets of field {@code v3f} from the start of the type
+   */
+  public static int metaV3fStaticOffsetFromType() {
+    return FIELD_V3F_OFFSET_OCTETS;
+  }
+
+  @Override
+  public int metaV3fOffsetFromCursor() {
+    return FIELD_V3F_OFFSET_OCTETS + this.base_offset;
+  }
+
+  @Override
+  public JPRATypeModel.JPRAVector metaV3fType() {
+    return this.meta_type_v3f;
+  }
+
+  @Override
+  public VectorReadable3DType getV3fReadable() {
+    return this.field_v3f;
+  }
+
+  @Override
+  public VectorStorageFloating3Type getV3fWritable() {
+    return this.field_v3f;
+  }
+
+  @Override
+  public int metaV4dOffsetFromType() {
+    return FIELD_V4D_OFFSET_OCTETS;
+  }
+
+  /**
+   * @return The offset in octets of field {@code v4d} from the start of the type
+   */
+  public static int metaV4dStaticOffsetFromType() {
+    return FIELD_V4D_OFFSET_OCTETS;
+  }
+
+  @Override
+  public int metaV4dOffsetFromCursor() {
+    return FIELD_V4D_OFFSET_OCTETS + this.base_offset;
+  }
+
+  @Override
+  public JPRATypeModel.JPRAVector metaV4dType() {
+    return this.meta_type_v4d;
+  }
+
+  @Override
+  public VectorReadable4DType getV4dReadable() {
+    return this.field_v4d;
+  }
+
+  @Override
+  public VectorStorageFloating4Type getV4dWritable() {
+    return this.field_v4d;
+  }
+
+  @Override
+  public int metaM4fOffsetFromType() {
+    return FIELD_M4F_OFFSET_OCTETS;
+  }
+
+  /**
+   * @return The offset in octets of field {@code m4f} from the start of the type
+   */
+  public static int metaM4fStaticOffsetFromType() {
+    return FIELD_M4F_OFFSET_OCTETS;
+  }
+
+  @Override
+  public int metaM4fOffsetFromCursor() {
+    return FIELD_M4F_OFFSET_OCTETS + this.base_offset;
+  }
+
+  @Override
+  public JPRATypeModel.JPRAMatrix metaM4fType() {
+    return this.meta_type_m4f;
+  }
+
+  @Override
+  public MatrixReadable4x4DType getM4fReadable() {
+    return this.field_m4f;
+  }
+
+  @Override
+  public MatrixStorage4x4Type getM4fWritable() {
+    return this.field_m4f;
+  }
+
+  /**
+   * @return The layout of the significant (non-padding) octets of the type
+   */
+  public static JPRAPayloadLayout payloadLayout() {
+    return PAYLOAD_LAYOUT;
+  }
+
+  /**
+   * @return The layout fingerprint of the type
+   */
+  public static long layoutFingerprint() {
+    return LAYOUT_FINGERPRINT;
+  }
+
+  @Override
+  public boolean equalsBytes(final TensorsReadableType other) {
+    final TensorsByteBuffered o = (TensorsByteBuffered) Objects.requireNonNull(other, "Other");
+    return PAYLOAD_LAYOUT.equal(this.buffer, this.getByteOffsetFor(0), o.buffer, o.getByteOffsetFor(0));
+  }
+
+  @Override
+  public int mismatch(final TensorsReadableType other) {
+    final TensorsByteBuffered o = (TensorsByteBuffered) Objects.requireNonNull(other, "Other");
+    return PAYLOAD_LAYOUT.mismatch(this.buffer, this.getByteOffsetFor(0), o.buffer, o.getByteOffsetFor(0));
+  }
+
+  @Override
+  public long hashBytes() {
+    return PAYLOAD_LAYOUT.hash(this.buffer, this.getByteOffsetFor(0));
+  }
+}
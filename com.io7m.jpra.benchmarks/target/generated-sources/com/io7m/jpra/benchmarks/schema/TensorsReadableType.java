@@ -0,0 +1,82 @@
+package com.io7m.jpra.benchmarks.schema;
+
+import com.io7m.jpra.runtime.java.JPRATypeModel;
+import com.io7m.jpra.runtime.java.JPRAValueType;
+import com.io7m.jtensors.core.unparameterized.matrices.MatrixReadable4x4DType;
+import com.io7m.jtensors.core.unparameterized.vectors.VectorReadable3DType;
+import com.io7m.jtensors.core.unparameterized.vectors.VectorReadable4DType;
+
+/**
+ * The readable interface to values of the {@code TypeName{value=Tensors}} record type. */
+public interface TensorsReadableType extends JPRAValueType {
+  /**
+   * @return The offset in octets of the {@code FieldName{value=v3f}} field, from the start of the type */
+  int metaV3fOffsetFromType();
+
+  /**
+   * @return The offset in octets of the {@code FieldName{value=v3f}} field, from the cursor */
+  int metaV3fOffsetFromCursor();
+
+  /**
+   * @return The type of the {@code FieldName{value=v3f}} field */
+  JPRATypeModel.JPRAVector metaV3fType();
+
+  /**
+   * @return Read-only access to the {@code FieldName{value=v3f}} field */
+  VectorReadable3DType getV3fReadable();
+
+  /**
+   * @return The offset in octets of the {@code FieldName{value=v4d}} field, from the start of the type */
+  int metaV4dOffsetFromType();
+
+  /**
+   * @return The offset in octets of the {@code FieldName{value=v4d}} field, from the cursor */
+  int metaV4dOffsetFromCursor();
+
+  /**
+   * @return The type of the {@code FieldName{value=v4d}} field */
+  JPRATypeModel.JPRAVector metaV4dType();
+
+  /**
+   * @return Read-only access to the {@code FieldName{value=v4d}} field */
+  VectorReadable4DType getV4dReadable();
+
+  /**
+   * @return The offset in octets of the {@code FieldName{value=m4f}} field, from the start of the type */
+  int metaM4fOffsetFromType();
+
+  /**
+   * @return The offset in octets of the {@code FieldName{value=m4f}} field, from the cursor */
+  int metaM4fOffsetFromCursor();
+
+  /**
+   * @return The type of the {@code FieldName{value=m4f}} field */
+  JPRATypeModel.JPRAMatrix metaM4fType();
+
+  /**
+   * @return Read-only access to the {@code FieldName{value=m4f}} field */
+  MatrixReadable4x4DType getM4fReadable();
+
+  /**
+   * Compare the significant octets of this value with {@code other}. Padding, and string data past the current length of each string, is ignored.
+   *
+   * @param other A value produced by the same implementation
+   *
+   * @return {@code true} iff the values are bytewise equal
+   */
+  boolean equalsBytes(TensorsReadableType other);
+
+  /**
+   * Find the first significant octet that differs between this value and {@code other}. Padding is ignored.
+   *
+   * @param other A value produced by the same implementation
+   *
+   * @return The offset of the first differing octet relative to the start of the value, or {@code -1} if the values are equal
+   */
+  int mismatch(TensorsReadableType other);
+
+  /**
+   * @return A 64-bit hash of the significant octets of this value. The hash depends only on those octets and is therefore the same on every JVM, but values written in different byte orders have different octets
+   */
+  long hashBytes();
+}
@@ -0,0 +1,22 @@
+package com.io7m.jpra.benchmarks.schema;
+
+import com.io7m.jpra.runtime.java.JPRAValueType;
+import com.io7m.jtensors.storage.api.unparameterized.matrices.MatrixStorage4x4Type;
+import com.io7m.jtensors.storage.api.unparameterized.vectors.VectorStorageFloating3Type;
+import com.io7m.jtensors.storage.api.unparameterized.vectors.VectorStorageFloating4Type;
+
+/**
+ * The writable interface to values of the {@code TensorsWritableType} record type. */
+public interface TensorsWritableType extends JPRAValueType {
+  /**
+   * @return Writable access to the {@code FieldName{value=v3f}} field */
+  VectorStorageFloating3Type getV3fWritable();
+
+  /**
+   * @return Writable access to the {@code FieldName{value=v4d}} field */
+  VectorStorageFloating4Type getV4dWritable();
+
+  /**
+   * @return Writable access to the {@code FieldName{value=m4f}} field */
+  MatrixStorage4x4Type getM4fWritable();
+}
@@ -0,0 +1,759 @@
+/*
+ * Copyright © 2015 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.jpra.compiler.c;
+
+import com.io7m.jpra.model.names.FieldName;
+import com.io7m.jpra.model.names.TypeName;
+import com.io7m.jpra.model.types.TArray;
+import com.io7m.jpra.model.types.TBooleanSet;
+import com.io7m.jpra.model.types.TFloat;
+import com.io7m.jpra.model.types.TIntegerSigned;
+import com.io7m.jpra.model.types.TIntegerSignedNormalized;
+import com.io7m.jpra.model.types.TIntegerType;
+import com.io7m.jpra.model.types.TIntegerUnsigned;
+import com.io7m.jpra.model.types.TIntegerUnsignedNormalized;
+import com.io7m.jpra.model.types.TMatrix;
+import com.io7m.jpra.model.types.TPacked;
+import com.io7m.jpra.model.types.TRecord;
+import com.io7m.jpra.model.types.TString;
+import com.io7m.jpra.model.types.TType;
+import com.io7m.jpra.model.types.TUnion;
+import com.io7m.jpra.model.types.TVector;
+import com.io7m.jpra.model.types.TypeIntegerMatcherType;
+import com.io7m.jpra.model.types.TypeMatcherType;
+import com.io7m.jpra.model.types.TypeScalarMatcherType;
+import com.io7m.jpra.model.types.TypeScalarType;
+import com.io7m.jpra.model.types.TypeUserDefinedMatcherType;
+import com.io7m.jpra.model.types.TypeUserDefinedType;
+import com.io7m.junreachable.UnreachableCodeException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**
+ * <p>The default implementation of the {@link JPRACGeneratorType}
+ * interface.</p>
+ *
+ * <p>Records are declared as structures with one member per field and an
+ * explicit {@code uint8_t} array per padding field, inside a
+ * {@code #pragma pack(push, 1)} region so that the compiler inserts no
+ * padding of its own. The size of every structure and the offset of every
+ * record field are checked with {@code _Static_assert}, so a header that
+ * compiles is guaranteed to agree with the layout used by the Java
+ * backend. Fields of size zero are omitted from the structure, because ISO
+ * C has no members of size zero.</p>
+ *
+ * <p>Packed types are declared as opaque arrays of octets, because C
+ * bit-fields have an implementation-defined layout. Fields are accessed
+ * with generated macros that assemble the big-endian container, exactly as
+ * the Java backend does.</p>
+ *
+ * <p>Unions are declared as structures holding the tag followed by a C
+ * {@code union} of the structures of the cases, along with one constant per
+ * case giving the tag value that selects it.</p>
+ */
+
+public final class JPRACGenerator implements JPRACGeneratorType
+{
+  private JPRACGenerator()
+  {
+
+  }
+
+  /**
+   * @return A new generator
+   */
+
+  public static JPRACGeneratorType newGenerator()
+  {
+    return new JPRACGenerator();
+  }
+
+  private static int octets(
+    final TType t)
+  {
+    return t.getSizeInBits().getValue().intValueExact() / 8;
+  }
+
+  private static String qualifiedName(
+    final TypeUserDefinedType t)
+  {
+    return t.getPackageContext().getName().toString()
+      + "." + t.getName().value();
+  }
+
+  private static void generatePrologue(
+    final TypeUserDefinedType t,
+    final SortedSet<String> includes,
+    final StringBuilder sb)
+  {
+    final String guard = JPRACNames.getGuardName(t);
+    sb.append("/*\n");
+    sb.append(" * Automatically generated from ");
+    sb.append(qualifiedName(t));
+    sb.append(". Do not edit.\n");
+    sb.append(" */\n\n");
+    sb.append("#ifndef ").append(guard).append('\n');
+    sb.append("#define ").append(guard).append("\n\n");
+    sb.append("#include <stddef.h>\n");
+    sb.append("#include <stdint.h>\n\n");
+    if (!includes.isEmpty()) {
+      for (final String i : includes) {
+        sb.append("#include \"").append(i).append("\"\n");
+      }
+      sb.append('\n');
+    }
+  }
+
+  private static void generateEpilogue(
+    final StringBuilder sb)
+  {
+    sb.append("#endif\n");
+  }
+
+  private static void generateStaticAssert(
+    final StringBuilder sb,
+    final String condition,
+    final String message)
+  {
+    sb.append("_Static_assert(\n  ");
+    sb.append(condition);
+    sb.append(",\n  \"");
+    sb.append(message);
+    sb.append("\");\n");
+  }
+
+  private static String generateRecord(
+    final TRecord t)
+  {
+    final SortedSet<String> includes = new TreeSet<>();
+    for (final TRecord.FieldType f : t.getFieldsInDeclarationOrder()) {
+      if (f instanceof TRecord.FieldValue) {
+        collectIncludes(((TRecord.FieldValue) f).getType(), includes);
+      }
+    }
+
+    final StringBuilder sb = new StringBuilder(1024);
+    generatePrologue(t, includes, sb);
+
+    final String name = qualifiedName(t);
+    final String tag = JPRACNames.getStructName(t);
+    final int size = t.getSizeInOctets().getValue().intValueExact();
+
+    sb.append("/*\n");
+    sb.append(" * Scalar fields are stored in the byte order of the buffer ");
+    sb.append("that holds\n");
+    sb.append(" * the record, and so can only be accessed through this ");
+    sb.append("structure if the\n");
+    sb.append(" * buffer uses the native byte order. Packed fields are ");
+    sb.append("always big-endian\n");
+    sb.append(" * and must be accessed through the macros of their ");
+    sb.append("respective headers.\n");
+    sb.append(" */\n\n");
+
+    if (size == 0) {
+      sb.append("/* ");
+      sb.append(name);
+      sb.append(" has no fields and therefore no structure. */\n\n");
+      generateEpilogue(sb);
+      return sb.toString();
+    }
+
+    generateRecordStructure(t, tag, sb);
+    generateRecordAsserts(t, tag, sb);
+    generateRecordMacros(t, sb);
+    generateEpilogue(sb);
+    return sb.toString();
+  }
+
+  private static void generateRecordStructure(
+    final TRecord t,
+    final String tag,
+    final StringBuilder sb)
+  {
+    sb.append("#pragma pack(push, 1)\n\n");
+    sb.append("struct ").append(tag).append("\n{\n");
+
+    /*
+     * ISO C forbids members of size zero, so fields of that size (records
+     * without fields, and arrays of them) are omitted from the structure.
+     */
+
+    int padding = 0;
+    for (final TRecord.FieldType f : t.getFieldsInDeclarationOrder()) {
+      sb.append("  ");
+      if (f instanceof TRecord.FieldValue) {
+        final TRecord.FieldValue fv = (TRecord.FieldValue) f;
+        if (fv.getSizeInOctets().getValue().signum() == 0) {
+          sb.append("/* ");
+          sb.append(JPRACNames.getFieldName(fv.getName()));
+          sb.append(" has size zero */\n");
+          continue;
+        }
+        sb.append(declare(
+          fv.getType(), JPRACNames.getFieldName(fv.getName())));
+      } else {
+        sb.append("uint8_t padding_");
+        sb.append(padding);
+        sb.append('[');
+        sb.append(f.getSizeInOctets().getValue());
+        sb.append(']');
+        ++padding;
+      }
+      sb.append(";\n");
+    }
+
+    sb.append("};\n\n");
+    sb.append("#pragma pack(pop)\n\n");
+  }
+
+  private static void generateRecordAsserts(
+    final TRecord t,
+    final String tag,
+    final StringBuilder sb)
+  {
+    final String name = qualifiedName(t);
+    final int size = t.getSizeInOctets().getValue().intValueExact();
+    generateStaticAssert(
+      sb,
+      String.format("sizeof(struct %s) == %d", tag, Integer.valueOf(size)),
+      "Size of " + name);
+
+    BigInteger offset = BigInteger.ZERO;
+    for (final TRecord.FieldType f : t.getFieldsInDeclarationOrder()) {
+      if (f instanceof TRecord.FieldValue
+        && f.getSizeInOctets().getValue().signum() != 0) {
+        final FieldName f_name = ((TRecord.FieldValue) f).getName();
+        generateStaticAssert(
+          sb,
+          String.format(
+            "offsetof(struct %s, %s) == %s",
+            tag,
+            JPRACNames.getFieldName(f_name),
+            offset),
+          "Offset of " + name + "." + f_name.value());
+      }
+      offset = offset.add(f.getSizeInOctets().getValue());
+    }
+    sb.append('\n');
+  }
+
+  private static void generateRecordMacros(
+    final TRecord t,
+    final StringBuilder sb)
+  {
+    for (final TRecord.FieldType f : t.getFieldsInDeclarationOrder()) {
+      if (f instanceof TRecord.FieldValue) {
+        final TRecord.FieldValue fv = (TRecord.FieldValue) f;
+        if (fv.getType() instanceof TBooleanSet) {
+          generateBooleanSetMacros(
+            t, fv.getName(), (TBooleanSet) fv.getType(), sb);
+        }
+      }
+    }
+  }
+
+  private static void generateBooleanSetMacros(
+    final TRecord t,
+    final FieldName field,
+    final TBooleanSet b,
+    final StringBuilder sb)
+  {
+    final String prefix =
+      JPRACNames.getMacroPrefix(t)
+        + "_" + JPRACNames.getFieldMacroName(field);
+    final String member = JPRACNames.getFieldName(field);
+
+    int index = 0;
+    for (final FieldName flag : b.getFieldsInDeclarationOrder()) {
+      final String flag_prefix =
+        prefix + "_" + JPRACNames.getFieldMacroName(flag);
+      final String octet =
+        String.format("(s)->%s[%d]", member, Integer.valueOf(index / 8));
+      final int shift = 7 - (index % 8);
+      final String mask = String.format("0x%02xu", Integer.valueOf(1 << shift));
+
+      sb.append("#define ").append(flag_prefix).append("_GET(s) \\\n");
+      sb.append("  ((").append(octet).append(" >> ").append(shift);
+      sb.append(") & 1u)\n\n");
+
+      sb.append("#define ").append(flag_prefix).append("_SET(s, v) \\\n");
+      sb.append("  do { \\\n");
+      sb.append("    if (v) { \\\n");
+      sb.append("      ").append(octet).append(" = (uint8_t) (");
+      sb.append(octet).append(" | ").append(mask).append("); \\\n");
+      sb.append("    } else { \\\n");
+      sb.append("      ").append(octet).append(" = (uint8_t) (");
+      sb.append(octet).append(" & ~").append(mask).append("); \\\n");
+      sb.append("    } \\\n");
+      sb.append("  } while (0)\n\n");
+      ++index;
+    }
+  }
+
+  private static String generatePacked(
+    final TPacked t)
+  {
+    final StringBuilder sb = new StringBuilder(1024);
+    generatePrologue(t, new TreeSet<>(), sb);
+
+    final String name = qualifiedName(t);
+    final String tag = JPRACNames.getStructName(t);
+    final String prefix = JPRACNames.getMacroPrefix(t);
+    final int size = t.getSizeInOctets().getValue().intValueExact();
+
+    sb.append("/*\n");
+    sb.append(" * The fields of ");
+    sb.append(name);
+    sb.append(" are packed into a big-endian\n");
+    sb.append(" * container and must be accessed with the macros below.\n");
+    sb.append(" */\n\n");
+
+    sb.append("#pragma pack(push, 1)\n\n");
+    sb.append("struct ").append(tag).append("\n{\n");
+    sb.append("  uint8_t octets[").append(size).append("];\n");
+    sb.append("};\n\n");
+    sb.append("#pragma pack(pop)\n\n");
+
+    generateStaticAssert(
+      sb,
+      String.format("sizeof(struct %s) == %d", tag, Integer.valueOf(size)),
+      "Size of " + name);
+    sb.append('\n');
+
+    generatePackedContainerMacros(prefix, size, sb);
+    for (final TPacked.FieldType f : t.getFieldsInDeclarationOrder()) {
+      if (f instanceof TPacked.FieldValue) {
+        generatePackedFieldMacros((TPacked.FieldValue) f, prefix, sb);
+      }
+    }
+
+    generateEpilogue(sb);
+    return sb.toString();
+  }
+
+  private static void generatePackedContainerMacros(
+    final String prefix,
+    final int size,
+    final StringBuilder sb)
+  {
+    sb.append("#define ").append(prefix).append("_LOAD(s) \\\n");
+    for (int index = 0; index < size; ++index) {
+      sb.append(index == 0 ? "  ((" : "  | (");
+      sb.append("(uint64_t) (s)->octets[").append(index).append("] << ");
+      sb.append((size - 1 - index) * 8).append(')');
+      sb.append(index + 1 == size ? ")\n\n" : " \\\n");
+    }
+
+    sb.append("#define ").append(prefix).append("_STORE(s, c) \\\n");
+    sb.append("  do { \\\n");
+    sb.append("    const uint64_t jpra_c_ = (uint64_t) (c); \\\n");
+    for (int index = 0; index < size; ++index) {
+      sb.append("    (s)->octets[").append(index);
+      sb.append("] = (uint8_t) (jpra_c_ >> ");
+      sb.append((size - 1 - index) * 8).append("); \\\n");
+    }
+    sb.append("  } while (0)\n\n");
+  }
+
+  private static void generatePackedFieldMacros(
+    final TPacked.FieldValue fv,
+    final String prefix,
+    final StringBuilder sb)
+  {
+    final String field_prefix =
+      prefix + "_" + JPRACNames.getFieldMacroName(fv.getName());
+    final int lower = fv.getBitRange().lower().intValueExact();
+    final int bits = fv.getSize().getValue().intValueExact();
+    final String mask = String.format(
+      "UINT64_C(0x%s)",
+      BigInteger.ONE.shiftLeft(bits).subtract(BigInteger.ONE).toString(16));
+
+    sb.append("#define ").append(field_prefix).append("_GET(s) \\\n");
+    sb.append("  ((").append(prefix).append("_LOAD(s) >> ");
+    sb.append(lower).append(") & ").append(mask).append(")\n\n");
+
+    sb.append("#define ").append(field_prefix).append("_SET(s, v) \\\n");
+    sb.append("  do { \\\n");
+    sb.append("    const uint64_t jpra_v_ = \\\n");
+    sb.append("      (").append(prefix).append("_LOAD(s) & ~(");
+    sb.append(mask).append(" << ").append(lower).append(")) \\\n");
+    sb.append("      | (((uint64_t) (v) & ").append(mask);
+    sb.append(") << ").append(lower).append("); \\\n");
+    sb.append("    ").append(prefix).append("_STORE(s, jpra_v_); \\\n");
+    sb.append("  } while (0)\n\n");
+  }
+
+  private static String generateUnion(
+    final TUnion t)
+  {
+    final SortedSet<String> includes = new TreeSet<>();
+    for (final TUnion.Case c : t.getCasesInDeclarationOrder()) {
+      collectIncludes(c.getType(), includes);
+    }
+
+    final StringBuilder sb = new StringBuilder(1024);
+    generatePrologue(t, includes, sb);
+
+    final String name = qualifiedName(t);
+    final String tag = JPRACNames.getStructName(t);
+    final String prefix = JPRACNames.getMacroPrefix(t);
+    final int size = t.getSizeInOctets().getValue().intValueExact();
+    final int payload = t.getPayloadSizeInOctets().getValue().intValueExact();
+
+    sb.append("/*\n");
+    sb.append(" * The tag of ");
+    sb.append(name);
+    sb.append(" selects which of the overlaid cases\n");
+    sb.append(" * is valid. The tag is stored in the byte order of the ");
+    sb.append("buffer that holds\n");
+    sb.append(" * the union, and so can only be accessed through this ");
+    sb.append("structure if the\n");
+    sb.append(" * buffer uses the native byte order.\n");
+    sb.append(" */\n\n");
+
+    for (final TUnion.Case c : t.getCasesInDeclarationOrder()) {
+      sb.append("#define ").append(prefix).append('_');
+      sb.append(JPRACNames.getCaseMacroName(c.getName()));
+      sb.append(' ').append(c.getTagValue()).append("u\n");
+    }
+    sb.append('\n');
+
+    sb.append("#pragma pack(push, 1)\n\n");
+    sb.append("struct ").append(tag).append("\n{\n");
+    sb.append("  ");
+    sb.append(integerType(t.getTagType()));
+    sb.append(" tag;\n");
+
+    /*
+     * Cases of size zero have no structure, and a union with only such
+     * cases has no payload.
+     */
+
+    if (payload > 0) {
+      sb.append("  union\n  {\n");
+      for (final TUnion.Case c : t.getCasesInDeclarationOrder()) {
+        if (octets(c.getType()) > 0) {
+          sb.append("    ");
+          sb.append(declare(
+            c.getType(), JPRACNames.getCaseName(c.getName())));
+          sb.append(";\n");
+        }
+      }
+      sb.append("  } cases;\n");
+    }
+
+    sb.append("};\n\n");
+    sb.append("#pragma pack(pop)\n\n");
+
+    generateStaticAssert(
+      sb,
+      String.format("sizeof(struct %s) == %d", tag, Integer.valueOf(size)),
+      "Size of " + name);
+    if (payload > 0) {
+      generateStaticAssert(
+        sb,
+        String.format(
+          "offsetof(struct %s, cases) == %s",
+          tag,
+          t.getTagSizeInOctets().getValue()),
+        "Offset of the cases of " + name);
+    }
+    sb.append('\n');
+
+    generateEpilogue(sb);
+    return sb.toString();
+  }
+
+  private static void collectIncludes(
+    final TType t,
+    final SortedSet<String> includes)
+  {
+    if (t instanceof TArray) {
+      collectIncludes(((TArray) t).getElementType(), includes);
+    } else if (t instanceof TypeUserDefinedType) {
+      includes.add(JPRACNames.getIncludePath((TypeUserDefinedType) t));
+    }
+  }
+
+  private static String declare(
+    final TType t,
+    final String declarator)
+  {
+    return t.matchType(new Declarator(declarator));
+  }
+
+  private static String scalarType(
+    final TypeScalarType t)
+  {
+    return t.matchTypeScalar(new ScalarTypeName());
+  }
+
+  private static String floatType(
+    final TFloat t)
+  {
+    final int bits = t.getSizeInBits().getValue().intValueExact();
+    switch (bits) {
+      case 16:
+        return "uint16_t";
+      case 32:
+        return "float";
+      case 64:
+        return "double";
+      default:
+        throw new IllegalArgumentException(
+          String.format(
+            "Floating point values of size %d cannot be represented in C",
+            Integer.valueOf(bits)));
+    }
+  }
+
+  private static String integerType(
+    final TIntegerType t)
+  {
+    final int bits = t.getSizeInBits().getValue().intValueExact();
+    if (bits != 8 && bits != 16 && bits != 32 && bits != 64) {
+      throw new IllegalArgumentException(
+        String.format(
+          "Integer values of size %d cannot be represented in C",
+          Integer.valueOf(bits)));
+    }
+
+    final boolean signed =
+      t.matchTypeInteger(new IntegerSignedness()).booleanValue();
+
+    return (signed ? "int" : "uint") + bits + "_t";
+  }
+
+  @Override
+  public String getHeaderName(
+    final TypeName t)
+  {
+    return JPRACNames.getHeaderName(Objects.requireNonNull(t, "Type name"));
+  }
+
+  @Override
+  public void generateHeader(
+    final TypeUserDefinedType t,
+    final OutputStream os)
+    throws IOException
+  {
+    Objects.requireNonNull(t, "Type");
+    Objects.requireNonNull(os, "Output");
+
+    final String text = t.matchTypeUserDefined(new HeaderGenerator());
+
+    final Writer w = new OutputStreamWriter(os, StandardCharsets.UTF_8);
+    w.write(text);
+    w.flush();
+  }
+
+  private static final class HeaderGenerator
+    implements TypeUserDefinedMatcherType<String, UnreachableCodeException>
+  {
+    HeaderGenerator()
+    {
+
+    }
+
+    @Override
+    public String matchRecord(
+      final TRecord r)
+    {
+      return generateRecord(r);
+    }
+
+    @Override
+    public String matchPacked(
+      final TPacked p)
+    {
+      return generatePacked(p);
+    }
+
+    @Override
+    public String matchUnion(
+      final TUnion u)
+    {
+      return generateUnion(u);
+    }
+  }
+
+  private static final class ScalarTypeName
+    implements TypeScalarMatcherType<String, UnreachableCodeException>
+  {
+    ScalarTypeName()
+    {
+
+    }
+
+    @Override
+    public String matchScalarInteger(
+      final TIntegerType ti)
+    {
+      return integerType(ti);
+    }
+
+    @Override
+    public String matchScalarFloat(
+      final TFloat tf)
+    {
+      return floatType(tf);
+    }
+  }
+
+  private static final class IntegerSignedness
+    implements TypeIntegerMatcherType<Boolean, UnreachableCodeException>
+  {
+    IntegerSignedness()
+    {
+
+    }
+
+    @Override
+    public Boolean matchIntegerUnsigned(
+      final TIntegerUnsigned ti)
+    {
+      return Boolean.FALSE;
+    }
+
+    @Override
+    public Boolean matchIntegerSigned(
+      final TIntegerSigned ti)
+    {
+      return Boolean.TRUE;
+    }
+
+    @Override
+    public Boolean matchIntegerSignedNormalized(
+      final TIntegerSignedNormalized ti)
+    {
+      return Boolean.TRUE;
+    }
+
+    @Override
+    public Boolean matchIntegerUnsignedNormalized(
+      final TIntegerUnsignedNormalized ti)
+    {
+      return Boolean.FALSE;
+    }
+  }
+
+  private static final class Declarator
+    implements TypeMatcherType<String, UnreachableCodeException>
+  {
+    private final String declarator;
+
+    Declarator(
+      final String in_declarator)
+    {
+      this.declarator = in_declarator;
+    }
+
+    @Override
+    public String matchArray(
+      final TArray t)
+    {
+      return declare(
+        t.getElementType(),
+        this.declarator + "[" + t.getElementCount() + "]");
+    }
+
+    @Override
+    public String matchString(
+      final TString t)
+    {
+      return String.format(
+        "struct { int32_t length; uint8_t data[%s]; } %s",
+        t.getMaximumStringLength(),
+        this.declarator);
+    }
+
+    @Override
+    public String matchBooleanSet(
+      final TBooleanSet t)
+    {
+      return String.format(
+        "uint8_t %s[%s]", this.declarator, t.getSizeInOctets());
+    }
+
+    @Override
+    public String matchInteger(
+      final TIntegerType t)
+    {
+      return integerType(t) + " " + this.declarator;
+    }
+
+    @Override
+    public String matchFloat(
+      final TFloat t)
+    {
+      return scalarType(t) + " " + this.declarator;
+    }
+
+    @Override
+    public String matchVector(
+      final TVector t)
+    {
+      return String.format(
+        "%s %s[%s]",
+        scalarType(t.getElementType()),
+        this.declarator,
+        t.getElementCount());
+    }
+
+    @Override
+    public String matchMatrix(
+      final TMatrix t)
+    {
+      final BigInteger count =
+        t.getWidth().getValue().multiply(t.getHeight().getValue());
+      return String.format(
+        "%s %s[%s]",
+        scalarType(t.getElementType()),
+        this.declarator,
+        count);
+    }
+
+    @Override
+    public String matchRecord(
+      final TRecord t)
+    {
+      return "struct " + JPRACNames.getStructName(t) + " " + this.declarator;
+    }
+
+    @Override
+    public String matchPacked(
+      final TPacked t)
+    {
+      return "struct " + JPRACNames.getStructName(t) + " " + this.declarator;
+    }
+
+    @Override
+    public String matchUnion(
+      final TUnion t)
+    {
+      return "struct " + JPRACNames.getStructName(t) + " " + this.declarator;
+    }
+  }
+}
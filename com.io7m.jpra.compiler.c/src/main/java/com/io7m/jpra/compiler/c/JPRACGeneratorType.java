@@ -0,0 +1,56 @@
+/*
+ * Copyright © 2015 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.jpra.compiler.c;
+
+import com.io7m.jpra.model.names.TypeName;
+import com.io7m.jpra.model.types.TypeUserDefinedType;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * <p>The type of C source code generators.</p>
+ *
+ * <p>Each type definition results in a C11 header declaring a {@code struct}
+ * with exactly the layout of the type, so that buffers written through the
+ * generated Java code can be accessed directly from native code.</p>
+ */
+
+public interface JPRACGeneratorType
+{
+  /**
+   * @param t The type name
+   *
+   * @return The file name that will result for the header of {@code t}
+   */
+
+  String getHeaderName(TypeName t);
+
+  /**
+   * Generate a C header for a type definition.
+   *
+   * @param t  The type
+   * @param os The output stream
+   *
+   * @throws IOException On I/O errors
+   */
+
+  void generateHeader(
+    TypeUserDefinedType t,
+    OutputStream os)
+    throws IOException;
+}
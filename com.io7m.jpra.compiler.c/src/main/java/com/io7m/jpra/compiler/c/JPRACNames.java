@@ -0,0 +1,136 @@
+/*
+ * Copyright © 2015 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.jpra.compiler.c;
+
+import com.io7m.jpra.model.names.FieldName;
+import com.io7m.jpra.model.names.PackageNameQualified;
+import com.io7m.jpra.model.names.PackageNameUnqualified;
+import com.io7m.jpra.model.names.TypeName;
+import com.io7m.jpra.model.names.UnionCaseName;
+import com.io7m.jpra.model.types.TypeUserDefinedType;
+import com.io7m.junreachable.UnreachableCodeException;
+
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Functions to produce the names used in generated C code.
+ */
+
+final class JPRACNames
+{
+  private static final Set<String> KEYWORDS = Set.of(
+    "auto", "break", "case", "char", "const", "continue", "default", "do",
+    "double", "else", "enum", "extern", "float", "for", "goto", "if",
+    "inline", "int", "long", "register", "restrict", "return", "short",
+    "signed", "sizeof", "static", "struct", "switch", "typedef", "union",
+    "unsigned", "void", "volatile", "while", "_Alignas", "_Alignof",
+    "_Atomic", "_Bool", "_Complex", "_Generic", "_Imaginary", "_Noreturn",
+    "_Static_assert", "_Thread_local");
+
+  private JPRACNames()
+  {
+    throw new UnreachableCodeException();
+  }
+
+  private static String getPackagePrefix(
+    final PackageNameQualified p_name)
+  {
+    final StringBuilder sb = new StringBuilder(64);
+    for (final PackageNameUnqualified e : p_name.getValue()) {
+      sb.append(e.value());
+      sb.append('_');
+    }
+    return sb.toString();
+  }
+
+  static String getStructName(
+    final TypeUserDefinedType t)
+  {
+    return getPackagePrefix(t.getPackageContext().getName())
+      + t.getName().value();
+  }
+
+  static String getMacroPrefix(
+    final TypeUserDefinedType t)
+  {
+    return getStructName(t).toUpperCase(Locale.ROOT);
+  }
+
+  static String getGuardName(
+    final TypeUserDefinedType t)
+  {
+    return getMacroPrefix(t) + "_H";
+  }
+
+  static String getHeaderName(
+    final TypeName t)
+  {
+    return t.value() + ".h";
+  }
+
+  static String getIncludePath(
+    final TypeUserDefinedType t)
+  {
+    final PackageNameQualified p_name = t.getPackageContext().getName();
+    final StringBuilder sb = new StringBuilder(64);
+    for (final PackageNameUnqualified e : p_name.getValue()) {
+      sb.append(e.value());
+      sb.append('/');
+    }
+    sb.append(getHeaderName(t.getName()));
+    return sb.toString();
+  }
+
+  /**
+   * @return The name of a field as a C member name, with a trailing
+   * underscore if the name would otherwise be a C keyword
+   */
+
+  static String getFieldName(
+    final FieldName f)
+  {
+    final String name = f.value();
+    if (KEYWORDS.contains(name)) {
+      return name + "_";
+    }
+    return name;
+  }
+
+  static String getFieldMacroName(
+    final FieldName f)
+  {
+    return f.value().toUpperCase(Locale.ROOT);
+  }
+
+  /**
+   * @return The name of a union case as a C member name; case names begin
+   * with an uppercase letter and so cannot be C keywords
+   */
+
+  static String getCaseName(
+    final UnionCaseName c)
+  {
+    return c.value();
+  }
+
+  static String getCaseMacroName(
+    final UnionCaseName c)
+  {
+    return c.value().toUpperCase(Locale.ROOT);
+  }
+}
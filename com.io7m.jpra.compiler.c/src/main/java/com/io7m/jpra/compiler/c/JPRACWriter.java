@@ -0,0 +1,90 @@
+/*
+ * Copyright © 2015 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.jpra.compiler.c;
+
+import com.io7m.jpra.model.names.PackageNameQualified;
+import com.io7m.jpra.model.names.PackageNameUnqualified;
+import com.io7m.jpra.model.names.TypeName;
+import com.io7m.jpra.model.types.TypeUserDefinedType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Objects;
+
+/**
+ * The default implementation of the {@link JPRACWriterType} interface.
+ */
+
+public final class JPRACWriter implements JPRACWriterType
+{
+  private static final Logger LOG;
+
+  static {
+    LOG = LoggerFactory.getLogger(JPRACWriter.class);
+  }
+
+  private final JPRACGeneratorType generator;
+
+  private JPRACWriter(
+    final JPRACGeneratorType in_generator)
+  {
+    this.generator = Objects.requireNonNull(in_generator, "Generator");
+  }
+
+  /**
+   * @param in_generator A C code generator
+   *
+   * @return A new writer
+   */
+
+  public static JPRACWriterType newWriter(
+    final JPRACGeneratorType in_generator)
+  {
+    return new JPRACWriter(in_generator);
+  }
+
+  @Override
+  public void writeType(
+    final Path path,
+    final TypeUserDefinedType t)
+    throws IOException
+  {
+    Objects.requireNonNull(path, "path");
+    Objects.requireNonNull(t, "t");
+
+    final TypeName t_name = t.getName();
+    final PackageNameQualified p_name = t.getPackageContext().getName();
+    LOG.debug("exporting {}.{}", p_name, t_name);
+
+    Path pkg_path = path;
+    for (final PackageNameUnqualified e : p_name.getValue()) {
+      pkg_path = pkg_path.resolve(e.value());
+    }
+    Files.createDirectories(pkg_path);
+
+    final Path h_file =
+      pkg_path.resolve(this.generator.getHeaderName(t_name));
+    LOG.debug("writing {}", h_file);
+    try (OutputStream w = Files.newOutputStream(h_file)) {
+      this.generator.generateHeader(t, w);
+    }
+  }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright © 2015 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.jpra.compiler.c;
+
+import com.io7m.jpra.model.types.TypeUserDefinedType;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * The type of writers that write C headers to a directory hierarchy.
+ */
+
+public interface JPRACWriterType
+{
+  /**
+   * Write the header for the given type. The header is written to a
+   * directory relative to {@code path} that corresponds to the package of
+   * the type, so that headers can include one another using paths relative
+   * to {@code path}.
+   *
+   * @param path The base path
+   * @param t    The type
+   *
+   * @throws IOException On I/O errors
+   */
+
+  void writeType(
+    Path path,
+    TypeUserDefinedType t)
+    throws IOException;
+}
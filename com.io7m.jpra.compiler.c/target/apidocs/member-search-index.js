@@ -0,0 +1 @@
+memberSearchIndex = [{"p":"com.io7m.jpra.compiler.c","c":"JPRACGenerator","l":"generateHeader(TypeUserDefinedType, OutputStream)","url":"generateHeader(com.io7m.jpra.model.types.TypeUserDefinedType,java.io.OutputStream)"},{"p":"com.io7m.jpra.compiler.c","c":"JPRACGeneratorType","l":"generateHeader(TypeUserDefinedType, OutputStream)","url":"generateHeader(com.io7m.jpra.model.types.TypeUserDefinedType,java.io.OutputStream)"},{"p":"com.io7m.jpra.compiler.c","c":"JPRACGenerator","l":"getHeaderName(TypeName)","url":"getHeaderName(com.io7m.jpra.model.names.TypeName)"},{"p":"com.io7m.jpra.compiler.c","c":"JPRACGeneratorType","l":"getHeaderName(TypeName)","url":"getHeaderName(com.io7m.jpra.model.names.TypeName)"},{"p":"com.io7m.jpra.compiler.c","c":"JPRACGenerator","l":"newGenerator()"},{"p":"com.io7m.jpra.compiler.c","c":"JPRACWriter","l":"newWriter(JPRACGeneratorType)","url":"newWriter(com.io7m.jpra.compiler.c.JPRACGeneratorType)"},{"p":"com.io7m.jpra.compiler.c","c":"JPRACWriter","l":"writeType(Path, TypeUserDefinedType)","url":"writeType(java.nio.file.Path,com.io7m.jpra.model.types.TypeUserDefinedType)"},{"p":"com.io7m.jpra.compiler.c","c":"JPRACWriterType","l":"writeType(Path, TypeUserDefinedType)","url":"writeType(java.nio.file.Path,com.io7m.jpra.model.types.TypeUserDefinedType)"}]
\ No newline at end of file
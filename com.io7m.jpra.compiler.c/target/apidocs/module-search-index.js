@@ -0,0 +1 @@
+moduleSearchIndex = [{"l":"com.io7m.jpra.compiler.c"}]
\ No newline at end of file
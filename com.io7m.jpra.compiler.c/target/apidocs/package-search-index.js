@@ -0,0 +1 @@
+packageSearchIndex = [{"l":"All Packages","url":"allpackages-index.html"},{"m":"com.io7m.jpra.compiler.c","l":"com.io7m.jpra.compiler.c"}]
\ No newline at end of file
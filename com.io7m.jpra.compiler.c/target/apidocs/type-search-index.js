@@ -0,0 +1 @@
+typeSearchIndex = [{"l":"All Classes","url":"allclasses-index.html"},{"p":"com.io7m.jpra.compiler.c","l":"JPRACGenerator"},{"p":"com.io7m.jpra.compiler.c","l":"JPRACGeneratorType"},{"p":"com.io7m.jpra.compiler.c","l":"JPRACWriter"},{"p":"com.io7m.jpra.compiler.c","l":"JPRACWriterType"}]
\ No newline at end of file
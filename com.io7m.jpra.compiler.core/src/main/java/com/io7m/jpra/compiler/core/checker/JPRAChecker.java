@@ -25,6 +25,7 @@ import com.io7m.jpra.model.names.FieldName;
 import com.io7m.jpra.model.names.IdentifierType;
 import com.io7m.jpra.model.names.PackageNameQualified;
 import com.io7m.jpra.model.names.TypeName;
+import com.io7m.jpra.model.names.UnionCaseName;
 import com.io7m.jpra.model.size_expressions.SizeExprConstant;
 import com.io7m.jpra.model.size_expressions.SizeExprInBits;
 import com.io7m.jpra.model.size_expressions.SizeExprInOctets;
@@ -45,6 +46,8 @@ import com.io7m.jpra.model.type_declarations.TypeDeclMatcherType;
 import com.io7m.jpra.model.type_declarations.TypeDeclPacked;
 import com.io7m.jpra.model.type_declarations.TypeDeclRecord;
 import com.io7m.jpra.model.type_declarations.TypeDeclType;
+import com.io7m.jpra.model.type_declarations.TypeDeclUnion;
+import com.io7m.jpra.model.type_declarations.UnionCaseDecl;
 import com.io7m.jpra.model.type_expressions.TypeExprArray;
 import com.io7m.jpra.model.type_expressions.TypeExprBooleanSet;
 import com.io7m.jpra.model.type_expressions.TypeExprFloat;
@@ -78,6 +81,8 @@ import com.io7m.jpra.model.types.TRecord;
 import com.io7m.jpra.model.types.TRecordBuilderType;
 import com.io7m.jpra.model.types.TString;
 import com.io7m.jpra.model.types.TType;
+import com.io7m.jpra.model.types.TUnion;
+import com.io7m.jpra.model.types.TUnionBuilderType;
 import com.io7m.jpra.model.types.TVector;
 import com.io7m.jpra.model.types.TypeScalarMatcherType;
 import com.io7m.jpra.model.types.TypeScalarType;
@@ -180,26 +185,8 @@ public final class JPRAChecker implements JPRACheckerType
     Objects.requireNonNull(decl, "Declaration");
 
     try {
-      final TypeDeclType<IdentifierType, TType> rv = decl.matchTypeDeclaration(
-        new TypeDeclMatcherType<IdentifierType, Untyped,
-          TypeDeclType<IdentifierType, TType>, JPRACompilerCheckerException>()
-        {
-          @Override
-          public TypeDeclType<IdentifierType, TType> matchRecord(
-            final TypeDeclRecord<IdentifierType, Untyped> t)
-            throws JPRACompilerCheckerException
-          {
-            return JPRAChecker.this.checkTypeDeclRecord(t);
-          }
-
-          @Override
-          public TypeDeclType<IdentifierType, TType> matchPacked(
-            final TypeDeclPacked<IdentifierType, Untyped> t)
-            throws JPRACompilerCheckerException
-          {
-            return JPRAChecker.this.checkTypeDeclPacked(t);
-          }
-        });
+      final TypeDeclType<IdentifierType, TType> rv =
+        decl.matchTypeDeclaration(new CheckTypeDeclaration());
 
       final TType tt = rv.getType();
       Preconditions.checkPreconditionV(
@@ -214,6 +201,90 @@ public final class JPRAChecker implements JPRACheckerType
     }
   }
 
+  private TypeDeclUnion<IdentifierType, TType> checkTypeDeclUnion(
+    final TypeDeclUnion<IdentifierType, Untyped> t)
+    throws JPRACompilerCheckerException
+  {
+    /*
+     * The tag and the cases are stored in the same way as record fields.
+     */
+
+    this.type_context = TypeExpressionContext.RECORD;
+
+    final TypeExprType<IdentifierType, TType> tag =
+      this.checkTypeExpression(t.getTag());
+    final TType tag_type = tag.getType();
+    if (!(tag_type instanceof TIntegerUnsigned)) {
+      throw JPRACompilerCheckerException.unionTagInvalid(t.getName(), tag);
+    }
+
+    final BigInteger tag_bits = tag_type.getSizeInBits().getValue();
+    switch (tag_bits.intValue()) {
+      case 8:
+      case 16:
+      case 32:
+      case 64:
+        break;
+      default:
+        throw JPRACompilerCheckerException.unionTagInvalid(t.getName(), tag);
+    }
+
+    final List<UnionCaseDecl<IdentifierType, Untyped>> orig_ordered =
+      t.getCasesInDeclarationOrder();
+    final int count = orig_ordered.size();
+    if (count == 0) {
+      throw JPRACompilerCheckerException.unionNoCases(t.getName());
+    }
+    if (BigInteger.valueOf((long) count).compareTo(
+      BigInteger.ONE.shiftLeft(tag_bits.intValueExact())) > 0) {
+      throw JPRACompilerCheckerException.unionTooManyCases(
+        t.getName(), count, tag_bits);
+    }
+
+    final java.util.HashMap<UnionCaseName, UnionCaseDecl<IdentifierType, TType>>
+      cases_named = new java.util.HashMap<>();
+    final ArrayList<UnionCaseDecl<IdentifierType, TType>>
+      cases_ordered = new ArrayList<>();
+
+    final TUnionBuilderType b = TUnion.newBuilder(
+      this.package_ctx,
+      t.getIdentifier(),
+      t.getName(),
+      (TIntegerUnsigned) tag_type);
+
+    for (int index = 0; index < count; ++index) {
+      final UnionCaseDecl<IdentifierType, Untyped> c = orig_ordered.get(index);
+      final TypeExprType<IdentifierType, TType> c_type =
+        this.checkTypeExpression(c.getType());
+      final TType c_type_t = c_type.getType();
+      if (!(c_type_t instanceof TRecord)) {
+        throw JPRACompilerCheckerException.unionCaseNotRecord(
+          c.getName(), c_type);
+      }
+
+      final UnionCaseDecl<IdentifierType, TType> rc =
+        new UnionCaseDecl<>(c.getIdentifier(), c.getName(), c_type);
+      cases_ordered.add(rc);
+      cases_named.put(rc.getName(), rc);
+      b.addCase(rc.getName(), rc.getIdentifier(), (TRecord) c_type_t);
+    }
+
+    final TUnion type = b.build();
+    Preconditions.checkPreconditionV(
+      type.getCasesInDeclarationOrder().size() == count,
+      "%d == %d",
+      Integer.valueOf(type.getCasesInDeclarationOrder().size()),
+      Integer.valueOf(count));
+
+    return new TypeDeclUnion<>(
+      t.getIdentifier(),
+      type,
+      HashMap.ofAll(cases_named),
+      t.getName(),
+      tag,
+      List.ofAll(cases_ordered));
+  }
+
   private TypeDeclPacked<IdentifierType, TType> checkTypeDeclPacked(
     final TypeDeclPacked<IdentifierType, Untyped> t)
     throws JPRACompilerCheckerException
@@ -391,6 +462,10 @@ public final class JPRAChecker implements JPRACheckerType
     final TRecordBuilderType b =
       TRecord.newBuilder(this.package_ctx, t.getIdentifier(), t.getName());
 
+    final Optional<JPRACheckerRecordLayout> layout =
+      this.caps.getRecordLayoutStandard().map(
+        s -> new JPRACheckerRecordLayout(s, this.caps.getRecordLayoutMode()));
+
     for (int index = 0; index < orig_ordered.size(); ++index) {
       orig_ordered.get(index).matchRecordFieldDeclaration(
         new RecordFieldDeclMatcherType<IdentifierType, Untyped,
@@ -403,7 +478,7 @@ public final class JPRAChecker implements JPRACheckerType
             throws JPRACompilerCheckerException
           {
             return JPRAChecker.this.checkTypeDeclRecordFieldPaddingOctets(
-              r, fields_ordered, b);
+              r, fields_ordered, b, layout);
           }
 
           @Override
@@ -412,15 +487,31 @@ public final class JPRAChecker implements JPRACheckerType
             throws JPRACompilerCheckerException
           {
             return JPRAChecker.this.checkTypeDeclRecordFieldValue(
-              r, fields_ordered, fields_named, b);
+              r, fields_ordered, fields_named, b, layout);
           }
         });
     }
 
+    /*
+     * Padding inserted to satisfy a layout is not present in the original
+     * declaration.
+     */
+
+    int inserted = 0;
+    if (layout.isPresent()) {
+      final JPRACheckerRecordLayout l = layout.get();
+      insertLayoutPadding(
+        t.lexical(),
+        l.onFinish(t.lexical(), t.getName()),
+        fields_ordered,
+        b);
+      inserted = l.getInsertedCount();
+    }
+
     Preconditions.checkPreconditionV(
-      fields_ordered.size() == orig_ordered.size(), "%d == %d",
+      fields_ordered.size() == orig_ordered.size() + inserted, "%d == %d",
       Integer.valueOf(fields_ordered.size()),
-      Integer.valueOf(orig_ordered.size()));
+      Integer.valueOf(orig_ordered.size() + inserted));
     Preconditions.checkPreconditionV(
       fields_named.size() == orig_named.size(), "%d == %d",
       Integer.valueOf(fields_named.size()),
@@ -433,10 +524,11 @@ public final class JPRAChecker implements JPRACheckerType
 
     final TRecord type = b.build();
     Preconditions.checkPreconditionV(
-      type.getFieldsInDeclarationOrder().size() == orig_ordered.size(),
+      type.getFieldsInDeclarationOrder().size()
+        == orig_ordered.size() + inserted,
       "%d == %d",
       Integer.valueOf(type.getFieldsInDeclarationOrder().size()),
-      Integer.valueOf(orig_ordered.size()));
+      Integer.valueOf(orig_ordered.size() + inserted));
     Preconditions.checkPreconditionV(
       type.getFieldsByName().size() == orig_named.size(),
       "%d == %d",
@@ -463,13 +555,20 @@ public final class JPRAChecker implements JPRACheckerType
       fields_ordered,
     final java.util.HashMap<FieldName, RecordFieldDeclValue<IdentifierType, TType>>
       fields_named,
-    final TRecordBuilderType b)
+    final TRecordBuilderType b,
+    final Optional<JPRACheckerRecordLayout> layout)
     throws JPRACompilerCheckerException
   {
     final RecordFieldDeclValue<IdentifierType, TType> rv =
       this.checkRecordFieldValue(r);
     final TypeExprType<IdentifierType, TType> rvt = rv.getType();
 
+    if (layout.isPresent()) {
+      final BigInteger padding = layout.get().onFieldValue(
+        r.lexical(), rv.getName(), rvt.getType());
+      insertLayoutPadding(r.lexical(), padding, fields_ordered, b);
+    }
+
     fields_ordered.add(rv);
     fields_named.put(rv.getName(), rv);
     b.addField(rv.getName(), rv.getIdentifier(), rvt.getType());
@@ -481,7 +580,8 @@ public final class JPRAChecker implements JPRACheckerType
     final RecordFieldDeclPaddingOctets<IdentifierType, Untyped> r,
     final ArrayList<RecordFieldDeclType<IdentifierType, TType>>
       fields_ordered,
-    final TRecordBuilderType b)
+    final TRecordBuilderType b,
+    final Optional<JPRACheckerRecordLayout> layout)
     throws JPRACompilerCheckerException
   {
     final RecordFieldDeclPaddingOctets<IdentifierType, TType> rv =
@@ -494,11 +594,27 @@ public final class JPRAChecker implements JPRACheckerType
         r.lexical(), size.getValue());
     }
 
+    layout.ifPresent(l -> l.onFieldPadding(size.getValue()));
     fields_ordered.add(rv);
     b.addPaddingOctets(r.lexical(), size);
     return rv;
   }
 
+  private static void insertLayoutPadding(
+    final LexicalPosition<URI> lex,
+    final BigInteger size,
+    final ArrayList<RecordFieldDeclType<IdentifierType, TType>>
+      fields_ordered,
+    final TRecordBuilderType b)
+  {
+    if (size.compareTo(BigInteger.ZERO) > 0) {
+      fields_ordered.add(
+        new RecordFieldDeclPaddingOctets<>(
+          lex, new SizeExprConstant<>(lex, size)));
+      b.addPaddingOctets(lex, new Size<>(size));
+    }
+  }
+
   private RecordFieldDeclValue<IdentifierType, TType> checkRecordFieldValue(
     final RecordFieldDeclValue<IdentifierType, Untyped> r)
     throws JPRACompilerCheckerException
@@ -1109,4 +1225,38 @@ public final class JPRAChecker implements JPRACheckerType
       return JPRAChecker.this.checkSizeExprInBits(s);
     }
   }
+
+  private final class CheckTypeDeclaration
+    implements TypeDeclMatcherType<IdentifierType, Untyped,
+    TypeDeclType<IdentifierType, TType>, JPRACompilerCheckerException>
+  {
+    CheckTypeDeclaration()
+    {
+
+    }
+
+    @Override
+    public TypeDeclType<IdentifierType, TType> matchRecord(
+      final TypeDeclRecord<IdentifierType, Untyped> t)
+      throws JPRACompilerCheckerException
+    {
+      return JPRAChecker.this.checkTypeDeclRecord(t);
+    }
+
+    @Override
+    public TypeDeclType<IdentifierType, TType> matchPacked(
+      final TypeDeclPacked<IdentifierType, Untyped> t)
+      throws JPRACompilerCheckerException
+    {
+      return JPRAChecker.this.checkTypeDeclPacked(t);
+    }
+
+    @Override
+    public TypeDeclType<IdentifierType, TType> matchUnion(
+      final TypeDeclUnion<IdentifierType, Untyped> t)
+      throws JPRACompilerCheckerException
+    {
+      return JPRAChecker.this.checkTypeDeclUnion(t);
+    }
+  }
 }
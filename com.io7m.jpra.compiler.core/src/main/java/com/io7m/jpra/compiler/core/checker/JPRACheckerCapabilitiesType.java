@@ -23,6 +23,7 @@ import io.vavr.collection.List;
 import io.vavr.collection.Set;
 
 import java.math.BigInteger;
+import java.util.Optional;
 
 /**
  * The capabilities that the checker is responsible for enforcing.
@@ -197,4 +198,18 @@ public interface JPRACheckerCapabilitiesType
    */
 
   boolean isPackedSizeBitsSupported(BigInteger size);
+
+  /**
+   * @return The GPU buffer layout that record declarations must follow, if
+   * any
+   */
+
+  Optional<JPRACheckerLayoutStandard> getRecordLayoutStandard();
+
+  /**
+   * @return The behaviour of the checker when a record declaration does not
+   * follow the layout returned by {@link #getRecordLayoutStandard()}
+   */
+
+  JPRACheckerLayoutMode getRecordLayoutMode();
 }
@@ -123,6 +123,65 @@ public enum JPRACheckerErrorCode
    * record field.
    */
 
-  RECORD_INTEGER_SIZE_UNSUPPORTED
+  RECORD_INTEGER_SIZE_UNSUPPORTED,
+
+  /**
+   * A record field has a type that cannot be represented in the required
+   * GPU buffer layout.
+   */
+
+  LAYOUT_TYPE_UNSUPPORTED,
+
+  /**
+   * A record field is not at the offset required by the GPU buffer layout.
+   */
+
+  LAYOUT_FIELD_OFFSET_INCORRECT,
+
+  /**
+   * The elements of an array are not separated by the stride required by
+   * the GPU buffer layout.
+   */
+
+  LAYOUT_ARRAY_STRIDE_INCORRECT,
+
+  /**
+   * The columns of a matrix are not separated by the stride required by the
+   * GPU buffer layout.
+   */
+
+  LAYOUT_MATRIX_STRIDE_INCORRECT,
+
+  /**
+   * The size of a record is not a multiple of the alignment that the GPU
+   * buffer layout requires for the record.
+   */
+
+  LAYOUT_RECORD_SIZE_INCORRECT,
+
+  /**
+   * The tag of a {@code union} type is not an {@code integer unsigned} type
+   * of 8, 16, 32, or 64 bits.
+   */
+
+  UNION_TAG_INVALID,
+
+  /**
+   * A case of a {@code union} type is not a {@code record} type.
+   */
+
+  UNION_CASE_NOT_RECORD,
+
+  /**
+   * A {@code union} type has no cases.
+   */
+
+  UNION_NO_CASES,
+
+  /**
+   * A {@code union} type has more cases than its tag can distinguish.
+   */
+
+  UNION_TOO_MANY_CASES
 
 }
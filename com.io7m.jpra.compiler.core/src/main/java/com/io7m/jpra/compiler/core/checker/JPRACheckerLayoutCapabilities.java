@@ -0,0 +1,231 @@
+/*
+ * Copyright © 2015 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.jpra.compiler.core.checker;
+
+import com.io7m.jranges.RangeInclusiveB;
+import io.vavr.Tuple2;
+import io.vavr.collection.List;
+import io.vavr.collection.Set;
+
+import java.math.BigInteger;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * <p>An implementation of the {@link JPRACheckerCapabilitiesType} interface
+ * for records that are uploaded verbatim to GPU uniform or storage buffers
+ * declared with the {@code std140} or {@code std430} layouts.</p>
+ *
+ * <p>Record fields are restricted to 32-bit and 64-bit integers and floating
+ * point values, and to vectors and matrices of those, as these are the only
+ * types with a defined layout in the core shading language. Every record
+ * declaration is additionally checked against the alignment rules of the
+ * layout. Packed types may still be declared, but cannot be used as record
+ * fields.</p>
+ */
+
+public final class JPRACheckerLayoutCapabilities
+  implements JPRACheckerCapabilitiesType
+{
+  private static final BigInteger BIG_64 = BigInteger.valueOf(64L);
+  private static final BigInteger BIG_32 = BigInteger.valueOf(32L);
+
+  private final JPRACheckerCapabilitiesType standard;
+  private final JPRACheckerLayoutStandard layout;
+  private final JPRACheckerLayoutMode mode;
+  private final List<RangeInclusiveB> scalar_sizes;
+
+  private JPRACheckerLayoutCapabilities(
+    final JPRACheckerLayoutStandard in_layout,
+    final JPRACheckerLayoutMode in_mode)
+  {
+    this.layout = Objects.requireNonNull(in_layout, "Layout");
+    this.mode = Objects.requireNonNull(in_mode, "Mode");
+    this.standard = JPRACheckerStandardCapabilities.newCapabilities();
+    this.scalar_sizes = List.of(
+      RangeInclusiveB.of(BIG_32, BIG_32),
+      RangeInclusiveB.of(BIG_64, BIG_64));
+  }
+
+  /**
+   * @param layout The layout that record declarations must follow
+   * @param mode   The behaviour of the checker when a record declaration
+   *               does not follow the layout
+   *
+   * @return New capabilities
+   */
+
+  public static JPRACheckerCapabilitiesType newCapabilities(
+    final JPRACheckerLayoutStandard layout,
+    final JPRACheckerLayoutMode mode)
+  {
+    return new JPRACheckerLayoutCapabilities(layout, mode);
+  }
+
+  private boolean isScalarSizeSupported(
+    final BigInteger size)
+  {
+    return this.scalar_sizes.find(r -> r.includesValue(size)).isDefined();
+  }
+
+  @Override
+  public List<RangeInclusiveB> getRecordIntegerSizeBitsSupported()
+  {
+    return this.scalar_sizes;
+  }
+
+  @Override
+  public boolean isRecordIntegerSizeBitsSupported(final BigInteger size)
+  {
+    return this.isScalarSizeSupported(size);
+  }
+
+  @Override
+  public boolean isRecordFloatSizeBitsSupported(final BigInteger size)
+  {
+    return this.isScalarSizeSupported(size);
+  }
+
+  @Override
+  public boolean isVectorSizeElementsSupported(final BigInteger size)
+  {
+    return this.standard.isVectorSizeElementsSupported(size);
+  }
+
+  @Override
+  public boolean isMatrixSizeElementsSupported(
+    final BigInteger width,
+    final BigInteger height)
+  {
+    return this.standard.isMatrixSizeElementsSupported(width, height);
+  }
+
+  @Override
+  public List<RangeInclusiveB> getRecordFloatSizeBitsSupported()
+  {
+    return this.scalar_sizes;
+  }
+
+  @Override
+  public boolean isStringEncodingSupported(final String encoding)
+  {
+    return this.standard.isStringEncodingSupported(encoding);
+  }
+
+  @Override
+  public Set<String> getStringEncodingsSupported()
+  {
+    return this.standard.getStringEncodingsSupported();
+  }
+
+  @Override
+  public List<RangeInclusiveB> getVectorSizeSupported()
+  {
+    return this.standard.getVectorSizeSupported();
+  }
+
+  @Override
+  public boolean isVectorIntegerSizeSupported(final BigInteger size)
+  {
+    return this.isScalarSizeSupported(size);
+  }
+
+  @Override
+  public List<RangeInclusiveB> getVectorIntegerSizeSupported()
+  {
+    return this.scalar_sizes;
+  }
+
+  @Override
+  public boolean isVectorFloatSizeSupported(final BigInteger size)
+  {
+    return this.isScalarSizeSupported(size);
+  }
+
+  @Override
+  public List<RangeInclusiveB> getVectorFloatSizeSupported()
+  {
+    return this.scalar_sizes;
+  }
+
+  @Override
+  public List<Tuple2<RangeInclusiveB, RangeInclusiveB>>
+  getMatrixSizeElementsSupported()
+  {
+    return this.standard.getMatrixSizeElementsSupported();
+  }
+
+  @Override
+  public boolean isMatrixIntegerSizeSupported(final BigInteger size)
+  {
+    return false;
+  }
+
+  @Override
+  public List<RangeInclusiveB> getMatrixIntegerSizeSupported()
+  {
+    return List.empty();
+  }
+
+  @Override
+  public boolean isMatrixFloatSizeSupported(final BigInteger size)
+  {
+    return this.isScalarSizeSupported(size);
+  }
+
+  @Override
+  public List<RangeInclusiveB> getMatrixFloatSizeSupported()
+  {
+    return this.scalar_sizes;
+  }
+
+  @Override
+  public List<RangeInclusiveB> getPackedIntegerSizeBitsSupported()
+  {
+    return this.standard.getPackedIntegerSizeBitsSupported();
+  }
+
+  @Override
+  public boolean isPackedIntegerSizeBitsSupported(final BigInteger size)
+  {
+    return this.standard.isPackedIntegerSizeBitsSupported(size);
+  }
+
+  @Override
+  public List<RangeInclusiveB> getPackedSizeBitsSupported()
+  {
+    return this.standard.getPackedSizeBitsSupported();
+  }
+
+  @Override
+  public boolean isPackedSizeBitsSupported(final BigInteger size)
+  {
+    return this.standard.isPackedSizeBitsSupported(size);
+  }
+
+  @Override
+  public Optional<JPRACheckerLayoutStandard> getRecordLayoutStandard()
+  {
+    return Optional.of(this.layout);
+  }
+
+  @Override
+  public JPRACheckerLayoutMode getRecordLayoutMode()
+  {
+    return this.mode;
+  }
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright © 2015 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.jpra.compiler.core.checker;
+
+/**
+ * The behaviour of the checker when a record declaration does not follow the
+ * required {@link JPRACheckerLayoutStandard}.
+ */
+
+public enum JPRACheckerLayoutMode
+{
+  /**
+   * Reject records that do not follow the layout. Records must contain
+   * explicit padding fields wherever the layout requires padding.
+   */
+
+  VALIDATE,
+
+  /**
+   * Insert padding fields wherever the layout requires padding, including at
+   * the end of each record so that the size of the record is a multiple of
+   * its alignment. Records that cannot be fixed by inserting padding (such as
+   * those that contain too much padding) are still rejected.
+   */
+
+  INSERT_PADDING
+}
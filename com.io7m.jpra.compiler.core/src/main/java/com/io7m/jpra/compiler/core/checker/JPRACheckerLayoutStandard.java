@@ -0,0 +1,58 @@
+/*
+ * Copyright © 2015 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.jpra.compiler.core.checker;
+
+/**
+ * The standard GPU buffer layouts that record declarations may be checked
+ * against.
+ */
+
+public enum JPRACheckerLayoutStandard
+{
+  /**
+   * The {@code std140} layout used for uniform buffers. The alignment of
+   * arrays, matrix columns, and structures is rounded up to that of a
+   * four-component vector of 32-bit values (16 octets).
+   */
+
+  STD140("std140"),
+
+  /**
+   * The {@code std430} layout used for shader storage buffers. This is
+   * {@link #STD140} without the rounding of array, matrix column, and
+   * structure alignments up to 16 octets.
+   */
+
+  STD430("std430");
+
+  private final String name;
+
+  JPRACheckerLayoutStandard(
+    final String in_name)
+  {
+    this.name = in_name;
+  }
+
+  /**
+   * @return The name of the layout as it appears in shading language source
+   */
+
+  public String getName()
+  {
+    return this.name;
+  }
+}
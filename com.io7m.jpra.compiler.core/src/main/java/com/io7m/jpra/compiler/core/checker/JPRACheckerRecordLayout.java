@@ -0,0 +1,382 @@
+/*
+ * Copyright © 2015 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.jpra.compiler.core.checker;
+
+import com.io7m.jlexing.core.LexicalPosition;
+import com.io7m.jpra.model.names.FieldName;
+import com.io7m.jpra.model.names.TypeName;
+import com.io7m.jpra.model.types.TArray;
+import com.io7m.jpra.model.types.TBooleanSet;
+import com.io7m.jpra.model.types.TFloat;
+import com.io7m.jpra.model.types.TIntegerType;
+import com.io7m.jpra.model.types.TMatrix;
+import com.io7m.jpra.model.types.TPacked;
+import com.io7m.jpra.model.types.TRecord;
+import com.io7m.jpra.model.types.TString;
+import com.io7m.jpra.model.types.TType;
+import com.io7m.jpra.model.types.TUnion;
+import com.io7m.jpra.model.types.TVector;
+import com.io7m.jpra.model.types.TypeMatcherType;
+
+import java.math.BigInteger;
+import java.net.URI;
+import java.util.Objects;
+
+/**
+ * <p>The layout of a single record declaration with respect to a
+ * {@link JPRACheckerLayoutStandard}.</p>
+ *
+ * <p>The fields of the record are presented in declaration order. For each
+ * value field, the offset that the layout requires is computed from the end
+ * of the previous value field and the alignment of the field, and compared
+ * against the offset that the field actually has (which includes any
+ * explicit padding fields). Depending on the {@link JPRACheckerLayoutMode},
+ * a field that is too early either causes an error or causes padding to be
+ * inserted. A field that is too late always causes an error. The same
+ * applies to the end of the record, which must be at a multiple of the
+ * alignment of the record.</p>
+ */
+
+final class JPRACheckerRecordLayout
+{
+  private static final BigInteger BIG_16 = BigInteger.valueOf(16L);
+  private static final BigInteger BIG_8 = BigInteger.valueOf(8L);
+  private static final BigInteger BIG_4 = BigInteger.valueOf(4L);
+  private static final BigInteger BIG_2 = BigInteger.valueOf(2L);
+
+  private final JPRACheckerLayoutStandard standard;
+  private final JPRACheckerLayoutMode mode;
+  private BigInteger offset;
+  private BigInteger next;
+  private BigInteger alignment;
+  private int inserted;
+
+  JPRACheckerRecordLayout(
+    final JPRACheckerLayoutStandard in_standard,
+    final JPRACheckerLayoutMode in_mode)
+  {
+    this.standard = Objects.requireNonNull(in_standard, "Standard");
+    this.mode = Objects.requireNonNull(in_mode, "Mode");
+    this.offset = BigInteger.ZERO;
+    this.next = BigInteger.ZERO;
+    this.alignment = BigInteger.ONE;
+    this.inserted = 0;
+  }
+
+  private static BigInteger roundUp(
+    final BigInteger x,
+    final BigInteger a)
+  {
+    final BigInteger r = x.mod(a);
+    if (Objects.equals(r, BigInteger.ZERO)) {
+      return x;
+    }
+    return x.add(a.subtract(r));
+  }
+
+  private static BigInteger octets(
+    final TType t)
+  {
+    return t.getSizeInBits().getValue().divide(BIG_8);
+  }
+
+  private static BigInteger vectorAlignment(
+    final BigInteger count,
+    final BigInteger scalar)
+  {
+    if (Objects.equals(count, BIG_2)) {
+      return scalar.multiply(BIG_2);
+    }
+    return scalar.multiply(BIG_4);
+  }
+
+  /**
+   * Calculate the base alignment of a type, checking that any arrays and
+   * matrices within the type have the strides required by the layout.
+   *
+   * @param standard The layout
+   * @param lex      The lexical position of the field being checked
+   * @param field    The name of the field being checked
+   * @param type     The type
+   *
+   * @return The base alignment of {@code type} in octets
+   *
+   * @throws JPRACompilerCheckerException If the type cannot be represented
+   */
+
+  private static BigInteger alignmentOf(
+    final JPRACheckerLayoutStandard standard,
+    final LexicalPosition<URI> lex,
+    final FieldName field,
+    final TType type)
+    throws JPRACompilerCheckerException
+  {
+    return type.matchType(new AlignmentMatcher(standard, lex, field));
+  }
+
+  /**
+   * @return The number of padding fields inserted so far
+   */
+
+  int getInsertedCount()
+  {
+    return this.inserted;
+  }
+
+  /**
+   * Check a value field.
+   *
+   * @param lex   The lexical position of the field
+   * @param field The field name
+   * @param type  The field type
+   *
+   * @return The number of octets of padding that must be inserted before the
+   * field (always zero unless padding insertion is enabled)
+   *
+   * @throws JPRACompilerCheckerException If the field cannot be placed at the
+   *                                      offset required by the layout
+   */
+
+  BigInteger onFieldValue(
+    final LexicalPosition<URI> lex,
+    final FieldName field,
+    final TType type)
+    throws JPRACompilerCheckerException
+  {
+    final BigInteger align = alignmentOf(this.standard, lex, field, type);
+    final BigInteger required = roundUp(this.next, align);
+
+    BigInteger padding = BigInteger.ZERO;
+    final int c = this.offset.compareTo(required);
+    if (c != 0) {
+      if (c < 0 && this.mode == JPRACheckerLayoutMode.INSERT_PADDING) {
+        padding = required.subtract(this.offset);
+        ++this.inserted;
+      } else {
+        throw JPRACompilerCheckerException.layoutFieldOffsetIncorrect(
+          lex, field, this.standard, this.offset, required, align);
+      }
+    }
+
+    this.offset = required.add(octets(type));
+    this.alignment = this.alignment.max(align);
+
+    /*
+     * The member following an array, matrix, or structure is placed at the
+     * next multiple of the alignment of that member.
+     */
+
+    if (type instanceof TArray
+      || type instanceof TMatrix
+      || type instanceof TRecord) {
+      this.next = roundUp(this.offset, align);
+    } else {
+      this.next = this.offset;
+    }
+    return padding;
+  }
+
+  /**
+   * Account for an explicit padding field.
+   *
+   * @param size The size of the padding in octets
+   */
+
+  void onFieldPadding(
+    final BigInteger size)
+  {
+    this.offset = this.offset.add(size);
+  }
+
+  /**
+   * Finish the record. The size of the record must be a multiple of its
+   * alignment, so that arrays of the record have no padding between their
+   * elements.
+   *
+   * @param lex  The lexical position of the record
+   * @param name The record name
+   *
+   * @return The number of octets of padding that must be appended to the
+   * record so that its size is a multiple of its alignment (always zero
+   * unless padding insertion is enabled)
+   *
+   * @throws JPRACompilerCheckerException If the size of the record is not a
+   *                                      multiple of its alignment, and
+   *                                      padding insertion is not enabled
+   */
+
+  BigInteger onFinish(
+    final LexicalPosition<URI> lex,
+    final TypeName name)
+    throws JPRACompilerCheckerException
+  {
+    BigInteger align = this.alignment;
+    if (this.standard == JPRACheckerLayoutStandard.STD140) {
+      align = roundUp(align, BIG_16);
+    }
+
+    final BigInteger padding =
+      roundUp(this.offset, align).subtract(this.offset);
+    if (padding.compareTo(BigInteger.ZERO) > 0) {
+      if (this.mode != JPRACheckerLayoutMode.INSERT_PADDING) {
+        throw JPRACompilerCheckerException.layoutRecordSizeIncorrect(
+          lex, name, this.standard, this.offset, align);
+      }
+      ++this.inserted;
+    }
+    return padding;
+  }
+
+  private static final class AlignmentMatcher
+    implements TypeMatcherType<BigInteger, JPRACompilerCheckerException>
+  {
+    private final JPRACheckerLayoutStandard standard;
+    private final LexicalPosition<URI> lex;
+    private final FieldName field;
+
+    AlignmentMatcher(
+      final JPRACheckerLayoutStandard in_standard,
+      final LexicalPosition<URI> in_lex,
+      final FieldName in_field)
+    {
+      this.standard = in_standard;
+      this.lex = in_lex;
+      this.field = in_field;
+    }
+
+    private BigInteger roundUpIfStd140(
+      final BigInteger align)
+    {
+      if (this.standard == JPRACheckerLayoutStandard.STD140) {
+        return roundUp(align, BIG_16);
+      }
+      return align;
+    }
+
+    @Override
+    public BigInteger matchArray(
+      final TArray t)
+      throws JPRACompilerCheckerException
+    {
+      final TType element = t.getElementType();
+      final BigInteger align =
+        this.roundUpIfStd140(element.matchType(this));
+      final BigInteger size = octets(element);
+      final BigInteger stride = roundUp(size, align);
+      if (!Objects.equals(stride, size)) {
+        throw JPRACompilerCheckerException.layoutArrayStrideIncorrect(
+          this.lex, this.field, this.standard, size, stride);
+      }
+      return align;
+    }
+
+    @Override
+    public BigInteger matchString(
+      final TString t)
+      throws JPRACompilerCheckerException
+    {
+      throw JPRACompilerCheckerException.layoutTypeUnsupported(
+        this.lex, this.field, "string", this.standard);
+    }
+
+    @Override
+    public BigInteger matchBooleanSet(
+      final TBooleanSet t)
+      throws JPRACompilerCheckerException
+    {
+      throw JPRACompilerCheckerException.layoutTypeUnsupported(
+        this.lex, this.field, "boolean-set", this.standard);
+    }
+
+    @Override
+    public BigInteger matchInteger(
+      final TIntegerType t)
+    {
+      return octets(t);
+    }
+
+    @Override
+    public BigInteger matchFloat(
+      final TFloat t)
+    {
+      return octets(t);
+    }
+
+    @Override
+    public BigInteger matchVector(
+      final TVector t)
+    {
+      return vectorAlignment(
+        t.getElementCount().getValue(), octets(t.getElementType()));
+    }
+
+    @Override
+    public BigInteger matchMatrix(
+      final TMatrix t)
+      throws JPRACompilerCheckerException
+    {
+      /*
+       * A matrix is laid out as an array of column vectors.
+       */
+
+      final BigInteger rows = t.getHeight().getValue();
+      final BigInteger scalar = octets(t.getElementType());
+      final BigInteger align =
+        this.roundUpIfStd140(vectorAlignment(rows, scalar));
+      final BigInteger size = rows.multiply(scalar);
+      final BigInteger stride = roundUp(size, align);
+      if (!Objects.equals(stride, size)) {
+        throw JPRACompilerCheckerException.layoutMatrixStrideIncorrect(
+          this.lex, this.field, this.standard, size, stride);
+      }
+      return align;
+    }
+
+    @Override
+    public BigInteger matchRecord(
+      final TRecord t)
+      throws JPRACompilerCheckerException
+    {
+      BigInteger align = BigInteger.ONE;
+      for (final TRecord.FieldType f : t.getFieldsInDeclarationOrder()) {
+        if (f instanceof TRecord.FieldValue) {
+          final TType ft = ((TRecord.FieldValue) f).getType();
+          align = align.max(ft.matchType(this));
+        }
+      }
+      return this.roundUpIfStd140(align);
+    }
+
+    @Override
+    public BigInteger matchPacked(
+      final TPacked t)
+      throws JPRACompilerCheckerException
+    {
+      throw JPRACompilerCheckerException.layoutTypeUnsupported(
+        this.lex, this.field, "packed " + t.getName().value(), this.standard);
+    }
+
+    @Override
+    public BigInteger matchUnion(
+      final TUnion t)
+      throws JPRACompilerCheckerException
+    {
+      throw JPRACompilerCheckerException.layoutTypeUnsupported(
+        this.lex, this.field, "union " + t.getName().value(), this.standard);
+    }
+  }
+}
@@ -26,6 +26,7 @@ import io.vavr.collection.Set;
 import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Optional;
 
 /**
  * The default implementation of the {@link JPRACheckerCapabilitiesType}
@@ -300,4 +301,16 @@ public final class JPRACheckerStandardCapabilities
   {
     return this.packed_sizes.find(r -> r.includesValue(size)).isDefined();
   }
+
+  @Override
+  public Optional<JPRACheckerLayoutStandard> getRecordLayoutStandard()
+  {
+    return Optional.empty();
+  }
+
+  @Override
+  public JPRACheckerLayoutMode getRecordLayoutMode()
+  {
+    return JPRACheckerLayoutMode.VALIDATE;
+  }
 }
@@ -19,8 +19,10 @@ package com.io7m.jpra.compiler.core.checker;
 import com.io7m.jlexing.core.LexicalPosition;
 import com.io7m.jpra.compiler.core.JPRACompilerException;
 import com.io7m.jpra.model.Untyped;
+import com.io7m.jpra.model.names.FieldName;
 import com.io7m.jpra.model.names.IdentifierType;
 import com.io7m.jpra.model.names.TypeName;
+import com.io7m.jpra.model.names.UnionCaseName;
 import com.io7m.jpra.model.type_declarations.PackedFieldDeclValue;
 import com.io7m.jpra.model.type_expressions.TypeExprBooleanSet;
 import com.io7m.jpra.model.type_expressions.TypeExprFloat;
@@ -743,6 +745,344 @@ public final class JPRACompilerCheckerException extends JPRACompilerException
       sb.toString());
   }
 
+  /**
+   * A record field has a type that cannot be represented in a GPU buffer
+   * layout.
+   *
+   * @param lex      Lexical information
+   * @param field    The field name
+   * @param kind     A description of the type of the field
+   * @param standard The layout
+   *
+   * @return An exception
+   *
+   * @see JPRACheckerErrorCode#LAYOUT_TYPE_UNSUPPORTED
+   */
+
+  public static JPRACompilerCheckerException layoutTypeUnsupported(
+    final LexicalPosition<URI> lex,
+    final FieldName field,
+    final String kind,
+    final JPRACheckerLayoutStandard standard)
+  {
+    final StringBuilder sb = new StringBuilder(128);
+    sb.append("Field type cannot be represented in the ");
+    sb.append(standard.getName());
+    sb.append(" layout.");
+    sb.append(System.lineSeparator());
+    sb.append("  Field name: ");
+    sb.append(field.value());
+    sb.append(System.lineSeparator());
+    sb.append("  Field type: ");
+    sb.append(kind);
+    sb.append(System.lineSeparator());
+    sb.append("  Only integer, floating point, vector, matrix, array, and ");
+    sb.append("record types may be used.");
+
+    return new JPRACompilerCheckerException(
+      lex, JPRACheckerErrorCode.LAYOUT_TYPE_UNSUPPORTED, sb.toString());
+  }
+
+  /**
+   * A record field is not at the offset required by a GPU buffer layout.
+   *
+   * @param lex       Lexical information
+   * @param field     The field name
+   * @param standard  The layout
+   * @param offset    The offset of the field in octets
+   * @param required  The offset required by the layout in octets
+   * @param alignment The alignment of the field in octets
+   *
+   * @return An exception
+   *
+   * @see JPRACheckerErrorCode#LAYOUT_FIELD_OFFSET_INCORRECT
+   */
+
+  public static JPRACompilerCheckerException layoutFieldOffsetIncorrect(
+    final LexicalPosition<URI> lex,
+    final FieldName field,
+    final JPRACheckerLayoutStandard standard,
+    final BigInteger offset,
+    final BigInteger required,
+    final BigInteger alignment)
+  {
+    final StringBuilder sb = new StringBuilder(128);
+    sb.append("Field offset is incorrect for the ");
+    sb.append(standard.getName());
+    sb.append(" layout.");
+    sb.append(System.lineSeparator());
+    sb.append("  Field name: ");
+    sb.append(field.value());
+    sb.append(System.lineSeparator());
+    sb.append("  Field alignment (octets): ");
+    sb.append(alignment);
+    sb.append(System.lineSeparator());
+    sb.append("  Offset (octets): ");
+    sb.append(offset);
+    sb.append(System.lineSeparator());
+    sb.append("  Required offset (octets): ");
+    sb.append(required);
+    sb.append(System.lineSeparator());
+
+    final int c = offset.compareTo(required);
+    if (c < 0) {
+      sb.append("  Insert ");
+      sb.append(required.subtract(offset));
+      sb.append(" octets of padding before the field.");
+    } else {
+      sb.append("  Remove ");
+      sb.append(offset.subtract(required));
+      sb.append(" octets of padding before the field.");
+    }
+
+    return new JPRACompilerCheckerException(
+      lex, JPRACheckerErrorCode.LAYOUT_FIELD_OFFSET_INCORRECT, sb.toString());
+  }
+
+  /**
+   * The elements of an array are not separated by the stride required by a
+   * GPU buffer layout.
+   *
+   * @param lex      Lexical information
+   * @param field    The field name
+   * @param standard The layout
+   * @param size     The size of array elements in octets
+   * @param stride   The stride required by the layout in octets
+   *
+   * @return An exception
+   *
+   * @see JPRACheckerErrorCode#LAYOUT_ARRAY_STRIDE_INCORRECT
+   */
+
+  public static JPRACompilerCheckerException layoutArrayStrideIncorrect(
+    final LexicalPosition<URI> lex,
+    final FieldName field,
+    final JPRACheckerLayoutStandard standard,
+    final BigInteger size,
+    final BigInteger stride)
+  {
+    final StringBuilder sb = new StringBuilder(128);
+    sb.append("Array element stride is incorrect for the ");
+    sb.append(standard.getName());
+    sb.append(" layout.");
+    sb.append(System.lineSeparator());
+    sb.append("  Field name: ");
+    sb.append(field.value());
+    sb.append(System.lineSeparator());
+    sb.append("  Element size (octets): ");
+    sb.append(size);
+    sb.append(System.lineSeparator());
+    sb.append("  Required stride (octets): ");
+    sb.append(stride);
+    sb.append(System.lineSeparator());
+    sb.append("  Array elements are not padded. Use an array of records ");
+    sb.append("that are padded to ");
+    sb.append(stride);
+    sb.append(" octets.");
+
+    return new JPRACompilerCheckerException(
+      lex, JPRACheckerErrorCode.LAYOUT_ARRAY_STRIDE_INCORRECT, sb.toString());
+  }
+
+  /**
+   * The columns of a matrix are not separated by the stride required by a
+   * GPU buffer layout.
+   *
+   * @param lex      Lexical information
+   * @param field    The field name
+   * @param standard The layout
+   * @param size     The size of matrix columns in octets
+   * @param stride   The stride required by the layout in octets
+   *
+   * @return An exception
+   *
+   * @see JPRACheckerErrorCode#LAYOUT_MATRIX_STRIDE_INCORRECT
+   */
+
+  public static JPRACompilerCheckerException layoutMatrixStrideIncorrect(
+    final LexicalPosition<URI> lex,
+    final FieldName field,
+    final JPRACheckerLayoutStandard standard,
+    final BigInteger size,
+    final BigInteger stride)
+  {
+    final StringBuilder sb = new StringBuilder(128);
+    sb.append("Matrix column stride is incorrect for the ");
+    sb.append(standard.getName());
+    sb.append(" layout.");
+    sb.append(System.lineSeparator());
+    sb.append("  Field name: ");
+    sb.append(field.value());
+    sb.append(System.lineSeparator());
+    sb.append("  Column size (octets): ");
+    sb.append(size);
+    sb.append(System.lineSeparator());
+    sb.append("  Required stride (octets): ");
+    sb.append(stride);
+    sb.append(System.lineSeparator());
+    sb.append("  Matrix columns are not padded. Use a matrix whose columns ");
+    sb.append("are ");
+    sb.append(stride);
+    sb.append(" octets long.");
+
+    return new JPRACompilerCheckerException(
+      lex, JPRACheckerErrorCode.LAYOUT_MATRIX_STRIDE_INCORRECT, sb.toString());
+  }
+
+  /**
+   * The size of a record is not a multiple of the alignment required by a
+   * GPU buffer layout, and so arrays of the record cannot be represented.
+   *
+   * @param lex       Lexical information
+   * @param name      The record name
+   * @param standard  The layout
+   * @param size      The size of the record in octets
+   * @param alignment The alignment of the record in octets
+   *
+   * @return An exception
+   *
+   * @see JPRACheckerErrorCode#LAYOUT_RECORD_SIZE_INCORRECT
+   */
+
+  public static JPRACompilerCheckerException layoutRecordSizeIncorrect(
+    final LexicalPosition<URI> lex,
+    final TypeName name,
+    final JPRACheckerLayoutStandard standard,
+    final BigInteger size,
+    final BigInteger alignment)
+  {
+    final BigInteger missing =
+      alignment.subtract(size.mod(alignment)).mod(alignment);
+
+    final StringBuilder sb = new StringBuilder(128);
+    sb.append("Record size is incorrect for the ");
+    sb.append(standard.getName());
+    sb.append(" layout.");
+    sb.append(System.lineSeparator());
+    sb.append("  Record name: ");
+    sb.append(name.value());
+    sb.append(System.lineSeparator());
+    sb.append("  Record size (octets): ");
+    sb.append(size);
+    sb.append(System.lineSeparator());
+    sb.append("  Size must be a multiple of (octets): ");
+    sb.append(alignment);
+    sb.append(System.lineSeparator());
+    sb.append("  Insert ");
+    sb.append(missing);
+    sb.append(" octets of padding at the end of the record.");
+
+    return new JPRACompilerCheckerException(
+      lex, JPRACheckerErrorCode.LAYOUT_RECORD_SIZE_INCORRECT, sb.toString());
+  }
+
+  /**
+   * @param name The union type name
+   * @param tag  The tag type expression
+   *
+   * @return An exception
+   *
+   * @see JPRACheckerErrorCode#UNION_TAG_INVALID
+   */
+
+  public static JPRACompilerCheckerException unionTagInvalid(
+    final TypeName name,
+    final TypeExprType<IdentifierType, TType> tag)
+  {
+    final StringBuilder sb = new StringBuilder(128);
+    sb.append("Union tags must be unsigned integers of 8, 16, 32, or 64 ");
+    sb.append("bits.");
+    sb.append(System.lineSeparator());
+    sb.append("  Type name: ");
+    sb.append(name.value());
+    sb.append(System.lineSeparator());
+    sb.append("  Tag type: ");
+    sb.append(tag.getType());
+
+    return new JPRACompilerCheckerException(
+      tag.lexical(), JPRACheckerErrorCode.UNION_TAG_INVALID, sb.toString());
+  }
+
+  /**
+   * @param name The case name
+   * @param type The case type expression
+   *
+   * @return An exception
+   *
+   * @see JPRACheckerErrorCode#UNION_CASE_NOT_RECORD
+   */
+
+  public static JPRACompilerCheckerException unionCaseNotRecord(
+    final UnionCaseName name,
+    final TypeExprType<IdentifierType, TType> type)
+  {
+    final StringBuilder sb = new StringBuilder(128);
+    sb.append("Union cases must be record types.");
+    sb.append(System.lineSeparator());
+    sb.append("  Case name: ");
+    sb.append(name.value());
+    sb.append(System.lineSeparator());
+    sb.append("  Case type: ");
+    sb.append(type.getType());
+
+    return new JPRACompilerCheckerException(
+      type.lexical(),
+      JPRACheckerErrorCode.UNION_CASE_NOT_RECORD,
+      sb.toString());
+  }
+
+  /**
+   * @param name The union type name
+   *
+   * @return An exception
+   *
+   * @see JPRACheckerErrorCode#UNION_NO_CASES
+   */
+
+  public static JPRACompilerCheckerException unionNoCases(
+    final TypeName name)
+  {
+    final StringBuilder sb = new StringBuilder(128);
+    sb.append("Union types must have at least one case.");
+    sb.append(System.lineSeparator());
+    sb.append("  Type name: ");
+    sb.append(name.value());
+
+    return new JPRACompilerCheckerException(
+      name.lexical(), JPRACheckerErrorCode.UNION_NO_CASES, sb.toString());
+  }
+
+  /**
+   * @param name     The union type name
+   * @param count    The number of cases
+   * @param tag_bits The size of the tag in bits
+   *
+   * @return An exception
+   *
+   * @see JPRACheckerErrorCode#UNION_TOO_MANY_CASES
+   */
+
+  public static JPRACompilerCheckerException unionTooManyCases(
+    final TypeName name,
+    final int count,
+    final BigInteger tag_bits)
+  {
+    final StringBuilder sb = new StringBuilder(128);
+    sb.append("Union has more cases than its tag can represent.");
+    sb.append(System.lineSeparator());
+    sb.append("  Type name: ");
+    sb.append(name.value());
+    sb.append(System.lineSeparator());
+    sb.append("  Cases: ");
+    sb.append(count);
+    sb.append(System.lineSeparator());
+    sb.append("  Tag size (bits): ");
+    sb.append(tag_bits);
+
+    return new JPRACompilerCheckerException(
+      name.lexical(), JPRACheckerErrorCode.UNION_TOO_MANY_CASES, sb.toString());
+  }
+
   /**
    * @return The error code
    */
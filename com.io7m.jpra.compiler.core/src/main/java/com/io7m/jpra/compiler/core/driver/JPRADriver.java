@@ -36,6 +36,8 @@ import com.io7m.jpra.compiler.core.resolver.JPRAResolver;
 import com.io7m.jpra.compiler.core.resolver.JPRAResolverType;
 import com.io7m.jpra.core.JPRAException;
 import com.io7m.jpra.core.JPRAIOException;
+import com.io7m.jpra.model.Unresolved;
+import com.io7m.jpra.model.Untyped;
 import com.io7m.jpra.model.contexts.GlobalContextType;
 import com.io7m.jpra.model.contexts.GlobalContexts;
 import com.io7m.jpra.model.contexts.PackageContextType;
@@ -43,6 +45,14 @@ import com.io7m.jpra.model.loading.JPRAModelLoadingException;
 import com.io7m.jpra.model.loading.JPRAPackageLoaderType;
 import com.io7m.jpra.model.names.PackageNameQualified;
 import com.io7m.jpra.model.names.PackageNameUnqualified;
+import com.io7m.jpra.model.statements.StatementCommandSize;
+import com.io7m.jpra.model.statements.StatementCommandType;
+import com.io7m.jpra.model.statements.StatementMatcherType;
+import com.io7m.jpra.model.statements.StatementPackageBegin;
+import com.io7m.jpra.model.statements.StatementPackageEnd;
+import com.io7m.jpra.model.statements.StatementPackageImport;
+import com.io7m.jpra.model.statements.StatementType;
+import com.io7m.jpra.model.type_declarations.TypeDeclType;
 import com.io7m.jsx.SExpressionType;
 import com.io7m.jsx.api.lexer.JSXLexerConfiguration;
 import com.io7m.jsx.api.lexer.JSXLexerType;
@@ -63,9 +73,18 @@ import java.net.URI;
 import java.nio.file.Files;
 import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Default implementation of the {@link JPRADriverType} interface.
@@ -74,18 +93,50 @@ import java.util.Queue;
 public final class JPRADriver implements JPRADriverType
 {
   private static final Logger LOG;
+  private static final int PARSER_THREADS_MAX = 8;
 
   static {
     LOG = LoggerFactory.getLogger(JPRADriver.class);
   }
 
   private final GlobalContextType global;
+  private final Path base;
+  private final Loader loader;
+  private final Optional<Executor> executor;
 
   private JPRADriver(
     final Path in_base,
-    final JPRACheckerCapabilitiesType in_caps)
+    final JPRACheckerCapabilitiesType in_caps,
+    final Optional<Executor> in_executor)
   {
-    this.global = GlobalContexts.newContext(new Loader(in_base, in_caps));
+    this.base = Objects.requireNonNull(in_base, "Path");
+    this.executor = Objects.requireNonNull(in_executor, "Executor");
+    this.loader = new Loader(in_base, in_caps);
+    this.global = GlobalContexts.newContext(this.loader);
+  }
+
+  private static ExecutorService newParserExecutor()
+  {
+    final int threads =
+      Math.min(Runtime.getRuntime().availableProcessors(), PARSER_THREADS_MAX);
+    final AtomicInteger count = new AtomicInteger(0);
+    return Executors.newFixedThreadPool(threads, r -> {
+      final Thread th = new Thread(r);
+      th.setName("com.io7m.jpra.driver.parser-" + count.incrementAndGet());
+      th.setDaemon(true);
+      return th;
+    });
+  }
+
+  private static Path fileForPackage(
+    final Path base,
+    final PackageNameQualified p)
+  {
+    Path file = base;
+    for (final PackageNameUnqualified e : p.getValue()) {
+      file = file.resolve(e.value());
+    }
+    return file.resolveSibling(file.getFileName() + ".jpr");
   }
 
   private static JSXParserType newJSXParser(
@@ -112,7 +163,9 @@ public final class JPRADriver implements JPRADriverType
   }
 
   /**
-   * Construct a new driver.
+   * Construct a new driver. Packages are parsed on a bounded pool of
+   * threads that the driver creates for, and shuts down at the end of,
+   * each call to {@link #compilePackages(List)}.
    *
    * @param in_base The base source directory
    * @param in_caps The capabilities
@@ -124,14 +177,66 @@ public final class JPRADriver implements JPRADriverType
     final Path in_base,
     final JPRACheckerCapabilitiesType in_caps)
   {
-    return new JPRADriver(in_base, in_caps);
+    return new JPRADriver(in_base, in_caps, Optional.empty());
+  }
+
+  /**
+   * Construct a new driver that parses packages on the given executor. The
+   * executor remains owned by the caller, and is not shut down by the
+   * driver.
+   *
+   * @param in_base     The base source directory
+   * @param in_caps     The capabilities
+   * @param in_executor The executor used to parse packages
+   *
+   * @return A new driver
+   */
+
+  public static JPRADriverType newDriverWithExecutor(
+    final Path in_base,
+    final JPRACheckerCapabilitiesType in_caps,
+    final Executor in_executor)
+  {
+    Objects.requireNonNull(in_executor, "Executor");
+    return new JPRADriver(in_base, in_caps, Optional.of(in_executor));
   }
 
   @Override
   public PackageContextType compilePackage(final PackageNameQualified p)
     throws JPRAModelLoadingException
   {
-    return this.global.loadPackage(p);
+    Objects.requireNonNull(p, "Package");
+    return this.compilePackages(Collections.singletonList(p)).get(p);
+  }
+
+  @Override
+  public Map<PackageNameQualified, PackageContextType> compilePackages(
+    final List<PackageNameQualified> p)
+    throws JPRAModelLoadingException
+  {
+    Objects.requireNonNull(p, "Packages");
+
+    if (this.executor.isPresent()) {
+      try {
+        return this.global.loadPackages(p, this.executor.get());
+      } finally {
+        this.loader.parsed.clear();
+      }
+    }
+
+    final ExecutorService owned = newParserExecutor();
+    try {
+      return this.global.loadPackages(p, owned);
+    } finally {
+      owned.shutdownNow();
+      this.loader.parsed.clear();
+    }
+  }
+
+  @Override
+  public Path getPackageFile(final PackageNameQualified p)
+  {
+    return fileForPackage(this.base, Objects.requireNonNull(p, "Package"));
   }
 
   @Override
@@ -140,10 +245,120 @@ public final class JPRADriver implements JPRADriverType
     return this.global;
   }
 
+  /**
+   * The result of parsing one expression: either a statement, or the error
+   * that prevented one from being parsed.
+   */
+
+  private static final class ParsedItem
+  {
+    private final Optional<StatementType<Unresolved, Untyped>> statement;
+    private final Optional<JPRAException> error;
+
+    private ParsedItem(
+      final Optional<StatementType<Unresolved, Untyped>> in_statement,
+      final Optional<JPRAException> in_error)
+    {
+      this.statement = in_statement;
+      this.error = in_error;
+    }
+
+    static ParsedItem ofStatement(
+      final StatementType<Unresolved, Untyped> s)
+    {
+      return new ParsedItem(Optional.of(s), Optional.empty());
+    }
+
+    static ParsedItem ofError(
+      final JPRAException e)
+    {
+      return new ParsedItem(Optional.empty(), Optional.of(e));
+    }
+  }
+
+  /**
+   * A parsed package file. The contents are immutable once constructed, and
+   * so may be safely handed from the thread that parsed the file to the
+   * thread that evaluates it.
+   */
+
+  private static final class ParsedPackage
+  {
+    private final List<ParsedItem> items;
+    private final List<PackageNameQualified> imports;
+    private final Optional<LexicalPosition<URI>> eof;
+
+    private ParsedPackage(
+      final List<ParsedItem> in_items,
+      final List<PackageNameQualified> in_imports,
+      final Optional<LexicalPosition<URI>> in_eof)
+    {
+      this.items = Collections.unmodifiableList(in_items);
+      this.imports = Collections.unmodifiableList(in_imports);
+      this.eof = in_eof;
+    }
+  }
+
+  private static final class ImportCollector
+    implements StatementMatcherType<Unresolved, Untyped, Void, RuntimeException>
+  {
+    private final List<PackageNameQualified> imports;
+
+    ImportCollector(
+      final List<PackageNameQualified> in_imports)
+    {
+      this.imports = in_imports;
+    }
+
+    @Override
+    public Void matchPackageBegin(
+      final StatementPackageBegin<Unresolved, Untyped> s)
+    {
+      return null;
+    }
+
+    @Override
+    public Void matchPackageEnd(
+      final StatementPackageEnd<Unresolved, Untyped> s)
+    {
+      return null;
+    }
+
+    @Override
+    public Void matchPackageImport(
+      final StatementPackageImport<Unresolved, Untyped> s)
+    {
+      this.imports.add(s.getPackageName());
+      return null;
+    }
+
+    @Override
+    public Void matchTypeDecl(
+      final TypeDeclType<Unresolved, Untyped> s)
+    {
+      return null;
+    }
+
+    @Override
+    public Void matchShowType(
+      final StatementCommandType<Unresolved, Untyped> s)
+    {
+      return null;
+    }
+
+    @Override
+    public Void matchShowSize(
+      final StatementCommandSize<Unresolved, Untyped> s)
+    {
+      return null;
+    }
+  }
+
   private static final class Loader implements JPRAPackageLoaderType
   {
     private final Path source_directory;
     private final JPRACheckerCapabilitiesType caps;
+    private final ConcurrentHashMap<PackageNameQualified, ParsedPackage> parsed;
 
     private Loader(
       final Path in_base,
@@ -151,40 +366,30 @@ public final class JPRADriver implements JPRADriverType
     {
       this.source_directory = Objects.requireNonNull(in_base, "Path");
       this.caps = Objects.requireNonNull(in_caps, "Capabilities");
+      this.parsed = new ConcurrentHashMap<>(64);
     }
 
-    private Path fileForPackage(final PackageNameQualified p)
-    {
-      Path file = this.source_directory;
-      for (final PackageNameUnqualified e : p.getValue()) {
-        file = file.resolve(e.value());
-      }
-      return file.resolveSibling(file.getFileName() + ".jpr");
-    }
+    /**
+     * Parse the file of package {@code p}. This does not access any global
+     * context, and so may be called concurrently for distinct packages.
+     */
 
-    @Override
-    public PackageContextType evaluate(
-      final GlobalContextType c,
+    private ParsedPackage parse(
       final PackageNameQualified p)
-      throws JPRAModelLoadingException
     {
       final JSXSerializerType serial = JSXSerializerTrivial.newSerializer();
       final JPRAReferenceParserType ref_parser =
         JPRAReferenceParser.newParser(serial);
       final JPRAParserType parser = JPRAParser.newParser(serial, ref_parser);
-      final JPRAResolverType resolver = JPRAResolver.newResolver(
-        c, Optional.of(p));
-      final JPRACheckerType checker = JPRAChecker.newChecker(c, this.caps);
-      final JPRAPipelineType pipe =
-        JPRAPipeline.newPipeline(parser, resolver, checker);
 
-      final Queue<JPRAException> error_queue = c.getErrorQueue();
-      Optional<PackageContextType> pack_opt = Optional.empty();
+      final List<ParsedItem> items = new ArrayList<>(64);
+      final List<PackageNameQualified> imports = new ArrayList<>(8);
+      final ImportCollector collector = new ImportCollector(imports);
+      Optional<LexicalPosition<URI>> eof = Optional.empty();
 
-      final Path file = this.fileForPackage(p);
-      LOG.debug("loading package {} from {}", p, file);
+      final Path file = fileForPackage(this.source_directory, p);
+      LOG.debug("parsing package {} from {}", p, file);
 
-      boolean error = false;
       try (InputStream is = Files.newInputStream(file)) {
         final JSXParserType sxp = newJSXParser(is, file);
 
@@ -199,39 +404,107 @@ public final class JPRADriver implements JPRADriverType
               final LexicalPosition<URI> lex = s.lexical();
               line_max = Math.max(line_max, lex.line());
 
-              /*
-                The resolver is configured to only accept packages named
-                {@code p}.
-               */
-
-              final Optional<PackageContextType> pr = pipe.onExpression(s);
-              if (pr.isPresent()) {
-                Preconditions.checkPrecondition(
-                  !pack_opt.isPresent(), "Package must be present");
-                pack_opt = pr;
-              }
+              final StatementType<Unresolved, Untyped> st =
+                parser.parseStatement(s);
+              st.matchStatement(collector);
+              items.add(ParsedItem.ofStatement(st));
             } else {
               done = true;
-              pipe.onEOF(LexicalPosition.of(line_max, 0, Optional.empty()));
+              eof = Optional.of(
+                LexicalPosition.of(line_max, 0, Optional.empty()));
             }
           } catch (final JPRACompilerException e) {
-            error_queue.add(e);
-            error = true;
+            items.add(ParsedItem.ofError(e));
           } catch (final IOException e) {
-            error_queue.add(new JPRAIOException(e));
+            items.add(ParsedItem.ofError(new JPRAIOException(e)));
             done = true;
-            error = true;
           } catch (final JSXParserException e) {
-            error_queue.add(new JPRACompilerLexerException(e));
-            error = true;
+            items.add(ParsedItem.ofError(new JPRACompilerLexerException(e)));
           }
         }
       } catch (final NoSuchFileException e) {
-        error_queue.add(JPRACompilerResolverException.nonexistentPackage(p));
-        error = true;
+        items.add(ParsedItem.ofError(
+          JPRACompilerResolverException.nonexistentPackage(p)));
       } catch (final IOException e) {
-        error_queue.add(new JPRAIOException(e));
-        error = true;
+        items.add(ParsedItem.ofError(new JPRAIOException(e)));
+      }
+
+      return new ParsedPackage(items, imports, eof);
+    }
+
+    @Override
+    public List<PackageNameQualified> prepare(
+      final PackageNameQualified p)
+    {
+      final ParsedPackage pp = this.parse(p);
+      this.parsed.put(p, pp);
+      return pp.imports;
+    }
+
+    @Override
+    public PackageContextType evaluate(
+      final GlobalContextType c,
+      final PackageNameQualified p)
+      throws JPRAModelLoadingException
+    {
+      /*
+       * Use the result of an earlier call to prepare(), if there was one.
+       */
+
+      ParsedPackage pp = this.parsed.remove(p);
+      if (pp == null) {
+        pp = this.parse(p);
+      }
+
+      final JPRAResolverType resolver = JPRAResolver.newResolver(
+        c, Optional.of(p));
+      final JPRACheckerType checker = JPRAChecker.newChecker(c, this.caps);
+      final JSXSerializerType serial = JSXSerializerTrivial.newSerializer();
+      final JPRAParserType parser =
+        JPRAParser.newParser(serial, JPRAReferenceParser.newParser(serial));
+      final JPRAPipelineType pipe =
+        JPRAPipeline.newPipeline(parser, resolver, checker);
+
+      final Queue<JPRAException> error_queue = c.getErrorQueue();
+      Optional<PackageContextType> pack_opt = Optional.empty();
+
+      LOG.debug("loading package {}", p);
+
+      boolean error = false;
+      for (final ParsedItem item : pp.items) {
+        if (item.error.isPresent()) {
+          error_queue.add(item.error.get());
+          error = true;
+          continue;
+        }
+
+        try {
+
+          /*
+            The resolver is configured to only accept packages named
+            {@code p}.
+           */
+
+          final Optional<PackageContextType> pr =
+            pipe.onStatement(item.statement.get());
+          if (pr.isPresent()) {
+            Preconditions.checkPrecondition(
+              !pack_opt.isPresent(), "Package must be present");
+            pack_opt = pr;
+          }
+        } catch (final JPRACompilerException e) {
+          error_queue.add(e);
+          error = true;
+        }
+      }
+
+      if (pp.eof.isPresent()) {
+        try {
+          pipe.onEOF(pp.eof.get());
+        } catch (final JPRACompilerException e) {
+          error_queue.add(e);
+          error = true;
+        }
       }
 
       if (error) {
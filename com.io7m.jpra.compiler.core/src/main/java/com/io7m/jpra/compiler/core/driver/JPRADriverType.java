@@ -21,6 +21,10 @@ import com.io7m.jpra.model.contexts.PackageContextType;
 import com.io7m.jpra.model.loading.JPRAModelLoadingException;
 import com.io7m.jpra.model.names.PackageNameQualified;
 
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
 /**
  * The type of non-interactive compiler drivers.
  */
@@ -40,6 +44,33 @@ public interface JPRADriverType
   PackageContextType compilePackage(PackageNameQualified p)
     throws JPRAModelLoadingException;
 
+  /**
+   * Compile a list of packages. The packages and all of the packages that
+   * they import are parsed concurrently, and are then resolved and checked
+   * in dependency order. All errors are added to the global error queue in
+   * an order that does not depend on the order in which packages were
+   * parsed.
+   *
+   * @param p The package names
+   *
+   * @return The compiled packages
+   *
+   * @throws JPRAModelLoadingException If any package fails to compile
+   * @see GlobalContextType#loadPackages(List, java.util.concurrent.Executor)
+   */
+
+  Map<PackageNameQualified, PackageContextType> compilePackages(
+    List<PackageNameQualified> p)
+    throws JPRAModelLoadingException;
+
+  /**
+   * @param p The package name
+   *
+   * @return The file from which the package is, or would be, loaded
+   */
+
+  Path getPackageFile(PackageNameQualified p);
+
   /**
    * @return The global context
    */
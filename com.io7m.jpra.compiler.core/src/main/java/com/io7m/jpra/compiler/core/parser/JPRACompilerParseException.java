@@ -438,6 +438,63 @@ public final class JPRACompilerParseException extends JPRACompilerException
       message);
   }
 
+  /**
+   * @param e       The expression
+   * @param message The exception message
+   *
+   * @return A parser exception
+   *
+   * @see JPRAParseErrorCode#UNRECOGNIZED_UNION_CASE_KEYWORD
+   */
+
+  public static JPRACompilerParseException unrecognizedUnionCaseKeyword(
+    final SExpressionSymbolType e,
+    final String message)
+  {
+    return new JPRACompilerParseException(
+      e.lexical(),
+      JPRAParseErrorCode.UNRECOGNIZED_UNION_CASE_KEYWORD,
+      message);
+  }
+
+  /**
+   * @param e       The expression
+   * @param message The exception message
+   *
+   * @return A parser exception
+   *
+   * @see JPRAParseErrorCode#BAD_UNION_CASE_NAME
+   */
+
+  public static JPRACompilerParseException badUnionCaseName(
+    final SExpressionSymbolType e,
+    final String message)
+  {
+    return new JPRACompilerParseException(
+      e.lexical(),
+      JPRAParseErrorCode.BAD_UNION_CASE_NAME,
+      message);
+  }
+
+  /**
+   * @param e       The expression
+   * @param message The exception message
+   *
+   * @return A parser exception
+   *
+   * @see JPRAParseErrorCode#DUPLICATE_UNION_CASE_NAME
+   */
+
+  public static JPRACompilerParseException duplicateUnionCaseName(
+    final SExpressionSymbolType e,
+    final String message)
+  {
+    return new JPRACompilerParseException(
+      e.lexical(),
+      JPRAParseErrorCode.DUPLICATE_UNION_CASE_NAME,
+      message);
+  }
+
   /**
    * @return The parser error code
    */
@@ -134,5 +134,23 @@ public enum JPRAParseErrorCode
    * An unrecognized packed field keyword was specified.
    */
 
-  UNRECOGNIZED_PACKED_FIELD_KEYWORD
+  UNRECOGNIZED_PACKED_FIELD_KEYWORD,
+
+  /**
+   * An unrecognized union case keyword was specified.
+   */
+
+  UNRECOGNIZED_UNION_CASE_KEYWORD,
+
+  /**
+   * An invalid union case name was specified.
+   */
+
+  BAD_UNION_CASE_NAME,
+
+  /**
+   * A union declaration contained a duplicate case.
+   */
+
+  DUPLICATE_UNION_CASE_NAME
 }
@@ -99,6 +99,7 @@ public final class JPRAParser implements JPRAParserType
   private static final String IMPORT = "import";
   private static final String RECORD = "record";
   private static final String PACKED = "packed";
+  static final String UNION = "union";
   private static final String COMMAND_TYPE = ":type";
   private static final String COMMAND_SIZE = ":size";
 
@@ -129,6 +130,7 @@ public final class JPRAParser implements JPRAParserType
     KEYWORDS.add(IMPORT);
     KEYWORDS.add(RECORD);
     KEYWORDS.add(PACKED);
+    KEYWORDS.add(UNION);
     KEYWORDS.add(COMMAND_TYPE);
     KEYWORDS.add(COMMAND_SIZE);
 
@@ -164,6 +166,7 @@ public final class JPRAParser implements JPRAParserType
 
   private final JSXSerializerType serial;
   private final JPRAReferenceParserType ref_parser;
+  private final JPRAUnionParser union_parser;
 
   private JPRAParser(
     final JSXSerializerType in_serial,
@@ -171,6 +174,7 @@ public final class JPRAParser implements JPRAParserType
   {
     this.serial = Objects.requireNonNull(in_serial, "Serializer");
     this.ref_parser = Objects.requireNonNull(in_ref_parser, "Parser");
+    this.union_parser = new JPRAUnionParser(in_serial, this);
   }
 
   /**
@@ -187,7 +191,7 @@ public final class JPRAParser implements JPRAParserType
     return new JPRAParser(serial, ref_parser);
   }
 
-  private static SExpressionSymbolType requireSymbol(
+  static SExpressionSymbolType requireSymbol(
     final SExpressionType e)
     throws JPRACompilerParseException
   {
@@ -300,13 +304,13 @@ public final class JPRAParser implements JPRAParserType
     }
   }
 
-  private static SExpressionListType requireList(final SExpressionType e)
+  static SExpressionListType requireList(final SExpressionType e)
     throws JPRACompilerParseException
   {
     return e.matchExpression(new IsList());
   }
 
-  private static TypeName parseTypeName(final SExpressionSymbolType name)
+  static TypeName parseTypeName(final SExpressionSymbolType name)
     throws JPRACompilerParseException
   {
     try {
@@ -426,6 +430,8 @@ public final class JPRAParser implements JPRAParserType
         return this.parseRecord(le, se);
       case PACKED:
         return this.parsePacked(le, se);
+      case UNION:
+        return this.union_parser.parseUnion(le, se);
       case COMMAND_SIZE:
         return this.parseCommandSize(le, se);
       case COMMAND_TYPE:
@@ -0,0 +1,218 @@
+/*
+ * Copyright © 2015 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.jpra.compiler.core.parser;
+
+import com.io7m.jaffirm.core.PreconditionViolationException;
+import com.io7m.jaffirm.core.Preconditions;
+import com.io7m.jpra.model.Unresolved;
+import com.io7m.jpra.model.Untyped;
+import com.io7m.jpra.model.names.TypeName;
+import com.io7m.jpra.model.names.UnionCaseName;
+import com.io7m.jpra.model.statements.StatementType;
+import com.io7m.jpra.model.type_declarations.TypeDeclUnion;
+import com.io7m.jpra.model.type_declarations.UnionCaseDecl;
+import com.io7m.jpra.model.type_expressions.TypeExprType;
+import com.io7m.jsx.SExpressionListType;
+import com.io7m.jsx.SExpressionSymbolType;
+import com.io7m.jsx.SExpressionType;
+import com.io7m.jsx.api.serializer.JSXSerializerType;
+import com.io7m.junreachable.UnreachableCodeException;
+import io.vavr.collection.List;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * The parser for {@code union} declarations, used by {@link JPRAParser}.
+ */
+
+final class JPRAUnionParser
+{
+  private static final Set<String> UNION_CASE_KEYWORDS;
+  private static final String CASE = "case";
+
+  static {
+    UNION_CASE_KEYWORDS = new HashSet<>(16);
+    UNION_CASE_KEYWORDS.add(CASE);
+  }
+
+  private final JSXSerializerType serial;
+  private final JPRAParserType types;
+
+  JPRAUnionParser(
+    final JSXSerializerType in_serial,
+    final JPRAParserType in_types)
+  {
+    this.serial = Objects.requireNonNull(in_serial, "Serializer");
+    this.types = Objects.requireNonNull(in_types, "Types");
+  }
+
+  private static void checkUnionCaseKeyword(final SExpressionSymbolType se)
+    throws JPRACompilerParseException
+  {
+    if (!UNION_CASE_KEYWORDS.contains(se.text())) {
+      final StringBuilder sb = new StringBuilder(256);
+      sb.append("Unrecognized union case keyword '");
+      sb.append(se.text());
+      sb.append("'");
+      sb.append(System.lineSeparator());
+      sb.append("  Expected one of: ");
+      sb.append(UNION_CASE_KEYWORDS);
+      sb.append(System.lineSeparator());
+      throw JPRACompilerParseException.unrecognizedUnionCaseKeyword(
+        se, sb.toString());
+    }
+  }
+
+  private static UnionCaseName parseUnionCaseName(
+    final SExpressionSymbolType name)
+    throws JPRACompilerParseException
+  {
+    try {
+      return UnionCaseName.of(name.lexical(), name.text());
+    } catch (final PreconditionViolationException e) {
+      throw JPRACompilerParseException.badUnionCaseName(name, e.getMessage());
+    }
+  }
+
+  StatementType<Unresolved, Untyped> parseUnion(
+    final SExpressionListType le,
+    final SExpressionSymbolType se)
+    throws JPRACompilerParseException
+  {
+    Preconditions.checkPreconditionV(
+      Objects.equals(JPRAParser.UNION, se.text()),
+      "Text must be %s",
+      JPRAParser.UNION);
+
+    if (le.size() == 4) {
+      final SExpressionType n_expr = le.get(1);
+      final SExpressionType c_expr = le.get(3);
+
+      if (n_expr instanceof SExpressionSymbolType
+        && c_expr instanceof SExpressionListType) {
+
+        final TypeName t_name =
+          JPRAParser.parseTypeName((SExpressionSymbolType) n_expr);
+        final TypeExprType<Unresolved, Untyped> tag =
+          this.types.parseTypeExpression(le.get(2));
+        final SExpressionListType cl_expr = (SExpressionListType) c_expr;
+
+        final HashMap<UnionCaseName, UnionCaseDecl<Unresolved, Untyped>>
+          cases_by_name = new HashMap<>();
+        final ArrayList<UnionCaseDecl<Unresolved, Untyped>>
+          cases_ordered = new ArrayList<>();
+
+        this.parseUnionCases(cl_expr, cases_by_name, cases_ordered);
+
+        return new TypeDeclUnion<>(
+          Unresolved.get(),
+          Untyped.get(),
+          io.vavr.collection.HashMap.ofAll(cases_by_name),
+          t_name,
+          tag,
+          List.ofAll(cases_ordered));
+      }
+    }
+
+    try (ByteArrayOutputStream bao = new ByteArrayOutputStream(256)) {
+      this.serial.serialize(le, bao);
+      final StringBuilder sb = new StringBuilder(128);
+      sb.append("Syntax error.");
+      sb.append(System.lineSeparator());
+      sb.append("  Expected: (union <type-name> <type-expression> ");
+      sb.append("(<case> ... <case>))");
+      sb.append(System.lineSeparator());
+      sb.append("  Got: ");
+      sb.append(bao.toString(StandardCharsets.UTF_8.name()));
+      throw JPRACompilerParseException.syntaxError(le, sb.toString());
+    } catch (final IOException e) {
+      throw new UnreachableCodeException(e);
+    }
+  }
+
+  private void parseUnionCases(
+    final SExpressionListType cases,
+    final HashMap<UnionCaseName, UnionCaseDecl<Unresolved, Untyped>>
+      cases_named,
+    final ArrayList<UnionCaseDecl<Unresolved, Untyped>> cases_order)
+    throws JPRACompilerParseException
+  {
+    for (int index = 0; index < cases.size(); ++index) {
+      final SExpressionListType l_expr =
+        JPRAParser.requireList(cases.get(index));
+      if (l_expr.size() == 0) {
+        throw JPRACompilerParseException.expectedNonEmptyList(l_expr);
+      }
+
+      final SExpressionSymbolType k = JPRAParser.requireSymbol(l_expr.get(0));
+      checkUnionCaseKeyword(k);
+
+      final UnionCaseDecl<Unresolved, Untyped> c =
+        this.parseUnionCase(l_expr, l_expr.size());
+
+      final UnionCaseName c_name = c.getName();
+      if (cases_named.containsKey(c_name)) {
+        final StringBuilder sb = new StringBuilder(128);
+        sb.append("Duplicate union case name.");
+        sb.append(System.lineSeparator());
+        sb.append("  Name: ");
+        sb.append(c_name.value());
+        throw JPRACompilerParseException.duplicateUnionCaseName(
+          k, sb.toString());
+      }
+
+      cases_named.put(c_name, c);
+      cases_order.add(c);
+    }
+  }
+
+  private UnionCaseDecl<Unresolved, Untyped> parseUnionCase(
+    final SExpressionListType l_expr,
+    final int e_count)
+    throws JPRACompilerParseException
+  {
+    if (e_count == 3 && l_expr.get(1) instanceof SExpressionSymbolType) {
+      final SExpressionSymbolType c_name =
+        (SExpressionSymbolType) l_expr.get(1);
+      final UnionCaseName name = parseUnionCaseName(c_name);
+      final TypeExprType<Unresolved, Untyped> te =
+        this.types.parseTypeExpression(l_expr.get(2));
+      return new UnionCaseDecl<>(Unresolved.get(), name, te);
+    }
+
+    try (ByteArrayOutputStream bao = new ByteArrayOutputStream(256)) {
+      this.serial.serialize(l_expr, bao);
+      final StringBuilder sb = new StringBuilder(128);
+      sb.append("Syntax error.");
+      sb.append(System.lineSeparator());
+      sb.append("  Expected: (case <case-name> <type-expression>)");
+      sb.append(System.lineSeparator());
+      sb.append("  Got: ");
+      sb.append(bao.toString(StandardCharsets.UTF_8.name()));
+      throw JPRACompilerParseException.syntaxError(l_expr, sb.toString());
+    } catch (final IOException x) {
+      throw new UnreachableCodeException(x);
+    }
+  }
+}
@@ -31,6 +31,7 @@ import com.io7m.jpra.model.statements.StatementMatcherType;
 import com.io7m.jpra.model.statements.StatementPackageBegin;
 import com.io7m.jpra.model.statements.StatementPackageEnd;
 import com.io7m.jpra.model.statements.StatementPackageImport;
+import com.io7m.jpra.model.statements.StatementType;
 import com.io7m.jpra.model.type_declarations.TypeDeclType;
 import com.io7m.jpra.model.types.TType;
 import com.io7m.jsx.SExpressionType;
@@ -82,7 +83,16 @@ public final class JPRAPipeline implements JPRAPipelineType
   public Optional<PackageContextType> onExpression(final SExpressionType e)
     throws JPRACompilerException
   {
-    return this.parser.parseStatement(e).matchStatement(new PipelineApplicator());
+    return this.onStatement(this.parser.parseStatement(e));
+  }
+
+  @Override
+  public Optional<PackageContextType> onStatement(
+    final StatementType<Unresolved, Untyped> s)
+    throws JPRACompilerException
+  {
+    Objects.requireNonNull(s, "Statement");
+    return s.matchStatement(new PipelineApplicator());
   }
 
   @Override
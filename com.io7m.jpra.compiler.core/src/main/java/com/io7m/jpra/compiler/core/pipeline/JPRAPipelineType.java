@@ -18,7 +18,10 @@ package com.io7m.jpra.compiler.core.pipeline;
 
 import com.io7m.jlexing.core.LexicalPosition;
 import com.io7m.jpra.compiler.core.JPRACompilerException;
+import com.io7m.jpra.model.Unresolved;
+import com.io7m.jpra.model.Untyped;
 import com.io7m.jpra.model.contexts.PackageContextType;
+import com.io7m.jpra.model.statements.StatementType;
 import com.io7m.jsx.SExpressionType;
 
 import java.net.URI;
@@ -45,6 +48,22 @@ public interface JPRAPipelineType
   Optional<PackageContextType> onExpression(SExpressionType e)
     throws JPRACompilerException;
 
+  /**
+   * A statement that has already been parsed was received. This skips the
+   * parsing stage, and is used to process statements that were parsed
+   * ahead of time, possibly on a different thread.
+   *
+   * @param s The statement
+   *
+   * @return A completed package, if the statement resulted in one
+   *
+   * @throws JPRACompilerException If any of the stages raise an exception
+   */
+
+  Optional<PackageContextType> onStatement(
+    StatementType<Unresolved, Untyped> s)
+    throws JPRACompilerException;
+
   /**
    * EOF was received.
    *
@@ -31,6 +31,7 @@ import com.io7m.jpra.model.names.PackageNameQualified;
 import com.io7m.jpra.model.names.PackageNameUnqualified;
 import com.io7m.jpra.model.names.TypeName;
 import com.io7m.jpra.model.names.TypeReference;
+import com.io7m.jpra.model.names.UnionCaseName;
 import com.io7m.jpra.model.size_expressions.SizeExprConstant;
 import com.io7m.jpra.model.size_expressions.SizeExprInBits;
 import com.io7m.jpra.model.size_expressions.SizeExprInOctets;
@@ -52,6 +53,8 @@ import com.io7m.jpra.model.type_declarations.TypeDeclMatcherType;
 import com.io7m.jpra.model.type_declarations.TypeDeclPacked;
 import com.io7m.jpra.model.type_declarations.TypeDeclRecord;
 import com.io7m.jpra.model.type_declarations.TypeDeclType;
+import com.io7m.jpra.model.type_declarations.TypeDeclUnion;
+import com.io7m.jpra.model.type_declarations.UnionCaseDecl;
 import com.io7m.jpra.model.type_expressions.TypeExprArray;
 import com.io7m.jpra.model.type_expressions.TypeExprBooleanSet;
 import com.io7m.jpra.model.type_expressions.TypeExprFloat;
@@ -286,27 +289,7 @@ public final class JPRAResolver implements JPRAResolverType
 
     try {
       final TypeDeclType<IdentifierType, Untyped> rv =
-        expr.matchTypeDeclaration(
-          new TypeDeclMatcherType<Unresolved, Untyped,
-            TypeDeclType<IdentifierType, Untyped>,
-            JPRACompilerResolverException>()
-          {
-            @Override
-            public TypeDeclType<IdentifierType, Untyped> matchRecord(
-              final TypeDeclRecord<Unresolved, Untyped> t)
-              throws JPRACompilerResolverException
-            {
-              return JPRAResolver.this.resolveTypeDeclarationRecord(t);
-            }
-
-            @Override
-            public TypeDeclType<IdentifierType, Untyped> matchPacked(
-              final TypeDeclPacked<Unresolved, Untyped> t)
-              throws JPRACompilerResolverException
-            {
-              return JPRAResolver.this.resolveTypeDeclarationPacked(t);
-            }
-          });
+        expr.matchTypeDeclaration(new TypeDeclarationResolver());
 
       final TypeName t_name = rv.getName();
       if (this.current_types.containsKey(t_name)) {
@@ -323,6 +306,40 @@ public final class JPRAResolver implements JPRAResolverType
     }
   }
 
+  private TypeDeclType<IdentifierType, Untyped> resolveTypeDeclarationUnion(
+    final TypeDeclUnion<Unresolved, Untyped> t)
+    throws JPRACompilerResolverException
+  {
+    final TypeExprType<IdentifierType, Untyped> tag =
+      this.resolveTypeExpression(t.getTag());
+
+    final List<UnionCaseDecl<Unresolved, Untyped>> o =
+      t.getCasesInDeclarationOrder();
+    final ArrayList<UnionCaseDecl<IdentifierType, Untyped>> by_order =
+      new ArrayList<>();
+    final HashMap<UnionCaseName, UnionCaseDecl<IdentifierType, Untyped>>
+      by_name = new HashMap<>();
+
+    for (int index = 0; index < o.size(); ++index) {
+      final UnionCaseDecl<Unresolved, Untyped> c = o.get(index);
+      final UnionCaseDecl<IdentifierType, Untyped> rc =
+        new UnionCaseDecl<>(
+          this.context.getFreshIdentifier(),
+          c.getName(),
+          this.resolveTypeExpression(c.getType()));
+      by_order.add(rc);
+      by_name.put(rc.getName(), rc);
+    }
+
+    return new TypeDeclUnion<>(
+      this.context.getFreshIdentifier(),
+      Untyped.get(),
+      io.vavr.collection.HashMap.ofAll(by_name),
+      t.getName(),
+      tag,
+      List.ofAll(by_order));
+  }
+
   private TypeDeclType<IdentifierType, Untyped> resolveTypeDeclarationPacked(
     final TypeDeclPacked<Unresolved, Untyped> t)
     throws JPRACompilerResolverException
@@ -833,4 +850,38 @@ public final class JPRAResolver implements JPRAResolverType
       return JPRAResolver.this.resolveSizeExprInBits(s);
     }
   }
+
+  private final class TypeDeclarationResolver
+    implements TypeDeclMatcherType<Unresolved, Untyped,
+    TypeDeclType<IdentifierType, Untyped>, JPRACompilerResolverException>
+  {
+    TypeDeclarationResolver()
+    {
+
+    }
+
+    @Override
+    public TypeDeclType<IdentifierType, Untyped> matchRecord(
+      final TypeDeclRecord<Unresolved, Untyped> t)
+      throws JPRACompilerResolverException
+    {
+      return JPRAResolver.this.resolveTypeDeclarationRecord(t);
+    }
+
+    @Override
+    public TypeDeclType<IdentifierType, Untyped> matchPacked(
+      final TypeDeclPacked<Unresolved, Untyped> t)
+      throws JPRACompilerResolverException
+    {
+      return JPRAResolver.this.resolveTypeDeclarationPacked(t);
+    }
+
+    @Override
+    public TypeDeclType<IdentifierType, Untyped> matchUnion(
+      final TypeDeclUnion<Unresolved, Untyped> t)
+      throws JPRACompilerResolverException
+    {
+      return JPRAResolver.this.resolveTypeDeclarationUnion(t);
+    }
+  }
 }
@@ -22,12 +22,20 @@ import com.beust.jcommander.JCommander;
 import com.beust.jcommander.Parameter;
 import com.beust.jcommander.ParameterException;
 import com.beust.jcommander.Parameters;
+import com.io7m.jpra.compiler.c.JPRACGenerator;
+import com.io7m.jpra.compiler.c.JPRACWriter;
+import com.io7m.jpra.compiler.c.JPRACWriterType;
 import com.io7m.jpra.compiler.core.JPRAProblemFormatter;
 import com.io7m.jpra.compiler.core.JPRAProblemFormatterType;
+import com.io7m.jpra.compiler.core.checker.JPRACheckerCapabilitiesType;
+import com.io7m.jpra.compiler.core.checker.JPRACheckerLayoutCapabilities;
+import com.io7m.jpra.compiler.core.checker.JPRACheckerLayoutMode;
+import com.io7m.jpra.compiler.core.checker.JPRACheckerLayoutStandard;
 import com.io7m.jpra.compiler.core.checker.JPRACheckerStandardCapabilities;
 import com.io7m.jpra.compiler.core.driver.JPRADriver;
 import com.io7m.jpra.compiler.core.driver.JPRADriverType;
 import com.io7m.jpra.compiler.java.JPRAJavaGenerator;
+import com.io7m.jpra.compiler.java.JPRAJavaGeneratorFeature;
 import com.io7m.jpra.compiler.java.JPRAJavaGeneratorType;
 import com.io7m.jpra.compiler.java.JPRAJavaWriter;
 import com.io7m.jpra.compiler.java.JPRAJavaWriterType;
@@ -37,6 +45,7 @@ import com.io7m.jpra.model.contexts.PackageContextType;
 import com.io7m.jpra.model.loading.JPRAModelLoadingException;
 import com.io7m.jpra.model.names.PackageNameQualified;
 import com.io7m.jpra.model.names.TypeName;
+import com.io7m.jpra.model.types.TRecord;
 import com.io7m.jpra.model.types.TypeUserDefinedType;
 import com.io7m.junreachable.UnreachableCodeException;
 import org.slf4j.LoggerFactory;
@@ -50,6 +59,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Queue;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
@@ -77,15 +87,21 @@ public final class Main
 
     final CommandCheck check = new CommandCheck();
     final CommandGenerateJava generate = new CommandGenerateJava();
+    final CommandGenerateMigrators migrators = new CommandGenerateMigrators();
+    final CommandGenerateC generate_c = new CommandGenerateC();
 
     this.commands = new HashMap<>(8);
     this.commands.put("check", check);
     this.commands.put("generate", generate);
+    this.commands.put("generate-migrators", migrators);
+    this.commands.put("generate-c", generate_c);
 
     this.commander = new JCommander();
     this.commander.setProgramName("jpra-c");
     this.commander.addCommand("check", check);
     this.commander.addCommand("generate", generate);
+    this.commander.addCommand("generate-migrators", migrators);
+    this.commander.addCommand("generate-c", generate_c);
   }
 
   /**
@@ -142,6 +158,16 @@ public final class Main
       description = "Enable debug logging")
     private boolean debug;
 
+    @Parameter(
+      description = "Check records against a buffer layout (std140, std430)",
+      names = "--layout")
+    private JPRACheckerLayoutStandard layout;
+
+    @Parameter(
+      description = "Insert padding into records to satisfy --layout",
+      names = "--layout-insert-padding")
+    private boolean layout_insert_padding;
+
     CommandType()
     {
 
@@ -149,6 +175,19 @@ public final class Main
 
     protected abstract Status run();
 
+    protected final JPRACheckerCapabilitiesType capabilities()
+    {
+      if (this.layout != null) {
+        if (this.layout_insert_padding) {
+          return JPRACheckerLayoutCapabilities.newCapabilities(
+            this.layout, JPRACheckerLayoutMode.INSERT_PADDING);
+        }
+        return JPRACheckerLayoutCapabilities.newCapabilities(
+          this.layout, JPRACheckerLayoutMode.VALIDATE);
+      }
+      return JPRACheckerStandardCapabilities.newCapabilities();
+    }
+
     protected final void setup()
     {
       final Logger root = (Logger) LoggerFactory.getLogger(
@@ -213,31 +252,29 @@ public final class Main
       boolean error = false;
       final JPRADriverType driver = JPRADriver.newDriver(
         Paths.get(this.source_directory),
-        JPRACheckerStandardCapabilities.newCapabilities());
+        this.capabilities());
       final GlobalContextType gc = driver.getGlobalContext();
 
       final List<PackageNameQualified> names = this.packages.stream().map(
         PackageNameQualified::valueOf).collect(Collectors.toList());
 
-      for (final PackageNameQualified name : names) {
-        LOG.debug("checking {}", name);
+      LOG.debug("checking {}", names);
 
-        try {
-          driver.compilePackage(name);
-        } catch (final JPRAModelLoadingException e) {
-          error = true;
-        }
+      try {
+        driver.compilePackages(names);
+      } catch (final JPRAModelLoadingException e) {
+        error = true;
+      }
 
-        final Queue<JPRAException> q = gc.getErrorQueue();
-        final Iterator<JPRAException> iter = q.iterator();
-        while (iter.hasNext()) {
-          final JPRAException e = iter.next();
-          fmt.onJPRAException(System.err, e);
-          iter.remove();
-          error = true;
-        }
-        System.err.flush();
+      final Queue<JPRAException> q = gc.getErrorQueue();
+      final Iterator<JPRAException> iter = q.iterator();
+      while (iter.hasNext()) {
+        final JPRAException e = iter.next();
+        fmt.onJPRAException(System.err, e);
+        iter.remove();
+        error = true;
       }
+      System.err.flush();
 
       if (error) {
         return Status.FAILURE;
@@ -272,6 +309,11 @@ public final class Main
       names = "--package")
     private List<String> packages = new ArrayList<>();
 
+    @Parameter(
+      description = "Optional generator features to enable (may be specified multiple times)",
+      names = "--feature")
+    private List<JPRAJavaGeneratorFeature> features = new ArrayList<>();
+
     /**
      * Construct a command.
      */
@@ -286,40 +328,136 @@ public final class Main
     {
       this.setup();
 
-      final JPRAJavaGeneratorType gen = JPRAJavaGenerator.newGenerator();
+      final JPRAJavaGeneratorType gen =
+        JPRAJavaGenerator.newGeneratorWithFeatures(Set.copyOf(this.features));
       final JPRAProblemFormatterType fmt = JPRAProblemFormatter.newFormatter();
       final JPRAJavaWriterType writer = JPRAJavaWriter.newWriter(gen);
 
       boolean error = false;
       final JPRADriverType driver = JPRADriver.newDriver(
         Paths.get(this.source_directory),
-        JPRACheckerStandardCapabilities.newCapabilities());
+        this.capabilities());
       final GlobalContextType gc = driver.getGlobalContext();
 
       final List<PackageNameQualified> pack_names = this.packages.stream().map(
         PackageNameQualified::valueOf).collect(Collectors.toList());
 
-      for (final PackageNameQualified pack_name : pack_names) {
-        LOG.debug("checking {}", pack_name);
+      LOG.debug("checking {}", pack_names);
+
+      try {
+        driver.compilePackages(pack_names);
+      } catch (final JPRAModelLoadingException e) {
+        error = true;
+      }
+
+      final Queue<JPRAException> q = gc.getErrorQueue();
+      final Iterator<JPRAException> iter = q.iterator();
+      while (iter.hasNext()) {
+        final JPRAException e = iter.next();
+        fmt.onJPRAException(System.err, e);
+        iter.remove();
+        error = true;
+      }
+
+      if (!error) {
+        LOG.debug("generating code");
+
+        final Map<PackageNameQualified, PackageContextType> packs =
+          gc.getPackages();
+
+        final List<PackageContextType> pack_list = pack_names.stream()
+          .map(packs::get)
+          .collect(Collectors.toList());
 
         try {
-          driver.compilePackage(pack_name);
-        } catch (final JPRAModelLoadingException e) {
+          writer.writePackages(Paths.get(this.target_directory), pack_list);
+        } catch (final IOException e) {
           error = true;
+          System.err.printf("i/o error: %s", e);
+          System.err.println();
         }
+      }
 
-        final Queue<JPRAException> q = gc.getErrorQueue();
-        final Iterator<JPRAException> iter = q.iterator();
-        while (iter.hasNext()) {
-          final JPRAException e = iter.next();
-          fmt.onJPRAException(System.err, e);
-          iter.remove();
-          error = true;
-        }
+      System.err.flush();
+      if (error) {
+        return Status.FAILURE;
+      }
+      return Status.SUCCESS;
+    }
+  }
+
+  /**
+   * A {@code generate-c} command.
+   */
+
+  @Parameters(commandDescription = "Generate C headers")
+  public static final class CommandGenerateC extends CommandType
+  {
+    @Parameter(
+      arity = 1,
+      description = "Source directory",
+      names = "--source-directory",
+      required = true)
+    private String source_directory;
+
+    @Parameter(
+      arity = 1,
+      description = "Target directory",
+      names = "--target-directory",
+      required = true)
+    private String target_directory;
+
+    @Parameter(
+      description = "Packages to be exported (may be specified multiple times)",
+      names = "--package")
+    private List<String> packages = new ArrayList<>();
+
+    /**
+     * Construct a command.
+     */
+
+    public CommandGenerateC()
+    {
+
+    }
+
+    @Override
+    public Status run()
+    {
+      this.setup();
+
+      final JPRAProblemFormatterType fmt = JPRAProblemFormatter.newFormatter();
+      final JPRACWriterType writer =
+        JPRACWriter.newWriter(JPRACGenerator.newGenerator());
+
+      boolean error = false;
+      final JPRADriverType driver = JPRADriver.newDriver(
+        Paths.get(this.source_directory),
+        this.capabilities());
+      final GlobalContextType gc = driver.getGlobalContext();
+
+      final List<PackageNameQualified> pack_names = this.packages.stream().map(
+        PackageNameQualified::valueOf).collect(Collectors.toList());
+
+      LOG.debug("checking {}", pack_names);
+
+      try {
+        driver.compilePackages(pack_names);
+      } catch (final JPRAModelLoadingException e) {
+        error = true;
+      }
+
+      final Queue<JPRAException> q = gc.getErrorQueue();
+      final Iterator<JPRAException> iter = q.iterator();
+      while (iter.hasNext()) {
+        final JPRAException e = iter.next();
+        fmt.onJPRAException(System.err, e);
+        iter.remove();
+        error = true;
       }
 
       if (!error) {
-        LOG.debug("generating code");
+        LOG.debug("generating headers");
 
         final Map<PackageNameQualified, PackageContextType> packs =
           gc.getPackages();
@@ -347,4 +485,127 @@ public final class Main
       return Status.SUCCESS;
     }
   }
+
+  /**
+   * A {@code generate-migrators} command.
+   */
+
+  @Parameters(commandDescription = "Generate migrators between two versions of a package")
+  public static final class CommandGenerateMigrators extends CommandType
+  {
+    @Parameter(
+      arity = 1,
+      description = "Source directory",
+      names = "--source-directory",
+      required = true)
+    private String source_directory;
+
+    @Parameter(
+      arity = 1,
+      description = "Target directory",
+      names = "--target-directory",
+      required = true)
+    private String target_directory;
+
+    @Parameter(
+      arity = 1,
+      description = "The package containing the old versions of types",
+      names = "--from-package",
+      required = true)
+    private String from_package;
+
+    @Parameter(
+      arity = 1,
+      description = "The package containing the new versions of types",
+      names = "--to-package",
+      required = true)
+    private String to_package;
+
+    /**
+     * Construct a command.
+     */
+
+    public CommandGenerateMigrators()
+    {
+
+    }
+
+    @Override
+    public Status run()
+    {
+      this.setup();
+
+      final JPRAJavaGeneratorType gen = JPRAJavaGenerator.newGenerator();
+      final JPRAProblemFormatterType fmt = JPRAProblemFormatter.newFormatter();
+      final JPRAJavaWriterType writer = JPRAJavaWriter.newWriter(gen);
+
+      boolean error = false;
+      final JPRADriverType driver = JPRADriver.newDriver(
+        Paths.get(this.source_directory),
+        this.capabilities());
+      final GlobalContextType gc = driver.getGlobalContext();
+
+      final PackageNameQualified from_name =
+        PackageNameQualified.valueOf(this.from_package);
+      final PackageNameQualified to_name =
+        PackageNameQualified.valueOf(this.to_package);
+
+      LOG.debug("checking {}", List.of(from_name, to_name));
+
+      try {
+        driver.compilePackages(List.of(from_name, to_name));
+      } catch (final JPRAModelLoadingException e) {
+        error = true;
+      }
+
+      final Queue<JPRAException> q = gc.getErrorQueue();
+      final Iterator<JPRAException> iter = q.iterator();
+      while (iter.hasNext()) {
+        final JPRAException e = iter.next();
+        fmt.onJPRAException(System.err, e);
+        iter.remove();
+        error = true;
+      }
+
+      if (!error) {
+        LOG.debug("generating migrators");
+
+        final Map<PackageNameQualified, PackageContextType> packs =
+          gc.getPackages();
+        final Map<TypeName, TypeUserDefinedType> from_types =
+          packs.get(from_name).getTypes();
+        final Map<TypeName, TypeUserDefinedType> to_types =
+          packs.get(to_name).getTypes();
+
+        for (final TypeName t_name : to_types.keySet()) {
+          final TypeUserDefinedType source = from_types.get(t_name);
+          final TypeUserDefinedType target = to_types.get(t_name);
+          if (!(source instanceof TRecord && target instanceof TRecord)) {
+            continue;
+          }
+
+          try {
+            writer.writeMigrator(
+              Paths.get(this.target_directory),
+              (TRecord) source,
+              (TRecord) target);
+          } catch (final IllegalArgumentException e) {
+            error = true;
+            System.err.printf("%s: %s", t_name.value(), e.getMessage());
+            System.err.println();
+          } catch (final IOException e) {
+            error = true;
+            System.err.printf("i/o error: %s", e);
+            System.err.println();
+          }
+        }
+      }
+
+      System.err.flush();
+      if (error) {
+        return Status.FAILURE;
+      }
+      return Status.SUCCESS;
+    }
+  }
 }
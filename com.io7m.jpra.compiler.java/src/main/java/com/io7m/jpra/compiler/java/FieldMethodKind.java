@@ -0,0 +1,52 @@
+/*
+ * Copyright © 2015 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.jpra.compiler.java;
+
+/**
+ * The kind of access performed by a generated field method.
+ */
+
+enum FieldMethodKind
+{
+  /**
+   * The method returns information about the field, and does not access
+   * the underlying buffer.
+   */
+
+  META,
+
+  /**
+   * The method reads the field from the underlying buffer, or returns a
+   * readable view of it.
+   */
+
+  READ,
+
+  /**
+   * The method writes the field to the underlying buffer, or returns a
+   * writable view of it.
+   */
+
+  WRITE,
+
+  /**
+   * The method only calls other methods of the same field, and so does not
+   * access the field itself.
+   */
+
+  DELEGATE
+}
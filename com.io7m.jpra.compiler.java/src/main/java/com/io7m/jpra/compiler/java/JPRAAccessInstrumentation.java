@@ -0,0 +1,315 @@
+/*
+ * Copyright © 2015 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.jpra.compiler.java;
+
+import com.io7m.jpra.model.types.TPacked;
+import com.io7m.jpra.model.types.TRecord;
+import com.io7m.jpra.runtime.java.JPRAAccessStatistics;
+import com.io7m.junreachable.UnreachableCodeException;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.FieldSpec;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.TypeSpec;
+
+import javax.lang.model.element.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Functions to generate implementations instrumented with per-field access
+ * counters.
+ *
+ * <p>The field processors add each method to a {@link FieldMethodSinkType}
+ * along with the kind of access that the method performs. The sinks returned
+ * here prepend a counter increment to each method that reads or writes a
+ * field, and add all other members unchanged. This keeps the uninstrumented
+ * output completely unaffected.</p>
+ */
+
+final class JPRAAccessInstrumentation
+{
+  private static final String STATISTICS_FIELD = "ACCESS_STATISTICS";
+
+  private JPRAAccessInstrumentation()
+  {
+    throw new UnreachableCodeException();
+  }
+
+  /**
+   * @param t The record type
+   *
+   * @return The names of the value fields of {@code t}, in declaration order
+   */
+
+  static List<String> recordFieldNames(
+    final TRecord t)
+  {
+    final List<String> names = new ArrayList<>(8);
+    for (final TRecord.FieldType f : t.getFieldsInDeclarationOrder()) {
+      f.matchField(
+        new TRecord.FieldMatcherType<Void, UnreachableCodeException>()
+        {
+          @Override
+          public Void matchFieldValue(
+            final TRecord.FieldValue f)
+          {
+            names.add(f.getName().value());
+            return null;
+          }
+
+          @Override
+          public Void matchFieldPaddingOctets(
+            final TRecord.FieldPaddingOctets f)
+          {
+            return null;
+          }
+        });
+    }
+    return names;
+  }
+
+  /**
+   * @param t The packed type
+   *
+   * @return The names of the value fields of {@code t}, in declaration order
+   */
+
+  static List<String> packedFieldNames(
+    final TPacked t)
+  {
+    final List<String> names = new ArrayList<>(8);
+    for (final TPacked.FieldType f : t.getFieldsInDeclarationOrder()) {
+      f.matchField(
+        new TPacked.FieldMatcherType<Void, UnreachableCodeException>()
+        {
+          @Override
+          public Void matchFieldValue(
+            final TPacked.FieldValue f)
+          {
+            names.add(f.getName().value());
+            return null;
+          }
+
+          @Override
+          public Void matchFieldPaddingBits(
+            final TPacked.FieldPaddingBits f)
+          {
+            return null;
+          }
+        });
+    }
+    return names;
+  }
+
+  /**
+   * @param jcb The class builder
+   *
+   * @return A sink that adds all members to {@code jcb} unchanged
+   */
+
+  static FieldMethodSinkType uninstrumented(
+    final TypeSpec.Builder jcb)
+  {
+    return new Uninstrumented(jcb);
+  }
+
+  /**
+   * Methods of kind {@link FieldMethodKind#READ} are counted as reads of the
+   * field at index {@code field}, and methods of kind {@link
+   * FieldMethodKind#WRITE} are counted as writes. Delegating methods, such as
+   * the normalized accessors that call the raw accessors, are not counted so
+   * that each access is only counted once.
+   *
+   * @param jcb   The class builder
+   * @param field The index of the field
+   *
+   * @return A sink that adds instrumented members to {@code jcb}
+   */
+
+  static FieldMethodSinkType instrumented(
+    final TypeSpec.Builder jcb,
+    final int field)
+  {
+    return new Instrumented(
+      jcb,
+      counter("recordRead", field),
+      counter("recordWrite", field));
+  }
+
+  /**
+   * Every access is counted as an access of all {@code field_count} fields.
+   * This is used for methods such as the packed {@code set} method that
+   * update every field at once.
+   *
+   * @param jcb         The class builder
+   * @param field_count The number of fields
+   *
+   * @return A sink that adds instrumented members to {@code jcb}
+   */
+
+  static FieldMethodSinkType instrumentedAllFields(
+    final TypeSpec.Builder jcb,
+    final int field_count)
+  {
+    final CodeBlock.Builder reads = CodeBlock.builder();
+    final CodeBlock.Builder writes = CodeBlock.builder();
+    for (int index = 0; index < field_count; ++index) {
+      reads.add(counter("recordRead", index));
+      writes.add(counter("recordWrite", index));
+    }
+    return new Instrumented(jcb, reads.build(), writes.build());
+  }
+
+  /**
+   * Generate the static statistics field and accessor method.
+   *
+   * @param jcb       The class builder
+   * @param type_name The name of the type
+   * @param fields    The names of the value fields, in declaration order
+   */
+
+  static void generateStatisticsField(
+    final TypeSpec.Builder jcb,
+    final String type_name,
+    final List<String> fields)
+  {
+    final CodeBlock.Builder init = CodeBlock.builder();
+    init.add("$T.create($S", JPRAAccessStatistics.class, type_name);
+    for (final String field : fields) {
+      init.add(", $S", field);
+    }
+    init.add(")");
+
+    final FieldSpec.Builder fb = FieldSpec.builder(
+      JPRAAccessStatistics.class,
+      STATISTICS_FIELD,
+      Modifier.PRIVATE,
+      Modifier.STATIC,
+      Modifier.FINAL);
+    fb.initializer(init.build());
+    jcb.addField(fb.build());
+
+    final MethodSpec.Builder jmb = MethodSpec.methodBuilder("accessStatistics");
+    jmb.addJavadoc(
+      "@return The access counters shared by all instances of this class\n");
+    jmb.addModifiers(Modifier.PUBLIC, Modifier.STATIC);
+    jmb.returns(JPRAAccessStatistics.class);
+    jmb.addStatement("return $N", STATISTICS_FIELD);
+    jcb.addMethod(jmb.build());
+  }
+
+  private static CodeBlock counter(
+    final String method,
+    final int field)
+  {
+    return CodeBlock.builder()
+      .addStatement(
+        "$N.$N($L)", STATISTICS_FIELD, method, Integer.valueOf(field))
+      .build();
+  }
+
+  private static MethodSpec prepend(
+    final MethodSpec m,
+    final CodeBlock code)
+  {
+    final MethodSpec.Builder jmb = MethodSpec.methodBuilder(m.name);
+    jmb.addJavadoc(m.javadoc);
+    jmb.addAnnotations(m.annotations);
+    jmb.addModifiers(m.modifiers);
+    jmb.addTypeVariables(m.typeVariables);
+    jmb.returns(m.returnType);
+    jmb.addParameters(m.parameters);
+    jmb.varargs(m.varargs);
+    jmb.addExceptions(m.exceptions);
+    jmb.addCode(code);
+    jmb.addCode(m.code);
+    return jmb.build();
+  }
+
+  private static final class Uninstrumented implements FieldMethodSinkType
+  {
+    private final TypeSpec.Builder jcb;
+
+    Uninstrumented(
+      final TypeSpec.Builder in_jcb)
+    {
+      this.jcb = Objects.requireNonNull(in_jcb, "Class builder");
+    }
+
+    @Override
+    public void addField(
+      final FieldSpec f)
+    {
+      this.jcb.addField(f);
+    }
+
+    @Override
+    public void addMethod(
+      final FieldMethodKind kind,
+      final MethodSpec m)
+    {
+      this.jcb.addMethod(m);
+    }
+  }
+
+  private static final class Instrumented implements FieldMethodSinkType
+  {
+    private final TypeSpec.Builder jcb;
+    private final CodeBlock read;
+    private final CodeBlock write;
+
+    Instrumented(
+      final TypeSpec.Builder in_jcb,
+      final CodeBlock in_read,
+      final CodeBlock in_write)
+    {
+      this.jcb = Objects.requireNonNull(in_jcb, "Class builder");
+      this.read = Objects.requireNonNull(in_read, "Read");
+      this.write = Objects.requireNonNull(in_write, "Write");
+    }
+
+    @Override
+    public void addField(
+      final FieldSpec f)
+    {
+      this.jcb.addField(f);
+    }
+
+    @Override
+    public void addMethod(
+      final FieldMethodKind kind,
+      final MethodSpec m)
+    {
+      switch (kind) {
+        case READ: {
+          this.jcb.addMethod(prepend(m, this.read));
+          break;
+        }
+        case WRITE: {
+          this.jcb.addMethod(prepend(m, this.write));
+          break;
+        }
+        case META:
+        case DELEGATE: {
+          this.jcb.addMethod(m);
+          break;
+        }
+      }
+    }
+  }
+}
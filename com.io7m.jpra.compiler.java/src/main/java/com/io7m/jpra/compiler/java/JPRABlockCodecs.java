@@ -0,0 +1,309 @@
+/*
+ * Copyright © 2015 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.jpra.compiler.java;
+
+import com.io7m.jpra.model.types.TArray;
+import com.io7m.jpra.model.types.TBooleanSet;
+import com.io7m.jpra.model.types.TFloat;
+import com.io7m.jpra.model.types.TIntegerType;
+import com.io7m.jpra.model.types.TMatrix;
+import com.io7m.jpra.model.types.TPacked;
+import com.io7m.jpra.model.types.TRecord;
+import com.io7m.jpra.model.types.TString;
+import com.io7m.jpra.model.types.TType;
+import com.io7m.jpra.model.types.TUnion;
+import com.io7m.jpra.model.types.TVector;
+import com.io7m.jpra.model.types.TypeMatcherType;
+import com.io7m.jpra.runtime.java.JPRABlockCodec;
+import com.io7m.junreachable.UnreachableCodeException;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.FieldSpec;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.TypeSpec;
+
+import javax.lang.model.element.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * Functions to divide records into the integer columns and raw ranges used
+ * by {@link JPRABlockCodec}, and to generate the codec constants.
+ */
+
+final class JPRABlockCodecs
+{
+  private JPRABlockCodecs()
+  {
+    throw new UnreachableCodeException();
+  }
+
+  /**
+   * Generate the {@code BLOCK_CODEC} constant and the static {@code
+   * blockCodec()} accessor for a record implementation class.
+   *
+   * @param t   The record type
+   * @param jcb The class builder
+   */
+
+  static void generateCodecField(
+    final TRecord t,
+    final TypeSpec.Builder jcb)
+  {
+    Objects.requireNonNull(t, "Type");
+    Objects.requireNonNull(jcb, "Class builder");
+
+    final List<Integer> columns = new ArrayList<>(16);
+    final List<Integer> raw = new ArrayList<>(4);
+    addRecord(t, columns, raw, 0);
+
+    final FieldSpec.Builder fb = FieldSpec.builder(
+      JPRABlockCodec.class,
+      "BLOCK_CODEC",
+      Modifier.FINAL,
+      Modifier.STATIC,
+      Modifier.PRIVATE);
+
+    fb.initializer(CodeBlock.of(
+      "$T.of($L, new int[]{$L}, new int[]{$L})",
+      JPRABlockCodec.class,
+      Integer.valueOf(t.getSizeInOctets().getValue().intValueExact()),
+      join(columns),
+      join(raw)));
+    jcb.addField(fb.build());
+
+    final MethodSpec.Builder jmb = MethodSpec.methodBuilder("blockCodec");
+    jmb.addJavadoc(
+      "@return A codec that compresses arrays of the type in blocks\n");
+    jmb.addModifiers(Modifier.PUBLIC);
+    jmb.addModifiers(Modifier.STATIC);
+    jmb.returns(JPRABlockCodec.class);
+    jmb.addStatement("return BLOCK_CODEC");
+    jcb.addMethod(jmb.build());
+  }
+
+  private static String join(
+    final List<Integer> values)
+  {
+    return values.stream()
+      .map(Object::toString)
+      .collect(Collectors.joining(", "));
+  }
+
+  private static int octets(
+    final TType t)
+  {
+    return t.getSizeInBits().getValue().intValueExact() / 8;
+  }
+
+  private static void addColumns(
+    final List<Integer> columns,
+    final List<Integer> raw,
+    final int offset,
+    final int count,
+    final int size)
+  {
+    for (int index = 0; index < count; ++index) {
+      addColumn(columns, raw, offset + (index * size), size);
+    }
+  }
+
+  private static void addColumn(
+    final List<Integer> columns,
+    final List<Integer> raw,
+    final int offset,
+    final int size)
+  {
+    if (size == 1 || size == 2 || size == 4 || size == 8) {
+      columns.add(Integer.valueOf(offset));
+      columns.add(Integer.valueOf(size));
+    } else {
+      addRaw(raw, offset, size);
+    }
+  }
+
+  /*
+   * Adjacent raw ranges are merged, so that consecutive strings and boolean
+   * sets are copied as a single range.
+   */
+
+  private static void addRaw(
+    final List<Integer> raw,
+    final int offset,
+    final int length)
+  {
+    final int count = raw.size();
+    if (count >= 2) {
+      final int p_offset = raw.get(count - 2).intValue();
+      final int p_length = raw.get(count - 1).intValue();
+      if (p_offset + p_length == offset) {
+        raw.set(count - 1, Integer.valueOf(p_length + length));
+        return;
+      }
+    }
+    raw.add(Integer.valueOf(offset));
+    raw.add(Integer.valueOf(length));
+  }
+
+  private static void addRecord(
+    final TRecord t,
+    final List<Integer> columns,
+    final List<Integer> raw,
+    final int offset)
+  {
+    int field_offset = offset;
+    for (final TRecord.FieldType f : t.getFieldsInDeclarationOrder()) {
+      final int o = field_offset;
+      f.matchField(
+        new TRecord.FieldMatcherType<Void, UnreachableCodeException>()
+        {
+          @Override
+          public Void matchFieldValue(
+            final TRecord.FieldValue f)
+          {
+            addType(f.getType(), columns, raw, o);
+            return null;
+          }
+
+          @Override
+          public Void matchFieldPaddingOctets(
+            final TRecord.FieldPaddingOctets f)
+          {
+            return null;
+          }
+        });
+      field_offset += f.getSizeInOctets().getValue().intValueExact();
+    }
+  }
+
+  private static void addType(
+    final TType t,
+    final List<Integer> columns,
+    final List<Integer> raw,
+    final int offset)
+  {
+    t.matchType(new ColumnCollector(columns, raw, offset));
+  }
+
+  /**
+   * A type matcher that adds the columns and raw ranges of a type at a
+   * given offset.
+   */
+
+  private static final class ColumnCollector
+    implements TypeMatcherType<Void, UnreachableCodeException>
+  {
+    private final List<Integer> columns;
+    private final List<Integer> raw;
+    private final int offset;
+
+    ColumnCollector(
+      final List<Integer> in_columns,
+      final List<Integer> in_raw,
+      final int in_offset)
+    {
+      this.columns = Objects.requireNonNull(in_columns, "Columns");
+      this.raw = Objects.requireNonNull(in_raw, "Raw");
+      this.offset = in_offset;
+    }
+
+    @Override
+    public Void matchArray(final TArray t)
+    {
+      final TType e = t.getElementType();
+      final int count = t.getElementCount().getValue().intValueExact();
+      final int e_size = octets(e);
+      for (int index = 0; index < count; ++index) {
+        addType(e, this.columns, this.raw, this.offset + (index * e_size));
+      }
+      return null;
+    }
+
+    @Override
+    public Void matchString(final TString t)
+    {
+      addRaw(this.raw, this.offset, octets(t));
+      return null;
+    }
+
+    @Override
+    public Void matchBooleanSet(final TBooleanSet t)
+    {
+      addRaw(this.raw, this.offset, octets(t));
+      return null;
+    }
+
+    @Override
+    public Void matchInteger(final TIntegerType t)
+    {
+      addColumn(this.columns, this.raw, this.offset, octets(t));
+      return null;
+    }
+
+    @Override
+    public Void matchFloat(final TFloat t)
+    {
+      addColumn(this.columns, this.raw, this.offset, octets(t));
+      return null;
+    }
+
+    @Override
+    public Void matchVector(final TVector t)
+    {
+      final int count = t.getElementCount().getValue().intValueExact();
+      addColumns(
+        this.columns, this.raw, this.offset, count, octets(t.getElementType()));
+      return null;
+    }
+
+    @Override
+    public Void matchMatrix(final TMatrix t)
+    {
+      final int count = t.getWidth().getValue().intValueExact()
+        * t.getHeight().getValue().intValueExact();
+      addColumns(
+        this.columns, this.raw, this.offset, count, octets(t.getElementType()));
+      return null;
+    }
+
+    @Override
+    public Void matchRecord(final TRecord t)
+    {
+      addRecord(t, this.columns, this.raw, this.offset);
+      return null;
+    }
+
+    @Override
+    public Void matchPacked(final TPacked t)
+    {
+      addColumn(this.columns, this.raw, this.offset, octets(t));
+      return null;
+    }
+
+    @Override
+    public Void matchUnion(final TUnion t)
+    {
+      final int tag = t.getTagSizeInOctets().getValue().intValueExact();
+      final int payload =
+        t.getPayloadSizeInOctets().getValue().intValueExact();
+      addColumn(this.columns, this.raw, this.offset, tag);
+      addRaw(this.raw, this.offset + tag, payload);
+      return null;
+    }
+  }
+}
@@ -29,6 +29,7 @@ import com.io7m.jpra.model.types.TPacked;
 import com.io7m.jpra.model.types.TRecord;
 import com.io7m.jpra.model.types.TString;
 import com.io7m.jpra.model.types.TType;
+import com.io7m.jpra.model.types.TUnion;
 import com.io7m.jpra.model.types.TVector;
 import com.io7m.jpra.model.types.TypeIntegerMatcherType;
 import com.io7m.jpra.model.types.TypeMatcherType;
@@ -601,6 +602,13 @@ final class JPRAClasses
     {
       return ClassName.get(JPRATypeModel.JPRAUserDefined.class);
     }
+
+    @Override
+    public ClassName matchUnion(
+      final TUnion t)
+    {
+      return ClassName.get(JPRATypeModel.JPRAUserDefined.class);
+    }
   }
 
   private static final class ModelClassForScalarType
@@ -0,0 +1,496 @@
+/*
+ * Copyright © 2015 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.jpra.compiler.java;
+
+import com.io7m.ieee754b16.Binary16;
+import com.io7m.jpra.model.names.FieldName;
+import com.io7m.jpra.model.types.TArray;
+import com.io7m.jpra.model.types.TBooleanSet;
+import com.io7m.jpra.model.types.TFloat;
+import com.io7m.jpra.model.types.TIntegerSigned;
+import com.io7m.jpra.model.types.TIntegerSignedNormalized;
+import com.io7m.jpra.model.types.TIntegerType;
+import com.io7m.jpra.model.types.TIntegerUnsigned;
+import com.io7m.jpra.model.types.TIntegerUnsignedNormalized;
+import com.io7m.jpra.model.types.TMatrix;
+import com.io7m.jpra.model.types.TPacked;
+import com.io7m.jpra.model.types.TRecord;
+import com.io7m.jpra.model.types.TString;
+import com.io7m.jpra.model.types.TUnion;
+import com.io7m.jpra.model.types.TVector;
+import com.io7m.jpra.model.types.TypeIntegerMatcherType;
+import com.io7m.jpra.model.types.TypeMatcherType;
+import com.io7m.jpra.model.types.TypeScalarMatcherType;
+import com.io7m.jpra.runtime.java.JPRACursor1DType;
+import com.io7m.junreachable.UnimplementedCodeException;
+import com.io7m.junreachable.UnreachableCodeException;
+import com.squareup.javapoet.ArrayTypeName;
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.ParameterizedTypeName;
+import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.TypeSpec;
+import com.squareup.javapoet.WildcardTypeName;
+
+import javax.lang.model.element.Modifier;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Functions to generate column gather and scatter methods, which copy a
+ * single scalar field or vector component of a range of elements to or
+ * from a primitive array.
+ */
+
+final class JPRAColumnAccess
+{
+  private static final String[] COMPONENTS = {"X", "Y", "Z", "W"};
+
+  private JPRAColumnAccess()
+  {
+    throw new UnreachableCodeException();
+  }
+
+  /**
+   * Generate gather and scatter methods for every column of the given
+   * record type. Columns are scalar integer and floating point fields, and
+   * the components of vector fields. Other fields are ignored.
+   *
+   * @param t        The record type
+   * @param imp_name The name of the implementation class
+   * @param int_name The name of the record interface
+   * @param jcb      The implementation class builder
+   */
+
+  static void generateColumnMethods(
+    final TRecord t,
+    final ClassName imp_name,
+    final ClassName int_name,
+    final TypeSpec.Builder jcb)
+  {
+    final List<Column> columns = new ArrayList<>(16);
+    for (final TRecord.FieldType f : t.getFieldsInDeclarationOrder()) {
+      f.matchField(
+        new TRecord.FieldMatcherType<Void, UnreachableCodeException>()
+        {
+          @Override
+          public Void matchFieldValue(
+            final TRecord.FieldValue f)
+          {
+            return f.getType().matchType(new ColumnCollector(f, columns));
+          }
+
+          @Override
+          public Void matchFieldPaddingOctets(
+            final TRecord.FieldPaddingOctets f)
+          {
+            return null;
+          }
+        });
+    }
+
+    final TypeName cursor = ParameterizedTypeName.get(
+      ClassName.get(JPRACursor1DType.class),
+      WildcardTypeName.subtypeOf(int_name));
+
+    for (final Column c : columns) {
+      jcb.addMethod(generateGather(imp_name, cursor, c));
+      jcb.addMethod(generateScatter(imp_name, cursor, c));
+    }
+  }
+
+  private static void generatePrologue(
+    final MethodSpec.Builder jmb,
+    final ClassName imp_name,
+    final Column c,
+    final String array)
+  {
+    jmb.addStatement("$T.requireNonNull(cursor, $S)", Objects.class, "Cursor");
+    jmb.addStatement(
+      "$T.requireNonNull($N, $S)", Objects.class, array, "Array");
+    jmb.addStatement(
+      "$T.checkFromToIndex(from, to, $T.MAX_VALUE)",
+      Objects.class,
+      Integer.class);
+    jmb.addStatement(
+      "$T.checkFromIndexSize($N_offset, to - from, $N.length)",
+      Objects.class,
+      array,
+      array);
+    jmb.addStatement(
+      "final $T view = ($T) cursor.getElementView()", imp_name, imp_name);
+    jmb.addStatement("final $T b = view.buffer", ByteBuffer.class);
+    jmb.addStatement(
+      "int offset = view.base_offset + $N + $L + (from * SIZE_OCTETS)",
+      JPRAGeneratedNames.getOffsetConstantName(c.field),
+      Integer.valueOf(c.component_offset));
+  }
+
+  private static MethodSpec generateGather(
+    final ClassName imp_name,
+    final TypeName cursor,
+    final Column c)
+  {
+    final MethodSpec.Builder jmb = MethodSpec.methodBuilder(
+      JPRAGeneratedNames.getColumnGatherName(c.field, c.suffix));
+    jmb.addJavadoc(
+      "Copy $L of the elements {@code [from, to)} of {@code cursor} to "
+        + "{@code dst}, starting at {@code dst_offset}. The buffer is read "
+        + "directly at a fixed stride, and the cursor index is unchanged. "
+        + "The element views of {@code cursor} must be instances of this "
+        + "class.\n\n",
+      c.description);
+    jmb.addJavadoc("@param cursor     The source cursor\n");
+    jmb.addJavadoc(
+      "@param from       The index of the first element (inclusive)\n");
+    jmb.addJavadoc(
+      "@param to         The index of the last element (exclusive)\n");
+    jmb.addJavadoc("@param dst        The destination array\n");
+    jmb.addJavadoc("@param dst_offset The index of the first array element\n");
+    jmb.addModifiers(Modifier.PUBLIC, Modifier.STATIC);
+    jmb.addParameter(cursor, "cursor", Modifier.FINAL);
+    jmb.addParameter(int.class, "from", Modifier.FINAL);
+    jmb.addParameter(int.class, "to", Modifier.FINAL);
+    jmb.addParameter(ArrayTypeName.of(c.type), "dst", Modifier.FINAL);
+    jmb.addParameter(int.class, "dst_offset", Modifier.FINAL);
+
+    generatePrologue(jmb, imp_name, c, "dst");
+    jmb.addStatement("final int end = dst_offset + (to - from)");
+    jmb.beginControlFlow(
+      "for (int index = dst_offset; index < end; ++index)");
+    if (c.binary16) {
+      jmb.addStatement(
+        "dst[index] = $T.unpackDouble(b.$N(offset))", Binary16.class, c.get);
+    } else {
+      jmb.addStatement("dst[index] = b.$N(offset)", c.get);
+    }
+    jmb.addStatement("offset += SIZE_OCTETS");
+    jmb.endControlFlow();
+    return jmb.build();
+  }
+
+  private static MethodSpec generateScatter(
+    final ClassName imp_name,
+    final TypeName cursor,
+    final Column c)
+  {
+    final MethodSpec.Builder jmb = MethodSpec.methodBuilder(
+      JPRAGeneratedNames.getColumnScatterName(c.field, c.suffix));
+    jmb.addJavadoc(
+      "Copy values from {@code src}, starting at {@code src_offset}, to $L "
+        + "of the elements {@code [from, to)} of {@code cursor}. The buffer "
+        + "is written directly at a fixed stride, and the cursor index is "
+        + "unchanged. The element views of {@code cursor} must be instances "
+        + "of this class.\n\n",
+      c.description);
+    jmb.addJavadoc("@param cursor     The target cursor\n");
+    jmb.addJavadoc(
+      "@param from       The index of the first element (inclusive)\n");
+    jmb.addJavadoc(
+      "@param to         The index of the last element (exclusive)\n");
+    jmb.addJavadoc("@param src        The source array\n");
+    jmb.addJavadoc("@param src_offset The index of the first array element\n");
+    jmb.addModifiers(Modifier.PUBLIC, Modifier.STATIC);
+    jmb.addParameter(cursor, "cursor", Modifier.FINAL);
+    jmb.addParameter(int.class, "from", Modifier.FINAL);
+    jmb.addParameter(int.class, "to", Modifier.FINAL);
+    jmb.addParameter(ArrayTypeName.of(c.type), "src", Modifier.FINAL);
+    jmb.addParameter(int.class, "src_offset", Modifier.FINAL);
+
+    generatePrologue(jmb, imp_name, c, "src");
+    jmb.addStatement("final int end = src_offset + (to - from)");
+    jmb.beginControlFlow(
+      "for (int index = src_offset; index < end; ++index)");
+    if (c.binary16) {
+      jmb.addStatement(
+        "b.$N(offset, $T.packDouble(src[index]))", c.put, Binary16.class);
+    } else {
+      jmb.addStatement("b.$N(offset, src[index])", c.put);
+    }
+    jmb.addStatement("offset += SIZE_OCTETS");
+    jmb.endControlFlow();
+    return jmb.build();
+  }
+
+  private static Column integerColumn(
+    final FieldName field,
+    final String suffix,
+    final String description,
+    final int component_offset,
+    final BigInteger size)
+  {
+    if (size.compareTo(BigInteger.valueOf(64L)) > 0) {
+      throw new UnimplementedCodeException();
+    }
+    if (size.compareTo(BigInteger.valueOf(32L)) > 0) {
+      return new Column(
+        field, suffix, description, component_offset,
+        TypeName.LONG, "getLong", "putLong", false);
+    }
+    if (size.compareTo(BigInteger.valueOf(16L)) > 0) {
+      return new Column(
+        field, suffix, description, component_offset,
+        TypeName.INT, "getInt", "putInt", false);
+    }
+    if (size.compareTo(BigInteger.valueOf(8L)) > 0) {
+      return new Column(
+        field, suffix, description, component_offset,
+        TypeName.SHORT, "getShort", "putShort", false);
+    }
+    return new Column(
+      field, suffix, description, component_offset,
+      TypeName.BYTE, "get", "put", false);
+  }
+
+  /*
+    16-bit floating point values are exposed as doubles by the generated
+    interfaces, and so their columns are double arrays.
+   */
+
+  private static Column floatColumn(
+    final FieldName field,
+    final String suffix,
+    final String description,
+    final int component_offset,
+    final BigInteger size)
+  {
+    if (size.compareTo(BigInteger.valueOf(64L)) > 0) {
+      throw new UnimplementedCodeException();
+    }
+    if (size.compareTo(BigInteger.valueOf(32L)) > 0) {
+      return new Column(
+        field, suffix, description, component_offset,
+        TypeName.DOUBLE, "getDouble", "putDouble", false);
+    }
+    if (size.compareTo(BigInteger.valueOf(16L)) > 0) {
+      return new Column(
+        field, suffix, description, component_offset,
+        TypeName.FLOAT, "getFloat", "putFloat", false);
+    }
+    return new Column(
+      field, suffix, description, component_offset,
+      TypeName.DOUBLE, "getChar", "putChar", true);
+  }
+
+  private static final class Column
+  {
+    private final FieldName field;
+    private final String suffix;
+    private final String description;
+    private final int component_offset;
+    private final TypeName type;
+    private final String get;
+    private final String put;
+    private final boolean binary16;
+
+    Column(
+      final FieldName in_field,
+      final String in_suffix,
+      final String in_description,
+      final int in_component_offset,
+      final TypeName in_type,
+      final String in_get,
+      final String in_put,
+      final boolean in_binary16)
+    {
+      this.field = Objects.requireNonNull(in_field, "Field");
+      this.suffix = Objects.requireNonNull(in_suffix, "Suffix");
+      this.description = Objects.requireNonNull(in_description, "Description");
+      this.component_offset = in_component_offset;
+      this.type = Objects.requireNonNull(in_type, "Type");
+      this.get = Objects.requireNonNull(in_get, "Get");
+      this.put = Objects.requireNonNull(in_put, "Put");
+      this.binary16 = in_binary16;
+    }
+  }
+
+  /**
+   * A matcher that yields the suffix of the column methods of an integer
+   * field: normalized integer columns hold the raw integer values.
+   */
+
+  private static final class IntegerColumnSuffix
+    implements TypeIntegerMatcherType<String, UnreachableCodeException>
+  {
+    IntegerColumnSuffix()
+    {
+
+    }
+
+    @Override
+    public String matchIntegerUnsigned(
+      final TIntegerUnsigned t)
+    {
+      return "";
+    }
+
+    @Override
+    public String matchIntegerSigned(
+      final TIntegerSigned t)
+    {
+      return "";
+    }
+
+    @Override
+    public String matchIntegerSignedNormalized(
+      final TIntegerSignedNormalized t)
+    {
+      return "Raw";
+    }
+
+    @Override
+    public String matchIntegerUnsignedNormalized(
+      final TIntegerUnsignedNormalized t)
+    {
+      return "Raw";
+    }
+  }
+
+  private static final class ColumnCollector
+    implements TypeMatcherType<Void, UnreachableCodeException>
+  {
+    private final TRecord.FieldValue field;
+    private final List<Column> columns;
+
+    ColumnCollector(
+      final TRecord.FieldValue in_field,
+      final List<Column> in_columns)
+    {
+      this.field = Objects.requireNonNull(in_field, "Field");
+      this.columns = Objects.requireNonNull(in_columns, "Columns");
+    }
+
+    private String describe()
+    {
+      return String.format(
+        "the {@code %s} field", this.field.getName().value());
+    }
+
+    @Override
+    public Void matchArray(final TArray t)
+    {
+      return null;
+    }
+
+    @Override
+    public Void matchString(final TString t)
+    {
+      return null;
+    }
+
+    @Override
+    public Void matchBooleanSet(final TBooleanSet t)
+    {
+      return null;
+    }
+
+    @Override
+    public Void matchInteger(final TIntegerType t)
+    {
+      final FieldName f_name = this.field.getName();
+      final BigInteger size = t.getSizeInBits().getValue();
+
+      /*
+        Normalized integer columns hold the raw integer values.
+       */
+
+      final String suffix = t.matchTypeInteger(new IntegerColumnSuffix());
+
+      final String description = suffix.isEmpty()
+        ? this.describe()
+        : String.format("the raw values of %s", this.describe());
+      this.columns.add(integerColumn(f_name, suffix, description, 0, size));
+      return null;
+    }
+
+    @Override
+    public Void matchFloat(final TFloat t)
+    {
+      this.columns.add(floatColumn(
+        this.field.getName(),
+        "",
+        this.describe(),
+        0,
+        t.getSizeInBits().getValue()));
+      return null;
+    }
+
+    @Override
+    public Void matchVector(final TVector t)
+    {
+      final FieldName f_name = this.field.getName();
+      final BigInteger e_size = t.getElementType().getSizeInBits().getValue();
+      final int e_octets = e_size.intValueExact() / 8;
+      final int count = t.getElementCount().getValue().intValueExact();
+
+      for (int index = 0; index < count; ++index) {
+        final String suffix = COMPONENTS[index];
+        final String description = String.format(
+          "the {@code %s} component of %s",
+          suffix.toLowerCase(),
+          this.describe());
+        final int offset = index * e_octets;
+
+        this.columns.add(t.getElementType().matchTypeScalar(
+          new TypeScalarMatcherType<Column, UnreachableCodeException>()
+          {
+            @Override
+            public Column matchScalarInteger(
+              final TIntegerType t)
+            {
+              return integerColumn(f_name, suffix, description, offset, e_size);
+            }
+
+            @Override
+            public Column matchScalarFloat(
+              final TFloat t)
+            {
+              return floatColumn(f_name, suffix, description, offset, e_size);
+            }
+          }));
+      }
+      return null;
+    }
+
+    @Override
+    public Void matchMatrix(final TMatrix t)
+    {
+      return null;
+    }
+
+    @Override
+    public Void matchRecord(final TRecord t)
+    {
+      return null;
+    }
+
+    @Override
+    public Void matchPacked(final TPacked t)
+    {
+      return null;
+    }
+
+    @Override
+    public Void matchUnion(final TUnion t)
+    {
+      return null;
+    }
+  }
+}
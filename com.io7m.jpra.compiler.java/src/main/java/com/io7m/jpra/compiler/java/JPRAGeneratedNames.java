@@ -18,6 +18,7 @@ package com.io7m.jpra.compiler.java;
 
 import com.io7m.jpra.model.names.FieldName;
 import com.io7m.jpra.model.names.TypeName;
+import com.io7m.jpra.model.names.UnionCaseName;
 import com.io7m.junreachable.UnreachableCodeException;
 import io.vavr.collection.List;
 
@@ -175,6 +176,77 @@ final class JPRAGeneratedNames
     return t.value() + "ByteBuffered";
   }
 
+  static String getRecordValueName(final TypeName t)
+  {
+    return t.value() + "Value";
+  }
+
+  static String getPackedValueName(final TypeName t)
+  {
+    return t.value() + "Value";
+  }
+
+  static String getUnionImplementationByteBufferedName(final TypeName t)
+  {
+    return t.value() + "ByteBuffered";
+  }
+
+  static String getUnionInterfaceReadableName(final TypeName t)
+  {
+    return t.value() + "ReadableType";
+  }
+
+  static String getUnionInterfaceWritableName(final TypeName t)
+  {
+    return t.value() + "WritableType";
+  }
+
+  static String getUnionInterfaceName(final TypeName t)
+  {
+    return t.value() + "Type";
+  }
+
+  static String getUnionMatcherName(final TypeName t)
+  {
+    return t.value() + "MatcherType";
+  }
+
+  static String getUnionTagConstantName(final UnionCaseName name)
+  {
+    final String raw = name.value();
+    return "TAG_" + raw.replaceAll("([a-z0-9])([A-Z])", "$1_$2").toUpperCase();
+  }
+
+  static String getUnionCaseReadableName(final UnionCaseName name)
+  {
+    return "get" + getRecased(name.value()) + "Readable";
+  }
+
+  static String getUnionCaseWritableName(final UnionCaseName name)
+  {
+    return "get" + getRecased(name.value()) + "Writable";
+  }
+
+  static String getUnionCaseSelectName(final UnionCaseName name)
+  {
+    return "select" + getRecased(name.value());
+  }
+
+  static String getUnionCaseMatchName(final UnionCaseName name)
+  {
+    return "match" + getRecased(name.value());
+  }
+
+  static String getUnionCaseFieldName(final UnionCaseName name)
+  {
+    return "case_" + name.value();
+  }
+
+  static String getRecordMigratorName(final TypeName t)
+  {
+    return t.value() + "Migrator";
+  }
+
   static String getNormalizedRawGetterName(final FieldName name)
   {
     final String text = getRecased(name.value());
@@ -185,6 +257,30 @@ final class JPRAGeneratedNames
     return sb.toString();
   }
 
+  static String getColumnGatherName(
+    final FieldName name,
+    final String suffix)
+  {
+    final String text = getRecased(name.value());
+    final StringBuilder sb = new StringBuilder(128);
+    sb.append("gather");
+    sb.append(text);
+    sb.append(suffix);
+    return sb.toString();
+  }
+
+  static String getColumnScatterName(
+    final FieldName name,
+    final String suffix)
+  {
+    final String text = getRecased(name.value());
+    final StringBuilder sb = new StringBuilder(128);
+    sb.append("scatter");
+    sb.append(text);
+    sb.append(suffix);
+    return sb.toString();
+  }
+
   static String getNormalizedRawSetterName(final FieldName name)
   {
     final String text = getRecased(name.value());
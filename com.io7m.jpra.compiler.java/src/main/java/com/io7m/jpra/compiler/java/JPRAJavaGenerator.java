@@ -16,6 +16,7 @@
 
 package com.io7m.jpra.compiler.java;
 
+import com.io7m.jaffirm.core.Preconditions;
 import com.io7m.jpra.model.contexts.PackageContextType;
 import com.io7m.jpra.model.names.TypeName;
 import com.io7m.jpra.model.types.Size;
@@ -23,6 +24,8 @@ import com.io7m.jpra.model.types.SizeUnitOctetsType;
 import com.io7m.jpra.model.types.TPacked;
 import com.io7m.jpra.model.types.TRecord;
 import com.io7m.jpra.model.types.TType;
+import com.io7m.jpra.model.types.TUnion;
+import com.io7m.jpra.runtime.java.JPRAByteBufferedRebindableType;
 import com.io7m.jpra.runtime.java.JPRACursorByteReadableType;
 import com.io7m.jpra.runtime.java.JPRAValueType;
 import com.io7m.junreachable.UnreachableCodeException;
@@ -39,7 +42,12 @@ import java.io.OutputStreamWriter;
 import java.math.BigInteger;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
 import java.util.Objects;
+import java.util.Set;
 
 /**
  * The default implementation of the {@link JPRAJavaGeneratorType} interface.
@@ -47,9 +55,12 @@ import java.util.Objects;
 
 public final class JPRAJavaGenerator implements JPRAJavaGeneratorType
 {
-  private JPRAJavaGenerator()
-  {
+  private final Set<JPRAJavaGeneratorFeature> features;
 
+  private JPRAJavaGenerator(
+    final EnumSet<JPRAJavaGeneratorFeature> in_features)
+  {
+    this.features = Collections.unmodifiableSet(in_features);
   }
 
   /**
@@ -58,16 +69,59 @@ public final class JPRAJavaGenerator implements JPRAJavaGeneratorType
 
   public static JPRAJavaGeneratorType newGenerator()
   {
-    return new JPRAJavaGenerator();
+    return new JPRAJavaGenerator(EnumSet.noneOf(JPRAJavaGeneratorFeature.class));
+  }
+
+  /**
+   * @param in_features The optional features that will be enabled
+   *
+   * @return A new generator
+   */
+
+  public static JPRAJavaGeneratorType newGeneratorWithFeatures(
+    final Set<JPRAJavaGeneratorFeature> in_features)
+  {
+    final EnumSet<JPRAJavaGeneratorFeature> copy =
+      EnumSet.noneOf(JPRAJavaGeneratorFeature.class);
+    copy.addAll(Objects.requireNonNull(in_features, "Features"));
+    return new JPRAJavaGenerator(copy);
   }
 
   private static void generateRecordFieldMethods(
     final TRecord t,
-    final TypeSpec.Builder jcb)
+    final TypeSpec.Builder jcb,
+    final boolean statistics)
   {
+    final List<String> names = JPRAAccessInstrumentation.recordFieldNames(t);
+    if (statistics) {
+      JPRAAccessInstrumentation.generateStatisticsField(
+        jcb, t.getName().value(), names);
+    }
+
     BigInteger offset = BigInteger.ZERO;
     for (final TRecord.FieldType f : t.getFieldsInDeclarationOrder()) {
-      final BigInteger o = offset;
+      f.matchField(
+        new RecordFieldImplementer(jcb, statistics, names, offset));
+      offset = offset.add(f.getSizeInOctets().getValue());
+    }
+  }
+
+  private static void generateRecordRebindMethod(
+    final TRecord t,
+    final TypeSpec.Builder jcb)
+  {
+    final MethodSpec.Builder jmb = MethodSpec.methodBuilder("rebind");
+    jmb.addModifiers(Modifier.PUBLIC);
+    jmb.addAnnotation(Override.class);
+    jmb.addParameter(ByteBuffer.class, "in_buffer", Modifier.FINAL);
+    jmb.addStatement(
+      "this.$N = $T.requireNonNull($N, $S)",
+      "buffer",
+      Objects.class,
+      "in_buffer",
+      "Buffer");
+
+    for (final TRecord.FieldType f : t.getFieldsInDeclarationOrder()) {
       f.matchField(
         new TRecord.FieldMatcherType<Void, UnreachableCodeException>()
         {
@@ -76,10 +130,8 @@ public final class JPRAJavaGenerator implements JPRAJavaGeneratorType
             final TRecord.FieldValue f)
           {
             final TType t = f.getType();
-            return t.matchType(new RecordFieldImplementationProcessor(
-              f,
-              o,
-              jcb));
+            return t.matchType(
+              new RecordFieldImplementationRebindProcessor(f, jmb));
           }
 
           @Override
@@ -89,11 +141,28 @@ public final class JPRAJavaGenerator implements JPRAJavaGeneratorType
             return null;
           }
         });
-      offset = offset.add(f.getSizeInOctets().getValue());
     }
+
+    jcb.addMethod(jmb.build());
+  }
+
+  private static void generatePackedRebindMethod(
+    final TypeSpec.Builder jcb)
+  {
+    final MethodSpec.Builder jmb = MethodSpec.methodBuilder("rebind");
+    jmb.addModifiers(Modifier.PUBLIC);
+    jmb.addAnnotation(Override.class);
+    jmb.addParameter(ByteBuffer.class, "in_buffer", Modifier.FINAL);
+    jmb.addStatement(
+      "this.$N = $T.requireNonNull($N, $S)",
+      "buffer",
+      Objects.class,
+      "in_buffer",
+      "Buffer");
+    jcb.addMethod(jmb.build());
   }
 
-  private static void generateRecordByteOffsetMethod(
+  static void generateRecordByteOffsetMethod(
     final TypeSpec.Builder jcb)
   {
     final MethodSpec.Builder jmb = MethodSpec.methodBuilder("getByteOffsetFor");
@@ -122,7 +191,7 @@ public final class JPRAJavaGenerator implements JPRAJavaGeneratorType
     jcb.addMethod(jmb.build());
   }
 
-  private static void generateSizeMethods(
+  static void generateSizeMethods(
     final TypeSpec.Builder jcb,
     final Size<SizeUnitOctetsType> size)
   {
@@ -156,7 +225,7 @@ public final class JPRAJavaGenerator implements JPRAJavaGeneratorType
     }
   }
 
-  private static void generateRecordFactoryMethods(
+  static void generateRecordFactoryMethods(
     final ClassName imp_name,
     final ClassName int_name,
     final ClassName ptr_class,
@@ -337,6 +406,30 @@ public final class JPRAJavaGenerator implements JPRAJavaGeneratorType
     jcb.addMethod(jmb.build());
   }
 
+  @Override
+  public Set<JPRAJavaGeneratorFeature> getFeatures()
+  {
+    return this.features;
+  }
+
+  @Override
+  public String getRecordValueName(final TypeName t)
+  {
+    return JPRAGeneratedNames.getRecordValueName(t);
+  }
+
+  @Override
+  public String getPackedValueName(final TypeName t)
+  {
+    return JPRAGeneratedNames.getPackedValueName(t);
+  }
+
+  @Override
+  public String getRecordMigratorName(final TypeName t)
+  {
+    return JPRAGeneratedNames.getRecordMigratorName(t);
+  }
+
   @Override
   public String getRecordImplementationByteBufferedName(final TypeName t)
   {
@@ -385,6 +478,36 @@ public final class JPRAJavaGenerator implements JPRAJavaGeneratorType
     return JPRAGeneratedNames.getPackedInterfaceName(t);
   }
 
+  @Override
+  public String getUnionImplementationByteBufferedName(final TypeName t)
+  {
+    return JPRAGeneratedNames.getUnionImplementationByteBufferedName(t);
+  }
+
+  @Override
+  public String getUnionInterfaceReadableName(final TypeName t)
+  {
+    return JPRAGeneratedNames.getUnionInterfaceReadableName(t);
+  }
+
+  @Override
+  public String getUnionInterfaceWritableName(final TypeName t)
+  {
+    return JPRAGeneratedNames.getUnionInterfaceWritableName(t);
+  }
+
+  @Override
+  public String getUnionInterfaceName(final TypeName t)
+  {
+    return JPRAGeneratedNames.getUnionInterfaceName(t);
+  }
+
+  @Override
+  public String getUnionMatcherName(final TypeName t)
+  {
+    return JPRAGeneratedNames.getUnionMatcherName(t);
+  }
+
   @Override
   public void generateRecordImplementation(
     final TRecord t,
@@ -412,10 +535,10 @@ public final class JPRAJavaGenerator implements JPRAJavaGeneratorType
         "A {@code ByteBuffer} based implementation of the {@code $L} record type.",
         t_name);
       jcb.addSuperinterface(int_name);
+      jcb.addSuperinterface(JPRAByteBufferedRebindableType.class);
       jcb.addModifiers(Modifier.PUBLIC, Modifier.FINAL);
 
-      jcb.addField(
-        ByteBuffer.class, "buffer", Modifier.PRIVATE, Modifier.FINAL);
+      jcb.addField(ByteBuffer.class, "buffer", Modifier.PRIVATE);
       jcb.addField(
         int.class, "base_offset", Modifier.PRIVATE, Modifier.FINAL);
       jcb.addField(ptr_class, "pointer", Modifier.PRIVATE, Modifier.FINAL);
@@ -424,8 +547,28 @@ public final class JPRAJavaGenerator implements JPRAJavaGeneratorType
       generateRecordFactoryMethods(
         imp_name, int_name, ptr_class, jcb);
       generateSizeMethods(jcb, t.getSizeInOctets());
+      generateRecordRebindMethod(t, jcb);
       generateRecordByteOffsetMethod(jcb);
-      generateRecordFieldMethods(t, jcb);
+      generateRecordFieldMethods(
+        t,
+        jcb,
+        this.features.contains(JPRAJavaGeneratorFeature.ACCESS_STATISTICS));
+
+      if (this.features.contains(JPRAJavaGeneratorFeature.COLUMN_ACCESS)) {
+        JPRAColumnAccess.generateColumnMethods(t, imp_name, int_name, jcb);
+      }
+
+      final ClassName read_name = ClassName.get(
+        pack_name, JPRAGeneratedNames.getRecordInterfaceReadableName(t_name));
+      JPRAPayloadLayouts.generateLayoutField(
+        jcb, JPRAPayloadLayouts.recordMask(t));
+      JPRALayoutFingerprints.generateFingerprintField(
+        jcb, t.getLayoutFingerprint());
+      if (this.features.contains(JPRAJavaGeneratorFeature.BLOCK_COMPRESSION)) {
+        JPRABlockCodecs.generateCodecField(t, jcb);
+      }
+      JPRAPayloadLayouts.generateImplementationMethods(
+        jcb, imp_name, read_name, "getByteOffsetFor(0)");
 
       final JavaFile.Builder jfb = JavaFile.builder(pack_name, jcb.build());
       final JavaFile jf = jfb.build();
@@ -479,6 +622,9 @@ public final class JPRAJavaGenerator implements JPRAJavaGeneratorType
           });
       }
 
+      JPRAPayloadLayouts.generateInterfaceMethods(
+        jcb, ClassName.get(pack_name, name));
+
       final TypeSpec jc = jcb.build();
       final JavaFile.Builder jfb = JavaFile.builder(pack_name, jc);
       final JavaFile jf = jfb.build();
@@ -600,10 +746,10 @@ public final class JPRAJavaGenerator implements JPRAJavaGeneratorType
         "A {@code ByteBuffer} based implementation of the {@code $L} packed type.",
         t_name);
       jcb.addSuperinterface(int_name);
+      jcb.addSuperinterface(JPRAByteBufferedRebindableType.class);
       jcb.addModifiers(Modifier.PUBLIC, Modifier.FINAL);
 
-      jcb.addField(
-        ByteBuffer.class, "buffer", Modifier.PRIVATE, Modifier.FINAL);
+      jcb.addField(ByteBuffer.class, "buffer", Modifier.PRIVATE);
       jcb.addField(
         ByteBuffer.class, "pack_buffer", Modifier.PRIVATE, Modifier.FINAL);
       jcb.addField(
@@ -614,37 +760,42 @@ public final class JPRAJavaGenerator implements JPRAJavaGeneratorType
       generatePackedFactoryMethods(
         imp_name, int_name, ptr_class, jcb);
       generateSizeMethods(jcb, t.getSizeInOctets());
+      generatePackedRebindMethod(jcb);
       generatePackedByteOffsetMethod(jcb);
 
+      final boolean statistics =
+        this.features.contains(JPRAJavaGeneratorFeature.ACCESS_STATISTICS);
+      final List<String> names = JPRAAccessInstrumentation.packedFieldNames(t);
+      if (statistics) {
+        JPRAAccessInstrumentation.generateStatisticsField(
+          jcb, t_name.value(), names);
+      }
+
       BigInteger offset = BigInteger.valueOf(0L);
       for (final TPacked.FieldType f : t.getFieldsInDeclarationOrder()) {
-        final BigInteger o = offset;
         f.matchField(
-          new TPacked.FieldMatcherType<Void, UnreachableCodeException>()
-          {
-            @Override
-            public Void matchFieldValue(
-              final TPacked.FieldValue f)
-            {
-              final TType t = f.getType();
-              return t.matchType(new PackedFieldImplementationProcessor(
-                f,
-                o,
-                jcb));
-            }
-
-            @Override
-            public Void matchFieldPaddingBits(
-              final TPacked.FieldPaddingBits f)
-            {
-              return null;
-            }
-          });
+          new PackedFieldImplementer(jcb, statistics, names, offset));
         offset = offset.add(f.getSize().getValue());
       }
 
+      final FieldMethodSinkType all_sink;
+      if (statistics) {
+        all_sink = JPRAAccessInstrumentation.instrumentedAllFields(
+          jcb, names.size());
+      } else {
+        all_sink = JPRAAccessInstrumentation.uninstrumented(jcb);
+      }
       PackedFieldImplementationProcessor.generatedPackedAllMethodImplementation(
-        jcb, t);
+        all_sink, t);
+
+      final ClassName read_name = ClassName.get(
+        pack_name, JPRAGeneratedNames.getPackedInterfaceReadableName(t_name));
+      JPRAPayloadLayouts.generateLayoutField(
+        jcb, JPRAPayloadLayouts.packedMask(t));
+      JPRALayoutFingerprints.generateFingerprintField(
+        jcb, t.getLayoutFingerprint());
+      JPRAPayloadLayouts.generateImplementationMethods(
+        jcb, imp_name, read_name, "getByteOffset()");
 
       final JavaFile.Builder jfb = JavaFile.builder(pack_name, jcb.build());
       final JavaFile jf = jfb.build();
@@ -697,6 +848,9 @@ public final class JPRAJavaGenerator implements JPRAJavaGeneratorType
           });
       }
 
+      JPRAPayloadLayouts.generateInterfaceMethods(
+        jcb, ClassName.get(pack_name, name));
+
       final TypeSpec jc = jcb.build();
       final JavaFile.Builder jfb = JavaFile.builder(pack_name, jc);
       final JavaFile jf = jfb.build();
@@ -792,4 +946,255 @@ public final class JPRAJavaGenerator implements JPRAJavaGeneratorType
       jf.writeTo(out);
     }
   }
+
+  @Override
+  public void generateUnionImplementation(
+    final TUnion t,
+    final OutputStream os)
+    throws IOException
+  {
+    JPRAUnionGenerator.generateUnionImplementation(t, os);
+  }
+
+  @Override
+  public void generateUnionInterfaceReadable(
+    final TUnion t,
+    final OutputStream os)
+    throws IOException
+  {
+    JPRAUnionGenerator.generateUnionInterfaceReadable(t, os);
+  }
+
+  @Override
+  public void generateUnionInterfaceWritable(
+    final TUnion t,
+    final OutputStream os)
+    throws IOException
+  {
+    JPRAUnionGenerator.generateUnionInterfaceWritable(t, os);
+  }
+
+  @Override
+  public void generateUnionInterface(
+    final TUnion t,
+    final OutputStream os)
+    throws IOException
+  {
+    JPRAUnionGenerator.generateUnionInterface(t, os);
+  }
+
+  @Override
+  public void generateUnionMatcher(
+    final TUnion t,
+    final OutputStream os)
+    throws IOException
+  {
+    JPRAUnionGenerator.generateUnionMatcher(t, os);
+  }
+
+  @Override
+  public void generateRecordValue(
+    final TRecord t,
+    final OutputStream os)
+    throws IOException
+  {
+    Objects.requireNonNull(t, "t");
+    Objects.requireNonNull(os, "os");
+    Preconditions.checkPreconditionV(
+      JPRAValueClasses.recordHasValueClass(t),
+      "Record %s must not contain union or array fields",
+      t.getName().value());
+
+    try (OutputStreamWriter out = new OutputStreamWriter(os)) {
+      final PackageContextType tp = t.getPackageContext();
+      final TypeName t_name = t.getName();
+      final String pack_name = tp.getName().toString();
+
+      final List<JPRAValueClasses.Member> members = new ArrayList<>(16);
+      for (final TRecord.FieldType f : t.getFieldsInDeclarationOrder()) {
+        f.matchField(new RecordFieldValueCollector(members));
+      }
+
+      final TypeSpec jc = JPRAValueClasses.generateValueClass(
+        t_name.value(),
+        "record",
+        ClassName.get(
+          pack_name, JPRAGeneratedNames.getRecordValueName(t_name)),
+        ClassName.get(
+          pack_name, JPRAGeneratedNames.getRecordInterfaceReadableName(t_name)),
+        ClassName.get(
+          pack_name, JPRAGeneratedNames.getRecordInterfaceWritableName(t_name)),
+        members);
+
+      final JavaFile.Builder jfb = JavaFile.builder(pack_name, jc);
+      final JavaFile jf = jfb.build();
+      jf.writeTo(out);
+    }
+  }
+
+  @Override
+  public void generatePackedValue(
+    final TPacked t,
+    final OutputStream os)
+    throws IOException
+  {
+    Objects.requireNonNull(t, "t");
+    Objects.requireNonNull(os, "os");
+
+    try (OutputStreamWriter out = new OutputStreamWriter(os)) {
+      final PackageContextType tp = t.getPackageContext();
+      final TypeName t_name = t.getName();
+      final String pack_name = tp.getName().toString();
+
+      final TypeSpec jc = JPRAValueClasses.generateValueClass(
+        t_name.value(),
+        "packed",
+        ClassName.get(
+          pack_name, JPRAGeneratedNames.getPackedValueName(t_name)),
+        ClassName.get(
+          pack_name, JPRAGeneratedNames.getPackedInterfaceReadableName(t_name)),
+        ClassName.get(
+          pack_name, JPRAGeneratedNames.getPackedInterfaceWritableName(t_name)),
+        JPRAValueClasses.packedMembers(t));
+
+      final JavaFile.Builder jfb = JavaFile.builder(pack_name, jc);
+      final JavaFile jf = jfb.build();
+      jf.writeTo(out);
+    }
+  }
+
+  @Override
+  public void generateRecordMigrator(
+    final TRecord source,
+    final TRecord target,
+    final OutputStream os)
+    throws IOException, IllegalArgumentException
+  {
+    Objects.requireNonNull(source, "source");
+    Objects.requireNonNull(target, "target");
+    Objects.requireNonNull(os, "os");
+
+    final TypeSpec jc = JPRAMigrators.generateMigrator(source, target);
+    try (OutputStreamWriter out = new OutputStreamWriter(os)) {
+      final String pack_name = target.getPackageContext().getName().toString();
+      final JavaFile.Builder jfb = JavaFile.builder(pack_name, jc);
+      final JavaFile jf = jfb.build();
+      jf.writeTo(out);
+    }
+  }
+
+  private static FieldMethodSinkType fieldSink(
+    final TypeSpec.Builder jcb,
+    final boolean statistics,
+    final List<String> names,
+    final String name)
+  {
+    if (statistics) {
+      return JPRAAccessInstrumentation.instrumented(jcb, names.indexOf(name));
+    }
+    return JPRAAccessInstrumentation.uninstrumented(jcb);
+  }
+
+  private static final class RecordFieldImplementer
+    implements TRecord.FieldMatcherType<Void, UnreachableCodeException>
+  {
+    private final TypeSpec.Builder jcb;
+    private final boolean statistics;
+    private final List<String> names;
+    private final BigInteger offset;
+
+    RecordFieldImplementer(
+      final TypeSpec.Builder in_jcb,
+      final boolean in_statistics,
+      final List<String> in_names,
+      final BigInteger in_offset)
+    {
+      this.jcb = Objects.requireNonNull(in_jcb, "Builder");
+      this.statistics = in_statistics;
+      this.names = Objects.requireNonNull(in_names, "Names");
+      this.offset = Objects.requireNonNull(in_offset, "Offset");
+    }
+
+    @Override
+    public Void matchFieldValue(
+      final TRecord.FieldValue f)
+    {
+      final FieldMethodSinkType sink = fieldSink(
+        this.jcb, this.statistics, this.names, f.getName().value());
+      return f.getType().matchType(
+        new RecordFieldImplementationProcessor(f, this.offset, sink));
+    }
+
+    @Override
+    public Void matchFieldPaddingOctets(
+      final TRecord.FieldPaddingOctets f)
+    {
+      return null;
+    }
+  }
+
+  private static final class PackedFieldImplementer
+    implements TPacked.FieldMatcherType<Void, UnreachableCodeException>
+  {
+    private final TypeSpec.Builder jcb;
+    private final boolean statistics;
+    private final List<String> names;
+    private final BigInteger offset;
+
+    PackedFieldImplementer(
+      final TypeSpec.Builder in_jcb,
+      final boolean in_statistics,
+      final List<String> in_names,
+      final BigInteger in_offset)
+    {
+      this.jcb = Objects.requireNonNull(in_jcb, "Builder");
+      this.statistics = in_statistics;
+      this.names = Objects.requireNonNull(in_names, "Names");
+      this.offset = Objects.requireNonNull(in_offset, "Offset");
+    }
+
+    @Override
+    public Void matchFieldValue(
+      final TPacked.FieldValue f)
+    {
+      final FieldMethodSinkType sink = fieldSink(
+        this.jcb, this.statistics, this.names, f.getName().value());
+      return f.getType().matchType(
+        new PackedFieldImplementationProcessor(f, this.offset, sink));
+    }
+
+    @Override
+    public Void matchFieldPaddingBits(
+      final TPacked.FieldPaddingBits f)
+    {
+      return null;
+    }
+  }
+
+  private static final class RecordFieldValueCollector
+    implements TRecord.FieldMatcherType<Void, UnreachableCodeException>
+  {
+    private final List<JPRAValueClasses.Member> members;
+
+    RecordFieldValueCollector(
+      final List<JPRAValueClasses.Member> in_members)
+    {
+      this.members = Objects.requireNonNull(in_members, "Members");
+    }
+
+    @Override
+    public Void matchFieldValue(
+      final TRecord.FieldValue f)
+    {
+      return f.getType().matchType(
+        new RecordFieldValueProcessor(f, this.members));
+    }
+
+    @Override
+    public Void matchFieldPaddingOctets(
+      final TRecord.FieldPaddingOctets f)
+    {
+      return null;
+    }
+  }
 }
@@ -0,0 +1,57 @@
+/*
+ * Copyright © 2015 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.jpra.compiler.java;
+
+/**
+ * Optional features of the Java code generator.
+ */
+
+public enum JPRAJavaGeneratorFeature
+{
+  /**
+   * Generate an immutable heap value class for each type, with methods to
+   * load values from, and store values to, buffer-backed views. Unions, and
+   * records that contain union or array fields, have no value classes.
+   */
+
+  VALUE_CLASSES,
+
+  /**
+   * Instrument the generated implementation classes with per-field read and
+   * write counters, exposed through a static {@code accessStatistics()}
+   * method. Implementations generated without this feature contain no
+   * counting code at all.
+   */
+
+  ACCESS_STATISTICS,
+
+  /**
+   * Generate static {@code gather} and {@code scatter} methods on record
+   * implementation classes that copy a scalar field, or a vector component,
+   * of a range of elements to or from a primitive array.
+   */
+
+  COLUMN_ACCESS,
+
+  /**
+   * Generate a {@code JPRABlockCodec} for each record type, exposed through
+   * a static {@code blockCodec()} method on the implementation class, that
+   * compresses arrays of the record in blocks.
+   */
+
+  BLOCK_COMPRESSION
+}
@@ -19,9 +19,11 @@ package com.io7m.jpra.compiler.java;
 import com.io7m.jpra.model.names.TypeName;
 import com.io7m.jpra.model.types.TPacked;
 import com.io7m.jpra.model.types.TRecord;
+import com.io7m.jpra.model.types.TUnion;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.Set;
 
 /**
  * The type of Java source code generators.
@@ -29,6 +31,12 @@ import java.io.OutputStream;
 
 public interface JPRAJavaGeneratorType
 {
+  /**
+   * @return The optional features enabled for this generator
+   */
+
+  Set<JPRAJavaGeneratorFeature> getFeatures();
+
   /**
    * @param t The type name
    *
@@ -220,4 +228,204 @@ public interface JPRAJavaGeneratorType
     TPacked t,
     OutputStream os)
     throws IOException;
+
+  /**
+   * @param t The type name
+   *
+   * @return The class name that will result for a byte-buffered implementation
+   * of {@code t}
+   */
+
+  String getUnionImplementationByteBufferedName(TypeName t);
+
+  /**
+   * @param t The type name
+   *
+   * @return The class name that will result for the readable interface of
+   * {@code t}
+   */
+
+  String getUnionInterfaceReadableName(TypeName t);
+
+  /**
+   * @param t The type name
+   *
+   * @return The class name that will result for the writable interface of
+   * {@code t}
+   */
+
+  String getUnionInterfaceWritableName(TypeName t);
+
+  /**
+   * @param t The type name
+   *
+   * @return The class name that will result for the readable and writable
+   * interface of {@code t}
+   */
+
+  String getUnionInterfaceName(TypeName t);
+
+  /**
+   * @param t The type name
+   *
+   * @return The class name that will result for the case matcher interface of
+   * {@code t}
+   */
+
+  String getUnionMatcherName(TypeName t);
+
+  /**
+   * Generate Java source code for the implementation of a {@code union}
+   * definition.
+   *
+   * @param t  The type
+   * @param os The output stream
+   *
+   * @throws IOException On I/O errors
+   */
+
+  void generateUnionImplementation(
+    TUnion t,
+    OutputStream os)
+    throws IOException;
+
+  /**
+   * Generate Java source code for the readable interface of a {@code union}
+   * definition.
+   *
+   * @param t  The type
+   * @param os The output stream
+   *
+   * @throws IOException On I/O errors
+   */
+
+  void generateUnionInterfaceReadable(
+    TUnion t,
+    OutputStream os)
+    throws IOException;
+
+  /**
+   * Generate Java source code for the writable interface of a {@code union}
+   * definition.
+   *
+   * @param t  The type
+   * @param os The output stream
+   *
+   * @throws IOException On I/O errors
+   */
+
+  void generateUnionInterfaceWritable(
+    TUnion t,
+    OutputStream os)
+    throws IOException;
+
+  /**
+   * Generate Java source code for the readable and writable interface of a
+   * {@code union} definition.
+   *
+   * @param t  The type
+   * @param os The output stream
+   *
+   * @throws IOException On I/O errors
+   */
+
+  void generateUnionInterface(
+    TUnion t,
+    OutputStream os)
+    throws IOException;
+
+  /**
+   * Generate Java source code for the case matcher interface of a
+   * {@code union} definition. The matcher has one method per case, and is
+   * used to switch on the tag of a union value.
+   *
+   * @param t  The type
+   * @param os The output stream
+   *
+   * @throws IOException On I/O errors
+   */
+
+  void generateUnionMatcher(
+    TUnion t,
+    OutputStream os)
+    throws IOException;
+
+  /**
+   * @param t The type name
+   *
+   * @return The class name that will result for the heap value class of
+   * {@code t}
+   */
+
+  String getRecordValueName(TypeName t);
+
+  /**
+   * @param t The type name
+   *
+   * @return The class name that will result for the heap value class of
+   * {@code t}
+   */
+
+  String getPackedValueName(TypeName t);
+
+  /**
+   * Generate Java source code for the heap value class of a {@code record}
+   * definition. Only meaningful if {@link JPRAJavaGeneratorFeature#VALUE_CLASSES}
+   * is enabled, and the record does not contain a union or array field.
+   *
+   * @param t  The type
+   * @param os The output stream
+   *
+   * @throws IOException On I/O errors
+   */
+
+  void generateRecordValue(
+    TRecord t,
+    OutputStream os)
+    throws IOException;
+
+  /**
+   * Generate Java source code for the heap value class of a {@code packed}
+   * definition. Only meaningful if {@link JPRAJavaGeneratorFeature#VALUE_CLASSES}
+   * is enabled.
+   *
+   * @param t  The type
+   * @param os The output stream
+   *
+   * @throws IOException On I/O errors
+   */
+
+  void generatePackedValue(
+    TPacked t,
+    OutputStream os)
+    throws IOException;
+
+  /**
+   * @param t The type name
+   *
+   * @return The class name that will result for a migrator to {@code t}
+   */
+
+  String getRecordMigratorName(TypeName t);
+
+  /**
+   * Generate Java source code for a migrator that converts arrays of
+   * {@code source} to arrays of {@code target}. The migrator is placed in
+   * the package of {@code target}.
+   *
+   * @param source The source type
+   * @param target The target type
+   * @param os     The output stream
+   *
+   * @throws IOException              On I/O errors
+   * @throws IllegalArgumentException If a field of {@code target} cannot be
+   *                                  converted from the field of the same
+   *                                  name in {@code source}
+   */
+
+  void generateRecordMigrator(
+    TRecord source,
+    TRecord target,
+    OutputStream os)
+    throws IOException, IllegalArgumentException;
 }
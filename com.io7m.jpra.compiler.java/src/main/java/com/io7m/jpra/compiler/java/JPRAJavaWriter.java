@@ -16,21 +16,36 @@
 
 package com.io7m.jpra.compiler.java;
 
+import com.io7m.jpra.model.contexts.PackageContextType;
 import com.io7m.jpra.model.names.PackageNameQualified;
 import com.io7m.jpra.model.names.PackageNameUnqualified;
 import com.io7m.jpra.model.names.TypeName;
 import com.io7m.jpra.model.types.TPacked;
 import com.io7m.jpra.model.types.TRecord;
+import com.io7m.jpra.model.types.TUnion;
 import com.io7m.jpra.model.types.TypeUserDefinedMatcherType;
 import com.io7m.jpra.model.types.TypeUserDefinedType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * The default implementation of the {@link JPRAJavaWriterType} interface.
@@ -85,6 +100,155 @@ public final class JPRAJavaWriter implements JPRAJavaWriterType
     return p;
   }
 
+  /**
+   * Generate a file, and write it to {@code file} only if the file does not
+   * already exist with exactly the same content. Leaving unchanged files
+   * untouched preserves their timestamps, so that tools that compare
+   * timestamps do not treat them as modified.
+   */
+
+  private static void writeFile(
+    final Path file,
+    final FileGeneratorType generator)
+    throws IOException
+  {
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream(8192);
+    generator.generate(bytes);
+    final ByteBuffer data = ByteBuffer.wrap(bytes.toByteArray());
+
+    if (contentEquals(file, data)) {
+      LOG.debug("unchanged {}", file);
+      return;
+    }
+
+    LOG.debug("writing {}", file);
+    try (FileChannel ch = FileChannel.open(
+      file,
+      StandardOpenOption.WRITE,
+      StandardOpenOption.CREATE,
+      StandardOpenOption.TRUNCATE_EXISTING)) {
+      while (data.hasRemaining()) {
+        ch.write(data);
+      }
+    }
+  }
+
+  /**
+   * @return {@code true} iff {@code file} exists and has exactly the
+   * remaining content of {@code data}
+   */
+
+  private static boolean contentEquals(
+    final Path file,
+    final ByteBuffer data)
+    throws IOException
+  {
+    try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+      if (ch.size() != (long) data.remaining()) {
+        return false;
+      }
+
+      final ByteBuffer existing = ByteBuffer.allocate(data.remaining());
+      while (existing.hasRemaining()) {
+        if (ch.read(existing) < 0) {
+          return false;
+        }
+      }
+      existing.flip();
+      return existing.equals(data);
+    } catch (final NoSuchFileException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Wait for all of the given tasks, and then rethrow the first failure (in
+   * submission order), with any later failures added as suppressed
+   * exceptions.
+   */
+
+  private static void waitForAll(
+    final List<CompletableFuture<Void>> tasks)
+    throws IOException
+  {
+    Throwable first = null;
+    for (final CompletableFuture<Void> task : tasks) {
+      try {
+        task.join();
+      } catch (final CompletionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof UncheckedIOException) {
+          cause = cause.getCause();
+        }
+        if (first == null) {
+          first = cause;
+        } else {
+          first.addSuppressed(cause);
+        }
+      }
+    }
+
+    if (first instanceof IOException) {
+      throw (IOException) first;
+    }
+    if (first instanceof RuntimeException) {
+      throw (RuntimeException) first;
+    }
+    if (first instanceof Error) {
+      throw (Error) first;
+    }
+  }
+
+  @Override
+  public void writePackages(
+    final Path path,
+    final List<PackageContextType> packages,
+    final Executor executor)
+    throws IOException
+  {
+    Objects.requireNonNull(path, "path");
+    Objects.requireNonNull(packages, "packages");
+    Objects.requireNonNull(executor, "executor");
+
+    final List<CompletableFuture<Void>> tasks = new ArrayList<>(64);
+    for (final PackageContextType pack : packages) {
+      LOG.debug("exporting package {}", pack.getName());
+      for (final TypeUserDefinedType t : pack.getTypes().values()) {
+        tasks.add(CompletableFuture.runAsync(() -> {
+          try {
+            this.writeType(path, t);
+          } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+          }
+        }, executor));
+      }
+    }
+
+    waitForAll(tasks);
+  }
+
+  @Override
+  public void writePackages(
+    final Path path,
+    final List<PackageContextType> packages)
+    throws IOException
+  {
+    final int threads = Runtime.getRuntime().availableProcessors();
+    final ExecutorService executor =
+      Executors.newFixedThreadPool(Math.max(1, threads), r -> {
+        final Thread th = new Thread(r);
+        th.setName("com.io7m.jpra.compiler.java.writer-" + th.getId());
+        th.setDaemon(true);
+        return th;
+      });
+
+    try {
+      this.writePackages(path, packages, executor);
+    } finally {
+      executor.shutdown();
+    }
+  }
+
   @Override
   public void writeType(
     final Path path,
@@ -104,6 +268,34 @@ public final class JPRAJavaWriter implements JPRAJavaWriterType
     t.matchTypeUserDefined(new TypeWriter(pkg_path, this.generator, t_name));
   }
 
+  @Override
+  public void writeMigrator(
+    final Path path,
+    final TRecord source,
+    final TRecord target)
+    throws IOException
+  {
+    Objects.requireNonNull(path, "path");
+    Objects.requireNonNull(source, "source");
+    Objects.requireNonNull(target, "target");
+
+    final PackageNameQualified p_name = target.getPackageContext().getName();
+    final Path pkg_path = getPathForPackage(path, p_name);
+    Files.createDirectories(pkg_path);
+
+    final Path m_file = pkg_path.resolve(
+      this.generator.getRecordMigratorName(target.getName()) + ".java");
+    writeFile(
+      m_file, w -> this.generator.generateRecordMigrator(source, target, w));
+  }
+
+  @FunctionalInterface
+  private interface FileGeneratorType
+  {
+    void generate(OutputStream os)
+      throws IOException;
+  }
+
   private static final class TypeWriter implements TypeUserDefinedMatcherType<Void, IOException>
   {
     private final Path pkg_path;
@@ -133,21 +325,17 @@ public final class JPRAJavaWriter implements JPRAJavaWriterType
       final Path i_file =
         this.pkg_path.resolve(this.generator.getRecordInterfaceName(this.type_name) + ".java");
 
-      LOG.debug("writing {}", c_file);
-      try (OutputStream w = Files.newOutputStream(c_file)) {
-        this.generator.generateRecordImplementation(r, w);
-      }
-      LOG.debug("writing {}", r_file);
-      try (OutputStream w = Files.newOutputStream(r_file)) {
-        this.generator.generateRecordInterfaceReadable(r, w);
-      }
-      LOG.debug("writing {}", w_file);
-      try (OutputStream w = Files.newOutputStream(w_file)) {
-        this.generator.generateRecordInterfaceWritable(r, w);
-      }
-      LOG.debug("writing {}", i_file);
-      try (OutputStream w = Files.newOutputStream(i_file)) {
-        this.generator.generateRecordInterface(r, w);
+      writeFile(c_file, w -> this.generator.generateRecordImplementation(r, w));
+      writeFile(r_file, w -> this.generator.generateRecordInterfaceReadable(r, w));
+      writeFile(w_file, w -> this.generator.generateRecordInterfaceWritable(r, w));
+      writeFile(i_file, w -> this.generator.generateRecordInterface(r, w));
+
+      if (this.generator.getFeatures().contains(
+        JPRAJavaGeneratorFeature.VALUE_CLASSES)
+        && JPRAValueClasses.recordHasValueClass(r)) {
+        final Path v_file = this.pkg_path.resolve(
+          this.generator.getRecordValueName(this.type_name) + ".java");
+        writeFile(v_file, w -> this.generator.generateRecordValue(r, w));
       }
 
       return null;
@@ -166,24 +354,44 @@ public final class JPRAJavaWriter implements JPRAJavaWriterType
       final Path i_file =
         this.pkg_path.resolve(this.generator.getPackedInterfaceName(this.type_name) + ".java");
 
-      LOG.debug("writing {}", c_file);
-      try (OutputStream w = Files.newOutputStream(c_file)) {
-        this.generator.generatePackedImplementation(r, w);
-      }
-      LOG.debug("writing {}", r_file);
-      try (OutputStream w = Files.newOutputStream(r_file)) {
-        this.generator.generatePackedInterfaceReadable(r, w);
-      }
-      LOG.debug("writing {}", w_file);
-      try (OutputStream w = Files.newOutputStream(w_file)) {
-        this.generator.generatePackedInterfaceWritable(r, w);
-      }
-      LOG.debug("writing {}", i_file);
-      try (OutputStream w = Files.newOutputStream(i_file)) {
-        this.generator.generatePackedInterface(r, w);
+      writeFile(c_file, w -> this.generator.generatePackedImplementation(r, w));
+      writeFile(r_file, w -> this.generator.generatePackedInterfaceReadable(r, w));
+      writeFile(w_file, w -> this.generator.generatePackedInterfaceWritable(r, w));
+      writeFile(i_file, w -> this.generator.generatePackedInterface(r, w));
+
+      if (this.generator.getFeatures().contains(
+        JPRAJavaGeneratorFeature.VALUE_CLASSES)) {
+        final Path v_file = this.pkg_path.resolve(
+          this.generator.getPackedValueName(this.type_name) + ".java");
+        writeFile(v_file, w -> this.generator.generatePackedValue(r, w));
       }
 
       return null;
     }
+
+    @Override
+    public Void matchUnion(final TUnion u)
+      throws IOException
+    {
+      final TypeName t = this.type_name;
+      final JPRAJavaGeneratorType g = this.generator;
+      final Path c_file = this.pkg_path.resolve(
+        g.getUnionImplementationByteBufferedName(t) + ".java");
+      final Path r_file = this.pkg_path.resolve(
+        g.getUnionInterfaceReadableName(t) + ".java");
+      final Path w_file = this.pkg_path.resolve(
+        g.getUnionInterfaceWritableName(t) + ".java");
+      final Path i_file = this.pkg_path.resolve(
+        g.getUnionInterfaceName(t) + ".java");
+      final Path m_file = this.pkg_path.resolve(
+        g.getUnionMatcherName(t) + ".java");
+
+      writeFile(c_file, w -> g.generateUnionImplementation(u, w));
+      writeFile(r_file, w -> g.generateUnionInterfaceReadable(u, w));
+      writeFile(w_file, w -> g.generateUnionInterfaceWritable(u, w));
+      writeFile(i_file, w -> g.generateUnionInterface(u, w));
+      writeFile(m_file, w -> g.generateUnionMatcher(u, w));
+      return null;
+    }
   }
 }
@@ -16,10 +16,14 @@
 
 package com.io7m.jpra.compiler.java;
 
+import com.io7m.jpra.model.contexts.PackageContextType;
+import com.io7m.jpra.model.types.TRecord;
 import com.io7m.jpra.model.types.TypeUserDefinedType;
 
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.Executor;
 
 /**
  * The type of Java serializers.
@@ -28,7 +32,8 @@ import java.nio.file.Path;
 public interface JPRAJavaWriterType
 {
   /**
-   * Write the given type to the base directory {@code path}.
+   * Write the given type to the base directory {@code path}. Existing files
+   * whose content would not change are not rewritten.
    *
    * @param path The base directory
    * @param t    The type
@@ -40,4 +45,62 @@ public interface JPRAJavaWriterType
     Path path,
     TypeUserDefinedType t)
     throws IOException;
+
+  /**
+   * Write all of the types in the given packages to the base directory
+   * {@code path}. Each type is generated and written as a separate task on
+   * {@code executor}, so distinct types are processed concurrently. Existing
+   * files whose content would not change are not rewritten. All tasks are
+   * completed before this method returns, even if some of them fail.
+   *
+   * @param path     The base directory
+   * @param packages The packages
+   * @param executor The executor used to generate and write types
+   *
+   * @throws IOException On I/O errors; if more than one task fails, the
+   *                     first failure is thrown and the others are
+   *                     suppressed
+   */
+
+  void writePackages(
+    Path path,
+    List<PackageContextType> packages,
+    Executor executor)
+    throws IOException;
+
+  /**
+   * Write all of the types in the given packages to the base directory
+   * {@code path}, using a fixed-size pool of one thread per available
+   * processor that is shut down when the method returns.
+   *
+   * @param path     The base directory
+   * @param packages The packages
+   *
+   * @throws IOException On I/O errors
+   * @see #writePackages(Path, List, Executor)
+   */
+
+  void writePackages(
+    Path path,
+    List<PackageContextType> packages)
+    throws IOException;
+
+  /**
+   * Write a migrator that converts arrays of {@code source} to arrays of
+   * {@code target} to the base directory {@code path}.
+   *
+   * @param path   The base directory
+   * @param source The source type
+   * @param target The target type
+   *
+   * @throws IOException On I/O errors
+   * @see JPRAJavaGeneratorType#generateRecordMigrator(TRecord, TRecord,
+   * java.io.OutputStream)
+   */
+
+  void writeMigrator(
+    Path path,
+    TRecord source,
+    TRecord target)
+    throws IOException;
 }
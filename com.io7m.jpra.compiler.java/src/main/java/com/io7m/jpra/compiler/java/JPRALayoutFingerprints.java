@@ -0,0 +1,73 @@
+/*
+ * Copyright © 2015 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.jpra.compiler.java;
+
+import com.io7m.junreachable.UnreachableCodeException;
+import com.squareup.javapoet.FieldSpec;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.TypeSpec;
+
+import javax.lang.model.element.Modifier;
+import java.util.Objects;
+
+/**
+ * Functions to generate layout fingerprint constants.
+ */
+
+final class JPRALayoutFingerprints
+{
+  private JPRALayoutFingerprints()
+  {
+    throw new UnreachableCodeException();
+  }
+
+  /**
+   * Generate the public {@code LAYOUT_FINGERPRINT} constant and the static
+   * {@code layoutFingerprint()} accessor for an implementation class.
+   *
+   * @param jcb         The class builder
+   * @param fingerprint The layout fingerprint calculated by the checker
+   */
+
+  static void generateFingerprintField(
+    final TypeSpec.Builder jcb,
+    final long fingerprint)
+  {
+    Objects.requireNonNull(jcb, "Class builder");
+
+    final FieldSpec.Builder fb = FieldSpec.builder(
+      long.class,
+      "LAYOUT_FINGERPRINT",
+      Modifier.PUBLIC,
+      Modifier.STATIC,
+      Modifier.FINAL);
+    fb.addJavadoc(
+      "The layout fingerprint of the type. Two builds agree on the byte\n"
+        + "layout of the type if their fingerprints are equal.\n");
+    fb.initializer("0x$LL", Long.toHexString(fingerprint));
+    jcb.addField(fb.build());
+
+    final MethodSpec.Builder jmb =
+      MethodSpec.methodBuilder("layoutFingerprint");
+    jmb.addJavadoc("@return The layout fingerprint of the type\n");
+    jmb.addModifiers(Modifier.PUBLIC);
+    jmb.addModifiers(Modifier.STATIC);
+    jmb.returns(long.class);
+    jmb.addStatement("return LAYOUT_FINGERPRINT");
+    jcb.addMethod(jmb.build());
+  }
+}
@@ -0,0 +1,1354 @@
+/*
+ * Copyright © 2015 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.jpra.compiler.java;
+
+import com.io7m.ieee754b16.Binary16;
+import com.io7m.jpra.model.names.FieldName;
+import com.io7m.jpra.model.types.Size;
+import com.io7m.jpra.model.types.TArray;
+import com.io7m.jpra.model.types.TBooleanSet;
+import com.io7m.jpra.model.types.TFloat;
+import com.io7m.jpra.model.types.TIntegerSigned;
+import com.io7m.jpra.model.types.TIntegerSignedNormalized;
+import com.io7m.jpra.model.types.TIntegerType;
+import com.io7m.jpra.model.types.TIntegerUnsigned;
+import com.io7m.jpra.model.types.TIntegerUnsignedNormalized;
+import com.io7m.jpra.model.types.TMatrix;
+import com.io7m.jpra.model.types.TPacked;
+import com.io7m.jpra.model.types.TRecord;
+import com.io7m.jpra.model.types.TString;
+import com.io7m.jpra.model.types.TType;
+import com.io7m.jpra.model.types.TUnion;
+import com.io7m.jpra.model.types.TVector;
+import com.io7m.jpra.model.types.TypeIntegerMatcherType;
+import com.io7m.jpra.model.types.TypeMatcherType;
+import com.io7m.jpra.model.types.TypeScalarMatcherType;
+import com.io7m.jpra.model.types.TypeScalarType;
+import com.io7m.jpra.runtime.java.JPRAMigration;
+import com.io7m.junreachable.UnreachableCodeException;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.FieldSpec;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.TypeSpec;
+import io.vavr.collection.List;
+
+import javax.lang.model.element.Modifier;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * <p>Functions to generate migrators, which convert arrays of one version of
+ * a record type to arrays of another version.</p>
+ *
+ * <p>Fields of the target type are matched to fields of the source type by
+ * name, recursively through nested records and packed types. Matched scalar
+ * fields are converted with the saturating conversions in {@link
+ * JPRAMigration}, vectors and arrays are converted element-wise up to the
+ * shorter of the two lengths, strings are truncated (and transcoded if the
+ * encodings differ), and boolean set flags are matched by name. All octets
+ * of the target type that do not receive a value from the source type,
+ * including new fields and padding, are set to zero. A change of a field
+ * between incompatible kinds of type is rejected.</p>
+ */
+
+final class JPRAMigrators
+{
+  private JPRAMigrators()
+  {
+    throw new UnreachableCodeException();
+  }
+
+  /**
+   * Generate a migrator class.
+   *
+   * @param source The source type
+   * @param target The target type
+   *
+   * @return A migrator class
+   *
+   * @throws IllegalArgumentException If a field cannot be converted
+   */
+
+  static TypeSpec generateMigrator(
+    final TRecord source,
+    final TRecord target)
+    throws IllegalArgumentException
+  {
+    Objects.requireNonNull(source, "Source");
+    Objects.requireNonNull(target, "Target");
+
+    final Generation g = new Generation();
+    final Scope scope = new Scope("s", "d", octets(target));
+    g.record(scope, source, 0, target, 0, target.getName().value());
+    scope.finish();
+
+    final String name =
+      JPRAGeneratedNames.getRecordMigratorName(target.getName());
+    final TypeSpec.Builder jcb = TypeSpec.classBuilder(name);
+    jcb.addModifiers(Modifier.PUBLIC, Modifier.FINAL);
+    jcb.addJavadoc(
+      "Functions to migrate arrays of {@code $L.$L} to arrays of "
+        + "{@code $L.$L}.\n",
+      source.getPackageContext().getName(),
+      source.getName().value(),
+      target.getPackageContext().getName(),
+      target.getName().value());
+
+    jcb.addField(fingerprintField(
+      "SOURCE_LAYOUT_FINGERPRINT",
+      "The layout fingerprint of the source type",
+      source.getLayoutFingerprint()));
+    jcb.addField(fingerprintField(
+      "TARGET_LAYOUT_FINGERPRINT",
+      "The layout fingerprint of the target type",
+      target.getLayoutFingerprint()));
+    jcb.addField(sizeField("SOURCE_SIZE_OCTETS", octets(source)));
+    jcb.addField(sizeField("TARGET_SIZE_OCTETS", octets(target)));
+
+    for (final Map.Entry<String, String> e : g.charsets.entrySet()) {
+      jcb.addField(charsetField(e.getValue(), e.getKey()));
+    }
+
+    final MethodSpec.Builder cb = MethodSpec.constructorBuilder();
+    cb.addModifiers(Modifier.PRIVATE);
+    cb.addStatement("throw new $T($S)", AssertionError.class,
+                    "Unreachable code!");
+    jcb.addMethod(cb.build());
+
+    jcb.addMethod(generateMigrateOne(scope));
+    jcb.addMethod(generateMigrateRange());
+    jcb.addMethod(generateMigrate());
+    jcb.addMethod(generateMigrateParallel());
+    return jcb.build();
+  }
+
+  private static FieldSpec charsetField(
+    final String name,
+    final String encoding)
+  {
+    final FieldSpec.Builder fb = FieldSpec.builder(
+      Charset.class,
+      name,
+      Modifier.PRIVATE,
+      Modifier.STATIC,
+      Modifier.FINAL);
+    fb.initializer("$T.forName($S)", Charset.class, encoding);
+    return fb.build();
+  }
+
+  private static MethodSpec generateMigrateOne(
+    final Scope scope)
+  {
+    final MethodSpec.Builder ob = MethodSpec.methodBuilder("migrateOne");
+    ob.addModifiers(Modifier.PRIVATE, Modifier.STATIC);
+    ob.addParameter(ByteBuffer.class, "src", Modifier.FINAL);
+    ob.addParameter(int.class, "s", Modifier.FINAL);
+    ob.addParameter(ByteBuffer.class, "dst", Modifier.FINAL);
+    ob.addParameter(int.class, "d", Modifier.FINAL);
+    ob.addCode(scope.code.build());
+    return ob.build();
+  }
+
+  private static MethodSpec generateMigrateRange()
+  {
+    final MethodSpec.Builder rb = MethodSpec.methodBuilder("migrateRange");
+    rb.addModifiers(Modifier.PRIVATE, Modifier.STATIC);
+    addRangeParameters(rb);
+    rb.addStatement("int d = dst_from * TARGET_SIZE_OCTETS");
+    rb.beginControlFlow("for (int index = from; index < to; ++index)");
+    rb.addStatement("migrateOne(src, index * SOURCE_SIZE_OCTETS, dst, d)");
+    rb.addStatement("d += TARGET_SIZE_OCTETS");
+    rb.endControlFlow();
+    return rb.build();
+  }
+
+  private static MethodSpec generateMigrate()
+  {
+    final MethodSpec.Builder mb = MethodSpec.methodBuilder("migrate");
+    mb.addModifiers(Modifier.PUBLIC, Modifier.STATIC);
+    mb.addJavadoc(
+      "Migrate the source elements {@code [from, to)} to the target "
+        + "elements starting at {@code dst_from}. The source and target\n"
+        + "buffers must not overlap.\n\n");
+    addRangeJavadoc(mb);
+    addRangeParameters(mb);
+    addRangeChecks(mb);
+    mb.addStatement("migrateRange(src, from, to, dst, dst_from)");
+    return mb.build();
+  }
+
+  private static MethodSpec generateMigrateParallel()
+  {
+    final MethodSpec.Builder pb = MethodSpec.methodBuilder("migrateParallel");
+    pb.addModifiers(Modifier.PUBLIC, Modifier.STATIC);
+    pb.addJavadoc(
+      "Migrate the source elements {@code [from, to)} to the target "
+        + "elements starting at {@code dst_from}, dividing the range\n"
+        + "into tasks of at most {@code task_size} elements that are run "
+        + "in parallel. The source and target buffers\n"
+        + "must not overlap.\n\n");
+    addRangeJavadoc(pb);
+    pb.addJavadoc("@param task_size The maximum number of elements per task\n");
+    addRangeParameters(pb);
+    pb.addParameter(int.class, "task_size", Modifier.FINAL);
+    addRangeChecks(pb);
+    pb.addStatement(
+      "$T.forEachRangeParallel(from, to, task_size, (r_from, r_to) -> "
+        + "migrateRange(src, r_from, r_to, dst, dst_from + (r_from - from)))",
+      JPRAMigration.class);
+    return pb.build();
+  }
+
+  private static FieldSpec fingerprintField(
+    final String name,
+    final String doc,
+    final long value)
+  {
+    final FieldSpec.Builder fb = FieldSpec.builder(
+      long.class, name, Modifier.PUBLIC, Modifier.STATIC, Modifier.FINAL);
+    fb.addJavadoc("$L\n", doc);
+    fb.initializer("0x$LL", Long.toHexString(value));
+    return fb.build();
+  }
+
+  private static FieldSpec sizeField(
+    final String name,
+    final int value)
+  {
+    final FieldSpec.Builder fb = FieldSpec.builder(
+      int.class, name, Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL);
+    fb.initializer("$L", Integer.valueOf(value));
+    return fb.build();
+  }
+
+  private static void addRangeJavadoc(
+    final MethodSpec.Builder mb)
+  {
+    mb.addJavadoc("@param src      The source buffer\n");
+    mb.addJavadoc("@param from     The first source element (inclusive)\n");
+    mb.addJavadoc("@param to       The last source element (exclusive)\n");
+    mb.addJavadoc("@param dst      The target buffer\n");
+    mb.addJavadoc("@param dst_from The first target element\n");
+  }
+
+  private static void addRangeParameters(
+    final MethodSpec.Builder mb)
+  {
+    mb.addParameter(ByteBuffer.class, "src", Modifier.FINAL);
+    mb.addParameter(int.class, "from", Modifier.FINAL);
+    mb.addParameter(int.class, "to", Modifier.FINAL);
+    mb.addParameter(ByteBuffer.class, "dst", Modifier.FINAL);
+    mb.addParameter(int.class, "dst_from", Modifier.FINAL);
+  }
+
+  private static void addRangeChecks(
+    final MethodSpec.Builder mb)
+  {
+    mb.addStatement("$T.requireNonNull(src, $S)", Objects.class, "Source");
+    mb.addStatement("$T.requireNonNull(dst, $S)", Objects.class, "Target");
+    mb.addStatement(
+      "$T.checkFromToIndex(from, to, src.capacity() / SOURCE_SIZE_OCTETS)",
+      Objects.class);
+    mb.addStatement(
+      "$T.checkFromIndexSize("
+        + "dst_from, to - from, dst.capacity() / TARGET_SIZE_OCTETS)",
+      Objects.class);
+  }
+
+  private static int octets(
+    final TType t)
+  {
+    return t.getSizeInBits().getValue().intValueExact() / 8;
+  }
+
+  private static int count(
+    final Size<?> size)
+  {
+    return size.getValue().intValueExact();
+  }
+
+  private static String at(
+    final String base,
+    final int offset)
+  {
+    if (offset == 0) {
+      return base;
+    }
+    return base + " + " + offset;
+  }
+
+  private static String mask(
+    final int bits)
+  {
+    if (bits >= 64) {
+      return "0xffffffffffffffffL";
+    }
+    return "0x" + Long.toHexString((1L << bits) - 1L) + "L";
+  }
+
+  private static IllegalArgumentException incompatible(
+    final String path,
+    final TType source,
+    final TType target)
+  {
+    return new IllegalArgumentException(
+      String.format(
+        "Field %s cannot be migrated from type %s to type %s",
+        path,
+        describe(source),
+        describe(target)));
+  }
+
+  private static String describe(
+    final TType t)
+  {
+    return t.matchType(new TypeDescriber());
+  }
+
+  /**
+   * A matcher that yields a short description of a type for error
+   * messages.
+   */
+
+  private static final class TypeDescriber
+    implements TypeMatcherType<String, UnreachableCodeException>
+  {
+    TypeDescriber()
+    {
+
+    }
+
+    @Override
+    public String matchArray(final TArray t)
+    {
+      return "array";
+    }
+
+    @Override
+    public String matchString(final TString t)
+    {
+      return "string";
+    }
+
+    @Override
+    public String matchBooleanSet(final TBooleanSet t)
+    {
+      return "boolean-set";
+    }
+
+    @Override
+    public String matchInteger(final TIntegerType t)
+    {
+      return "integer";
+    }
+
+    @Override
+    public String matchFloat(final TFloat t)
+    {
+      return "float";
+    }
+
+    @Override
+    public String matchVector(final TVector t)
+    {
+      return "vector";
+    }
+
+    @Override
+    public String matchMatrix(final TMatrix t)
+    {
+      return "matrix";
+    }
+
+    @Override
+    public String matchRecord(final TRecord t)
+    {
+      return "record " + t.getName().value();
+    }
+
+    @Override
+    public String matchPacked(final TPacked t)
+    {
+      return "packed " + t.getName().value();
+    }
+
+    @Override
+    public String matchUnion(final TUnion t)
+    {
+      return "union " + t.getName().value();
+    }
+  }
+
+  private enum Kind
+  {
+    SIGNED,
+    UNSIGNED,
+    SIGNED_NORMALIZED,
+    UNSIGNED_NORMALIZED,
+    FLOAT;
+
+    boolean isNormalized()
+    {
+      return this == SIGNED_NORMALIZED || this == UNSIGNED_NORMALIZED;
+    }
+
+    boolean isSigned()
+    {
+      return this == SIGNED || this == SIGNED_NORMALIZED;
+    }
+  }
+
+  /**
+   * A matcher that yields the kind of an integer type.
+   */
+
+  private static final class IntegerKindMatcher
+    implements TypeIntegerMatcherType<Kind, UnreachableCodeException>
+  {
+    IntegerKindMatcher()
+    {
+
+    }
+
+    @Override
+    public Kind matchIntegerUnsigned(final TIntegerUnsigned t)
+    {
+      return Kind.UNSIGNED;
+    }
+
+    @Override
+    public Kind matchIntegerSigned(final TIntegerSigned t)
+    {
+      return Kind.SIGNED;
+    }
+
+    @Override
+    public Kind matchIntegerSignedNormalized(
+      final TIntegerSignedNormalized t)
+    {
+      return Kind.SIGNED_NORMALIZED;
+    }
+
+    @Override
+    public Kind matchIntegerUnsignedNormalized(
+      final TIntegerUnsignedNormalized t)
+    {
+      return Kind.UNSIGNED_NORMALIZED;
+    }
+  }
+
+  /**
+   * The kind and size of a scalar value.
+   */
+
+  private static final class Scalar
+  {
+    private final Kind kind;
+    private final int bits;
+
+    Scalar(
+      final Kind in_kind,
+      final int in_bits)
+    {
+      this.kind = in_kind;
+      this.bits = in_bits;
+    }
+
+    static Scalar ofInteger(
+      final TIntegerType t,
+      final int bits)
+    {
+      final Kind k = t.matchTypeInteger(new IntegerKindMatcher());
+      return new Scalar(k, bits);
+    }
+
+    static Scalar of(
+      final TypeScalarType t)
+    {
+      final int bits = t.getSizeInBits().getValue().intValueExact();
+      return t.matchTypeScalar(
+        new TypeScalarMatcherType<Scalar, UnreachableCodeException>()
+        {
+          @Override
+          public Scalar matchScalarInteger(final TIntegerType t)
+          {
+            return ofInteger(t, bits);
+          }
+
+          @Override
+          public Scalar matchScalarFloat(final TFloat t)
+          {
+            return new Scalar(Kind.FLOAT, bits);
+          }
+        });
+    }
+
+    /**
+     * @return An expression that reads a value of this type, yielding a
+     * {@code long} for integers or a {@code double} for floats
+     */
+
+    CodeBlock read(
+      final String offset)
+    {
+      if (this.kind == Kind.FLOAT) {
+        switch (this.bits) {
+          case 16:
+            return CodeBlock.of(
+              "$T.unpackDouble(src.getChar($L))", Binary16.class, offset);
+          case 32:
+            return CodeBlock.of("(double) src.getFloat($L)", offset);
+          default:
+            return CodeBlock.of("src.getDouble($L)", offset);
+        }
+      }
+
+      final boolean unsigned = !this.kind.isSigned();
+      switch (this.bits) {
+        case 8:
+          return unsigned
+            ? CodeBlock.of("((long) src.get($L) & 0xffL)", offset)
+            : CodeBlock.of("(long) src.get($L)", offset);
+        case 16:
+          return unsigned
+            ? CodeBlock.of("((long) src.getShort($L) & 0xffffL)", offset)
+            : CodeBlock.of("(long) src.getShort($L)", offset);
+        case 32:
+          return unsigned
+            ? CodeBlock.of("((long) src.getInt($L) & 0xffffffffL)", offset)
+            : CodeBlock.of("(long) src.getInt($L)", offset);
+        default:
+          return CodeBlock.of("src.getLong($L)", offset);
+      }
+    }
+
+    /**
+     * @return A statement that writes a value of this type
+     */
+
+    CodeBlock write(
+      final String offset,
+      final CodeBlock value)
+    {
+      if (this.kind == Kind.FLOAT) {
+        switch (this.bits) {
+          case 16:
+            return CodeBlock.of(
+              "dst.putChar($L, $T.packDouble($L))",
+              offset,
+              Binary16.class,
+              value);
+          case 32:
+            return CodeBlock.of(
+              "dst.putFloat($L, (float) ($L))", offset, value);
+          default:
+            return CodeBlock.of("dst.putDouble($L, $L)", offset, value);
+        }
+      }
+
+      switch (this.bits) {
+        case 8:
+          return CodeBlock.of("dst.put($L, (byte) ($L))", offset, value);
+        case 16:
+          return CodeBlock.of("dst.putShort($L, (short) ($L))", offset, value);
+        case 32:
+          return CodeBlock.of("dst.putInt($L, (int) ($L))", offset, value);
+        default:
+          return CodeBlock.of("dst.putLong($L, $L)", offset, value);
+      }
+    }
+
+    /**
+     * @return An expression that converts {@code value}, a value of this
+     * type, to a value of type {@code t}
+     */
+
+    CodeBlock convertTo(
+      final Scalar t,
+      final CodeBlock value)
+    {
+      if (this.kind == t.kind && this.bits == t.bits) {
+        return value;
+      }
+      if (t.kind == Kind.FLOAT) {
+        return this.toFloat(value);
+      }
+      if (this.kind == Kind.FLOAT) {
+        return fromFloat(t, value);
+      }
+
+      if (this.kind.isNormalized() && t.kind.isNormalized()) {
+        final Scalar real = new Scalar(Kind.FLOAT, 64);
+        return real.convertTo(t, this.convertTo(real, value));
+      }
+
+      /*
+       * Conversions between plain integers, and between plain and normalized
+       * integers, preserve raw values where possible and saturate otherwise.
+       */
+
+      if (this.kind.isSigned()) {
+        return this.fromSigned(t, value);
+      }
+      return this.fromUnsigned(t, value);
+    }
+
+    private CodeBlock toFloat(
+      final CodeBlock value)
+    {
+      final Class<?> m = JPRAMigration.class;
+      final Integer sb = Integer.valueOf(this.bits);
+
+      switch (this.kind) {
+        case SIGNED:
+          return CodeBlock.of("(double) $L", value);
+        case UNSIGNED:
+          return this.bits == 64
+            ? CodeBlock.of("$T.unsignedToDouble($L)", m, value)
+            : CodeBlock.of("(double) $L", value);
+        case SIGNED_NORMALIZED:
+          return CodeBlock.of(
+            "$T.fromSignedNormalized($L, $L)", m, value, sb);
+        case UNSIGNED_NORMALIZED:
+          return CodeBlock.of(
+            "$T.fromUnsignedNormalized($L, $L)", m, value, sb);
+        case FLOAT:
+          return value;
+      }
+      throw new UnreachableCodeException();
+    }
+
+    private static CodeBlock fromFloat(
+      final Scalar t,
+      final CodeBlock value)
+    {
+      final Class<?> m = JPRAMigration.class;
+      final Integer tb = Integer.valueOf(t.bits);
+
+      switch (t.kind) {
+        case SIGNED:
+          return CodeBlock.of("$T.doubleToSigned($L, $L)", m, value, tb);
+        case UNSIGNED:
+          return CodeBlock.of("$T.doubleToUnsigned($L, $L)", m, value, tb);
+        case SIGNED_NORMALIZED:
+          return CodeBlock.of(
+            "$T.toSignedNormalized($L, $L)", m, value, tb);
+        case UNSIGNED_NORMALIZED:
+          return CodeBlock.of(
+            "$T.toUnsignedNormalized($L, $L)", m, value, tb);
+        case FLOAT:
+          break;
+      }
+      throw new UnreachableCodeException();
+    }
+
+    private CodeBlock fromSigned(
+      final Scalar t,
+      final CodeBlock value)
+    {
+      final Class<?> m = JPRAMigration.class;
+      final Integer tb = Integer.valueOf(t.bits);
+
+      if (t.kind.isSigned()) {
+        return t.bits >= this.bits
+          ? value
+          : CodeBlock.of("$T.saturateSigned($L, $L)", m, value, tb);
+      }
+      return CodeBlock.of("$T.saturateUnsigned($L, $L)", m, value, tb);
+    }
+
+    private CodeBlock fromUnsigned(
+      final Scalar t,
+      final CodeBlock value)
+    {
+      final Class<?> m = JPRAMigration.class;
+      final Integer tb = Integer.valueOf(t.bits);
+
+      if (t.kind.isSigned()) {
+        if (this.bits < t.bits) {
+          return value;
+        }
+        return this.bits == 64
+          ? CodeBlock.of(
+          "$T.saturateUnsigned64ToSigned($L, $L)", m, value, tb)
+          : CodeBlock.of("$T.saturateSigned($L, $L)", m, value, tb);
+      }
+
+      if (t.bits >= this.bits) {
+        return value;
+      }
+      return this.bits == 64
+        ? CodeBlock.of("$T.saturateUnsigned64($L, $L)", m, value, tb)
+        : CodeBlock.of("$T.saturateUnsigned($L, $L)", m, value, tb);
+    }
+  }
+
+  /**
+   * A region of generated code in which offsets are relative to a pair of
+   * base variables, and which tracks the octets of the target that have
+   * been written.
+   */
+
+  private static final class Scope
+  {
+    private final String src;
+    private final String dst;
+    private final boolean[] covered;
+    private final CodeBlock.Builder code;
+
+    Scope(
+      final String in_src,
+      final String in_dst,
+      final int in_size)
+    {
+      this.src = in_src;
+      this.dst = in_dst;
+      this.covered = new boolean[in_size];
+      this.code = CodeBlock.builder();
+    }
+
+    String source(
+      final int offset)
+    {
+      return at(this.src, offset);
+    }
+
+    String target(
+      final int offset)
+    {
+      return at(this.dst, offset);
+    }
+
+    void cover(
+      final int offset,
+      final int length)
+    {
+      for (int index = 0; index < length; ++index) {
+        this.covered[offset + index] = true;
+      }
+    }
+
+    /**
+     * Zero all octets of the target that have not been written.
+     */
+
+    void finish()
+    {
+      int index = 0;
+      while (index < this.covered.length) {
+        if (this.covered[index]) {
+          ++index;
+          continue;
+        }
+
+        final int start = index;
+        while (index < this.covered.length && !this.covered[index]) {
+          ++index;
+        }
+        this.code.addStatement(
+          "$T.zero(dst, $L, $L)",
+          JPRAMigration.class,
+          this.target(start),
+          Integer.valueOf(index - start));
+      }
+    }
+  }
+
+  /**
+   * The state of the generation of a single migrator.
+   */
+
+  private static final class Generation
+  {
+    private final Map<String, String> charsets;
+    private int depth;
+
+    Generation()
+    {
+      this.charsets = new LinkedHashMap<>(4);
+      this.depth = 0;
+    }
+
+    private String charset(
+      final String encoding)
+    {
+      return this.charsets.computeIfAbsent(
+        encoding, e -> "CHARSET_" + this.charsets.size());
+    }
+
+    void record(
+      final Scope scope,
+      final TRecord s,
+      final int s_offset,
+      final TRecord t,
+      final int t_offset,
+      final String path)
+    {
+      final Map<FieldName, Integer> s_offsets = new HashMap<>(16);
+      int offset = s_offset;
+      for (final TRecord.FieldType f : s.getFieldsInDeclarationOrder()) {
+        if (f instanceof TRecord.FieldValue) {
+          final FieldName name = ((TRecord.FieldValue) f).getName();
+          s_offsets.put(name, Integer.valueOf(offset));
+        }
+        offset += f.getSizeInOctets().getValue().intValueExact();
+      }
+
+      offset = t_offset;
+      for (final TRecord.FieldType f : t.getFieldsInDeclarationOrder()) {
+        f.matchField(new FieldMigrator(scope, s, s_offsets, offset, path));
+        offset += f.getSizeInOctets().getValue().intValueExact();
+      }
+    }
+
+    void value(
+      final Scope scope,
+      final TType s,
+      final int s_offset,
+      final TType t,
+      final int t_offset,
+      final String path)
+    {
+      t.matchType(new ValueMigrator(scope, s, s_offset, t, t_offset, path));
+    }
+
+    /*
+     * Arrays are converted with a loop rather than unrolled, with a nested
+     * scope for the elements.
+     */
+
+    private void array(
+      final Scope scope,
+      final TArray s,
+      final int s_offset,
+      final TArray t,
+      final int t_offset,
+      final String path)
+    {
+      final int n = Math.min(
+        count(s.getElementCount()), count(t.getElementCount()));
+      final int s_size = octets(s.getElementType());
+      final int t_size = octets(t.getElementType());
+
+      final int level = this.depth;
+      final String i = "i" + level;
+      final Scope inner = new Scope("s" + level, "d" + level, t_size);
+      ++this.depth;
+      this.value(
+        inner, s.getElementType(), 0, t.getElementType(), 0, path + "[]");
+      --this.depth;
+      inner.finish();
+
+      scope.code.beginControlFlow(
+        "for (int $L = 0; $L < $L; ++$L)",
+        i,
+        i,
+        Integer.valueOf(n),
+        i);
+      scope.code.addStatement(
+        "final int $L = $L + ($L * $L)",
+        inner.src,
+        scope.source(s_offset),
+        i,
+        Integer.valueOf(s_size));
+      scope.code.addStatement(
+        "final int $L = $L + ($L * $L)",
+        inner.dst,
+        scope.target(t_offset),
+        i,
+        Integer.valueOf(t_size));
+      scope.code.add(inner.code.build());
+      scope.code.endControlFlow();
+      scope.cover(t_offset, n * t_size);
+    }
+
+    private void string(
+      final Scope scope,
+      final TString s,
+      final int s_offset,
+      final TString t,
+      final int t_offset)
+    {
+      final Integer s_max = Integer.valueOf(count(s.getMaximumStringLength()));
+      final Integer t_max = Integer.valueOf(count(t.getMaximumStringLength()));
+
+      if (Objects.equals(s.getEncoding(), t.getEncoding())) {
+        scope.code.addStatement(
+          "$T.copyString(src, $L, $L, dst, $L, $L, $L)",
+          JPRAMigration.class,
+          scope.source(s_offset),
+          s_max,
+          scope.target(t_offset),
+          t_max,
+          Boolean.valueOf("UTF-8".equalsIgnoreCase(t.getEncoding())));
+      } else {
+        scope.code.addStatement(
+          "$T.transcodeString(src, $L, $L, $L, dst, $L, $L, $L)",
+          JPRAMigration.class,
+          scope.source(s_offset),
+          s_max,
+          this.charset(s.getEncoding()),
+          scope.target(t_offset),
+          t_max,
+          this.charset(t.getEncoding()));
+      }
+      scope.cover(t_offset, octets(t));
+    }
+
+    /**
+     * A matcher that generates the migration of a single field of a target
+     * record from the field of the same name in the source record.
+     */
+
+    private final class FieldMigrator
+      implements TRecord.FieldMatcherType<Void, UnreachableCodeException>
+    {
+      private final Scope scope;
+      private final TRecord source;
+      private final Map<FieldName, Integer> source_offsets;
+      private final int offset;
+      private final String path;
+
+      FieldMigrator(
+        final Scope in_scope,
+        final TRecord in_source,
+        final Map<FieldName, Integer> in_source_offsets,
+        final int in_offset,
+        final String in_path)
+      {
+        this.scope = Objects.requireNonNull(in_scope, "Scope");
+        this.source = Objects.requireNonNull(in_source, "Source");
+        this.source_offsets =
+          Objects.requireNonNull(in_source_offsets, "Source offsets");
+        this.offset = in_offset;
+        this.path = Objects.requireNonNull(in_path, "Path");
+      }
+
+      @Override
+      public Void matchFieldValue(
+        final TRecord.FieldValue tf)
+      {
+        final FieldName name = tf.getName();
+        final String f_path = this.path + "." + name.value();
+        final TRecord.FieldValue sf =
+          this.source.getFieldsByName().get(name).getOrNull();
+        if (sf == null) {
+          this.scope.code.add("// $L: new field\n", f_path);
+          return null;
+        }
+
+        this.scope.code.add("// $L\n", f_path);
+        Generation.this.value(
+          this.scope,
+          sf.getType(),
+          this.source_offsets.get(name).intValue(),
+          tf.getType(),
+          this.offset,
+          f_path);
+        return null;
+      }
+
+      @Override
+      public Void matchFieldPaddingOctets(
+        final TRecord.FieldPaddingOctets tf)
+      {
+        return null;
+      }
+    }
+
+    /**
+     * A matcher that generates the migration of a value of a source type to
+     * a value of a target type, rejecting incompatible kinds of type.
+     */
+
+    private final class ValueMigrator
+      implements TypeMatcherType<Void, UnreachableCodeException>
+    {
+      private final Scope scope;
+      private final TType source;
+      private final int s_offset;
+      private final TType target;
+      private final int t_offset;
+      private final String path;
+
+      ValueMigrator(
+        final Scope in_scope,
+        final TType in_source,
+        final int in_s_offset,
+        final TType in_target,
+        final int in_t_offset,
+        final String in_path)
+      {
+        this.scope = Objects.requireNonNull(in_scope, "Scope");
+        this.source = Objects.requireNonNull(in_source, "Source");
+        this.s_offset = in_s_offset;
+        this.target = Objects.requireNonNull(in_target, "Target");
+        this.t_offset = in_t_offset;
+        this.path = Objects.requireNonNull(in_path, "Path");
+      }
+
+      private IllegalArgumentException incompatibleHere()
+      {
+        return incompatible(this.path, this.source, this.target);
+      }
+
+      @Override
+      public Void matchArray(final TArray tt)
+      {
+        if (!(this.source instanceof TArray)) {
+          throw this.incompatibleHere();
+        }
+        Generation.this.array(
+          this.scope,
+          (TArray) this.source,
+          this.s_offset,
+          tt,
+          this.t_offset,
+          this.path);
+        return null;
+      }
+
+      @Override
+      public Void matchString(final TString tt)
+      {
+        if (!(this.source instanceof TString)) {
+          throw this.incompatibleHere();
+        }
+        Generation.this.string(
+          this.scope, (TString) this.source, this.s_offset, tt, this.t_offset);
+        return null;
+      }
+
+      @Override
+      public Void matchBooleanSet(final TBooleanSet tt)
+      {
+        if (!(this.source instanceof TBooleanSet)) {
+          throw this.incompatibleHere();
+        }
+        booleanSet(
+          this.scope,
+          (TBooleanSet) this.source,
+          this.s_offset,
+          tt,
+          this.t_offset);
+        return null;
+      }
+
+      @Override
+      public Void matchInteger(final TIntegerType tt)
+      {
+        this.scalar(tt);
+        return null;
+      }
+
+      @Override
+      public Void matchFloat(final TFloat tt)
+      {
+        this.scalar(tt);
+        return null;
+      }
+
+      private void scalar(final TypeScalarType tt)
+      {
+        if (!(this.source instanceof TypeScalarType)) {
+          throw this.incompatibleHere();
+        }
+        JPRAMigrators.scalar(
+          this.scope,
+          Scalar.of((TypeScalarType) this.source),
+          this.s_offset,
+          Scalar.of(tt),
+          this.t_offset);
+      }
+
+      @Override
+      public Void matchVector(final TVector tt)
+      {
+        if (!(this.source instanceof TVector)) {
+          throw this.incompatibleHere();
+        }
+
+        final TVector st = (TVector) this.source;
+        final int n = Math.min(
+          count(st.getElementCount()), count(tt.getElementCount()));
+        this.scalars(st.getElementType(), tt.getElementType(), n);
+        return null;
+      }
+
+      @Override
+      public Void matchMatrix(final TMatrix tt)
+      {
+        if (!(this.source instanceof TMatrix)) {
+          throw this.incompatibleHere();
+        }
+
+        final TMatrix st = (TMatrix) this.source;
+        final int w = count(tt.getWidth());
+        final int h = count(tt.getHeight());
+        if (count(st.getWidth()) != w || count(st.getHeight()) != h) {
+          throw this.incompatibleHere();
+        }
+        this.scalars(st.getElementType(), tt.getElementType(), w * h);
+        return null;
+      }
+
+      private void scalars(
+        final TypeScalarType s_element,
+        final TypeScalarType t_element,
+        final int n)
+      {
+        final Scalar ss = Scalar.of(s_element);
+        final Scalar ts = Scalar.of(t_element);
+        for (int index = 0; index < n; ++index) {
+          JPRAMigrators.scalar(
+            this.scope,
+            ss,
+            this.s_offset + (index * (ss.bits / 8)),
+            ts,
+            this.t_offset + (index * (ts.bits / 8)));
+        }
+      }
+
+      @Override
+      public Void matchRecord(final TRecord tt)
+      {
+        if (!(this.source instanceof TRecord)) {
+          throw this.incompatibleHere();
+        }
+        Generation.this.record(
+          this.scope,
+          (TRecord) this.source,
+          this.s_offset,
+          tt,
+          this.t_offset,
+          this.path);
+        return null;
+      }
+
+      @Override
+      public Void matchPacked(final TPacked tt)
+      {
+        if (!(this.source instanceof TPacked)) {
+          throw this.incompatibleHere();
+        }
+        packed(
+          this.scope, (TPacked) this.source, this.s_offset, tt, this.t_offset);
+        return null;
+      }
+
+      @Override
+      public Void matchUnion(final TUnion tt)
+      {
+        if (!(this.source instanceof TUnion)) {
+          throw this.incompatibleHere();
+        }
+        union(
+          this.scope,
+          (TUnion) this.source,
+          this.s_offset,
+          tt,
+          this.t_offset,
+          this.path);
+        return null;
+      }
+    }
+  }
+
+  private static void scalar(
+    final Scope scope,
+    final Scalar s,
+    final int s_offset,
+    final Scalar t,
+    final int t_offset)
+  {
+    final CodeBlock read = s.read(scope.source(s_offset));
+    scope.code.addStatement(t.write(
+      scope.target(t_offset), s.convertTo(t, read)));
+    scope.cover(t_offset, t.bits / 8);
+  }
+
+  /*
+   * Flags are matched by name. Each octet of the target set is assembled
+   * from the bits of the source set and written once.
+   */
+
+  private static void booleanSet(
+    final Scope scope,
+    final TBooleanSet s,
+    final int s_offset,
+    final TBooleanSet t,
+    final int t_offset)
+  {
+    final List<FieldName> s_flags = s.getFieldsInDeclarationOrder();
+    final List<FieldName> t_flags = t.getFieldsInDeclarationOrder();
+    final int size = octets(t);
+
+    if (s_flags.equals(t_flags) && octets(s) == size) {
+      scope.code.addStatement(
+        "$T.copy(src, $L, dst, $L, $L)",
+        JPRAMigration.class,
+        scope.source(s_offset),
+        scope.target(t_offset),
+        Integer.valueOf(size));
+      scope.cover(t_offset, size);
+      return;
+    }
+
+    for (int octet = 0; octet < size; ++octet) {
+      final CodeBlock.Builder bits = CodeBlock.builder();
+      boolean first = true;
+      for (int t_index = octet * 8;
+           t_index < Math.min(t_flags.size(), (octet + 1) * 8);
+           ++t_index) {
+        final int s_index = s_flags.indexOf(t_flags.get(t_index));
+        if (s_index < 0) {
+          continue;
+        }
+        if (!first) {
+          bits.add(" | ");
+        }
+        first = false;
+        bits.add(
+          "(((src.get($L) >>> $L) & 1) << $L)",
+          scope.source(s_offset + (s_index / 8)),
+          Integer.valueOf(7 - (s_index % 8)),
+          Integer.valueOf(7 - (t_index % 8)));
+      }
+
+      if (!first) {
+        scope.code.addStatement(
+          "dst.put($L, (byte) ($L))",
+          scope.target(t_offset + octet),
+          bits.build());
+        scope.cover(t_offset + octet, 1);
+      }
+    }
+  }
+
+  /*
+   * The active case of a union is only known at run-time, so unions are
+   * only migrated if their layouts are identical, in which case they are
+   * copied wholesale.
+   */
+
+  private static void union(
+    final Scope scope,
+    final TUnion s,
+    final int s_offset,
+    final TUnion t,
+    final int t_offset,
+    final String path)
+  {
+    if (s.getLayoutFingerprint() != t.getLayoutFingerprint()) {
+      throw incompatible(path, s, t);
+    }
+
+    final int t_size = octets(t);
+    scope.code.addStatement(
+      "$T.copy(src, $L, dst, $L, $L)",
+      JPRAMigration.class,
+      scope.source(s_offset),
+      scope.target(t_offset),
+      Integer.valueOf(t_size));
+    scope.cover(t_offset, t_size);
+  }
+
+  /*
+   * Packed containers are read and written in big-endian order regardless
+   * of the buffer order, so identical types can be copied directly. Other
+   * types are converted field by field through a pair of containers.
+   */
+
+  private static void packed(
+    final Scope scope,
+    final TPacked s,
+    final int s_offset,
+    final TPacked t,
+    final int t_offset)
+  {
+    final int s_size = octets(s);
+    final int t_size = octets(t);
+
+    if (s.getLayoutFingerprint() == t.getLayoutFingerprint()) {
+      scope.code.addStatement(
+        "$T.copy(src, $L, dst, $L, $L)",
+        JPRAMigration.class,
+        scope.source(s_offset),
+        scope.target(t_offset),
+        Integer.valueOf(t_size));
+      scope.cover(t_offset, t_size);
+      return;
+    }
+
+    scope.code.beginControlFlow("");
+    scope.code.addStatement(
+      "final long sc = $T.getPacked(src, $L, $L)",
+      JPRAMigration.class,
+      scope.source(s_offset),
+      Integer.valueOf(s_size));
+    scope.code.addStatement("long tc = 0L");
+
+    for (final TPacked.FieldType f : t.getFieldsInDeclarationOrder()) {
+      if (!(f instanceof TPacked.FieldValue)) {
+        continue;
+      }
+
+      final TPacked.FieldValue tf = (TPacked.FieldValue) f;
+      final TPacked.FieldValue sf =
+        s.getFieldsByName().get(tf.getName()).getOrNull();
+      if (sf == null) {
+        continue;
+      }
+
+      final int s_bits = sf.getSize().getValue().intValueExact();
+      final int s_lower = sf.getBitRange().lower().intValueExact();
+      final int t_bits = tf.getSize().getValue().intValueExact();
+      final int t_lower = tf.getBitRange().lower().intValueExact();
+      final Scalar ss = Scalar.ofInteger(sf.getType(), s_bits);
+      final Scalar ts = Scalar.ofInteger(tf.getType(), t_bits);
+
+      final CodeBlock read;
+      if (ss.kind.isSigned()) {
+        read = CodeBlock.of(
+          "((sc << $L) >> $L)",
+          Integer.valueOf(64 - (s_lower + s_bits)),
+          Integer.valueOf(64 - s_bits));
+      } else {
+        read = CodeBlock.of(
+          "((sc >>> $L) & $L)", Integer.valueOf(s_lower), mask(s_bits));
+      }
+
+      scope.code.addStatement(
+        "tc |= ($L & $L) << $L",
+        ss.convertTo(ts, read),
+        mask(t_bits),
+        Integer.valueOf(t_lower));
+    }
+
+    scope.code.addStatement(
+      "$T.putPacked(dst, $L, $L, tc)",
+      JPRAMigration.class,
+      scope.target(t_offset),
+      Integer.valueOf(t_size));
+    scope.code.endControlFlow();
+    scope.cover(t_offset, t_size);
+  }
+}
@@ -0,0 +1,566 @@
+/*
+ * Copyright © 2015 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.jpra.compiler.java;
+
+import com.io7m.jpra.model.types.TArray;
+import com.io7m.jpra.model.types.TBooleanSet;
+import com.io7m.jpra.model.types.TFloat;
+import com.io7m.jpra.model.types.TIntegerType;
+import com.io7m.jpra.model.types.TMatrix;
+import com.io7m.jpra.model.types.TPacked;
+import com.io7m.jpra.model.types.TRecord;
+import com.io7m.jpra.model.types.TString;
+import com.io7m.jpra.model.types.TType;
+import com.io7m.jpra.model.types.TUnion;
+import com.io7m.jpra.model.types.TVector;
+import com.io7m.jpra.model.types.TypeMatcherType;
+import com.io7m.jpra.runtime.java.JPRAPayloadLayout;
+import com.io7m.jranges.RangeInclusiveB;
+import com.io7m.junreachable.UnreachableCodeException;
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.FieldSpec;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.TypeSpec;
+
+import javax.lang.model.element.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Functions to calculate the significant octets of types, and to generate
+ * the padding-aware byte comparison methods.
+ */
+
+final class JPRAPayloadLayouts
+{
+  private JPRAPayloadLayouts()
+  {
+    throw new UnreachableCodeException();
+  }
+
+  /**
+   * The significant octets of a type: a per-octet mask of significant bits,
+   * and the offsets and maximum lengths of any strings, of which only the
+   * length prefix is marked in the mask.
+   */
+
+  static final class Mask
+  {
+    private final byte[] octets;
+    private final SortedMap<Integer, Integer> strings;
+
+    Mask(final int size)
+    {
+      this.octets = new byte[size];
+      this.strings = new TreeMap<>();
+    }
+  }
+
+  /**
+   * Calculate a per-octet mask of the significant bits of the given record.
+   *
+   * @param t The record type
+   *
+   * @return A mask with one element per octet of the record
+   */
+
+  static Mask recordMask(
+    final TRecord t)
+  {
+    final Mask mask = new Mask(t.getSizeInOctets().getValue().intValueExact());
+    fillRecord(t, mask, 0);
+    return mask;
+  }
+
+  /**
+   * Calculate a per-octet mask of the significant bits of the given packed
+   * type.
+   *
+   * @param t The packed type
+   *
+   * @return A mask with one element per octet of the packed type
+   */
+
+  static Mask packedMask(
+    final TPacked t)
+  {
+    final Mask mask = new Mask(t.getSizeInOctets().getValue().intValueExact());
+    fillPacked(t, mask, 0);
+    return mask;
+  }
+
+  /**
+   * Calculate a per-octet mask of the significant bits of the given union.
+   * The tag is always significant, and a payload bit is significant if it
+   * is significant in any of the cases.
+   *
+   * @param t The union type
+   *
+   * @return A mask with one element per octet of the union
+   */
+
+  static Mask unionMask(
+    final TUnion t)
+  {
+    final Mask mask = new Mask(t.getSizeInOctets().getValue().intValueExact());
+    fillUnion(t, mask, 0);
+    return mask;
+  }
+
+  private static void fillUnion(
+    final TUnion t,
+    final Mask mask,
+    final int offset)
+  {
+    final int tag = t.getTagSizeInOctets().getValue().intValueExact();
+    for (int index = 0; index < tag; ++index) {
+      mask.octets[offset + index] = (byte) 0xff;
+    }
+    for (final TUnion.Case c : t.getCasesInDeclarationOrder()) {
+      fillRecord(c.getType(), mask, offset + tag);
+    }
+  }
+
+  private static void fillRecord(
+    final TRecord t,
+    final Mask mask,
+    final int offset)
+  {
+    int field_offset = offset;
+    for (final TRecord.FieldType f : t.getFieldsInDeclarationOrder()) {
+      final int o = field_offset;
+      f.matchField(
+        new TRecord.FieldMatcherType<Void, UnreachableCodeException>()
+        {
+          @Override
+          public Void matchFieldValue(
+            final TRecord.FieldValue f)
+          {
+            fillType(f.getType(), mask, o);
+            return null;
+          }
+
+          @Override
+          public Void matchFieldPaddingOctets(
+            final TRecord.FieldPaddingOctets f)
+          {
+            return null;
+          }
+        });
+      field_offset += f.getSizeInOctets().getValue().intValueExact();
+    }
+  }
+
+  /*
+   * Packed types are stored in big-endian order, so bit {@code b} of the
+   * container (counting from the least significant bit) lives in octet
+   * {@code n - 1 - (b / 8)}.
+   */
+
+  private static void fillPacked(
+    final TPacked t,
+    final Mask mask,
+    final int offset)
+  {
+    final int size = t.getSizeInOctets().getValue().intValueExact();
+    final PackedMaskFiller filler = new PackedMaskFiller(mask, offset, size);
+    for (final TPacked.FieldType f : t.getFieldsInDeclarationOrder()) {
+      f.matchField(filler);
+    }
+  }
+
+  private static void fillAll(
+    final TType t,
+    final Mask mask,
+    final int offset)
+  {
+    final int size = t.getSizeInBits().getValue().intValueExact() / 8;
+    Arrays.fill(mask.octets, offset, offset + size, (byte) 0xff);
+  }
+
+  private static void fillType(
+    final TType t,
+    final Mask mask,
+    final int offset)
+  {
+    t.matchType(new TypeMaskFiller(mask, offset));
+  }
+
+  /**
+   * Generate the {@code PAYLOAD_LAYOUT} constant and the static {@code
+   * payloadLayout()} accessor for an implementation class.
+   *
+   * @param jcb       The class builder
+   * @param type_mask The mask of significant octets
+   */
+
+  static void generateLayoutField(
+    final TypeSpec.Builder jcb,
+    final Mask type_mask)
+  {
+    Objects.requireNonNull(jcb, "Class builder");
+    Objects.requireNonNull(type_mask, "Mask");
+
+    final byte[] mask = type_mask.octets;
+
+    final ArrayList<String> ranges = new ArrayList<>(8);
+    final ArrayList<String> partial_offsets = new ArrayList<>(8);
+    final ArrayList<String> partial_masks = new ArrayList<>(8);
+
+    int index = 0;
+    while (index < mask.length) {
+      final int m = (int) mask[index] & 0xff;
+      if (m == 0xff) {
+        final int start = index;
+        while (index < mask.length && mask[index] == (byte) 0xff) {
+          ++index;
+        }
+        ranges.add(Integer.toString(start));
+        ranges.add(Integer.toString(index - start));
+        continue;
+      }
+      if (m != 0) {
+        partial_offsets.add(Integer.toString(index));
+        partial_masks.add(String.format("(byte) 0x%02x", Integer.valueOf(m)));
+      }
+      ++index;
+    }
+
+    final FieldSpec.Builder fb = FieldSpec.builder(
+      JPRAPayloadLayout.class,
+      "PAYLOAD_LAYOUT",
+      Modifier.FINAL,
+      Modifier.STATIC,
+      Modifier.PRIVATE);
+
+    if (type_mask.strings.isEmpty()) {
+      fb.initializer(CodeBlock.of(
+        "$T.of($L, new int[]{$L}, new int[]{$L}, new byte[]{$L})",
+        JPRAPayloadLayout.class,
+        Integer.valueOf(mask.length),
+        String.join(", ", ranges),
+        String.join(", ", partial_offsets),
+        String.join(", ", partial_masks)));
+    } else {
+      final ArrayList<String> strings = new ArrayList<>(8);
+      type_mask.strings.forEach((offset, length) -> {
+        strings.add(offset.toString());
+        strings.add(length.toString());
+      });
+
+      fb.initializer(CodeBlock.of(
+        "$T.of($L, new int[]{$L}, new int[]{$L}, new byte[]{$L}, "
+          + "new int[]{$L})",
+        JPRAPayloadLayout.class,
+        Integer.valueOf(mask.length),
+        String.join(", ", ranges),
+        String.join(", ", partial_offsets),
+        String.join(", ", partial_masks),
+        String.join(", ", strings)));
+    }
+    jcb.addField(fb.build());
+
+    final MethodSpec.Builder jmb = MethodSpec.methodBuilder("payloadLayout");
+    jmb.addJavadoc(
+      "@return The layout of the significant (non-padding) octets of the type\n");
+    jmb.addModifiers(Modifier.PUBLIC);
+    jmb.addModifiers(Modifier.STATIC);
+    jmb.returns(JPRAPayloadLayout.class);
+    jmb.addStatement("return PAYLOAD_LAYOUT");
+    jcb.addMethod(jmb.build());
+  }
+
+  /**
+   * Generate the declarations of the byte comparison methods for a readable
+   * interface.
+   *
+   * @param jcb       The interface builder
+   * @param read_name The name of the readable interface
+   */
+
+  static void generateInterfaceMethods(
+    final TypeSpec.Builder jcb,
+    final ClassName read_name)
+  {
+    Objects.requireNonNull(jcb, "Class builder");
+    Objects.requireNonNull(read_name, "Readable name");
+
+    {
+      final MethodSpec.Builder jmb = MethodSpec.methodBuilder("equalsBytes");
+      jmb.addJavadoc(
+        "Compare the significant octets of this value with {@code other}. "
+          + "Padding, and string data past the current length of each "
+          + "string, is ignored.\n\n"
+          + "@param other A value produced by the same implementation\n\n"
+          + "@return {@code true} iff the values are bytewise equal\n");
+      jmb.addModifiers(Modifier.PUBLIC, Modifier.ABSTRACT);
+      jmb.addParameter(read_name, "other");
+      jmb.returns(boolean.class);
+      jcb.addMethod(jmb.build());
+    }
+
+    {
+      final MethodSpec.Builder jmb = MethodSpec.methodBuilder("mismatch");
+      jmb.addJavadoc(
+        "Find the first significant octet that differs between this value "
+          + "and {@code other}. Padding is ignored.\n\n"
+          + "@param other A value produced by the same implementation\n\n"
+          + "@return The offset of the first differing octet relative to the "
+          + "start of the value, or {@code -1} if the values are equal\n");
+      jmb.addModifiers(Modifier.PUBLIC, Modifier.ABSTRACT);
+      jmb.addParameter(read_name, "other");
+      jmb.returns(int.class);
+      jcb.addMethod(jmb.build());
+    }
+
+    {
+      final MethodSpec.Builder jmb = MethodSpec.methodBuilder("hashBytes");
+      jmb.addJavadoc(
+        "@return A 64-bit hash of the significant octets of this value. "
+          + "The hash depends only on those octets and is therefore the same "
+          + "on every JVM, but values written in different byte orders have "
+          + "different octets\n");
+      jmb.addModifiers(Modifier.PUBLIC, Modifier.ABSTRACT);
+      jmb.returns(long.class);
+      jcb.addMethod(jmb.build());
+    }
+  }
+
+  /**
+   * Generate the implementations of the byte comparison methods.
+   *
+   * @param jcb         The class builder
+   * @param imp_name    The name of the implementation class
+   * @param read_name   The name of the readable interface
+   * @param offset_expr An expression that yields the current byte offset of
+   *                    the value
+   */
+
+  static void generateImplementationMethods(
+    final TypeSpec.Builder jcb,
+    final ClassName imp_name,
+    final ClassName read_name,
+    final String offset_expr)
+  {
+    Objects.requireNonNull(jcb, "Class builder");
+    Objects.requireNonNull(imp_name, "Implementation name");
+    Objects.requireNonNull(read_name, "Readable name");
+    Objects.requireNonNull(offset_expr, "Offset expression");
+
+    {
+      final MethodSpec.Builder jmb = MethodSpec.methodBuilder("equalsBytes");
+      jmb.addModifiers(Modifier.PUBLIC);
+      jmb.addAnnotation(Override.class);
+      jmb.addParameter(read_name, "other", Modifier.FINAL);
+      jmb.returns(boolean.class);
+      jmb.addStatement(
+        "final $T o = ($T) $T.requireNonNull(other, $S)",
+        imp_name,
+        imp_name,
+        Objects.class,
+        "Other");
+      jmb.addStatement(
+        "return PAYLOAD_LAYOUT.equal(this.buffer, this.$L, o.buffer, o.$L)",
+        offset_expr,
+        offset_expr);
+      jcb.addMethod(jmb.build());
+    }
+
+    {
+      final MethodSpec.Builder jmb = MethodSpec.methodBuilder("mismatch");
+      jmb.addModifiers(Modifier.PUBLIC);
+      jmb.addAnnotation(Override.class);
+      jmb.addParameter(read_name, "other", Modifier.FINAL);
+      jmb.returns(int.class);
+      jmb.addStatement(
+        "final $T o = ($T) $T.requireNonNull(other, $S)",
+        imp_name,
+        imp_name,
+        Objects.class,
+        "Other");
+      jmb.addStatement(
+        "return PAYLOAD_LAYOUT.mismatch(this.buffer, this.$L, o.buffer, o.$L)",
+        offset_expr,
+        offset_expr);
+      jcb.addMethod(jmb.build());
+    }
+
+    {
+      final MethodSpec.Builder jmb = MethodSpec.methodBuilder("hashBytes");
+      jmb.addModifiers(Modifier.PUBLIC);
+      jmb.addAnnotation(Override.class);
+      jmb.returns(long.class);
+      jmb.addStatement(
+        "return PAYLOAD_LAYOUT.hash(this.buffer, this.$L)", offset_expr);
+      jcb.addMethod(jmb.build());
+    }
+  }
+
+  /**
+   * A matcher that marks the significant bits of the fields of a packed
+   * type.
+   */
+
+  private static final class PackedMaskFiller
+    implements TPacked.FieldMatcherType<Void, UnreachableCodeException>
+  {
+    private final Mask mask;
+    private final int offset;
+    private final int size;
+
+    PackedMaskFiller(
+      final Mask in_mask,
+      final int in_offset,
+      final int in_size)
+    {
+      this.mask = Objects.requireNonNull(in_mask, "Mask");
+      this.offset = in_offset;
+      this.size = in_size;
+    }
+
+    @Override
+    public Void matchFieldValue(
+      final TPacked.FieldValue f)
+    {
+      final RangeInclusiveB range = f.getBitRange();
+      final int lower = range.lower().intValueExact();
+      final int upper = range.upper().intValueExact();
+      for (int bit = lower; bit <= upper; ++bit) {
+        final int index = this.offset + (this.size - 1 - (bit / 8));
+        this.mask.octets[index] =
+          (byte) ((int) this.mask.octets[index] | (1 << (bit % 8)));
+      }
+      return null;
+    }
+
+    @Override
+    public Void matchFieldPaddingBits(
+      final TPacked.FieldPaddingBits f)
+    {
+      return null;
+    }
+  }
+
+  /**
+   * A matcher that marks the significant octets of a value of a type.
+   */
+
+  private static final class TypeMaskFiller
+    implements TypeMatcherType<Void, UnreachableCodeException>
+  {
+    private final Mask mask;
+    private final int offset;
+
+    TypeMaskFiller(
+      final Mask in_mask,
+      final int in_offset)
+    {
+      this.mask = Objects.requireNonNull(in_mask, "Mask");
+      this.offset = in_offset;
+    }
+
+    @Override
+    public Void matchArray(final TArray t)
+    {
+      final TType e = t.getElementType();
+      final int count = t.getElementCount().getValue().intValueExact();
+      final int e_size = e.getSizeInBits().getValue().intValueExact() / 8;
+      for (int index = 0; index < count; ++index) {
+        fillType(e, this.mask, this.offset + (index * e_size));
+      }
+      return null;
+    }
+
+    /*
+     * Only the length prefix of a string is unconditionally significant.
+     * The data is recorded separately, as the number of significant octets
+     * is only known at run-time.
+     */
+
+    @Override
+    public Void matchString(final TString t)
+    {
+      Arrays.fill(this.mask.octets, this.offset, this.offset + 4, (byte) 0xff);
+      this.mask.strings.merge(
+        Integer.valueOf(this.offset),
+        Integer.valueOf(
+          t.getMaximumStringLength().getValue().intValueExact()),
+        (x, y) -> Integer.valueOf(Math.max(x.intValue(), y.intValue())));
+      return null;
+    }
+
+    @Override
+    public Void matchBooleanSet(final TBooleanSet t)
+    {
+      fillAll(t, this.mask, this.offset);
+      return null;
+    }
+
+    @Override
+    public Void matchInteger(final TIntegerType t)
+    {
+      fillAll(t, this.mask, this.offset);
+      return null;
+    }
+
+    @Override
+    public Void matchFloat(final TFloat t)
+    {
+      fillAll(t, this.mask, this.offset);
+      return null;
+    }
+
+    @Override
+    public Void matchVector(final TVector t)
+    {
+      fillAll(t, this.mask, this.offset);
+      return null;
+    }
+
+    @Override
+    public Void matchMatrix(final TMatrix t)
+    {
+      fillAll(t, this.mask, this.offset);
+      return null;
+    }
+
+    @Override
+    public Void matchRecord(final TRecord t)
+    {
+      fillRecord(t, this.mask, this.offset);
+      return null;
+    }
+
+    @Override
+    public Void matchPacked(final TPacked t)
+    {
+      fillPacked(t, this.mask, this.offset);
+      return null;
+    }
+
+    @Override
+    public Void matchUnion(final TUnion t)
+    {
+      fillUnion(t, this.mask, this.offset);
+      return null;
+    }
+  }
+}
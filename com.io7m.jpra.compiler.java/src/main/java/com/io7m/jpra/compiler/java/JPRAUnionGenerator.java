@@ -0,0 +1,596 @@
+/*
+ * Copyright © 2015 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.jpra.compiler.java;
+
+import com.io7m.jpra.model.contexts.PackageContextType;
+import com.io7m.jpra.model.names.TypeName;
+import com.io7m.jpra.model.names.UnionCaseName;
+import com.io7m.jpra.model.types.TRecord;
+import com.io7m.jpra.model.types.TUnion;
+import com.io7m.jpra.runtime.java.JPRAByteBufferedRebindableType;
+import com.io7m.jpra.runtime.java.JPRACursorByteReadableType;
+import com.io7m.jpra.runtime.java.JPRAValueType;
+import com.io7m.junreachable.UnreachableCodeException;
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.FieldSpec;
+import com.squareup.javapoet.JavaFile;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.ParameterizedTypeName;
+import com.squareup.javapoet.TypeSpec;
+import com.squareup.javapoet.TypeVariableName;
+
+import javax.lang.model.element.Modifier;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
+/**
+ * Functions to generate the types that make up a union.
+ */
+
+final class JPRAUnionGenerator
+{
+  private JPRAUnionGenerator()
+  {
+    throw new UnreachableCodeException();
+  }
+
+  private static ClassName unionCaseClass(
+    final TUnion.Case c,
+    final String name)
+  {
+    final TRecord r = c.getType();
+    return ClassName.get(r.getPackageContext().getName().toString(), name);
+  }
+
+  private static void generateUnionConstructor(
+    final TUnion t,
+    final ClassName ptr_class,
+    final TypeSpec.Builder jcb)
+  {
+    final ClassName cno = ClassName.get(Objects.class);
+    final MethodSpec.Builder jmb = MethodSpec.constructorBuilder();
+    jmb.addModifiers(Modifier.PRIVATE);
+    jmb.addParameter(ByteBuffer.class, "in_buffer", Modifier.FINAL);
+    jmb.addParameter(ptr_class, "in_pointer", Modifier.FINAL);
+    jmb.addParameter(int.class, "in_base_offset", Modifier.FINAL);
+    jmb.addStatement(
+      "this.$N = $T.requireNonNull($N, $S)",
+      "buffer",
+      cno,
+      "in_buffer",
+      "Buffer");
+    jmb.addStatement(
+      "this.$N = $T.requireNonNull($N, $S)",
+      "pointer",
+      cno,
+      "in_pointer",
+      "Pointer");
+    jmb.addStatement("this.$N = $N", "base_offset", "in_base_offset");
+
+    /*
+     * Every case view is bound to the same storage: the payload that
+     * directly follows the tag.
+     */
+
+    for (final TUnion.Case c : t.getCasesInDeclarationOrder()) {
+      final TypeName r_name = c.getType().getName();
+      final String field_name =
+        JPRAGeneratedNames.getUnionCaseFieldName(c.getName());
+      final ClassName c_int = unionCaseClass(
+        c, JPRAGeneratedNames.getRecordInterfaceName(r_name));
+      final ClassName c_imp = unionCaseClass(
+        c, JPRAGeneratedNames.getRecordImplementationByteBufferedName(r_name));
+
+      jcb.addField(c_int, field_name, Modifier.PRIVATE, Modifier.FINAL);
+      jmb.addStatement(
+        "this.$N = $T.newValueWithOffset($N, $N, $N + $N)",
+        field_name,
+        c_imp,
+        "in_buffer",
+        "in_pointer",
+        "in_base_offset",
+        "PAYLOAD_OFFSET_OCTETS");
+    }
+
+    jcb.addMethod(jmb.build());
+  }
+
+  private static void generateUnionRebindMethod(
+    final TUnion t,
+    final TypeSpec.Builder jcb)
+  {
+    final MethodSpec.Builder jmb = MethodSpec.methodBuilder("rebind");
+    jmb.addModifiers(Modifier.PUBLIC);
+    jmb.addAnnotation(Override.class);
+    jmb.addParameter(ByteBuffer.class, "in_buffer", Modifier.FINAL);
+    jmb.addStatement(
+      "this.$N = $T.requireNonNull($N, $S)",
+      "buffer",
+      Objects.class,
+      "in_buffer",
+      "Buffer");
+
+    for (final TUnion.Case c : t.getCasesInDeclarationOrder()) {
+      jmb.addStatement(
+        "(($T) this.$N).rebind($N)",
+        JPRAByteBufferedRebindableType.class,
+        JPRAGeneratedNames.getUnionCaseFieldName(c.getName()),
+        "in_buffer");
+    }
+
+    jcb.addMethod(jmb.build());
+  }
+
+  /*
+   * The tag is read and written with the buffer's byte order, in the same
+   * manner as integer record fields. The checker guarantees that the tag
+   * is 8, 16, 32, or 64 bits.
+   */
+
+  private static void generateUnionTagMethods(
+    final TUnion t,
+    final ClassName read_name,
+    final TypeSpec.Builder jcb)
+  {
+    final int bits = t.getTagType().getSizeInBits().getValue().intValueExact();
+
+    final String get_expr;
+    final String put_method;
+    final Class<?> put_type;
+    switch (bits) {
+      case 8:
+        get_expr = "(long) this.buffer.get(o) & 0xffL";
+        put_method = "put";
+        put_type = byte.class;
+        break;
+      case 16:
+        get_expr = "(long) this.buffer.getShort(o) & 0xffffL";
+        put_method = "putShort";
+        put_type = short.class;
+        break;
+      case 32:
+        get_expr = "(long) this.buffer.getInt(o) & 0xffffffffL";
+        put_method = "putInt";
+        put_type = int.class;
+        break;
+      case 64:
+        get_expr = "this.buffer.getLong(o)";
+        put_method = "putLong";
+        put_type = long.class;
+        break;
+      default:
+        throw new UnreachableCodeException();
+    }
+
+    {
+      final MethodSpec.Builder jmb = MethodSpec.methodBuilder("getTag");
+      jmb.addModifiers(Modifier.PUBLIC);
+      jmb.addAnnotation(Override.class);
+      jmb.returns(long.class);
+      jmb.addStatement("final int o = this.getByteOffsetFor(0)");
+      jmb.addStatement("return " + get_expr);
+      jcb.addMethod(jmb.build());
+    }
+
+    for (final TUnion.Case c : t.getCasesInDeclarationOrder()) {
+      final UnionCaseName c_name = c.getName();
+      final TypeName r_name = c.getType().getName();
+      final String field_name =
+        JPRAGeneratedNames.getUnionCaseFieldName(c_name);
+      final String tag_name =
+        JPRAGeneratedNames.getUnionTagConstantName(c_name);
+
+      {
+        final MethodSpec.Builder jmb = MethodSpec.methodBuilder(
+          JPRAGeneratedNames.getUnionCaseReadableName(c_name));
+        jmb.addModifiers(Modifier.PUBLIC);
+        jmb.addAnnotation(Override.class);
+        jmb.returns(unionCaseClass(
+          c, JPRAGeneratedNames.getRecordInterfaceReadableName(r_name)));
+        jmb.addStatement("return this.$N", field_name);
+        jcb.addMethod(jmb.build());
+      }
+
+      {
+        final MethodSpec.Builder jmb = MethodSpec.methodBuilder(
+          JPRAGeneratedNames.getUnionCaseWritableName(c_name));
+        jmb.addModifiers(Modifier.PUBLIC);
+        jmb.addAnnotation(Override.class);
+        jmb.returns(unionCaseClass(
+          c, JPRAGeneratedNames.getRecordInterfaceName(r_name)));
+        jmb.addStatement("return this.$N", field_name);
+        jcb.addMethod(jmb.build());
+      }
+
+      {
+        final MethodSpec.Builder jmb = MethodSpec.methodBuilder(
+          JPRAGeneratedNames.getUnionCaseSelectName(c_name));
+        jmb.addModifiers(Modifier.PUBLIC);
+        jmb.addAnnotation(Override.class);
+        jmb.returns(unionCaseClass(
+          c, JPRAGeneratedNames.getRecordInterfaceName(r_name)));
+        jmb.addStatement(
+          "this.buffer.$N(this.getByteOffsetFor(0), ($T) $T.$N)",
+          put_method,
+          put_type,
+          read_name,
+          tag_name);
+        jmb.addStatement("return this.$N", field_name);
+        jcb.addMethod(jmb.build());
+      }
+    }
+  }
+
+  private static void generateUnionMatchMethod(
+    final TUnion t,
+    final ClassName match_name,
+    final TypeSpec.Builder jcb)
+  {
+    final TypeVariableName tv_a = TypeVariableName.get("A");
+    final TypeVariableName tv_e = TypeVariableName.get("E", Exception.class);
+    final int count = t.getCasesInDeclarationOrder().size();
+
+    final MethodSpec.Builder jmb = MethodSpec.methodBuilder("matchCase");
+    jmb.addModifiers(Modifier.PUBLIC);
+    jmb.addAnnotation(Override.class);
+    jmb.addTypeVariable(tv_a);
+    jmb.addTypeVariable(tv_e);
+    jmb.returns(tv_a);
+    jmb.addParameter(
+      ParameterizedTypeName.get(match_name, tv_a, tv_e), "m", Modifier.FINAL);
+    jmb.addException(tv_e);
+    jmb.addStatement("$T.requireNonNull(m, $S)", Objects.class, "Matcher");
+    jmb.addStatement("final long tag = this.getTag()");
+    jmb.beginControlFlow(
+      "if (tag >= 0L && tag < $LL)", Integer.valueOf(count));
+    jmb.beginControlFlow("switch ((int) tag)");
+    for (final TUnion.Case c : t.getCasesInDeclarationOrder()) {
+      final UnionCaseName c_name = c.getName();
+      jmb.addCode("case $L:\n", c.getTagValue());
+      jmb.addStatement(
+        "$>return m.$N(this.$N)$<",
+        JPRAGeneratedNames.getUnionCaseMatchName(c_name),
+        JPRAGeneratedNames.getUnionCaseFieldName(c_name));
+    }
+    jmb.endControlFlow();
+    jmb.endControlFlow();
+    jmb.addStatement(
+      "throw new $T($T.format($S, $T.valueOf(tag)))",
+      IllegalStateException.class,
+      String.class,
+      "Unrecognized tag value: %d",
+      Long.class);
+    jcb.addMethod(jmb.build());
+  }
+
+  static void generateUnionImplementation(
+    final TUnion t,
+    final OutputStream os)
+    throws IOException
+  {
+    Objects.requireNonNull(t, "t");
+    Objects.requireNonNull(os, "os");
+
+    try (OutputStreamWriter out = new OutputStreamWriter(os)) {
+      final PackageContextType tp = t.getPackageContext();
+      final TypeName t_name = t.getName();
+      final String tn =
+        JPRAGeneratedNames.getUnionImplementationByteBufferedName(t_name);
+      final String in = JPRAGeneratedNames.getUnionInterfaceName(t_name);
+
+      final String pack_name = tp.getName().toString();
+      final ClassName imp_name = ClassName.get(pack_name, tn);
+      final ClassName int_name = ClassName.get(pack_name, in);
+      final ClassName read_name = ClassName.get(
+        pack_name, JPRAGeneratedNames.getUnionInterfaceReadableName(t_name));
+      final ClassName match_name = ClassName.get(
+        pack_name, JPRAGeneratedNames.getUnionMatcherName(t_name));
+      final ClassName ptr_class =
+        ClassName.get(JPRACursorByteReadableType.class);
+
+      final TypeSpec.Builder jcb = TypeSpec.classBuilder(tn);
+      jcb.addJavadoc(
+        "A {@code ByteBuffer} based implementation of the {@code $L} "
+          + "union type.",
+        t_name);
+      jcb.addSuperinterface(int_name);
+      jcb.addSuperinterface(JPRAByteBufferedRebindableType.class);
+      jcb.addModifiers(Modifier.PUBLIC, Modifier.FINAL);
+
+      final FieldSpec.Builder fb = FieldSpec.builder(
+        int.class,
+        "PAYLOAD_OFFSET_OCTETS",
+        Modifier.FINAL,
+        Modifier.STATIC,
+        Modifier.PRIVATE);
+      fb.initializer(t.getTagSizeInOctets().getValue().toString());
+      jcb.addField(fb.build());
+
+      jcb.addField(ByteBuffer.class, "buffer", Modifier.PRIVATE);
+      jcb.addField(
+        int.class, "base_offset", Modifier.PRIVATE, Modifier.FINAL);
+      jcb.addField(ptr_class, "pointer", Modifier.PRIVATE, Modifier.FINAL);
+
+      generateUnionConstructor(t, ptr_class, jcb);
+      JPRAJavaGenerator.generateRecordFactoryMethods(
+        imp_name, int_name, ptr_class, jcb);
+      JPRAJavaGenerator.generateSizeMethods(jcb, t.getSizeInOctets());
+      generateUnionRebindMethod(t, jcb);
+      JPRAJavaGenerator.generateRecordByteOffsetMethod(jcb);
+      generateUnionTagMethods(t, read_name, jcb);
+      generateUnionMatchMethod(t, match_name, jcb);
+
+      JPRAPayloadLayouts.generateLayoutField(
+        jcb, JPRAPayloadLayouts.unionMask(t));
+      JPRALayoutFingerprints.generateFingerprintField(
+        jcb, t.getLayoutFingerprint());
+      JPRAPayloadLayouts.generateImplementationMethods(
+        jcb, imp_name, read_name, "getByteOffsetFor(0)");
+
+      final JavaFile.Builder jfb = JavaFile.builder(pack_name, jcb.build());
+      final JavaFile jf = jfb.build();
+      jf.writeTo(out);
+    }
+  }
+
+  static void generateUnionInterfaceReadable(
+    final TUnion t,
+    final OutputStream os)
+    throws IOException
+  {
+    Objects.requireNonNull(t, "t");
+    Objects.requireNonNull(os, "os");
+
+    try (OutputStreamWriter out = new OutputStreamWriter(os)) {
+      final PackageContextType tp = t.getPackageContext();
+      final TypeName tn = t.getName();
+      final String name = JPRAGeneratedNames.getUnionInterfaceReadableName(tn);
+      final String pack_name = tp.getName().toString();
+      final ClassName match_name =
+        ClassName.get(pack_name, JPRAGeneratedNames.getUnionMatcherName(tn));
+
+      final TypeSpec.Builder jcb = TypeSpec.interfaceBuilder(name);
+      jcb.addJavadoc(
+        "The readable interface to values of the {@code $L} union type.",
+        tn);
+      jcb.addModifiers(Modifier.PUBLIC);
+      jcb.addSuperinterface(JPRAValueType.class);
+
+      for (final TUnion.Case c : t.getCasesInDeclarationOrder()) {
+        final FieldSpec.Builder fb = FieldSpec.builder(
+          long.class,
+          JPRAGeneratedNames.getUnionTagConstantName(c.getName()),
+          Modifier.PUBLIC,
+          Modifier.STATIC,
+          Modifier.FINAL);
+        fb.addJavadoc(
+          "The tag value of the {@code $L} case.\n", c.getName().value());
+        fb.initializer("$LL", c.getTagValue());
+        jcb.addField(fb.build());
+      }
+
+      {
+        final MethodSpec.Builder jmb = MethodSpec.methodBuilder("getTag");
+        jmb.addJavadoc("@return The tag of the union\n");
+        jmb.addModifiers(Modifier.PUBLIC, Modifier.ABSTRACT);
+        jmb.returns(long.class);
+        jcb.addMethod(jmb.build());
+      }
+
+      for (final TUnion.Case c : t.getCasesInDeclarationOrder()) {
+        final UnionCaseName c_name = c.getName();
+        final MethodSpec.Builder jmb = MethodSpec.methodBuilder(
+          JPRAGeneratedNames.getUnionCaseReadableName(c_name));
+        jmb.addJavadoc(
+          "@return A readable view of the {@code $L} case. The view is only "
+            + "meaningful if the tag is {@link #$L}.\n",
+          c_name.value(),
+          JPRAGeneratedNames.getUnionTagConstantName(c_name));
+        jmb.addModifiers(Modifier.PUBLIC, Modifier.ABSTRACT);
+        jmb.returns(unionCaseClass(
+          c,
+          JPRAGeneratedNames.getRecordInterfaceReadableName(
+            c.getType().getName())));
+        jcb.addMethod(jmb.build());
+      }
+
+      {
+        final TypeVariableName tv_a = TypeVariableName.get("A");
+        final TypeVariableName tv_e =
+          TypeVariableName.get("E", Exception.class);
+        final MethodSpec.Builder jmb = MethodSpec.methodBuilder("matchCase");
+        jmb.addJavadoc(
+          "Pass the case selected by the tag to the given matcher.\n\n"
+            + "@param m   The matcher\n"
+            + "@param <A> The type of returned values\n"
+            + "@param <E> The type of raised exceptions\n\n"
+            + "@return The value returned by the matcher\n\n"
+            + "@throws E If the matcher raises {@code E}\n");
+        jmb.addModifiers(Modifier.PUBLIC, Modifier.ABSTRACT);
+        jmb.addTypeVariable(tv_a);
+        jmb.addTypeVariable(tv_e);
+        jmb.returns(tv_a);
+        jmb.addParameter(
+          ParameterizedTypeName.get(match_name, tv_a, tv_e), "m");
+        jmb.addException(tv_e);
+        jcb.addMethod(jmb.build());
+      }
+
+      JPRAPayloadLayouts.generateInterfaceMethods(
+        jcb, ClassName.get(pack_name, name));
+
+      final TypeSpec jc = jcb.build();
+      final JavaFile.Builder jfb = JavaFile.builder(pack_name, jc);
+      final JavaFile jf = jfb.build();
+      jf.writeTo(out);
+    }
+  }
+
+  static void generateUnionInterfaceWritable(
+    final TUnion t,
+    final OutputStream os)
+    throws IOException
+  {
+    Objects.requireNonNull(t, "t");
+    Objects.requireNonNull(os, "os");
+
+    try (OutputStreamWriter out = new OutputStreamWriter(os)) {
+      final PackageContextType tp = t.getPackageContext();
+      final TypeName t_name = t.getName();
+      final String tn = JPRAGeneratedNames.getUnionInterfaceWritableName(t_name);
+
+      final TypeSpec.Builder jcb = TypeSpec.interfaceBuilder(tn);
+      jcb.addJavadoc(
+        "The writable interface to values of the {@code $L} union type.",
+        t_name);
+      jcb.addModifiers(Modifier.PUBLIC);
+      jcb.addSuperinterface(JPRAValueType.class);
+
+      for (final TUnion.Case c : t.getCasesInDeclarationOrder()) {
+        final UnionCaseName c_name = c.getName();
+        final ClassName c_type = unionCaseClass(
+          c,
+          JPRAGeneratedNames.getRecordInterfaceName(c.getType().getName()));
+
+        {
+          final MethodSpec.Builder jmb = MethodSpec.methodBuilder(
+            JPRAGeneratedNames.getUnionCaseWritableName(c_name));
+          jmb.addJavadoc(
+            "@return A writable view of the {@code $L} case. Writing to the "
+              + "view does not change the tag.\n",
+            c_name.value());
+          jmb.addModifiers(Modifier.PUBLIC, Modifier.ABSTRACT);
+          jmb.returns(c_type);
+          jcb.addMethod(jmb.build());
+        }
+
+        {
+          final MethodSpec.Builder jmb = MethodSpec.methodBuilder(
+            JPRAGeneratedNames.getUnionCaseSelectName(c_name));
+          jmb.addJavadoc(
+            "Set the tag to {@code $L}.\n\n"
+              + "@return A writable view of the {@code $L} case\n",
+            JPRAGeneratedNames.getUnionTagConstantName(c_name),
+            c_name.value());
+          jmb.addModifiers(Modifier.PUBLIC, Modifier.ABSTRACT);
+          jmb.returns(c_type);
+          jcb.addMethod(jmb.build());
+        }
+      }
+
+      final TypeSpec jc = jcb.build();
+      final JavaFile.Builder jfb =
+        JavaFile.builder(tp.getName().toString(), jc);
+      final JavaFile jf = jfb.build();
+      jf.writeTo(out);
+    }
+  }
+
+  static void generateUnionInterface(
+    final TUnion t,
+    final OutputStream os)
+    throws IOException
+  {
+    Objects.requireNonNull(t, "t");
+    Objects.requireNonNull(os, "os");
+
+    try (OutputStreamWriter out = new OutputStreamWriter(os)) {
+      final PackageContextType tp = t.getPackageContext();
+      final TypeName t_name = t.getName();
+      final String pack_name = tp.getName().toString();
+
+      final String wtn =
+        JPRAGeneratedNames.getUnionInterfaceWritableName(t_name);
+      final String rtn =
+        JPRAGeneratedNames.getUnionInterfaceReadableName(t_name);
+      final String tn = JPRAGeneratedNames.getUnionInterfaceName(t_name);
+
+      final TypeSpec.Builder jcb = TypeSpec.interfaceBuilder(tn);
+      jcb.addJavadoc(
+        "The interface to values of the {@code $L} union type.", t_name);
+      jcb.addModifiers(Modifier.PUBLIC);
+      jcb.addSuperinterface(ClassName.get(pack_name, wtn));
+      jcb.addSuperinterface(ClassName.get(pack_name, rtn));
+      jcb.addSuperinterface(JPRAValueType.class);
+
+      final TypeSpec jc = jcb.build();
+      final JavaFile.Builder jfb = JavaFile.builder(pack_name, jc);
+      final JavaFile jf = jfb.build();
+      jf.writeTo(out);
+    }
+  }
+
+  static void generateUnionMatcher(
+    final TUnion t,
+    final OutputStream os)
+    throws IOException
+  {
+    Objects.requireNonNull(t, "t");
+    Objects.requireNonNull(os, "os");
+
+    try (OutputStreamWriter out = new OutputStreamWriter(os)) {
+      final PackageContextType tp = t.getPackageContext();
+      final TypeName t_name = t.getName();
+      final String pack_name = tp.getName().toString();
+      final String tn = JPRAGeneratedNames.getUnionMatcherName(t_name);
+
+      final TypeVariableName tv_a = TypeVariableName.get("A");
+      final TypeVariableName tv_e =
+        TypeVariableName.get("E", Exception.class);
+
+      final TypeSpec.Builder jcb = TypeSpec.interfaceBuilder(tn);
+      jcb.addJavadoc(
+        "A matcher for the cases of the {@code $L} union type.\n\n"
+          + "@param <A> The type of returned values\n"
+          + "@param <E> The type of raised exceptions\n",
+        t_name);
+      jcb.addModifiers(Modifier.PUBLIC);
+      jcb.addTypeVariable(tv_a);
+      jcb.addTypeVariable(tv_e);
+
+      for (final TUnion.Case c : t.getCasesInDeclarationOrder()) {
+        final UnionCaseName c_name = c.getName();
+        final MethodSpec.Builder jmb = MethodSpec.methodBuilder(
+          JPRAGeneratedNames.getUnionCaseMatchName(c_name));
+        jmb.addJavadoc(
+          "Match the {@code $L} case.\n\n"
+            + "@param c The case\n\n"
+            + "@return A value of type {@code A}\n\n"
+            + "@throws E If required\n",
+          c_name.value());
+        jmb.addModifiers(Modifier.PUBLIC, Modifier.ABSTRACT);
+        jmb.returns(tv_a);
+        jmb.addParameter(
+          unionCaseClass(
+            c,
+            JPRAGeneratedNames.getRecordInterfaceReadableName(
+              c.getType().getName())),
+          "c");
+        jmb.addException(tv_e);
+        jcb.addMethod(jmb.build());
+      }
+
+      final TypeSpec jc = jcb.build();
+      final JavaFile.Builder jfb = JavaFile.builder(pack_name, jc);
+      final JavaFile jf = jfb.build();
+      jf.writeTo(out);
+    }
+  }
+}
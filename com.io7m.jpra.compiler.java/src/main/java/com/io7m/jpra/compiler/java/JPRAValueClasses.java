@@ -0,0 +1,836 @@
+/*
+ * Copyright © 2015 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.jpra.compiler.java;
+
+import com.io7m.jpra.model.names.FieldName;
+import com.io7m.jpra.model.types.TArray;
+import com.io7m.jpra.model.types.TIntegerSigned;
+import com.io7m.jpra.model.types.TIntegerSignedNormalized;
+import com.io7m.jpra.model.types.TIntegerUnsigned;
+import com.io7m.jpra.model.types.TIntegerUnsignedNormalized;
+import com.io7m.jpra.model.types.TMatrix;
+import com.io7m.jpra.model.types.TPacked;
+import com.io7m.jpra.model.types.TRecord;
+import com.io7m.jpra.model.types.TType;
+import com.io7m.jpra.model.types.TUnion;
+import com.io7m.jpra.model.types.TVector;
+import com.io7m.jpra.model.types.TypeIntegerMatcherType;
+import com.io7m.jpra.runtime.java.JPRACursor1DType;
+import com.io7m.jtensors.core.unparameterized.matrices.Matrix2x2D;
+import com.io7m.jtensors.core.unparameterized.matrices.Matrix3x3D;
+import com.io7m.jtensors.core.unparameterized.matrices.Matrix4x4D;
+import com.io7m.jtensors.core.unparameterized.vectors.Vector2D;
+import com.io7m.jtensors.core.unparameterized.vectors.Vector2L;
+import com.io7m.jtensors.core.unparameterized.vectors.Vector3D;
+import com.io7m.jtensors.core.unparameterized.vectors.Vector3L;
+import com.io7m.jtensors.core.unparameterized.vectors.Vector4D;
+import com.io7m.jtensors.core.unparameterized.vectors.Vector4L;
+import com.io7m.jtensors.core.unparameterized.vectors.VectorReadable2DType;
+import com.io7m.jtensors.core.unparameterized.vectors.VectorReadable2LType;
+import com.io7m.jtensors.core.unparameterized.vectors.VectorReadable3DType;
+import com.io7m.jtensors.core.unparameterized.vectors.VectorReadable3LType;
+import com.io7m.jtensors.core.unparameterized.vectors.VectorReadable4DType;
+import com.io7m.jtensors.core.unparameterized.vectors.VectorReadable4LType;
+import com.io7m.junreachable.UnimplementedCodeException;
+import com.io7m.junreachable.UnreachableCodeException;
+import com.squareup.javapoet.ArrayTypeName;
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.ParameterizedTypeName;
+import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.TypeSpec;
+import com.squareup.javapoet.WildcardTypeName;
+
+import javax.lang.model.element.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Functions to generate immutable heap value classes.
+ */
+
+final class JPRAValueClasses
+{
+  private JPRAValueClasses()
+  {
+    throw new UnreachableCodeException();
+  }
+
+  /**
+   * A single member of a value class.
+   */
+
+  static final class Member
+  {
+    private final TypeName type;
+    private final String name;
+    private final String getter;
+    private final String description;
+    private final CodeBlock load;
+    private final CodeBlock store;
+
+    /**
+     * Construct a member.
+     *
+     * @param in_type        The Java type of the member
+     * @param in_name        The name of the member field and constructor
+     *                       parameter
+     * @param in_getter      The name of the member's getter
+     * @param in_description A description of the member for documentation
+     * @param in_load        An expression that reads the member from {@code
+     *                       view}
+     * @param in_store       A statement that writes the member to {@code
+     *                       view}
+     */
+
+    Member(
+      final TypeName in_type,
+      final String in_name,
+      final String in_getter,
+      final String in_description,
+      final CodeBlock in_load,
+      final CodeBlock in_store)
+    {
+      this.type = Objects.requireNonNull(in_type, "Type");
+      this.name = Objects.requireNonNull(in_name, "Name");
+      this.getter = Objects.requireNonNull(in_getter, "Getter");
+      this.description = Objects.requireNonNull(in_description, "Description");
+      this.load = Objects.requireNonNull(in_load, "Load");
+      this.store = Objects.requireNonNull(in_store, "Store");
+    }
+  }
+
+  /**
+   * Create a member for a field that has a plain getter and setter pair of
+   * type {@code type} in the readable and writable interfaces.
+   *
+   * @param type   The Java type
+   * @param field  The field name
+   * @param getter The name of the getter on the readable interface
+   * @param setter The name of the setter on the writable interface
+   *
+   * @return A member
+   */
+
+  static Member scalarMember(
+    final TypeName type,
+    final FieldName field,
+    final String getter,
+    final String setter)
+  {
+    final String name = JPRAGeneratedNames.getFieldName(field);
+    return new Member(
+      type,
+      name,
+      getter,
+      String.format("the {@code %s} field", field.value()),
+      CodeBlock.of("view.$N()", getter),
+      CodeBlock.of("view.$N(this.$N)", setter, name));
+  }
+
+  /**
+   * Create a member for a vector field.
+   *
+   * @param t     The vector type
+   * @param field The field name
+   *
+   * @return A member
+   */
+
+  static Member vectorMember(
+    final TVector t,
+    final FieldName field)
+  {
+    final Class<?> readable =
+      JPRAClasses.getVectorClassesFor(t).getBaseReadable();
+
+    final Class<?> value;
+    if (Objects.equals(readable, VectorReadable2DType.class)) {
+      value = Vector2D.class;
+    } else if (Objects.equals(readable, VectorReadable3DType.class)) {
+      value = Vector3D.class;
+    } else if (Objects.equals(readable, VectorReadable4DType.class)) {
+      value = Vector4D.class;
+    } else if (Objects.equals(readable, VectorReadable2LType.class)) {
+      value = Vector2L.class;
+    } else if (Objects.equals(readable, VectorReadable3LType.class)) {
+      value = Vector3L.class;
+    } else if (Objects.equals(readable, VectorReadable4LType.class)) {
+      value = Vector4L.class;
+    } else {
+      throw new UnimplementedCodeException();
+    }
+
+    final String[] components;
+    final String setter;
+    switch (t.getElementCount().getValue().intValueExact()) {
+      case 2:
+        components = new String[]{"x", "y"};
+        setter = "setXY";
+        break;
+      case 3:
+        components = new String[]{"x", "y", "z"};
+        setter = "setXYZ";
+        break;
+      case 4:
+        components = new String[]{"x", "y", "z", "w"};
+        setter = "setXYZW";
+        break;
+      default:
+        throw new UnimplementedCodeException();
+    }
+
+    final String name = JPRAGeneratedNames.getFieldName(field);
+    final String read = JPRAGeneratedNames.getGetterVectorReadableName(field);
+    final String write = JPRAGeneratedNames.getGetterVectorWritableName(field);
+
+    final CodeBlock.Builder load = CodeBlock.builder();
+    load.add("$T.of(", value);
+    final CodeBlock.Builder store = CodeBlock.builder();
+    store.add("view.$N().$N(", write, setter);
+    for (int index = 0; index < components.length; ++index) {
+      if (index > 0) {
+        load.add(", ");
+        store.add(", ");
+      }
+      load.add("view.$N().$N()", read, components[index]);
+      store.add("this.$N.$N()", name, components[index]);
+    }
+    load.add(")");
+    store.add(")");
+
+    return new Member(
+      ClassName.get(value),
+      name,
+      JPRAGeneratedNames.getGetterName(field),
+      String.format("the {@code %s} field", field.value()),
+      load.build(),
+      store.build());
+  }
+
+  /**
+   * Create a member for a matrix field.
+   *
+   * @param t     The matrix type
+   * @param field The field name
+   *
+   * @return A member
+   */
+
+  static Member matrixMember(
+    final TMatrix t,
+    final FieldName field)
+  {
+    final int size = t.getWidth().getValue().intValueExact();
+
+    final Class<?> value;
+    switch (size) {
+      case 2:
+        value = Matrix2x2D.class;
+        break;
+      case 3:
+        value = Matrix3x3D.class;
+        break;
+      case 4:
+        value = Matrix4x4D.class;
+        break;
+      default:
+        throw new UnimplementedCodeException();
+    }
+
+    final String name = JPRAGeneratedNames.getFieldName(field);
+    final String read = JPRAGeneratedNames.getGetterMatrixReadableName(field);
+    final String write = JPRAGeneratedNames.getGetterMatrixWritableName(field);
+
+    final CodeBlock.Builder load = CodeBlock.builder();
+    load.add("$T.of(", value);
+    for (int row = 0; row < size; ++row) {
+      for (int col = 0; col < size; ++col) {
+        if (row > 0 || col > 0) {
+          load.add(", ");
+        }
+        load.add(
+          "view.$N().r$Lc$L()",
+          read,
+          Integer.valueOf(row),
+          Integer.valueOf(col));
+      }
+    }
+    load.add(")");
+
+    return new Member(
+      ClassName.get(value),
+      name,
+      JPRAGeneratedNames.getGetterName(field),
+      String.format("the {@code %s} field", field.value()),
+      load.build(),
+      CodeBlock.of(
+        "view.$N().$N(this.$N)",
+        write,
+        "set" + value.getSimpleName(),
+        name));
+  }
+
+  /**
+   * Create a member for a nested {@code record} or {@code packed} field.
+   *
+   * @param value_name The name of the nested type's value class
+   * @param field      The field name
+   *
+   * @return A member
+   */
+
+  static Member nestedMember(
+    final ClassName value_name,
+    final FieldName field)
+  {
+    final String name = JPRAGeneratedNames.getFieldName(field);
+    return new Member(
+      value_name,
+      name,
+      JPRAGeneratedNames.getGetterName(field),
+      String.format("the {@code %s} field", field.value()),
+      CodeBlock.of(
+        "$T.load(view.$N())",
+        value_name,
+        JPRAGeneratedNames.getGetterRecordReadableName(field)),
+      CodeBlock.of(
+        "this.$N.store(view.$N())",
+        name,
+        JPRAGeneratedNames.getGetterRecordWritableName(field)));
+  }
+
+  /**
+   * Calculate the members of the value class of a packed type.
+   *
+   * @param t The packed type
+   *
+   * @return A list of members
+   */
+
+  static List<Member> packedMembers(
+    final TPacked t)
+  {
+    final List<Member> members = new ArrayList<>(8);
+    final PackedMemberCollector collector =
+      new PackedMemberCollector(members);
+    for (final TPacked.FieldType f : t.getFieldsInDeclarationOrder()) {
+      f.matchField(collector);
+    }
+    return members;
+  }
+
+  /**
+   * Determine whether a value class can be generated for a record type.
+   * Unions and arrays have no value class members, so a record that
+   * contains a union or array field, directly or through a nested record,
+   * has no value class.
+   *
+   * @param t The record type
+   *
+   * @return {@code true} iff a value class exists for {@code t}
+   */
+
+  static boolean recordHasValueClass(
+    final TRecord t)
+  {
+    for (final TRecord.FieldValue f : t.getFieldsByName().values()) {
+      final TType ft = f.getType();
+      if (ft instanceof TUnion || ft instanceof TArray) {
+        return false;
+      }
+      if (ft instanceof TRecord && !recordHasValueClass((TRecord) ft)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Generate a value class.
+   *
+   * @param t_name     The name of the jpra type
+   * @param kind       The kind of type ({@code record} or {@code packed})
+   * @param value_name The name of the value class
+   * @param read_name  The name of the readable interface of the type
+   * @param write_name The name of the writable interface of the type
+   * @param members    The members of the value class
+   *
+   * @return A class specification
+   */
+
+  static TypeSpec generateValueClass(
+    final String t_name,
+    final String kind,
+    final ClassName value_name,
+    final ClassName read_name,
+    final ClassName write_name,
+    final List<Member> members)
+  {
+    final TypeSpec.Builder jcb = TypeSpec.classBuilder(value_name);
+    jcb.addJavadoc(
+      "An immutable heap snapshot of a value of the {@code $L} $L type.\n",
+      t_name,
+      kind);
+    jcb.addModifiers(Modifier.PUBLIC, Modifier.FINAL);
+
+    for (final Member m : members) {
+      jcb.addField(m.type, m.name, Modifier.PRIVATE, Modifier.FINAL);
+    }
+
+    generateConstructors(value_name, members, jcb);
+    generateGetters(members, jcb);
+    generateLoadStore(value_name, read_name, write_name, members, jcb);
+    generateBulk(value_name, read_name, write_name, jcb);
+    generateObjectMethods(value_name, members, jcb);
+    return jcb.build();
+  }
+
+  private static void generateConstructors(
+    final ClassName value_name,
+    final List<Member> members,
+    final TypeSpec.Builder jcb)
+  {
+    final MethodSpec.Builder cb = MethodSpec.constructorBuilder();
+    cb.addModifiers(Modifier.PRIVATE);
+
+    final MethodSpec.Builder ob = MethodSpec.methodBuilder("of");
+    ob.addJavadoc("Construct a value.\n\n");
+    ob.addModifiers(Modifier.PUBLIC, Modifier.STATIC);
+    ob.returns(value_name);
+
+    final CodeBlock.Builder args = CodeBlock.builder();
+    for (int index = 0; index < members.size(); ++index) {
+      final Member m = members.get(index);
+      cb.addParameter(m.type, m.name, Modifier.FINAL);
+      if (m.type.isPrimitive()) {
+        cb.addStatement("this.$N = $N", m.name, m.name);
+      } else {
+        cb.addStatement(
+          "this.$N = $T.requireNonNull($N, $S)",
+          m.name,
+          Objects.class,
+          m.name,
+          m.name);
+      }
+
+      ob.addJavadoc("@param $N The value of $L\n", m.name, m.description);
+      ob.addParameter(m.type, m.name, Modifier.FINAL);
+      if (index > 0) {
+        args.add(", ");
+      }
+      args.add("$N", m.name);
+    }
+
+    ob.addJavadoc("\n@return A new value\n");
+    ob.addStatement("return new $T($L)", value_name, args.build());
+    jcb.addMethod(cb.build());
+    jcb.addMethod(ob.build());
+  }
+
+  private static void generateGetters(
+    final List<Member> members,
+    final TypeSpec.Builder jcb)
+  {
+    for (final Member m : members) {
+      final MethodSpec.Builder jmb = MethodSpec.methodBuilder(m.getter);
+      jmb.addJavadoc("@return The value of $L\n", m.description);
+      jmb.addModifiers(Modifier.PUBLIC);
+      jmb.returns(m.type);
+      jmb.addStatement("return this.$N", m.name);
+      jcb.addMethod(jmb.build());
+    }
+  }
+
+  private static void generateLoadStore(
+    final ClassName value_name,
+    final ClassName read_name,
+    final ClassName write_name,
+    final List<Member> members,
+    final TypeSpec.Builder jcb)
+  {
+    {
+      final MethodSpec.Builder jmb = MethodSpec.methodBuilder("load");
+      jmb.addJavadoc(
+        "Take a snapshot of the value currently visible through "
+          + "{@code view}.\n\n");
+      jmb.addJavadoc("@param view The source view\n\n");
+      jmb.addJavadoc("@return A new value\n");
+      jmb.addModifiers(Modifier.PUBLIC, Modifier.STATIC);
+      jmb.addParameter(read_name, "view", Modifier.FINAL);
+      jmb.returns(value_name);
+      jmb.addStatement("$T.requireNonNull(view, $S)", Objects.class, "View");
+
+      final CodeBlock.Builder args = CodeBlock.builder();
+      for (int index = 0; index < members.size(); ++index) {
+        if (index > 0) {
+          args.add(",\n");
+        }
+        args.add("$L", members.get(index).load);
+      }
+      jmb.addStatement("return new $T(\n$>$L$<)", value_name, args.build());
+      jcb.addMethod(jmb.build());
+    }
+
+    {
+      final MethodSpec.Builder jmb = MethodSpec.methodBuilder("store");
+      jmb.addJavadoc("Write this value to {@code view}.\n\n");
+      jmb.addJavadoc("@param view The target view\n");
+      jmb.addModifiers(Modifier.PUBLIC);
+      jmb.addParameter(write_name, "view", Modifier.FINAL);
+      jmb.addStatement("$T.requireNonNull(view, $S)", Objects.class, "View");
+      for (final Member m : members) {
+        jmb.addStatement("$L", m.store);
+      }
+      jcb.addMethod(jmb.build());
+    }
+  }
+
+  private static void generateBulk(
+    final ClassName value_name,
+    final ClassName read_name,
+    final ClassName write_name,
+    final TypeSpec.Builder jcb)
+  {
+    final TypeName read_cursor = ParameterizedTypeName.get(
+      ClassName.get(JPRACursor1DType.class),
+      WildcardTypeName.subtypeOf(read_name));
+    final TypeName write_cursor = ParameterizedTypeName.get(
+      ClassName.get(JPRACursor1DType.class),
+      WildcardTypeName.subtypeOf(write_name));
+
+    jcb.addMethod(generateLoadAllList(value_name, read_name, read_cursor));
+    jcb.addMethod(generateLoadAllArray(value_name, read_name, read_cursor));
+    jcb.addMethod(generateStoreAll(value_name, write_name, write_cursor));
+  }
+
+  private static MethodSpec generateLoadAllList(
+    final ClassName value_name,
+    final ClassName read_name,
+    final TypeName read_cursor)
+  {
+    final MethodSpec.Builder jmb = MethodSpec.methodBuilder("loadAll");
+    jmb.addJavadoc(
+      "Take snapshots of the elements {@code [from, to)} of {@code cursor} "
+        + "and append them to {@code output}. The cursor index is restored "
+        + "on return.\n\n");
+    jmb.addJavadoc("@param cursor The source cursor\n");
+    jmb.addJavadoc("@param from   The index of the first element (inclusive)\n");
+    jmb.addJavadoc("@param to     The index of the last element (exclusive)\n");
+    jmb.addJavadoc("@param output The output list\n");
+    jmb.addModifiers(Modifier.PUBLIC, Modifier.STATIC);
+    jmb.addParameter(read_cursor, "cursor", Modifier.FINAL);
+    jmb.addParameter(int.class, "from", Modifier.FINAL);
+    jmb.addParameter(int.class, "to", Modifier.FINAL);
+    jmb.addParameter(
+      ParameterizedTypeName.get(
+        ClassName.get(List.class), WildcardTypeName.supertypeOf(value_name)),
+      "output",
+      Modifier.FINAL);
+    jmb.addStatement("$T.requireNonNull(cursor, $S)", Objects.class, "Cursor");
+    jmb.addStatement("$T.requireNonNull(output, $S)", Objects.class, "Output");
+    jmb.addStatement(
+      "$T.checkFromToIndex(from, to, $T.MAX_VALUE)",
+      Objects.class,
+      Integer.class);
+    jmb.addStatement("final $T view = cursor.getElementView()", read_name);
+    jmb.addStatement("final int saved = cursor.getElementIndex()");
+    jmb.beginControlFlow("try");
+    jmb.beginControlFlow("for (int index = from; index < to; ++index)");
+    jmb.addStatement("cursor.setElementIndex(index)");
+    jmb.addStatement("output.add(load(view))");
+    jmb.endControlFlow();
+    jmb.nextControlFlow("finally");
+    jmb.addStatement("cursor.setElementIndex(saved)");
+    jmb.endControlFlow();
+    return jmb.build();
+  }
+
+  private static MethodSpec generateLoadAllArray(
+    final ClassName value_name,
+    final ClassName read_name,
+    final TypeName read_cursor)
+  {
+    final MethodSpec.Builder jmb = MethodSpec.methodBuilder("loadAll");
+    jmb.addJavadoc(
+      "Take snapshots of the elements {@code [from, to)} of {@code cursor} "
+        + "and write them to {@code output} starting at {@code "
+        + "output_offset}. The cursor index is restored on return.\n\n");
+    jmb.addJavadoc("@param cursor        The source cursor\n");
+    jmb.addJavadoc(
+      "@param from          The index of the first element (inclusive)\n");
+    jmb.addJavadoc(
+      "@param to            The index of the last element (exclusive)\n");
+    jmb.addJavadoc(
+      "@param output        The output array\n");
+    jmb.addJavadoc(
+      "@param output_offset The index of the first output element\n");
+    jmb.addModifiers(Modifier.PUBLIC, Modifier.STATIC);
+    jmb.addParameter(read_cursor, "cursor", Modifier.FINAL);
+    jmb.addParameter(int.class, "from", Modifier.FINAL);
+    jmb.addParameter(int.class, "to", Modifier.FINAL);
+    jmb.addParameter(
+      ArrayTypeName.of(value_name),
+      "output",
+      Modifier.FINAL);
+    jmb.addParameter(int.class, "output_offset", Modifier.FINAL);
+    jmb.addStatement("$T.requireNonNull(cursor, $S)", Objects.class, "Cursor");
+    jmb.addStatement("$T.requireNonNull(output, $S)", Objects.class, "Output");
+    jmb.addStatement(
+      "$T.checkFromToIndex(from, to, $T.MAX_VALUE)",
+      Objects.class,
+      Integer.class);
+    jmb.addStatement(
+      "$T.checkFromIndexSize(output_offset, to - from, output.length)",
+      Objects.class);
+    jmb.addStatement("final $T view = cursor.getElementView()", read_name);
+    jmb.addStatement("final int saved = cursor.getElementIndex()");
+    jmb.beginControlFlow("try");
+    jmb.beginControlFlow("for (int index = from; index < to; ++index)");
+    jmb.addStatement("cursor.setElementIndex(index)");
+    jmb.addStatement("output[output_offset + (index - from)] = load(view)");
+    jmb.endControlFlow();
+    jmb.nextControlFlow("finally");
+    jmb.addStatement("cursor.setElementIndex(saved)");
+    jmb.endControlFlow();
+    return jmb.build();
+  }
+
+  private static MethodSpec generateStoreAll(
+    final ClassName value_name,
+    final ClassName write_name,
+    final TypeName write_cursor)
+  {
+    final MethodSpec.Builder jmb = MethodSpec.methodBuilder("storeAll");
+    jmb.addJavadoc(
+      "Write {@code values} to consecutive elements of {@code cursor}, "
+        + "starting at element {@code from}. The cursor index is restored "
+        + "on return.\n\n");
+    jmb.addJavadoc("@param cursor The target cursor\n");
+    jmb.addJavadoc("@param from   The index of the first element\n");
+    jmb.addJavadoc("@param values The values\n");
+    jmb.addModifiers(Modifier.PUBLIC, Modifier.STATIC);
+    jmb.addParameter(write_cursor, "cursor", Modifier.FINAL);
+    jmb.addParameter(int.class, "from", Modifier.FINAL);
+    jmb.addParameter(
+      ParameterizedTypeName.get(
+        ClassName.get(List.class), WildcardTypeName.subtypeOf(value_name)),
+      "values",
+      Modifier.FINAL);
+    jmb.addStatement("$T.requireNonNull(cursor, $S)", Objects.class, "Cursor");
+    jmb.addStatement("$T.requireNonNull(values, $S)", Objects.class, "Values");
+    jmb.addStatement("final $T view = cursor.getElementView()", write_name);
+    jmb.addStatement("final int saved = cursor.getElementIndex()");
+    jmb.beginControlFlow("try");
+    jmb.addStatement("int index = from");
+    jmb.beginControlFlow("for (final $T value : values)", value_name);
+    jmb.addStatement("cursor.setElementIndex(index)");
+    jmb.addStatement("value.store(view)");
+    jmb.addStatement("++index");
+    jmb.endControlFlow();
+    jmb.nextControlFlow("finally");
+    jmb.addStatement("cursor.setElementIndex(saved)");
+    jmb.endControlFlow();
+    return jmb.build();
+  }
+
+  private static void generateObjectMethods(
+    final ClassName value_name,
+    final List<Member> members,
+    final TypeSpec.Builder jcb)
+  {
+    {
+      final MethodSpec.Builder jmb = MethodSpec.methodBuilder("equals");
+      jmb.addModifiers(Modifier.PUBLIC);
+      jmb.addAnnotation(Override.class);
+      jmb.addParameter(Object.class, "o", Modifier.FINAL);
+      jmb.returns(boolean.class);
+      jmb.beginControlFlow("if (this == o)");
+      jmb.addStatement("return true");
+      jmb.endControlFlow();
+      jmb.beginControlFlow("if (o == null || this.getClass() != o.getClass())");
+      jmb.addStatement("return false");
+      jmb.endControlFlow();
+
+      if (members.isEmpty()) {
+        jmb.addStatement("return true");
+      } else {
+        jmb.addStatement("final $T other = ($T) o", value_name, value_name);
+        final CodeBlock.Builder cmp = CodeBlock.builder();
+        for (int index = 0; index < members.size(); ++index) {
+          final Member m = members.get(index);
+          if (index > 0) {
+            cmp.add("\n&& ");
+          }
+          if (Objects.equals(m.type, TypeName.FLOAT)
+            || Objects.equals(m.type, TypeName.DOUBLE)) {
+            cmp.add(
+              "$T.compare(this.$N, other.$N) == 0", m.type.box(), m.name, m.name);
+          } else if (m.type.isPrimitive()) {
+            cmp.add("this.$N == other.$N", m.name, m.name);
+          } else {
+            cmp.add("$T.equals(this.$N, other.$N)", Objects.class, m.name, m.name);
+          }
+        }
+        jmb.addStatement("return $>$L$<", cmp.build());
+      }
+      jcb.addMethod(jmb.build());
+    }
+
+    {
+      final MethodSpec.Builder jmb = MethodSpec.methodBuilder("hashCode");
+      jmb.addModifiers(Modifier.PUBLIC);
+      jmb.addAnnotation(Override.class);
+      jmb.returns(int.class);
+      jmb.addStatement("int result = 17");
+      for (final Member m : members) {
+        if (m.type.isPrimitive()) {
+          jmb.addStatement(
+            "result = (31 * result) + $T.hashCode(this.$N)", m.type.box(), m.name);
+        } else {
+          jmb.addStatement(
+            "result = (31 * result) + this.$N.hashCode()", m.name);
+        }
+      }
+      jmb.addStatement("return result");
+      jcb.addMethod(jmb.build());
+    }
+
+    {
+      final MethodSpec.Builder jmb = MethodSpec.methodBuilder("toString");
+      jmb.addModifiers(Modifier.PUBLIC);
+      jmb.addAnnotation(Override.class);
+      jmb.returns(String.class);
+      jmb.addStatement(
+        "final $T sb = new $T(128)",
+        StringBuilder.class,
+        StringBuilder.class);
+      jmb.addStatement("sb.append($S)", "[" + value_name.simpleName());
+      for (final Member m : members) {
+        jmb.addStatement("sb.append($S)", " " + m.name + "=");
+        jmb.addStatement("sb.append(this.$N)", m.name);
+      }
+      jmb.addStatement("sb.append(']')");
+      jmb.addStatement("return sb.toString()");
+      jcb.addMethod(jmb.build());
+    }
+  }
+
+  /**
+   * A matcher that produces a member for an integer field that has a plain
+   * getter and setter pair, or a raw getter and setter pair for normalized
+   * integers.
+   */
+
+  static final class IntegerMemberMatcher
+    implements TypeIntegerMatcherType<Member, UnreachableCodeException>
+  {
+    private final TypeName type;
+    private final FieldName field;
+
+    IntegerMemberMatcher(
+      final TypeName in_type,
+      final FieldName in_field)
+    {
+      this.type = Objects.requireNonNull(in_type, "Type");
+      this.field = Objects.requireNonNull(in_field, "Field");
+    }
+
+    private Member plain()
+    {
+      return scalarMember(
+        this.type,
+        this.field,
+        JPRAGeneratedNames.getGetterName(this.field),
+        JPRAGeneratedNames.getSetterName(this.field));
+    }
+
+    private Member raw()
+    {
+      return scalarMember(
+        this.type,
+        this.field,
+        JPRAGeneratedNames.getNormalizedRawGetterName(this.field),
+        JPRAGeneratedNames.getNormalizedRawSetterName(this.field));
+    }
+
+    @Override
+    public Member matchIntegerUnsigned(
+      final TIntegerUnsigned t)
+    {
+      return this.plain();
+    }
+
+    @Override
+    public Member matchIntegerSigned(
+      final TIntegerSigned t)
+    {
+      return this.plain();
+    }
+
+    @Override
+    public Member matchIntegerSignedNormalized(
+      final TIntegerSignedNormalized t)
+    {
+      return this.raw();
+    }
+
+    @Override
+    public Member matchIntegerUnsignedNormalized(
+      final TIntegerUnsignedNormalized t)
+    {
+      return this.raw();
+    }
+  }
+
+  /**
+   * A matcher that adds a member for each value field of a packed type.
+   */
+
+  private static final class PackedMemberCollector
+    implements TPacked.FieldMatcherType<Void, UnreachableCodeException>
+  {
+    private final List<Member> members;
+
+    PackedMemberCollector(
+      final List<Member> in_members)
+    {
+      this.members = Objects.requireNonNull(in_members, "Members");
+    }
+
+    @Override
+    public Void matchFieldValue(
+      final TPacked.FieldValue f)
+    {
+      final TypeName itype = TypeName.get(
+        PackedFieldInterfaceProcessor.getPackedIntegerTypeForSize(
+          f.getSize().getValue()));
+      this.members.add(f.getType().matchTypeInteger(
+        new IntegerMemberMatcher(itype, f.getName())));
+      return null;
+    }
+
+    @Override
+    public Void matchFieldPaddingBits(
+      final TPacked.FieldPaddingBits f)
+    {
+      return null;
+    }
+  }
+}
@@ -35,6 +35,7 @@ import com.io7m.jpra.model.types.TMatrix;
 import com.io7m.jpra.model.types.TPacked;
 import com.io7m.jpra.model.types.TRecord;
 import com.io7m.jpra.model.types.TString;
+import com.io7m.jpra.model.types.TUnion;
 import com.io7m.jpra.model.types.TVector;
 import com.io7m.jpra.model.types.TypeIntegerMatcherType;
 import com.io7m.jpra.model.types.TypeMatcherType;
@@ -42,7 +43,6 @@ import com.io7m.jranges.RangeInclusiveB;
 import com.io7m.junreachable.UnimplementedCodeException;
 import com.io7m.junreachable.UnreachableCodeException;
 import com.squareup.javapoet.MethodSpec;
-import com.squareup.javapoet.TypeSpec;
 import io.vavr.collection.List;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -66,30 +66,28 @@ public final class PackedFieldImplementationProcessor
   }
 
   private final TPacked.FieldValue field;
-  private final TypeSpec.Builder class_builder;
+  private final FieldMethodSinkType sink;
   private final BigInteger offset_bits;
 
   PackedFieldImplementationProcessor(
     final TPacked.FieldValue in_field,
     final BigInteger in_offset_bits,
-    final TypeSpec.Builder in_class_builder)
+    final FieldMethodSinkType in_sink)
   {
     this.field = Objects.requireNonNull(in_field, "in_field");
     this.offset_bits = Objects.requireNonNull(in_offset_bits, "Offset_bits");
-    this.class_builder = Objects.requireNonNull(
-      in_class_builder,
-      "Class builder");
+    this.sink = Objects.requireNonNull(in_sink, "Sink");
   }
 
   /**
    * Generate a {@code set} method that sets all packed fields at once.
    *
-   * @param class_builder The class builder
-   * @param t             The packed type
+   * @param sink The method sink
+   * @param t    The packed type
    */
 
   static void generatedPackedAllMethodImplementation(
-    final TypeSpec.Builder class_builder,
+    final FieldMethodSinkType sink,
     final TPacked t)
   {
     final List<TPacked.FieldType> ordered =
@@ -146,7 +144,7 @@ public final class PackedFieldImplementationProcessor
 
     bufferWriteStatement(t, setb, container_type, iput, "result");
     setb.returns(void.class);
-    class_builder.addMethod(setb.build());
+    sink.addMethod(FieldMethodKind.WRITE, setb.build());
   }
 
   private static void bufferReadStatement(
@@ -377,7 +375,7 @@ public final class PackedFieldImplementationProcessor
       "pack_buffer",
       types.getIntegerGetName());
     getb.addStatement("return ($T) ((read >>> $L) & $L)", external_type, shift, field_mask);
-    this.class_builder.addMethod(getb.build());
+    this.sink.addMethod(FieldMethodKind.READ, getb.build());
 
     final MethodSpec.Builder setb = MethodSpec.methodBuilder(setter_name);
     setb.addModifiers(Modifier.PUBLIC);
@@ -394,7 +392,7 @@ public final class PackedFieldImplementationProcessor
 
     bufferWriteStatement(this.field.getOwner(), setb, types.getContainerType(),
                          types.getIntegerPutName(), "w_valu");
-    this.class_builder.addMethod(setb.build());
+    this.sink.addMethod(FieldMethodKind.WRITE, setb.build());
     return null;
   }
 
@@ -459,14 +457,14 @@ public final class PackedFieldImplementationProcessor
     getb.addAnnotation(Override.class);
     getb.returns(double.class);
     getb.addStatement("return $T.$N(this.$N())", nfp_class, m_of, getter_norm_raw_name);
-    this.class_builder.addMethod(getb.build());
+    this.sink.addMethod(FieldMethodKind.DELEGATE, getb.build());
 
     final MethodSpec.Builder setb = MethodSpec.methodBuilder(setter_norm_name);
     setb.addModifiers(Modifier.PUBLIC);
     setb.addAnnotation(Override.class);
     setb.addParameter(double.class, "x", Modifier.FINAL);
     setb.addStatement("this.$N($T.$N($N))", setter_norm_raw_name, nfp_class, m_to, "x");
-    this.class_builder.addMethod(setb.build());
+    this.sink.addMethod(FieldMethodKind.DELEGATE, setb.build());
     return null;
   }
 
@@ -531,6 +529,12 @@ public final class PackedFieldImplementationProcessor
     throw new UnreachableCodeException();
   }
 
+  @Override
+  public Void matchUnion(final TUnion t)
+  {
+    throw new UnreachableCodeException();
+  }
+
   private static final class GetIntegerTypeClass
     implements TypeIntegerMatcherType<Class<?>, UnreachableCodeException>
   {
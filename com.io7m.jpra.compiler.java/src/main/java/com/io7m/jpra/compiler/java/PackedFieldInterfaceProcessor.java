@@ -29,6 +29,7 @@ import com.io7m.jpra.model.types.TMatrix;
 import com.io7m.jpra.model.types.TPacked;
 import com.io7m.jpra.model.types.TRecord;
 import com.io7m.jpra.model.types.TString;
+import com.io7m.jpra.model.types.TUnion;
 import com.io7m.jpra.model.types.TVector;
 import com.io7m.jpra.model.types.TypeIntegerMatcherType;
 import com.io7m.jpra.model.types.TypeMatcherType;
@@ -172,6 +173,12 @@ public final class PackedFieldInterfaceProcessor
     throw new UnreachableCodeException();
   }
 
+  @Override
+  public Void matchUnion(final TUnion t)
+  {
+    throw new UnreachableCodeException();
+  }
+
   @Override
   public Void matchIntegerUnsigned(
     final TIntegerUnsigned t)
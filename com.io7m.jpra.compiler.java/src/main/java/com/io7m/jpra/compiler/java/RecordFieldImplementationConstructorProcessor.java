@@ -28,6 +28,7 @@ import com.io7m.jpra.model.types.TMatrix;
 import com.io7m.jpra.model.types.TPacked;
 import com.io7m.jpra.model.types.TRecord;
 import com.io7m.jpra.model.types.TString;
+import com.io7m.jpra.model.types.TUnion;
 import com.io7m.jpra.model.types.TVector;
 import com.io7m.jpra.model.types.TypeMatcherType;
 import com.io7m.jpra.runtime.java.JPRAStringCursorByteBuffered;
@@ -223,7 +224,7 @@ final class RecordFieldImplementationConstructorProcessor
       "in_base_offset",
       offset_name);
     this.class_builder.addField(
-      c.getBufferedInterface(), field_name, Modifier.FINAL, Modifier.PRIVATE);
+      c.getBufferedInterface(), field_name, Modifier.PRIVATE);
 
     /*
       Construct a meta type field, and assign a value to it.
@@ -276,7 +277,7 @@ final class RecordFieldImplementationConstructorProcessor
       offset_name);
 
     this.class_builder.addField(
-      c.getBufferedInterface(), field_name, Modifier.FINAL, Modifier.PRIVATE);
+      c.getBufferedInterface(), field_name, Modifier.PRIVATE);
 
     /*
       Construct a meta type field, and assign a value to it.
@@ -368,4 +369,11 @@ final class RecordFieldImplementationConstructorProcessor
     this.recordOrPackedField(t.getName(), t.getPackageContext());
     return null;
   }
+
+  @Override
+  public Void matchUnion(final TUnion t)
+  {
+    this.recordOrPackedField(t.getName(), t.getPackageContext());
+    return null;
+  }
 }
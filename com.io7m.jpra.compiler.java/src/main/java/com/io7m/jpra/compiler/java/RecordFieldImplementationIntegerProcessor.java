@@ -29,7 +29,6 @@ import com.io7m.jpra.model.types.TypeIntegerMatcherType;
 import com.io7m.junreachable.UnimplementedCodeException;
 import com.io7m.junreachable.UnreachableCodeException;
 import com.squareup.javapoet.MethodSpec;
-import com.squareup.javapoet.TypeSpec;
 
 import javax.lang.model.element.Modifier;
 import java.math.BigInteger;
@@ -43,16 +42,14 @@ final class RecordFieldImplementationIntegerProcessor
   implements TypeIntegerMatcherType<Void, UnreachableCodeException>
 {
   private final TRecord.FieldValue field;
-  private final TypeSpec.Builder class_builder;
+  private final FieldMethodSinkType sink;
 
   RecordFieldImplementationIntegerProcessor(
     final TRecord.FieldValue in_field,
-    final TypeSpec.Builder in_class_builder)
+    final FieldMethodSinkType in_sink)
   {
     this.field = Objects.requireNonNull(in_field, "Field");
-    this.class_builder = Objects.requireNonNull(
-      in_class_builder,
-      "Class builder");
+    this.sink = Objects.requireNonNull(in_sink, "Sink");
   }
 
   /**
@@ -185,7 +182,7 @@ final class RecordFieldImplementationIntegerProcessor
       iput,
       offset_constant,
       "x");
-    this.class_builder.addMethod(setb.build());
+    this.sink.addMethod(FieldMethodKind.WRITE, setb.build());
   }
 
   /**
@@ -212,7 +209,7 @@ final class RecordFieldImplementationIntegerProcessor
       "buffer",
       iget,
       offset_constant);
-    this.class_builder.addMethod(getb.build());
+    this.sink.addMethod(FieldMethodKind.READ, getb.build());
   }
 
   @Override
@@ -285,7 +282,7 @@ final class RecordFieldImplementationIntegerProcessor
       types.getIntegerPutName(),
       types.getReturnType());
 
-    this.class_builder.addMethod(generateNormalizedGetter(
+    this.sink.addMethod(FieldMethodKind.DELEGATE, generateNormalizedGetter(
       signed,
       getter_norm_name,
       getter_norm_raw_name,
@@ -324,7 +321,7 @@ final class RecordFieldImplementationIntegerProcessor
       nfp_class,
       m_to,
       "x");
-    this.class_builder.addMethod(setb.build());
+    this.sink.addMethod(FieldMethodKind.DELEGATE, setb.build());
   }
 
   @Override
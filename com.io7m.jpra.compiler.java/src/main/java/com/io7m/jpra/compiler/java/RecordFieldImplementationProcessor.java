@@ -28,6 +28,7 @@ import com.io7m.jpra.model.types.TMatrix;
 import com.io7m.jpra.model.types.TPacked;
 import com.io7m.jpra.model.types.TRecord;
 import com.io7m.jpra.model.types.TString;
+import com.io7m.jpra.model.types.TUnion;
 import com.io7m.jpra.model.types.TVector;
 import com.io7m.jpra.model.types.TypeMatcherType;
 import com.io7m.jpra.runtime.java.JPRAStringCursorReadableType;
@@ -37,7 +38,6 @@ import com.io7m.junreachable.UnreachableCodeException;
 import com.squareup.javapoet.ClassName;
 import com.squareup.javapoet.FieldSpec;
 import com.squareup.javapoet.MethodSpec;
-import com.squareup.javapoet.TypeSpec;
 import io.vavr.collection.List;
 
 import javax.lang.model.element.Modifier;
@@ -53,18 +53,16 @@ final class RecordFieldImplementationProcessor
 {
   private final TRecord.FieldValue field;
   private final BigInteger offset;
-  private final TypeSpec.Builder class_builder;
+  private final FieldMethodSinkType sink;
 
   RecordFieldImplementationProcessor(
     final TRecord.FieldValue in_field,
     final BigInteger in_offset,
-    final TypeSpec.Builder in_class_builder)
+    final FieldMethodSinkType in_sink)
   {
     this.field = Objects.requireNonNull(in_field, "Field");
     this.offset = Objects.requireNonNull(in_offset, "Offset");
-    this.class_builder = Objects.requireNonNull(
-      in_class_builder,
-      "Class builder");
+    this.sink = Objects.requireNonNull(in_sink, "Sink");
 
     this.metaMethods();
   }
@@ -82,7 +80,7 @@ final class RecordFieldImplementationProcessor
       getb.addAnnotation(Override.class);
       getb.addStatement("return $N", offset_constant);
       getb.returns(int.class);
-      this.class_builder.addMethod(getb.build());
+      this.sink.addMethod(FieldMethodKind.META, getb.build());
     }
 
     {
@@ -107,7 +105,7 @@ final class RecordFieldImplementationProcessor
       getb.addModifiers(Modifier.STATIC);
       getb.addStatement("return $N", offset_constant);
       getb.returns(int.class);
-      this.class_builder.addMethod(getb.build());
+      this.sink.addMethod(FieldMethodKind.META, getb.build());
     }
 
     {
@@ -121,7 +119,7 @@ final class RecordFieldImplementationProcessor
       getb.addAnnotation(Override.class);
       getb.addStatement("return $N + this.$N", offset_constant, "base_offset");
       getb.returns(int.class);
-      this.class_builder.addMethod(getb.build());
+      this.sink.addMethod(FieldMethodKind.META, getb.build());
     }
 
     {
@@ -136,7 +134,7 @@ final class RecordFieldImplementationProcessor
       getb.addStatement("return this.$N", field_name);
       getb.returns(
         JPRAClasses.getModelTypeForType(this.field.getType()));
-      this.class_builder.addMethod(getb.build());
+      this.sink.addMethod(FieldMethodKind.META, getb.build());
     }
   }
 
@@ -167,14 +165,14 @@ final class RecordFieldImplementationProcessor
     read_b.addAnnotation(Override.class);
     read_b.returns(JPRAStringCursorReadableType.class);
     read_b.addStatement("return this.$N", f_name);
-    this.class_builder.addMethod(read_b.build());
+    this.sink.addMethod(FieldMethodKind.READ, read_b.build());
 
     final MethodSpec.Builder write_b = MethodSpec.methodBuilder(writer_name);
     write_b.addModifiers(Modifier.PUBLIC);
     write_b.addAnnotation(Override.class);
     write_b.returns(JPRAStringCursorType.class);
     write_b.addStatement("return this.$N", f_name);
-    this.class_builder.addMethod(write_b.build());
+    this.sink.addMethod(FieldMethodKind.WRITE, write_b.build());
 
     return null;
   }
@@ -200,8 +198,12 @@ final class RecordFieldImplementationProcessor
           .replace(" ", "0");
 
       final String offset_name = JPRAGeneratedNames.getOffsetConstantName(this.field.getName());
-      this.class_builder.addMethod(booleanGetter(f, octet, bin, offset_name, this.field));
-      this.class_builder.addMethod(booleanSetter(f, octet, bin, offset_name, this.field));
+      this.sink.addMethod(
+        FieldMethodKind.READ,
+        booleanGetter(f, octet, bin, offset_name, this.field));
+      this.sink.addMethod(
+        FieldMethodKind.WRITE,
+        booleanSetter(f, octet, bin, offset_name, this.field));
     }
     return null;
   }
@@ -265,7 +267,7 @@ final class RecordFieldImplementationProcessor
     this.generateFieldOffsetConstant();
     final RecordFieldImplementationIntegerProcessor p =
       new RecordFieldImplementationIntegerProcessor(
-        this.field, this.class_builder);
+        this.field, this.sink);
     return t.matchTypeInteger(p);
   }
 
@@ -323,11 +325,19 @@ final class RecordFieldImplementationProcessor
      */
 
     if (pack) {
-      this.class_builder.addMethod(packedFloatGetter(offset_constant, getter_name, iget));
-      this.class_builder.addMethod(packedFloatSetter(offset_constant, setter_name, iput));
+      this.sink.addMethod(
+        FieldMethodKind.READ,
+        packedFloatGetter(offset_constant, getter_name, iget));
+      this.sink.addMethod(
+        FieldMethodKind.WRITE,
+        packedFloatSetter(offset_constant, setter_name, iput));
     } else {
-      this.class_builder.addMethod(unpackedFloatGetter(offset_constant, getter_name, itype, iget));
-      this.class_builder.addMethod(unpackedFloatSetter(offset_constant, setter_name, itype, iput));
+      this.sink.addMethod(
+        FieldMethodKind.READ,
+        unpackedFloatGetter(offset_constant, getter_name, itype, iget));
+      this.sink.addMethod(
+        FieldMethodKind.WRITE,
+        unpackedFloatSetter(offset_constant, setter_name, itype, iput));
     }
 
     return null;
@@ -445,14 +455,14 @@ final class RecordFieldImplementationProcessor
     read_b.addAnnotation(Override.class);
     read_b.returns(c.getBaseReadable());
     read_b.addStatement("return this.$N", f_name);
-    this.class_builder.addMethod(read_b.build());
+    this.sink.addMethod(FieldMethodKind.READ, read_b.build());
 
     final MethodSpec.Builder write_b = MethodSpec.methodBuilder(writer_name);
     write_b.addModifiers(Modifier.PUBLIC);
     write_b.addAnnotation(Override.class);
     write_b.returns(c.getBaseInterface());
     write_b.addStatement("return this.$N", f_name);
-    this.class_builder.addMethod(write_b.build());
+    this.sink.addMethod(FieldMethodKind.WRITE, write_b.build());
 
     return null;
   }
@@ -477,14 +487,14 @@ final class RecordFieldImplementationProcessor
     read_b.addAnnotation(Override.class);
     read_b.returns(c.getBaseReadable());
     read_b.addStatement("return this.$N", f_name);
-    this.class_builder.addMethod(read_b.build());
+    this.sink.addMethod(FieldMethodKind.READ, read_b.build());
 
     final MethodSpec.Builder write_b = MethodSpec.methodBuilder(writer_name);
     write_b.addModifiers(Modifier.PUBLIC);
     write_b.addAnnotation(Override.class);
     write_b.returns(c.getBaseInterface());
     write_b.addStatement("return this.$N", f_name);
-    this.class_builder.addMethod(write_b.build());
+    this.sink.addMethod(FieldMethodKind.WRITE, write_b.build());
 
     return null;
   }
@@ -532,14 +542,14 @@ final class RecordFieldImplementationProcessor
     read_b.addAnnotation(Override.class);
     read_b.returns(target_read);
     read_b.addStatement("return this.$N", f_name);
-    this.class_builder.addMethod(read_b.build());
+    this.sink.addMethod(FieldMethodKind.READ, read_b.build());
 
     final MethodSpec.Builder write_b = MethodSpec.methodBuilder(writer_name);
     write_b.addModifiers(Modifier.PUBLIC);
     write_b.addAnnotation(Override.class);
     write_b.returns(target_write);
     write_b.addStatement("return this.$N", f_name);
-    this.class_builder.addMethod(write_b.build());
+    this.sink.addMethod(FieldMethodKind.WRITE, write_b.build());
   }
 
   @Override
@@ -551,6 +561,15 @@ final class RecordFieldImplementationProcessor
     return null;
   }
 
+  @Override
+  public Void matchUnion(
+    final TUnion t)
+  {
+    this.generateFieldOffsetConstant();
+    this.recordOrPackedMethods(t.getName(), t.getPackageContext());
+    return null;
+  }
+
   /**
    * Generate a static constant indicating the offset in octets of the field from the start of the
    * type.
@@ -565,6 +584,6 @@ final class RecordFieldImplementationProcessor
       Modifier.STATIC,
       Modifier.PRIVATE);
     fb.initializer(this.offset.toString());
-    this.class_builder.addField(fb.build());
+    this.sink.addField(fb.build());
   }
 }
@@ -0,0 +1,158 @@
+/*
+ * Copyright © 2015 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.jpra.compiler.java;
+
+import com.io7m.jpra.model.names.FieldName;
+import com.io7m.jpra.model.types.TArray;
+import com.io7m.jpra.model.types.TBooleanSet;
+import com.io7m.jpra.model.types.TFloat;
+import com.io7m.jpra.model.types.TIntegerType;
+import com.io7m.jpra.model.types.TMatrix;
+import com.io7m.jpra.model.types.TPacked;
+import com.io7m.jpra.model.types.TRecord;
+import com.io7m.jpra.model.types.TString;
+import com.io7m.jpra.model.types.TUnion;
+import com.io7m.jpra.model.types.TVector;
+import com.io7m.jpra.model.types.TypeMatcherType;
+import com.io7m.jpra.runtime.java.JPRAByteBufferedRebindableType;
+import com.io7m.junreachable.UnreachableCodeException;
+import com.squareup.javapoet.MethodSpec;
+
+import java.util.Objects;
+
+/**
+ * A type matcher that produces statements that re-target a given record field
+ * at a new buffer.
+ */
+
+final class RecordFieldImplementationRebindProcessor
+  implements TypeMatcherType<Void, UnreachableCodeException>
+{
+  private final TRecord.FieldValue field;
+  private final MethodSpec.Builder method_builder;
+
+  RecordFieldImplementationRebindProcessor(
+    final TRecord.FieldValue in_field,
+    final MethodSpec.Builder in_method_builder)
+  {
+    this.field = Objects.requireNonNull(in_field, "Field");
+    this.method_builder = Objects.requireNonNull(
+      in_method_builder,
+      "Method builder");
+  }
+
+  @Override
+  public Void matchArray(final TArray t)
+  {
+    return null;
+  }
+
+  @Override
+  public Void matchString(final TString t)
+  {
+    this.rebindField();
+    return null;
+  }
+
+  private void rebindField()
+  {
+    final FieldName f_name = this.field.getName();
+    final String field_name = JPRAGeneratedNames.getFieldName(f_name);
+    this.method_builder.addStatement(
+      "(($T) this.$N).rebind($N)",
+      JPRAByteBufferedRebindableType.class,
+      field_name,
+      "in_buffer");
+  }
+
+  @Override
+  public Void matchBooleanSet(final TBooleanSet t)
+  {
+    return null;
+  }
+
+  @Override
+  public Void matchInteger(final TIntegerType t)
+  {
+    return null;
+  }
+
+  @Override
+  public Void matchFloat(final TFloat t)
+  {
+    return null;
+  }
+
+  @Override
+  public Void matchVector(final TVector t)
+  {
+    final JPRAClasses.VectorsClasses c = JPRAClasses.getVectorClassesFor(t);
+    this.recreateStorage(c.getBufferedConstructors());
+    return null;
+  }
+
+  /**
+   * Vector and matrix storage cannot be re-targeted, and so is recreated over
+   * the new buffer. This allocates one storage object per vector or matrix
+   * field on every rebind, which is documented on
+   * {@link com.io7m.jpra.runtime.java.JPRACursor1DRebindableType}.
+   */
+
+  private void recreateStorage(final Class<?> constructors)
+  {
+    final FieldName f_name = this.field.getName();
+    final String field_name = JPRAGeneratedNames.getFieldName(f_name);
+    final String offset_name = JPRAGeneratedNames.getOffsetConstantName(f_name);
+    this.method_builder.addStatement(
+      "this.$N = $T.createWithBase($N, $N, this.$N + $N)",
+      field_name,
+      constructors,
+      "in_buffer",
+      "this.pointer.getByteOffsetObservable()",
+      "base_offset",
+      offset_name);
+  }
+
+  @Override
+  public Void matchMatrix(final TMatrix t)
+  {
+    final JPRAClasses.MatrixClasses c = JPRAClasses.getMatrixClassesFor(t);
+    this.recreateStorage(c.getBufferedConstructors());
+    return null;
+  }
+
+  @Override
+  public Void matchRecord(final TRecord t)
+  {
+    this.rebindField();
+    return null;
+  }
+
+  @Override
+  public Void matchPacked(final TPacked t)
+  {
+    this.rebindField();
+    return null;
+  }
+
+  @Override
+  public Void matchUnion(final TUnion t)
+  {
+    this.rebindField();
+    return null;
+  }
+}
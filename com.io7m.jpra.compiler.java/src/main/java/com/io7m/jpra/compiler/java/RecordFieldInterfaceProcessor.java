@@ -27,6 +27,7 @@ import com.io7m.jpra.model.types.TMatrix;
 import com.io7m.jpra.model.types.TPacked;
 import com.io7m.jpra.model.types.TRecord;
 import com.io7m.jpra.model.types.TString;
+import com.io7m.jpra.model.types.TUnion;
 import com.io7m.jpra.model.types.TVector;
 import com.io7m.jpra.model.types.TypeMatcherType;
 import com.io7m.jpra.runtime.java.JPRAStringCursorReadableType;
@@ -406,4 +407,11 @@ final class RecordFieldInterfaceProcessor
     this.recordOrPackedMethods(t.getName(), t.getPackageContext());
     return null;
   }
+
+  @Override
+  public Void matchUnion(final TUnion t)
+  {
+    this.recordOrPackedMethods(t.getName(), t.getPackageContext());
+    return null;
+  }
 }
@@ -0,0 +1,220 @@
+/*
+ * Copyright © 2015 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.jpra.compiler.java;
+
+import com.io7m.jpra.model.names.FieldName;
+import com.io7m.jpra.model.types.TArray;
+import com.io7m.jpra.model.types.TBooleanSet;
+import com.io7m.jpra.model.types.TFloat;
+import com.io7m.jpra.model.types.TIntegerType;
+import com.io7m.jpra.model.types.TMatrix;
+import com.io7m.jpra.model.types.TPacked;
+import com.io7m.jpra.model.types.TRecord;
+import com.io7m.jpra.model.types.TString;
+import com.io7m.jpra.model.types.TUnion;
+import com.io7m.jpra.model.types.TVector;
+import com.io7m.jpra.model.types.TypeMatcherType;
+import com.io7m.jpra.runtime.java.JPRAStringTruncation;
+import com.io7m.junreachable.UnimplementedCodeException;
+import com.io7m.junreachable.UnreachableCodeException;
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.TypeName;
+
+import java.math.BigInteger;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A type matcher that produces value class members for record fields.
+ */
+
+final class RecordFieldValueProcessor
+  implements TypeMatcherType<Void, UnreachableCodeException>
+{
+  private final TRecord.FieldValue field;
+  private final List<JPRAValueClasses.Member> members;
+
+  RecordFieldValueProcessor(
+    final TRecord.FieldValue in_field,
+    final List<JPRAValueClasses.Member> in_members)
+  {
+    this.field = Objects.requireNonNull(in_field, "Field");
+    this.members = Objects.requireNonNull(in_members, "Members");
+  }
+
+  private static TypeName integerTypeForSize(
+    final BigInteger size)
+  {
+    if (size.compareTo(BigInteger.valueOf(64L)) > 0) {
+      throw new UnimplementedCodeException();
+    }
+    if (size.compareTo(BigInteger.valueOf(32L)) > 0) {
+      return TypeName.LONG;
+    }
+    if (size.compareTo(BigInteger.valueOf(16L)) > 0) {
+      return TypeName.INT;
+    }
+    if (size.compareTo(BigInteger.valueOf(8L)) > 0) {
+      return TypeName.SHORT;
+    }
+    return TypeName.BYTE;
+  }
+
+  /*
+   * Records that contain arrays or unions have no value classes, see
+   * JPRAValueClasses.recordHasValueClass.
+   */
+
+  @Override
+  public Void matchArray(final TArray t)
+  {
+    throw new UnreachableCodeException();
+  }
+
+  @Override
+  public Void matchString(final TString t)
+  {
+    final FieldName f_name = this.field.getName();
+    final String name = JPRAGeneratedNames.getFieldName(f_name);
+    this.members.add(new JPRAValueClasses.Member(
+      ClassName.get(String.class),
+      name,
+      JPRAGeneratedNames.getGetterName(f_name),
+      String.format("the {@code %s} field", f_name.value()),
+      CodeBlock.of(
+        "view.$N().getNewValue()",
+        JPRAGeneratedNames.getGetterStringReadableName(f_name)),
+      CodeBlock.of(
+        "view.$N().setValue(this.$N, $T.$L)",
+        JPRAGeneratedNames.getGetterStringWritableName(f_name),
+        name,
+        JPRAStringTruncation.class,
+        JPRAStringTruncation.TRUNCATE.name())));
+    return null;
+  }
+
+  @Override
+  public Void matchBooleanSet(final TBooleanSet t)
+  {
+    final FieldName f_name = this.field.getName();
+    for (final FieldName b : t.getFieldsInDeclarationOrder()) {
+      final String name = String.format(
+        "%s_%s", JPRAGeneratedNames.getFieldName(f_name), b.value());
+      final String getter =
+        JPRAGeneratedNames.getGetterBooleanSetName(f_name, b);
+      final String setter =
+        JPRAGeneratedNames.getSetterBooleanSetName(f_name, b);
+
+      this.members.add(new JPRAValueClasses.Member(
+        TypeName.BOOLEAN,
+        name,
+        getter,
+        String.format(
+          "field {@code %s} of the boolean set {@code %s}",
+          b.value(),
+          f_name.value()),
+        CodeBlock.of("view.$N()", getter),
+        CodeBlock.of("view.$N(this.$N)", setter, name)));
+    }
+    return null;
+  }
+
+  @Override
+  public Void matchInteger(final TIntegerType t)
+  {
+    final FieldName f_name = this.field.getName();
+    final TypeName itype = integerTypeForSize(t.getSizeInBits().getValue());
+
+    this.members.add(t.matchTypeInteger(
+      new JPRAValueClasses.IntegerMemberMatcher(itype, f_name)));
+    return null;
+  }
+
+  @Override
+  public Void matchFloat(final TFloat t)
+  {
+    final FieldName f_name = this.field.getName();
+    final BigInteger size = t.getSizeInBits().getValue();
+
+    /*
+      16-bit floating point values are exposed as doubles by the generated
+      interfaces, and a half-precision value is exactly representable as a
+      double, so storing a loaded value is lossless.
+     */
+
+    final TypeName ftype;
+    if (size.compareTo(BigInteger.valueOf(64L)) > 0) {
+      throw new UnimplementedCodeException();
+    } else if (size.compareTo(BigInteger.valueOf(32L)) > 0) {
+      ftype = TypeName.DOUBLE;
+    } else if (size.compareTo(BigInteger.valueOf(16L)) > 0) {
+      ftype = TypeName.FLOAT;
+    } else {
+      ftype = TypeName.DOUBLE;
+    }
+
+    this.members.add(JPRAValueClasses.scalarMember(
+      ftype,
+      f_name,
+      JPRAGeneratedNames.getGetterName(f_name),
+      JPRAGeneratedNames.getSetterName(f_name)));
+    return null;
+  }
+
+  @Override
+  public Void matchVector(final TVector t)
+  {
+    this.members.add(JPRAValueClasses.vectorMember(t, this.field.getName()));
+    return null;
+  }
+
+  @Override
+  public Void matchMatrix(final TMatrix t)
+  {
+    this.members.add(JPRAValueClasses.matrixMember(t, this.field.getName()));
+    return null;
+  }
+
+  @Override
+  public Void matchRecord(final TRecord t)
+  {
+    this.members.add(JPRAValueClasses.nestedMember(
+      ClassName.get(
+        t.getPackageContext().getName().toString(),
+        JPRAGeneratedNames.getRecordValueName(t.getName())),
+      this.field.getName()));
+    return null;
+  }
+
+  @Override
+  public Void matchPacked(final TPacked t)
+  {
+    this.members.add(JPRAValueClasses.nestedMember(
+      ClassName.get(
+        t.getPackageContext().getName().toString(),
+        JPRAGeneratedNames.getPackedValueName(t.getName())),
+      this.field.getName()));
+    return null;
+  }
+
+  @Override
+  public Void matchUnion(final TUnion t)
+  {
+    throw new UnreachableCodeException();
+  }
+}
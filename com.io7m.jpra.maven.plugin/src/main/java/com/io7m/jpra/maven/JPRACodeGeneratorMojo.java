@@ -22,6 +22,7 @@ import com.io7m.jpra.compiler.core.checker.JPRACheckerStandardCapabilities;
 import com.io7m.jpra.compiler.core.driver.JPRADriver;
 import com.io7m.jpra.compiler.core.driver.JPRADriverType;
 import com.io7m.jpra.compiler.java.JPRAJavaGenerator;
+import com.io7m.jpra.compiler.java.JPRAJavaGeneratorFeature;
 import com.io7m.jpra.compiler.java.JPRAJavaGeneratorType;
 import com.io7m.jpra.compiler.java.JPRAJavaWriter;
 import com.io7m.jpra.compiler.java.JPRAJavaWriterType;
@@ -30,8 +31,6 @@ import com.io7m.jpra.model.contexts.GlobalContextType;
 import com.io7m.jpra.model.contexts.PackageContextType;
 import com.io7m.jpra.model.loading.JPRAModelLoadingException;
 import com.io7m.jpra.model.names.PackageNameQualified;
-import com.io7m.jpra.model.names.TypeName;
-import com.io7m.jpra.model.types.TypeUserDefinedType;
 import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
@@ -42,12 +41,22 @@ import org.apache.maven.project.MavenProject;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Queue;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 // CHECKSTYLE:OFF
 
@@ -61,6 +70,14 @@ public final class JPRACodeGeneratorMojo extends AbstractMojo
   @Parameter
   private final ArrayList<String> packages = new ArrayList<>();
 
+  /**
+   * The list of optional generator features that will be enabled (such as
+   * {@code VALUE_CLASSES}).
+   */
+
+  @Parameter
+  private final ArrayList<String> features = new ArrayList<>();
+
   @Parameter(defaultValue = "${project}")
   private MavenProject project;
 
@@ -78,6 +95,26 @@ public final class JPRACodeGeneratorMojo extends AbstractMojo
   @Parameter(defaultValue = "${project.build.directory}/generated-sources")
   private File targetDirectory;
 
+  /**
+   * The file that records the state of the last successful run, used to
+   * skip generation when nothing has changed.
+   */
+
+  @Parameter(
+    defaultValue = "${project.build.directory}/jpra/generate-java.cache")
+  private File cacheFile;
+
+  /**
+   * Skip generation if no source file, imported source file, or plugin
+   * parameter has changed since the last successful run.
+   */
+
+  @Parameter(property = "jpra.incremental", defaultValue = "true")
+  private boolean incremental;
+
+  @Parameter(defaultValue = "${plugin.version}", readonly = true)
+  private String pluginVersion;
+
   /**
    * Construct a plugin.
    */
@@ -87,6 +124,67 @@ public final class JPRACodeGeneratorMojo extends AbstractMojo
 
   }
 
+  private String configurationHash(
+    final List<PackageNameQualified> pack_names,
+    final Set<JPRAJavaGeneratorFeature> feature_set)
+  {
+    final StringBuilder sb = new StringBuilder(256);
+    sb.append("version ");
+    sb.append(this.pluginVersion);
+    sb.append('\n');
+    sb.append("source ");
+    sb.append(this.sourceDirectory.getAbsolutePath());
+    sb.append('\n');
+    sb.append("target ");
+    sb.append(this.targetDirectory.getAbsolutePath());
+    sb.append('\n');
+    for (final PackageNameQualified p : pack_names) {
+      sb.append("package ");
+      sb.append(p);
+      sb.append('\n');
+    }
+    for (final JPRAJavaGeneratorFeature f : feature_set) {
+      sb.append("feature ");
+      sb.append(f);
+      sb.append('\n');
+    }
+    return JPRAGenerationCache.hashString(sb.toString());
+  }
+
+  /**
+   * Record the files of all loaded packages (the listed packages and their
+   * transitive imports), and the files in the output directories of the
+   * listed packages.
+   */
+
+  private JPRAGenerationCache cacheFor(
+    final String configuration,
+    final JPRADriverType driver,
+    final List<PackageNameQualified> pack_names)
+    throws IOException
+  {
+    final GlobalContextType gc = driver.getGlobalContext();
+
+    final SortedMap<Path, String> sources = new TreeMap<>();
+    for (final PackageNameQualified p : gc.getPackages().keySet()) {
+      final Path file = driver.getPackageFile(p).toAbsolutePath();
+      sources.put(file, JPRAGenerationCache.hashFile(file));
+    }
+
+    final SortedSet<Path> outputs = new TreeSet<>();
+    for (final PackageNameQualified p : pack_names) {
+      final Path dir = JPRAJavaWriter.getPathForPackage(
+        this.targetDirectory.toPath(), p).toAbsolutePath();
+      if (Files.isDirectory(dir)) {
+        try (Stream<Path> files = Files.list(dir)) {
+          files.filter(Files::isRegularFile).forEach(outputs::add);
+        }
+      }
+    }
+
+    return new JPRAGenerationCache(configuration, sources, outputs);
+  }
+
   @Override
   public void execute()
     throws MojoExecutionException, MojoFailureException
@@ -97,7 +195,38 @@ public final class JPRACodeGeneratorMojo extends AbstractMojo
       .map(PackageNameQualified::valueOf)
       .collect(Collectors.toList());
 
-    final JPRAJavaGeneratorType gen = JPRAJavaGenerator.newGenerator();
+    final Set<JPRAJavaGeneratorFeature> feature_set = this.features.stream()
+      .map(JPRAJavaGeneratorFeature::valueOf)
+      .collect(Collectors.toCollection(
+        () -> EnumSet.noneOf(JPRAJavaGeneratorFeature.class)));
+
+    /*
+      Skip everything if the previous run is still up to date. Otherwise,
+      remove the cache so that a failed run cannot leave a stale cache
+      behind.
+     */
+
+    final Path cache_file = this.cacheFile.toPath();
+    final String configuration =
+      this.configurationHash(pack_names, feature_set);
+
+    try {
+      if (this.incremental) {
+        final Optional<JPRAGenerationCache> cache =
+          JPRAGenerationCache.load(cache_file);
+        if (cache.isPresent() && cache.get().isUpToDate(configuration)) {
+          logger.info("generated sources are up to date");
+          this.project.addCompileSourceRoot(this.targetDirectory.toString());
+          return;
+        }
+      }
+      Files.deleteIfExists(cache_file);
+    } catch (final IOException e) {
+      throw new MojoExecutionException("Could not read cache", e);
+    }
+
+    final JPRAJavaGeneratorType gen =
+      JPRAJavaGenerator.newGeneratorWithFeatures(feature_set);
     final JPRAProblemFormatterType fmt = JPRAProblemFormatter.newFormatter();
     final JPRAJavaWriterType writer = JPRAJavaWriter.newWriter(gen);
 
@@ -107,27 +236,25 @@ public final class JPRACodeGeneratorMojo extends AbstractMojo
     final GlobalContextType gc = driver.getGlobalContext();
 
     /*
-      Check all listed packages, printing all errors for each.
+      Check all listed packages, printing all errors.
      */
 
     boolean failed = false;
-    for (final PackageNameQualified pack_name : pack_names) {
-      logger.debug("checking " + pack_name);
+    logger.debug("checking " + pack_names);
 
-      try {
-        driver.compilePackage(pack_name);
-      } catch (final JPRAModelLoadingException e) {
-        failed = true;
-      }
+    try {
+      driver.compilePackages(pack_names);
+    } catch (final JPRAModelLoadingException e) {
+      failed = true;
+    }
 
-      final Queue<JPRAException> q = gc.getErrorQueue();
-      final Iterator<JPRAException> iter = q.iterator();
-      while (iter.hasNext()) {
-        final JPRAException e = iter.next();
-        fmt.onJPRAException(System.err, e);
-        iter.remove();
-        failed = true;
-      }
+    final Queue<JPRAException> q = gc.getErrorQueue();
+    final Iterator<JPRAException> iter = q.iterator();
+    while (iter.hasNext()) {
+      final JPRAException e = iter.next();
+      fmt.onJPRAException(System.err, e);
+      iter.remove();
+      failed = true;
     }
 
     /*
@@ -140,19 +267,16 @@ public final class JPRACodeGeneratorMojo extends AbstractMojo
       final Map<PackageNameQualified, PackageContextType> packs =
         gc.getPackages();
 
-      for (final PackageNameQualified pack_name : pack_names) {
-        final PackageContextType pack = packs.get(pack_name);
-        final Map<TypeName, TypeUserDefinedType> types = pack.getTypes();
-        for (final TypeName t_name : types.keySet()) {
-          final TypeUserDefinedType type = types.get(t_name);
-          try {
-            writer.writeType(this.targetDirectory.toPath(), type);
-          } catch (final IOException e) {
-            failed = true;
-            System.err.printf("i/o failed: %s", e);
-            System.err.println();
-          }
-        }
+      final List<PackageContextType> pack_list = pack_names.stream()
+        .map(packs::get)
+        .collect(Collectors.toList());
+
+      try {
+        writer.writePackages(this.targetDirectory.toPath(), pack_list);
+      } catch (final IOException e) {
+        failed = true;
+        System.err.printf("i/o failed: %s", e);
+        System.err.println();
       }
     }
 
@@ -164,6 +288,12 @@ public final class JPRACodeGeneratorMojo extends AbstractMojo
       throw new MojoFailureException("Plugin failed due to one or more errors");
     }
 
+    try {
+      this.cacheFor(configuration, driver, pack_names).save(cache_file);
+    } catch (final IOException e) {
+      throw new MojoExecutionException("Could not write cache", e);
+    }
+
     this.project.addCompileSourceRoot(this.targetDirectory.toString());
   }
 }
@@ -0,0 +1,270 @@
+/*
+ * Copyright © 2015 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jpra.maven;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * <p>The state of a previous successful code generation run.</p>
+ *
+ * <p>The cache records a hash of the plugin configuration, the SHA-256
+ * hash of every source file that was loaded (the listed packages and all
+ * of their transitive imports), and the files present in the output
+ * directories of the listed packages. Generation can be skipped if the
+ * configuration and all of the source files are unchanged, and all of the
+ * output files still exist.</p>
+ *
+ * <p>The cache is stored as a line-based text file:</p>
+ *
+ * <pre>
+ * configuration &lt;hash&gt;
+ * source &lt;hash&gt; &lt;path&gt;
+ * output &lt;path&gt;
+ * </pre>
+ */
+
+final class JPRAGenerationCache
+{
+  private final String configuration;
+  private final SortedMap<Path, String> sources;
+  private final SortedSet<Path> outputs;
+
+  JPRAGenerationCache(
+    final String in_configuration,
+    final SortedMap<Path, String> in_sources,
+    final SortedSet<Path> in_outputs)
+  {
+    this.configuration =
+      Objects.requireNonNull(in_configuration, "Configuration");
+    this.sources = Collections.unmodifiableSortedMap(
+      new TreeMap<>(Objects.requireNonNull(in_sources, "Sources")));
+    this.outputs = Collections.unmodifiableSortedSet(
+      new TreeSet<>(Objects.requireNonNull(in_outputs, "Outputs")));
+  }
+
+  /**
+   * @param text A string
+   *
+   * @return The hex-encoded SHA-256 hash of the UTF-8 encoding of {@code
+   * text}
+   */
+
+  static String hashString(
+    final String text)
+  {
+    return hash(text.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * @param file A file
+   *
+   * @return The hex-encoded SHA-256 hash of the content of {@code file}
+   *
+   * @throws IOException On I/O errors
+   */
+
+  static String hashFile(
+    final Path file)
+    throws IOException
+  {
+    return hash(Files.readAllBytes(file));
+  }
+
+  private static String hash(
+    final byte[] data)
+  {
+    try {
+      final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      final byte[] result = digest.digest(data);
+      final StringBuilder sb = new StringBuilder(result.length * 2);
+      for (final byte b : result) {
+        sb.append(String.format("%02x", Integer.valueOf(b & 0xff)));
+      }
+      return sb.toString();
+    } catch (final NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Load a cache from {@code file}.
+   *
+   * @param file The file
+   *
+   * @return The cache, or nothing if the file does not exist or is not a
+   * well-formed cache
+   *
+   * @throws IOException On I/O errors
+   */
+
+  static Optional<JPRAGenerationCache> load(
+    final Path file)
+    throws IOException
+  {
+    Objects.requireNonNull(file, "File");
+
+    String configuration = null;
+    final SortedMap<Path, String> sources = new TreeMap<>();
+    final SortedSet<Path> outputs = new TreeSet<>();
+
+    try (BufferedReader r =
+           Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+      while (true) {
+        final String line = r.readLine();
+        if (line == null) {
+          break;
+        }
+
+        /*
+          Paths may contain spaces, and so are always the last item on a
+          line.
+         */
+
+        final int space = line.indexOf(' ');
+        if (space < 0) {
+          return Optional.empty();
+        }
+
+        final String rest = line.substring(space + 1);
+        switch (line.substring(0, space)) {
+          case "configuration": {
+            configuration = rest;
+            break;
+          }
+          case "source": {
+            final int hash_end = rest.indexOf(' ');
+            if (hash_end < 0) {
+              return Optional.empty();
+            }
+            sources.put(
+              Paths.get(rest.substring(hash_end + 1)),
+              rest.substring(0, hash_end));
+            break;
+          }
+          case "output": {
+            outputs.add(Paths.get(rest));
+            break;
+          }
+          default: {
+            return Optional.empty();
+          }
+        }
+      }
+    } catch (final NoSuchFileException e) {
+      return Optional.empty();
+    }
+
+    if (configuration == null) {
+      return Optional.empty();
+    }
+    return Optional.of(
+      new JPRAGenerationCache(configuration, sources, outputs));
+  }
+
+  /**
+   * Save the cache to {@code file}, creating parent directories as
+   * necessary.
+   *
+   * @param file The file
+   *
+   * @throws IOException On I/O errors
+   */
+
+  void save(
+    final Path file)
+    throws IOException
+  {
+    Objects.requireNonNull(file, "File");
+
+    final Path parent = file.toAbsolutePath().getParent();
+    if (parent != null) {
+      Files.createDirectories(parent);
+    }
+
+    try (BufferedWriter w =
+           Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+      w.write("configuration ");
+      w.write(this.configuration);
+      w.newLine();
+      for (final Path source : this.sources.keySet()) {
+        w.write("source ");
+        w.write(this.sources.get(source));
+        w.write(' ');
+        w.write(source.toString());
+        w.newLine();
+      }
+      for (final Path output : this.outputs) {
+        w.write("output ");
+        w.write(output.toString());
+        w.newLine();
+      }
+    }
+  }
+
+  /**
+   * @param in_configuration The hash of the current configuration
+   *
+   * @return {@code true} iff the configuration and all source files are
+   * unchanged, and all output files exist
+   *
+   * @throws IOException On I/O errors
+   */
+
+  boolean isUpToDate(
+    final String in_configuration)
+    throws IOException
+  {
+    Objects.requireNonNull(in_configuration, "Configuration");
+
+    if (!this.configuration.equals(in_configuration)) {
+      return false;
+    }
+
+    for (final Path output : this.outputs) {
+      if (!Files.isRegularFile(output)) {
+        return false;
+      }
+    }
+
+    for (final Path source : this.sources.keySet()) {
+      if (!Files.isRegularFile(source)) {
+        return false;
+      }
+      if (!this.sources.get(source).equals(hashFile(source))) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
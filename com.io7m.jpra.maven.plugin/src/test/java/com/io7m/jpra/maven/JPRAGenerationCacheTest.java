@@ -0,0 +1,186 @@
+/*
+ * Copyright © 2015 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.jpra.maven;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+public final class JPRAGenerationCacheTest
+{
+  @Rule public final TemporaryFolder folder = new TemporaryFolder();
+
+  private Path directory;
+  private Path source;
+  private Path imported;
+  private Path output;
+  private Path cache_file;
+
+  private static void write(
+    final Path file,
+    final String text)
+    throws IOException
+  {
+    Files.write(file, text.getBytes(StandardCharsets.UTF_8));
+  }
+
+  @Before
+  public void setUp()
+    throws IOException
+  {
+    this.directory = this.folder.newFolder("with spaces").toPath();
+    this.source = this.directory.resolve("a source.jpr");
+    this.imported = this.directory.resolve("imported.jpr");
+    this.output = this.directory.resolve("TType.java");
+    this.cache_file = this.directory.resolve("jpra/generate-java.cache");
+
+    write(this.source, "(package-begin x.y.a)\n(package-end)\n");
+    write(this.imported, "(package-begin x.y.b)\n(package-end)\n");
+    write(this.output, "class TType { }\n");
+  }
+
+  private JPRAGenerationCache cache()
+    throws IOException
+  {
+    final SortedMap<Path, String> sources = new TreeMap<>();
+    sources.put(this.source, JPRAGenerationCache.hashFile(this.source));
+    sources.put(this.imported, JPRAGenerationCache.hashFile(this.imported));
+    final SortedSet<Path> outputs = new TreeSet<>();
+    outputs.add(this.output);
+    return new JPRAGenerationCache("config", sources, outputs);
+  }
+
+  private JPRAGenerationCache saveAndLoad()
+    throws IOException
+  {
+    this.cache().save(this.cache_file);
+    final Optional<JPRAGenerationCache> loaded =
+      JPRAGenerationCache.load(this.cache_file);
+    Assert.assertTrue(loaded.isPresent());
+    return loaded.get();
+  }
+
+  @Test
+  public void testRoundTrip()
+    throws IOException
+  {
+    final JPRAGenerationCache loaded = this.saveAndLoad();
+
+    final Path again = this.directory.resolve("again.cache");
+    loaded.save(again);
+    Assert.assertArrayEquals(
+      Files.readAllBytes(this.cache_file),
+      Files.readAllBytes(again));
+
+    final String text =
+      new String(Files.readAllBytes(this.cache_file), StandardCharsets.UTF_8);
+    Assert.assertTrue(text.startsWith("configuration config\n"));
+    Assert.assertTrue(text.contains(
+      "source " + JPRAGenerationCache.hashFile(this.source)
+        + " " + this.source + "\n"));
+    Assert.assertTrue(text.contains("output " + this.output + "\n"));
+  }
+
+  @Test
+  public void testLoadMissing()
+    throws IOException
+  {
+    Assert.assertFalse(
+      JPRAGenerationCache.load(this.directory.resolve("nonexistent"))
+        .isPresent());
+  }
+
+  @Test
+  public void testLoadMalformed()
+    throws IOException
+  {
+    final Path file = this.directory.resolve("bad.cache");
+
+    write(file, "configuration config\nunknown x\n");
+    Assert.assertFalse(JPRAGenerationCache.load(file).isPresent());
+
+    write(file, "configuration config\nsource abcd\n");
+    Assert.assertFalse(JPRAGenerationCache.load(file).isPresent());
+
+    write(file, "configuration config\noutputs\n");
+    Assert.assertFalse(JPRAGenerationCache.load(file).isPresent());
+
+    write(file, "output " + this.output + "\n");
+    Assert.assertFalse(JPRAGenerationCache.load(file).isPresent());
+  }
+
+  @Test
+  public void testUpToDate()
+    throws IOException
+  {
+    Assert.assertTrue(this.saveAndLoad().isUpToDate("config"));
+  }
+
+  @Test
+  public void testConfigurationChanged()
+    throws IOException
+  {
+    Assert.assertFalse(this.saveAndLoad().isUpToDate("other"));
+  }
+
+  @Test
+  public void testImportedSourceChanged()
+    throws IOException
+  {
+    final JPRAGenerationCache loaded = this.saveAndLoad();
+    write(this.imported, "(package-begin x.y.b)\n\n(package-end)\n");
+    Assert.assertFalse(loaded.isUpToDate("config"));
+  }
+
+  @Test
+  public void testSourceDeleted()
+    throws IOException
+  {
+    final JPRAGenerationCache loaded = this.saveAndLoad();
+    Files.delete(this.imported);
+    Assert.assertFalse(loaded.isUpToDate("config"));
+  }
+
+  @Test
+  public void testOutputDeleted()
+    throws IOException
+  {
+    final JPRAGenerationCache loaded = this.saveAndLoad();
+    Files.delete(this.output);
+    Assert.assertFalse(loaded.isUpToDate("config"));
+  }
+
+  @Test
+  public void testHashString()
+  {
+    Assert.assertEquals(
+      "e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855",
+      JPRAGenerationCache.hashString(""));
+  }
+}
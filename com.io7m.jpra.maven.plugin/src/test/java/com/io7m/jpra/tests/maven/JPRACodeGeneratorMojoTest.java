@@ -18,19 +18,77 @@ package com.io7m.jpra.tests.maven;
 
 import io.takari.maven.testing.TestMavenRuntime;
 import io.takari.maven.testing.TestResources;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugin.Mojo;
+import org.apache.maven.plugin.MojoExecution;
 import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.apache.maven.project.MavenProject;
 import org.codehaus.plexus.util.xml.Xpp3Dom;
+import org.junit.Assert;
 import org.junit.Rule;
 import org.junit.Test;
 
 import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
 
 public final class JPRACodeGeneratorMojoTest
 {
+  private static final String UP_TO_DATE = "generated sources are up to date";
+
+  private static final String[] INCREMENTAL_OUTPUTS = {
+    "target/generated-sources/com/io7m/incremental/TType.java",
+    "target/generated-sources/com/io7m/incremental/TByteBuffered.java",
+    "target/generated-sources/com/io7m/incremental/TReadableType.java",
+    "target/generated-sources/com/io7m/incremental/TWritableType.java",
+  };
+
   @Rule public final TestResources resources = new TestResources();
 
   @Rule public final TestMavenRuntime maven = new TestMavenRuntime();
 
+  private static Xpp3Dom packages(
+    final String name)
+  {
+    final Xpp3Dom p = new Xpp3Dom("param");
+    p.setValue(name);
+    final Xpp3Dom ps = new Xpp3Dom("packages");
+    ps.addChild(p);
+    return ps;
+  }
+
+  private static Xpp3Dom features(
+    final String name)
+  {
+    final Xpp3Dom p = new Xpp3Dom("param");
+    p.setValue(name);
+    final Xpp3Dom ps = new Xpp3Dom("features");
+    ps.addChild(p);
+    return ps;
+  }
+
+  private RecordingLog execute(
+    final File basedir,
+    final Xpp3Dom... parameters)
+    throws Exception
+  {
+    final MavenProject project = this.maven.readMavenProject(basedir);
+    final MavenSession session = this.maven.newMavenSession(project);
+    final MojoExecution execution =
+      this.maven.newMojoExecution("generate-java", parameters);
+    final Mojo mojo = this.maven.lookupConfiguredMojo(session, execution);
+    final RecordingLog log = new RecordingLog();
+    mojo.setLog(log);
+    mojo.execute();
+    return log;
+  }
+
   @Test
   public void testEmpty()
     throws Exception
@@ -73,4 +131,124 @@ public final class JPRACodeGeneratorMojoTest
     TestResources.assertFilesPresent(
       basedir, "target/generated-sources/com/io7m/correct/TWritableType.java");
   }
+
+  @Test
+  public void testIncrementalUpToDate()
+    throws Exception
+  {
+    final File basedir = this.resources.getBasedir("incremental");
+
+    final RecordingLog log0 =
+      this.execute(basedir, packages("com.io7m.incremental"));
+    Assert.assertFalse(log0.infos.contains(UP_TO_DATE));
+    TestResources.assertFilesPresent(basedir, INCREMENTAL_OUTPUTS);
+    TestResources.assertFilesPresent(
+      basedir, "target/jpra/generate-java.cache");
+
+    final FileTime time = FileTime.fromMillis(1_000_000_000_000L);
+    for (final String output : INCREMENTAL_OUTPUTS) {
+      Files.setLastModifiedTime(basedir.toPath().resolve(output), time);
+    }
+
+    final RecordingLog log1 =
+      this.execute(basedir, packages("com.io7m.incremental"));
+    Assert.assertTrue(log1.infos.contains(UP_TO_DATE));
+    for (final String output : INCREMENTAL_OUTPUTS) {
+      Assert.assertEquals(
+        time,
+        Files.getLastModifiedTime(basedir.toPath().resolve(output)));
+    }
+  }
+
+  @Test
+  public void testIncrementalImportChanged()
+    throws Exception
+  {
+    final File basedir = this.resources.getBasedir("incremental");
+    this.maven.executeMojo(
+      basedir, "generate-java", packages("com.io7m.incremental"));
+
+    final Path imported =
+      basedir.toPath().resolve("src/main/jpra/com/io7m/imported.jpr");
+    Files.write(
+      imported,
+      "\n".getBytes(StandardCharsets.UTF_8),
+      StandardOpenOption.APPEND);
+
+    final RecordingLog log =
+      this.execute(basedir, packages("com.io7m.incremental"));
+    Assert.assertFalse(log.infos.contains(UP_TO_DATE));
+  }
+
+  @Test
+  public void testIncrementalOutputDeleted()
+    throws Exception
+  {
+    final File basedir = this.resources.getBasedir("incremental");
+    this.maven.executeMojo(
+      basedir, "generate-java", packages("com.io7m.incremental"));
+
+    Files.delete(basedir.toPath().resolve(INCREMENTAL_OUTPUTS[0]));
+
+    final RecordingLog log =
+      this.execute(basedir, packages("com.io7m.incremental"));
+    Assert.assertFalse(log.infos.contains(UP_TO_DATE));
+    TestResources.assertFilesPresent(basedir, INCREMENTAL_OUTPUTS);
+  }
+
+  @Test
+  public void testIncrementalConfigurationChanged()
+    throws Exception
+  {
+    final File basedir = this.resources.getBasedir("incremental");
+    this.maven.executeMojo(
+      basedir, "generate-java", packages("com.io7m.incremental"));
+
+    final RecordingLog log = this.execute(
+      basedir,
+      packages("com.io7m.incremental"),
+      features("VALUE_CLASSES"));
+    Assert.assertFalse(log.infos.contains(UP_TO_DATE));
+  }
+
+  @Test
+  public void testCompileFailureRemovesCache()
+    throws Exception
+  {
+    final File basedir = this.resources.getBasedir("compile-failure");
+    final Path cache =
+      basedir.toPath().resolve("target/jpra/generate-java.cache");
+    Files.createDirectories(cache.getParent());
+    Files.write(
+      cache,
+      "configuration x\n".getBytes(StandardCharsets.UTF_8));
+
+    try {
+      this.maven.executeMojo(
+        basedir, "generate-java", packages("com.io7m.bad"));
+      Assert.fail("Expected a failure");
+    } catch (final MojoFailureException e) {
+      // Expected
+    }
+
+    Assert.assertFalse(Files.exists(cache));
+  }
+
+  private static final class RecordingLog extends SystemStreamLog
+  {
+    private final List<String> infos = new ArrayList<>(8);
+
+    RecordingLog()
+    {
+
+    }
+
+    @Override
+    public void info(
+      final CharSequence content)
+    {
+      this.infos.add(content.toString());
+      super.info(content);
+    }
+  }
 }
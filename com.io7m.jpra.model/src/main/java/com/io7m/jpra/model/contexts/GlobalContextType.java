@@ -18,12 +18,15 @@ package com.io7m.jpra.model.contexts;
 
 import com.io7m.jpra.core.JPRAException;
 import com.io7m.jpra.model.loading.JPRAModelLoadingException;
+import com.io7m.jpra.model.loading.JPRAPackageLoaderType;
 import com.io7m.jpra.model.names.IdentifierType;
 import com.io7m.jpra.model.names.PackageNameQualified;
 import com.io7m.jpra.model.types.TypeUserDefinedType;
 
+import java.util.List;
 import java.util.Map;
 import java.util.Queue;
+import java.util.concurrent.Executor;
 
 /**
  * The global context.
@@ -62,6 +65,32 @@ public interface GlobalContextType
   PackageContextType loadPackage(PackageNameQualified p)
     throws JPRAModelLoadingException;
 
+  /**
+   * <p>Load a list of packages, and all of the packages that they import,
+   * into the context.</p>
+   *
+   * <p>The packages are first prepared concurrently on {@code executor}
+   * (see {@link JPRAPackageLoaderType#prepare(PackageNameQualified)}), and
+   * are then evaluated one at a time on the calling thread, each package
+   * after all of the packages that it imports. Errors are therefore added to
+   * the error queue in the same order regardless of the order in which the
+   * packages were prepared. Evaluation continues after a package fails to
+   * load, so that the errors of all packages are reported.</p>
+   *
+   * @param p        The names of the packages
+   * @param executor An executor used to prepare packages
+   *
+   * @return The packages named in {@code p}
+   *
+   * @throws JPRAModelLoadingException Iff any of the packages named in
+   *                                   {@code p} cannot be loaded
+   */
+
+  Map<PackageNameQualified, PackageContextType> loadPackages(
+    List<PackageNameQualified> p,
+    Executor executor)
+    throws JPRAModelLoadingException;
+
   /**
    * Return a type previously added with {@link #putType(TypeUserDefinedType)}.
    *
@@ -26,6 +26,8 @@ import com.io7m.jpra.model.names.Identifier;
 import com.io7m.jpra.model.names.IdentifierType;
 import com.io7m.jpra.model.names.PackageNameQualified;
 import com.io7m.jpra.model.types.TypeUserDefinedType;
+import io.vavr.Tuple;
+import io.vavr.Tuple2;
 import org.jgrapht.alg.shortestpath.DijkstraShortestPath;
 import org.jgrapht.graph.DirectedAcyclicGraph;
 import org.slf4j.Logger;
@@ -36,14 +38,25 @@ import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorCompletionService;
 
 /**
- * Access to global contexts.
+ * <p>Access to global contexts.</p>
+ *
+ * <p>Global contexts are not thread-safe. The only work that {@link
+ * #loadPackages(List, Executor)} performs concurrently is the preparation
+ * of packages by the package loader, which does not access the context.</p>
  */
 
 public final class GlobalContexts implements GlobalContextType
@@ -58,6 +71,7 @@ public final class GlobalContexts implements GlobalContextType
   private final HashMap<PackageNameQualified, PackageContextType> packages;
   private final JPRAPackageLoaderType loader;
   private final HashMap<IdentifierType, TypeUserDefinedType> types;
+  private final HashSet<PackageNameQualified> failed;
 
   private final Queue<JPRAException> error_queue;
   private BigInteger id_pool;
@@ -69,6 +83,7 @@ public final class GlobalContexts implements GlobalContextType
     this.packages = new HashMap<>();
     this.loader = Objects.requireNonNull(in_loader, "Loader");
     this.types = new HashMap<>();
+    this.failed = new HashSet<>();
     this.loading = Optional.empty();
     this.error_queue = new ArrayDeque<>(128);
 
@@ -127,15 +142,197 @@ public final class GlobalContexts implements GlobalContextType
         return this.packages.get(p);
       }
 
+      /*
+       * A package that failed to load has already had its errors reported,
+       * and is not evaluated again.
+       */
+
+      if (this.failed.contains(p)) {
+        throw new JPRAModelLoadingException(
+          String.format("Failed to load package %s", p));
+      }
+
       LOG.debug("loading package: {}", p);
-      final PackageContextType r = this.loader.evaluate(this, p);
-      this.packages.put(p, r);
-      return r;
+      try {
+        final PackageContextType r = this.loader.evaluate(this, p);
+        this.packages.put(p, r);
+        return r;
+      } catch (final JPRAModelLoadingException e) {
+        this.failed.add(p);
+        throw e;
+      }
     } finally {
       this.loading = previous_opt;
     }
   }
 
+  @Override
+  public Map<PackageNameQualified, PackageContextType> loadPackages(
+    final List<PackageNameQualified> p,
+    final Executor executor)
+    throws JPRAModelLoadingException
+  {
+    Objects.requireNonNull(p, "Package names");
+    Objects.requireNonNull(executor, "Executor");
+
+    final Map<PackageNameQualified, List<PackageNameQualified>> imports =
+      this.prepareAll(p, executor);
+
+    for (final PackageNameQualified q : this.evaluationOrder(p, imports)) {
+      try {
+        this.loadPackage(q);
+      } catch (final JPRAModelLoadingException e) {
+        LOG.debug("failed to load package: {}", q);
+      }
+    }
+
+    final Map<PackageNameQualified, PackageContextType> results =
+      new LinkedHashMap<>(p.size());
+    boolean error = false;
+    for (final PackageNameQualified q : p) {
+      if (this.packages.containsKey(q)) {
+        results.put(q, this.packages.get(q));
+      } else {
+        error = true;
+      }
+    }
+
+    if (error) {
+      throw new JPRAModelLoadingException(
+        "Failed to load one or more packages");
+    }
+    return Collections.unmodifiableMap(results);
+  }
+
+  private boolean isUnvisited(
+    final PackageNameQualified p)
+  {
+    return !this.packages.containsKey(p) && !this.failed.contains(p);
+  }
+
+  /**
+   * Prepare the given packages and all of the packages that they
+   * (transitively) import. Each package is submitted to the executor as
+   * soon as an import of it is discovered.
+   */
+
+  private Map<PackageNameQualified, List<PackageNameQualified>> prepareAll(
+    final List<PackageNameQualified> names,
+    final Executor executor)
+    throws JPRAModelLoadingException
+  {
+    final CompletionService<Tuple2<PackageNameQualified, List<PackageNameQualified>>> service =
+      new ExecutorCompletionService<>(executor);
+    final Set<PackageNameQualified> submitted = new HashSet<>(names.size());
+    final Map<PackageNameQualified, List<PackageNameQualified>> imports =
+      new HashMap<>(names.size());
+
+    int outstanding = 0;
+    for (final PackageNameQualified p : names) {
+      if (this.isUnvisited(p) && submitted.add(p)) {
+        service.submit(() -> Tuple.of(p, this.loader.prepare(p)));
+        ++outstanding;
+      }
+    }
+
+    while (outstanding > 0) {
+      final Tuple2<PackageNameQualified, List<PackageNameQualified>> r;
+      try {
+        r = service.take().get();
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new JPRAModelLoadingException(
+          "Interrupted while preparing packages");
+      } catch (final ExecutionException e) {
+        throw new IllegalStateException(e.getCause());
+      }
+
+      --outstanding;
+      LOG.debug("prepared package: {}", r._1);
+      imports.put(r._1, r._2);
+
+      for (final PackageNameQualified i : r._2) {
+        if (this.isUnvisited(i) && submitted.add(i)) {
+          service.submit(() -> Tuple.of(i, this.loader.prepare(i)));
+          ++outstanding;
+        }
+      }
+    }
+
+    return imports;
+  }
+
+  /**
+   * Add the discovered imports to the import graph, and return the packages
+   * in an order such that every package appears after all of the packages
+   * that it imports, and unrelated packages appear in the order in which
+   * they were requested. The order depends only on the names and the
+   * imports, and not on the order in which packages were prepared. Imports
+   * that would introduce a cycle are left out of the graph here, and the
+   * packages on the cycle are left out of the order, apart from the
+   * requested package through which the cycle was reached. Those packages
+   * are then loaded by the requested package in the same order as they
+   * would be by {@link #loadPackage(PackageNameQualified)}, and so the
+   * cycle is reported by {@link #checkCircularLoad(Optional,
+   * PackageNameQualified)} starting from the requested package.
+   */
+
+  private List<PackageNameQualified> evaluationOrder(
+    final List<PackageNameQualified> names,
+    final Map<PackageNameQualified, List<PackageNameQualified>> imports)
+  {
+    final Set<PackageNameQualified> visited = new HashSet<>(imports.size());
+    final Set<PackageNameQualified> cyclic = new HashSet<>(imports.size());
+    final List<PackageNameQualified> stack = new ArrayList<>(imports.size());
+    final List<PackageNameQualified> order = new ArrayList<>(imports.size());
+    for (final PackageNameQualified p : names) {
+      this.evaluationOrderVisit(imports, visited, cyclic, stack, order, p);
+      if (cyclic.contains(p) && !order.contains(p)) {
+        order.add(p);
+      }
+    }
+    return order;
+  }
+
+  private void evaluationOrderVisit(
+    final Map<PackageNameQualified, List<PackageNameQualified>> imports,
+    final Set<PackageNameQualified> visited,
+    final Set<PackageNameQualified> cyclic,
+    final List<PackageNameQualified> stack,
+    final List<PackageNameQualified> order,
+    final PackageNameQualified p)
+  {
+    final int index = stack.indexOf(p);
+    if (index >= 0) {
+      cyclic.addAll(stack.subList(index, stack.size()));
+      return;
+    }
+
+    if (!visited.add(p)) {
+      return;
+    }
+
+    final List<PackageNameQualified> p_imports =
+      imports.getOrDefault(p, Collections.emptyList());
+
+    stack.add(p);
+    this.graph.addVertex(p);
+    for (final PackageNameQualified i : p_imports) {
+      this.graph.addVertex(i);
+      try {
+        this.graph.addEdge(p, i);
+      } catch (final IllegalArgumentException e) {
+        LOG.debug("import of {} by {} introduces a cycle", i, p);
+      }
+      this.evaluationOrderVisit(imports, visited, cyclic, stack, order, i);
+    }
+    stack.remove(stack.size() - 1);
+
+    if (!cyclic.contains(p)) {
+      order.add(p);
+    }
+  }
+
   private void checkCircularLoad(
     final Optional<PackageNameQualified> previous_opt,
     final PackageNameQualified current)
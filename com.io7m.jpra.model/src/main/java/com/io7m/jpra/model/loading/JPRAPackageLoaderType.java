@@ -20,6 +20,9 @@ import com.io7m.jpra.model.contexts.GlobalContextType;
 import com.io7m.jpra.model.contexts.PackageContextType;
 import com.io7m.jpra.model.names.PackageNameQualified;
 
+import java.util.Collections;
+import java.util.List;
+
 /**
  * The type of functions  that take fully qualified package names and yield
  * packages.
@@ -42,4 +45,28 @@ public interface JPRAPackageLoaderType
     GlobalContextType c,
     PackageNameQualified p)
     throws JPRAModelLoadingException;
+
+  /**
+   * <p>Prepare a package for later evaluation, without accessing any global
+   * context. Typically, this reads and parses the package's source. Any
+   * errors encountered must be retained and reported when the package is
+   * evaluated with {@link #evaluate(GlobalContextType,
+   * PackageNameQualified)}, so that errors are reported in evaluation
+   * order.</p>
+   *
+   * <p>This method may be called concurrently for distinct packages. The
+   * default implementation does nothing, deferring all work to {@link
+   * #evaluate(GlobalContextType, PackageNameQualified)}.</p>
+   *
+   * @param p The qualified package name
+   *
+   * @return The names of the packages directly imported by {@code p}, in
+   * declaration order, if known
+   */
+
+  default List<PackageNameQualified> prepare(
+    final PackageNameQualified p)
+  {
+    return Collections.emptyList();
+  }
 }
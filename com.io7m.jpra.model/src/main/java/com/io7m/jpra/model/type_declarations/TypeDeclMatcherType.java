@@ -52,4 +52,17 @@ public interface TypeDeclMatcherType<I, T, A, E extends Exception>
 
   A matchPacked(TypeDeclPacked<I, T> t)
     throws E;
+
+  /**
+   * Match a type declaration.
+   *
+   * @param t The declaration
+   *
+   * @return A value of {@code A}
+   *
+   * @throws E If required
+   */
+
+  A matchUnion(TypeDeclUnion<I, T> t)
+    throws E;
 }
@@ -0,0 +1,156 @@
+/*
+ * Copyright © 2015 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.jpra.model.type_declarations;
+
+import com.io7m.jaffirm.core.Preconditions;
+import com.io7m.jlexing.core.LexicalPosition;
+import com.io7m.jpra.model.names.TypeName;
+import com.io7m.jpra.model.names.UnionCaseName;
+import com.io7m.jpra.model.statements.StatementMatcherType;
+import com.io7m.jpra.model.type_expressions.TypeExprType;
+import io.vavr.collection.List;
+import io.vavr.collection.Map;
+
+import java.net.URI;
+import java.util.Objects;
+
+/**
+ * A {@code union} type declaration.
+ *
+ * @param <I> The type of identifiers
+ * @param <T> The type of type information
+ */
+
+public final class TypeDeclUnion<I, T> implements TypeDeclType<I, T>
+{
+  private final TypeName name;
+  private final TypeExprType<I, T> tag;
+  private final List<UnionCaseDecl<I, T>> cases_order;
+  private final Map<UnionCaseName, UnionCaseDecl<I, T>> cases_name;
+  private final I identifier;
+  private final T type;
+
+  /**
+   * Construct a type declaration.
+   *
+   * @param in_identifier  The identifier
+   * @param in_type        The type
+   * @param in_cases_name  The cases by name
+   * @param in_name        The type name
+   * @param in_tag         The type of the tag
+   * @param in_cases_order The cases in declaration order
+   */
+
+  public TypeDeclUnion(
+    final I in_identifier,
+    final T in_type,
+    final Map<UnionCaseName, UnionCaseDecl<I, T>> in_cases_name,
+    final TypeName in_name,
+    final TypeExprType<I, T> in_tag,
+    final List<UnionCaseDecl<I, T>> in_cases_order)
+  {
+    this.identifier =
+      Objects.requireNonNull(in_identifier, "Identifier");
+    this.type =
+      Objects.requireNonNull(in_type, "Type");
+    this.cases_name =
+      Objects.requireNonNull(in_cases_name, "Case name");
+    this.name =
+      Objects.requireNonNull(in_name, "Type name");
+    this.tag =
+      Objects.requireNonNull(in_tag, "Tag");
+    this.cases_order =
+      Objects.requireNonNull(in_cases_order, "Cases ordered");
+
+    Preconditions.checkPreconditionV(
+      this.cases_name.size() == this.cases_order.size(),
+      "Cases-by-name size %d != Cases-ordered size %d",
+      Integer.valueOf(this.cases_name.size()),
+      Integer.valueOf(this.cases_order.size()));
+
+    this.cases_order.forEach(c -> Preconditions.checkPreconditionV(
+      this.cases_name.containsKey(c.getName()),
+      "Cases must contain %s", c.getName().value()));
+  }
+
+  @Override
+  public TypeName getName()
+  {
+    return this.name;
+  }
+
+  @Override
+  public <A, E extends Exception> A matchTypeDeclaration(
+    final TypeDeclMatcherType<I, T, A, E> m)
+    throws E
+  {
+    return m.matchUnion(this);
+  }
+
+  @Override
+  public LexicalPosition<URI> lexical()
+  {
+    return this.name.lexical();
+  }
+
+  @Override
+  public T getType()
+  {
+    return this.type;
+  }
+
+  @Override
+  public I getIdentifier()
+  {
+    return this.identifier;
+  }
+
+  @Override
+  public <A, E extends Exception> A matchStatement(
+    final StatementMatcherType<I, T, A, E> m)
+    throws E
+  {
+    return m.matchTypeDecl(this);
+  }
+
+  /**
+   * @return The type expression of the tag
+   */
+
+  public TypeExprType<I, T> getTag()
+  {
+    return this.tag;
+  }
+
+  /**
+   * @return The cases in declaration order
+   */
+
+  public List<UnionCaseDecl<I, T>> getCasesInDeclarationOrder()
+  {
+    return this.cases_order;
+  }
+
+  /**
+   * @return The cases by name
+   */
+
+  public Map<UnionCaseName, UnionCaseDecl<I, T>> getCasesByName()
+  {
+    return this.cases_name;
+  }
+}
@@ -0,0 +1,390 @@
+/*
+ * Copyright © 2015 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.jpra.model.types;
+
+import com.io7m.jranges.RangeInclusiveB;
+import com.io7m.junreachable.UnreachableCodeException;
+
+import java.util.Objects;
+
+/**
+ * <p>Functions to calculate layout fingerprints.</p>
+ *
+ * <p>A layout fingerprint is a 64-bit hash of a canonical description of
+ * the byte layout of a type: the order, offsets and sizes of fields, the
+ * kinds of scalar types, the encodings and lengths of strings, the bit
+ * ranges of packed fields, and the tags and case layouts of unions. Names
+ * of types and fields are not included, so renaming a field does not
+ * change the fingerprint, but reordering, resizing, or retyping a field
+ * does. Fingerprints depend only on the layout, and are therefore stable
+ * across builds, processes and JVMs.</p>
+ */
+
+public final class TLayoutFingerprints
+{
+  private static final long TAG_RECORD = 1L;
+  private static final long TAG_RECORD_FIELD = 2L;
+  private static final long TAG_RECORD_PADDING = 3L;
+  private static final long TAG_PACKED = 4L;
+  private static final long TAG_PACKED_FIELD = 5L;
+  private static final long TAG_PACKED_PADDING = 6L;
+  private static final long TAG_ARRAY = 7L;
+  private static final long TAG_STRING = 8L;
+  private static final long TAG_BOOLEAN_SET = 9L;
+  private static final long TAG_INTEGER_SIGNED = 10L;
+  private static final long TAG_INTEGER_UNSIGNED = 11L;
+  private static final long TAG_INTEGER_SIGNED_NORMALIZED = 12L;
+  private static final long TAG_INTEGER_UNSIGNED_NORMALIZED = 13L;
+  private static final long TAG_FLOAT = 14L;
+  private static final long TAG_VECTOR = 15L;
+  private static final long TAG_MATRIX = 16L;
+  private static final long TAG_UNION = 17L;
+  private static final long TAG_UNION_CASE = 18L;
+
+  private static final long SEED = 0x6a7072614c61796fL;
+  private static final long C1 = 0x87c37b91114253d5L;
+  private static final long C2 = 0x4cf5ad432745937fL;
+
+  private TLayoutFingerprints()
+  {
+    throw new UnreachableCodeException();
+  }
+
+  /**
+   * Calculate the layout fingerprint of the given type.
+   *
+   * @param t The type
+   *
+   * @return The layout fingerprint
+   */
+
+  public static long fingerprint(
+    final TType t)
+  {
+    Objects.requireNonNull(t, "Type");
+    final Hasher h = new Hasher();
+    addType(h, t);
+    return h.finish();
+  }
+
+  private static long value(
+    final Size<?> s)
+  {
+    return s.getValue().longValueExact();
+  }
+
+  private static void addType(
+    final Hasher h,
+    final TType t)
+  {
+    t.matchType(new TypeHasher(h));
+  }
+
+  private static void addInteger(
+    final Hasher h,
+    final TIntegerType t)
+  {
+    h.add(t.matchTypeInteger(new IntegerTag()).longValue());
+    h.add(value(t.getSizeInBits()));
+  }
+
+  private static void addRecord(
+    final Hasher h,
+    final TRecord t)
+  {
+    h.add(TAG_RECORD);
+    h.add(value(t.getSizeInOctets()));
+    h.add((long) t.getFieldsInDeclarationOrder().size());
+
+    long offset = 0L;
+    for (final TRecord.FieldType f : t.getFieldsInDeclarationOrder()) {
+      f.matchField(new RecordFieldHasher(h, offset));
+      offset += value(f.getSizeInOctets());
+    }
+  }
+
+  private static void addPacked(
+    final Hasher h,
+    final TPacked t)
+  {
+    h.add(TAG_PACKED);
+    h.add(value(t.getSizeInBits()));
+    h.add((long) t.getFieldsInDeclarationOrder().size());
+
+    for (final TPacked.FieldType f : t.getFieldsInDeclarationOrder()) {
+      f.matchField(new PackedFieldHasher(h));
+    }
+  }
+
+  private static void addUnion(
+    final Hasher h,
+    final TUnion t)
+  {
+    h.add(TAG_UNION);
+    h.add(value(t.getSizeInOctets()));
+    addInteger(h, t.getTagType());
+    h.add((long) t.getCasesInDeclarationOrder().size());
+
+    for (final TUnion.Case c : t.getCasesInDeclarationOrder()) {
+      h.add(TAG_UNION_CASE);
+      h.add(c.getTagValue().longValueExact());
+      addRecord(h, c.getType());
+    }
+  }
+
+  private static final class TypeHasher
+    implements TypeMatcherType<Void, UnreachableCodeException>
+  {
+    private final Hasher hasher;
+
+    TypeHasher(
+      final Hasher in_hasher)
+    {
+      this.hasher = in_hasher;
+    }
+
+    @Override
+    public Void matchArray(final TArray t)
+    {
+      this.hasher.add(TAG_ARRAY);
+      this.hasher.add(value(t.getElementCount()));
+      addType(this.hasher, t.getElementType());
+      return null;
+    }
+
+    @Override
+    public Void matchString(final TString t)
+    {
+      this.hasher.add(TAG_STRING);
+      this.hasher.add(value(t.getMaximumStringLength()));
+      final String encoding = t.getEncoding();
+      this.hasher.add((long) encoding.length());
+      for (int index = 0; index < encoding.length(); ++index) {
+        this.hasher.add((long) encoding.charAt(index));
+      }
+      return null;
+    }
+
+    @Override
+    public Void matchBooleanSet(final TBooleanSet t)
+    {
+      this.hasher.add(TAG_BOOLEAN_SET);
+      this.hasher.add(value(t.getSizeInOctets()));
+      this.hasher.add((long) t.getFieldsInDeclarationOrder().size());
+      return null;
+    }
+
+    @Override
+    public Void matchInteger(final TIntegerType t)
+    {
+      addInteger(this.hasher, t);
+      return null;
+    }
+
+    @Override
+    public Void matchFloat(final TFloat t)
+    {
+      this.hasher.add(TAG_FLOAT);
+      this.hasher.add(value(t.getSizeInBits()));
+      return null;
+    }
+
+    @Override
+    public Void matchVector(final TVector t)
+    {
+      this.hasher.add(TAG_VECTOR);
+      this.hasher.add(value(t.getElementCount()));
+      addType(this.hasher, t.getElementType());
+      return null;
+    }
+
+    @Override
+    public Void matchMatrix(final TMatrix t)
+    {
+      this.hasher.add(TAG_MATRIX);
+      this.hasher.add(value(t.getWidth()));
+      this.hasher.add(value(t.getHeight()));
+      addType(this.hasher, t.getElementType());
+      return null;
+    }
+
+    @Override
+    public Void matchRecord(final TRecord t)
+    {
+      addRecord(this.hasher, t);
+      return null;
+    }
+
+    @Override
+    public Void matchPacked(final TPacked t)
+    {
+      addPacked(this.hasher, t);
+      return null;
+    }
+
+    @Override
+    public Void matchUnion(final TUnion t)
+    {
+      addUnion(this.hasher, t);
+      return null;
+    }
+  }
+
+  private static final class IntegerTag
+    implements TypeIntegerMatcherType<Long, UnreachableCodeException>
+  {
+    IntegerTag()
+    {
+
+    }
+
+    @Override
+    public Long matchIntegerUnsigned(
+      final TIntegerUnsigned t)
+    {
+      return Long.valueOf(TAG_INTEGER_UNSIGNED);
+    }
+
+    @Override
+    public Long matchIntegerSigned(
+      final TIntegerSigned t)
+    {
+      return Long.valueOf(TAG_INTEGER_SIGNED);
+    }
+
+    @Override
+    public Long matchIntegerSignedNormalized(
+      final TIntegerSignedNormalized t)
+    {
+      return Long.valueOf(TAG_INTEGER_SIGNED_NORMALIZED);
+    }
+
+    @Override
+    public Long matchIntegerUnsignedNormalized(
+      final TIntegerUnsignedNormalized t)
+    {
+      return Long.valueOf(TAG_INTEGER_UNSIGNED_NORMALIZED);
+    }
+  }
+
+  private static final class RecordFieldHasher
+    implements TRecord.FieldMatcherType<Void, UnreachableCodeException>
+  {
+    private final Hasher hasher;
+    private final long offset;
+
+    RecordFieldHasher(
+      final Hasher in_hasher,
+      final long in_offset)
+    {
+      this.hasher = in_hasher;
+      this.offset = in_offset;
+    }
+
+    @Override
+    public Void matchFieldValue(
+      final TRecord.FieldValue f)
+    {
+      this.hasher.add(TAG_RECORD_FIELD);
+      this.hasher.add(this.offset);
+      addType(this.hasher, f.getType());
+      return null;
+    }
+
+    @Override
+    public Void matchFieldPaddingOctets(
+      final TRecord.FieldPaddingOctets f)
+    {
+      this.hasher.add(TAG_RECORD_PADDING);
+      this.hasher.add(this.offset);
+      this.hasher.add(value(f.getSizeInOctets()));
+      return null;
+    }
+  }
+
+  private static final class PackedFieldHasher
+    implements TPacked.FieldMatcherType<Void, UnreachableCodeException>
+  {
+    private final Hasher hasher;
+
+    PackedFieldHasher(
+      final Hasher in_hasher)
+    {
+      this.hasher = in_hasher;
+    }
+
+    @Override
+    public Void matchFieldValue(
+      final TPacked.FieldValue f)
+    {
+      final RangeInclusiveB range = f.getBitRange();
+      this.hasher.add(TAG_PACKED_FIELD);
+      this.hasher.add(range.lower().longValueExact());
+      this.hasher.add(range.upper().longValueExact());
+      addInteger(this.hasher, f.getType());
+      return null;
+    }
+
+    @Override
+    public Void matchFieldPaddingBits(
+      final TPacked.FieldPaddingBits f)
+    {
+      this.hasher.add(TAG_PACKED_PADDING);
+      this.hasher.add(value(f.getSize()));
+      return null;
+    }
+  }
+
+  /*
+   * The 64-bit block mixing and finalization steps of MurmurHash3, applied
+   * to a sequence of 64-bit words.
+   */
+
+  private static final class Hasher
+  {
+    private long state;
+    private long count;
+
+    Hasher()
+    {
+      this.state = SEED;
+    }
+
+    void add(
+      final long x)
+    {
+      long k = x * C1;
+      k = Long.rotateLeft(k, 31);
+      k *= C2;
+      this.state ^= k;
+      this.state = Long.rotateLeft(this.state, 27);
+      this.state = (this.state * 5L) + 0x52dce729L;
+      ++this.count;
+    }
+
+    long finish()
+    {
+      long x = this.state ^ this.count;
+      x ^= x >>> 33;
+      x *= 0xff51afd7ed558ccdL;
+      x ^= x >>> 33;
+      x *= 0xc4ceb9a34fe1a53bL;
+      x ^= x >>> 33;
+      return x;
+    }
+  }
+}
@@ -125,6 +125,8 @@ final class TPackedBuilder implements TPackedBuilderType
     for (final TPacked.FieldType f : this.type_fields_ordered) {
       f.matchField(new FieldAdder(tr, msb));
     }
+
+    tr.setLayoutFingerprint(TLayoutFingerprints.fingerprint(tr));
     return tr;
   }
 
@@ -43,6 +43,7 @@ public final class TRecord implements TType, TypeUserDefinedType
   private final PackageContextType package_ctx;
   private final IdentifierType identifier;
   private final Size<SizeUnitOctetsType> size_octets;
+  private long layout_fingerprint;
 
   TRecord(
     final PackageContextType in_package,
@@ -173,6 +174,23 @@ public final class TRecord implements TType, TypeUserDefinedType
     return this.size_bits;
   }
 
+  /**
+   * @return The layout fingerprint of the type
+   *
+   * @see TLayoutFingerprints
+   */
+
+  public long getLayoutFingerprint()
+  {
+    return this.layout_fingerprint;
+  }
+
+  void setLayoutFingerprint(
+    final long in_fingerprint)
+  {
+    this.layout_fingerprint = in_fingerprint;
+  }
+
   @Override
   public <A, E extends Exception> A matchType(
     final TypeMatcherType<A, E> m)
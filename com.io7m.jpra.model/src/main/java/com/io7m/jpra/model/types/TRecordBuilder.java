@@ -122,6 +122,8 @@ final class TRecordBuilder implements TRecordBuilderType
           }
         });
     }
+
+    tr.setLayoutFingerprint(TLayoutFingerprints.fingerprint(tr));
     return tr;
   }
 }
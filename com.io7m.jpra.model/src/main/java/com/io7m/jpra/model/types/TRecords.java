@@ -271,5 +271,11 @@ public final class TRecords
       return typeForFieldPathActual(
         f.getType(), next, this.rest.drop(1));
     }
+
+    @Override
+    public TypeLookupType matchUnion(final TUnion t)
+    {
+      return new TypeLookupFailed(t, this.name, this.rest);
+    }
   }
 }
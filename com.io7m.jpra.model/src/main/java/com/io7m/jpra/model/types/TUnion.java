@@ -0,0 +1,343 @@
+/*
+ * Copyright © 2015 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.jpra.model.types;
+
+import com.io7m.jaffirm.core.Preconditions;
+import com.io7m.jlexing.core.LexicalPosition;
+import com.io7m.jpra.model.ModelElementType;
+import com.io7m.jpra.model.contexts.PackageContextType;
+import com.io7m.jpra.model.names.IdentifierType;
+import com.io7m.jpra.model.names.TypeName;
+import com.io7m.jpra.model.names.UnionCaseName;
+import io.vavr.collection.List;
+import io.vavr.collection.Map;
+
+import java.math.BigInteger;
+import java.net.URI;
+import java.util.Objects;
+
+/**
+ * <p>A {@code union} type.</p>
+ *
+ * <p>A union consists of an unsigned integer tag at offset zero, followed by
+ * a payload in which the layouts of all of the cases are overlaid. The tag
+ * value of each case is the index of the case in declaration order, and the
+ * size of the payload is the size of the largest case.</p>
+ */
+
+public final class TUnion implements TType, TypeUserDefinedType
+{
+  private final TypeName name;
+  private final PackageContextType package_ctx;
+  private final IdentifierType identifier;
+  private final TIntegerUnsigned tag;
+  private final Map<UnionCaseName, Case> cases_by_name;
+  private final List<Case> cases_by_order;
+  private final Size<SizeUnitOctetsType> tag_size_octets;
+  private final Size<SizeUnitOctetsType> payload_size_octets;
+  private final Size<SizeUnitOctetsType> size_octets;
+  private long layout_fingerprint;
+
+  TUnion(
+    final PackageContextType in_package,
+    final IdentifierType in_identifier,
+    final TypeName in_name,
+    final TIntegerUnsigned in_tag,
+    final Map<UnionCaseName, Case> in_cases_by_name,
+    final List<Case> in_cases_by_order)
+  {
+    this.package_ctx =
+      Objects.requireNonNull(in_package, "Package");
+    this.identifier =
+      Objects.requireNonNull(in_identifier, "Identifier");
+    this.name =
+      Objects.requireNonNull(in_name, "Type name");
+    this.tag =
+      Objects.requireNonNull(in_tag, "Tag");
+    this.cases_by_name =
+      Objects.requireNonNull(in_cases_by_name, "Cases by name");
+    this.cases_by_order =
+      Objects.requireNonNull(in_cases_by_order, "Cases in order");
+
+    Preconditions.checkPreconditionV(
+      this.cases_by_order.size() == this.cases_by_name.size(),
+      "Ordered case count %d must be == named case count %d",
+      Integer.valueOf(this.cases_by_order.size()),
+      Integer.valueOf(this.cases_by_name.size()));
+
+    final BigInteger tag_bits = this.tag.getSizeInBits().getValue();
+    final BigInteger b8 = BigInteger.valueOf(8L);
+    Preconditions.checkPreconditionV(
+      Objects.equals(tag_bits.remainder(b8), BigInteger.ZERO),
+      "Tag size %s must be divisible by 8", tag_bits);
+    Preconditions.checkPreconditionV(
+      BigInteger.valueOf((long) this.cases_by_order.size())
+        .compareTo(BigInteger.ONE.shiftLeft(tag_bits.intValueExact())) <= 0,
+      "Case count %d must be representable by a %s-bit tag",
+      Integer.valueOf(this.cases_by_order.size()),
+      tag_bits);
+
+    this.tag_size_octets = new Size<>(tag_bits.divide(b8));
+    this.payload_size_octets = this.cases_by_order
+      .map(c -> c.getType().getSizeInOctets())
+      .fold(Size.zero(), (x, y) -> {
+        if (x.getValue().compareTo(y.getValue()) >= 0) {
+          return x;
+        }
+        return y;
+      });
+    this.size_octets = this.tag_size_octets.add(this.payload_size_octets);
+  }
+
+  /**
+   * Construct a new mutable union builder.
+   *
+   * @param in_package    The package context
+   * @param in_identifier The type's identifier
+   * @param in_type_name  The type's name
+   * @param in_tag        The type of the tag
+   *
+   * @return A new builder
+   */
+
+  public static TUnionBuilderType newBuilder(
+    final PackageContextType in_package,
+    final IdentifierType in_identifier,
+    final TypeName in_type_name,
+    final TIntegerUnsigned in_tag)
+  {
+    Objects.requireNonNull(in_package, "Package");
+    Objects.requireNonNull(in_identifier, "Identifier");
+    Objects.requireNonNull(in_type_name, "Type name");
+    Objects.requireNonNull(in_tag, "Tag");
+    return new TUnionBuilder(in_package, in_identifier, in_type_name, in_tag);
+  }
+
+  /**
+   * @return The type of the tag
+   */
+
+  public TIntegerUnsigned getTagType()
+  {
+    return this.tag;
+  }
+
+  /**
+   * @return The size in octets of the tag, which is also the offset of the
+   * payload
+   */
+
+  public Size<SizeUnitOctetsType> getTagSizeInOctets()
+  {
+    return this.tag_size_octets;
+  }
+
+  /**
+   * @return The size in octets of the payload; the size of the largest case
+   */
+
+  public Size<SizeUnitOctetsType> getPayloadSizeInOctets()
+  {
+    return this.payload_size_octets;
+  }
+
+  /**
+   * @return The cases by name
+   */
+
+  public Map<UnionCaseName, Case> getCasesByName()
+  {
+    return this.cases_by_name;
+  }
+
+  /**
+   * @return The cases in declaration order
+   */
+
+  public List<Case> getCasesInDeclarationOrder()
+  {
+    return this.cases_by_order;
+  }
+
+  /**
+   * @return The size in octets of the union
+   */
+
+  public Size<SizeUnitOctetsType> getSizeInOctets()
+  {
+    return this.size_octets;
+  }
+
+  @Override
+  public Size<SizeUnitBitsType> getSizeInBits()
+  {
+    return Size.toBits(this.size_octets);
+  }
+
+  /**
+   * @return The layout fingerprint of the type
+   *
+   * @see TLayoutFingerprints
+   */
+
+  public long getLayoutFingerprint()
+  {
+    return this.layout_fingerprint;
+  }
+
+  void setLayoutFingerprint(
+    final long in_fingerprint)
+  {
+    this.layout_fingerprint = in_fingerprint;
+  }
+
+  @Override
+  public <A, E extends Exception> A matchType(final TypeMatcherType<A, E> m)
+    throws E
+  {
+    return m.matchUnion(this);
+  }
+
+  @Override
+  public LexicalPosition<URI> lexical()
+  {
+    return this.name.lexical();
+  }
+
+  @Override
+  public TypeName getName()
+  {
+    return this.name;
+  }
+
+  @Override
+  public IdentifierType getIdentifier()
+  {
+    return this.identifier;
+  }
+
+  @Override
+  public PackageContextType getPackageContext()
+  {
+    return this.package_ctx;
+  }
+
+  @Override
+  public <A, E extends Exception> A matchTypeUserDefined(
+    final TypeUserDefinedMatcherType<A, E> m)
+    throws E
+  {
+    return m.matchUnion(this);
+  }
+
+  @Override
+  public String toString()
+  {
+    final StringBuilder sb = new StringBuilder("[union ");
+    sb.append(this.name);
+    sb.append(" ");
+    sb.append(this.tag);
+    sb.append(" (");
+    for (final Case c : this.cases_by_order) {
+      sb.append(c);
+    }
+    sb.append(")]");
+    return sb.toString();
+  }
+
+  /**
+   * A union case.
+   */
+
+  public static final class Case implements ModelElementType
+  {
+    private final UnionCaseName name;
+    private final TRecord type;
+    private final BigInteger tag_value;
+    private TUnion owner;
+
+    Case(
+      final UnionCaseName in_name,
+      final TRecord in_type,
+      final BigInteger in_tag_value)
+    {
+      this.name = Objects.requireNonNull(in_name, "Name");
+      this.type = Objects.requireNonNull(in_type, "Type");
+      this.tag_value = Objects.requireNonNull(in_tag_value, "Tag value");
+    }
+
+    /**
+     * @return The owning type
+     */
+
+    public TUnion getOwner()
+    {
+      return Objects.requireNonNull(this.owner, "Owner");
+    }
+
+    void setOwner(final TUnion in_owner)
+    {
+      this.owner = Objects.requireNonNull(in_owner, "Owner");
+    }
+
+    /**
+     * @return The case name
+     */
+
+    public UnionCaseName getName()
+    {
+      return this.name;
+    }
+
+    /**
+     * @return The record type of the case
+     */
+
+    public TRecord getType()
+    {
+      return this.type;
+    }
+
+    /**
+     * @return The value of the tag that selects this case
+     */
+
+    public BigInteger getTagValue()
+    {
+      return this.tag_value;
+    }
+
+    @Override
+    public LexicalPosition<URI> lexical()
+    {
+      return this.name.lexical();
+    }
+
+    @Override
+    public String toString()
+    {
+      final StringBuilder sb = new StringBuilder("[case ");
+      sb.append(this.name.value());
+      sb.append(" ");
+      sb.append(this.tag_value);
+      sb.append(" ");
+      sb.append(this.type.getName());
+      sb.append("]");
+      return sb.toString();
+    }
+  }
+}
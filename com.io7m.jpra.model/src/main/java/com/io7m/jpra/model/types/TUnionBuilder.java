@@ -0,0 +1,107 @@
+/*
+ * Copyright © 2015 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.jpra.model.types;
+
+import com.io7m.jaffirm.core.Preconditions;
+import com.io7m.jpra.model.contexts.PackageContextType;
+import com.io7m.jpra.model.names.IdentifierType;
+import com.io7m.jpra.model.names.TypeName;
+import com.io7m.jpra.model.names.UnionCaseName;
+import io.vavr.collection.List;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Objects;
+
+final class TUnionBuilder implements TUnionBuilderType
+{
+  private final ArrayList<TUnion.Case> cases_ordered;
+  private final HashMap<UnionCaseName, TUnion.Case> cases_named;
+  private final PackageContextType package_context;
+  private final IdentifierType identifier;
+  private final TypeName name;
+  private final TIntegerUnsigned tag;
+  private final HashSet<IdentifierType> identifiers;
+  private boolean finished;
+
+  TUnionBuilder(
+    final PackageContextType in_package,
+    final IdentifierType in_identifier,
+    final TypeName in_name,
+    final TIntegerUnsigned in_tag)
+  {
+    this.package_context = Objects.requireNonNull(in_package, "Package");
+    this.identifier = Objects.requireNonNull(in_identifier, "Identifier");
+    this.name = Objects.requireNonNull(in_name, "Type name");
+    this.tag = Objects.requireNonNull(in_tag, "Tag");
+
+    this.cases_ordered = new ArrayList<>();
+    this.cases_named = new HashMap<>();
+    this.identifiers = new HashSet<>();
+
+    this.identifiers.add(this.identifier);
+    this.finished = false;
+  }
+
+  @Override
+  public void addCase(
+    final UnionCaseName in_name,
+    final IdentifierType in_id,
+    final TRecord in_type)
+  {
+    Preconditions.checkPrecondition(
+      !this.finished, "Builder must not have already finished");
+    Preconditions.checkPrecondition(
+      !this.identifiers.contains(in_id), "Identifiers cannot be reused");
+    Preconditions.checkPreconditionV(
+      !this.cases_named.containsKey(in_name),
+      "Case names cannot be reused: %s", in_name.value());
+
+    final TUnion.Case c = new TUnion.Case(
+      in_name,
+      in_type,
+      BigInteger.valueOf((long) this.cases_ordered.size()));
+    this.cases_named.put(in_name, c);
+    this.cases_ordered.add(c);
+    this.identifiers.add(in_id);
+  }
+
+  @Override
+  public TUnion build()
+  {
+    Preconditions.checkPrecondition(
+      !this.finished, "Builder must not have already finished");
+
+    final TUnion tu = new TUnion(
+      this.package_context,
+      this.identifier,
+      this.name,
+      this.tag,
+      io.vavr.collection.HashMap.ofAll(this.cases_named),
+      List.ofAll(this.cases_ordered));
+
+    for (final TUnion.Case c : this.cases_ordered) {
+      c.setOwner(tu);
+    }
+
+    tu.setLayoutFingerprint(TLayoutFingerprints.fingerprint(tu));
+    this.finished = true;
+    return tu;
+  }
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright © 2015 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.jpra.model.types;
+
+import com.io7m.jpra.model.names.IdentifierType;
+import com.io7m.jpra.model.names.UnionCaseName;
+
+/**
+ * The type of mutable builders for {@link TUnion} values.
+ */
+
+public interface TUnionBuilderType
+{
+  /**
+   * Add a case. Cases are assigned tag values in the order in which they
+   * are added.
+   *
+   * @param name The case name
+   * @param id   The case identifier
+   * @param type The case type
+   */
+
+  void addCase(
+    UnionCaseName name,
+    IdentifierType id,
+    TRecord type);
+
+  /**
+   * @return A constructed union
+   */
+
+  TUnion build();
+}
@@ -141,4 +141,17 @@ public interface TypeMatcherType<A, E extends Exception>
 
   A matchPacked(TPacked t)
     throws E;
+
+  /**
+   * Match a {@code union} type.
+   *
+   * @param t The type
+   *
+   * @return A value of {@code A}
+   *
+   * @throws E If required
+   */
+
+  A matchUnion(TUnion t)
+    throws E;
 }
@@ -50,4 +50,17 @@ public interface TypeUserDefinedMatcherType<A, E extends Exception>
 
   A matchPacked(TPacked t)
     throws E;
+
+  /**
+   * Match a {@code union} type.
+   *
+   * @param t The type expression
+   *
+   * @return A value of {@code A}
+   *
+   * @throws E If required
+   */
+
+  A matchUnion(TUnion t)
+    throws E;
 }
@@ -0,0 +1,235 @@
+/*
+ * Copyright © 2015 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.jpra.runtime.java;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>Per-field read and write counters for a generated type.</p>
+ *
+ * <p>Implementations generated with access statistics enabled hold a single
+ * static instance of this class and increment the counter for a field each
+ * time one of the field's accessors is called. Counters are striped
+ * {@link LongAdder} values, so concurrent access from many threads does not
+ * contend on a single memory location.</p>
+ *
+ * <p>Implementations generated without access statistics do not refer to
+ * this class at all, and pay nothing for it.</p>
+ */
+
+public final class JPRAAccessStatistics
+{
+  private final String type_name;
+  private final List<String> field_names;
+  private final LongAdder[] reads;
+  private final LongAdder[] writes;
+
+  private JPRAAccessStatistics(
+    final String in_type_name,
+    final String[] in_field_names)
+  {
+    this.type_name = in_type_name;
+    this.field_names =
+      Collections.unmodifiableList(Arrays.asList(in_field_names));
+    this.reads = new LongAdder[in_field_names.length];
+    this.writes = new LongAdder[in_field_names.length];
+    for (int index = 0; index < in_field_names.length; ++index) {
+      this.reads[index] = new LongAdder();
+      this.writes[index] = new LongAdder();
+    }
+  }
+
+  /**
+   * Create a new set of counters.
+   *
+   * @param type_name   The name of the type
+   * @param field_names The names of the fields, in declaration order
+   *
+   * @return A new set of counters, all zero
+   */
+
+  public static JPRAAccessStatistics create(
+    final String type_name,
+    final String... field_names)
+  {
+    Objects.requireNonNull(type_name, "Type name");
+    Objects.requireNonNull(field_names, "Field names");
+
+    final String[] copy = field_names.clone();
+    for (int index = 0; index < copy.length; ++index) {
+      Objects.requireNonNull(copy[index], "Field name");
+      for (int other = 0; other < index; ++other) {
+        if (Objects.equals(copy[index], copy[other])) {
+          throw new IllegalArgumentException(
+            String.format("Duplicate field name: %s", copy[index]));
+        }
+      }
+    }
+    return new JPRAAccessStatistics(type_name, copy);
+  }
+
+  /**
+   * @return The name of the type
+   */
+
+  public String typeName()
+  {
+    return this.type_name;
+  }
+
+  /**
+   * @return The names of the fields, in declaration order
+   */
+
+  public List<String> fieldNames()
+  {
+    return this.field_names;
+  }
+
+  private int checkField(
+    final int field)
+  {
+    if (field < 0 || field >= this.reads.length) {
+      throw new IndexOutOfBoundsException(
+        String.format(
+          "Field index %d must be in the range [0, %d)",
+          Integer.valueOf(field),
+          Integer.valueOf(this.reads.length)));
+    }
+    return field;
+  }
+
+  private int fieldIndex(
+    final String field)
+  {
+    Objects.requireNonNull(field, "Field");
+    final int index = this.field_names.indexOf(field);
+    if (index < 0) {
+      throw new IllegalArgumentException(
+        String.format(
+          "Type %s has no field named %s", this.type_name, field));
+    }
+    return index;
+  }
+
+  /**
+   * Record a read of the field at {@code field}.
+   *
+   * @param field The field index
+   */
+
+  public void recordRead(
+    final int field)
+  {
+    this.reads[this.checkField(field)].increment();
+  }
+
+  /**
+   * Record a write of the field at {@code field}.
+   *
+   * @param field The field index
+   */
+
+  public void recordWrite(
+    final int field)
+  {
+    this.writes[this.checkField(field)].increment();
+  }
+
+  /**
+   * @param field The field index
+   *
+   * @return The number of reads recorded for the field
+   */
+
+  public long reads(
+    final int field)
+  {
+    return this.reads[this.checkField(field)].sum();
+  }
+
+  /**
+   * @param field The field index
+   *
+   * @return The number of writes recorded for the field
+   */
+
+  public long writes(
+    final int field)
+  {
+    return this.writes[this.checkField(field)].sum();
+  }
+
+  /**
+   * @param field The field name
+   *
+   * @return The number of reads recorded for the field
+   */
+
+  public long reads(
+    final String field)
+  {
+    return this.reads[this.fieldIndex(field)].sum();
+  }
+
+  /**
+   * @param field The field name
+   *
+   * @return The number of writes recorded for the field
+   */
+
+  public long writes(
+    final String field)
+  {
+    return this.writes[this.fieldIndex(field)].sum();
+  }
+
+  /**
+   * Reset all counters to zero. Accesses that happen concurrently with the
+   * reset may or may not be counted.
+   */
+
+  public void reset()
+  {
+    for (int index = 0; index < this.reads.length; ++index) {
+      this.reads[index].reset();
+      this.writes[index].reset();
+    }
+  }
+
+  @Override
+  public String toString()
+  {
+    final StringBuilder sb = new StringBuilder(128);
+    sb.append("[JPRAAccessStatistics ");
+    sb.append(this.type_name);
+    for (int index = 0; index < this.reads.length; ++index) {
+      sb.append(' ');
+      sb.append(this.field_names.get(index));
+      sb.append("=r:");
+      sb.append(this.reads[index].sum());
+      sb.append("/w:");
+      sb.append(this.writes[index].sum());
+    }
+    sb.append(']');
+    return sb.toString();
+  }
+}
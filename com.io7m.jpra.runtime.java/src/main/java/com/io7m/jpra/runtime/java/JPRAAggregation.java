@@ -0,0 +1,810 @@
+/*
+ * Copyright © 2015 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.jpra.runtime.java;
+
+import com.io7m.ieee754b16.Binary16;
+import com.io7m.jnfp.core.NFPSignedDoubleInt;
+import com.io7m.jnfp.core.NFPSignedDoubleLong;
+import com.io7m.jnfp.core.NFPUnsignedDoubleInt;
+import com.io7m.jnfp.core.NFPUnsignedDoubleLong;
+
+import java.nio.ByteBuffer;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * <p>Aggregation kernels over a single field of a buffer of records.</p>
+ *
+ * <p>Fields are described by {@link JPRAScan.Field} values, using the
+ * offsets returned by the generated {@code meta*StaticOffsetFromType()}
+ * methods. Values are decoded into blocks of {@code double} values before
+ * being accumulated, with the decoding loop selected once per block by the
+ * field kind: normalized integers are converted with the {@code NFP*}
+ * functions, and 16-bit floating point values with {@link Binary16}, as
+ * the generated accessors do. Sums are accumulated as {@code double}
+ * values, and so are not exact for large 64-bit integers.</p>
+ *
+ * <p>The parallel variants split the element range into tasks of at most
+ * a given number of elements, accumulate each task into its own partial
+ * result, and merge the partial results.</p>
+ */
+
+public final class JPRAAggregation
+{
+  private static final int BLOCK_SIZE = 256;
+
+  private JPRAAggregation()
+  {
+    throw new AssertionError("Unreachable code!");
+  }
+
+  private static void checkArguments(
+    final ByteBuffer data,
+    final int element_size,
+    final JPRAScan.Field field,
+    final int from,
+    final int to)
+  {
+    Objects.requireNonNull(data, "Data");
+    Objects.requireNonNull(field, "Field");
+    if (element_size <= 0
+      || field.offset() + field.kind().size() > element_size) {
+      throw new IllegalArgumentException(
+        String.format(
+          "Field %s does not fit in records of size %d",
+          field,
+          Integer.valueOf(element_size)));
+    }
+    if (from < 0
+      || to < from
+      || (long) to * (long) element_size > (long) data.capacity()) {
+      throw new IndexOutOfBoundsException(
+        String.format(
+          "Range [%d, %d) is not within the %d elements of the buffer",
+          Integer.valueOf(from),
+          Integer.valueOf(to),
+          Integer.valueOf(data.capacity() / element_size)));
+    }
+  }
+
+  private static void checkTaskSize(
+    final int task_size)
+  {
+    if (task_size <= 0) {
+      throw new IllegalArgumentException(
+        String.format(
+          "Task size %d must be positive", Integer.valueOf(task_size)));
+    }
+  }
+
+  /**
+   * Summarize a field of the elements {@code [from, to)}.
+   *
+   * @param data         The data buffer
+   * @param element_size The size in octets of a record
+   * @param field        The field
+   * @param from         The index of the first element
+   * @param to           The index one past the last element
+   *
+   * @return A summary of the field values
+   */
+
+  public static Summary summarize(
+    final ByteBuffer data,
+    final int element_size,
+    final JPRAScan.Field field,
+    final int from,
+    final int to)
+  {
+    checkArguments(data, element_size, field, from, to);
+    final Summary s = new Summary();
+    summarizeRange(data, element_size, field, from, to, s);
+    return s;
+  }
+
+  /**
+   * Summarize a field of the elements {@code [from, to)} in parallel.
+   *
+   * @param pool         The pool that will execute tasks
+   * @param data         The data buffer
+   * @param element_size The size in octets of a record
+   * @param field        The field
+   * @param from         The index of the first element
+   * @param to           The index one past the last element
+   * @param task_size    The maximum number of elements per task
+   *
+   * @return A summary of the field values
+   */
+
+  public static Summary summarizeParallel(
+    final ForkJoinPool pool,
+    final ByteBuffer data,
+    final int element_size,
+    final JPRAScan.Field field,
+    final int from,
+    final int to,
+    final int task_size)
+  {
+    Objects.requireNonNull(pool, "Pool");
+    checkArguments(data, element_size, field, from, to);
+    checkTaskSize(task_size);
+    return pool.invoke(new SummaryTask(
+      data, element_size, field, from, to, task_size));
+  }
+
+  /**
+   * Compute a histogram of a field of the elements {@code [from, to)}.
+   * The range {@code [min, max)} is divided into {@code bins} bins of equal
+   * width. Values below {@code min}, and values at or above {@code max},
+   * are counted separately. NaN values are not counted.
+   *
+   * @param data         The data buffer
+   * @param element_size The size in octets of a record
+   * @param field        The field
+   * @param from         The index of the first element
+   * @param to           The index one past the last element
+   * @param min          The lower bound of the first bin (inclusive)
+   * @param max          The upper bound of the last bin (exclusive)
+   * @param bins         The number of bins
+   *
+   * @return A histogram
+   */
+
+  public static Histogram histogram(
+    final ByteBuffer data,
+    final int element_size,
+    final JPRAScan.Field field,
+    final int from,
+    final int to,
+    final double min,
+    final double max,
+    final int bins)
+  {
+    checkArguments(data, element_size, field, from, to);
+    final Histogram h = new Histogram(min, max, bins);
+    histogramRange(data, element_size, field, from, to, h);
+    return h;
+  }
+
+  /**
+   * Compute a histogram of a field of the elements {@code [from, to)} in
+   * parallel.
+   *
+   * @param pool         The pool that will execute tasks
+   * @param data         The data buffer
+   * @param element_size The size in octets of a record
+   * @param field        The field
+   * @param from         The index of the first element
+   * @param to           The index one past the last element
+   * @param min          The lower bound of the first bin (inclusive)
+   * @param max          The upper bound of the last bin (exclusive)
+   * @param bins         The number of bins
+   * @param task_size    The maximum number of elements per task
+   *
+   * @return A histogram
+   *
+   * @see #histogram(ByteBuffer, int, JPRAScan.Field, int, int, double,
+   * double, int)
+   */
+
+  public static Histogram histogramParallel(
+    final ForkJoinPool pool,
+    final ByteBuffer data,
+    final int element_size,
+    final JPRAScan.Field field,
+    final int from,
+    final int to,
+    final double min,
+    final double max,
+    final int bins,
+    final int task_size)
+  {
+    Objects.requireNonNull(pool, "Pool");
+    checkArguments(data, element_size, field, from, to);
+    checkTaskSize(task_size);
+    checkHistogram(min, max, bins);
+    return pool.invoke(new HistogramTask(
+      data, element_size, field, from, to, min, max, bins, task_size));
+  }
+
+  private static void checkHistogram(
+    final double min,
+    final double max,
+    final int bins)
+  {
+    if (!(min < max) || Double.isInfinite(min) || Double.isInfinite(max)) {
+      throw new IllegalArgumentException(
+        String.format(
+          "Range [%s, %s) must be finite and non-empty",
+          Double.valueOf(min),
+          Double.valueOf(max)));
+    }
+    if (bins <= 0) {
+      throw new IllegalArgumentException(
+        String.format("Bin count %d must be positive", Integer.valueOf(bins)));
+    }
+  }
+
+  private static void summarizeRange(
+    final ByteBuffer data,
+    final int element_size,
+    final JPRAScan.Field field,
+    final int from,
+    final int to,
+    final Summary s)
+  {
+    final double[] block = new double[Math.min(BLOCK_SIZE, to - from)];
+    for (int start = from; start < to; start += block.length) {
+      final int count = Math.min(block.length, to - start);
+      decode(data, element_size, field, start, count, block);
+      s.accumulate(block, count);
+    }
+  }
+
+  private static void histogramRange(
+    final ByteBuffer data,
+    final int element_size,
+    final JPRAScan.Field field,
+    final int from,
+    final int to,
+    final Histogram h)
+  {
+    final double[] block = new double[Math.min(BLOCK_SIZE, to - from)];
+    for (int start = from; start < to; start += block.length) {
+      final int count = Math.min(block.length, to - start);
+      decode(data, element_size, field, start, count, block);
+      h.accumulate(block, count);
+    }
+  }
+
+  private static void decode(
+    final ByteBuffer b,
+    final int stride,
+    final JPRAScan.Field field,
+    final int start,
+    final int count,
+    final double[] out)
+  {
+    final int o = start * stride + field.offset();
+    final int size = field.kind().size();
+
+    switch (field.kind().family()) {
+      case SIGNED:
+        decodeSigned(b, stride, size, o, count, out);
+        return;
+      case UNSIGNED:
+        decodeUnsigned(b, stride, size, o, count, out);
+        return;
+      case SIGNED_NORMALIZED:
+        decodeSignedNormalized(b, stride, size, o, count, out);
+        return;
+      case UNSIGNED_NORMALIZED:
+        decodeUnsignedNormalized(b, stride, size, o, count, out);
+        return;
+      case FLOAT:
+        decodeFloat(b, stride, size, o, count, out);
+        return;
+    }
+    throw new AssertionError("Unreachable code!");
+  }
+
+  private static void decodeSigned(
+    final ByteBuffer b,
+    final int stride,
+    final int size,
+    final int offset,
+    final int count,
+    final double[] out)
+  {
+    int o = offset;
+    switch (size) {
+      case 1:
+        for (int index = 0; index < count; ++index, o += stride) {
+          out[index] = (double) b.get(o);
+        }
+        return;
+      case 2:
+        for (int index = 0; index < count; ++index, o += stride) {
+          out[index] = (double) b.getShort(o);
+        }
+        return;
+      case 4:
+        for (int index = 0; index < count; ++index, o += stride) {
+          out[index] = (double) b.getInt(o);
+        }
+        return;
+      case 8:
+        for (int index = 0; index < count; ++index, o += stride) {
+          out[index] = (double) b.getLong(o);
+        }
+        return;
+      default:
+        throw new AssertionError("Unreachable code!");
+    }
+  }
+
+  private static void decodeUnsigned(
+    final ByteBuffer b,
+    final int stride,
+    final int size,
+    final int offset,
+    final int count,
+    final double[] out)
+  {
+    int o = offset;
+    switch (size) {
+      case 1:
+        for (int index = 0; index < count; ++index, o += stride) {
+          out[index] = (double) Byte.toUnsignedInt(b.get(o));
+        }
+        return;
+      case 2:
+        for (int index = 0; index < count; ++index, o += stride) {
+          out[index] = (double) Short.toUnsignedInt(b.getShort(o));
+        }
+        return;
+      case 4:
+        for (int index = 0; index < count; ++index, o += stride) {
+          out[index] = (double) Integer.toUnsignedLong(b.getInt(o));
+        }
+        return;
+      case 8:
+        for (int index = 0; index < count; ++index, o += stride) {
+          final long x = b.getLong(o);
+          out[index] = (double) (x >>> 1) * 2.0 + (double) (x & 1L);
+        }
+        return;
+      default:
+        throw new AssertionError("Unreachable code!");
+    }
+  }
+
+  private static void decodeSignedNormalized(
+    final ByteBuffer b,
+    final int stride,
+    final int size,
+    final int offset,
+    final int count,
+    final double[] out)
+  {
+    int o = offset;
+    switch (size) {
+      case 1:
+        for (int index = 0; index < count; ++index, o += stride) {
+          out[index] =
+            NFPSignedDoubleInt.fromSignedNormalizedWithZero8((int) b.get(o));
+        }
+        return;
+      case 2:
+        for (int index = 0; index < count; ++index, o += stride) {
+          out[index] = NFPSignedDoubleInt.fromSignedNormalizedWithZero16(
+            (int) b.getShort(o));
+        }
+        return;
+      case 4:
+        for (int index = 0; index < count; ++index, o += stride) {
+          out[index] =
+            NFPSignedDoubleInt.fromSignedNormalizedWithZero32(b.getInt(o));
+        }
+        return;
+      case 8:
+        for (int index = 0; index < count; ++index, o += stride) {
+          out[index] =
+            NFPSignedDoubleLong.fromSignedNormalizedWithZero64(b.getLong(o));
+        }
+        return;
+      default:
+        throw new AssertionError("Unreachable code!");
+    }
+  }
+
+  private static void decodeUnsignedNormalized(
+    final ByteBuffer b,
+    final int stride,
+    final int size,
+    final int offset,
+    final int count,
+    final double[] out)
+  {
+    int o = offset;
+    switch (size) {
+      case 1:
+        for (int index = 0; index < count; ++index, o += stride) {
+          out[index] = NFPUnsignedDoubleInt.fromUnsignedNormalized8(
+            Byte.toUnsignedInt(b.get(o)));
+        }
+        return;
+      case 2:
+        for (int index = 0; index < count; ++index, o += stride) {
+          out[index] = NFPUnsignedDoubleInt.fromUnsignedNormalized16(
+            Short.toUnsignedInt(b.getShort(o)));
+        }
+        return;
+      case 4:
+        for (int index = 0; index < count; ++index, o += stride) {
+          out[index] =
+            NFPUnsignedDoubleInt.fromUnsignedNormalized32(b.getInt(o));
+        }
+        return;
+      case 8:
+        for (int index = 0; index < count; ++index, o += stride) {
+          out[index] =
+            NFPUnsignedDoubleLong.fromUnsignedNormalized64(b.getLong(o));
+        }
+        return;
+      default:
+        throw new AssertionError("Unreachable code!");
+    }
+  }
+
+  private static void decodeFloat(
+    final ByteBuffer b,
+    final int stride,
+    final int size,
+    final int offset,
+    final int count,
+    final double[] out)
+  {
+    int o = offset;
+    switch (size) {
+      case 2:
+        for (int index = 0; index < count; ++index, o += stride) {
+          out[index] = Binary16.unpackDouble(b.getChar(o));
+        }
+        return;
+      case 4:
+        for (int index = 0; index < count; ++index, o += stride) {
+          out[index] = (double) b.getFloat(o);
+        }
+        return;
+      case 8:
+        for (int index = 0; index < count; ++index, o += stride) {
+          out[index] = b.getDouble(o);
+        }
+        return;
+      default:
+        throw new AssertionError("Unreachable code!");
+    }
+  }
+
+  /**
+   * A summary of the values of a field: count, sum, minimum, maximum, and
+   * mean. If any value is NaN, the sum, minimum, maximum, and mean are NaN.
+   */
+
+  public static final class Summary
+  {
+    private long count;
+    private double sum;
+    private double min;
+    private double max;
+
+    private Summary()
+    {
+      this.count = 0L;
+      this.sum = 0.0;
+      this.min = Double.POSITIVE_INFINITY;
+      this.max = Double.NEGATIVE_INFINITY;
+    }
+
+    private void accumulate(
+      final double[] values,
+      final int size)
+    {
+      double s = this.sum;
+      double lo = this.min;
+      double hi = this.max;
+      for (int index = 0; index < size; ++index) {
+        final double x = values[index];
+        s += x;
+        lo = Math.min(lo, x);
+        hi = Math.max(hi, x);
+      }
+      this.sum = s;
+      this.min = lo;
+      this.max = hi;
+      this.count += (long) size;
+    }
+
+    private Summary merge(
+      final Summary other)
+    {
+      this.count += other.count;
+      this.sum += other.sum;
+      this.min = Math.min(this.min, other.min);
+      this.max = Math.max(this.max, other.max);
+      return this;
+    }
+
+    /**
+     * @return The number of values
+     */
+
+    public long count()
+    {
+      return this.count;
+    }
+
+    /**
+     * @return The sum of the values
+     */
+
+    public double sum()
+    {
+      return this.sum;
+    }
+
+    /**
+     * @return The smallest value, or positive infinity if there are no
+     * values
+     */
+
+    public double min()
+    {
+      return this.min;
+    }
+
+    /**
+     * @return The largest value, or negative infinity if there are no values
+     */
+
+    public double max()
+    {
+      return this.max;
+    }
+
+    /**
+     * @return The arithmetic mean of the values, or NaN if there are no
+     * values
+     */
+
+    public double mean()
+    {
+      return this.count == 0L ? Double.NaN : this.sum / (double) this.count;
+    }
+
+    @Override
+    public String toString()
+    {
+      return String.format(
+        "[Summary count=%d sum=%s min=%s max=%s]",
+        Long.valueOf(this.count),
+        Double.valueOf(this.sum),
+        Double.valueOf(this.min),
+        Double.valueOf(this.max));
+    }
+  }
+
+  /**
+   * A fixed-bin histogram of the values of a field.
+   */
+
+  public static final class Histogram
+  {
+    private final double min;
+    private final double max;
+    private final double scale;
+    private final long[] bins;
+    private long below;
+    private long above;
+
+    private Histogram(
+      final double in_min,
+      final double in_max,
+      final int in_bins)
+    {
+      checkHistogram(in_min, in_max, in_bins);
+      this.min = in_min;
+      this.max = in_max;
+      this.scale = (double) in_bins / (in_max - in_min);
+      this.bins = new long[in_bins];
+    }
+
+    private void accumulate(
+      final double[] values,
+      final int size)
+    {
+      final long[] b = this.bins;
+      final int last = b.length - 1;
+      for (int index = 0; index < size; ++index) {
+        final double x = values[index];
+        if (x < this.min) {
+          ++this.below;
+        } else if (x >= this.max) {
+          ++this.above;
+        } else if (!Double.isNaN(x)) {
+          final int bin = (int) ((x - this.min) * this.scale);
+          ++b[Math.min(bin, last)];
+        }
+      }
+    }
+
+    private Histogram merge(
+      final Histogram other)
+    {
+      for (int index = 0; index < this.bins.length; ++index) {
+        this.bins[index] += other.bins[index];
+      }
+      this.below += other.below;
+      this.above += other.above;
+      return this;
+    }
+
+    /**
+     * @return The number of bins
+     */
+
+    public int binCount()
+    {
+      return this.bins.length;
+    }
+
+    /**
+     * @param index The bin index
+     *
+     * @return The number of values in bin {@code index}
+     */
+
+    public long bin(
+      final int index)
+    {
+      return this.bins[index];
+    }
+
+    /**
+     * @param index The bin index
+     *
+     * @return The lower bound of bin {@code index}
+     */
+
+    public double binLowerBound(
+      final int index)
+    {
+      Objects.checkIndex(index, this.bins.length);
+      return this.min + (double) index / this.scale;
+    }
+
+    /**
+     * @return The number of values below the lower bound of the first bin
+     */
+
+    public long below()
+    {
+      return this.below;
+    }
+
+    /**
+     * @return The number of values at or above the upper bound of the last
+     * bin
+     */
+
+    public long above()
+    {
+      return this.above;
+    }
+  }
+
+  private static final class SummaryTask extends RecursiveTask<Summary>
+  {
+    private static final long serialVersionUID = 1L;
+
+    private final ByteBuffer data;
+    private final int element_size;
+    private final JPRAScan.Field field;
+    private final int from;
+    private final int to;
+    private final int task_size;
+
+    SummaryTask(
+      final ByteBuffer in_data,
+      final int in_element_size,
+      final JPRAScan.Field in_field,
+      final int in_from,
+      final int in_to,
+      final int in_task_size)
+    {
+      this.data = in_data;
+      this.element_size = in_element_size;
+      this.field = in_field;
+      this.from = in_from;
+      this.to = in_to;
+      this.task_size = in_task_size;
+    }
+
+    @Override
+    protected Summary compute()
+    {
+      if (this.to - this.from <= this.task_size) {
+        final Summary s = new Summary();
+        summarizeRange(
+          this.data, this.element_size, this.field, this.from, this.to, s);
+        return s;
+      }
+
+      final int mid = (this.from + this.to) >>> 1;
+      final SummaryTask left = new SummaryTask(
+        this.data, this.element_size, this.field,
+        this.from, mid, this.task_size);
+      final SummaryTask right = new SummaryTask(
+        this.data, this.element_size, this.field,
+        mid, this.to, this.task_size);
+      left.fork();
+      final Summary r = right.compute();
+      return left.join().merge(r);
+    }
+  }
+
+  private static final class HistogramTask extends RecursiveTask<Histogram>
+  {
+    private static final long serialVersionUID = 1L;
+
+    private final ByteBuffer data;
+    private final int element_size;
+    private final JPRAScan.Field field;
+    private final int from;
+    private final int to;
+    private final double min;
+    private final double max;
+    private final int bins;
+    private final int task_size;
+
+    HistogramTask(
+      final ByteBuffer in_data,
+      final int in_element_size,
+      final JPRAScan.Field in_field,
+      final int in_from,
+      final int in_to,
+      final double in_min,
+      final double in_max,
+      final int in_bins,
+      final int in_task_size)
+    {
+      this.data = in_data;
+      this.element_size = in_element_size;
+      this.field = in_field;
+      this.from = in_from;
+      this.to = in_to;
+      this.min = in_min;
+      this.max = in_max;
+      this.bins = in_bins;
+      this.task_size = in_task_size;
+    }
+
+    @Override
+    protected Histogram compute()
+    {
+      if (this.to - this.from <= this.task_size) {
+        final Histogram h = new Histogram(this.min, this.max, this.bins);
+        histogramRange(
+          this.data, this.element_size, this.field, this.from, this.to, h);
+        return h;
+      }
+
+      final int mid = (this.from + this.to) >>> 1;
+      final HistogramTask left = new HistogramTask(
+        this.data, this.element_size, this.field,
+        this.from, mid, this.min, this.max, this.bins, this.task_size);
+      final HistogramTask right = new HistogramTask(
+        this.data, this.element_size, this.field,
+        mid, this.to, this.min, this.max, this.bins, this.task_size);
+      left.fork();
+      final Histogram r = right.compute();
+      return left.join().merge(r);
+    }
+  }
+}
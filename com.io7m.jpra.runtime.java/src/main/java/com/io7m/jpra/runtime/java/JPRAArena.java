@@ -0,0 +1,514 @@
+/*
+ * Copyright © 2015 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.jpra.runtime.java;
+
+import com.io7m.mutable.numbers.core.MutableLong;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+
+/**
+ * <p>An arena that carves typed regions out of large, fixed-size chunks.</p>
+ *
+ * <p>Each {@link Region} holds elements of a single type, and takes chunks
+ * from the arena as it fills up, so elements of the same type are stored
+ * contiguously. Elements are allocated by bumping an offset within the
+ * region's current chunk, and are never freed individually: all chunks are
+ * returned to the arena's release function at once when the arena is
+ * closed.</p>
+ *
+ * <p>Allocations are identified by {@code long} handles holding the index of
+ * a chunk in the high 32 bits and the octet offset of the allocation within
+ * that chunk in the low 32 bits. A region resolves one of its handles to a
+ * positioned cursor by rebinding the cursor to the handle's chunk (only if
+ * it is not already bound to it) and setting the element index.</p>
+ *
+ * <p>The contents of newly allocated elements are whatever the arena's
+ * allocator provided; buffers obtained from
+ * {@link ByteBuffer#allocateDirect(int)} are zero-filled.</p>
+ *
+ * <p>Instances are not thread-safe.</p>
+ */
+
+public final class JPRAArena implements AutoCloseable
+{
+  private final int chunk_size;
+  private final IntFunction<ByteBuffer> allocator;
+  private final Consumer<ByteBuffer> release;
+  private final List<ByteBuffer> chunks;
+  private final List<Region<?>> owners;
+  private final List<Integer> retired_used;
+  private final List<Region<?>> regions;
+  private boolean closed;
+
+  private JPRAArena(
+    final int in_chunk_size,
+    final IntFunction<ByteBuffer> in_allocator,
+    final Consumer<ByteBuffer> in_release)
+  {
+    this.chunk_size = in_chunk_size;
+    this.allocator = in_allocator;
+    this.release = in_release;
+    this.chunks = new ArrayList<>(16);
+    this.owners = new ArrayList<>(16);
+    this.retired_used = new ArrayList<>(16);
+    this.regions = new ArrayList<>(8);
+    this.closed = false;
+  }
+
+  /**
+   * Create a new arena.
+   *
+   * @param chunk_size The size in octets of chunks
+   * @param allocator  A function that, given a size in octets, allocates a
+   *                   new buffer of at least that capacity
+   * @param release    A function that is passed each chunk when the arena
+   *                   is closed
+   *
+   * @return A new arena
+   */
+
+  public static JPRAArena create(
+    final int chunk_size,
+    final IntFunction<ByteBuffer> allocator,
+    final Consumer<ByteBuffer> release)
+  {
+    Objects.requireNonNull(allocator, "Allocator");
+    Objects.requireNonNull(release, "Release");
+    if (chunk_size <= 0) {
+      throw new IllegalArgumentException(
+        String.format(
+          "Chunk size %d must be positive", Integer.valueOf(chunk_size)));
+    }
+    return new JPRAArena(chunk_size, allocator, release);
+  }
+
+  /**
+   * Create a new arena that allocates direct buffers, and leaves their
+   * reclamation to the garbage collector.
+   *
+   * @param chunk_size The size in octets of chunks
+   *
+   * @return A new arena
+   */
+
+  public static JPRAArena createDirect(
+    final int chunk_size)
+  {
+    return create(chunk_size, ByteBuffer::allocateDirect, b -> {
+    });
+  }
+
+  /**
+   * @param handle A handle
+   *
+   * @return The chunk index of the handle
+   */
+
+  public static int chunkOf(
+    final long handle)
+  {
+    return (int) (handle >>> 32);
+  }
+
+  /**
+   * @param handle A handle
+   *
+   * @return The octet offset of the handle within its chunk
+   */
+
+  public static int offsetOf(
+    final long handle)
+  {
+    return (int) handle;
+  }
+
+  private static long handle(
+    final int chunk,
+    final int offset)
+  {
+    return ((long) chunk << 32) | ((long) offset & 0xffffffffL);
+  }
+
+  private void checkNotClosed()
+  {
+    if (this.closed) {
+      throw new IllegalStateException("Arena is closed");
+    }
+  }
+
+  /**
+   * @return The size in octets of chunks
+   */
+
+  public int chunkSize()
+  {
+    return this.chunk_size;
+  }
+
+  /**
+   * @return The total number of chunks held by the arena
+   */
+
+  public int chunkCount()
+  {
+    return this.chunks.size();
+  }
+
+  /**
+   * @param index The chunk index
+   *
+   * @return The chunk at {@code index}
+   */
+
+  public ByteBuffer chunk(
+    final int index)
+  {
+    this.checkNotClosed();
+    return this.chunks.get(index);
+  }
+
+  /**
+   * @return The regions created in this arena, in creation order
+   */
+
+  public List<Region<?>> regions()
+  {
+    return Collections.unmodifiableList(this.regions);
+  }
+
+  /**
+   * Create a new region for elements of type {@code T}.
+   *
+   * @param name         A descriptive name for the region, such as the name
+   *                     of the type
+   * @param cons         An element value constructor
+   * @param element_size The size in octets of an element
+   * @param <T>          The type of elements
+   *
+   * @return A new region
+   *
+   * @throws IllegalArgumentException If {@code element_size} is not in the
+   *                                  range {@code [1, chunkSize()]}, or is
+   *                                  not the size of the values produced by
+   *                                  {@code cons}
+   */
+
+  public <T extends JPRAValueType> Region<T> region(
+    final String name,
+    final JPRAValueByteBufferedConstructorType<T> cons,
+    final int element_size)
+  {
+    Objects.requireNonNull(name, "Name");
+    Objects.requireNonNull(cons, "Constructor");
+    this.checkNotClosed();
+
+    if (element_size <= 0 || element_size > this.chunk_size) {
+      throw new IllegalArgumentException(
+        String.format(
+          "Element size %d must be in the range [1, %d]",
+          Integer.valueOf(element_size),
+          Integer.valueOf(this.chunk_size)));
+    }
+
+    final MutableLong offset = MutableLong.create();
+    final int view_size = Objects.requireNonNull(
+      cons.create(ByteBuffer.allocate(element_size), () -> offset, 0),
+      "Constructed value").sizeOctets();
+    if (view_size != element_size) {
+      throw new IllegalArgumentException(
+        String.format(
+          "Element size %d does not match the size of constructed values %d",
+          Integer.valueOf(element_size),
+          Integer.valueOf(view_size)));
+    }
+
+    final Region<T> r = new Region<>(name, cons, element_size);
+    this.regions.add(r);
+    return r;
+  }
+
+  private int acquireChunk(
+    final Region<?> owner)
+  {
+    final ByteBuffer chunk = Objects.requireNonNull(
+      this.allocator.apply(this.chunk_size), "Allocated buffer");
+    if (chunk.capacity() < this.chunk_size) {
+      throw new IllegalStateException(
+        String.format(
+          "Allocator returned a buffer of capacity %d (expected %d)",
+          Integer.valueOf(chunk.capacity()),
+          Integer.valueOf(this.chunk_size)));
+    }
+    this.chunks.add(chunk);
+    this.owners.add(owner);
+    this.retired_used.add(null);
+    return this.chunks.size() - 1;
+  }
+
+  /**
+   * Close the arena, passing every chunk to the release function. All
+   * regions and handles become unusable. Closing an arena more than once
+   * has no effect.
+   */
+
+  @Override
+  public void close()
+  {
+    if (!this.closed) {
+      this.closed = true;
+      for (final ByteBuffer chunk : this.chunks) {
+        this.release.accept(chunk);
+      }
+      this.chunks.clear();
+      this.owners.clear();
+      this.retired_used.clear();
+    }
+  }
+
+  /**
+   * A region of an arena holding elements of type {@code T}.
+   *
+   * @param <T> The type of elements
+   */
+
+  public final class Region<T extends JPRAValueType>
+  {
+    private final String name;
+    private final JPRAValueByteBufferedConstructorType<T> cons;
+    private final int element_size;
+    private final int per_chunk;
+    private JPRACursor1DRebindableType<T> cursor;
+    private int cursor_chunk;
+    private int current_chunk;
+    private int current_used;
+    private int chunk_count;
+    private long used;
+    private long wasted;
+
+    private Region(
+      final String in_name,
+      final JPRAValueByteBufferedConstructorType<T> in_cons,
+      final int in_element_size)
+    {
+      this.name = in_name;
+      this.cons = in_cons;
+      this.element_size = in_element_size;
+      this.per_chunk = JPRAArena.this.chunk_size / in_element_size;
+      this.cursor_chunk = -1;
+      this.current_chunk = -1;
+      this.current_used = 0;
+    }
+
+    /**
+     * @return The name of the region
+     */
+
+    public String name()
+    {
+      return this.name;
+    }
+
+    /**
+     * @return The size in octets of an element
+     */
+
+    public int elementSize()
+    {
+      return this.element_size;
+    }
+
+    /**
+     * @return The number of chunks taken from the arena by this region
+     */
+
+    public int chunkCount()
+    {
+      return this.chunk_count;
+    }
+
+    /**
+     * @return The number of octets occupied by allocated elements
+     */
+
+    public long bytesUsed()
+    {
+      return this.used;
+    }
+
+    /**
+     * @return The number of octets in this region's chunks that can no
+     * longer be allocated: the tails of chunks that were too short for an
+     * allocation, and the remainders of chunks that are not a multiple of
+     * the element size
+     */
+
+    public long bytesWasted()
+    {
+      return this.wasted;
+    }
+
+    /**
+     * Allocate one element.
+     *
+     * @return A handle to the element
+     */
+
+    public long allocate()
+    {
+      return this.allocateArray(1);
+    }
+
+    /**
+     * Allocate {@code count} contiguous elements within a single chunk.
+     *
+     * @param count The number of elements
+     *
+     * @return A handle to the first element
+     */
+
+    public long allocateArray(
+      final int count)
+    {
+      JPRAArena.this.checkNotClosed();
+      if (count <= 0 || count > this.per_chunk) {
+        throw new IllegalArgumentException(
+          String.format(
+            "Element count %d must be in the range [1, %d]",
+            Integer.valueOf(count),
+            Integer.valueOf(this.per_chunk)));
+      }
+
+      if (this.current_chunk < 0
+        || this.current_used + count > this.per_chunk) {
+        if (this.current_chunk >= 0) {
+          this.wasted += (long) (this.per_chunk - this.current_used)
+            * (long) this.element_size;
+          JPRAArena.this.retired_used.set(
+            this.current_chunk,
+            Integer.valueOf(this.current_used * this.element_size));
+        }
+        this.current_chunk = JPRAArena.this.acquireChunk(this);
+        this.current_used = 0;
+        ++this.chunk_count;
+        this.wasted += (long) (JPRAArena.this.chunk_size % this.element_size);
+      }
+
+      final int offset = this.current_used * this.element_size;
+      this.current_used += count;
+      this.used += (long) count * (long) this.element_size;
+      return handle(this.current_chunk, offset);
+    }
+
+    /**
+     * Resolve a handle to a cursor positioned on the element it refers to.
+     * The returned cursor is shared by all calls to this method on this
+     * region, and is only valid until the next call.
+     *
+     * @param handle A handle returned by this region
+     *
+     * @return A positioned cursor
+     *
+     * @throws IllegalArgumentException If the handle was not returned by
+     *                                  this region, or does not refer to an
+     *                                  allocated element
+     */
+
+    public JPRACursor1DType<T> resolve(
+      final long handle)
+      throws IllegalArgumentException
+    {
+      JPRAArena.this.checkNotClosed();
+
+      final int chunk = chunkOf(handle);
+      final int offset = offsetOf(handle);
+      if (!this.isAllocated(chunk, offset)) {
+        throw new IllegalArgumentException(
+          String.format(
+            "Handle 0x%016x does not belong to region %s",
+            Long.valueOf(handle),
+            this.name));
+      }
+
+      if (chunk != this.cursor_chunk) {
+        final ByteBuffer buffer = JPRAArena.this.chunks.get(chunk);
+        if (this.cursor == null) {
+          this.cursor =
+            JPRACursor1DByteBufferedChecked.newCursor(buffer, this.cons);
+        } else {
+          this.cursor.rebind(buffer);
+        }
+        this.cursor_chunk = chunk;
+      }
+
+      this.cursor.setElementIndex(offset / this.element_size);
+      return this.cursor;
+    }
+
+    /*
+     * The elements of a chunk that is still being filled are allocated up
+     * to the current fill level; the extent of every other chunk was
+     * recorded when the region moved on from it.
+     */
+
+    private int allocatedOctets(
+      final int chunk)
+    {
+      if (chunk == this.current_chunk) {
+        return this.current_used * this.element_size;
+      }
+      return JPRAArena.this.retired_used.get(chunk).intValue();
+    }
+
+    private boolean isAllocated(
+      final int chunk,
+      final int offset)
+    {
+      if (chunk < 0 || chunk >= JPRAArena.this.owners.size()) {
+        return false;
+      }
+      if (JPRAArena.this.owners.get(chunk) != this) {
+        return false;
+      }
+      if (offset < 0 || offset % this.element_size != 0) {
+        return false;
+      }
+      return offset < this.allocatedOctets(chunk);
+    }
+
+    @Override
+    public String toString()
+    {
+      final StringBuilder sb = new StringBuilder(64);
+      sb.append("[Region ");
+      sb.append(this.name);
+      sb.append(" chunks=");
+      sb.append(this.chunk_count);
+      sb.append(" used=");
+      sb.append(this.used);
+      sb.append(" wasted=");
+      sb.append(this.wasted);
+      sb.append(']');
+      return sb.toString();
+    }
+  }
+}
@@ -0,0 +1,1132 @@
+/*
+ * Copyright © 2015 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.jpra.runtime.java;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * <p>A compression codec for arrays of records, driven by the layout of the
+ * record type.</p>
+ *
+ * <p>A codec divides the octets of an element into <i>integer columns</i>
+ * (scalar fields, vector and matrix components, and packed types, of 1, 2,
+ * 4, or 8 octets) and <i>raw ranges</i> (strings and boolean sets).
+ * Padding octets belong to neither, are not stored, and are zero after
+ * decompression. Floating point fields are treated as integer columns
+ * holding their bit patterns, so that runs of identical values compress
+ * well.</p>
+ *
+ * <p>Elements are compressed in blocks. Within a block, the values of each
+ * integer column are bit-packed after applying whichever of the following
+ * encodings yields the smaller result:</p>
+ *
+ * <ul>
+ * <li>Frame-of-reference: the minimum value of the column is stored, and
+ * each value is stored as its (non-negative) difference from the
+ * minimum.</li>
+ * <li>Delta: the first value of the column and the minimum difference
+ * between consecutive values are stored, and each subsequent difference
+ * is stored relative to that minimum. Monotonically increasing values
+ * such as timestamps typically pack into very few bits.</li>
+ * </ul>
+ *
+ * <p>Columns holding a single repeated value therefore occupy a fixed 10
+ * octets per block, regardless of the block size. Raw ranges are stored
+ * column-wise, verbatim.</p>
+ *
+ * <p>Integer columns are read with the byte order of the source buffer and
+ * written with the byte order of the target buffer, so compression is
+ * only lossless if the two buffers have the same byte order. The
+ * {@link Writer} and {@link Reader} classes record the byte order in the
+ * compressed stream and handle this automatically. The compressed form
+ * itself does not depend on the byte order of any buffer.</p>
+ *
+ * <p>Codecs are immutable and are safe to share between threads. Codecs
+ * for generated record types are produced by the code generator.</p>
+ */
+
+public final class JPRABlockCodec
+{
+  private static final int MAGIC = 0x4A505243;
+  private static final int VERSION = 1;
+  private static final int HEADER_SIZE = 20;
+  private static final int FOOTER_SIZE = 16;
+  private static final int BLOCK_HEADER_SIZE = 4;
+  private static final int COLUMN_HEADER_SIZE = 18;
+
+  private static final byte ENCODING_FRAME = 0;
+  private static final byte ENCODING_DELTA = 1;
+
+  private final int size;
+  private final int[] integer_columns;
+  private final int[] raw_ranges;
+  private final boolean gaps;
+  private final int layout_hash;
+
+  private JPRABlockCodec(
+    final int in_size,
+    final int[] in_integer_columns,
+    final int[] in_raw_ranges,
+    final boolean in_gaps)
+  {
+    this.size = in_size;
+    this.integer_columns = in_integer_columns;
+    this.raw_ranges = in_raw_ranges;
+    this.gaps = in_gaps;
+    this.layout_hash = (31 * (31 * in_size
+      + Arrays.hashCode(in_integer_columns)))
+      + Arrays.hashCode(in_raw_ranges);
+  }
+
+  /**
+   * Construct a codec.
+   *
+   * @param size            The size in octets of an element
+   * @param integer_columns Pairs of {@code (offset, size)} describing the
+   *                        integer columns, where each size is one of 1, 2,
+   *                        4, or 8
+   * @param raw_ranges      Pairs of {@code (offset, length)} describing the
+   *                        octet ranges that are stored verbatim
+   *
+   * @return A new codec
+   */
+
+  public static JPRABlockCodec of(
+    final int size,
+    final int[] integer_columns,
+    final int[] raw_ranges)
+  {
+    Objects.requireNonNull(integer_columns, "Integer columns");
+    Objects.requireNonNull(raw_ranges, "Raw ranges");
+
+    if (size <= 0) {
+      throw new IllegalArgumentException(
+        String.format("Size %d must be positive", Integer.valueOf(size)));
+    }
+    if (integer_columns.length % 2 != 0 || raw_ranges.length % 2 != 0) {
+      throw new IllegalArgumentException(
+        "Columns must be specified as (offset, size) pairs");
+    }
+
+    final boolean[] covered = new boolean[size];
+    for (int index = 0; index < integer_columns.length; index += 2) {
+      final int column_size = integer_columns[index + 1];
+      if (column_size != 1
+        && column_size != 2
+        && column_size != 4
+        && column_size != 8) {
+        throw new IllegalArgumentException(
+          String.format(
+            "Integer column size %d must be one of 1, 2, 4, 8",
+            Integer.valueOf(column_size)));
+      }
+      cover(covered, integer_columns[index], column_size);
+    }
+    for (int index = 0; index < raw_ranges.length; index += 2) {
+      cover(covered, raw_ranges[index], raw_ranges[index + 1]);
+    }
+
+    boolean gaps = false;
+    for (int index = 0; index < size; ++index) {
+      gaps = gaps || !covered[index];
+    }
+
+    return new JPRABlockCodec(
+      size, integer_columns.clone(), raw_ranges.clone(), gaps);
+  }
+
+  private static void cover(
+    final boolean[] covered,
+    final int offset,
+    final int length)
+  {
+    if (offset < 0 || length <= 0 || offset + length > covered.length) {
+      throw new IllegalArgumentException(
+        String.format(
+          "Column (%d, %d) is empty or exceeds size %d",
+          Integer.valueOf(offset),
+          Integer.valueOf(length),
+          Integer.valueOf(covered.length)));
+    }
+    for (int index = offset; index < offset + length; ++index) {
+      if (covered[index]) {
+        throw new IllegalArgumentException(
+          String.format(
+            "Column (%d, %d) overlaps another column",
+            Integer.valueOf(offset),
+            Integer.valueOf(length)));
+      }
+      covered[index] = true;
+    }
+  }
+
+  private static int widthOf(
+    final long range)
+  {
+    return 64 - Long.numberOfLeadingZeros(range);
+  }
+
+  private static long mask(
+    final int width)
+  {
+    return width == 64 ? -1L : (1L << width) - 1L;
+  }
+
+  private static long readValue(
+    final ByteBuffer data,
+    final int offset,
+    final int size)
+  {
+    switch (size) {
+      case 1:
+        return (long) data.get(offset);
+      case 2:
+        return (long) data.getShort(offset);
+      case 4:
+        return (long) data.getInt(offset);
+      default:
+        return data.getLong(offset);
+    }
+  }
+
+  private static void writeValue(
+    final ByteBuffer data,
+    final int offset,
+    final int size,
+    final long value)
+  {
+    switch (size) {
+      case 1:
+        data.put(offset, (byte) value);
+        break;
+      case 2:
+        data.putShort(offset, (short) value);
+        break;
+      case 4:
+        data.putInt(offset, (int) value);
+        break;
+      default:
+        data.putLong(offset, value);
+        break;
+    }
+  }
+
+  /**
+   * @return The size in octets of an element
+   */
+
+  public int size()
+  {
+    return this.size;
+  }
+
+  /**
+   * @param count The number of elements in a block
+   *
+   * @return The maximum number of octets that a compressed block of
+   * {@code count} elements can occupy
+   */
+
+  public int maximumCompressedSize(
+    final int count)
+  {
+    if (count < 0) {
+      throw new IllegalArgumentException(
+        String.format(
+          "Element count %d must be non-negative", Integer.valueOf(count)));
+    }
+
+    final long columns = (long) (this.integer_columns.length / 2);
+    final long bound = (long) BLOCK_HEADER_SIZE
+      + (columns * (long) COLUMN_HEADER_SIZE)
+      + ((long) count * (long) this.size);
+    if (bound > (long) Integer.MAX_VALUE) {
+      throw new IllegalArgumentException(
+        String.format(
+          "A block of %d elements of size %d is too large",
+          Integer.valueOf(count),
+          Integer.valueOf(this.size)));
+    }
+    return (int) bound;
+  }
+
+  private void checkElements(
+    final ByteBuffer data,
+    final int first,
+    final int count)
+  {
+    final long end = ((long) first + (long) count) * (long) this.size;
+    if (first < 0 || count < 0 || end > (long) data.capacity()) {
+      throw new IndexOutOfBoundsException(
+        String.format(
+          "Elements [%d, %d) of size %d do not fit in a buffer of size %d",
+          Integer.valueOf(first),
+          Long.valueOf((long) first + (long) count),
+          Integer.valueOf(this.size),
+          Integer.valueOf(data.capacity())));
+    }
+  }
+
+  /**
+   * Compress the elements {@code [first, first + count)} of {@code data}
+   * into a single block, written at the current position of {@code out}.
+   * The position of {@code out} is advanced past the block; the position
+   * and limit of {@code data} are not modified.
+   *
+   * @param data  The buffer holding the elements
+   * @param first The index of the first element
+   * @param count The number of elements
+   * @param out   The output buffer, which must have at least
+   *              {@link #maximumCompressedSize(int)} octets remaining
+   *
+   * @return The number of octets written
+   */
+
+  public int compressBlock(
+    final ByteBuffer data,
+    final int first,
+    final int count,
+    final ByteBuffer out)
+  {
+    Objects.requireNonNull(data, "Data");
+    Objects.requireNonNull(out, "Output");
+    this.checkElements(data, first, count);
+    this.checkOutput(out, count);
+    return this.compress(data, first, count, out, new long[count]);
+  }
+
+  private void checkOutput(
+    final ByteBuffer out,
+    final int count)
+  {
+    final int required = this.maximumCompressedSize(count);
+    if (out.remaining() < required) {
+      throw new IllegalArgumentException(
+        String.format(
+          "Output buffer has %d octets remaining (at least %d required)",
+          Integer.valueOf(out.remaining()),
+          Integer.valueOf(required)));
+    }
+  }
+
+  private int compress(
+    final ByteBuffer data,
+    final int first,
+    final int count,
+    final ByteBuffer out,
+    final long[] values)
+  {
+    final ByteBuffer o = out.duplicate().order(ByteOrder.BIG_ENDIAN);
+    final int start = o.position();
+    final int base = first * this.size;
+
+    o.putInt(count);
+    for (int index = 0; index < this.integer_columns.length; index += 2) {
+      final int offset = base + this.integer_columns[index];
+      final int column_size = this.integer_columns[index + 1];
+      for (int element = 0; element < count; ++element) {
+        values[element] =
+          readValue(data, offset + (element * this.size), column_size);
+      }
+      encodeColumn(o, values, count);
+    }
+
+    for (int index = 0; index < this.raw_ranges.length; index += 2) {
+      final int offset = base + this.raw_ranges[index];
+      final int length = this.raw_ranges[index + 1];
+      for (int element = 0; element < count; ++element) {
+        final int e_offset = offset + (element * this.size);
+        for (int octet = 0; octet < length; ++octet) {
+          o.put(data.get(e_offset + octet));
+        }
+      }
+    }
+
+    out.position(o.position());
+    return o.position() - start;
+  }
+
+  private static void encodeColumn(
+    final ByteBuffer out,
+    final long[] values,
+    final int count)
+  {
+    if (count == 0) {
+      out.put(ENCODING_FRAME);
+      out.put((byte) 0);
+      out.putLong(0L);
+      return;
+    }
+
+    long min = values[0];
+    long max = values[0];
+    for (int index = 1; index < count; ++index) {
+      min = Math.min(min, values[index]);
+      max = Math.max(max, values[index]);
+    }
+    final int frame_width = widthOf(max - min);
+    final long frame_bits = (long) count * (long) frame_width;
+
+    if (count > 1) {
+      long d_min = values[1] - values[0];
+      long d_max = d_min;
+      for (int index = 2; index < count; ++index) {
+        final long d = values[index] - values[index - 1];
+        d_min = Math.min(d_min, d);
+        d_max = Math.max(d_max, d);
+      }
+
+      final int delta_width = widthOf(d_max - d_min);
+      final long delta_bits = 64L + ((long) (count - 1) * (long) delta_width);
+      if (delta_bits < frame_bits) {
+        out.put(ENCODING_DELTA);
+        out.put((byte) delta_width);
+        out.putLong(values[0]);
+        out.putLong(d_min);
+        final BitPacker packer = new BitPacker(out);
+        for (int index = 1; index < count; ++index) {
+          packer.put(values[index] - values[index - 1] - d_min, delta_width);
+        }
+        packer.finish();
+        return;
+      }
+    }
+
+    out.put(ENCODING_FRAME);
+    out.put((byte) frame_width);
+    out.putLong(min);
+    final BitPacker packer = new BitPacker(out);
+    for (int index = 0; index < count; ++index) {
+      packer.put(values[index] - min, frame_width);
+    }
+    packer.finish();
+  }
+
+  /**
+   * Decompress a single block, read from the current position of {@code in},
+   * into {@code data} starting at element {@code first}. The position of
+   * {@code in} is advanced past the block; the position and limit of
+   * {@code data} are not modified.
+   *
+   * @param in    The buffer holding the compressed block
+   * @param data  The buffer that will hold the elements
+   * @param first The index of the first element to be written
+   *
+   * @return The number of elements written
+   *
+   * @throws IllegalArgumentException If the block is malformed
+   */
+
+  public int decompressBlock(
+    final ByteBuffer in,
+    final ByteBuffer data,
+    final int first)
+    throws IllegalArgumentException
+  {
+    Objects.requireNonNull(in, "Input");
+    Objects.requireNonNull(data, "Data");
+
+    final ByteBuffer i = in.duplicate().order(ByteOrder.BIG_ENDIAN);
+    final int count = i.getInt();
+    this.checkElements(data, first, count);
+
+    final int base = first * this.size;
+    if (this.gaps) {
+      final int end = base + (count * this.size);
+      for (int index = base; index < end; ++index) {
+        data.put(index, (byte) 0);
+      }
+    }
+
+    for (int index = 0; index < this.integer_columns.length; index += 2) {
+      decodeColumn(
+        i,
+        data,
+        base + this.integer_columns[index],
+        this.integer_columns[index + 1],
+        this.size,
+        count);
+    }
+
+    for (int index = 0; index < this.raw_ranges.length; index += 2) {
+      final int offset = base + this.raw_ranges[index];
+      final int length = this.raw_ranges[index + 1];
+      for (int element = 0; element < count; ++element) {
+        final int e_offset = offset + (element * this.size);
+        for (int octet = 0; octet < length; ++octet) {
+          data.put(e_offset + octet, i.get());
+        }
+      }
+    }
+
+    in.position(i.position());
+    return count;
+  }
+
+  private static void decodeColumn(
+    final ByteBuffer in,
+    final ByteBuffer data,
+    final int offset,
+    final int column_size,
+    final int stride,
+    final int count)
+  {
+    final byte encoding = in.get();
+    final int width = (int) in.get() & 0xff;
+    if (width > 64) {
+      throw new IllegalArgumentException(
+        String.format(
+          "Malformed block: Column width %d exceeds 64",
+          Integer.valueOf(width)));
+    }
+
+    switch (encoding) {
+      case ENCODING_FRAME: {
+        final long min = in.getLong();
+        final BitUnpacker unpacker = new BitUnpacker(in);
+        for (int element = 0; element < count; ++element) {
+          writeValue(
+            data,
+            offset + (element * stride),
+            column_size,
+            min + unpacker.take(width));
+        }
+        break;
+      }
+      case ENCODING_DELTA: {
+        long value = in.getLong();
+        final long d_min = in.getLong();
+        final BitUnpacker unpacker = new BitUnpacker(in);
+        writeValue(data, offset, column_size, value);
+        for (int element = 1; element < count; ++element) {
+          value += d_min + unpacker.take(width);
+          writeValue(data, offset + (element * stride), column_size, value);
+        }
+        break;
+      }
+      default: {
+        throw new IllegalArgumentException(
+          String.format(
+            "Malformed block: Unrecognized column encoding %d",
+            Integer.valueOf((int) encoding)));
+      }
+    }
+  }
+
+  /**
+   * Create a writer that compresses elements to the given channel. The
+   * stream header is written immediately.
+   *
+   * @param channel        The output channel
+   * @param block_elements The number of elements per block
+   * @param order          The byte order of the elements that will be
+   *                       written
+   *
+   * @return A new writer
+   *
+   * @throws IOException On I/O errors
+   */
+
+  public Writer newWriter(
+    final WritableByteChannel channel,
+    final int block_elements,
+    final ByteOrder order)
+    throws IOException
+  {
+    Objects.requireNonNull(channel, "Channel");
+    Objects.requireNonNull(order, "Order");
+    if (block_elements <= 0) {
+      throw new IllegalArgumentException(
+        String.format(
+          "Block element count %d must be positive",
+          Integer.valueOf(block_elements)));
+    }
+    return new Writer(channel, block_elements, order);
+  }
+
+  /**
+   * Open a stream previously produced by a {@link Writer} for a codec with
+   * the same layout.
+   *
+   * @param channel The input channel
+   *
+   * @return A new reader
+   *
+   * @throws IOException If the stream is malformed, or was written by a
+   *                     codec with a different layout, or on I/O errors
+   */
+
+  public Reader newReader(
+    final SeekableByteChannel channel)
+    throws IOException
+  {
+    Objects.requireNonNull(channel, "Channel");
+    return new Reader(channel);
+  }
+
+  private static void writeFully(
+    final WritableByteChannel channel,
+    final ByteBuffer buffer)
+    throws IOException
+  {
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+  }
+
+  /*
+   * A stream is well-formed if every block but the last is full, and the
+   * last block holds at least one element.
+   */
+
+  private static boolean isWellFormed(
+    final int block_elements,
+    final int blocks,
+    final long index_offset,
+    final long elements)
+  {
+    if (block_elements <= 0 || blocks < 0) {
+      return false;
+    }
+    if (index_offset < (long) HEADER_SIZE) {
+      return false;
+    }
+    final long capacity = (long) blocks * (long) block_elements;
+    return elements <= capacity && elements > capacity - (long) block_elements;
+  }
+
+  private static void readFully(
+    final ReadableByteChannel channel,
+    final ByteBuffer buffer)
+    throws IOException
+  {
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer) < 0) {
+        throw new IOException("Unexpected end of compressed stream");
+      }
+    }
+  }
+
+  /*
+   * Values are packed least significant bit first. Values wider than 32 bits
+   * are split in two so that the accumulator never holds more than 40 bits.
+   */
+
+  private static final class BitPacker
+  {
+    private final ByteBuffer out;
+    private long bits;
+    private int filled;
+
+    BitPacker(
+      final ByteBuffer in_out)
+    {
+      this.out = in_out;
+    }
+
+    void put(
+      final long value,
+      final int width)
+    {
+      if (width > 32) {
+        this.putSmall(value & 0xffffffffL, 32);
+        this.putSmall((value >>> 32) & mask(width - 32), width - 32);
+      } else {
+        this.putSmall(value & mask(width), width);
+      }
+    }
+
+    private void putSmall(
+      final long value,
+      final int width)
+    {
+      this.bits |= value << this.filled;
+      this.filled += width;
+      while (this.filled >= 8) {
+        this.out.put((byte) this.bits);
+        this.bits >>>= 8;
+        this.filled -= 8;
+      }
+    }
+
+    void finish()
+    {
+      if (this.filled > 0) {
+        this.out.put((byte) this.bits);
+        this.bits = 0L;
+        this.filled = 0;
+      }
+    }
+  }
+
+  private static final class BitUnpacker
+  {
+    private final ByteBuffer in;
+    private long bits;
+    private int available;
+
+    BitUnpacker(
+      final ByteBuffer in_in)
+    {
+      this.in = in_in;
+    }
+
+    long take(
+      final int width)
+    {
+      if (width > 32) {
+        final long low = this.takeSmall(32);
+        return low | (this.takeSmall(width - 32) << 32);
+      }
+      return this.takeSmall(width);
+    }
+
+    private long takeSmall(
+      final int width)
+    {
+      while (this.available < width) {
+        this.bits |= ((long) this.in.get() & 0xffL) << this.available;
+        this.available += 8;
+      }
+      final long r = this.bits & mask(width);
+      this.bits >>>= width;
+      this.available -= width;
+      return r;
+    }
+  }
+
+  /**
+   * <p>A writer that compresses elements to a channel in blocks of a fixed
+   * number of elements.</p>
+   *
+   * <p>Elements are staged in a buffer owned by the writer, and each block
+   * is compressed into a second reusable buffer when it fills, so writing
+   * performs no per-block allocation. The stream consists of a header, the
+   * compressed blocks, and an index of block offsets that allows a
+   * {@link Reader} to decompress any block independently. The index is
+   * written when the writer is closed; the channel itself is not
+   * closed.</p>
+   *
+   * <p>Instances are not thread-safe.</p>
+   */
+
+  public final class Writer implements AutoCloseable
+  {
+    private final WritableByteChannel channel;
+    private final int block_elements;
+    private final ByteBuffer staging;
+    private final ByteBuffer output;
+    private final long[] values;
+    private long[] offsets;
+    private int blocks;
+    private int staged;
+    private long position;
+    private long elements;
+    private boolean closed;
+
+    private Writer(
+      final WritableByteChannel in_channel,
+      final int in_block_elements,
+      final ByteOrder order)
+      throws IOException
+    {
+      this.channel = in_channel;
+      this.block_elements = in_block_elements;
+
+      final int staging_size =
+        Math.multiplyExact(in_block_elements, JPRABlockCodec.this.size);
+      this.staging = ByteBuffer.allocate(staging_size).order(order);
+      this.output = ByteBuffer.allocate(
+        JPRABlockCodec.this.maximumCompressedSize(in_block_elements));
+      this.values = new long[in_block_elements];
+      this.offsets = new long[16];
+
+      final ByteBuffer header =
+        ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.BIG_ENDIAN);
+      header.putInt(MAGIC);
+      header.putInt(VERSION);
+      header.putInt(JPRABlockCodec.this.layout_hash);
+      header.putInt(in_block_elements);
+      header.putInt(order == ByteOrder.BIG_ENDIAN ? 0 : 1);
+      header.flip();
+      writeFully(this.channel, header);
+      this.position = (long) HEADER_SIZE;
+    }
+
+    /**
+     * @return The number of elements written so far
+     */
+
+    public long elementCount()
+    {
+      return this.elements;
+    }
+
+    /**
+     * @return The number of octets written to the channel so far
+     */
+
+    public long compressedSize()
+    {
+      return this.position;
+    }
+
+    /**
+     * Write the elements {@code [first, first + count)} of {@code data}. The
+     * position and limit of {@code data} are not modified.
+     *
+     * @param data  The buffer holding the elements
+     * @param first The index of the first element
+     * @param count The number of elements
+     *
+     * @throws IOException On I/O errors
+     */
+
+    public void write(
+      final ByteBuffer data,
+      final int first,
+      final int count)
+      throws IOException
+    {
+      Objects.requireNonNull(data, "Data");
+      if (this.closed) {
+        throw new IllegalStateException("Writer is closed");
+      }
+      JPRABlockCodec.this.checkElements(data, first, count);
+
+      final int e_size = JPRABlockCodec.this.size;
+      final ByteBuffer view = data.duplicate();
+      int remaining = count;
+      int index = first;
+      while (remaining > 0) {
+        final int take =
+          Math.min(remaining, this.block_elements - this.staged);
+        view.limit((index + take) * e_size);
+        view.position(index * e_size);
+        this.staging.put(view);
+        this.staged += take;
+        this.elements += (long) take;
+        index += take;
+        remaining -= take;
+        if (this.staged == this.block_elements) {
+          this.flushBlock();
+        }
+      }
+    }
+
+    private void flushBlock()
+      throws IOException
+    {
+      if (this.blocks == this.offsets.length) {
+        this.offsets = Arrays.copyOf(this.offsets, this.blocks * 2);
+      }
+      this.offsets[this.blocks] = this.position;
+      ++this.blocks;
+
+      this.output.clear();
+      JPRABlockCodec.this.compress(
+        this.staging, 0, this.staged, this.output, this.values);
+      this.output.flip();
+      this.position += (long) this.output.remaining();
+      writeFully(this.channel, this.output);
+
+      this.staging.clear();
+      this.staged = 0;
+    }
+
+    /**
+     * Compress any partially filled block, and write the block index. The
+     * channel is not closed. Closing a writer more than once has no effect.
+     *
+     * @throws IOException On I/O errors
+     */
+
+    @Override
+    public void close()
+      throws IOException
+    {
+      if (this.closed) {
+        return;
+      }
+      this.closed = true;
+
+      if (this.staged > 0) {
+        this.flushBlock();
+      }
+
+      final ByteBuffer index = ByteBuffer.allocate(
+        (this.blocks * 8) + FOOTER_SIZE).order(ByteOrder.BIG_ENDIAN);
+      for (int block = 0; block < this.blocks; ++block) {
+        index.putLong(this.offsets[block]);
+      }
+      index.putLong(this.elements);
+      index.putInt(this.blocks);
+      index.putInt(MAGIC);
+      index.flip();
+      this.position += (long) index.remaining();
+      writeFully(this.channel, index);
+    }
+  }
+
+  /**
+   * <p>A reader that decompresses individual blocks, in any order, from a
+   * stream produced by a {@link Writer}.</p>
+   *
+   * <p>Compressed blocks are read into a buffer owned by the reader that is
+   * reused between calls.</p>
+   *
+   * <p>Instances are not thread-safe.</p>
+   */
+
+  public final class Reader
+  {
+    private final SeekableByteChannel channel;
+    private final int block_elements;
+    private final ByteOrder order;
+    private final long[] offsets;
+    private final long index_offset;
+    private final long elements;
+    private ByteBuffer input;
+
+    private Reader(
+      final SeekableByteChannel in_channel)
+      throws IOException
+    {
+      this.channel = in_channel;
+
+      final ByteBuffer header =
+        ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.BIG_ENDIAN);
+      in_channel.position(0L);
+      readFully(in_channel, header);
+      header.flip();
+      this.checkHeader(header);
+
+      this.block_elements = header.getInt();
+      this.order =
+        header.getInt() == 0 ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN;
+
+      final long stream_size = in_channel.size();
+      final ByteBuffer footer =
+        ByteBuffer.allocate(FOOTER_SIZE).order(ByteOrder.BIG_ENDIAN);
+      in_channel.position(stream_size - (long) FOOTER_SIZE);
+      readFully(in_channel, footer);
+      footer.flip();
+
+      this.elements = footer.getLong();
+      final int blocks = footer.getInt();
+      if (footer.getInt() != MAGIC) {
+        throw new IOException("Malformed compressed stream: Bad footer");
+      }
+
+      this.index_offset =
+        stream_size - (long) FOOTER_SIZE - ((long) blocks * 8L);
+      if (!isWellFormed(
+        this.block_elements, blocks, this.index_offset, this.elements)) {
+        throw new IOException(
+          String.format(
+            "Malformed compressed stream: %d elements in %d blocks of %d",
+            Long.valueOf(this.elements),
+            Integer.valueOf(blocks),
+            Integer.valueOf(this.block_elements)));
+      }
+
+      final ByteBuffer index =
+        ByteBuffer.allocate(blocks * 8).order(ByteOrder.BIG_ENDIAN);
+      in_channel.position(this.index_offset);
+      readFully(in_channel, index);
+      index.flip();
+      this.offsets = new long[blocks];
+      for (int block = 0; block < blocks; ++block) {
+        this.offsets[block] = index.getLong();
+      }
+
+      this.input = ByteBuffer.allocate(0);
+    }
+
+    private void checkHeader(
+      final ByteBuffer header)
+      throws IOException
+    {
+      if (header.getInt() != MAGIC) {
+        throw new IOException("Not a compressed stream: Bad magic number");
+      }
+      final int version = header.getInt();
+      if (version != VERSION) {
+        throw new IOException(
+          String.format(
+            "Unsupported compressed stream version %d",
+            Integer.valueOf(version)));
+      }
+      if (header.getInt() != JPRABlockCodec.this.layout_hash) {
+        throw new IOException(
+          "Compressed stream was written for a different layout");
+      }
+    }
+
+    /**
+     * @return The total number of elements in the stream
+     */
+
+    public long elementCount()
+    {
+      return this.elements;
+    }
+
+    /**
+     * @return The number of blocks in the stream
+     */
+
+    public int blockCount()
+    {
+      return this.offsets.length;
+    }
+
+    /**
+     * @return The number of elements in each block (except possibly the
+     * last)
+     */
+
+    public int blockElements()
+    {
+      return this.block_elements;
+    }
+
+    /**
+     * @return The byte order of the elements that were written
+     */
+
+    public ByteOrder byteOrder()
+    {
+      return this.order;
+    }
+
+    /**
+     * @param block The block index
+     *
+     * @return The number of elements in the given block
+     */
+
+    public int blockElementCount(
+      final int block)
+    {
+      Objects.checkIndex(block, this.offsets.length);
+      final long start = (long) block * (long) this.block_elements;
+      return (int) Math.min(
+        (long) this.block_elements, this.elements - start);
+    }
+
+    /**
+     * Decompress the given block into {@code data}, starting at element
+     * {@code first}. The elements are written in the byte order in which
+     * they were compressed, regardless of the byte order of {@code data}.
+     * The position and limit of {@code data} are not modified.
+     *
+     * @param block The block index
+     * @param data  The buffer that will hold the elements
+     * @param first The index of the first element to be written
+     *
+     * @return The number of elements written
+     *
+     * @throws IOException If the block is malformed, or on I/O errors
+     */
+
+    public int readBlock(
+      final int block,
+      final ByteBuffer data,
+      final int first)
+      throws IOException
+    {
+      Objects.requireNonNull(data, "Data");
+      Objects.checkIndex(block, this.offsets.length);
+
+      final long start = this.offsets[block];
+      final long end = block + 1 < this.offsets.length
+        ? this.offsets[block + 1] : this.index_offset;
+      final long length = end - start;
+      if (start < (long) HEADER_SIZE
+        || length < (long) BLOCK_HEADER_SIZE
+        || length > (long) Integer.MAX_VALUE) {
+        throw new IOException(
+          String.format(
+            "Malformed compressed stream: Block %d has length %d",
+            Integer.valueOf(block),
+            Long.valueOf(length)));
+      }
+
+      if (this.input.capacity() < (int) length) {
+        this.input = ByteBuffer.allocate((int) length);
+      }
+      this.input.clear();
+      this.input.limit((int) length);
+      this.channel.position(start);
+      readFully(this.channel, this.input);
+      this.input.flip();
+
+      final ByteBuffer target = data.duplicate().order(this.order);
+      final int count;
+      try {
+        count = JPRABlockCodec.this.decompressBlock(this.input, target, first);
+      } catch (final IllegalArgumentException | BufferUnderflowException e) {
+        throw new IOException(
+          String.format(
+            "Malformed compressed stream: Block %d", Integer.valueOf(block)),
+          e);
+      }
+      if (count != this.blockElementCount(block)) {
+        throw new IOException(
+          String.format(
+            "Malformed compressed stream: Block %d has %d elements",
+            Integer.valueOf(block),
+            Integer.valueOf(count)));
+      }
+      return count;
+    }
+
+    /**
+     * Decompress every block into {@code data}, starting at element zero.
+     *
+     * @param data The buffer that will hold the elements
+     *
+     * @return The number of elements written
+     *
+     * @throws IOException If the stream is malformed, or on I/O errors
+     */
+
+    public long readAll(
+      final ByteBuffer data)
+      throws IOException
+    {
+      Objects.requireNonNull(data, "Data");
+      JPRABlockCodec.this.checkElements(
+        data, 0, (int) Math.min(this.elements, (long) Integer.MAX_VALUE));
+
+      int first = 0;
+      for (int block = 0; block < this.offsets.length; ++block) {
+        first += this.readBlock(block, data, first);
+      }
+      return (long) first;
+    }
+  }
+}
@@ -0,0 +1,556 @@
+/*
+ * Copyright © 2015 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.jpra.runtime.java;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>A pool of direct byte buffers, organized into power-of-two size
+ * classes.</p>
+ *
+ * <p>A request for {@code n} octets is served by a buffer from the smallest
+ * size class that can hold {@code n} octets. Released buffers are first kept
+ * in a small per-thread cache, and overflow into a lock-free stack shared
+ * by all threads. New buffers are allocated with
+ * {@link ByteBuffer#allocateDirect(int)} only when both are empty.</p>
+ *
+ * <p>Every buffer returned by the pool has a capacity exactly equal to its
+ * size class, has its first octet aligned to the pool's alignment, and has
+ * {@link ByteOrder#BIG_ENDIAN} byte order. Buffers that have been used
+ * before are not cleared, and so may contain data written by a previous
+ * user.</p>
+ *
+ * <p>If leak detection is enabled, the pool records the stack trace of each
+ * acquisition until the buffer is released, and rejects buffers that were
+ * not acquired from the pool or that have already been released. Leak
+ * detection is expensive and is intended for debugging.</p>
+ *
+ * <p>Instances of this class are thread-safe.</p>
+ */
+
+public final class JPRABufferPool
+{
+  private final int min_log2;
+  private final int max_log2;
+  private final int alignment;
+  private final int thread_cache_size;
+  private final AtomicReferenceArray<Node> shared;
+  private final ThreadLocal<ThreadCache> caches;
+  private final Map<ByteBuffer, Throwable> outstanding;
+  private final LongAdder allocations;
+
+  private JPRABufferPool(
+    final int in_min_log2,
+    final int in_max_log2,
+    final int in_alignment,
+    final int in_thread_cache_size,
+    final boolean in_leak_detection)
+  {
+    this.min_log2 = in_min_log2;
+    this.max_log2 = in_max_log2;
+    this.alignment = in_alignment;
+    this.thread_cache_size = in_thread_cache_size;
+
+    final int classes = (in_max_log2 - in_min_log2) + 1;
+    this.shared = new AtomicReferenceArray<>(classes);
+    this.caches = ThreadLocal.withInitial(
+      () -> new ThreadCache(classes, in_thread_cache_size));
+    this.outstanding =
+      in_leak_detection ? new IdentityHashMap<>(64) : null;
+    this.allocations = new LongAdder();
+  }
+
+  /**
+   * Create a new pool.
+   *
+   * @param min_size          The smallest size class in octets, rounded up
+   *                          to a power of two
+   * @param max_size          The largest size class in octets, rounded up to
+   *                          a power of two
+   * @param alignment         The alignment in octets of returned buffers;
+   *                          must be a power of two
+   * @param thread_cache_size The maximum number of buffers of each size
+   *                          class that are cached per thread
+   * @param leak_detection    {@code true} iff leak detection is enabled
+   *
+   * @return A new pool
+   */
+
+  public static JPRABufferPool create(
+    final int min_size,
+    final int max_size,
+    final int alignment,
+    final int thread_cache_size,
+    final boolean leak_detection)
+  {
+    if (min_size <= 0 || max_size < min_size || max_size > 0x4000_0000) {
+      throw new IllegalArgumentException(
+        String.format(
+          "Size classes [%d, %d] must satisfy 0 < min <= max <= 2^30",
+          Integer.valueOf(min_size),
+          Integer.valueOf(max_size)));
+    }
+    if (alignment <= 0 || Integer.bitCount(alignment) != 1) {
+      throw new IllegalArgumentException(
+        String.format(
+          "Alignment %d must be a positive power of two",
+          Integer.valueOf(alignment)));
+    }
+    if (thread_cache_size < 0) {
+      throw new IllegalArgumentException(
+        String.format(
+          "Thread cache size %d must be non-negative",
+          Integer.valueOf(thread_cache_size)));
+    }
+
+    return new JPRABufferPool(
+      log2Ceiling(min_size),
+      log2Ceiling(max_size),
+      alignment,
+      thread_cache_size,
+      leak_detection);
+  }
+
+  /**
+   * Create a new pool with size classes from 64 octets to 16 MiB, 64 octet
+   * alignment, and up to 8 cached buffers per size class per thread. Leak
+   * detection is enabled if the system property
+   * {@code com.io7m.jpra.runtime.java.JPRABufferPool.leakDetection} is
+   * {@code true}.
+   *
+   * @return A new pool
+   */
+
+  public static JPRABufferPool createDefault()
+  {
+    return create(
+      64,
+      16 * 1024 * 1024,
+      64,
+      8,
+      Boolean.getBoolean(
+        "com.io7m.jpra.runtime.java.JPRABufferPool.leakDetection"));
+  }
+
+  private static int log2Ceiling(
+    final int size)
+  {
+    return size <= 1 ? 0 : 32 - Integer.numberOfLeadingZeros(size - 1);
+  }
+
+  /**
+   * @return The smallest size class in octets
+   */
+
+  public int minimumSize()
+  {
+    return 1 << this.min_log2;
+  }
+
+  /**
+   * @return The largest size class in octets
+   */
+
+  public int maximumSize()
+  {
+    return 1 << this.max_log2;
+  }
+
+  private boolean isSizeClass(
+    final int capacity)
+  {
+    return Integer.bitCount(capacity) == 1
+      && capacity >= this.minimumSize()
+      && capacity <= this.maximumSize();
+  }
+
+  private boolean isPoolBuffer(
+    final ByteBuffer buffer)
+  {
+    return buffer.isDirect()
+      && this.isSizeClass(buffer.capacity())
+      && buffer.alignmentOffset(0, this.alignment) == 0;
+  }
+
+  /**
+   * @return The alignment in octets of returned buffers
+   */
+
+  public int alignment()
+  {
+    return this.alignment;
+  }
+
+  /**
+   * @return {@code true} iff leak detection is enabled
+   */
+
+  public boolean isLeakDetectionEnabled()
+  {
+    return this.outstanding != null;
+  }
+
+  /**
+   * @return The number of buffers that the pool has allocated with
+   * {@link ByteBuffer#allocateDirect(int)}
+   */
+
+  public long allocationCount()
+  {
+    return this.allocations.sum();
+  }
+
+  /**
+   * @param size A size in octets
+   *
+   * @return The capacity of the buffers that will be used to serve a request
+   * for {@code size} octets
+   */
+
+  public int sizeClassOf(
+    final int size)
+  {
+    return 1 << (this.classIndexOf(size) + this.min_log2);
+  }
+
+  private int classIndexOf(
+    final int size)
+  {
+    if (size <= 0 || size > this.maximumSize()) {
+      throw new IllegalArgumentException(
+        String.format(
+          "Size %d must be in the range [1, %d]",
+          Integer.valueOf(size),
+          Integer.valueOf(this.maximumSize())));
+    }
+    return Math.max(0, log2Ceiling(size) - this.min_log2);
+  }
+
+  /**
+   * Acquire a buffer of at least {@code size} octets.
+   *
+   * @param size The required size in octets
+   *
+   * @return A buffer
+   */
+
+  public ByteBuffer acquire(
+    final int size)
+  {
+    final int index = this.classIndexOf(size);
+
+    ByteBuffer buffer = this.caches.get().pop(index);
+    if (buffer == null) {
+      buffer = this.popShared(index);
+    }
+    if (buffer == null) {
+      buffer = this.allocate(index);
+    }
+
+    if (this.outstanding != null) {
+      synchronized (this.outstanding) {
+        this.outstanding.put(
+          buffer, new Throwable("Buffer acquired here"));
+      }
+    }
+    return buffer;
+  }
+
+  private ByteBuffer allocate(
+    final int index)
+  {
+    final int size = 1 << (index + this.min_log2);
+    final ByteBuffer raw =
+      ByteBuffer.allocateDirect(size + this.alignment - 1);
+    final ByteBuffer aligned = raw.alignedSlice(this.alignment);
+    aligned.limit(size);
+    this.allocations.increment();
+    return aligned.slice();
+  }
+
+  /**
+   * Release a buffer back to the pool. The buffer must not be used after it
+   * has been released.
+   *
+   * @param buffer A buffer returned by {@link #acquire(int)}
+   *
+   * @throws IllegalArgumentException If the buffer could not have come from
+   *                                  this pool or, with leak detection
+   *                                  enabled, the buffer is not currently
+   *                                  acquired from this pool
+   */
+
+  public void release(
+    final ByteBuffer buffer)
+    throws IllegalArgumentException
+  {
+    Objects.requireNonNull(buffer, "Buffer");
+
+    if (!this.isPoolBuffer(buffer)) {
+      throw new IllegalArgumentException(
+        "Buffer was not acquired from this pool");
+    }
+
+    if (this.outstanding != null) {
+      final Throwable site;
+      synchronized (this.outstanding) {
+        site = this.outstanding.remove(buffer);
+      }
+      if (site == null) {
+        throw new IllegalArgumentException(
+          "Buffer is not acquired from this pool or was already released");
+      }
+    }
+
+    buffer.clear();
+    buffer.order(ByteOrder.BIG_ENDIAN);
+
+    final int index = log2Ceiling(buffer.capacity()) - this.min_log2;
+    if (!this.caches.get().push(index, buffer)) {
+      this.pushShared(index, buffer);
+    }
+  }
+
+  /**
+   * Acquire a buffer large enough for {@code count} elements of
+   * {@code element_size} octets, and a checked cursor over exactly those
+   * elements. Closing the returned lease releases the buffer.
+   *
+   * @param cons         An element value constructor
+   * @param element_size The size in octets of an element
+   * @param count        The number of elements
+   * @param <T>          The type of elements
+   *
+   * @return A lease holding the buffer and cursor
+   */
+
+  public <T extends JPRAValueType> Lease<T> acquireCursor(
+    final JPRAValueByteBufferedConstructorType<T> cons,
+    final int element_size,
+    final int count)
+  {
+    Objects.requireNonNull(cons, "Constructor");
+    if (element_size <= 0 || count <= 0) {
+      throw new IllegalArgumentException(
+        String.format(
+          "Element size %d and count %d must be positive",
+          Integer.valueOf(element_size),
+          Integer.valueOf(count)));
+    }
+
+    final long size = (long) element_size * (long) count;
+    if (size > (long) this.maximumSize()) {
+      throw new IllegalArgumentException(
+        String.format(
+          "%d elements of size %d exceed the largest size class %d",
+          Integer.valueOf(count),
+          Integer.valueOf(element_size),
+          Integer.valueOf(this.maximumSize())));
+    }
+
+    final ByteBuffer buffer = this.acquire((int) size);
+    final ByteBuffer view = buffer.duplicate();
+    view.limit((int) size);
+    final ByteBuffer exact = view.slice().order(buffer.order());
+    return new Lease<>(
+      this, buffer, JPRACursor1DByteBufferedChecked.newCursor(exact, cons));
+  }
+
+  /**
+   * @return The acquisition sites of all buffers that are currently
+   * acquired, or an empty list if leak detection is disabled
+   */
+
+  public List<Throwable> outstanding()
+  {
+    if (this.outstanding == null) {
+      return List.of();
+    }
+    synchronized (this.outstanding) {
+      return Collections.unmodifiableList(
+        new ArrayList<>(this.outstanding.values()));
+    }
+  }
+
+  /**
+   * Discard all buffers held in the shared stacks, and in the calling
+   * thread's cache. Buffers cached by other threads are unaffected.
+   */
+
+  public void trim()
+  {
+    for (int index = 0; index < this.shared.length(); ++index) {
+      this.shared.set(index, null);
+    }
+    this.caches.get().clear();
+  }
+
+  private ByteBuffer popShared(
+    final int index)
+  {
+    while (true) {
+      final Node head = this.shared.get(index);
+      if (head == null) {
+        return null;
+      }
+      if (this.shared.compareAndSet(index, head, head.next)) {
+        return head.buffer;
+      }
+    }
+  }
+
+  private void pushShared(
+    final int index,
+    final ByteBuffer buffer)
+  {
+    final Node node = new Node(buffer);
+    while (true) {
+      final Node head = this.shared.get(index);
+      node.next = head;
+      if (this.shared.compareAndSet(index, head, node)) {
+        return;
+      }
+    }
+  }
+
+  private static final class Node
+  {
+    private final ByteBuffer buffer;
+    private Node next;
+
+    Node(
+      final ByteBuffer in_buffer)
+    {
+      this.buffer = in_buffer;
+    }
+  }
+
+  private static final class ThreadCache
+  {
+    private final ByteBuffer[][] stacks;
+    private final int[] counts;
+
+    ThreadCache(
+      final int classes,
+      final int size)
+    {
+      this.stacks = new ByteBuffer[classes][size];
+      this.counts = new int[classes];
+    }
+
+    ByteBuffer pop(
+      final int index)
+    {
+      final int count = this.counts[index];
+      if (count == 0) {
+        return null;
+      }
+      final ByteBuffer[] stack = this.stacks[index];
+      final ByteBuffer buffer = stack[count - 1];
+      stack[count - 1] = null;
+      this.counts[index] = count - 1;
+      return buffer;
+    }
+
+    boolean push(
+      final int index,
+      final ByteBuffer buffer)
+    {
+      final int count = this.counts[index];
+      final ByteBuffer[] stack = this.stacks[index];
+      if (count == stack.length) {
+        return false;
+      }
+      stack[count] = buffer;
+      this.counts[index] = count + 1;
+      return true;
+    }
+
+    void clear()
+    {
+      for (int index = 0; index < this.stacks.length; ++index) {
+        Arrays.fill(this.stacks[index], null);
+        this.counts[index] = 0;
+      }
+    }
+  }
+
+  /**
+   * A buffer acquired from a pool, along with a cursor over the elements it
+   * holds. The lease must be closed exactly once to return the buffer to
+   * the pool; subsequent calls to {@link #close()} have no effect.
+   *
+   * @param <T> The type of elements
+   */
+
+  public static final class Lease<T extends JPRAValueType>
+    implements AutoCloseable
+  {
+    private final JPRABufferPool pool;
+    private final ByteBuffer buffer;
+    private final JPRACursor1DType<T> cursor;
+    private boolean closed;
+
+    private Lease(
+      final JPRABufferPool in_pool,
+      final ByteBuffer in_buffer,
+      final JPRACursor1DType<T> in_cursor)
+    {
+      this.pool = in_pool;
+      this.buffer = in_buffer;
+      this.cursor = in_cursor;
+      this.closed = false;
+    }
+
+    /**
+     * @return The cursor over the leased elements
+     */
+
+    public JPRACursor1DType<T> cursor()
+    {
+      return this.cursor;
+    }
+
+    /**
+     * @return The pooled buffer, which may be larger than the elements
+     */
+
+    public ByteBuffer buffer()
+    {
+      return this.buffer;
+    }
+
+    @Override
+    public void close()
+    {
+      if (!this.closed) {
+        this.closed = true;
+        this.pool.release(this.buffer);
+      }
+    }
+  }
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright © 2015 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.jpra.runtime.java;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.IntFunction;
+
+/**
+ * <p>A fixed ring of {@code N} buffers used for double, triple, or
+ * {@code N}-buffered producer/consumer rotation.</p>
+ *
+ * <p>The buffer returned by {@link #current()} is the buffer that a producer
+ * is currently writing. The buffer returned by {@link #buffer(int)} with an
+ * age of {@code 1} is the buffer that was most recently completed, and so on.
+ * Calling {@link #rotate()} advances the ring. Cursors are typically moved
+ * between buffers with {@link JPRAByteBufferedRebindableType#rebind(ByteBuffer)}
+ * rather than being reconstructed.</p>
+ *
+ * <p>Instances of this class are not thread-safe.</p>
+ */
+
+public final class JPRABufferRing
+{
+  private final ByteBuffer[] buffers;
+  private int current;
+
+  private JPRABufferRing(
+    final ByteBuffer[] in_buffers)
+  {
+    this.buffers = in_buffers;
+    this.current = 0;
+  }
+
+  /**
+   * Create a ring over the given buffers. The first buffer in the list is the
+   * initial current buffer.
+   *
+   * @param in_buffers The buffers
+   *
+   * @return A new ring
+   */
+
+  public static JPRABufferRing create(
+    final List<ByteBuffer> in_buffers)
+  {
+    Objects.requireNonNull(in_buffers, "Buffers");
+    if (in_buffers.isEmpty()) {
+      throw new IllegalArgumentException("At least one buffer is required");
+    }
+
+    final ByteBuffer[] array = new ByteBuffer[in_buffers.size()];
+    for (int index = 0; index < array.length; ++index) {
+      array[index] = Objects.requireNonNull(in_buffers.get(index), "Buffer");
+    }
+    return new JPRABufferRing(array);
+  }
+
+  /**
+   * Create a ring of {@code count} freshly allocated buffers of {@code size}
+   * octets each.
+   *
+   * @param count     The number of buffers
+   * @param size      The size in octets of each buffer
+   * @param allocator A buffer allocator such as {@link ByteBuffer#allocateDirect(int)}
+   *
+   * @return A new ring
+   */
+
+  public static JPRABufferRing allocate(
+    final int count,
+    final int size,
+    final IntFunction<ByteBuffer> allocator)
+  {
+    Objects.requireNonNull(allocator, "Allocator");
+    if (count <= 0) {
+      throw new IllegalArgumentException(
+        String.format("Count %d must be positive", Integer.valueOf(count)));
+    }
+    if (size <= 0) {
+      throw new IllegalArgumentException(
+        String.format("Size %d must be positive", Integer.valueOf(size)));
+    }
+
+    final ByteBuffer[] array = new ByteBuffer[count];
+    for (int index = 0; index < count; ++index) {
+      array[index] =
+        Objects.requireNonNull(allocator.apply(size), "Allocated buffer");
+    }
+    return new JPRABufferRing(array);
+  }
+
+  /**
+   * @return The number of buffers in the ring
+   */
+
+  public int size()
+  {
+    return this.buffers.length;
+  }
+
+  /**
+   * @return The index of the current buffer within the ring
+   */
+
+  public int currentIndex()
+  {
+    return this.current;
+  }
+
+  /**
+   * @return The current buffer
+   */
+
+  public ByteBuffer current()
+  {
+    return this.buffers[this.current];
+  }
+
+  /**
+   * Retrieve the buffer that was current {@code age} rotations ago.
+   *
+   * @param age The age of the buffer, in the range {@code [0, size() - 1]}
+   *
+   * @return The buffer
+   *
+   * @throws IndexOutOfBoundsException Iff {@code age} is out of range
+   */
+
+  public ByteBuffer buffer(final int age)
+    throws IndexOutOfBoundsException
+  {
+    final int count = this.buffers.length;
+    if (age < 0 || age >= count) {
+      throw new IndexOutOfBoundsException(
+        String.format(
+          "Age %d must be within the range [0, %d]",
+          Integer.valueOf(age),
+          Integer.valueOf(count - 1)));
+    }
+    return this.buffers[(this.current - age + count) % count];
+  }
+
+  /**
+   * Advance the ring by one buffer.
+   *
+   * @return The new current buffer
+   */
+
+  public ByteBuffer rotate()
+  {
+    this.current = (this.current + 1) % this.buffers.length;
+    return this.buffers[this.current];
+  }
+
+  /**
+   * Advance the ring by one buffer, and rebind {@code target} to the new
+   * current buffer.
+   *
+   * @param target The object to rebind, typically a cursor
+   *
+   * @return The new current buffer
+   *
+   * @throws IllegalArgumentException Iff {@code target} rejects the buffer; the
+   *                                  ring is not advanced in this case
+   */
+
+  public ByteBuffer rotate(final JPRAByteBufferedRebindableType target)
+    throws IllegalArgumentException
+  {
+    Objects.requireNonNull(target, "Target");
+    final int next = (this.current + 1) % this.buffers.length;
+    final ByteBuffer buffer = this.buffers[next];
+    target.rebind(buffer);
+    this.current = next;
+    return buffer;
+  }
+
+  @Override
+  public String toString()
+  {
+    final StringBuilder sb = new StringBuilder(64);
+    sb.append("[JPRABufferRing ");
+    sb.append(this.current);
+    sb.append('/');
+    sb.append(this.buffers.length);
+    sb.append(']');
+    return sb.toString();
+  }
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright © 2015 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.jpra.runtime.java;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The type of objects that address a {@link ByteBuffer} and that can be
+ * re-targeted at a different buffer without being reconstructed.
+ */
+
+public interface JPRAByteBufferedRebindableType
+{
+  /**
+   * <p>Re-target this object (and any objects that it owns) at the given
+   * buffer.</p>
+   *
+   * <p>Implementations that perform bounds checking must validate the capacity
+   * of {@code buffer} and must throw {@link IllegalArgumentException} without
+   * modifying any state if the buffer is too small.</p>
+   *
+   * @param buffer The new buffer
+   *
+   * @throws IllegalArgumentException Iff the buffer is not suitable
+   */
+
+  void rebind(ByteBuffer buffer)
+    throws IllegalArgumentException;
+}
@@ -0,0 +1,555 @@
+/*
+ * Copyright © 2015 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.jpra.runtime.java;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import java.util.zip.CRC32C;
+
+/**
+ * <p>A self-describing container format for arrays of records.</p>
+ *
+ * <p>A container consists of a header, the element data, and an optional
+ * table of checksums. The header is stored in big-endian order and holds
+ * the fully qualified name of the element type, a 64-bit layout
+ * fingerprint, the byte order of the element data, the element size and
+ * count, and the alignment of the element data. The element data begins at
+ * the first multiple of the alignment following the header, and is stored
+ * exactly as it was in memory, so a loaded container can be accessed in
+ * place without any copying or decoding.</p>
+ *
+ * <p>If checksums are enabled, the element data is divided into blocks of
+ * a fixed number of elements and the CRC-32C of each block is stored, in
+ * big-endian order, immediately after the element data.</p>
+ *
+ * <p>The fingerprint is opaque to the container: it is expected to be a
+ * hash of the byte layout of the element type, such as the value returned
+ * by the {@code layoutFingerprint()} method of generated implementation
+ * classes, so that a container written by one version of a type is
+ * rejected by a loader built against an incompatible version. Checking
+ * compatibility therefore costs a single comparison, regardless of the
+ * complexity of the type.</p>
+ */
+
+public final class JPRAContainer
+{
+  private static final int MAGIC = 0x4A505246;
+  private static final int VERSION = 1;
+  private static final int FIXED_HEADER_SIZE = 48;
+  private static final int MAXIMUM_ALIGNMENT = 65536;
+  private static final int FLAG_LITTLE_ENDIAN = 0x1;
+
+  private JPRAContainer()
+  {
+    throw new AssertionError("Unreachable code!");
+  }
+
+  private static long align(
+    final long offset,
+    final int alignment)
+  {
+    final long a = (long) alignment;
+    return ((offset + a - 1L) / a) * a;
+  }
+
+  private static int checksumCount(
+    final long count,
+    final int checksum_block)
+  {
+    if (checksum_block == 0) {
+      return 0;
+    }
+    return (int) ((count + (long) checksum_block - 1L) / (long) checksum_block);
+  }
+
+  private static void checkParameters(
+    final int element_size,
+    final int alignment,
+    final int checksum_block)
+  {
+    if (element_size <= 0) {
+      throw new IllegalArgumentException(
+        String.format(
+          "Element size %d must be positive",
+          Integer.valueOf(element_size)));
+    }
+    if (alignment <= 0
+      || alignment > MAXIMUM_ALIGNMENT
+      || Integer.bitCount(alignment) != 1) {
+      throw new IllegalArgumentException(
+        String.format(
+          "Alignment %d must be a power of two in the range [1, %d]",
+          Integer.valueOf(alignment),
+          Integer.valueOf(MAXIMUM_ALIGNMENT)));
+    }
+    if (checksum_block < 0) {
+      throw new IllegalArgumentException(
+        String.format(
+          "Checksum block size %d must be non-negative",
+          Integer.valueOf(checksum_block)));
+    }
+  }
+
+  /**
+   * Write the elements {@code [0, count)} of {@code data} to a container.
+   * The element data is written in the byte order of {@code data}. The
+   * position and limit of {@code data} are not modified.
+   *
+   * @param channel        The output channel
+   * @param type_name      The fully qualified name of the element type
+   * @param fingerprint    The layout fingerprint of the element type
+   * @param data           The buffer holding the elements
+   * @param element_size   The size in octets of an element
+   * @param count          The number of elements
+   * @param alignment      The alignment in octets of the element data,
+   *                       which must be a power of two
+   * @param checksum_block The number of elements covered by each checksum,
+   *                       or {@code 0} to omit checksums
+   *
+   * @throws IOException On I/O errors
+   */
+
+  public static void write(
+    final WritableByteChannel channel,
+    final String type_name,
+    final long fingerprint,
+    final ByteBuffer data,
+    final int element_size,
+    final int count,
+    final int alignment,
+    final int checksum_block)
+    throws IOException
+  {
+    Objects.requireNonNull(channel, "Channel");
+    Objects.requireNonNull(type_name, "Type name");
+    Objects.requireNonNull(data, "Data");
+    checkParameters(element_size, alignment, checksum_block);
+
+    final long data_size = (long) count * (long) element_size;
+    if (count < 0 || data_size > (long) data.capacity()) {
+      throw new IndexOutOfBoundsException(
+        String.format(
+          "Elements [0, %d) of size %d do not fit in a buffer of size %d",
+          Integer.valueOf(count),
+          Integer.valueOf(element_size),
+          Integer.valueOf(data.capacity())));
+    }
+
+    final byte[] name = type_name.getBytes(StandardCharsets.UTF_8);
+    final long data_offset =
+      align((long) FIXED_HEADER_SIZE + (long) name.length, alignment);
+
+    final ByteBuffer header =
+      ByteBuffer.allocate(Math.toIntExact(data_offset))
+        .order(ByteOrder.BIG_ENDIAN);
+    header.putInt(MAGIC);
+    header.putInt(VERSION);
+    header.putInt(
+      data.order() == ByteOrder.LITTLE_ENDIAN ? FLAG_LITTLE_ENDIAN : 0);
+    header.putInt(alignment);
+    header.putLong(fingerprint);
+    header.putLong(data_offset);
+    header.putInt(element_size);
+    header.putInt(count);
+    header.putInt(checksum_block);
+    header.putInt(name.length);
+    header.put(name);
+    header.clear();
+    writeFully(channel, header);
+
+    final ByteBuffer view = data.duplicate();
+    view.limit((int) data_size);
+    view.position(0);
+    writeFully(channel, view);
+
+    final int checksums = checksumCount((long) count, checksum_block);
+    if (checksums > 0) {
+      final ByteBuffer table =
+        ByteBuffer.allocate(checksums * 4).order(ByteOrder.BIG_ENDIAN);
+      final CRC32C crc = new CRC32C();
+      for (int block = 0; block < checksums; ++block) {
+        table.putInt(
+          checksum(crc, data, 0L, element_size, count, checksum_block, block));
+      }
+      table.flip();
+      writeFully(channel, table);
+    }
+  }
+
+  private static int checksum(
+    final CRC32C crc,
+    final ByteBuffer buffer,
+    final long data_offset,
+    final int element_size,
+    final int count,
+    final int checksum_block,
+    final int block)
+  {
+    final long first = (long) block * (long) checksum_block;
+    final long last = Math.min((long) count, first + (long) checksum_block);
+    final ByteBuffer view = buffer.duplicate();
+    view.limit((int) (data_offset + (last * (long) element_size)));
+    view.position((int) (data_offset + (first * (long) element_size)));
+    crc.reset();
+    crc.update(view);
+    return (int) crc.getValue();
+  }
+
+  private static void writeFully(
+    final WritableByteChannel channel,
+    final ByteBuffer buffer)
+    throws IOException
+  {
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+  }
+
+  /**
+   * Memory-map a container and validate its header against the expected
+   * element type. Nothing other than the header is read; in particular,
+   * checksums are not verified (see {@link Mapped#verify()}).
+   *
+   * @param channel      The file channel
+   * @param mode         The mapping mode
+   * @param type_name    The expected fully qualified name of the element
+   *                     type
+   * @param fingerprint  The expected layout fingerprint of the element type
+   * @param element_size The size in octets of an element
+   * @param cons         An element value constructor
+   * @param <T>          The type of elements
+   *
+   * @return A mapped container
+   *
+   * @throws IOException              If the container is malformed, or
+   *                                  holds elements of a different type or
+   *                                  layout, or on I/O errors
+   * @throws IllegalArgumentException If {@code element_size} is not the
+   *                                  size of the values produced by
+   *                                  {@code cons}
+   */
+
+  public static <T extends JPRAValueType> Mapped<T> map(
+    final FileChannel channel,
+    final FileChannel.MapMode mode,
+    final String type_name,
+    final long fingerprint,
+    final int element_size,
+    final JPRAValueByteBufferedConstructorType<T> cons)
+    throws IOException
+  {
+    Objects.requireNonNull(channel, "Channel");
+    Objects.requireNonNull(mode, "Mode");
+    Objects.requireNonNull(type_name, "Type name");
+    Objects.requireNonNull(cons, "Constructor");
+
+    final long file_size = channel.size();
+    checkFileSize(file_size);
+
+    final ByteBuffer file = channel.map(mode, 0L, file_size);
+    final ByteBuffer header = file.duplicate().order(ByteOrder.BIG_ENDIAN);
+    checkIdentity(header, fingerprint);
+
+    final Header h = new Header(header);
+    if (h.element_size != element_size) {
+      throw new IOException(
+        String.format(
+          "Container element size %d does not match the expected size %d",
+          Integer.valueOf(h.element_size),
+          Integer.valueOf(element_size)));
+    }
+    if (!h.isWellFormed(file_size)) {
+      throw new IOException("Malformed container header");
+    }
+
+    final String received_name = readName(header, h.name_length);
+    if (!received_name.equals(type_name)) {
+      throw new IOException(
+        String.format(
+          "Container holds elements of type %s (expected %s)",
+          received_name,
+          type_name));
+    }
+
+    final ByteOrder order = (h.flags & FLAG_LITTLE_ENDIAN) != 0
+      ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN;
+
+    return new Mapped<>(
+      file,
+      order,
+      (int) h.data_offset,
+      element_size,
+      h.count,
+      h.checksum_block,
+      cons);
+  }
+
+  private static void checkFileSize(
+    final long file_size)
+    throws IOException
+  {
+    if (file_size > (long) Integer.MAX_VALUE) {
+      throw new IOException(
+        String.format(
+          "Container of size %d is too large to be mapped",
+          Long.valueOf(file_size)));
+    }
+    if (file_size < (long) FIXED_HEADER_SIZE) {
+      throw new IOException("Not a container: File is too short");
+    }
+  }
+
+  private static void checkIdentity(
+    final ByteBuffer header,
+    final long fingerprint)
+    throws IOException
+  {
+    if (header.getInt(0) != MAGIC) {
+      throw new IOException("Not a container: Bad magic number");
+    }
+    final int version = header.getInt(4);
+    if (version != VERSION) {
+      throw new IOException(
+        String.format(
+          "Unsupported container version %d", Integer.valueOf(version)));
+    }
+
+    final long received_fingerprint = header.getLong(16);
+    if (received_fingerprint != fingerprint) {
+      throw new IOException(
+        String.format(
+          "Container layout fingerprint 0x%016x does not match the "
+            + "expected fingerprint 0x%016x",
+          Long.valueOf(received_fingerprint),
+          Long.valueOf(fingerprint)));
+    }
+  }
+
+  private static String readName(
+    final ByteBuffer header,
+    final int name_length)
+  {
+    final ByteBuffer name = header.duplicate();
+    name.limit(FIXED_HEADER_SIZE + name_length);
+    name.position(FIXED_HEADER_SIZE);
+    return StandardCharsets.UTF_8.decode(name).toString();
+  }
+
+  /**
+   * The fixed fields of a container header.
+   */
+
+  private static final class Header
+  {
+    private final int flags;
+    private final int alignment;
+    private final long data_offset;
+    private final int element_size;
+    private final int count;
+    private final int checksum_block;
+    private final int name_length;
+
+    Header(
+      final ByteBuffer header)
+    {
+      this.flags = header.getInt(8);
+      this.alignment = header.getInt(12);
+      this.data_offset = header.getLong(24);
+      this.element_size = header.getInt(32);
+      this.count = header.getInt(36);
+      this.checksum_block = header.getInt(40);
+      this.name_length = header.getInt(44);
+    }
+
+    private boolean hasValidAlignment()
+    {
+      return this.alignment > 0 && Integer.bitCount(this.alignment) == 1;
+    }
+
+    private boolean hasValidCounts()
+    {
+      return this.count >= 0
+        && this.checksum_block >= 0
+        && this.name_length >= 0;
+    }
+
+    private boolean fitsIn(
+      final long file_size)
+    {
+      final long data_size = (long) this.count * (long) this.element_size;
+      final long checksums =
+        (long) checksumCount((long) this.count, this.checksum_block);
+      final long end = this.data_offset + data_size + (checksums * 4L);
+      final long name_end = (long) FIXED_HEADER_SIZE + (long) this.name_length;
+      return this.data_offset % (long) this.alignment == 0L
+        && this.data_offset >= name_end
+        && end <= file_size;
+    }
+
+    boolean isWellFormed(
+      final long file_size)
+    {
+      return this.hasValidAlignment()
+        && this.hasValidCounts()
+        && this.fitsIn(file_size);
+    }
+  }
+
+  /**
+   * A memory-mapped container.
+   *
+   * @param <T> The type of elements
+   */
+
+  public static final class Mapped<T extends JPRAValueType>
+  {
+    private final ByteBuffer file;
+    private final ByteBuffer data;
+    private final int data_offset;
+    private final int element_size;
+    private final int count;
+    private final int checksum_block;
+    private final JPRACursor1DType<T> cursor;
+
+    private Mapped(
+      final ByteBuffer in_file,
+      final ByteOrder in_order,
+      final int in_data_offset,
+      final int in_element_size,
+      final int in_count,
+      final int in_checksum_block,
+      final JPRAValueByteBufferedConstructorType<T> in_cons)
+    {
+      this.file = in_file;
+      this.data_offset = in_data_offset;
+      this.element_size = in_element_size;
+      this.count = in_count;
+      this.checksum_block = in_checksum_block;
+
+      final ByteBuffer view = in_file.duplicate();
+      view.limit(in_data_offset + (in_count * in_element_size));
+      view.position(in_data_offset);
+      this.data = view.slice().order(in_order);
+      this.cursor =
+        JPRACursor1DByteBufferedChecked.newCursor(this.data, in_cons);
+
+      final int view_size = this.cursor.getElementView().sizeOctets();
+      if (view_size != in_element_size) {
+        throw new IllegalArgumentException(
+          String.format(
+            "Element size %d does not match the size of constructed values %d",
+            Integer.valueOf(in_element_size),
+            Integer.valueOf(view_size)));
+      }
+    }
+
+    /**
+     * @return A cursor over the elements of the container
+     */
+
+    public JPRACursor1DType<T> cursor()
+    {
+      return this.cursor;
+    }
+
+    /**
+     * @return The element data, in the byte order in which it was written
+     */
+
+    public ByteBuffer data()
+    {
+      return this.data;
+    }
+
+    /**
+     * @return The number of elements in the container
+     */
+
+    public int elementCount()
+    {
+      return this.count;
+    }
+
+    /**
+     * @return The number of checksum blocks in the container
+     */
+
+    public int checksumBlockCount()
+    {
+      return checksumCount((long) this.count, this.checksum_block);
+    }
+
+    /**
+     * Verify a single checksum block.
+     *
+     * @param block The block index
+     *
+     * @return {@code true} iff the stored checksum matches the data
+     */
+
+    public boolean verifyBlock(
+      final int block)
+    {
+      Objects.checkIndex(block, this.checksumBlockCount());
+      return this.verifyBlock(new CRC32C(), block);
+    }
+
+    private boolean verifyBlock(
+      final CRC32C crc,
+      final int block)
+    {
+      final int table = this.data_offset + (this.count * this.element_size);
+      final int expected = this.file.duplicate()
+        .order(ByteOrder.BIG_ENDIAN)
+        .getInt(table + (block * 4));
+      final int received = checksum(
+        crc,
+        this.file,
+        (long) this.data_offset,
+        this.element_size,
+        this.count,
+        this.checksum_block,
+        block);
+      return expected == received;
+    }
+
+    /**
+     * Verify every checksum block. Containers written without checksums
+     * always verify successfully.
+     *
+     * @return The index of the first block whose checksum does not match,
+     * or {@code -1} if all blocks match
+     */
+
+    public int verify()
+    {
+      final CRC32C crc = new CRC32C();
+      final int blocks = this.checksumBlockCount();
+      for (int block = 0; block < blocks; ++block) {
+        if (!this.verifyBlock(crc, block)) {
+          return block;
+        }
+      }
+      return -1;
+    }
+  }
+}
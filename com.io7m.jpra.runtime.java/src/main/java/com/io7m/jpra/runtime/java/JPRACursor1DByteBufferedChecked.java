@@ -30,11 +30,12 @@ import java.util.Objects;
  */
 
 public final class JPRACursor1DByteBufferedChecked<T extends JPRAValueType>
-  implements JPRACursor1DType<T>
+  implements JPRACursor1DRebindableType<T>
 {
-  private final T instance;
+  private final JPRAValueByteBufferedConstructorType<T> cons;
+  private T instance;
   private final int element_size;
-  private final int index_max;
+  private int index_max;
   private final MutableLong byte_offset;
   private int index;
 
@@ -44,27 +45,35 @@ public final class JPRACursor1DByteBufferedChecked<T extends JPRAValueType>
   {
     Objects.requireNonNull(in_buffer, "Buffer");
     this.byte_offset = MutableLong.create();
+    this.cons = Objects.requireNonNull(in_cons, "Constructor");
     this.instance = Objects.requireNonNull(
-      Objects.requireNonNull(in_cons, "Constructor").create(in_buffer, this, 0),
-      "Constructed value");
+      this.cons.create(in_buffer, this, 0), "Constructed value");
 
     this.element_size = this.instance.sizeOctets();
     if (this.element_size <= 0) {
       throw new IllegalArgumentException("Element size must be positive");
     }
 
-    final int capacity = in_buffer.capacity();
-    if (capacity < this.element_size) {
+    this.index = 0;
+    this.index_max = indexMaxFor(in_buffer, this.element_size);
+  }
+
+  private static int indexMaxFor(
+    final ByteBuffer buffer,
+    final int element_size)
+  {
+    final int capacity = buffer.capacity();
+    if (capacity < element_size) {
       throw new IllegalArgumentException(
         String.format(
           "Buffer of size %d is too small for one element of size %d",
           Integer.valueOf(capacity),
-          Integer.valueOf(this.element_size)));
+          Integer.valueOf(element_size)));
     }
 
-    this.index = 0;
-    this.index_max = (capacity / this.element_size) - 1;
-    assert this.index_max >= 0;
+    final int max = (capacity / element_size) - 1;
+    assert max >= 0;
+    return max;
   }
 
   /**
@@ -78,7 +87,8 @@ public final class JPRACursor1DByteBufferedChecked<T extends JPRAValueType>
    * @return A new cursor
    */
 
-  public static <T extends JPRAValueType> JPRACursor1DType<T> newCursor(
+  public static <T extends JPRAValueType> JPRACursor1DRebindableType<T>
+  newCursor(
     final ByteBuffer in_buffer,
     final JPRAValueByteBufferedConstructorType<T> in_cons)
   {
@@ -118,6 +128,20 @@ public final class JPRACursor1DByteBufferedChecked<T extends JPRAValueType>
     }
   }
 
+  @Override
+  public void rebind(final ByteBuffer in_buffer)
+    throws IllegalArgumentException
+  {
+    Objects.requireNonNull(in_buffer, "Buffer");
+    final int new_index_max = indexMaxFor(in_buffer, this.element_size);
+
+    this.instance = JPRACursors.rebindView(
+      this.instance, in_buffer, this.cons, this);
+    this.index_max = new_index_max;
+    this.index = 0;
+    this.byte_offset.setValue(0L);
+  }
+
   @Override
   public T getElementView()
   {
@@ -30,9 +30,10 @@ import java.util.Objects;
  */
 
 public final class JPRACursor1DByteBufferedUnchecked<T extends JPRAValueType>
-  implements JPRACursor1DType<T>
+  implements JPRACursor1DRebindableType<T>
 {
-  private final T instance;
+  private final JPRAValueByteBufferedConstructorType<T> cons;
+  private T instance;
   private final int element_size;
   private final MutableLong byte_offset;
   private int index;
@@ -43,9 +44,9 @@ public final class JPRACursor1DByteBufferedUnchecked<T extends JPRAValueType>
   {
     Objects.requireNonNull(in_buffer, "Buffer");
     this.byte_offset = MutableLong.create();
+    this.cons = Objects.requireNonNull(in_cons, "Constructor");
     this.instance = Objects.requireNonNull(
-      Objects.requireNonNull(in_cons, "Constructor").create(in_buffer, this, 0),
-      "Constructed value");
+      this.cons.create(in_buffer, this, 0), "Constructed value");
 
     this.element_size = this.instance.sizeOctets();
     if (this.element_size <= 0) {
@@ -66,7 +67,8 @@ public final class JPRACursor1DByteBufferedUnchecked<T extends JPRAValueType>
    * @return A new cursor
    */
 
-  public static <T extends JPRAValueType> JPRACursor1DType<T> newCursor(
+  public static <T extends JPRAValueType> JPRACursor1DRebindableType<T>
+  newCursor(
     final ByteBuffer in_buffer,
     final JPRAValueByteBufferedConstructorType<T> in_cons)
   {
@@ -96,6 +98,16 @@ public final class JPRACursor1DByteBufferedUnchecked<T extends JPRAValueType>
     this.byte_offset.setValue(this.index * this.element_size);
   }
 
+  @Override
+  public void rebind(final ByteBuffer in_buffer)
+  {
+    Objects.requireNonNull(in_buffer, "Buffer");
+    this.instance = JPRACursors.rebindView(
+      this.instance, in_buffer, this.cons, this);
+    this.index = 0;
+    this.byte_offset.setValue(0L);
+  }
+
   @Override
   public T getElementView()
   {
@@ -0,0 +1,141 @@
+/*
+ * Copyright © 2015 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.jpra.runtime.java;
+
+import com.io7m.mutable.numbers.core.MutableLongType;
+
+import java.util.Objects;
+
+/**
+ * <p>A 1D cursor that delegates to an existing cursor and records the indices
+ * of elements that are written in a {@link JPRADirtySet}.</p>
+ *
+ * <p>Generated element views write directly to the underlying buffer, so the
+ * cursor cannot observe individual field writes. Instead, callers declare
+ * their intent to write by moving the cursor with {@link
+ * #setElementIndexForWriting(int)}, or by calling {@link #markDirty()} after
+ * modifying the current element. Moving the cursor with {@link
+ * #setElementIndex(int)} does not mark anything.</p>
+ *
+ * <p>The dirty set is independent of the buffer, and so rebinding the
+ * delegate cursor does not clear it.</p>
+ *
+ * @param <T> The type of addressed values
+ */
+
+public final class JPRACursor1DTracking<T> implements JPRACursor1DType<T>
+{
+  private final JPRACursor1DType<T> delegate;
+  private final JPRADirtySet dirty;
+
+  private JPRACursor1DTracking(
+    final JPRACursor1DType<T> in_delegate,
+    final JPRADirtySet in_dirty)
+  {
+    this.delegate = Objects.requireNonNull(in_delegate, "Delegate");
+    this.dirty = Objects.requireNonNull(in_dirty, "Dirty set");
+  }
+
+  /**
+   * Construct a new tracking cursor.
+   *
+   * @param in_delegate The cursor that will actually address elements
+   * @param in_dirty    The set that will receive dirty element indices
+   * @param <T>         The precise type of elements
+   *
+   * @return A new cursor
+   */
+
+  public static <T> JPRACursor1DTracking<T> newCursor(
+    final JPRACursor1DType<T> in_delegate,
+    final JPRADirtySet in_dirty)
+  {
+    return new JPRACursor1DTracking<>(in_delegate, in_dirty);
+  }
+
+  /**
+   * @return The set of dirty element indices
+   */
+
+  public JPRADirtySet dirtySet()
+  {
+    return this.dirty;
+  }
+
+  /**
+   * Mark the current element as dirty.
+   *
+   * @throws IndexOutOfBoundsException If the current index is outside of the
+   *                                   range of the dirty set
+   */
+
+  public void markDirty()
+    throws IndexOutOfBoundsException
+  {
+    this.dirty.mark(this.delegate.getElementIndex());
+  }
+
+  /**
+   * Point the cursor at element {@code index} and mark the element as dirty.
+   *
+   * @param index The index
+   *
+   * @throws IndexOutOfBoundsException If the index is out of range
+   */
+
+  public void setElementIndexForWriting(
+    final int index)
+    throws IndexOutOfBoundsException
+  {
+    this.delegate.setElementIndex(index);
+    this.dirty.mark(index);
+  }
+
+  @Override
+  public int getElementIndex()
+  {
+    return this.delegate.getElementIndex();
+  }
+
+  @Override
+  public void setElementIndex(final int index)
+    throws IndexOutOfBoundsException
+  {
+    this.delegate.setElementIndex(index);
+  }
+
+  @Override
+  public T getElementView()
+  {
+    return this.delegate.getElementView();
+  }
+
+  @Override
+  public MutableLongType getByteOffsetObservable()
+  {
+    return this.delegate.getByteOffsetObservable();
+  }
+
+  @Override
+  public String toString()
+  {
+    final StringBuilder sb = new StringBuilder("[CursorTracking ");
+    sb.append(this.delegate.getElementIndex());
+    sb.append(']');
+    return sb.toString();
+  }
+}
@@ -30,9 +30,10 @@ import java.util.Objects;
  */
 
 public final class JPRACursor2DByteBufferedChecked<T extends JPRAValueType>
-  implements JPRACursor2DType<T>
+  implements JPRACursor2DRebindableType<T>
 {
-  private final T instance;
+  private final JPRAValueByteBufferedConstructorType<T> cons;
+  private T instance;
   private final int element_size;
   private final int width;
   private final int height;
@@ -62,18 +63,24 @@ public final class JPRACursor2DByteBufferedChecked<T extends JPRAValueType>
     this.width = in_width;
     this.height = in_height;
 
+    this.cons = Objects.requireNonNull(in_cons, "Constructor");
     this.instance = Objects.requireNonNull(
-      Objects.requireNonNull(in_cons, "Constructor").create(in_buffer, this, 0),
-      "Constructed value");
+      this.cons.create(in_buffer, this, 0), "Constructed value");
 
     this.element_size = this.instance.sizeOctets();
     if (this.element_size <= 0) {
       throw new IllegalArgumentException("Element size must be positive");
     }
 
-    final long capacity = (long) in_buffer.capacity();
     this.row_byte_span = this.width * this.element_size;
-    final long max = (long) (this.height * this.row_byte_span);
+    this.checkCapacity(in_buffer);
+  }
+
+  private void checkCapacity(
+    final ByteBuffer in_buffer)
+  {
+    final long capacity = (long) in_buffer.capacity();
+    final long max = (long) this.height * (long) this.row_byte_span;
     if (max > capacity) {
       final StringBuilder sb = new StringBuilder(256);
       sb.append("Buffer is too small to hold the specified region.");
@@ -116,7 +123,8 @@ public final class JPRACursor2DByteBufferedChecked<T extends JPRAValueType>
    * @return A new cursor
    */
 
-  public static <T extends JPRAValueType> JPRACursor2DType<T> newCursor(
+  public static <T extends JPRAValueType> JPRACursor2DRebindableType<T>
+  newCursor(
     final ByteBuffer in_buffer,
     final int width,
     final int height,
@@ -126,6 +134,20 @@ public final class JPRACursor2DByteBufferedChecked<T extends JPRAValueType>
       in_buffer, width, height, in_cons);
   }
 
+  @Override
+  public void rebind(final ByteBuffer in_buffer)
+    throws IllegalArgumentException
+  {
+    Objects.requireNonNull(in_buffer, "Buffer");
+    this.checkCapacity(in_buffer);
+
+    this.instance = JPRACursors.rebindView(
+      this.instance, in_buffer, this.cons, this);
+    this.x = 0;
+    this.y = 0;
+    this.byte_offset.setValue(0L);
+  }
+
   @Override
   public T getElementView()
   {
@@ -30,9 +30,10 @@ import java.util.Objects;
  */
 
 public final class JPRACursor2DByteBufferedUnchecked<T extends JPRAValueType>
-  implements JPRACursor2DType<T>
+  implements JPRACursor2DRebindableType<T>
 {
-  private final T instance;
+  private final JPRAValueByteBufferedConstructorType<T> cons;
+  private T instance;
   private final int element_size;
   private final int width;
   private final int height;
@@ -62,9 +63,9 @@ public final class JPRACursor2DByteBufferedUnchecked<T extends JPRAValueType>
     this.width = in_width;
     this.height = in_height;
 
+    this.cons = Objects.requireNonNull(in_cons, "Constructor");
     this.instance = Objects.requireNonNull(
-      Objects.requireNonNull(in_cons, "Constructor").create(in_buffer, this, 0),
-      "Constructed value");
+      this.cons.create(in_buffer, this, 0), "Constructed value");
 
     this.element_size = this.instance.sizeOctets();
     if (this.element_size <= 0) {
@@ -87,7 +88,8 @@ public final class JPRACursor2DByteBufferedUnchecked<T extends JPRAValueType>
    * @return A new cursor
    */
 
-  public static <T extends JPRAValueType> JPRACursor2DType<T> newCursor(
+  public static <T extends JPRAValueType> JPRACursor2DRebindableType<T>
+  newCursor(
     final ByteBuffer in_buffer,
     final int width,
     final int height,
@@ -97,6 +99,17 @@ public final class JPRACursor2DByteBufferedUnchecked<T extends JPRAValueType>
       in_buffer, width, height, in_cons);
   }
 
+  @Override
+  public void rebind(final ByteBuffer in_buffer)
+  {
+    Objects.requireNonNull(in_buffer, "Buffer");
+    this.instance = JPRACursors.rebindView(
+      this.instance, in_buffer, this.cons, this);
+    this.x = 0;
+    this.y = 0;
+    this.byte_offset.setValue(0L);
+  }
+
   @Override
   public T getElementView()
   {
@@ -0,0 +1,42 @@
+/*
+ * Copyright © 2015 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.jpra.runtime.java;
+
+/**
+ * <p>The type of 2D cursors that can be re-targeted at a different
+ * {@link java.nio.ByteBuffer}.</p>
+ *
+ * <p>Rebinding a cursor with {@link #rebind(java.nio.ByteBuffer)} re-targets
+ * the cursor and its element view, and resets the element position
+ * to {@code (0, 0)}.</p>
+ *
+ * <p>If the element view implements {@link JPRAByteBufferedRebindableType},
+ * it is re-targeted in place and {@link #getElementView()} continues to
+ * return the same object. Otherwise, a new element view is constructed over
+ * the new buffer, and views obtained before rebinding must not be used.
+ * Rebinding a generated record view that has vector or matrix fields
+ * allocates new storage for each such field, because that storage cannot be
+ * re-targeted.</p>
+ *
+ * @param <T> The type of addressed elements
+ */
+
+public interface JPRACursor2DRebindableType<T>
+  extends JPRACursor2DType<T>, JPRAByteBufferedRebindableType
+{
+  // No extra methods
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright © 2015 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.jpra.runtime.java;
+
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
+/**
+ * Functions shared between cursor implementations.
+ */
+
+final class JPRACursors
+{
+  private JPRACursors()
+  {
+    throw new AssertionError("Unreachable code!");
+  }
+
+  /**
+   * Re-target the element view of a cursor at a new buffer. Views that
+   * implement {@link JPRAByteBufferedRebindableType} are rebound in place,
+   * and other views are replaced by a new view constructed over the buffer.
+   *
+   * @param view   The current element view
+   * @param buffer The new buffer
+   * @param cons   The constructor that produced {@code view}
+   * @param cursor The cursor that owns {@code view}
+   * @param <T>    The type of element views
+   *
+   * @return The element view to use from now on
+   */
+
+  static <T extends JPRAValueType> T rebindView(
+    final T view,
+    final ByteBuffer buffer,
+    final JPRAValueByteBufferedConstructorType<T> cons,
+    final JPRACursorByteReadableType cursor)
+  {
+    if (view instanceof JPRAByteBufferedRebindableType) {
+      ((JPRAByteBufferedRebindableType) view).rebind(buffer);
+      return view;
+    }
+
+    return Objects.requireNonNull(
+      cons.create(buffer, cursor, 0), "Constructed value");
+  }
+}
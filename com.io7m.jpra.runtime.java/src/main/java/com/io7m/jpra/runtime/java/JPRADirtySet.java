@@ -0,0 +1,396 @@
+/*
+ * Copyright © 2015 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.jpra.runtime.java;
+
+/**
+ * <p>A compact set of dirty element indices, used to track which elements of
+ * a buffer have been modified since the last synchronization.</p>
+ *
+ * <p>The set is stored as a bitmap with one bit per element, plus a summary
+ * bitmap with one bit per 64 elements. Iteration and clearing only visit the
+ * parts of the bitmap that the summary marks as non-empty, so the cost of
+ * synchronizing a large, mostly clean buffer is proportional to the number of
+ * dirty regions rather than the size of the buffer.</p>
+ *
+ * <p>Instances are not thread-safe.</p>
+ */
+
+public final class JPRADirtySet
+{
+  private final int element_count;
+  private final long[] words;
+  private final long[] summary;
+
+  private JPRADirtySet(
+    final int in_element_count)
+  {
+    this.element_count = in_element_count;
+    this.words = new long[(in_element_count + 63) >>> 6];
+    this.summary = new long[(this.words.length + 63) >>> 6];
+  }
+
+  /**
+   * Create a new, empty set able to track {@code element_count} elements.
+   *
+   * @param element_count The number of elements
+   *
+   * @return A new set
+   */
+
+  public static JPRADirtySet create(
+    final int element_count)
+  {
+    if (element_count < 0) {
+      throw new IllegalArgumentException(
+        String.format(
+          "Element count %d must be non-negative",
+          Integer.valueOf(element_count)));
+    }
+    return new JPRADirtySet(element_count);
+  }
+
+  /**
+   * @return The number of elements that can be tracked
+   */
+
+  public int elementCount()
+  {
+    return this.element_count;
+  }
+
+  private void checkIndex(
+    final int index)
+  {
+    if (index < 0 || index >= this.element_count) {
+      throw new IndexOutOfBoundsException(
+        String.format(
+          "Index %d must be in the range [0, %d)",
+          Integer.valueOf(index),
+          Integer.valueOf(this.element_count)));
+    }
+  }
+
+  /**
+   * Mark element {@code index} as dirty.
+   *
+   * @param index The element index
+   *
+   * @throws IndexOutOfBoundsException If the index is out of range
+   */
+
+  public void mark(
+    final int index)
+    throws IndexOutOfBoundsException
+  {
+    this.checkIndex(index);
+    final int w = index >>> 6;
+    this.words[w] |= 1L << index;
+    this.summary[w >>> 6] |= 1L << w;
+  }
+
+  /**
+   * Mark {@code count} elements starting at {@code first} as dirty.
+   *
+   * @param first The first element index
+   * @param count The number of elements
+   *
+   * @throws IndexOutOfBoundsException If the range is out of bounds
+   */
+
+  public void markRange(
+    final int first,
+    final int count)
+    throws IndexOutOfBoundsException
+  {
+    if (count < 0 || first < 0 || first > this.element_count - count) {
+      throw new IndexOutOfBoundsException(
+        String.format(
+          "Range [%d, %d + %d) must be within [0, %d)",
+          Integer.valueOf(first),
+          Integer.valueOf(first),
+          Integer.valueOf(count),
+          Integer.valueOf(this.element_count)));
+    }
+    if (count == 0) {
+      return;
+    }
+
+    final int last = first + count - 1;
+    final int w_first = first >>> 6;
+    final int w_last = last >>> 6;
+    for (int w = w_first; w <= w_last; ++w) {
+      long mask = -1L;
+      if (w == w_first) {
+        mask &= -1L << first;
+      }
+      if (w == w_last) {
+        mask &= -1L >>> (63 - (last & 63));
+      }
+      this.words[w] |= mask;
+      this.summary[w >>> 6] |= 1L << w;
+    }
+  }
+
+  /**
+   * @param index The element index
+   *
+   * @return {@code true} iff element {@code index} is dirty
+   *
+   * @throws IndexOutOfBoundsException If the index is out of range
+   */
+
+  public boolean isDirty(
+    final int index)
+    throws IndexOutOfBoundsException
+  {
+    this.checkIndex(index);
+    return (this.words[index >>> 6] & (1L << index)) != 0L;
+  }
+
+  /**
+   * @return {@code true} iff no elements are dirty
+   */
+
+  public boolean isEmpty()
+  {
+    for (final long s : this.summary) {
+      if (s != 0L) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @return The number of dirty elements
+   */
+
+  public int dirtyCount()
+  {
+    int count = 0;
+    for (int s = 0; s < this.summary.length; ++s) {
+      long bits = this.summary[s];
+      while (bits != 0L) {
+        final int w = (s << 6) + Long.numberOfTrailingZeros(bits);
+        count += Long.bitCount(this.words[w]);
+        bits &= bits - 1L;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Mark all elements as clean.
+   */
+
+  public void clear()
+  {
+    for (int s = 0; s < this.summary.length; ++s) {
+      long bits = this.summary[s];
+      while (bits != 0L) {
+        this.words[(s << 6) + Long.numberOfTrailingZeros(bits)] = 0L;
+        bits &= bits - 1L;
+      }
+      this.summary[s] = 0L;
+    }
+  }
+
+  /**
+   * Pass each maximal range of consecutive dirty elements to {@code
+   * receiver}, in ascending index order.
+   *
+   * @param receiver The range receiver
+   * @param <E>      The type of exceptions raised by the receiver
+   *
+   * @throws E If the receiver raises {@code E}
+   */
+
+  public <E extends Exception> void forEachRange(
+    final RangeReceiverType<E> receiver)
+    throws E
+  {
+    this.iterate(receiver, 1, false);
+  }
+
+  /**
+   * Pass each maximal range of consecutive dirty elements to {@code
+   * receiver} as a range of bytes, in ascending offset order. The receiver is
+   * passed the byte offset of the first element and the length in bytes of
+   * the range.
+   *
+   * @param element_size The size in bytes of elements
+   * @param receiver     The range receiver
+   * @param <E>          The type of exceptions raised by the receiver
+   *
+   * @throws E If the receiver raises {@code E}
+   */
+
+  public <E extends Exception> void forEachByteRange(
+    final int element_size,
+    final RangeReceiverType<E> receiver)
+    throws E
+  {
+    if (element_size <= 0) {
+      throw new IllegalArgumentException(
+        String.format(
+          "Element size %d must be positive",
+          Integer.valueOf(element_size)));
+    }
+    if ((long) this.element_count * (long) element_size > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException(
+        String.format(
+          "%d elements of size %d cannot be addressed with int offsets",
+          Integer.valueOf(this.element_count),
+          Integer.valueOf(element_size)));
+    }
+    this.iterate(receiver, element_size, false);
+  }
+
+  /**
+   * Pass each maximal range of consecutive dirty elements to {@code
+   * receiver}, in ascending index order, and mark the elements as clean. If
+   * the receiver raises an exception, the ranges that have not yet been
+   * delivered remain dirty. The range being delivered when the exception was
+   * raised also remains dirty.
+   *
+   * @param receiver The range receiver
+   * @param <E>      The type of exceptions raised by the receiver
+   *
+   * @throws E If the receiver raises {@code E}
+   */
+
+  public <E extends Exception> void drainRanges(
+    final RangeReceiverType<E> receiver)
+    throws E
+  {
+    this.iterate(receiver, 1, true);
+  }
+
+  private <E extends Exception> void iterate(
+    final RangeReceiverType<E> receiver,
+    final int scale,
+    final boolean clear)
+    throws E
+  {
+    int run_start = -1;
+    int run_end = -1;
+
+    for (int s = 0; s < this.summary.length; ++s) {
+      long s_bits = this.summary[s];
+      while (s_bits != 0L) {
+        final int w = (s << 6) + Long.numberOfTrailingZeros(s_bits);
+        s_bits &= s_bits - 1L;
+
+        long bits = this.words[w];
+        while (bits != 0L) {
+          final int low = Long.numberOfTrailingZeros(bits);
+          final int length = Long.numberOfTrailingZeros(~(bits >>> low));
+          final int start = (w << 6) + low;
+
+          if (start == run_end) {
+            run_end = start + length;
+          } else {
+            if (run_start >= 0) {
+              this.deliver(receiver, scale, clear, run_start, run_end);
+            }
+            run_start = start;
+            run_end = start + length;
+          }
+
+          final int high = low + length;
+          bits = high == 64 ? 0L : bits & (-1L << high);
+        }
+      }
+    }
+
+    if (run_start >= 0) {
+      this.deliver(receiver, scale, clear, run_start, run_end);
+    }
+  }
+
+  private <E extends Exception> void deliver(
+    final RangeReceiverType<E> receiver,
+    final int scale,
+    final boolean clear,
+    final int start,
+    final int end)
+    throws E
+  {
+    receiver.receive(start * scale, (end - start) * scale);
+    if (clear) {
+      this.clearRange(start, end);
+    }
+  }
+
+  private void clearRange(
+    final int start,
+    final int end)
+  {
+    final int last = end - 1;
+    final int w_first = start >>> 6;
+    final int w_last = last >>> 6;
+    for (int w = w_first; w <= w_last; ++w) {
+      long mask = -1L;
+      if (w == w_first) {
+        mask &= -1L << start;
+      }
+      if (w == w_last) {
+        mask &= -1L >>> (63 - (last & 63));
+      }
+      this.words[w] &= ~mask;
+      if (this.words[w] == 0L) {
+        this.summary[w >>> 6] &= ~(1L << w);
+      }
+    }
+  }
+
+  @Override
+  public String toString()
+  {
+    final StringBuilder sb = new StringBuilder(64);
+    sb.append("[JPRADirtySet elements=");
+    sb.append(this.element_count);
+    sb.append(" dirty=");
+    sb.append(this.dirtyCount());
+    sb.append(']');
+    return sb.toString();
+  }
+
+  /**
+   * A receiver of ranges.
+   *
+   * @param <E> The type of exceptions raised by the receiver
+   */
+
+  @FunctionalInterface
+  public interface RangeReceiverType<E extends Exception>
+  {
+    /**
+     * Receive a range.
+     *
+     * @param first The start of the range
+     * @param count The length of the range
+     *
+     * @throws E If required
+     */
+
+    void receive(
+      int first,
+      int count)
+      throws E;
+  }
+}
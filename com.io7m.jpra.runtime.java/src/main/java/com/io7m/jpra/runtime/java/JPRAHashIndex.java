@@ -0,0 +1,639 @@
+/*
+ * Copyright © 2015 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.jpra.runtime.java;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Objects;
+import java.util.stream.IntStream;
+
+/**
+ * <p>An off-heap hash index mapping the values of an integer field of a
+ * record type to the indices of the elements that hold them.</p>
+ *
+ * <p>The index does not store keys: it holds a table of {@code (hash,
+ * element index + 1)} pairs in a direct buffer of its own, using open
+ * addressing with linear probing, and reads keys from the data buffer when
+ * resolving collisions. A table slot occupies 8 octets, and the table is
+ * kept at most three-quarters full. The field is identified by its offset
+ * from the start of the record, as returned by the generated
+ * {@code meta*StaticOffsetFromType()} methods, and its size in octets.</p>
+ *
+ * <p>Keys are unique: inserting an element whose key is already present
+ * replaces the existing mapping.</p>
+ *
+ * <p>Instances of this class are not thread-safe, with the exception that
+ * {@link #rebuildParallel(int)} inserts elements from multiple threads
+ * internally.</p>
+ */
+
+public final class JPRAHashIndex
+{
+  private static final int MAGIC = 0x4A505849;
+  private static final int VERSION = 1;
+  private static final int HEADER_SIZE = 32;
+  private static final int SLOT_SIZE = 8;
+  private static final int MINIMUM_SLOTS = 16;
+  private static final VarHandle TABLE_INTS =
+    MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+
+  private final int element_size;
+  private final int key_offset;
+  private final int key_size;
+  private final boolean key_signed;
+  private ByteBuffer data;
+  private ByteBuffer table;
+  private int mask;
+  private int size;
+
+  private JPRAHashIndex(
+    final ByteBuffer in_data,
+    final int in_element_size,
+    final int in_key_offset,
+    final int in_key_size,
+    final boolean in_key_signed,
+    final int in_slots)
+  {
+    this.data = in_data;
+    this.element_size = in_element_size;
+    this.key_offset = in_key_offset;
+    this.key_size = in_key_size;
+    this.key_signed = in_key_signed;
+    this.table = allocateTable(in_slots);
+    this.mask = in_slots - 1;
+    this.size = 0;
+  }
+
+  /**
+   * Create a new, empty index.
+   *
+   * @param data         The buffer holding the indexed elements
+   * @param element_size The size in octets of an element
+   * @param key_offset   The offset in octets of the key field from the start
+   *                     of an element
+   * @param key_size     The size in octets of the key field: 1, 2, 4, or 8
+   * @param key_signed   {@code true} iff the key field is signed
+   * @param expected     The expected number of elements
+   *
+   * @return A new index
+   */
+
+  public static JPRAHashIndex create(
+    final ByteBuffer data,
+    final int element_size,
+    final int key_offset,
+    final int key_size,
+    final boolean key_signed,
+    final int expected)
+  {
+    Objects.requireNonNull(data, "Data");
+    checkKey(element_size, key_offset, key_size);
+    if (expected < 0) {
+      throw new IllegalArgumentException(
+        String.format(
+          "Expected size %d must be non-negative", Integer.valueOf(expected)));
+    }
+
+    return new JPRAHashIndex(
+      data,
+      element_size,
+      key_offset,
+      key_size,
+      key_signed,
+      slotsFor(expected));
+  }
+
+  private static void checkKey(
+    final int element_size,
+    final int key_offset,
+    final int key_size)
+  {
+    if (key_size != 1 && key_size != 2 && key_size != 4 && key_size != 8) {
+      throw new IllegalArgumentException(
+        String.format(
+          "Key size %d must be one of 1, 2, 4, or 8",
+          Integer.valueOf(key_size)));
+    }
+    if (element_size <= 0
+      || key_offset < 0
+      || key_offset + key_size > element_size) {
+      throw new IllegalArgumentException(
+        String.format(
+          "Key of size %d at offset %d does not fit in elements of size %d",
+          Integer.valueOf(key_size),
+          Integer.valueOf(key_offset),
+          Integer.valueOf(element_size)));
+    }
+  }
+
+  private static boolean isValidSlotCount(
+    final int slots)
+  {
+    return slots >= MINIMUM_SLOTS
+      && Integer.bitCount(slots) == 1
+      && slots <= Integer.MAX_VALUE / SLOT_SIZE + 1;
+  }
+
+  private static boolean isValidTableShape(
+    final int slots,
+    final int size)
+  {
+    return isValidSlotCount(slots) && size >= 0 && size <= slots;
+  }
+
+  private static int slotsFor(
+    final int count)
+  {
+    final long required = ((long) count * 4L + 2L) / 3L + 1L;
+    long slots = MINIMUM_SLOTS;
+    while (slots < required) {
+      slots <<= 1;
+    }
+    if (slots > (long) (Integer.MAX_VALUE / SLOT_SIZE + 1)) {
+      throw new IllegalArgumentException(
+        String.format("Too many elements: %d", Integer.valueOf(count)));
+    }
+    return (int) slots;
+  }
+
+  private static ByteBuffer allocateTable(
+    final int slots)
+  {
+    return ByteBuffer.allocateDirect(slots * SLOT_SIZE)
+      .order(ByteOrder.BIG_ENDIAN);
+  }
+
+  private static int hash(
+    final long key)
+  {
+    long h = key;
+    h ^= h >>> 33;
+    h *= 0xff51afd7ed558ccdL;
+    h ^= h >>> 33;
+    h *= 0xc4ceb9fe1a85ec53L;
+    h ^= h >>> 33;
+    return (int) h;
+  }
+
+  /**
+   * Rebind the index to a new data buffer, such as after the data has been
+   * copied to a larger buffer. The elements must be unchanged.
+   *
+   * @param in_data The new data buffer
+   */
+
+  public void rebind(
+    final ByteBuffer in_data)
+  {
+    this.data = Objects.requireNonNull(in_data, "Data");
+  }
+
+  /**
+   * @return The number of keys in the index
+   */
+
+  public int size()
+  {
+    return this.size;
+  }
+
+  /**
+   * @return The number of slots in the table
+   */
+
+  public int slots()
+  {
+    return this.mask + 1;
+  }
+
+  /**
+   * @return The size in octets of the table
+   */
+
+  public long sizeOctets()
+  {
+    return (long) this.table.capacity();
+  }
+
+  /**
+   * @param element The index of an element
+   *
+   * @return The key of the element at {@code element}
+   */
+
+  public long keyOf(
+    final int element)
+  {
+    final int offset = element * this.element_size + this.key_offset;
+    final ByteBuffer d = this.data;
+    switch (this.key_size) {
+      case 1:
+        return this.key_signed
+          ? (long) d.get(offset)
+          : (long) (d.get(offset) & 0xff);
+      case 2:
+        return this.key_signed
+          ? (long) d.getShort(offset)
+          : (long) (d.getShort(offset) & 0xffff);
+      case 4:
+        return this.key_signed
+          ? (long) d.getInt(offset)
+          : (long) d.getInt(offset) & 0xffffffffL;
+      default:
+        return d.getLong(offset);
+    }
+  }
+
+  private int slotHash(
+    final int slot)
+  {
+    return this.table.getInt(slot * SLOT_SIZE);
+  }
+
+  private int slotElement(
+    final int slot)
+  {
+    return this.table.getInt(slot * SLOT_SIZE + 4) - 1;
+  }
+
+  private void setSlot(
+    final int slot,
+    final int h,
+    final int element)
+  {
+    this.table.putInt(slot * SLOT_SIZE, h);
+    this.table.putInt(slot * SLOT_SIZE + 4, element + 1);
+  }
+
+  private int findSlot(
+    final long key,
+    final int h)
+  {
+    int slot = h & this.mask;
+    while (true) {
+      final int element = this.slotElement(slot);
+      if (element < 0) {
+        return -1;
+      }
+      if (this.slotHash(slot) == h && this.keyOf(element) == key) {
+        return slot;
+      }
+      slot = (slot + 1) & this.mask;
+    }
+  }
+
+  /**
+   * @param key A key
+   *
+   * @return The index of the element with the given key, or {@code -1} if
+   * there is no such element
+   */
+
+  public int find(
+    final long key)
+  {
+    final int slot = this.findSlot(key, hash(key));
+    return slot < 0 ? -1 : this.slotElement(slot);
+  }
+
+  /**
+   * Insert the element at {@code element}, keyed by its current key.
+   *
+   * @param element The index of an element
+   *
+   * @return The index of the element that previously had the same key, or
+   * {@code -1} if there was no such element
+   */
+
+  public int insert(
+    final int element)
+  {
+    if (element < 0) {
+      throw new IndexOutOfBoundsException(
+        String.format(
+          "Element index %d must be non-negative",
+          Integer.valueOf(element)));
+    }
+
+    if (this.size + 1 > (this.slots() / 4) * 3) {
+      this.resize(this.slots() * 2);
+    }
+
+    final long key = this.keyOf(element);
+    final int h = hash(key);
+    int slot = h & this.mask;
+    while (true) {
+      final int existing = this.slotElement(slot);
+      if (existing < 0) {
+        this.setSlot(slot, h, element);
+        ++this.size;
+        return -1;
+      }
+      if (this.slotHash(slot) == h && this.keyOf(existing) == key) {
+        this.setSlot(slot, h, element);
+        return existing;
+      }
+      slot = (slot + 1) & this.mask;
+    }
+  }
+
+  /**
+   * Remove the mapping for {@code key}.
+   *
+   * @param key A key
+   *
+   * @return The index of the element that had the key, or {@code -1} if
+   * there was no such element
+   */
+
+  public int remove(
+    final long key)
+  {
+    int hole = this.findSlot(key, hash(key));
+    if (hole < 0) {
+      return -1;
+    }
+
+    final int removed = this.slotElement(hole);
+    int slot = hole;
+    while (true) {
+      slot = (slot + 1) & this.mask;
+      final int element = this.slotElement(slot);
+      if (element < 0) {
+        break;
+      }
+
+      final int h = this.slotHash(slot);
+      final int home = h & this.mask;
+      final boolean movable = slot > hole
+        ? home <= hole || home > slot
+        : home <= hole && home > slot;
+      if (movable) {
+        this.setSlot(hole, h, element);
+        hole = slot;
+      }
+    }
+
+    this.table.putLong(hole * SLOT_SIZE, 0L);
+    --this.size;
+    return removed;
+  }
+
+  /**
+   * Remove all mappings.
+   */
+
+  public void clear()
+  {
+    final ByteBuffer t = this.table;
+    for (int offset = 0; offset < t.capacity(); offset += SLOT_SIZE) {
+      t.putLong(offset, 0L);
+    }
+    this.size = 0;
+  }
+
+  private void resize(
+    final int slots)
+  {
+    final ByteBuffer old_table = this.table;
+    final int old_slots = this.slots();
+
+    this.table = allocateTable(slots);
+    this.mask = slots - 1;
+    for (int old = 0; old < old_slots; ++old) {
+      final int element = old_table.getInt(old * SLOT_SIZE + 4) - 1;
+      if (element >= 0) {
+        final int h = old_table.getInt(old * SLOT_SIZE);
+        int slot = h & this.mask;
+        while (this.slotElement(slot) >= 0) {
+          slot = (slot + 1) & this.mask;
+        }
+        this.setSlot(slot, h, element);
+      }
+    }
+  }
+
+  private void resetFor(
+    final int count)
+  {
+    final int slots = slotsFor(count);
+    if (slots != this.slots()) {
+      this.table = allocateTable(slots);
+      this.mask = slots - 1;
+      this.size = 0;
+    } else {
+      this.clear();
+    }
+  }
+
+  /**
+   * Discard all mappings and insert the elements {@code [0, count)}. If
+   * several elements have the same key, the element with the highest index
+   * is retained.
+   *
+   * @param count The number of elements
+   */
+
+  public void rebuild(
+    final int count)
+  {
+    this.resetFor(count);
+    for (int element = 0; element < count; ++element) {
+      this.insert(element);
+    }
+  }
+
+  /**
+   * Discard all mappings and insert the elements {@code [0, count)} using
+   * the common fork/join pool. Slots are claimed with atomic
+   * compare-and-set operations, so the result is the same as that of
+   * {@link #rebuild(int)} apart from the order of keys within collision
+   * chains. The data buffer must not be modified during the rebuild.
+   *
+   * @param count The number of elements
+   */
+
+  public void rebuildParallel(
+    final int count)
+  {
+    this.resetFor(count);
+
+    final ByteBuffer t = this.table;
+    final int m = this.mask;
+    final int inserted = (int) IntStream.range(0, count)
+      .parallel()
+      .filter(element -> this.insertConcurrent(t, m, element))
+      .count();
+    this.size = inserted;
+  }
+
+  private boolean insertConcurrent(
+    final ByteBuffer t,
+    final int m,
+    final int element)
+  {
+    final long key = this.keyOf(element);
+    final int h = hash(key);
+    int slot = h & m;
+    while (true) {
+      final int index_offset = slot * SLOT_SIZE + 4;
+      final int current = (int) TABLE_INTS.getVolatile(t, index_offset);
+      if (current == 0) {
+        if (TABLE_INTS.compareAndSet(t, index_offset, 0, element + 1)) {
+          t.putInt(slot * SLOT_SIZE, h);
+          return true;
+        }
+        continue;
+      }
+
+      if (this.keyOf(current - 1) == key) {
+        if (current - 1 > element) {
+          return false;
+        }
+        if (TABLE_INTS.compareAndSet(t, index_offset, current, element + 1)) {
+          return false;
+        }
+        continue;
+      }
+      slot = (slot + 1) & m;
+    }
+  }
+
+  /**
+   * Write the index to the given channel, so that it can be stored
+   * alongside the file holding the data.
+   *
+   * @param channel The output channel
+   *
+   * @throws IOException On I/O errors
+   */
+
+  public void save(
+    final WritableByteChannel channel)
+    throws IOException
+  {
+    Objects.requireNonNull(channel, "Channel");
+
+    final ByteBuffer header =
+      ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.BIG_ENDIAN);
+    header.putInt(MAGIC);
+    header.putInt(VERSION);
+    header.putInt(this.element_size);
+    header.putInt(this.key_offset);
+    header.putInt(this.key_size);
+    header.putInt(this.key_signed ? 1 : 0);
+    header.putInt(this.slots());
+    header.putInt(this.size);
+    header.flip();
+    writeFully(channel, header);
+    writeFully(channel, this.table.duplicate().clear());
+  }
+
+  /**
+   * Read an index previously written with {@link #save(WritableByteChannel)}.
+   *
+   * @param channel      The input channel
+   * @param data         The buffer holding the indexed elements
+   * @param element_size The size in octets of an element
+   * @param key_offset   The offset in octets of the key field
+   * @param key_size     The size in octets of the key field
+   * @param key_signed   {@code true} iff the key field is signed
+   *
+   * @return An index
+   *
+   * @throws IOException If the index is malformed, or was built for a
+   *                     different layout, or on I/O errors
+   */
+
+  public static JPRAHashIndex load(
+    final ReadableByteChannel channel,
+    final ByteBuffer data,
+    final int element_size,
+    final int key_offset,
+    final int key_size,
+    final boolean key_signed)
+    throws IOException
+  {
+    Objects.requireNonNull(channel, "Channel");
+    Objects.requireNonNull(data, "Data");
+    checkKey(element_size, key_offset, key_size);
+
+    final ByteBuffer header =
+      ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.BIG_ENDIAN);
+    readFully(channel, header);
+    header.flip();
+
+    if (header.getInt() != MAGIC) {
+      throw new IOException("Not a hash index: Bad magic number");
+    }
+    final int version = header.getInt();
+    if (version != VERSION) {
+      throw new IOException(
+        String.format(
+          "Unsupported hash index version %d", Integer.valueOf(version)));
+    }
+    if (header.getInt() != element_size
+      || header.getInt() != key_offset
+      || header.getInt() != key_size
+      || (header.getInt() != 0) != key_signed) {
+      throw new IOException("Hash index was built for a different layout");
+    }
+
+    final int slots = header.getInt();
+    final int size = header.getInt();
+    if (!isValidTableShape(slots, size)) {
+      throw new IOException(
+        String.format(
+          "Malformed hash index: %d keys in %d slots",
+          Integer.valueOf(size),
+          Integer.valueOf(slots)));
+    }
+
+    final JPRAHashIndex index = new JPRAHashIndex(
+      data, element_size, key_offset, key_size, key_signed, slots);
+    readFully(channel, index.table.duplicate().clear());
+    index.size = size;
+    return index;
+  }
+
+  private static void writeFully(
+    final WritableByteChannel channel,
+    final ByteBuffer buffer)
+    throws IOException
+  {
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+  }
+
+  private static void readFully(
+    final ReadableByteChannel channel,
+    final ByteBuffer buffer)
+    throws IOException
+  {
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer) < 0) {
+        throw new IOException("Unexpected end of hash index");
+      }
+    }
+  }
+}
@@ -0,0 +1,516 @@
+/*
+ * Copyright © 2015 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.jpra.runtime.java;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.util.Objects;
+import java.util.stream.IntStream;
+
+/**
+ * <p>Conversion functions used by generated migrators, which rewrite arrays
+ * of one version of a record type as arrays of another version.</p>
+ *
+ * <p>Integer values are represented as {@code long} values: signed values
+ * are sign-extended, unsigned values of fewer than 64 bits are
+ * zero-extended, and unsigned 64-bit values are stored as their bit
+ * patterns. All narrowing conversions saturate rather than wrap, and
+ * conversions from floating point values round to the nearest integer and
+ * map {@code NaN} to zero.</p>
+ */
+
+public final class JPRAMigration
+{
+  private static final double TWO_63 = 9.223372036854775808E18;
+  private static final double TWO_64 = 1.8446744073709551616E19;
+
+  private JPRAMigration()
+  {
+    throw new AssertionError("Unreachable code!");
+  }
+
+  private static long maximumSigned(
+    final int bits)
+  {
+    return bits >= 64 ? Long.MAX_VALUE : (1L << (bits - 1)) - 1L;
+  }
+
+  private static long maximumUnsigned(
+    final int bits)
+  {
+    return bits >= 64 ? -1L : (1L << bits) - 1L;
+  }
+
+  /**
+   * @param value A signed value
+   * @param bits  The size in bits of the target type
+   *
+   * @return {@code value} clamped to the range of a signed {@code bits}-bit
+   * integer
+   */
+
+  public static long saturateSigned(
+    final long value,
+    final int bits)
+  {
+    final long max = maximumSigned(bits);
+    final long min = -max - 1L;
+    return Math.max(min, Math.min(max, value));
+  }
+
+  /**
+   * @param value A signed value
+   * @param bits  The size in bits of the target type
+   *
+   * @return {@code value} clamped to the range of an unsigned {@code
+   * bits}-bit integer
+   */
+
+  public static long saturateUnsigned(
+    final long value,
+    final int bits)
+  {
+    if (value < 0L) {
+      return 0L;
+    }
+    if (bits >= 64) {
+      return value;
+    }
+    return Math.min(maximumUnsigned(bits), value);
+  }
+
+  /**
+   * @param value An unsigned 64-bit value
+   * @param bits  The size in bits of the target type
+   *
+   * @return {@code value} clamped to the range of an unsigned {@code
+   * bits}-bit integer
+   */
+
+  public static long saturateUnsigned64(
+    final long value,
+    final int bits)
+  {
+    final long max = maximumUnsigned(bits);
+    return Long.compareUnsigned(value, max) > 0 ? max : value;
+  }
+
+  /**
+   * @param value An unsigned 64-bit value
+   * @param bits  The size in bits of the target type
+   *
+   * @return {@code value} clamped to the range of a signed {@code bits}-bit
+   * integer
+   */
+
+  public static long saturateUnsigned64ToSigned(
+    final long value,
+    final int bits)
+  {
+    if (value < 0L) {
+      return maximumSigned(bits);
+    }
+    return saturateSigned(value, bits);
+  }
+
+  /**
+   * @param value A real value
+   * @param bits  The size in bits of the target type
+   *
+   * @return {@code value} rounded to the nearest signed {@code bits}-bit
+   * integer
+   */
+
+  public static long doubleToSigned(
+    final double value,
+    final int bits)
+  {
+    if (Double.isNaN(value)) {
+      return 0L;
+    }
+
+    final double r = Math.rint(value);
+    final long max = maximumSigned(bits);
+    final long min = -max - 1L;
+    if (r >= (double) max) {
+      return max;
+    }
+    if (r <= (double) min) {
+      return min;
+    }
+    return (long) r;
+  }
+
+  /**
+   * @param value A real value
+   * @param bits  The size in bits of the target type
+   *
+   * @return {@code value} rounded to the nearest unsigned {@code bits}-bit
+   * integer
+   */
+
+  public static long doubleToUnsigned(
+    final double value,
+    final int bits)
+  {
+    if (Double.isNaN(value)) {
+      return 0L;
+    }
+
+    final double r = Math.rint(value);
+    if (r <= 0.0) {
+      return 0L;
+    }
+    if (bits < 64) {
+      final long max = maximumUnsigned(bits);
+      return r >= (double) max ? max : (long) r;
+    }
+    if (r >= TWO_64) {
+      return -1L;
+    }
+    if (r >= TWO_63) {
+      return (long) (r - TWO_63) | Long.MIN_VALUE;
+    }
+    return (long) r;
+  }
+
+  /**
+   * @param value An unsigned 64-bit value
+   *
+   * @return The nearest real value
+   */
+
+  public static double unsignedToDouble(
+    final long value)
+  {
+    if (value >= 0L) {
+      return (double) value;
+    }
+    return (double) ((value >>> 1) | (value & 1L)) * 2.0;
+  }
+
+  /**
+   * Convert a signed normalized integer to a real value. As with the
+   * generated accessors, negative values are divided by the magnitude of
+   * the minimum value and positive values by the maximum value, so that the
+   * extremes map exactly to {@code -1} and {@code 1} and zero maps to zero.
+   *
+   * @param raw  The raw value of a signed normalized integer
+   * @param bits The size in bits of the integer
+   *
+   * @return The real value in the range {@code [-1, 1]}
+   */
+
+  public static double fromSignedNormalized(
+    final long raw,
+    final int bits)
+  {
+    final double max = (double) maximumSigned(bits);
+    if (raw < 0L) {
+      return (double) raw / (max + 1.0);
+    }
+    return (double) raw / max;
+  }
+
+  /**
+   * @param raw  The raw value of an unsigned normalized integer
+   * @param bits The size in bits of the integer
+   *
+   * @return The real value in the range {@code [0, 1]}
+   */
+
+  public static double fromUnsignedNormalized(
+    final long raw,
+    final int bits)
+  {
+    return unsignedToDouble(raw) / unsignedToDouble(maximumUnsigned(bits));
+  }
+
+  /**
+   * @param value A real value, which is clamped to {@code [-1, 1]}
+   * @param bits  The size in bits of the target type
+   *
+   * @return The raw value of a signed normalized integer
+   */
+
+  public static long toSignedNormalized(
+    final double value,
+    final int bits)
+  {
+    final double c = Math.max(-1.0, Math.min(1.0, value));
+    final double max = (double) maximumSigned(bits);
+    if (c < 0.0) {
+      return doubleToSigned(c * (max + 1.0), bits);
+    }
+    return doubleToSigned(c * max, bits);
+  }
+
+  /**
+   * @param value A real value, which is clamped to {@code [0, 1]}
+   * @param bits  The size in bits of the target type
+   *
+   * @return The raw value of an unsigned normalized integer
+   */
+
+  public static long toUnsignedNormalized(
+    final double value,
+    final int bits)
+  {
+    final double c = Math.max(0.0, Math.min(1.0, value));
+    return doubleToUnsigned(
+      c * unsignedToDouble(maximumUnsigned(bits)), bits);
+  }
+
+  /**
+   * Read the container of a packed type, which is always stored in
+   * big-endian order.
+   *
+   * @param buffer The buffer
+   * @param offset The offset of the container
+   * @param octets The size in octets of the container
+   *
+   * @return The container
+   */
+
+  public static long getPacked(
+    final ByteBuffer buffer,
+    final int offset,
+    final int octets)
+  {
+    long r = 0L;
+    for (int index = 0; index < octets; ++index) {
+      r = (r << 8) | ((long) buffer.get(offset + index) & 0xffL);
+    }
+    return r;
+  }
+
+  /**
+   * Write the container of a packed type in big-endian order.
+   *
+   * @param buffer The buffer
+   * @param offset The offset of the container
+   * @param octets The size in octets of the container
+   * @param value  The container
+   */
+
+  public static void putPacked(
+    final ByteBuffer buffer,
+    final int offset,
+    final int octets,
+    final long value)
+  {
+    for (int index = 0; index < octets; ++index) {
+      final int shift = (octets - 1 - index) * 8;
+      buffer.put(offset + index, (byte) (value >>> shift));
+    }
+  }
+
+  /**
+   * Copy octets between buffers.
+   *
+   * @param src        The source buffer
+   * @param src_offset The source offset
+   * @param dst        The target buffer
+   * @param dst_offset The target offset
+   * @param length     The number of octets
+   */
+
+  public static void copy(
+    final ByteBuffer src,
+    final int src_offset,
+    final ByteBuffer dst,
+    final int dst_offset,
+    final int length)
+  {
+    int index = 0;
+    for (; index + 8 <= length; index += 8) {
+      dst.putLong(dst_offset + index, src.getLong(src_offset + index));
+    }
+    for (; index < length; ++index) {
+      dst.put(dst_offset + index, src.get(src_offset + index));
+    }
+  }
+
+  /**
+   * Set octets to zero.
+   *
+   * @param dst    The target buffer
+   * @param offset The target offset
+   * @param length The number of octets
+   */
+
+  public static void zero(
+    final ByteBuffer dst,
+    final int offset,
+    final int length)
+  {
+    int index = 0;
+    for (; index + 8 <= length; index += 8) {
+      dst.putLong(offset + index, 0L);
+    }
+    for (; index < length; ++index) {
+      dst.put(offset + index, (byte) 0);
+    }
+  }
+
+  private static int stringLength(
+    final ByteBuffer src,
+    final int src_offset,
+    final int src_max)
+  {
+    return Math.min(src_max, Math.max(0, src.getInt(src_offset)));
+  }
+
+  /**
+   * Copy a string between two string fields with the same encoding. If the
+   * target is shorter than the source string, the string is truncated; for
+   * UTF-8 strings, truncation never splits an encoded character.
+   *
+   * @param src        The source buffer
+   * @param src_offset The offset of the source string field
+   * @param src_max    The maximum length of the source string
+   * @param dst        The target buffer
+   * @param dst_offset The offset of the target string field
+   * @param dst_max    The maximum length of the target string
+   * @param utf8       {@code true} iff the strings are UTF-8 encoded
+   */
+
+  public static void copyString(
+    final ByteBuffer src,
+    final int src_offset,
+    final int src_max,
+    final ByteBuffer dst,
+    final int dst_offset,
+    final int dst_max,
+    final boolean utf8)
+  {
+    final int length = stringLength(src, src_offset, src_max);
+    int n = Math.min(length, dst_max);
+    if (utf8 && n < length) {
+      while (n > 0 && (src.get(src_offset + 4 + n) & 0xc0) == 0x80) {
+        --n;
+      }
+    }
+
+    dst.putInt(dst_offset, n);
+    copy(src, src_offset + 4, dst, dst_offset + 4, n);
+    zero(dst, dst_offset + 4 + n, dst_max - n);
+  }
+
+  /**
+   * Copy a string between two string fields with different encodings. If
+   * the target is too short to hold the re-encoded string, the string is
+   * truncated at a character boundary. Unmappable characters are replaced.
+   *
+   * @param src         The source buffer
+   * @param src_offset  The offset of the source string field
+   * @param src_max     The maximum length of the source string
+   * @param src_charset The encoding of the source string
+   * @param dst         The target buffer
+   * @param dst_offset  The offset of the target string field
+   * @param dst_max     The maximum length of the target string
+   * @param dst_charset The encoding of the target string
+   */
+
+  public static void transcodeString(
+    final ByteBuffer src,
+    final int src_offset,
+    final int src_max,
+    final Charset src_charset,
+    final ByteBuffer dst,
+    final int dst_offset,
+    final int dst_max,
+    final Charset dst_charset)
+  {
+    final int length = stringLength(src, src_offset, src_max);
+    final byte[] bytes = new byte[length];
+    for (int index = 0; index < length; ++index) {
+      bytes[index] = src.get(src_offset + 4 + index);
+    }
+
+    final CharBuffer chars = src_charset.decode(ByteBuffer.wrap(bytes));
+    final CharsetEncoder encoder = dst_charset.newEncoder()
+      .onMalformedInput(CodingErrorAction.REPLACE)
+      .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    final ByteBuffer out = ByteBuffer.allocate(dst_max);
+    encoder.encode(chars, out, true);
+
+    final int n = out.position();
+    dst.putInt(dst_offset, n);
+    for (int index = 0; index < n; ++index) {
+      dst.put(dst_offset + 4 + index, out.get(index));
+    }
+    zero(dst, dst_offset + 4 + n, dst_max - n);
+  }
+
+  /**
+   * Divide the range {@code [from, to)} into consecutive subranges of at
+   * most {@code task_size} elements, and pass each subrange to {@code f}
+   * using the common fork/join pool. Subranges do not overlap, so {@code f}
+   * may write to disjoint regions of a buffer without synchronization.
+   *
+   * @param from      The start of the range (inclusive)
+   * @param to        The end of the range (exclusive)
+   * @param task_size The maximum number of elements per subrange
+   * @param f         The function
+   */
+
+  public static void forEachRangeParallel(
+    final int from,
+    final int to,
+    final int task_size,
+    final RangeConsumerType f)
+  {
+    Objects.requireNonNull(f, "Function");
+    Objects.checkFromToIndex(from, to, Integer.MAX_VALUE);
+    if (task_size <= 0) {
+      throw new IllegalArgumentException(
+        String.format(
+          "Task size %d must be positive", Integer.valueOf(task_size)));
+    }
+
+    final long count = (long) to - (long) from;
+    final int tasks = (int) ((count + (long) task_size - 1L) / task_size);
+    IntStream.range(0, tasks).parallel().forEach(task -> {
+      final long start = (long) from + ((long) task * (long) task_size);
+      final long end = Math.min((long) to, start + (long) task_size);
+      f.accept((int) start, (int) end);
+    });
+  }
+
+  /**
+   * A function that accepts a range of element indices.
+   */
+
+  @FunctionalInterface
+  public interface RangeConsumerType
+  {
+    /**
+     * Accept a range.
+     *
+     * @param from The start of the range (inclusive)
+     * @param to   The end of the range (exclusive)
+     */
+
+    void accept(
+      int from,
+      int to);
+  }
+}
@@ -0,0 +1,539 @@
+/*
+ * Copyright © 2015 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.jpra.runtime.java;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * <p>A description of the significant octets of a type: the octets that
+ * remain after removing {@code padding-octets} and {@code padding-bits}.</p>
+ *
+ * <p>A layout consists of a sorted set of disjoint octet ranges that are
+ * entirely significant, a sorted set of individual octets that are only
+ * partially significant (because they contain padding bits), and the
+ * positions of any strings. The length prefix of a string is significant,
+ * but of the string data only the first {@code length} octets are; the
+ * octets past the current length are stale and are ignored. Layouts are
+ * produced by the code generator and are used to compare and hash values
+ * directly on their underlying bytes.</p>
+ *
+ * <p>The hash function is defined over the significant octets only: the
+ * ranges, then the partially significant octets, then the used data of each
+ * string. It depends on nothing but those octets, so hashes do not vary
+ * between JVMs and may be persisted and exchanged between processes.
+ * Multi-octet values are stored in the byte order of the buffer through
+ * which they were written, however, so the same logical value written in
+ * two different byte orders has different octets: such values compare as
+ * unequal and, in general, have different hashes.</p>
+ */
+
+public final class JPRAPayloadLayout
+{
+  private static final int BULK_THRESHOLD = 64;
+  private static final long HASH_SEED = 0x6a70726148617368L;
+  private static final long HASH_C1 = 0x87c37b91114253d5L;
+  private static final long HASH_C2 = 0x4cf5ad432745937fL;
+
+  private final int size;
+  private final int[] ranges;
+  private final int[] partial_offsets;
+  private final byte[] partial_masks;
+  private final int[] strings;
+
+  private JPRAPayloadLayout(
+    final int in_size,
+    final int[] in_ranges,
+    final int[] in_partial_offsets,
+    final byte[] in_partial_masks,
+    final int[] in_strings)
+  {
+    this.size = in_size;
+    this.ranges = in_ranges;
+    this.partial_offsets = in_partial_offsets;
+    this.partial_masks = in_partial_masks;
+    this.strings = in_strings;
+  }
+
+  /**
+   * Construct a layout for a type that contains no strings.
+   *
+   * @param size            The size in octets of the type
+   * @param ranges          Pairs of {@code (offset, length)} describing the
+   *                        entirely significant octet ranges, in ascending
+   *                        offset order
+   * @param partial_offsets The offsets of partially significant octets, in
+   *                        ascending order
+   * @param partial_masks   The significant bits of each partially significant
+   *                        octet
+   *
+   * @return A new layout
+   *
+   * @see #of(int, int[], int[], byte[], int[])
+   */
+
+  public static JPRAPayloadLayout of(
+    final int size,
+    final int[] ranges,
+    final int[] partial_offsets,
+    final byte[] partial_masks)
+  {
+    return of(size, ranges, partial_offsets, partial_masks, new int[0]);
+  }
+
+  /**
+   * Construct a layout.
+   *
+   * @param size            The size in octets of the type
+   * @param ranges          Pairs of {@code (offset, length)} describing the
+   *                        entirely significant octet ranges, in ascending
+   *                        offset order
+   * @param partial_offsets The offsets of partially significant octets, in
+   *                        ascending order
+   * @param partial_masks   The significant bits of each partially significant
+   *                        octet
+   * @param strings         Pairs of {@code (offset, maximum length)}
+   *                        describing the strings, in ascending offset order.
+   *                        The offset is that of the 4 octet length prefix,
+   *                        which is expected to be covered by {@code ranges};
+   *                        the string data follows the prefix.
+   *
+   * @return A new layout
+   */
+
+  public static JPRAPayloadLayout of(
+    final int size,
+    final int[] ranges,
+    final int[] partial_offsets,
+    final byte[] partial_masks,
+    final int[] strings)
+  {
+    Objects.requireNonNull(ranges, "Ranges");
+    Objects.requireNonNull(partial_offsets, "Partial offsets");
+    Objects.requireNonNull(partial_masks, "Partial masks");
+    Objects.requireNonNull(strings, "Strings");
+
+    if (size <= 0) {
+      throw new IllegalArgumentException(
+        String.format("Size %d must be positive", Integer.valueOf(size)));
+    }
+    if (ranges.length % 2 != 0) {
+      throw new IllegalArgumentException(
+        "Ranges must be specified as (offset, length) pairs");
+    }
+    if (partial_offsets.length != partial_masks.length) {
+      throw new IllegalArgumentException(
+        "Each partial offset must have exactly one mask");
+    }
+
+    checkRanges(size, ranges);
+    checkPartials(size, partial_offsets);
+    checkStrings(size, strings);
+
+    return new JPRAPayloadLayout(
+      size,
+      ranges.clone(),
+      partial_offsets.clone(),
+      partial_masks.clone(),
+      strings.clone());
+  }
+
+  private static void checkRanges(
+    final int size,
+    final int[] ranges)
+  {
+    int previous_end = 0;
+    for (int index = 0; index < ranges.length; index += 2) {
+      final int offset = ranges[index];
+      final int length = ranges[index + 1];
+      if (offset < previous_end || length <= 0 || offset + length > size) {
+        throw new IllegalArgumentException(
+          String.format(
+            "Range (%d, %d) is unordered, empty, or exceeds size %d",
+            Integer.valueOf(offset),
+            Integer.valueOf(length),
+            Integer.valueOf(size)));
+      }
+      previous_end = offset + length;
+    }
+  }
+
+  private static void checkPartials(
+    final int size,
+    final int[] partial_offsets)
+  {
+    int previous = -1;
+    for (int index = 0; index < partial_offsets.length; ++index) {
+      final int offset = partial_offsets[index];
+      if (offset <= previous || offset >= size) {
+        throw new IllegalArgumentException(
+          String.format(
+            "Partial offset %d is unordered or exceeds size %d",
+            Integer.valueOf(offset),
+            Integer.valueOf(size)));
+      }
+      previous = offset;
+    }
+  }
+
+  private static void checkStrings(
+    final int size,
+    final int[] strings)
+  {
+    if (strings.length % 2 != 0) {
+      throw new IllegalArgumentException(
+        "Strings must be specified as (offset, maximum length) pairs");
+    }
+
+    int previous = -1;
+    for (int index = 0; index < strings.length; index += 2) {
+      final int offset = strings[index];
+      final int length = strings[index + 1];
+      if (offset <= previous || length < 0 || offset + 4 + length > size) {
+        throw new IllegalArgumentException(
+          String.format(
+            "String (%d, %d) is unordered, negative, or exceeds size %d",
+            Integer.valueOf(offset),
+            Integer.valueOf(length),
+            Integer.valueOf(size)));
+      }
+      previous = offset;
+    }
+  }
+
+  /**
+   * @return The size in octets of the type
+   */
+
+  public int size()
+  {
+    return this.size;
+  }
+
+  /**
+   * @return The maximum number of significant octets, counting partially
+   * significant octets as significant and strings at their maximum length
+   */
+
+  public int significantOctets()
+  {
+    int count = this.partial_offsets.length;
+    for (int index = 0; index < this.ranges.length; index += 2) {
+      count += this.ranges[index + 1];
+    }
+    for (int index = 0; index < this.strings.length; index += 2) {
+      count += this.strings[index + 1];
+    }
+    return count;
+  }
+
+  /**
+   * Determine the offset of the first significant octet that differs between
+   * the value at {@code a_offset} in {@code a} and the value at {@code
+   * b_offset} in {@code b}.
+   *
+   * @param a        The first buffer
+   * @param a_offset The offset of the first value
+   * @param b        The second buffer
+   * @param b_offset The offset of the second value
+   *
+   * @return The offset relative to the start of the values of the first
+   * differing octet, or {@code -1} if the values are equal
+   */
+
+  public int mismatch(
+    final ByteBuffer a,
+    final int a_offset,
+    final ByteBuffer b,
+    final int b_offset)
+  {
+    final int in_ranges = this.mismatchRanges(a, a_offset, b, b_offset);
+    final int in_partials =
+      this.mismatchPartials(a, a_offset, b, b_offset, in_ranges);
+    return this.mismatchStrings(a, a_offset, b, b_offset, in_partials);
+  }
+
+  private int mismatchRanges(
+    final ByteBuffer a,
+    final int a_offset,
+    final ByteBuffer b,
+    final int b_offset)
+  {
+    for (int index = 0; index < this.ranges.length; index += 2) {
+      final int offset = this.ranges[index];
+      final int length = this.ranges[index + 1];
+      final int m =
+        mismatchRange(a, a_offset + offset, b, b_offset + offset, length);
+      if (m >= 0) {
+        return offset + m;
+      }
+    }
+    return -1;
+  }
+
+  /*
+   * The partial and string comparisons only look for a difference earlier
+   * than the one already found, if any.
+   */
+
+  private int mismatchPartials(
+    final ByteBuffer a,
+    final int a_offset,
+    final ByteBuffer b,
+    final int b_offset,
+    final int found)
+  {
+    for (int index = 0; index < this.partial_offsets.length; ++index) {
+      final int offset = this.partial_offsets[index];
+      if (found >= 0 && offset > found) {
+        break;
+      }
+      final int mask = (int) this.partial_masks[index];
+      final int x = (int) a.get(a_offset + offset) & mask;
+      final int y = (int) b.get(b_offset + offset) & mask;
+      if (x != y) {
+        return offset;
+      }
+    }
+    return found;
+  }
+
+  private int mismatchStrings(
+    final ByteBuffer a,
+    final int a_offset,
+    final ByteBuffer b,
+    final int b_offset,
+    final int found)
+  {
+    int result = found;
+    for (int index = 0; index < this.strings.length; index += 2) {
+      final int data = this.strings[index] + 4;
+      if (result >= 0 && data >= result) {
+        break;
+      }
+
+      /*
+       * If the length prefixes differ, the prefixes themselves have already
+       * been reported as differing by the range comparison.
+       */
+
+      final int max = this.strings[index + 1];
+      final int length = Math.min(
+        usedLength(a, a_offset + this.strings[index], max),
+        usedLength(b, b_offset + this.strings[index], max));
+      final int m =
+        mismatchRange(a, a_offset + data, b, b_offset + data, length);
+      if (m >= 0 && (result < 0 || data + m < result)) {
+        result = data + m;
+      }
+    }
+    return result;
+  }
+
+  private static int usedLength(
+    final ByteBuffer buffer,
+    final int offset,
+    final int max)
+  {
+    return Math.min(max, Math.max(0, buffer.getInt(offset)));
+  }
+
+  /**
+   * @param a        The first buffer
+   * @param a_offset The offset of the first value
+   * @param b        The second buffer
+   * @param b_offset The offset of the second value
+   *
+   * @return {@code true} iff all significant octets of the two values are
+   * equal
+   */
+
+  public boolean equal(
+    final ByteBuffer a,
+    final int a_offset,
+    final ByteBuffer b,
+    final int b_offset)
+  {
+    return this.mismatch(a, a_offset, b, b_offset) == -1;
+  }
+
+  private static int mismatchRange(
+    final ByteBuffer a,
+    final int a_offset,
+    final ByteBuffer b,
+    final int b_offset,
+    final int length)
+  {
+    if (length >= BULK_THRESHOLD) {
+      final ByteBuffer av = a.duplicate();
+      av.limit(a_offset + length);
+      av.position(a_offset);
+      final ByteBuffer bv = b.duplicate();
+      bv.limit(b_offset + length);
+      bv.position(b_offset);
+      return av.mismatch(bv);
+    }
+
+    int index = 0;
+    while (index + 8 <= length) {
+      if (a.getLong(a_offset + index) != b.getLong(b_offset + index)) {
+        break;
+      }
+      index += 8;
+    }
+    while (index < length) {
+      if (a.get(a_offset + index) != b.get(b_offset + index)) {
+        return index;
+      }
+      ++index;
+    }
+    return -1;
+  }
+
+  /**
+   * Calculate a 64-bit hash of the significant octets of the value at {@code
+   * offset} in {@code buffer}.
+   *
+   * @param buffer The buffer
+   * @param offset The offset of the value
+   *
+   * @return A hash value
+   */
+
+  public long hash(
+    final ByteBuffer buffer,
+    final int offset)
+  {
+    final boolean swap = buffer.order() != ByteOrder.BIG_ENDIAN;
+
+    long h = HASH_SEED ^ (long) this.size;
+    for (int index = 0; index < this.ranges.length; index += 2) {
+      final int base = offset + this.ranges[index];
+      h = hashRange(h, buffer, base, this.ranges[index + 1], swap);
+    }
+
+    for (int index = 0; index < this.partial_offsets.length; ++index) {
+      final int mask = (int) this.partial_masks[index] & 0xff;
+      final int x = (int) buffer.get(offset + this.partial_offsets[index]);
+      h = mix(h, (long) (x & mask));
+    }
+
+    for (int index = 0; index < this.strings.length; index += 2) {
+      final int base = offset + this.strings[index];
+      final int length =
+        usedLength(buffer, base, this.strings[index + 1]);
+      h = hashRange(h, buffer, base + 4, length, swap);
+    }
+
+    return finish(h);
+  }
+
+  /*
+   * Words are read in big-endian order regardless of the order of the
+   * buffer, so that the hash depends only on the octets in the range.
+   */
+
+  private static long hashRange(
+    final long h,
+    final ByteBuffer buffer,
+    final int base,
+    final int length,
+    final boolean swap)
+  {
+    long r = h;
+    int i = 0;
+    while (i + 8 <= length) {
+      final long w = buffer.getLong(base + i);
+      r = mix(r, swap ? Long.reverseBytes(w) : w);
+      i += 8;
+    }
+    while (i < length) {
+      r = mix(r, (long) buffer.get(base + i) & 0xffL);
+      ++i;
+    }
+    return r;
+  }
+
+  private static long mix(
+    final long h,
+    final long w)
+  {
+    long k = w * HASH_C1;
+    k = Long.rotateLeft(k, 31);
+    k *= HASH_C2;
+    final long r = Long.rotateLeft(h ^ k, 27);
+    return (r * 5L) + 0x52dce729L;
+  }
+
+  private static long finish(
+    final long h)
+  {
+    long x = h;
+    x ^= x >>> 33;
+    x *= 0xff51afd7ed558ccdL;
+    x ^= x >>> 33;
+    x *= 0xc4ceb9fe1a85ec53L;
+    x ^= x >>> 33;
+    return x;
+  }
+
+  @Override
+  public boolean equals(final Object o)
+  {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || this.getClass() != o.getClass()) {
+      return false;
+    }
+    final JPRAPayloadLayout other = (JPRAPayloadLayout) o;
+    return this.size == other.size
+      && Arrays.equals(this.ranges, other.ranges)
+      && Arrays.equals(this.partial_offsets, other.partial_offsets)
+      && Arrays.equals(this.partial_masks, other.partial_masks)
+      && Arrays.equals(this.strings, other.strings);
+  }
+
+  @Override
+  public int hashCode()
+  {
+    int result = this.size;
+    result = 31 * result + Arrays.hashCode(this.ranges);
+    result = 31 * result + Arrays.hashCode(this.partial_offsets);
+    result = 31 * result + Arrays.hashCode(this.partial_masks);
+    result = 31 * result + Arrays.hashCode(this.strings);
+    return result;
+  }
+
+  @Override
+  public String toString()
+  {
+    final StringBuilder sb = new StringBuilder(128);
+    sb.append("[JPRAPayloadLayout size=");
+    sb.append(this.size);
+    sb.append(" ranges=");
+    sb.append(Arrays.toString(this.ranges));
+    sb.append(" partial=");
+    sb.append(Arrays.toString(this.partial_offsets));
+    sb.append(" strings=");
+    sb.append(Arrays.toString(this.strings));
+    sb.append(']');
+    return sb.toString();
+  }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright © 2015 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.jpra.runtime.java;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Objects;
+
+/**
+ * <p>A reader that reads batches of elements from a channel into a single
+ * reusable buffer, and exposes the most recently read batch via a cursor.</p>
+ *
+ * <p>Short reads from the channel are retried until either a batch is full or
+ * the channel reaches end-of-stream. Only the final batch of a stream may
+ * contain fewer than {@link #batchSize()} elements.</p>
+ *
+ * @param <T> The type of elements
+ *
+ * @see JPRARecordChannels#newReader(ReadableByteChannel, int, int,
+ * java.util.function.IntFunction, JPRAValueByteBufferedConstructorType)
+ */
+
+public final class JPRARecordChannelReader<T extends JPRAValueType>
+{
+  private final ReadableByteChannel channel;
+  private final ByteBuffer buffer;
+  private final JPRACursor1DType<T> cursor;
+  private final int element_size;
+  private final int batch_size;
+  private int elements;
+  private boolean finished;
+
+  JPRARecordChannelReader(
+    final ReadableByteChannel in_channel,
+    final ByteBuffer in_buffer,
+    final JPRACursor1DType<T> in_cursor,
+    final int in_element_size,
+    final int in_batch_size)
+  {
+    this.channel = Objects.requireNonNull(in_channel, "Channel");
+    this.buffer = Objects.requireNonNull(in_buffer, "Buffer");
+    this.cursor = Objects.requireNonNull(in_cursor, "Cursor");
+    this.element_size = in_element_size;
+    this.batch_size = in_batch_size;
+    this.elements = 0;
+    this.finished = false;
+  }
+
+  /**
+   * Read the next batch of elements, replacing the previous batch.
+   *
+   * @return The number of elements read, or {@code 0} at the end of the stream
+   *
+   * @throws IOException On I/O errors, or if the stream ends part way through
+   *                     an element
+   */
+
+  public int readBatch()
+    throws IOException
+  {
+    this.elements = 0;
+    if (this.finished) {
+      return 0;
+    }
+
+    final int size = this.element_size * this.batch_size;
+    this.buffer.clear();
+    this.buffer.limit(size);
+
+    while (this.buffer.hasRemaining()) {
+      if (this.channel.read(this.buffer) < 0) {
+        this.finished = true;
+        break;
+      }
+    }
+
+    final int octets = this.buffer.position();
+    this.buffer.clear();
+
+    if (octets % this.element_size != 0) {
+      throw new EOFException(
+        String.format(
+          "Stream ended %d octets into an element of size %d",
+          Integer.valueOf(octets % this.element_size),
+          Integer.valueOf(this.element_size)));
+    }
+
+    this.elements = octets / this.element_size;
+    this.cursor.setElementIndex(0);
+    return this.elements;
+  }
+
+  /**
+   * @return {@code true} iff the end of the stream has been reached
+   */
+
+  public boolean isFinished()
+  {
+    return this.finished;
+  }
+
+  /**
+   * @return The number of elements in the most recently read batch
+   */
+
+  public int batchElements()
+  {
+    return this.elements;
+  }
+
+  /**
+   * @return The maximum number of elements in a batch
+   */
+
+  public int batchSize()
+  {
+    return this.batch_size;
+  }
+
+  /**
+   * @return A cursor over the most recently read batch; only indices in the
+   * range {@code [0, batchElements() - 1]} refer to valid elements
+   */
+
+  public JPRACursor1DType<T> cursor()
+  {
+    return this.cursor;
+  }
+
+  /**
+   * @return The buffer that backs the cursor
+   */
+
+  public ByteBuffer buffer()
+  {
+    return this.buffer;
+  }
+}
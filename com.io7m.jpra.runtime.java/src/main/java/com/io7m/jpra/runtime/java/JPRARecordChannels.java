@@ -0,0 +1,354 @@
+/*
+ * Copyright © 2015 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.jpra.runtime.java;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Objects;
+import java.util.function.IntFunction;
+
+/**
+ * <p>Functions to stream arrays of records to and from channels.</p>
+ *
+ * <p>The functions here never copy element data: elements are written
+ * directly from views of the source buffer, and elements are read directly
+ * into the buffer that backs a reader's cursor. The position and limit of
+ * buffers passed to these functions are not modified.</p>
+ *
+ * <p>All functions assume blocking channels.</p>
+ */
+
+public final class JPRARecordChannels
+{
+  private static final int COPY_SIZE_MAX = 8192;
+
+  private JPRARecordChannels()
+  {
+    throw new AssertionError("Unreachable code!");
+  }
+
+  private static void checkElementSize(
+    final int element_size)
+  {
+    if (element_size <= 0) {
+      throw new IllegalArgumentException(
+        String.format(
+          "Element size %d must be positive",
+          Integer.valueOf(element_size)));
+    }
+  }
+
+  private static ByteBuffer elementRange(
+    final ByteBuffer buffer,
+    final int element_size,
+    final int first,
+    final int count)
+  {
+    final long start = (long) first * (long) element_size;
+    final long end = start + ((long) count * (long) element_size);
+    if (first < 0 || count < 0 || end > (long) buffer.capacity()) {
+      throw new IndexOutOfBoundsException(
+        String.format(
+          "Elements [%d, %d) of size %d do not fit in a buffer of size %d",
+          Integer.valueOf(first),
+          Long.valueOf((long) first + (long) count),
+          Integer.valueOf(element_size),
+          Integer.valueOf(buffer.capacity())));
+    }
+
+    final ByteBuffer view = buffer.duplicate();
+    view.limit((int) end);
+    view.position((int) start);
+    return view;
+  }
+
+  /**
+   * Write {@code count} elements of size {@code element_size}, starting at
+   * element {@code first}, from {@code buffer} to {@code channel}.
+   *
+   * @param channel      The target channel
+   * @param buffer       The buffer containing elements
+   * @param element_size The size in octets of an element
+   * @param first        The index of the first element
+   * @param count        The number of elements
+   *
+   * @return The number of octets written
+   *
+   * @throws IOException On I/O errors
+   */
+
+  public static long writeElements(
+    final WritableByteChannel channel,
+    final ByteBuffer buffer,
+    final int element_size,
+    final int first,
+    final int count)
+    throws IOException
+  {
+    Objects.requireNonNull(channel, "Channel");
+    Objects.requireNonNull(buffer, "Buffer");
+    checkElementSize(element_size);
+
+    final ByteBuffer view = elementRange(buffer, element_size, first, count);
+    long total = 0L;
+    while (view.hasRemaining()) {
+      total += (long) channel.write(view);
+    }
+    return total;
+  }
+
+  /**
+   * Write {@code count} elements, starting at the element to which {@code
+   * cursor} currently points, from {@code buffer} to {@code channel}. The
+   * size of an element is taken from the cursor's element view, and {@code
+   * buffer} must be the buffer that the cursor addresses. The cursor is not
+   * moved.
+   *
+   * @param channel The target channel
+   * @param buffer  The buffer addressed by {@code cursor}
+   * @param cursor  A cursor pointing at the first element
+   * @param count   The number of elements
+   * @param <T>     The precise type of elements
+   *
+   * @return The number of octets written
+   *
+   * @throws IOException On I/O errors
+   */
+
+  public static <T extends JPRAValueType> long writeCursorElements(
+    final WritableByteChannel channel,
+    final ByteBuffer buffer,
+    final JPRACursor1DType<T> cursor,
+    final int count)
+    throws IOException
+  {
+    Objects.requireNonNull(cursor, "Cursor");
+    return writeElements(
+      channel,
+      buffer,
+      cursor.getElementView().sizeOctets(),
+      cursor.getElementIndex(),
+      count);
+  }
+
+  /**
+   * Write several ranges of elements from {@code buffer} to {@code channel}
+   * using gathering writes. Range {@code i} begins at element {@code
+   * firsts[i]} and contains {@code counts[i]} elements. Ranges are written in
+   * the order given.
+   *
+   * @param channel      The target channel
+   * @param buffer       The buffer containing elements
+   * @param element_size The size in octets of an element
+   * @param firsts       The index of the first element of each range
+   * @param counts       The number of elements in each range
+   *
+   * @return The number of octets written
+   *
+   * @throws IOException On I/O errors
+   */
+
+  public static long writeElementRanges(
+    final GatheringByteChannel channel,
+    final ByteBuffer buffer,
+    final int element_size,
+    final int[] firsts,
+    final int[] counts)
+    throws IOException
+  {
+    Objects.requireNonNull(channel, "Channel");
+    Objects.requireNonNull(buffer, "Buffer");
+    Objects.requireNonNull(firsts, "Firsts");
+    Objects.requireNonNull(counts, "Counts");
+    checkElementSize(element_size);
+
+    if (firsts.length != counts.length) {
+      throw new IllegalArgumentException(
+        String.format(
+          "Range arrays must be of equal length (%d != %d)",
+          Integer.valueOf(firsts.length),
+          Integer.valueOf(counts.length)));
+    }
+
+    final ByteBuffer[] views = new ByteBuffer[firsts.length];
+    long remaining = 0L;
+    for (int index = 0; index < views.length; ++index) {
+      views[index] =
+        elementRange(buffer, element_size, firsts[index], counts[index]);
+      remaining += (long) views[index].remaining();
+    }
+
+    final long total = remaining;
+    int current = 0;
+    while (remaining > 0L) {
+      remaining -= channel.write(views, current, views.length - current);
+      while (current < views.length && !views[current].hasRemaining()) {
+        ++current;
+      }
+    }
+    return total;
+  }
+
+  /**
+   * Transfer {@code count} elements of size {@code element_size}, starting at
+   * element {@code first}, from the file channel {@code source} to {@code
+   * target}. Element {@code 0} is assumed to begin at {@code source_offset}
+   * octets into the file. The transfer uses {@link FileChannel#transferTo(long,
+   * long, WritableByteChannel)} and so may avoid copying data through user
+   * space entirely. If a call to {@code transferTo} transfers nothing, the
+   * next block of at most 8192 octets is instead read from the file and
+   * written to the target, so that every iteration either makes progress
+   * or fails.
+   *
+   * @param source        The source file
+   * @param source_offset The offset in octets of element {@code 0}
+   * @param element_size  The size in octets of an element
+   * @param first         The index of the first element
+   * @param count         The number of elements
+   * @param target        The target channel
+   *
+   * @return The number of octets transferred
+   *
+   * @throws IOException On I/O errors, or if the file is too short
+   */
+
+  public static long transferElements(
+    final FileChannel source,
+    final long source_offset,
+    final int element_size,
+    final long first,
+    final long count,
+    final WritableByteChannel target)
+    throws IOException
+  {
+    Objects.requireNonNull(source, "Source");
+    Objects.requireNonNull(target, "Target");
+    checkElementSize(element_size);
+
+    if (source_offset < 0L || first < 0L || count < 0L) {
+      throw new IndexOutOfBoundsException(
+        String.format(
+          "Offset %d, first %d and count %d must be non-negative",
+          Long.valueOf(source_offset),
+          Long.valueOf(first),
+          Long.valueOf(count)));
+    }
+
+    final long total = Math.multiplyExact(count, (long) element_size);
+    long position =
+      Math.addExact(source_offset, Math.multiplyExact(first, (long) element_size));
+    long remaining = total;
+    while (remaining > 0L) {
+      long sent = source.transferTo(position, remaining, target);
+      if (sent <= 0L) {
+        sent = copyBlock(source, position, remaining, target);
+      }
+      position += sent;
+      remaining -= sent;
+    }
+    return total;
+  }
+
+  private static long copyBlock(
+    final FileChannel source,
+    final long position,
+    final long remaining,
+    final WritableByteChannel target)
+    throws IOException
+  {
+    final ByteBuffer block =
+      ByteBuffer.allocate((int) Math.min(remaining, (long) COPY_SIZE_MAX));
+    final int read = source.read(block, position);
+    if (read <= 0) {
+      throw new EOFException(
+        String.format(
+          "File ended at octet %d with %d octets remaining",
+          Long.valueOf(position),
+          Long.valueOf(remaining)));
+    }
+
+    block.flip();
+    while (block.hasRemaining()) {
+      target.write(block);
+    }
+    return (long) read;
+  }
+
+  /**
+   * Create a reader that reads batches of up to {@code batch_elements}
+   * elements from {@code channel} into a single reusable buffer.
+   *
+   * @param channel        The source channel
+   * @param element_size   The size in octets of an element
+   * @param batch_elements The maximum number of elements in a batch
+   * @param allocator      A buffer allocator such as {@link ByteBuffer#allocateDirect(int)}
+   * @param constructor    An element value constructor
+   * @param <T>            The precise type of elements
+   *
+   * @return A new reader
+   */
+
+  public static <T extends JPRAValueType> JPRARecordChannelReader<T> newReader(
+    final ReadableByteChannel channel,
+    final int element_size,
+    final int batch_elements,
+    final IntFunction<ByteBuffer> allocator,
+    final JPRAValueByteBufferedConstructorType<T> constructor)
+  {
+    Objects.requireNonNull(channel, "Channel");
+    Objects.requireNonNull(allocator, "Allocator");
+    Objects.requireNonNull(constructor, "Constructor");
+    checkElementSize(element_size);
+
+    if (batch_elements <= 0) {
+      throw new IllegalArgumentException(
+        String.format(
+          "Batch size %d must be positive",
+          Integer.valueOf(batch_elements)));
+    }
+
+    final int size = Math.multiplyExact(element_size, batch_elements);
+    final ByteBuffer buffer =
+      Objects.requireNonNull(allocator.apply(size), "Allocated buffer");
+    if (buffer.capacity() < size) {
+      throw new IllegalArgumentException(
+        String.format(
+          "Allocated buffer of size %d is smaller than the required %d",
+          Integer.valueOf(buffer.capacity()),
+          Integer.valueOf(size)));
+    }
+
+    final JPRACursor1DType<T> cursor =
+      JPRACursor1DByteBufferedChecked.newCursor(buffer, constructor);
+    final int view_size = cursor.getElementView().sizeOctets();
+    if (view_size != element_size) {
+      throw new IllegalArgumentException(
+        String.format(
+          "Element size %d does not match the size %d of constructed values",
+          Integer.valueOf(element_size),
+          Integer.valueOf(view_size)));
+    }
+
+    return new JPRARecordChannelReader<>(
+      channel, buffer, cursor, element_size, batch_elements);
+  }
+}
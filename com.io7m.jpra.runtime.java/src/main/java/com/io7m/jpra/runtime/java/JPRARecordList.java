@@ -0,0 +1,415 @@
+/*
+ * Copyright © 2015 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.jpra.runtime.java;
+
+import com.io7m.mutable.numbers.core.MutableLongType;
+
+import java.nio.ByteBuffer;
+import java.util.Objects;
+import java.util.function.IntFunction;
+
+/**
+ * <p>A growable list of elements of type {@code T}, stored contiguously in a
+ * {@link ByteBuffer}.</p>
+ *
+ * <p>Appending is amortized constant time: when the list is full, a new
+ * buffer with twice the capacity is obtained from the list's allocator and
+ * the existing elements are copied into it. Removal is constant time and
+ * moves the last element into the removed slot, so element order is not
+ * preserved.</p>
+ *
+ * <p>The cursor returned by {@link #cursor()} remains valid across growth: it
+ * is rebound to each new buffer, and keeps its element index. It only
+ * permits access to the elements in {@code [0, size())}. References to the
+ * buffer returned by {@link #buffer()} must not be retained across
+ * operations that may reallocate.</p>
+ *
+ * <p>Instances are not thread-safe.</p>
+ *
+ * @param <T> The type of elements
+ */
+
+public final class JPRARecordList<T extends JPRAValueType>
+{
+  private final IntFunction<ByteBuffer> allocator;
+  private final int element_size;
+  private final JPRACursor1DRebindableType<T> storage;
+  private final Cursor cursor;
+  private ByteBuffer buffer;
+  private int capacity;
+  private int size;
+
+  private JPRARecordList(
+    final JPRAValueByteBufferedConstructorType<T> in_cons,
+    final int in_element_size,
+    final int in_capacity,
+    final IntFunction<ByteBuffer> in_allocator)
+  {
+    this.allocator = in_allocator;
+    this.element_size = in_element_size;
+    this.capacity = in_capacity;
+    this.size = 0;
+    this.buffer = this.allocate(in_capacity);
+    this.storage =
+      JPRACursor1DByteBufferedChecked.newCursor(this.buffer, in_cons);
+
+    final int view_size = this.storage.getElementView().sizeOctets();
+    if (view_size != in_element_size) {
+      throw new IllegalArgumentException(
+        String.format(
+          "Element size %d does not match the size of constructed values %d",
+          Integer.valueOf(in_element_size),
+          Integer.valueOf(view_size)));
+    }
+
+    this.cursor = new Cursor();
+  }
+
+  /**
+   * Create a new, empty list.
+   *
+   * @param cons             An element value constructor
+   * @param element_size     The size in octets of an element
+   * @param initial_capacity The initial capacity in elements
+   * @param allocator        A function that, given a size in octets,
+   *                         allocates a new buffer of exactly that capacity
+   * @param <T>              The type of elements
+   *
+   * @return A new list
+   */
+
+  public static <T extends JPRAValueType> JPRARecordList<T> create(
+    final JPRAValueByteBufferedConstructorType<T> cons,
+    final int element_size,
+    final int initial_capacity,
+    final IntFunction<ByteBuffer> allocator)
+  {
+    Objects.requireNonNull(cons, "Constructor");
+    Objects.requireNonNull(allocator, "Allocator");
+
+    if (element_size <= 0) {
+      throw new IllegalArgumentException(
+        String.format(
+          "Element size %d must be positive",
+          Integer.valueOf(element_size)));
+    }
+    if (initial_capacity <= 0) {
+      throw new IllegalArgumentException(
+        String.format(
+          "Initial capacity %d must be positive",
+          Integer.valueOf(initial_capacity)));
+    }
+    checkOctets(element_size, initial_capacity);
+    return new JPRARecordList<>(
+      cons, element_size, initial_capacity, allocator);
+  }
+
+  /**
+   * Create a new, empty list that allocates direct buffers.
+   *
+   * @param cons             An element value constructor
+   * @param element_size     The size in octets of an element
+   * @param initial_capacity The initial capacity in elements
+   * @param <T>              The type of elements
+   *
+   * @return A new list
+   *
+   * @see #create(JPRAValueByteBufferedConstructorType, int, int, IntFunction)
+   */
+
+  public static <T extends JPRAValueType> JPRARecordList<T> createDirect(
+    final JPRAValueByteBufferedConstructorType<T> cons,
+    final int element_size,
+    final int initial_capacity)
+  {
+    return create(
+      cons, element_size, initial_capacity, ByteBuffer::allocateDirect);
+  }
+
+  private static int checkOctets(
+    final int element_size,
+    final int elements)
+  {
+    final long octets = (long) element_size * (long) elements;
+    if (octets > (long) Integer.MAX_VALUE) {
+      throw new IllegalArgumentException(
+        String.format(
+          "Capacity of %d elements of size %d exceeds the maximum buffer size",
+          Integer.valueOf(elements),
+          Integer.valueOf(element_size)));
+    }
+    return (int) octets;
+  }
+
+  private ByteBuffer allocate(
+    final int elements)
+  {
+    final int octets = checkOctets(this.element_size, elements);
+    final ByteBuffer result = Objects.requireNonNull(
+      this.allocator.apply(octets), "Allocated buffer");
+    if (result.capacity() < octets) {
+      throw new IllegalStateException(
+        String.format(
+          "Allocator returned a buffer of capacity %d (expected %d)",
+          Integer.valueOf(result.capacity()),
+          Integer.valueOf(octets)));
+    }
+    if (this.buffer != null) {
+      result.order(this.buffer.order());
+    }
+    return result;
+  }
+
+  /**
+   * @return The number of elements in the list
+   */
+
+  public int size()
+  {
+    return this.size;
+  }
+
+  /**
+   * @return {@code true} iff the list contains no elements
+   */
+
+  public boolean isEmpty()
+  {
+    return this.size == 0;
+  }
+
+  /**
+   * @return The number of elements the list can hold without reallocating
+   */
+
+  public int capacity()
+  {
+    return this.capacity;
+  }
+
+  /**
+   * @return The size in octets of an element
+   */
+
+  public int elementSize()
+  {
+    return this.element_size;
+  }
+
+  /**
+   * @return The current backing buffer. The first {@code size() *
+   * elementSize()} octets hold the elements of the list.
+   */
+
+  public ByteBuffer buffer()
+  {
+    return this.buffer;
+  }
+
+  /**
+   * @return A cursor over the elements of the list
+   */
+
+  public JPRACursor1DType<T> cursor()
+  {
+    return this.cursor;
+  }
+
+  /**
+   * Ensure that the list can hold at least {@code minimum} elements without
+   * reallocating.
+   *
+   * @param minimum The minimum capacity
+   */
+
+  public void ensureCapacity(
+    final int minimum)
+  {
+    if (minimum > this.capacity) {
+      final long doubled = (long) this.capacity * 2L;
+      final long limit = (long) (Integer.MAX_VALUE / this.element_size);
+      final long wanted = Math.max((long) minimum, Math.min(doubled, limit));
+      this.reallocate((int) wanted);
+    }
+  }
+
+  /**
+   * Reduce the capacity of the list to its current size (or one element, if
+   * the list is empty).
+   */
+
+  public void trimToSize()
+  {
+    final int wanted = Math.max(1, this.size);
+    if (wanted < this.capacity) {
+      this.reallocate(wanted);
+    }
+  }
+
+  private void reallocate(
+    final int new_capacity)
+  {
+    final ByteBuffer next = this.allocate(new_capacity);
+
+    final ByteBuffer source = this.buffer.duplicate();
+    source.limit(this.size * this.element_size);
+    source.position(0);
+    final ByteBuffer target = next.duplicate();
+    target.position(0);
+    target.put(source);
+
+    final int index = this.storage.getElementIndex();
+    this.storage.rebind(next);
+    this.buffer = next;
+    this.capacity = new_capacity;
+    if (index < new_capacity) {
+      this.storage.setElementIndex(index);
+    }
+  }
+
+  /**
+   * Append a new, zero-filled element to the list, growing the list if
+   * necessary. The list's cursor is positioned on the new element.
+   *
+   * @return The index of the new element
+   */
+
+  public int append()
+  {
+    this.ensureCapacity(this.size + 1);
+
+    final int index = this.size;
+    final int offset = index * this.element_size;
+    for (int octet = 0; octet < this.element_size; ++octet) {
+      this.buffer.put(offset + octet, (byte) 0);
+    }
+
+    this.size = index + 1;
+    this.storage.setElementIndex(index);
+    return index;
+  }
+
+  /**
+   * Remove the element at {@code index} by moving the last element of the
+   * list into its place.
+   *
+   * @param index The index of the element to remove
+   *
+   * @return The former index of the element that was moved into {@code
+   * index}, or {@code -1} if {@code index} was the last element and nothing
+   * was moved
+   */
+
+  public int removeSwapLast(
+    final int index)
+  {
+    this.checkIndex(index);
+
+    final int last = this.size - 1;
+    this.size = last;
+    if (index == last) {
+      return -1;
+    }
+
+    final ByteBuffer source = this.buffer.duplicate();
+    source.limit((last + 1) * this.element_size);
+    source.position(last * this.element_size);
+    final ByteBuffer target = this.buffer.duplicate();
+    target.position(index * this.element_size);
+    target.put(source);
+    return last;
+  }
+
+  /**
+   * Remove all elements from the list. The capacity is unchanged.
+   */
+
+  public void clear()
+  {
+    this.size = 0;
+  }
+
+  private void checkIndex(
+    final int index)
+  {
+    if (index < 0 || index >= this.size) {
+      throw new IndexOutOfBoundsException(
+        String.format(
+          "Index %d must be within the range [0, %d)",
+          Integer.valueOf(index),
+          Integer.valueOf(this.size)));
+    }
+  }
+
+  @Override
+  public String toString()
+  {
+    final StringBuilder sb = new StringBuilder(64);
+    sb.append("[JPRARecordList size=");
+    sb.append(this.size);
+    sb.append(" capacity=");
+    sb.append(this.capacity);
+    sb.append(']');
+    return sb.toString();
+  }
+
+  private final class Cursor implements JPRACursor1DType<T>
+  {
+    Cursor()
+    {
+
+    }
+
+    @Override
+    public int getElementIndex()
+    {
+      return JPRARecordList.this.storage.getElementIndex();
+    }
+
+    @Override
+    public void setElementIndex(
+      final int index)
+      throws IndexOutOfBoundsException
+    {
+      JPRARecordList.this.checkIndex(index);
+      JPRARecordList.this.storage.setElementIndex(index);
+    }
+
+    @Override
+    public T getElementView()
+    {
+      return JPRARecordList.this.storage.getElementView();
+    }
+
+    @Override
+    public MutableLongType getByteOffsetObservable()
+    {
+      return JPRARecordList.this.storage.getByteOffsetObservable();
+    }
+
+    @Override
+    public String toString()
+    {
+      final StringBuilder sb = new StringBuilder("[Cursor ");
+      sb.append(this.getElementIndex());
+      sb.append('/');
+      sb.append(JPRARecordList.this.size);
+      sb.append(']');
+      return sb.toString();
+    }
+  }
+}
@@ -0,0 +1,1108 @@
+/*
+ * Copyright © 2015 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.jpra.runtime.java;
+
+import com.io7m.ieee754b16.Binary16;
+import com.io7m.jnfp.core.NFPSignedDoubleInt;
+import com.io7m.jnfp.core.NFPSignedDoubleLong;
+import com.io7m.jnfp.core.NFPUnsignedDoubleInt;
+import com.io7m.jnfp.core.NFPUnsignedDoubleLong;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.IntStream;
+
+/**
+ * <p>A compiled query over the elements of a buffer of records.</p>
+ *
+ * <p>Queries are built from {@link Predicate} values that compare record
+ * fields against constants. A field is described by its {@link Kind} and its
+ * offset from the start of the record, as returned by the generated
+ * {@code meta*StaticOffsetFromType()} methods. {@link #compile(int,
+ * Predicate)} translates a predicate once into a tree of small closures,
+ * each specialized for a single field kind and comparison, so that
+ * evaluation involves no interpretation of the predicate structure.</p>
+ *
+ * <p>A compiled scan is immutable and may be evaluated by several threads
+ * at once, provided that the data buffer is not modified.</p>
+ */
+
+public final class JPRAScan
+{
+  private final int element_size;
+  private final MatcherType matcher;
+
+  private JPRAScan(
+    final int in_element_size,
+    final MatcherType in_matcher)
+  {
+    this.element_size = in_element_size;
+    this.matcher = in_matcher;
+  }
+
+  /**
+   * Compile a predicate.
+   *
+   * @param element_size The size in octets of a record
+   * @param predicate    The predicate
+   *
+   * @return A compiled scan
+   */
+
+  public static JPRAScan compile(
+    final int element_size,
+    final Predicate predicate)
+  {
+    Objects.requireNonNull(predicate, "Predicate");
+    if (element_size <= 0) {
+      throw new IllegalArgumentException(
+        String.format(
+          "Element size %d must be positive", Integer.valueOf(element_size)));
+    }
+    return new JPRAScan(element_size, predicate.compile(element_size));
+  }
+
+  /**
+   * @return The size in octets of a record
+   */
+
+  public int elementSize()
+  {
+    return this.element_size;
+  }
+
+  private void checkRange(
+    final ByteBuffer data,
+    final int from,
+    final int to)
+  {
+    Objects.requireNonNull(data, "Data");
+    if (from < 0
+      || to < from
+      || (long) to * (long) this.element_size > (long) data.capacity()) {
+      throw new IndexOutOfBoundsException(
+        String.format(
+          "Range [%d, %d) is not within the %d elements of the buffer",
+          Integer.valueOf(from),
+          Integer.valueOf(to),
+          Integer.valueOf(data.capacity() / this.element_size)));
+    }
+  }
+
+  /**
+   * @param data  The data buffer
+   * @param index The index of a record
+   *
+   * @return {@code true} iff the record at {@code index} matches
+   */
+
+  public boolean matches(
+    final ByteBuffer data,
+    final int index)
+  {
+    this.checkRange(data, index, index + 1);
+    return this.matcher.test(data, index * this.element_size);
+  }
+
+  /**
+   * Count the records in {@code [from, to)} that match.
+   *
+   * @param data The data buffer
+   * @param from The index of the first record
+   * @param to   The index one past the last record
+   *
+   * @return The number of matching records
+   */
+
+  public int count(
+    final ByteBuffer data,
+    final int from,
+    final int to)
+  {
+    this.checkRange(data, from, to);
+
+    final MatcherType m = this.matcher;
+    final int size = this.element_size;
+    int count = 0;
+    for (int index = from; index < to; ++index) {
+      if (m.test(data, index * size)) {
+        ++count;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Select the records in {@code [from, to)} that match.
+   *
+   * @param data The data buffer
+   * @param from The index of the first record
+   * @param to   The index one past the last record
+   *
+   * @return A buffer holding the indices of matching records in ascending
+   * order, positioned at zero with its limit at the number of matches
+   */
+
+  public IntBuffer select(
+    final ByteBuffer data,
+    final int from,
+    final int to)
+  {
+    this.checkRange(data, from, to);
+    final int[] matches = this.selectRange(data, from, to);
+    return IntBuffer.wrap(matches);
+  }
+
+  /**
+   * Select the records in {@code [from, to)} that match, evaluating chunks
+   * of {@code chunk_size} records in parallel in the common fork/join pool.
+   *
+   * @param data       The data buffer
+   * @param from       The index of the first record
+   * @param to         The index one past the last record
+   * @param chunk_size The number of records in each chunk
+   *
+   * @return A buffer holding the indices of matching records in ascending
+   * order, positioned at zero with its limit at the number of matches
+   */
+
+  public IntBuffer selectParallel(
+    final ByteBuffer data,
+    final int from,
+    final int to,
+    final int chunk_size)
+  {
+    this.checkRange(data, from, to);
+    if (chunk_size <= 0) {
+      throw new IllegalArgumentException(
+        String.format(
+          "Chunk size %d must be positive", Integer.valueOf(chunk_size)));
+    }
+
+    final int chunks =
+      (int) (((long) to - (long) from + (long) chunk_size - 1L)
+        / (long) chunk_size);
+
+    final int[][] results = new int[chunks][];
+    IntStream.range(0, chunks).parallel().forEach(chunk -> {
+      final int start = from + chunk * chunk_size;
+      final int end = (int) Math.min((long) start + chunk_size, (long) to);
+      results[chunk] = this.selectRange(data, start, end);
+    });
+
+    int total = 0;
+    for (final int[] r : results) {
+      total += r.length;
+    }
+    final int[] matches = new int[total];
+    int offset = 0;
+    for (final int[] r : results) {
+      System.arraycopy(r, 0, matches, offset, r.length);
+      offset += r.length;
+    }
+    return IntBuffer.wrap(matches);
+  }
+
+  private int[] selectRange(
+    final ByteBuffer data,
+    final int from,
+    final int to)
+  {
+    final MatcherType m = this.matcher;
+    final int size = this.element_size;
+
+    int[] out = new int[Math.min(to - from, 64)];
+    int count = 0;
+    for (int index = from; index < to; ++index) {
+      if (m.test(data, index * size)) {
+        if (count == out.length) {
+          final int[] next = new int[Math.min(out.length * 2, to - from)];
+          System.arraycopy(out, 0, next, 0, count);
+          out = next;
+        }
+        out[count] = index;
+        ++count;
+      }
+    }
+
+    if (count == out.length) {
+      return out;
+    }
+    final int[] exact = new int[count];
+    System.arraycopy(out, 0, exact, 0, count);
+    return exact;
+  }
+
+  /**
+   * Read an integer field of each selected record. Unsigned 64-bit values
+   * are returned as their two's complement bit patterns.
+   *
+   * @param data      The data buffer
+   * @param selection The indices of records, from the selection's position
+   *                  to its limit
+   * @param field     An integer field
+   *
+   * @return The field values, in selection order
+   */
+
+  public long[] projectLong(
+    final ByteBuffer data,
+    final IntBuffer selection,
+    final Field field)
+  {
+    Objects.requireNonNull(data, "Data");
+    Objects.requireNonNull(selection, "Selection");
+    Objects.requireNonNull(field, "Field");
+    field.checkFits(this.element_size);
+    if (field.kind.isFloating()) {
+      throw new IllegalArgumentException(
+        String.format("Field %s is not an integer field", field));
+    }
+
+    final LongReaderType reader = longReader(field.kind, field.offset);
+    final long[] out = new long[selection.remaining()];
+    final int base = selection.position();
+    for (int index = 0; index < out.length; ++index) {
+      final int element = selection.get(base + index);
+      this.checkRange(data, element, element + 1);
+      out[index] = reader.read(data, element * this.element_size);
+    }
+    if (field.kind == Kind.INTEGER_UNSIGNED_64) {
+      for (int index = 0; index < out.length; ++index) {
+        out[index] ^= Long.MIN_VALUE;
+      }
+    }
+    return out;
+  }
+
+  /**
+   * Read a numeric field of each selected record as a {@code double}.
+   *
+   * @param data      The data buffer
+   * @param selection The indices of records, from the selection's position
+   *                  to its limit
+   * @param field     A field
+   *
+   * @return The field values, in selection order
+   */
+
+  public double[] projectDouble(
+    final ByteBuffer data,
+    final IntBuffer selection,
+    final Field field)
+  {
+    Objects.requireNonNull(data, "Data");
+    Objects.requireNonNull(selection, "Selection");
+    Objects.requireNonNull(field, "Field");
+    field.checkFits(this.element_size);
+
+    final DoubleReaderType reader = doubleReader(field.kind, field.offset);
+    final double[] out = new double[selection.remaining()];
+    final int base = selection.position();
+    for (int index = 0; index < out.length; ++index) {
+      final int element = selection.get(base + index);
+      this.checkRange(data, element, element + 1);
+      out[index] = reader.read(data, element * this.element_size);
+    }
+    return out;
+  }
+
+  /**
+   * The kinds of fields that can be scanned.
+   */
+
+  public enum Kind
+  {
+    /**
+     * A signed 8-bit integer.
+     */
+
+    INTEGER_SIGNED_8(1, Family.SIGNED),
+
+    /**
+     * A signed 16-bit integer.
+     */
+
+    INTEGER_SIGNED_16(2, Family.SIGNED),
+
+    /**
+     * A signed 32-bit integer.
+     */
+
+    INTEGER_SIGNED_32(4, Family.SIGNED),
+
+    /**
+     * A signed 64-bit integer.
+     */
+
+    INTEGER_SIGNED_64(8, Family.SIGNED),
+
+    /**
+     * An unsigned 8-bit integer.
+     */
+
+    INTEGER_UNSIGNED_8(1, Family.UNSIGNED),
+
+    /**
+     * An unsigned 16-bit integer.
+     */
+
+    INTEGER_UNSIGNED_16(2, Family.UNSIGNED),
+
+    /**
+     * An unsigned 32-bit integer.
+     */
+
+    INTEGER_UNSIGNED_32(4, Family.UNSIGNED),
+
+    /**
+     * An unsigned 64-bit integer.
+     */
+
+    INTEGER_UNSIGNED_64(8, Family.UNSIGNED),
+
+    /**
+     * A signed normalized 8-bit integer, read as a value in {@code [-1, 1]}.
+     */
+
+    INTEGER_SIGNED_NORMALIZED_8(1, Family.SIGNED_NORMALIZED),
+
+    /**
+     * A signed normalized 16-bit integer, read as a value in {@code [-1, 1]}.
+     */
+
+    INTEGER_SIGNED_NORMALIZED_16(2, Family.SIGNED_NORMALIZED),
+
+    /**
+     * A signed normalized 32-bit integer, read as a value in {@code [-1, 1]}.
+     */
+
+    INTEGER_SIGNED_NORMALIZED_32(4, Family.SIGNED_NORMALIZED),
+
+    /**
+     * A signed normalized 64-bit integer, read as a value in {@code [-1, 1]}.
+     */
+
+    INTEGER_SIGNED_NORMALIZED_64(8, Family.SIGNED_NORMALIZED),
+
+    /**
+     * An unsigned normalized 8-bit integer, read as a value in
+     * {@code [0, 1]}.
+     */
+
+    INTEGER_UNSIGNED_NORMALIZED_8(1, Family.UNSIGNED_NORMALIZED),
+
+    /**
+     * An unsigned normalized 16-bit integer, read as a value in
+     * {@code [0, 1]}.
+     */
+
+    INTEGER_UNSIGNED_NORMALIZED_16(2, Family.UNSIGNED_NORMALIZED),
+
+    /**
+     * An unsigned normalized 32-bit integer, read as a value in
+     * {@code [0, 1]}.
+     */
+
+    INTEGER_UNSIGNED_NORMALIZED_32(4, Family.UNSIGNED_NORMALIZED),
+
+    /**
+     * An unsigned normalized 64-bit integer, read as a value in
+     * {@code [0, 1]}.
+     */
+
+    INTEGER_UNSIGNED_NORMALIZED_64(8, Family.UNSIGNED_NORMALIZED),
+
+    /**
+     * A 16-bit IEEE 754 floating point value.
+     */
+
+    FLOAT_16(2, Family.FLOAT),
+
+    /**
+     * A 32-bit IEEE 754 floating point value.
+     */
+
+    FLOAT_32(4, Family.FLOAT),
+
+    /**
+     * A 64-bit IEEE 754 floating point value.
+     */
+
+    FLOAT_64(8, Family.FLOAT);
+
+    private final int size;
+    private final Family family;
+
+    Kind(
+      final int in_size,
+      final Family in_family)
+    {
+      this.size = in_size;
+      this.family = in_family;
+    }
+
+    /**
+     * @return The size in octets of the field
+     */
+
+    public int size()
+    {
+      return this.size;
+    }
+
+    /**
+     * @return {@code true} iff values of the field are read as
+     * {@code double} values rather than integers
+     */
+
+    public boolean isFloating()
+    {
+      return this.family != Family.SIGNED && this.family != Family.UNSIGNED;
+    }
+
+    Family family()
+    {
+      return this.family;
+    }
+  }
+
+  /**
+   * The families of field kinds, distinguished by the way that the raw
+   * values of the field are interpreted.
+   */
+
+  enum Family
+  {
+    SIGNED,
+    UNSIGNED,
+    SIGNED_NORMALIZED,
+    UNSIGNED_NORMALIZED,
+    FLOAT
+  }
+
+  /**
+   * The comparison operators.
+   */
+
+  public enum Comparison
+  {
+    /**
+     * {@code field == value}
+     */
+
+    EQUAL,
+
+    /**
+     * {@code field != value}
+     */
+
+    NOT_EQUAL,
+
+    /**
+     * {@code field < value}
+     */
+
+    LESS,
+
+    /**
+     * {@code field <= value}
+     */
+
+    LESS_OR_EQUAL,
+
+    /**
+     * {@code field > value}
+     */
+
+    GREATER,
+
+    /**
+     * {@code field >= value}
+     */
+
+    GREATER_OR_EQUAL
+  }
+
+  /**
+   * A field of a record.
+   */
+
+  public static final class Field
+  {
+    private final Kind kind;
+    private final int offset;
+
+    private Field(
+      final Kind in_kind,
+      final int in_offset)
+    {
+      this.kind = in_kind;
+      this.offset = in_offset;
+    }
+
+    /**
+     * @param kind   The kind of field
+     * @param offset The offset in octets of the field from the start of the
+     *               record
+     *
+     * @return A field
+     */
+
+    public static Field of(
+      final Kind kind,
+      final int offset)
+    {
+      Objects.requireNonNull(kind, "Kind");
+      if (offset < 0) {
+        throw new IllegalArgumentException(
+          String.format(
+            "Offset %d must be non-negative", Integer.valueOf(offset)));
+      }
+      return new Field(kind, offset);
+    }
+
+    /**
+     * @return The kind of field
+     */
+
+    public Kind kind()
+    {
+      return this.kind;
+    }
+
+    /**
+     * @return The offset in octets of the field from the start of the record
+     */
+
+    public int offset()
+    {
+      return this.offset;
+    }
+
+    private void checkFits(
+      final int element_size)
+    {
+      if (this.offset + this.kind.size > element_size) {
+        throw new IllegalArgumentException(
+          String.format(
+            "Field %s does not fit in records of size %d",
+            this,
+            Integer.valueOf(element_size)));
+      }
+    }
+
+    @Override
+    public String toString()
+    {
+      return String.format(
+        "[%s @ %d]", this.kind, Integer.valueOf(this.offset));
+    }
+  }
+
+  /**
+   * An uncompiled predicate over records.
+   */
+
+  public abstract static class Predicate
+  {
+    private Predicate()
+    {
+
+    }
+
+    /**
+     * Compare an integer field against a constant. For unsigned fields, the
+     * constant is interpreted as unsigned.
+     *
+     * @param field      An integer field
+     * @param comparison The comparison
+     * @param value      The constant
+     *
+     * @return A predicate
+     */
+
+    public static Predicate compare(
+      final Field field,
+      final Comparison comparison,
+      final long value)
+    {
+      Objects.requireNonNull(field, "Field");
+      Objects.requireNonNull(comparison, "Comparison");
+      if (field.kind.isFloating()) {
+        throw new IllegalArgumentException(
+          String.format("Field %s is not an integer field", field));
+      }
+      return new CompareLong(field, comparison, value);
+    }
+
+    /**
+     * Compare a field against a floating point constant. Integer fields are
+     * converted to {@code double} before comparison.
+     *
+     * @param field      A field
+     * @param comparison The comparison
+     * @param value      The constant
+     *
+     * @return A predicate
+     */
+
+    public static Predicate compare(
+      final Field field,
+      final Comparison comparison,
+      final double value)
+    {
+      Objects.requireNonNull(field, "Field");
+      Objects.requireNonNull(comparison, "Comparison");
+      return new CompareDouble(field, comparison, value);
+    }
+
+    /**
+     * @param predicates A list of predicates
+     *
+     * @return A predicate that matches iff all of {@code predicates} match
+     */
+
+    public static Predicate all(
+      final List<Predicate> predicates)
+    {
+      return new All(List.copyOf(predicates));
+    }
+
+    /**
+     * @param predicates A list of predicates
+     *
+     * @return A predicate that matches iff any of {@code predicates} match
+     */
+
+    public static Predicate any(
+      final List<Predicate> predicates)
+    {
+      return new Any(List.copyOf(predicates));
+    }
+
+    /**
+     * @param other Another predicate
+     *
+     * @return A predicate that matches iff this and {@code other} match
+     */
+
+    public final Predicate and(
+      final Predicate other)
+    {
+      return all(List.of(this, other));
+    }
+
+    /**
+     * @param other Another predicate
+     *
+     * @return A predicate that matches iff this or {@code other} match
+     */
+
+    public final Predicate or(
+      final Predicate other)
+    {
+      return any(List.of(this, other));
+    }
+
+    /**
+     * @return A predicate that matches iff this predicate does not
+     */
+
+    public final Predicate negate()
+    {
+      return new Not(this);
+    }
+
+    abstract MatcherType compile(int element_size);
+  }
+
+  private static final class CompareLong extends Predicate
+  {
+    private final Field field;
+    private final Comparison comparison;
+    private final long value;
+
+    CompareLong(
+      final Field in_field,
+      final Comparison in_comparison,
+      final long in_value)
+    {
+      this.field = in_field;
+      this.comparison = in_comparison;
+      this.value = in_value;
+    }
+
+    @Override
+    MatcherType compile(
+      final int element_size)
+    {
+      this.field.checkFits(element_size);
+
+      final LongReaderType r = longReader(this.field.kind, this.field.offset);
+      final long v = this.field.kind == Kind.INTEGER_UNSIGNED_64
+        ? this.value ^ Long.MIN_VALUE
+        : this.value;
+
+      switch (this.comparison) {
+        case EQUAL:
+          return (b, base) -> r.read(b, base) == v;
+        case NOT_EQUAL:
+          return (b, base) -> r.read(b, base) != v;
+        case LESS:
+          return (b, base) -> r.read(b, base) < v;
+        case LESS_OR_EQUAL:
+          return (b, base) -> r.read(b, base) <= v;
+        case GREATER:
+          return (b, base) -> r.read(b, base) > v;
+        case GREATER_OR_EQUAL:
+          return (b, base) -> r.read(b, base) >= v;
+      }
+      throw new AssertionError("Unreachable code!");
+    }
+  }
+
+  private static final class CompareDouble extends Predicate
+  {
+    private final Field field;
+    private final Comparison comparison;
+    private final double value;
+
+    CompareDouble(
+      final Field in_field,
+      final Comparison in_comparison,
+      final double in_value)
+    {
+      this.field = in_field;
+      this.comparison = in_comparison;
+      this.value = in_value;
+    }
+
+    @Override
+    MatcherType compile(
+      final int element_size)
+    {
+      this.field.checkFits(element_size);
+
+      final DoubleReaderType r = doubleReader(this.field.kind, this.field.offset);
+      final double v = this.value;
+
+      switch (this.comparison) {
+        case EQUAL:
+          return (b, base) -> r.read(b, base) == v;
+        case NOT_EQUAL:
+          return (b, base) -> r.read(b, base) != v;
+        case LESS:
+          return (b, base) -> r.read(b, base) < v;
+        case LESS_OR_EQUAL:
+          return (b, base) -> r.read(b, base) <= v;
+        case GREATER:
+          return (b, base) -> r.read(b, base) > v;
+        case GREATER_OR_EQUAL:
+          return (b, base) -> r.read(b, base) >= v;
+      }
+      throw new AssertionError("Unreachable code!");
+    }
+  }
+
+  private static final class All extends Predicate
+  {
+    private final List<Predicate> predicates;
+
+    All(
+      final List<Predicate> in_predicates)
+    {
+      this.predicates = in_predicates;
+    }
+
+    @Override
+    MatcherType compile(
+      final int element_size)
+    {
+      final MatcherType[] ms = compileAll(this.predicates, element_size);
+      switch (ms.length) {
+        case 0:
+          return (b, base) -> true;
+        case 1:
+          return ms[0];
+        case 2: {
+          final MatcherType m0 = ms[0];
+          final MatcherType m1 = ms[1];
+          return (b, base) -> m0.test(b, base) && m1.test(b, base);
+        }
+        default:
+          return (b, base) -> {
+            for (final MatcherType m : ms) {
+              if (!m.test(b, base)) {
+                return false;
+              }
+            }
+            return true;
+          };
+      }
+    }
+  }
+
+  private static final class Any extends Predicate
+  {
+    private final List<Predicate> predicates;
+
+    Any(
+      final List<Predicate> in_predicates)
+    {
+      this.predicates = in_predicates;
+    }
+
+    @Override
+    MatcherType compile(
+      final int element_size)
+    {
+      final MatcherType[] ms = compileAll(this.predicates, element_size);
+      switch (ms.length) {
+        case 0:
+          return (b, base) -> false;
+        case 1:
+          return ms[0];
+        case 2: {
+          final MatcherType m0 = ms[0];
+          final MatcherType m1 = ms[1];
+          return (b, base) -> m0.test(b, base) || m1.test(b, base);
+        }
+        default:
+          return (b, base) -> {
+            for (final MatcherType m : ms) {
+              if (m.test(b, base)) {
+                return true;
+              }
+            }
+            return false;
+          };
+      }
+    }
+  }
+
+  private static final class Not extends Predicate
+  {
+    private final Predicate predicate;
+
+    Not(
+      final Predicate in_predicate)
+    {
+      this.predicate = in_predicate;
+    }
+
+    @Override
+    MatcherType compile(
+      final int element_size)
+    {
+      final MatcherType m = this.predicate.compile(element_size);
+      return (b, base) -> !m.test(b, base);
+    }
+  }
+
+  private static MatcherType[] compileAll(
+    final List<Predicate> predicates,
+    final int element_size)
+  {
+    final MatcherType[] ms = new MatcherType[predicates.size()];
+    for (int index = 0; index < ms.length; ++index) {
+      ms[index] = predicates.get(index).compile(element_size);
+    }
+    return ms;
+  }
+
+  private static LongReaderType longReader(
+    final Kind kind,
+    final int offset)
+  {
+    switch (kind.family()) {
+      case SIGNED:
+        return signedReader(kind.size(), offset);
+      case UNSIGNED:
+        return unsignedReader(kind.size(), offset);
+      case SIGNED_NORMALIZED:
+      case UNSIGNED_NORMALIZED:
+      case FLOAT:
+        break;
+    }
+    throw new AssertionError("Unreachable code!");
+  }
+
+  private static LongReaderType signedReader(
+    final int size,
+    final int offset)
+  {
+    switch (size) {
+      case 1:
+        return (b, base) -> (long) b.get(base + offset);
+      case 2:
+        return (b, base) -> (long) b.getShort(base + offset);
+      case 4:
+        return (b, base) -> (long) b.getInt(base + offset);
+      case 8:
+        return (b, base) -> b.getLong(base + offset);
+      default:
+        throw new AssertionError("Unreachable code!");
+    }
+  }
+
+  /*
+   * Unsigned 64-bit values are biased so that signed comparisons of the
+   * results order the values correctly.
+   */
+
+  private static LongReaderType unsignedReader(
+    final int size,
+    final int offset)
+  {
+    switch (size) {
+      case 1:
+        return (b, base) -> (long) (b.get(base + offset) & 0xff);
+      case 2:
+        return (b, base) -> (long) (b.getShort(base + offset) & 0xffff);
+      case 4:
+        return (b, base) -> (long) b.getInt(base + offset) & 0xffffffffL;
+      case 8:
+        return (b, base) -> b.getLong(base + offset) ^ Long.MIN_VALUE;
+      default:
+        throw new AssertionError("Unreachable code!");
+    }
+  }
+
+  private static DoubleReaderType doubleReader(
+    final Kind kind,
+    final int offset)
+  {
+    switch (kind.family()) {
+      case SIGNED:
+        return integerDoubleReader(kind, offset);
+      case UNSIGNED:
+        if (kind.size() == 8) {
+          return (b, base) -> unsignedToDouble(b.getLong(base + offset));
+        }
+        return integerDoubleReader(kind, offset);
+      case SIGNED_NORMALIZED:
+        return signedNormalizedReader(kind.size(), offset);
+      case UNSIGNED_NORMALIZED:
+        return unsignedNormalizedReader(kind.size(), offset);
+      case FLOAT:
+        return floatReader(kind.size(), offset);
+    }
+    throw new AssertionError("Unreachable code!");
+  }
+
+  private static DoubleReaderType integerDoubleReader(
+    final Kind kind,
+    final int offset)
+  {
+    final LongReaderType r = longReader(kind, offset);
+    return (b, base) -> (double) r.read(b, base);
+  }
+
+  private static DoubleReaderType signedNormalizedReader(
+    final int size,
+    final int offset)
+  {
+    switch (size) {
+      case 1:
+        return (b, base) -> NFPSignedDoubleInt.fromSignedNormalizedWithZero8(
+          (int) b.get(base + offset));
+      case 2:
+        return (b, base) -> NFPSignedDoubleInt.fromSignedNormalizedWithZero16(
+          (int) b.getShort(base + offset));
+      case 4:
+        return (b, base) -> NFPSignedDoubleInt.fromSignedNormalizedWithZero32(
+          b.getInt(base + offset));
+      case 8:
+        return (b, base) -> NFPSignedDoubleLong.fromSignedNormalizedWithZero64(
+          b.getLong(base + offset));
+      default:
+        throw new AssertionError("Unreachable code!");
+    }
+  }
+
+  private static DoubleReaderType unsignedNormalizedReader(
+    final int size,
+    final int offset)
+  {
+    switch (size) {
+      case 1:
+        return (b, base) -> NFPUnsignedDoubleInt.fromUnsignedNormalized8(
+          Byte.toUnsignedInt(b.get(base + offset)));
+      case 2:
+        return (b, base) -> NFPUnsignedDoubleInt.fromUnsignedNormalized16(
+          Short.toUnsignedInt(b.getShort(base + offset)));
+      case 4:
+        return (b, base) -> NFPUnsignedDoubleInt.fromUnsignedNormalized32(
+          b.getInt(base + offset));
+      case 8:
+        return (b, base) -> NFPUnsignedDoubleLong.fromUnsignedNormalized64(
+          b.getLong(base + offset));
+      default:
+        throw new AssertionError("Unreachable code!");
+    }
+  }
+
+  private static DoubleReaderType floatReader(
+    final int size,
+    final int offset)
+  {
+    switch (size) {
+      case 2:
+        return (b, base) -> Binary16.unpackDouble(b.getChar(base + offset));
+      case 4:
+        return (b, base) -> (double) b.getFloat(base + offset);
+      case 8:
+        return (b, base) -> b.getDouble(base + offset);
+      default:
+        throw new AssertionError("Unreachable code!");
+    }
+  }
+
+  private static double unsignedToDouble(
+    final long x)
+  {
+    final double high = (double) (x >>> 1) * 2.0;
+    return high + (double) (x & 1L);
+  }
+
+  @FunctionalInterface
+  private interface MatcherType
+  {
+    boolean test(
+      ByteBuffer buffer,
+      int base);
+  }
+
+  @FunctionalInterface
+  private interface LongReaderType
+  {
+    long read(
+      ByteBuffer buffer,
+      int base);
+  }
+
+  @FunctionalInterface
+  private interface DoubleReaderType
+  {
+    double read(
+      ByteBuffer buffer,
+      int base);
+  }
+}
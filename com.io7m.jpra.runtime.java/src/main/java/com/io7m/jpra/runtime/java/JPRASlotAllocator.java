@@ -0,0 +1,384 @@
+/*
+ * Copyright © 2015 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.jpra.runtime.java;
+
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
+/**
+ * <p>An allocator of fixed-size slots within a {@link ByteBuffer}, handing
+ * out stable handles that survive the freeing of other slots.</p>
+ *
+ * <p>Allocation and freeing are constant time and never move elements. Free
+ * slots form an intrusive singly linked list: the index of the next free
+ * slot is stored in the first four octets of each freed slot, so elements
+ * must be at least four octets in size. Slots that have never been
+ * allocated are handed out in ascending order once the free list is
+ * empty.</p>
+ *
+ * <p>A handle is a {@code long} holding the slot index in its low 32 bits.
+ * If the allocator tracks generations, the high 32 bits hold the generation
+ * of the slot at the time of allocation; the generation of a slot is
+ * incremented each time it is freed, so handles to freed slots are detected
+ * as stale even if the slot has since been reused. Generations wrap around
+ * after 2<sup>32</sup> frees of the same slot. Without generation tracking,
+ * a handle is simply the slot index.</p>
+ *
+ * <p>Live slots are recorded in a bitmap, and can be iterated in ascending
+ * slot order with {@link #forEachLive(SlotReceiverType)}.</p>
+ *
+ * <p>Instances are not thread-safe.</p>
+ *
+ * @param <T> The type of elements
+ */
+
+public final class JPRASlotAllocator<T extends JPRAValueType>
+{
+  private static final int NO_SLOT = -1;
+
+  private final ByteBuffer buffer;
+  private final JPRACursor1DType<T> cursor;
+  private final int element_size;
+  private final int capacity;
+  private final long[] live;
+  private final int[] generations;
+  private int free_head;
+  private int fresh;
+  private int live_count;
+
+  private JPRASlotAllocator(
+    final ByteBuffer in_buffer,
+    final JPRACursor1DType<T> in_cursor,
+    final int in_element_size,
+    final boolean in_generations)
+  {
+    this.buffer = in_buffer;
+    this.cursor = in_cursor;
+    this.element_size = in_element_size;
+    this.capacity = in_buffer.capacity() / in_element_size;
+    this.live = new long[(this.capacity + 63) >>> 6];
+    this.generations = in_generations ? new int[this.capacity] : null;
+    this.free_head = NO_SLOT;
+    this.fresh = 0;
+    this.live_count = 0;
+  }
+
+  /**
+   * Create a new allocator over the given buffer. The allocator assumes
+   * ownership of the entire buffer.
+   *
+   * @param buffer      The buffer
+   * @param cons        An element value constructor
+   * @param generations {@code true} iff generation counters should be kept
+   *                    to detect stale handles
+   * @param <T>         The type of elements
+   *
+   * @return A new allocator with all slots free
+   */
+
+  public static <T extends JPRAValueType> JPRASlotAllocator<T> create(
+    final ByteBuffer buffer,
+    final JPRAValueByteBufferedConstructorType<T> cons,
+    final boolean generations)
+  {
+    Objects.requireNonNull(buffer, "Buffer");
+    Objects.requireNonNull(cons, "Constructor");
+
+    final JPRACursor1DType<T> cursor =
+      JPRACursor1DByteBufferedChecked.newCursor(buffer, cons);
+    final int size = cursor.getElementView().sizeOctets();
+    if (size < 4) {
+      throw new IllegalArgumentException(
+        String.format(
+          "Element size %d must be at least 4 to hold a free list link",
+          Integer.valueOf(size)));
+    }
+    return new JPRASlotAllocator<>(buffer, cursor, size, generations);
+  }
+
+  /**
+   * @param handle A handle
+   *
+   * @return The slot index of the handle
+   */
+
+  public static int slotOf(
+    final long handle)
+  {
+    return (int) handle;
+  }
+
+  /**
+   * @param handle A handle
+   *
+   * @return The generation of the handle
+   */
+
+  public static int generationOf(
+    final long handle)
+  {
+    return (int) (handle >>> 32);
+  }
+
+  private long handleFor(
+    final int slot)
+  {
+    final long generation =
+      this.generations == null ? 0L : (long) this.generations[slot];
+    return (generation << 32) | ((long) slot & 0xffffffffL);
+  }
+
+  /**
+   * @return The total number of slots
+   */
+
+  public int capacity()
+  {
+    return this.capacity;
+  }
+
+  /**
+   * @return The number of allocated slots
+   */
+
+  public int liveCount()
+  {
+    return this.live_count;
+  }
+
+  /**
+   * @return {@code true} iff every slot is allocated
+   */
+
+  public boolean isFull()
+  {
+    return this.live_count == this.capacity;
+  }
+
+  /**
+   * @return The size in octets of an element
+   */
+
+  public int elementSize()
+  {
+    return this.element_size;
+  }
+
+  /**
+   * @return The underlying buffer
+   */
+
+  public ByteBuffer buffer()
+  {
+    return this.buffer;
+  }
+
+  /**
+   * Allocate a slot. The contents of the slot are zero-filled.
+   *
+   * @return A handle to the allocated slot
+   *
+   * @throws IllegalStateException If all slots are allocated
+   */
+
+  public long allocate()
+    throws IllegalStateException
+  {
+    final int slot;
+    if (this.free_head != NO_SLOT) {
+      slot = this.free_head;
+      this.free_head = this.buffer.getInt(slot * this.element_size);
+    } else if (this.fresh < this.capacity) {
+      slot = this.fresh;
+      ++this.fresh;
+    } else {
+      throw new IllegalStateException(
+        String.format(
+          "All %d slots are allocated", Integer.valueOf(this.capacity)));
+    }
+
+    final int offset = slot * this.element_size;
+    for (int octet = 0; octet < this.element_size; ++octet) {
+      this.buffer.put(offset + octet, (byte) 0);
+    }
+
+    this.live[slot >>> 6] |= 1L << slot;
+    ++this.live_count;
+    return this.handleFor(slot);
+  }
+
+  /**
+   * @param handle A handle
+   *
+   * @return {@code true} iff {@code handle} refers to a currently allocated
+   * slot (and, if generations are tracked, was issued by the most recent
+   * allocation of that slot)
+   */
+
+  public boolean isValid(
+    final long handle)
+  {
+    final int slot = slotOf(handle);
+    if (slot < 0 || slot >= this.capacity) {
+      return false;
+    }
+    if ((this.live[slot >>> 6] & (1L << slot)) == 0L) {
+      return false;
+    }
+    if (this.generations == null) {
+      return generationOf(handle) == 0;
+    }
+    return this.generations[slot] == generationOf(handle);
+  }
+
+  private int checkHandle(
+    final long handle)
+  {
+    if (!this.isValid(handle)) {
+      throw new IllegalArgumentException(
+        String.format(
+          "Handle 0x%016x does not refer to a live slot",
+          Long.valueOf(handle)));
+    }
+    return slotOf(handle);
+  }
+
+  /**
+   * Free the slot referred to by {@code handle}. The slot becomes available
+   * to subsequent allocations.
+   *
+   * @param handle A handle
+   *
+   * @throws IllegalArgumentException If the handle is stale or invalid
+   */
+
+  public void free(
+    final long handle)
+    throws IllegalArgumentException
+  {
+    final int slot = this.checkHandle(handle);
+    this.live[slot >>> 6] &= ~(1L << slot);
+    --this.live_count;
+    if (this.generations != null) {
+      ++this.generations[slot];
+    }
+    this.buffer.putInt(slot * this.element_size, this.free_head);
+    this.free_head = slot;
+  }
+
+  /**
+   * Position the allocator's element view on the slot referred to by {@code
+   * handle}.
+   *
+   * @param handle A handle
+   *
+   * @return The element view
+   *
+   * @throws IllegalArgumentException If the handle is stale or invalid
+   */
+
+  public T select(
+    final long handle)
+    throws IllegalArgumentException
+  {
+    this.cursor.setElementIndex(this.checkHandle(handle));
+    return this.cursor.getElementView();
+  }
+
+  /**
+   * Pass a handle for each allocated slot to {@code receiver}, in ascending
+   * slot order. The receiver may free the slot it is given; slots allocated
+   * during iteration may or may not be visited.
+   *
+   * @param receiver The receiver
+   * @param <E>      The type of exceptions raised by the receiver
+   *
+   * @throws E If the receiver raises {@code E}
+   */
+
+  public <E extends Exception> void forEachLive(
+    final SlotReceiverType<E> receiver)
+    throws E
+  {
+    Objects.requireNonNull(receiver, "Receiver");
+    for (int w = 0; w < this.live.length; ++w) {
+      long bits = this.live[w];
+      while (bits != 0L) {
+        final int slot = (w << 6) + Long.numberOfTrailingZeros(bits);
+        bits &= bits - 1L;
+        receiver.receive(this.handleFor(slot));
+      }
+    }
+  }
+
+  /**
+   * Free all slots. If generations are tracked, every outstanding handle
+   * becomes stale.
+   */
+
+  public void clear()
+  {
+    if (this.generations != null) {
+      for (int w = 0; w < this.live.length; ++w) {
+        long bits = this.live[w];
+        while (bits != 0L) {
+          ++this.generations[(w << 6) + Long.numberOfTrailingZeros(bits)];
+          bits &= bits - 1L;
+        }
+      }
+    }
+    for (int w = 0; w < this.live.length; ++w) {
+      this.live[w] = 0L;
+    }
+    this.free_head = NO_SLOT;
+    this.fresh = 0;
+    this.live_count = 0;
+  }
+
+  @Override
+  public String toString()
+  {
+    final StringBuilder sb = new StringBuilder(64);
+    sb.append("[JPRASlotAllocator live=");
+    sb.append(this.live_count);
+    sb.append(" capacity=");
+    sb.append(this.capacity);
+    sb.append(']');
+    return sb.toString();
+  }
+
+  /**
+   * A receiver of slot handles.
+   *
+   * @param <E> The type of exceptions raised
+   */
+
+  @FunctionalInterface
+  public interface SlotReceiverType<E extends Exception>
+  {
+    /**
+     * Receive a handle.
+     *
+     * @param handle The handle of a live slot
+     *
+     * @throws E On errors
+     */
+
+    void receive(long handle)
+      throws E;
+  }
+}
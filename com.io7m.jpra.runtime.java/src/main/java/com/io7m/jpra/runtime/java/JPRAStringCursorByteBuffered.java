@@ -25,9 +25,10 @@ import java.util.Objects;
  * underlying {@link ByteBuffer}.
  */
 
-public final class JPRAStringCursorByteBuffered implements JPRAStringCursorType
+public final class JPRAStringCursorByteBuffered
+  implements JPRAStringCursorType, JPRAByteBufferedRebindableType
 {
-  private final ByteBuffer buffer;
+  private ByteBuffer buffer;
   private final int max_length;
   private final JPRACursorByteReadableType cursor;
   private final int offset;
@@ -89,6 +90,12 @@ public final class JPRAStringCursorByteBuffered implements JPRAStringCursorType
       in_max_length);
   }
 
+  @Override
+  public void rebind(final ByteBuffer in_buffer)
+  {
+    this.buffer = Objects.requireNonNull(in_buffer, "Buffer");
+  }
+
   private int getOffsetForStringByte(final int i)
   {
     final int data_start = this.getOffsetForDataStart();
@@ -22,6 +22,8 @@ module com.io7m.jpra.runtime.java
 {
   requires static org.immutables.value;
 
+  requires com.io7m.ieee754b16.core;
+  requires com.io7m.jnfp.core;
   requires com.io7m.mutable.numbers.core;
 
   exports com.io7m.jpra.runtime.java;
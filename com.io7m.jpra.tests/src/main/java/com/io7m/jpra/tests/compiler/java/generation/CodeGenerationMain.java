@@ -22,15 +22,16 @@ import com.io7m.jpra.compiler.core.checker.JPRACheckerStandardCapabilities;
 import com.io7m.jpra.compiler.core.driver.JPRADriver;
 import com.io7m.jpra.compiler.core.driver.JPRADriverType;
 import com.io7m.jpra.compiler.java.JPRAJavaGenerator;
+import com.io7m.jpra.compiler.java.JPRAJavaGeneratorFeature;
 import com.io7m.jpra.compiler.java.JPRAJavaGeneratorType;
 import com.io7m.jpra.compiler.java.JPRAJavaWriter;
 import com.io7m.jpra.compiler.java.JPRAJavaWriterType;
 import com.io7m.jpra.core.JPRAException;
-import com.io7m.jpra.model.contexts.GlobalContextType;
 import com.io7m.jpra.model.contexts.PackageContextType;
 import com.io7m.jpra.model.loading.JPRAModelLoadingException;
 import com.io7m.jpra.model.names.PackageNameQualified;
 import com.io7m.jpra.model.names.TypeName;
+import com.io7m.jpra.model.types.TRecord;
 import com.io7m.jpra.model.types.TypeUserDefinedType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -39,7 +40,9 @@ import java.io.IOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Queue;
@@ -61,6 +64,116 @@ public final class CodeGenerationMain
     throw new AssertionError("Unreachable code!");
   }
 
+  private static PackageNameQualified generationPackage(
+    final String name)
+  {
+    return PackageNameQualified.valueOf(
+      "com.io7m.jpra.tests.compiler.java.generation." + name);
+  }
+
+  private static void reportIOError(
+    final IOException e)
+  {
+    System.err.printf("i/o error: %s", e);
+    System.err.println();
+  }
+
+  /**
+   * Compile the given packages, printing all errors.
+   *
+   * @return {@code true} iff no errors occurred
+   */
+
+  private static boolean compile(
+    final JPRADriverType driver,
+    final List<PackageNameQualified> pack_names)
+  {
+    final JPRAProblemFormatterType fmt = JPRAProblemFormatter.newFormatter();
+    boolean ok = true;
+
+    LOG.debug("checking {}", pack_names);
+
+    try {
+      driver.compilePackages(pack_names);
+    } catch (final JPRAModelLoadingException e) {
+      ok = false;
+    }
+
+    final Queue<JPRAException> q = driver.getGlobalContext().getErrorQueue();
+    final Iterator<JPRAException> iter = q.iterator();
+    while (iter.hasNext()) {
+      final JPRAException e = iter.next();
+      fmt.onJPRAException(System.err, e);
+      iter.remove();
+      ok = false;
+    }
+    return ok;
+  }
+
+  /**
+   * Write each package with its writer, batching the packages that share a
+   * writer.
+   *
+   * @return {@code true} iff no errors occurred
+   */
+
+  private static boolean writePackages(
+    final Path target_directory,
+    final Map<PackageNameQualified, JPRAJavaWriterType> writers,
+    final Map<PackageNameQualified, PackageContextType> packs)
+  {
+    final Map<JPRAJavaWriterType, List<PackageContextType>> batches =
+      new LinkedHashMap<>();
+    for (final PackageNameQualified pack_name : writers.keySet()) {
+      batches.computeIfAbsent(
+        writers.get(pack_name), w -> new ArrayList<>()).add(
+        packs.get(pack_name));
+    }
+
+    boolean ok = true;
+    for (final JPRAJavaWriterType w : batches.keySet()) {
+      try {
+        w.writePackages(target_directory, batches.get(w));
+      } catch (final IOException e) {
+        ok = false;
+        reportIOError(e);
+      }
+    }
+    return ok;
+  }
+
+  /**
+   * Write a migrator for each record type that appears in both packages.
+   *
+   * @return {@code true} iff no errors occurred
+   */
+
+  private static boolean writeMigrators(
+    final JPRAJavaWriterType writer,
+    final Path target_directory,
+    final PackageContextType v1,
+    final PackageContextType v2)
+  {
+    final Map<TypeName, TypeUserDefinedType> v1_types = v1.getTypes();
+    final Map<TypeName, TypeUserDefinedType> v2_types = v2.getTypes();
+
+    boolean ok = true;
+    for (final TypeName t_name : v2_types.keySet()) {
+      final TypeUserDefinedType source = v1_types.get(t_name);
+      final TypeUserDefinedType target = v2_types.get(t_name);
+      if (source instanceof TRecord && target instanceof TRecord) {
+        try {
+          writer.writeMigrator(
+            target_directory, (TRecord) source, (TRecord) target);
+        } catch (final IOException e) {
+          ok = false;
+          reportIOError(e);
+        }
+      }
+    }
+    return ok;
+  }
+
   /**
    * Main entry point.
    *
@@ -82,63 +195,50 @@ public final class CodeGenerationMain
     LOG.debug("source directory: {}", source_directory);
     LOG.debug("target directory: {}", target_directory);
 
-    final List<PackageNameQualified> pack_names = new ArrayList<>();
-    pack_names.add(
-      PackageNameQualified.valueOf(
-        "com.io7m.jpra.tests.compiler.java.generation.code"));
+    final PackageNameQualified code_name = generationPackage("code");
+    final PackageNameQualified instrumented_name =
+      generationPackage("instrumented");
+    final PackageNameQualified v1_name = generationPackage("v1");
+    final PackageNameQualified v2_name = generationPackage("v2");
+
+    final JPRAJavaGeneratorType gen = JPRAJavaGenerator.newGeneratorWithFeatures(
+      EnumSet.of(
+        JPRAJavaGeneratorFeature.VALUE_CLASSES,
+        JPRAJavaGeneratorFeature.COLUMN_ACCESS,
+        JPRAJavaGeneratorFeature.BLOCK_COMPRESSION));
+    final JPRAJavaGeneratorType gen_instrumented =
+      JPRAJavaGenerator.newGeneratorWithFeatures(
+        EnumSet.of(JPRAJavaGeneratorFeature.ACCESS_STATISTICS));
 
-    final JPRAJavaGeneratorType gen = JPRAJavaGenerator.newGenerator();
-    final JPRAProblemFormatterType fmt = JPRAProblemFormatter.newFormatter();
     final JPRAJavaWriterType writer = JPRAJavaWriter.newWriter(gen);
+    final JPRAJavaWriterType writer_instrumented =
+      JPRAJavaWriter.newWriter(gen_instrumented);
+
+    final Map<PackageNameQualified, JPRAJavaWriterType> writers =
+      new LinkedHashMap<>();
+    writers.put(code_name, writer);
+    writers.put(instrumented_name, writer_instrumented);
+    writers.put(v1_name, writer);
+    writers.put(v2_name, writer);
 
-    boolean error = false;
     final JPRADriverType driver = JPRADriver.newDriver(
       source_directory, JPRACheckerStandardCapabilities.newCapabilities());
-    final GlobalContextType gc = driver.getGlobalContext();
-
-    for (final PackageNameQualified pack_name : pack_names) {
-      LOG.debug("checking {}", pack_name);
-
-      try {
-        driver.compilePackage(pack_name);
-      } catch (final JPRAModelLoadingException e) {
-        error = true;
-      }
 
-      final Queue<JPRAException> q = gc.getErrorQueue();
-      final Iterator<JPRAException> iter = q.iterator();
-      while (iter.hasNext()) {
-        final JPRAException e = iter.next();
-        fmt.onJPRAException(System.err, e);
-        iter.remove();
-        error = true;
-      }
-    }
-
-    if (!error) {
+    boolean ok = compile(driver, new ArrayList<>(writers.keySet()));
+    if (ok) {
       LOG.debug("generating code");
 
       final Map<PackageNameQualified, PackageContextType> packs =
-        gc.getPackages();
-
-      for (final PackageNameQualified pack_name : pack_names) {
-        final PackageContextType pack = packs.get(pack_name);
-        final Map<TypeName, TypeUserDefinedType> types = pack.getTypes();
-        for (final TypeName t_name : types.keySet()) {
-          final TypeUserDefinedType type = types.get(t_name);
-          try {
-            writer.writeType(target_directory, type);
-          } catch (final IOException e) {
-            error = true;
-            System.err.printf("i/o error: %s", e);
-            System.err.println();
-          }
-        }
-      }
+        driver.getGlobalContext().getPackages();
+
+      ok = writePackages(target_directory, writers, packs);
+      ok = writeMigrators(
+        writer, target_directory, packs.get(v1_name), packs.get(v2_name))
+        && ok;
     }
 
     System.err.flush();
-    if (error) {
+    if (!ok) {
       throw new IOException("Failed compilation");
     }
   }
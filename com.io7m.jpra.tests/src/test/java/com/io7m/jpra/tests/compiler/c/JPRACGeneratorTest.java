@@ -0,0 +1,480 @@
+/*
+ * Copyright © 2015 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.jpra.tests.compiler.c;
+
+import com.io7m.jlexing.core.LexicalPosition;
+import com.io7m.jpra.compiler.c.JPRACGenerator;
+import com.io7m.jpra.compiler.c.JPRACWriter;
+import com.io7m.jpra.compiler.c.JPRACWriterType;
+import com.io7m.jpra.model.contexts.GlobalContextType;
+import com.io7m.jpra.model.contexts.GlobalContexts;
+import com.io7m.jpra.model.contexts.PackageContextType;
+import com.io7m.jpra.model.names.FieldName;
+import com.io7m.jpra.model.names.PackageNameQualified;
+import com.io7m.jpra.model.names.PackageNameUnqualified;
+import com.io7m.jpra.model.names.TypeName;
+import com.io7m.jpra.model.names.UnionCaseName;
+import com.io7m.jpra.model.types.Size;
+import com.io7m.jpra.model.types.TArray;
+import com.io7m.jpra.model.types.TBooleanSet;
+import com.io7m.jpra.model.types.TFloat;
+import com.io7m.jpra.model.types.TIntegerSigned;
+import com.io7m.jpra.model.types.TIntegerUnsigned;
+import com.io7m.jpra.model.types.TMatrix;
+import com.io7m.jpra.model.types.TPacked;
+import com.io7m.jpra.model.types.TPackedBuilderType;
+import com.io7m.jpra.model.types.TRecord;
+import com.io7m.jpra.model.types.TRecordBuilderType;
+import com.io7m.jpra.model.types.TString;
+import com.io7m.jpra.model.types.TUnion;
+import com.io7m.jpra.model.types.TUnionBuilderType;
+import com.io7m.jpra.model.types.TVector;
+import com.io7m.jpra.tests.compiler.java.AlwaysEmptyLoader;
+import io.vavr.collection.List;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+public final class JPRACGeneratorTest
+{
+  private static final LexicalPosition<URI> LEX_ZERO =
+    LexicalPosition.of(0, 0, Optional.empty());
+
+  private static final Logger LOG;
+
+  static {
+    LOG = LoggerFactory.getLogger(JPRACGeneratorTest.class);
+  }
+
+  private static FieldName field(
+    final String name)
+  {
+    return FieldName.of(LEX_ZERO, name);
+  }
+
+  private static PackageContextType newPackage(
+    final GlobalContextType gc)
+    throws Exception
+  {
+    return gc.loadPackage(
+      new PackageNameQualified(
+        List.of(
+          PackageNameUnqualified.of(LEX_ZERO, "x"),
+          PackageNameUnqualified.of(LEX_ZERO, "y"))));
+  }
+
+  private static TPacked newColor(
+    final GlobalContextType gc,
+    final PackageContextType pc)
+  {
+    final TPackedBuilderType pb = TPacked.newBuilder(
+      pc, gc.getFreshIdentifier(), TypeName.of(LEX_ZERO, "Color565"));
+    pb.addField(
+      field("r"),
+      gc.getFreshIdentifier(),
+      new TIntegerUnsigned(LEX_ZERO, Size.valueOf(5L)));
+    pb.addField(
+      field("g"),
+      gc.getFreshIdentifier(),
+      new TIntegerUnsigned(LEX_ZERO, Size.valueOf(6L)));
+    pb.addField(
+      field("b"),
+      gc.getFreshIdentifier(),
+      new TIntegerUnsigned(LEX_ZERO, Size.valueOf(5L)));
+    return pb.build();
+  }
+
+  private static String read(
+    final Path file)
+    throws IOException
+  {
+    return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+  }
+
+  private static boolean haveCompiler()
+  {
+    try {
+      final Process p =
+        new ProcessBuilder("cc", "--version").redirectErrorStream(true)
+          .start();
+      p.getInputStream().readAllBytes();
+      return p.waitFor(30L, TimeUnit.SECONDS) && p.exitValue() == 0;
+    } catch (final IOException e) {
+      return false;
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+
+  private static int run(
+    final Path directory,
+    final String... command)
+    throws Exception
+  {
+    final Process p =
+      new ProcessBuilder(Arrays.asList(command))
+        .directory(directory.toFile())
+        .redirectErrorStream(true)
+        .start();
+    final String output =
+      new String(p.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+    Assert.assertTrue(p.waitFor(60L, TimeUnit.SECONDS));
+    if (p.exitValue() != 0) {
+      LOG.error("{}: {}", command[0], output);
+    }
+    return p.exitValue();
+  }
+
+  /**
+   * Compile (and optionally run) a C program against the headers in
+   * {@code directory}. The test is skipped if no C compiler is available.
+   */
+
+  private static void compileC(
+    final Path directory,
+    final String program,
+    final boolean execute)
+    throws Exception
+  {
+    Assume.assumeTrue("A C compiler is available", haveCompiler());
+
+    Files.write(
+      directory.resolve("main.c"),
+      program.getBytes(StandardCharsets.UTF_8));
+
+    final ArrayList<String> args = new ArrayList<>();
+    args.add("cc");
+    args.add("-std=c11");
+    args.add("-Wall");
+    args.add("-Wextra");
+    args.add("-Wconversion");
+    args.add("-pedantic");
+    args.add("-Werror");
+    args.add("-I");
+    args.add(directory.toString());
+    if (execute) {
+      args.add("-o");
+      args.add("main");
+    } else {
+      args.add("-fsyntax-only");
+    }
+    args.add("main.c");
+
+    Assert.assertEquals(
+      0L, (long) run(directory, args.toArray(new String[0])));
+    if (execute) {
+      Assert.assertEquals(
+        0L, (long) run(directory, directory.resolve("main").toString()));
+    }
+  }
+
+  @Test
+  public void testRecordEmpty()
+    throws Exception
+  {
+    final GlobalContextType gc =
+      GlobalContexts.newContext(new AlwaysEmptyLoader());
+    final PackageContextType pc = newPackage(gc);
+    final TRecordBuilderType rb = TRecord.newBuilder(
+      pc, gc.getFreshIdentifier(), TypeName.of(LEX_ZERO, "Empty"));
+    final TRecord r = rb.build();
+
+    final Path dir = Files.createTempDirectory("jpra-c-");
+    final JPRACWriterType w = JPRACWriter.newWriter(
+      JPRACGenerator.newGenerator());
+    w.writeType(dir, r);
+
+    final String text = read(dir.resolve("x/y/Empty.h"));
+    Assert.assertTrue(text.contains("#ifndef X_Y_EMPTY_H"));
+    Assert.assertFalse(text.contains("struct x_y_Empty"));
+
+    compileC(dir, "#include \"x/y/Empty.h\"\nint main(void) { return 0; }\n",
+             false);
+  }
+
+  @Test
+  public void testRecordLayout()
+    throws Exception
+  {
+    final GlobalContextType gc =
+      GlobalContexts.newContext(new AlwaysEmptyLoader());
+    final PackageContextType pc = newPackage(gc);
+    final TPacked color = newColor(gc, pc);
+
+    final TFloat f32 = new TFloat(LEX_ZERO, Size.valueOf(32L));
+    final TRecordBuilderType rb = TRecord.newBuilder(
+      pc, gc.getFreshIdentifier(), TypeName.of(LEX_ZERO, "Vertex"));
+    rb.addField(
+      field("kind"),
+      gc.getFreshIdentifier(),
+      new TIntegerUnsigned(LEX_ZERO, Size.valueOf(8L)));
+    rb.addField(
+      field("position"),
+      gc.getFreshIdentifier(),
+      new TVector(LEX_ZERO, Size.valueOf(3L), f32));
+    rb.addField(field("color"), gc.getFreshIdentifier(), color);
+    rb.addPaddingOctets(LEX_ZERO, Size.valueOf(3L));
+    rb.addField(
+      field("name"),
+      gc.getFreshIdentifier(),
+      new TString(LEX_ZERO, "UTF-8", Size.valueOf(8L)));
+    rb.addField(
+      field("flags"),
+      gc.getFreshIdentifier(),
+      new TBooleanSet(
+        LEX_ZERO,
+        List.of(field("alive"), field("visible")),
+        Size.valueOf(1L)));
+    rb.addField(
+      field("transform"),
+      gc.getFreshIdentifier(),
+      new TMatrix(LEX_ZERO, Size.valueOf(4L), Size.valueOf(4L), f32));
+    rb.addField(
+      field("normals"),
+      gc.getFreshIdentifier(),
+      new TArray(
+        LEX_ZERO,
+        Size.valueOf(2L),
+        new TVector(LEX_ZERO, Size.valueOf(3L), f32)));
+    rb.addField(
+      field("long"),
+      gc.getFreshIdentifier(),
+      new TIntegerSigned(LEX_ZERO, Size.valueOf(64L)));
+    final TRecord r = rb.build();
+
+    final Path dir = Files.createTempDirectory("jpra-c-");
+    final JPRACWriterType w = JPRACWriter.newWriter(
+      JPRACGenerator.newGenerator());
+    w.writeType(dir, color);
+    w.writeType(dir, r);
+
+    final String text = read(dir.resolve("x/y/Vertex.h"));
+    Assert.assertTrue(text.contains("#include \"x/y/Color565.h\""));
+    Assert.assertTrue(text.contains("uint8_t padding_0[3];"));
+    Assert.assertTrue(text.contains("int64_t long_;"));
+    Assert.assertTrue(text.contains("float normals[2][3];"));
+    Assert.assertTrue(text.contains("float transform[16];"));
+    Assert.assertTrue(
+      text.contains("sizeof(struct x_y_Vertex) == 127"));
+    Assert.assertTrue(
+      text.contains("offsetof(struct x_y_Vertex, color) == 13"));
+    Assert.assertTrue(
+      text.contains("offsetof(struct x_y_Vertex, name) == 18"));
+    Assert.assertTrue(
+      text.contains("offsetof(struct x_y_Vertex, long_) == 119"));
+
+    compileC(
+      dir,
+      String.join(
+        "\n",
+        "#include \"x/y/Vertex.h\"",
+        "int main(void)",
+        "{",
+        "  struct x_y_Vertex v = {0};",
+        "  X_Y_VERTEX_FLAGS_VISIBLE_SET(&v, 1);",
+        "  if (v.flags[0] != 0x40u) { return 1; }",
+        "  if (X_Y_VERTEX_FLAGS_ALIVE_GET(&v) != 0) { return 1; }",
+        "  X_Y_VERTEX_FLAGS_VISIBLE_SET(&v, 0);",
+        "  return v.flags[0];",
+        "}",
+        ""),
+      true);
+  }
+
+  @Test
+  public void testPackedMacros()
+    throws Exception
+  {
+    final GlobalContextType gc =
+      GlobalContexts.newContext(new AlwaysEmptyLoader());
+    final PackageContextType pc = newPackage(gc);
+    final TPacked color = newColor(gc, pc);
+
+    final Path dir = Files.createTempDirectory("jpra-c-");
+    final JPRACWriterType w = JPRACWriter.newWriter(
+      JPRACGenerator.newGenerator());
+    w.writeType(dir, color);
+
+    final String text = read(dir.resolve("x/y/Color565.h"));
+    Assert.assertTrue(text.contains("uint8_t octets[2];"));
+    Assert.assertTrue(text.contains("#define X_Y_COLOR565_R_GET(s)"));
+    Assert.assertTrue(text.contains("#define X_Y_COLOR565_B_SET(s, v)"));
+
+    compileC(
+      dir,
+      String.join(
+        "\n",
+        "#include \"x/y/Color565.h\"",
+        "int main(void)",
+        "{",
+        "  struct x_y_Color565 c = {{0}};",
+        "  X_Y_COLOR565_R_SET(&c, 31);",
+        "  X_Y_COLOR565_B_SET(&c, 1);",
+        "  if (c.octets[0] != 0xf8u || c.octets[1] != 0x01u) { return 1; }",
+        "  if (X_Y_COLOR565_R_GET(&c) != 31u) { return 1; }",
+        "  if (X_Y_COLOR565_G_GET(&c) != 0u) { return 1; }",
+        "  X_Y_COLOR565_G_SET(&c, 0x7f);",
+        "  if (X_Y_COLOR565_G_GET(&c) != 0x3fu) { return 1; }",
+        "  if (X_Y_COLOR565_R_GET(&c) != 31u) { return 1; }",
+        "  return 0;",
+        "}",
+        ""),
+      true);
+  }
+
+  @Test
+  public void testUnionLayout()
+    throws Exception
+  {
+    final GlobalContextType gc =
+      GlobalContexts.newContext(new AlwaysEmptyLoader());
+    final PackageContextType pc = newPackage(gc);
+    final TPacked color = newColor(gc, pc);
+
+    final TRecordBuilderType rb = TRecord.newBuilder(
+      pc, gc.getFreshIdentifier(), TypeName.of(LEX_ZERO, "Point"));
+    rb.addField(
+      field("x"),
+      gc.getFreshIdentifier(),
+      new TIntegerSigned(LEX_ZERO, Size.valueOf(32L)));
+    rb.addField(
+      field("y"),
+      gc.getFreshIdentifier(),
+      new TIntegerSigned(LEX_ZERO, Size.valueOf(32L)));
+    final TRecord point = rb.build();
+
+    final TRecordBuilderType cb = TRecord.newBuilder(
+      pc, gc.getFreshIdentifier(), TypeName.of(LEX_ZERO, "Paint"));
+    cb.addField(field("color"), gc.getFreshIdentifier(), color);
+    final TRecord paint = cb.build();
+
+    final TUnionBuilderType ub = TUnion.newBuilder(
+      pc,
+      gc.getFreshIdentifier(),
+      TypeName.of(LEX_ZERO, "Event"),
+      new TIntegerUnsigned(LEX_ZERO, Size.valueOf(16L)));
+    ub.addCase(
+      UnionCaseName.of(LEX_ZERO, "Move"), gc.getFreshIdentifier(), point);
+    ub.addCase(
+      UnionCaseName.of(LEX_ZERO, "Fill"), gc.getFreshIdentifier(), paint);
+    final TUnion u = ub.build();
+
+    final Path dir = Files.createTempDirectory("jpra-c-");
+    final JPRACWriterType w = JPRACWriter.newWriter(
+      JPRACGenerator.newGenerator());
+    w.writeType(dir, color);
+    w.writeType(dir, point);
+    w.writeType(dir, paint);
+    w.writeType(dir, u);
+
+    final String text = read(dir.resolve("x/y/Event.h"));
+    Assert.assertTrue(text.contains("#include \"x/y/Point.h\""));
+    Assert.assertTrue(text.contains("#define X_Y_EVENT_MOVE 0u"));
+    Assert.assertTrue(text.contains("#define X_Y_EVENT_FILL 1u"));
+    Assert.assertTrue(text.contains("uint16_t tag;"));
+    Assert.assertTrue(text.contains("} cases;"));
+    Assert.assertTrue(
+      text.contains("sizeof(struct x_y_Event) == 10"));
+    Assert.assertTrue(
+      text.contains("offsetof(struct x_y_Event, cases) == 2"));
+
+    compileC(
+      dir,
+      String.join(
+        "\n",
+        "#include \"x/y/Event.h\"",
+        "int main(void)",
+        "{",
+        "  struct x_y_Event e = {0};",
+        "  e.tag = X_Y_EVENT_FILL;",
+        "  X_Y_COLOR565_R_SET(&e.cases.Fill.color, 31);",
+        "  if (e.cases.Move.x == 0) { return 1; }",
+        "  return e.tag == X_Y_EVENT_FILL ? 0 : 1;",
+        "}",
+        ""),
+      true);
+  }
+
+  @Test
+  public void testRecordEmptyNested()
+    throws Exception
+  {
+    final GlobalContextType gc =
+      GlobalContexts.newContext(new AlwaysEmptyLoader());
+    final PackageContextType pc = newPackage(gc);
+
+    final TRecord empty = TRecord.newBuilder(
+      pc, gc.getFreshIdentifier(), TypeName.of(LEX_ZERO, "Empty")).build();
+
+    final TRecordBuilderType rb = TRecord.newBuilder(
+      pc, gc.getFreshIdentifier(), TypeName.of(LEX_ZERO, "Holder"));
+    rb.addField(
+      field("a"),
+      gc.getFreshIdentifier(),
+      new TIntegerUnsigned(LEX_ZERO, Size.valueOf(32L)));
+    rb.addField(field("e"), gc.getFreshIdentifier(), empty);
+    rb.addField(
+      field("es"),
+      gc.getFreshIdentifier(),
+      new TArray(LEX_ZERO, Size.valueOf(2L), empty));
+    rb.addField(
+      field("b"),
+      gc.getFreshIdentifier(),
+      new TIntegerUnsigned(LEX_ZERO, Size.valueOf(32L)));
+    final TRecord r = rb.build();
+
+    final Path dir = Files.createTempDirectory("jpra-c-");
+    final JPRACWriterType w = JPRACWriter.newWriter(
+      JPRACGenerator.newGenerator());
+    w.writeType(dir, empty);
+    w.writeType(dir, r);
+
+    final String text = read(dir.resolve("x/y/Holder.h"));
+    Assert.assertFalse(text.contains("struct x_y_Empty"));
+    Assert.assertTrue(text.contains("/* e has size zero */"));
+    Assert.assertTrue(text.contains("/* es has size zero */"));
+    Assert.assertTrue(text.contains("sizeof(struct x_y_Holder) == 8"));
+    Assert.assertTrue(text.contains("offsetof(struct x_y_Holder, b) == 4"));
+
+    compileC(
+      dir,
+      String.join(
+        "\n",
+        "#include \"x/y/Holder.h\"",
+        "int main(void)",
+        "{",
+        "  struct x_y_Holder h = {0};",
+        "  h.b = 23u;",
+        "  return h.a == 0u && h.b == 23u ? 0 : 1;",
+        "}",
+        ""),
+      true);
+  }
+}
@@ -17,6 +17,8 @@
 package com.io7m.jpra.tests.compiler.core.checker;
 
 import com.io7m.jpra.compiler.core.checker.JPRACheckerCapabilitiesType;
+import com.io7m.jpra.compiler.core.checker.JPRACheckerLayoutMode;
+import com.io7m.jpra.compiler.core.checker.JPRACheckerLayoutStandard;
 import com.io7m.jranges.RangeInclusiveB;
 import io.vavr.Tuple2;
 import io.vavr.collection.List;
@@ -24,6 +26,7 @@ import io.vavr.collection.Set;
 
 import java.math.BigInteger;
 import java.util.Objects;
+import java.util.Optional;
 
 final class CapsSupportingIntegerMatrices implements JPRACheckerCapabilitiesType
 {
@@ -171,4 +174,16 @@ final class CapsSupportingIntegerMatrices implements JPRACheckerCapabilitiesType
   {
     return this.delegate.isVectorSizeElementsSupported(size);
   }
+
+  @Override
+  public Optional<JPRACheckerLayoutStandard> getRecordLayoutStandard()
+  {
+    return this.delegate.getRecordLayoutStandard();
+  }
+
+  @Override
+  public JPRACheckerLayoutMode getRecordLayoutMode()
+  {
+    return this.delegate.getRecordLayoutMode();
+  }
 }
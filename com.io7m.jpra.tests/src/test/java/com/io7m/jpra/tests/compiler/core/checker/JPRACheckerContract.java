@@ -18,6 +18,9 @@ package com.io7m.jpra.tests.compiler.core.checker;
 
 import com.io7m.jpra.compiler.core.checker.JPRACheckerCapabilitiesType;
 import com.io7m.jpra.compiler.core.checker.JPRACheckerErrorCode;
+import com.io7m.jpra.compiler.core.checker.JPRACheckerLayoutCapabilities;
+import com.io7m.jpra.compiler.core.checker.JPRACheckerLayoutMode;
+import com.io7m.jpra.compiler.core.checker.JPRACheckerLayoutStandard;
 import com.io7m.jpra.compiler.core.checker.JPRACheckerStandardCapabilities;
 import com.io7m.jpra.compiler.core.checker.JPRACheckerType;
 import com.io7m.jpra.compiler.core.parser.JPRAParserType;
@@ -36,6 +39,7 @@ import com.io7m.jpra.model.type_declarations.RecordFieldDeclValue;
 import com.io7m.jpra.model.type_declarations.TypeDeclPacked;
 import com.io7m.jpra.model.type_declarations.TypeDeclRecord;
 import com.io7m.jpra.model.type_declarations.TypeDeclType;
+import com.io7m.jpra.model.type_declarations.TypeDeclUnion;
 import com.io7m.jpra.model.type_expressions.TypeExprArray;
 import com.io7m.jpra.model.type_expressions.TypeExprBooleanSet;
 import com.io7m.jpra.model.type_expressions.TypeExprFloat;
@@ -60,11 +64,13 @@ import com.io7m.jpra.model.types.TPacked;
 import com.io7m.jpra.model.types.TRecord;
 import com.io7m.jpra.model.types.TString;
 import com.io7m.jpra.model.types.TType;
+import com.io7m.jpra.model.types.TUnion;
 import com.io7m.jpra.model.types.TVector;
 import com.io7m.jpra.tests.compiler.core.resolver.AlwaysEmptyLoader;
 import com.io7m.jsx.SExpressionType;
 import io.vavr.collection.List;
 import io.vavr.collection.Map;
+import org.hamcrest.core.StringContains;
 import org.junit.Assert;
 import org.junit.Rule;
 import org.junit.Test;
@@ -1130,4 +1136,738 @@ public abstract class JPRACheckerContract
           this.newStringSExpr(
             "(packed T [(field x [integer signed-normalized 128])])"))));
   }
+
+  @Test
+  public final void testTypeDeclRecordLayoutStd140FieldOffset_Error0()
+    throws Exception
+  {
+    final JPRAParserType p = this.newParser();
+    final GlobalContextType c =
+      GlobalContexts.newContext(new AlwaysEmptyLoader());
+    final JPRAResolverType r = this.newResolver(c);
+    final JPRACheckerType ch = this.newChecker(
+      c, JPRACheckerLayoutCapabilities.newCapabilities(
+        JPRACheckerLayoutStandard.STD140, JPRACheckerLayoutMode.VALIDATE));
+
+    ch.checkPackageBegin(
+      r.resolvePackageBegin(
+        (StatementPackageBegin<Unresolved, Untyped>) p.parseStatement(
+          this.newStringSExpr("(package-begin x.y)"))));
+
+    this.expected.expect(
+      new JPRACompilerCheckerExceptionMatcher(
+        JPRACheckerErrorCode.LAYOUT_FIELD_OFFSET_INCORRECT));
+    ch.checkTypeDeclaration(
+      r.resolveTypeDeclaration(
+        (TypeDeclType<Unresolved, Untyped>) p.parseStatement(
+          this.newStringSExpr(
+            "(record T [(field a [float 32]) "
+            + "(field b [vector [float 32] 4])])"))));
+  }
+
+  @Test
+  public final void testTypeDeclRecordLayoutStd140FieldOffset_0()
+    throws Exception
+  {
+    final JPRAParserType p = this.newParser();
+    final GlobalContextType c =
+      GlobalContexts.newContext(new AlwaysEmptyLoader());
+    final JPRAResolverType r = this.newResolver(c);
+    final JPRACheckerType ch = this.newChecker(
+      c, JPRACheckerLayoutCapabilities.newCapabilities(
+        JPRACheckerLayoutStandard.STD140, JPRACheckerLayoutMode.VALIDATE));
+
+    ch.checkPackageBegin(
+      r.resolvePackageBegin(
+        (StatementPackageBegin<Unresolved, Untyped>) p.parseStatement(
+          this.newStringSExpr("(package-begin x.y)"))));
+
+    final TypeDeclType<IdentifierType, TType> td = ch.checkTypeDeclaration(
+      r.resolveTypeDeclaration(
+        (TypeDeclType<Unresolved, Untyped>) p.parseStatement(
+          this.newStringSExpr(
+            "(record T [(field a [float 32]) "
+            + "(padding-octets 12) (field b [vector [float 32] 4])])"))));
+
+    final TypeDeclRecord<IdentifierType, TType> tr =
+      TypeDeclRecord.class.cast(td);
+
+    final TRecord tt = TRecord.class.cast(tr.getType());
+    this.checkRecordInvariants(tr, tt);
+    Assert.assertEquals(
+      BigInteger.valueOf(32L * 8L),
+      tt.getSizeInBits().getValue());
+    Assert.assertEquals(
+      3L, (long) tt.getFieldsInDeclarationOrder().size());
+  }
+
+  @Test
+  public final void testTypeDeclRecordLayoutStd140InsertPadding_0()
+    throws Exception
+  {
+    final JPRAParserType p = this.newParser();
+    final GlobalContextType c =
+      GlobalContexts.newContext(new AlwaysEmptyLoader());
+    final JPRAResolverType r = this.newResolver(c);
+    final JPRACheckerType ch = this.newChecker(
+      c, JPRACheckerLayoutCapabilities.newCapabilities(
+        JPRACheckerLayoutStandard.STD140,
+        JPRACheckerLayoutMode.INSERT_PADDING));
+
+    ch.checkPackageBegin(
+      r.resolvePackageBegin(
+        (StatementPackageBegin<Unresolved, Untyped>) p.parseStatement(
+          this.newStringSExpr("(package-begin x.y)"))));
+
+    final TypeDeclType<IdentifierType, TType> td = ch.checkTypeDeclaration(
+      r.resolveTypeDeclaration(
+        (TypeDeclType<Unresolved, Untyped>) p.parseStatement(
+          this.newStringSExpr(
+            "(record T [(field a [float 32]) "
+            + "(field b [vector [float 32] 4])])"))));
+
+    final TypeDeclRecord<IdentifierType, TType> tr =
+      TypeDeclRecord.class.cast(td);
+
+    final TRecord tt = TRecord.class.cast(tr.getType());
+    this.checkRecordInvariants(tr, tt);
+    Assert.assertEquals(
+      BigInteger.valueOf(32L * 8L),
+      tt.getSizeInBits().getValue());
+    Assert.assertEquals(
+      3L, (long) tt.getFieldsInDeclarationOrder().size());
+  }
+
+  @Test
+  public final void testTypeDeclRecordLayoutStd140InsertPadding_1()
+    throws Exception
+  {
+    final JPRAParserType p = this.newParser();
+    final GlobalContextType c =
+      GlobalContexts.newContext(new AlwaysEmptyLoader());
+    final JPRAResolverType r = this.newResolver(c);
+    final JPRACheckerType ch = this.newChecker(
+      c, JPRACheckerLayoutCapabilities.newCapabilities(
+        JPRACheckerLayoutStandard.STD140,
+        JPRACheckerLayoutMode.INSERT_PADDING));
+
+    ch.checkPackageBegin(
+      r.resolvePackageBegin(
+        (StatementPackageBegin<Unresolved, Untyped>) p.parseStatement(
+          this.newStringSExpr("(package-begin x.y)"))));
+
+    final TypeDeclType<IdentifierType, TType> td = ch.checkTypeDeclaration(
+      r.resolveTypeDeclaration(
+        (TypeDeclType<Unresolved, Untyped>) p.parseStatement(
+          this.newStringSExpr(
+            "(record T [(field a [vector [float 32] 4]) "
+            + "(field b [float 32])])"))));
+
+    final TypeDeclRecord<IdentifierType, TType> tr =
+      TypeDeclRecord.class.cast(td);
+
+    final TRecord tt = TRecord.class.cast(tr.getType());
+    this.checkRecordInvariants(tr, tt);
+    Assert.assertEquals(
+      BigInteger.valueOf(32L * 8L),
+      tt.getSizeInBits().getValue());
+    Assert.assertEquals(
+      3L, (long) tt.getFieldsInDeclarationOrder().size());
+  }
+
+  @Test
+  public final void testTypeDeclRecordLayoutStd140FieldOffset_Error1()
+    throws Exception
+  {
+    final JPRAParserType p = this.newParser();
+    final GlobalContextType c =
+      GlobalContexts.newContext(new AlwaysEmptyLoader());
+    final JPRAResolverType r = this.newResolver(c);
+    final JPRACheckerType ch = this.newChecker(
+      c, JPRACheckerLayoutCapabilities.newCapabilities(
+        JPRACheckerLayoutStandard.STD140,
+        JPRACheckerLayoutMode.INSERT_PADDING));
+
+    ch.checkPackageBegin(
+      r.resolvePackageBegin(
+        (StatementPackageBegin<Unresolved, Untyped>) p.parseStatement(
+          this.newStringSExpr("(package-begin x.y)"))));
+
+    this.expected.expect(
+      new JPRACompilerCheckerExceptionMatcher(
+        JPRACheckerErrorCode.LAYOUT_FIELD_OFFSET_INCORRECT));
+    ch.checkTypeDeclaration(
+      r.resolveTypeDeclaration(
+        (TypeDeclType<Unresolved, Untyped>) p.parseStatement(
+          this.newStringSExpr(
+            "(record T [(field a [float 32]) "
+            + "(padding-octets 16) (field b [vector [float 32] 4])])"))));
+  }
+
+  @Test
+  public final void testTypeDeclRecordLayoutStd140ArrayStride_Error0()
+    throws Exception
+  {
+    final JPRAParserType p = this.newParser();
+    final GlobalContextType c =
+      GlobalContexts.newContext(new AlwaysEmptyLoader());
+    final JPRAResolverType r = this.newResolver(c);
+    final JPRACheckerType ch = this.newChecker(
+      c, JPRACheckerLayoutCapabilities.newCapabilities(
+        JPRACheckerLayoutStandard.STD140, JPRACheckerLayoutMode.VALIDATE));
+
+    ch.checkPackageBegin(
+      r.resolvePackageBegin(
+        (StatementPackageBegin<Unresolved, Untyped>) p.parseStatement(
+          this.newStringSExpr("(package-begin x.y)"))));
+
+    this.expected.expect(
+      new JPRACompilerCheckerExceptionMatcher(
+        JPRACheckerErrorCode.LAYOUT_ARRAY_STRIDE_INCORRECT));
+    ch.checkTypeDeclaration(
+      r.resolveTypeDeclaration(
+        (TypeDeclType<Unresolved, Untyped>) p.parseStatement(
+          this.newStringSExpr(
+            "(record T [(field a [array [float 32] 4])])"))));
+  }
+
+  @Test
+  public final void testTypeDeclRecordLayoutStd430Array_0()
+    throws Exception
+  {
+    final JPRAParserType p = this.newParser();
+    final GlobalContextType c =
+      GlobalContexts.newContext(new AlwaysEmptyLoader());
+    final JPRAResolverType r = this.newResolver(c);
+    final JPRACheckerType ch = this.newChecker(
+      c, JPRACheckerLayoutCapabilities.newCapabilities(
+        JPRACheckerLayoutStandard.STD430, JPRACheckerLayoutMode.VALIDATE));
+
+    ch.checkPackageBegin(
+      r.resolvePackageBegin(
+        (StatementPackageBegin<Unresolved, Untyped>) p.parseStatement(
+          this.newStringSExpr("(package-begin x.y)"))));
+
+    final TypeDeclType<IdentifierType, TType> td = ch.checkTypeDeclaration(
+      r.resolveTypeDeclaration(
+        (TypeDeclType<Unresolved, Untyped>) p.parseStatement(
+          this.newStringSExpr(
+            "(record T [(field a [array [float 32] 4])])"))));
+
+    final TypeDeclRecord<IdentifierType, TType> tr =
+      TypeDeclRecord.class.cast(td);
+
+    final TRecord tt = TRecord.class.cast(tr.getType());
+    this.checkRecordInvariants(tr, tt);
+    Assert.assertEquals(
+      BigInteger.valueOf(16L * 8L),
+      tt.getSizeInBits().getValue());
+    Assert.assertEquals(
+      1L, (long) tt.getFieldsInDeclarationOrder().size());
+  }
+
+  @Test
+  public final void testTypeDeclRecordLayoutStd430ArrayStride_Error0()
+    throws Exception
+  {
+    final JPRAParserType p = this.newParser();
+    final GlobalContextType c =
+      GlobalContexts.newContext(new AlwaysEmptyLoader());
+    final JPRAResolverType r = this.newResolver(c);
+    final JPRACheckerType ch = this.newChecker(
+      c, JPRACheckerLayoutCapabilities.newCapabilities(
+        JPRACheckerLayoutStandard.STD430, JPRACheckerLayoutMode.VALIDATE));
+
+    ch.checkPackageBegin(
+      r.resolvePackageBegin(
+        (StatementPackageBegin<Unresolved, Untyped>) p.parseStatement(
+          this.newStringSExpr("(package-begin x.y)"))));
+
+    this.expected.expect(
+      new JPRACompilerCheckerExceptionMatcher(
+        JPRACheckerErrorCode.LAYOUT_ARRAY_STRIDE_INCORRECT));
+    ch.checkTypeDeclaration(
+      r.resolveTypeDeclaration(
+        (TypeDeclType<Unresolved, Untyped>) p.parseStatement(
+          this.newStringSExpr(
+            "(record T [(field a [array [vector [float 32] 3] 4])])"))));
+  }
+
+  @Test
+  public final void testTypeDeclRecordLayoutStd140MatrixStride_Error0()
+    throws Exception
+  {
+    final JPRAParserType p = this.newParser();
+    final GlobalContextType c =
+      GlobalContexts.newContext(new AlwaysEmptyLoader());
+    final JPRAResolverType r = this.newResolver(c);
+    final JPRACheckerType ch = this.newChecker(
+      c, JPRACheckerLayoutCapabilities.newCapabilities(
+        JPRACheckerLayoutStandard.STD140, JPRACheckerLayoutMode.VALIDATE));
+
+    ch.checkPackageBegin(
+      r.resolvePackageBegin(
+        (StatementPackageBegin<Unresolved, Untyped>) p.parseStatement(
+          this.newStringSExpr("(package-begin x.y)"))));
+
+    this.expected.expect(
+      new JPRACompilerCheckerExceptionMatcher(
+        JPRACheckerErrorCode.LAYOUT_MATRIX_STRIDE_INCORRECT));
+    ch.checkTypeDeclaration(
+      r.resolveTypeDeclaration(
+        (TypeDeclType<Unresolved, Untyped>) p.parseStatement(
+          this.newStringSExpr(
+            "(record T [(field a [matrix [float 32] 2 2])])"))));
+  }
+
+  @Test
+  public final void testTypeDeclRecordLayoutStd140RecordSize_Error0()
+    throws Exception
+  {
+    final JPRAParserType p = this.newParser();
+    final GlobalContextType c =
+      GlobalContexts.newContext(new AlwaysEmptyLoader());
+    final JPRAResolverType r = this.newResolver(c);
+    final JPRACheckerType ch = this.newChecker(
+      c, JPRACheckerLayoutCapabilities.newCapabilities(
+        JPRACheckerLayoutStandard.STD140, JPRACheckerLayoutMode.VALIDATE));
+
+    ch.checkPackageBegin(
+      r.resolvePackageBegin(
+        (StatementPackageBegin<Unresolved, Untyped>) p.parseStatement(
+          this.newStringSExpr("(package-begin x.y)"))));
+
+    this.expected.expect(
+      new JPRACompilerCheckerExceptionMatcher(
+        JPRACheckerErrorCode.LAYOUT_RECORD_SIZE_INCORRECT));
+    this.expected.expectMessage(
+      new StringContains("Record size (octets): 20"));
+    this.expected.expectMessage(
+      new StringContains("Size must be a multiple of (octets): 16"));
+    this.expected.expectMessage(
+      new StringContains("Insert 12 octets of padding at the end"));
+    ch.checkTypeDeclaration(
+      r.resolveTypeDeclaration(
+        (TypeDeclType<Unresolved, Untyped>) p.parseStatement(
+          this.newStringSExpr(
+            "(record T [(field a [vector [float 32] 4]) "
+            + "(field b [float 32])])"))));
+  }
+
+  @Test
+  public final void testTypeDeclRecordLayoutStd430RecordSize_Error0()
+    throws Exception
+  {
+    final JPRAParserType p = this.newParser();
+    final GlobalContextType c =
+      GlobalContexts.newContext(new AlwaysEmptyLoader());
+    final JPRAResolverType r = this.newResolver(c);
+    final JPRACheckerType ch = this.newChecker(
+      c, JPRACheckerLayoutCapabilities.newCapabilities(
+        JPRACheckerLayoutStandard.STD430, JPRACheckerLayoutMode.VALIDATE));
+
+    ch.checkPackageBegin(
+      r.resolvePackageBegin(
+        (StatementPackageBegin<Unresolved, Untyped>) p.parseStatement(
+          this.newStringSExpr("(package-begin x.y)"))));
+
+    this.expected.expect(
+      new JPRACompilerCheckerExceptionMatcher(
+        JPRACheckerErrorCode.LAYOUT_RECORD_SIZE_INCORRECT));
+    this.expected.expectMessage(
+      new StringContains("Record size (octets): 12"));
+    this.expected.expectMessage(
+      new StringContains("Size must be a multiple of (octets): 8"));
+    this.expected.expectMessage(
+      new StringContains("Insert 4 octets of padding at the end"));
+    ch.checkTypeDeclaration(
+      r.resolveTypeDeclaration(
+        (TypeDeclType<Unresolved, Untyped>) p.parseStatement(
+          this.newStringSExpr(
+            "(record T [(field a [vector [float 32] 2]) "
+            + "(field b [float 32])])"))));
+  }
+
+  @Test
+  public final void testTypeDeclRecordLayoutStd430RecordSize_0()
+    throws Exception
+  {
+    final JPRAParserType p = this.newParser();
+    final GlobalContextType c =
+      GlobalContexts.newContext(new AlwaysEmptyLoader());
+    final JPRAResolverType r = this.newResolver(c);
+    final JPRACheckerType ch = this.newChecker(
+      c, JPRACheckerLayoutCapabilities.newCapabilities(
+        JPRACheckerLayoutStandard.STD430, JPRACheckerLayoutMode.VALIDATE));
+
+    ch.checkPackageBegin(
+      r.resolvePackageBegin(
+        (StatementPackageBegin<Unresolved, Untyped>) p.parseStatement(
+          this.newStringSExpr("(package-begin x.y)"))));
+
+    final TypeDeclType<IdentifierType, TType> td = ch.checkTypeDeclaration(
+      r.resolveTypeDeclaration(
+        (TypeDeclType<Unresolved, Untyped>) p.parseStatement(
+          this.newStringSExpr(
+            "(record T [(field a [vector [float 32] 2]) "
+            + "(field b [float 32]) (padding-octets 4)])"))));
+
+    final TypeDeclRecord<IdentifierType, TType> tr =
+      TypeDeclRecord.class.cast(td);
+
+    final TRecord tt = TRecord.class.cast(tr.getType());
+    this.checkRecordInvariants(tr, tt);
+    Assert.assertEquals(
+      BigInteger.valueOf(16L * 8L),
+      tt.getSizeInBits().getValue());
+    Assert.assertEquals(
+      3L, (long) tt.getFieldsInDeclarationOrder().size());
+  }
+
+  @Test
+  public final void testTypeDeclRecordLayoutStd430Matrix_0()
+    throws Exception
+  {
+    final JPRAParserType p = this.newParser();
+    final GlobalContextType c =
+      GlobalContexts.newContext(new AlwaysEmptyLoader());
+    final JPRAResolverType r = this.newResolver(c);
+    final JPRACheckerType ch = this.newChecker(
+      c, JPRACheckerLayoutCapabilities.newCapabilities(
+        JPRACheckerLayoutStandard.STD430, JPRACheckerLayoutMode.VALIDATE));
+
+    ch.checkPackageBegin(
+      r.resolvePackageBegin(
+        (StatementPackageBegin<Unresolved, Untyped>) p.parseStatement(
+          this.newStringSExpr("(package-begin x.y)"))));
+
+    final TypeDeclType<IdentifierType, TType> td = ch.checkTypeDeclaration(
+      r.resolveTypeDeclaration(
+        (TypeDeclType<Unresolved, Untyped>) p.parseStatement(
+          this.newStringSExpr(
+            "(record T [(field a [matrix [float 32] 2 2])])"))));
+
+    final TypeDeclRecord<IdentifierType, TType> tr =
+      TypeDeclRecord.class.cast(td);
+
+    final TRecord tt = TRecord.class.cast(tr.getType());
+    this.checkRecordInvariants(tr, tt);
+    Assert.assertEquals(
+      BigInteger.valueOf(16L * 8L),
+      tt.getSizeInBits().getValue());
+    Assert.assertEquals(
+      1L, (long) tt.getFieldsInDeclarationOrder().size());
+  }
+
+  @Test
+  public final void testTypeDeclRecordLayoutStd430MatrixStride_Error0()
+    throws Exception
+  {
+    final JPRAParserType p = this.newParser();
+    final GlobalContextType c =
+      GlobalContexts.newContext(new AlwaysEmptyLoader());
+    final JPRAResolverType r = this.newResolver(c);
+    final JPRACheckerType ch = this.newChecker(
+      c, JPRACheckerLayoutCapabilities.newCapabilities(
+        JPRACheckerLayoutStandard.STD430, JPRACheckerLayoutMode.VALIDATE));
+
+    ch.checkPackageBegin(
+      r.resolvePackageBegin(
+        (StatementPackageBegin<Unresolved, Untyped>) p.parseStatement(
+          this.newStringSExpr("(package-begin x.y)"))));
+
+    this.expected.expect(
+      new JPRACompilerCheckerExceptionMatcher(
+        JPRACheckerErrorCode.LAYOUT_MATRIX_STRIDE_INCORRECT));
+    ch.checkTypeDeclaration(
+      r.resolveTypeDeclaration(
+        (TypeDeclType<Unresolved, Untyped>) p.parseStatement(
+          this.newStringSExpr(
+            "(record T [(field a [matrix [float 32] 3 3])])"))));
+  }
+
+  @Test
+  public final void testTypeDeclRecordLayoutStd430String_Error0()
+    throws Exception
+  {
+    final JPRAParserType p = this.newParser();
+    final GlobalContextType c =
+      GlobalContexts.newContext(new AlwaysEmptyLoader());
+    final JPRAResolverType r = this.newResolver(c);
+    final JPRACheckerType ch = this.newChecker(
+      c, JPRACheckerLayoutCapabilities.newCapabilities(
+        JPRACheckerLayoutStandard.STD430, JPRACheckerLayoutMode.VALIDATE));
+
+    ch.checkPackageBegin(
+      r.resolvePackageBegin(
+        (StatementPackageBegin<Unresolved, Untyped>) p.parseStatement(
+          this.newStringSExpr("(package-begin x.y)"))));
+
+    this.expected.expect(
+      new JPRACompilerCheckerExceptionMatcher(
+        JPRACheckerErrorCode.LAYOUT_TYPE_UNSUPPORTED));
+    ch.checkTypeDeclaration(
+      r.resolveTypeDeclaration(
+        (TypeDeclType<Unresolved, Untyped>) p.parseStatement(
+          this.newStringSExpr(
+            "(record T [(field a [string 32 \"UTF-8\"])])"))));
+  }
+
+  @Test
+  public final void testTypeDeclRecordLayoutStd430FloatSize_Error0()
+    throws Exception
+  {
+    final JPRAParserType p = this.newParser();
+    final GlobalContextType c =
+      GlobalContexts.newContext(new AlwaysEmptyLoader());
+    final JPRAResolverType r = this.newResolver(c);
+    final JPRACheckerType ch = this.newChecker(
+      c, JPRACheckerLayoutCapabilities.newCapabilities(
+        JPRACheckerLayoutStandard.STD430, JPRACheckerLayoutMode.VALIDATE));
+
+    ch.checkPackageBegin(
+      r.resolvePackageBegin(
+        (StatementPackageBegin<Unresolved, Untyped>) p.parseStatement(
+          this.newStringSExpr("(package-begin x.y)"))));
+
+    this.expected.expect(
+      new JPRACompilerCheckerExceptionMatcher(
+        JPRACheckerErrorCode.RECORD_FLOAT_SIZE_UNSUPPORTED));
+    ch.checkTypeDeclaration(
+      r.resolveTypeDeclaration(
+        (TypeDeclType<Unresolved, Untyped>) p.parseStatement(
+          this.newStringSExpr(
+            "(record T [(field a [float 16])])"))));
+  }
+
+  @Test
+  public final void testTypeDeclUnion_0()
+    throws Exception
+  {
+    final JPRAParserType p = this.newParser();
+    final GlobalContextType c =
+      GlobalContexts.newContext(new AlwaysEmptyLoader());
+    final JPRAResolverType r = this.newResolver(c);
+    final JPRACheckerType ch = this.newChecker(
+      c, JPRACheckerStandardCapabilities.newCapabilities());
+
+    ch.checkPackageBegin(
+      r.resolvePackageBegin(
+        (StatementPackageBegin<Unresolved, Untyped>) p.parseStatement(
+          this.newStringSExpr("(package-begin x.y)"))));
+
+    ch.checkTypeDeclaration(
+      r.resolveTypeDeclaration(
+        (TypeDeclType<Unresolved, Untyped>) p.parseStatement(
+          this.newStringSExpr(
+            "(record A [(field x [integer unsigned 32])])"))));
+    ch.checkTypeDeclaration(
+      r.resolveTypeDeclaration(
+        (TypeDeclType<Unresolved, Untyped>) p.parseStatement(
+          this.newStringSExpr(
+            "(record B [(field x [integer unsigned 64])])"))));
+
+    final TypeDeclType<IdentifierType, TType> td = ch.checkTypeDeclaration(
+      r.resolveTypeDeclaration(
+        (TypeDeclType<Unresolved, Untyped>) p.parseStatement(
+          this.newStringSExpr(
+            "(union U [integer unsigned 16] [(case CA A) (case CB B)])"))));
+
+    final TypeDeclUnion<IdentifierType, TType> tr =
+      TypeDeclUnion.class.cast(td);
+    final TUnion tt = TUnion.class.cast(tr.getType());
+
+    final List<TUnion.Case> cases = tt.getCasesInDeclarationOrder();
+    Assert.assertEquals(2L, (long) cases.size());
+    Assert.assertEquals(2L, (long) tt.getCasesByName().size());
+
+    for (int index = 0; index < cases.size(); ++index) {
+      final TUnion.Case k = cases.get(index);
+      Assert.assertEquals(tt, k.getOwner());
+      Assert.assertEquals(BigInteger.valueOf((long) index), k.getTagValue());
+      Assert.assertSame(k, tt.getCasesByName().get(k.getName()).get());
+    }
+
+    Assert.assertEquals("CA", cases.get(0).getName().value());
+    Assert.assertEquals("CB", cases.get(1).getName().value());
+    Assert.assertEquals(
+      BigInteger.valueOf(2L), tt.getTagSizeInOctets().getValue());
+    Assert.assertEquals(
+      BigInteger.valueOf(8L), tt.getPayloadSizeInOctets().getValue());
+    Assert.assertEquals(
+      BigInteger.valueOf(10L), tt.getSizeInOctets().getValue());
+  }
+
+  @Test
+  public final void testTypeDeclUnionTag_Error0()
+    throws Exception
+  {
+    final JPRAParserType p = this.newParser();
+    final GlobalContextType c =
+      GlobalContexts.newContext(new AlwaysEmptyLoader());
+    final JPRAResolverType r = this.newResolver(c);
+    final JPRACheckerType ch = this.newChecker(
+      c, JPRACheckerStandardCapabilities.newCapabilities());
+
+    ch.checkPackageBegin(
+      r.resolvePackageBegin(
+        (StatementPackageBegin<Unresolved, Untyped>) p.parseStatement(
+          this.newStringSExpr("(package-begin x.y)"))));
+
+    ch.checkTypeDeclaration(
+      r.resolveTypeDeclaration(
+        (TypeDeclType<Unresolved, Untyped>) p.parseStatement(
+          this.newStringSExpr(
+            "(record A [(field x [integer unsigned 32])])"))));
+    ch.checkTypeDeclaration(
+      r.resolveTypeDeclaration(
+        (TypeDeclType<Unresolved, Untyped>) p.parseStatement(
+          this.newStringSExpr(
+            "(record B [(field x [integer unsigned 64])])"))));
+
+    this.expected.expect(
+      new JPRACompilerCheckerExceptionMatcher(
+        JPRACheckerErrorCode.UNION_TAG_INVALID));
+    ch.checkTypeDeclaration(
+      r.resolveTypeDeclaration(
+        (TypeDeclType<Unresolved, Untyped>) p.parseStatement(
+          this.newStringSExpr(
+            "(union U [integer signed 8] [(case CA A)])"))));
+  }
+
+  @Test
+  public final void testTypeDeclUnionTag_Error1()
+    throws Exception
+  {
+    final JPRAParserType p = this.newParser();
+    final GlobalContextType c =
+      GlobalContexts.newContext(new AlwaysEmptyLoader());
+    final JPRAResolverType r = this.newResolver(c);
+    final JPRACheckerType ch = this.newChecker(
+      c, JPRACheckerStandardCapabilities.newCapabilities());
+
+    ch.checkPackageBegin(
+      r.resolvePackageBegin(
+        (StatementPackageBegin<Unresolved, Untyped>) p.parseStatement(
+          this.newStringSExpr("(package-begin x.y)"))));
+
+    ch.checkTypeDeclaration(
+      r.resolveTypeDeclaration(
+        (TypeDeclType<Unresolved, Untyped>) p.parseStatement(
+          this.newStringSExpr(
+            "(record A [(field x [integer unsigned 32])])"))));
+    ch.checkTypeDeclaration(
+      r.resolveTypeDeclaration(
+        (TypeDeclType<Unresolved, Untyped>) p.parseStatement(
+          this.newStringSExpr(
+            "(record B [(field x [integer unsigned 64])])"))));
+
+    this.expected.expect(
+      new JPRACompilerCheckerExceptionMatcher(
+        JPRACheckerErrorCode.UNION_TAG_INVALID));
+    ch.checkTypeDeclaration(
+      r.resolveTypeDeclaration(
+        (TypeDeclType<Unresolved, Untyped>) p.parseStatement(
+          this.newStringSExpr(
+            "(union U A [(case CA A)])"))));
+  }
+
+  @Test
+  public final void testTypeDeclUnionCase_Error0()
+    throws Exception
+  {
+    final JPRAParserType p = this.newParser();
+    final GlobalContextType c =
+      GlobalContexts.newContext(new AlwaysEmptyLoader());
+    final JPRAResolverType r = this.newResolver(c);
+    final JPRACheckerType ch = this.newChecker(
+      c, JPRACheckerStandardCapabilities.newCapabilities());
+
+    ch.checkPackageBegin(
+      r.resolvePackageBegin(
+        (StatementPackageBegin<Unresolved, Untyped>) p.parseStatement(
+          this.newStringSExpr("(package-begin x.y)"))));
+
+
+    this.expected.expect(
+      new JPRACompilerCheckerExceptionMatcher(
+        JPRACheckerErrorCode.UNION_CASE_NOT_RECORD));
+    ch.checkTypeDeclaration(
+      r.resolveTypeDeclaration(
+        (TypeDeclType<Unresolved, Untyped>) p.parseStatement(
+          this.newStringSExpr(
+            "(union U [integer unsigned 8] "
+              + "[(case CA [integer signed 32])])"))));
+  }
+
+  @Test
+  public final void testTypeDeclUnionCase_Error1()
+    throws Exception
+  {
+    final JPRAParserType p = this.newParser();
+    final GlobalContextType c =
+      GlobalContexts.newContext(new AlwaysEmptyLoader());
+    final JPRAResolverType r = this.newResolver(c);
+    final JPRACheckerType ch = this.newChecker(
+      c, JPRACheckerStandardCapabilities.newCapabilities());
+
+    ch.checkPackageBegin(
+      r.resolvePackageBegin(
+        (StatementPackageBegin<Unresolved, Untyped>) p.parseStatement(
+          this.newStringSExpr("(package-begin x.y)"))));
+
+
+    this.expected.expect(
+      new JPRACompilerCheckerExceptionMatcher(
+        JPRACheckerErrorCode.UNION_NO_CASES));
+    ch.checkTypeDeclaration(
+      r.resolveTypeDeclaration(
+        (TypeDeclType<Unresolved, Untyped>) p.parseStatement(
+          this.newStringSExpr("(union U [integer unsigned 8] [])"))));
+  }
+
+  @Test
+  public final void testTypeDeclUnionCase_Error2()
+    throws Exception
+  {
+    final JPRAParserType p = this.newParser();
+    final GlobalContextType c =
+      GlobalContexts.newContext(new AlwaysEmptyLoader());
+    final JPRAResolverType r = this.newResolver(c);
+    final JPRACheckerType ch = this.newChecker(
+      c, JPRACheckerStandardCapabilities.newCapabilities());
+
+    ch.checkPackageBegin(
+      r.resolvePackageBegin(
+        (StatementPackageBegin<Unresolved, Untyped>) p.parseStatement(
+          this.newStringSExpr("(package-begin x.y)"))));
+
+    ch.checkTypeDeclaration(
+      r.resolveTypeDeclaration(
+        (TypeDeclType<Unresolved, Untyped>) p.parseStatement(
+          this.newStringSExpr(
+            "(record A [(field x [integer unsigned 32])])"))));
+    ch.checkTypeDeclaration(
+      r.resolveTypeDeclaration(
+        (TypeDeclType<Unresolved, Untyped>) p.parseStatement(
+          this.newStringSExpr(
+            "(record B [(field x [integer unsigned 64])])"))));
+
+    final StringBuilder sb = new StringBuilder(4096);
+    sb.append("(union U [integer unsigned 8] [");
+    for (int index = 0; index <= 256; ++index) {
+      sb.append("(case C");
+      sb.append(index);
+      sb.append(" A)");
+    }
+    sb.append("])");
+
+    this.expected.expect(
+      new JPRACompilerCheckerExceptionMatcher(
+        JPRACheckerErrorCode.UNION_TOO_MANY_CASES));
+    ch.checkTypeDeclaration(
+      r.resolveTypeDeclaration(
+        (TypeDeclType<Unresolved, Untyped>) p.parseStatement(
+          this.newStringSExpr(sb.toString()))));
+  }
 }
@@ -24,6 +24,7 @@ import com.io7m.jpra.compiler.core.driver.JPRADriverType;
 import com.io7m.jpra.compiler.core.resolver.JPRACompilerResolverException;
 import com.io7m.jpra.compiler.core.resolver.JPRAResolverErrorCode;
 import com.io7m.jpra.core.JPRAException;
+import com.io7m.jpra.model.PackageImport;
 import com.io7m.jpra.model.contexts.GlobalContextType;
 import com.io7m.jpra.model.contexts.PackageContextType;
 import com.io7m.jpra.model.loading.JPRAModelCircularImportException;
@@ -47,6 +48,9 @@ import java.net.URI;
 import java.nio.file.FileSystem;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Queue;
 
@@ -166,6 +170,17 @@ public abstract class JPRADriverContract
               final JPRAModelCircularImportException e =
                 (JPRAModelCircularImportException) q.poll();
               Assert.assertTrue(e.getMessage().contains("Circular import"));
+
+              /*
+               * The cycle is reported starting from the requested package.
+               */
+
+              final List<PackageImport> path = e.getImports().asJava();
+              Assert.assertEquals(2L, (long) path.size());
+              Assert.assertEquals("x.y.a", path.get(0).from().toString());
+              Assert.assertEquals("x.y.b", path.get(0).to().toString());
+              Assert.assertEquals("x.y.b", path.get(1).from().toString());
+              Assert.assertEquals("x.y.a", path.get(1).to().toString());
             }
 
             {
@@ -309,6 +324,101 @@ public abstract class JPRADriverContract
     }
   }
 
+  @Test
+  public final void testPackagesImportDiamond()
+    throws Exception
+  {
+    try (final FileSystem fs = this.getFilesystem()) {
+      final Path base = getFirstRoot(fs);
+      final Path dir = base.resolve("x").resolve("y");
+      Files.createDirectories(dir);
+      for (final String name : List.of("d0", "d1", "d2", "d3", "z")) {
+        createFileFromResource(dir.resolve(name + ".jpr"), name + ".jpr");
+      }
+
+      final JPRACheckerCapabilitiesType caps =
+        JPRACheckerStandardCapabilities.newCapabilities();
+      final JPRADriverType d = this.getDriver(base, caps);
+
+      final PackageNameQualified d0 = PackageNameQualified.valueOf("x.y.d0");
+      final PackageNameQualified z = PackageNameQualified.valueOf("x.y.z");
+      final Map<PackageNameQualified, PackageContextType> r =
+        d.compilePackages(List.of(d0, z));
+
+      final GlobalContextType c = d.getGlobalContext();
+      Assert.assertEquals(0L, (long) c.getErrorQueue().size());
+      Assert.assertEquals(List.of(d0, z), new ArrayList<>(r.keySet()));
+      Assert.assertEquals(5L, (long) c.getPackages().size());
+      Assert.assertTrue(
+        c.getPackages().containsKey(PackageNameQualified.valueOf("x.y.d3")));
+      Assert.assertSame(r.get(d0), d.compilePackage(d0));
+    }
+  }
+
+  @Test
+  public final void testPackagesErrorsOrdered()
+    throws Exception
+  {
+    try (final FileSystem fs = this.getFilesystem()) {
+      final Path base = getFirstRoot(fs);
+      final Path dir = base.resolve("x").resolve("y");
+      Files.createDirectories(dir);
+      createFileFromResource(dir.resolve("z.jpr"), "z.jpr");
+      createFileFromResource(dir.resolve("bad.jpr"), "badlex.jpr");
+
+      final JPRACheckerCapabilitiesType caps =
+        JPRACheckerStandardCapabilities.newCapabilities();
+      final JPRADriverType d = this.getDriver(base, caps);
+
+      this.expected.expect(
+        new TypeSafeDiagnosingMatcherWith<JPRAModelLoadingException>(
+          () -> {
+            final GlobalContextType c = d.getGlobalContext();
+            final Queue<JPRAException> q = c.getErrorQueue();
+            LOG.error("{}", q);
+
+            Assert.assertEquals(4L, (long) q.size());
+
+            {
+              final JPRACompilerResolverException e =
+                (JPRACompilerResolverException) q.poll();
+              Assert.assertEquals(
+                JPRAResolverErrorCode.PACKAGE_NONEXISTENT, e.getErrorCode());
+            }
+
+            {
+              final JPRACompilerLexerException e =
+                (JPRACompilerLexerException) q.poll();
+            }
+
+            {
+              final JPRACompilerResolverException e =
+                (JPRACompilerResolverException) q.poll();
+              Assert.assertEquals(
+                JPRAResolverErrorCode.EXPECTED_PACKAGE, e.getErrorCode());
+            }
+
+            {
+              final JPRACompilerResolverException e =
+                (JPRACompilerResolverException) q.poll();
+              Assert.assertEquals(
+                JPRAResolverErrorCode.PACKAGE_NONEXISTENT, e.getErrorCode());
+            }
+
+            Assert.assertTrue(
+              c.getPackages().containsKey(
+                PackageNameQualified.valueOf("x.y.z")));
+          }));
+
+      d.compilePackages(
+        List.of(
+          PackageNameQualified.valueOf("x.y.n0"),
+          PackageNameQualified.valueOf("x.y.bad"),
+          PackageNameQualified.valueOf("x.y.z"),
+          PackageNameQualified.valueOf("x.y.n1")));
+    }
+  }
+
   private static class LoggingCauseMatcher<T extends Throwable>
     extends TypeSafeDiagnosingMatcher<T>
   {
@@ -24,6 +24,7 @@ import com.io7m.jpra.model.Untyped;
 import com.io7m.jpra.model.names.FieldName;
 import com.io7m.jpra.model.names.TypeName;
 import com.io7m.jpra.model.names.TypeReference;
+import com.io7m.jpra.model.names.UnionCaseName;
 import com.io7m.jpra.model.size_expressions.SizeExprConstant;
 import com.io7m.jpra.model.size_expressions.SizeExprInBits;
 import com.io7m.jpra.model.size_expressions.SizeExprInOctets;
@@ -42,6 +43,8 @@ import com.io7m.jpra.model.type_declarations.RecordFieldDeclType;
 import com.io7m.jpra.model.type_declarations.RecordFieldDeclValue;
 import com.io7m.jpra.model.type_declarations.TypeDeclPacked;
 import com.io7m.jpra.model.type_declarations.TypeDeclRecord;
+import com.io7m.jpra.model.type_declarations.TypeDeclUnion;
+import com.io7m.jpra.model.type_declarations.UnionCaseDecl;
 import com.io7m.jpra.model.type_expressions.TypeExprArray;
 import com.io7m.jpra.model.type_expressions.TypeExprBooleanSet;
 import com.io7m.jpra.model.type_expressions.TypeExprFloat;
@@ -1570,4 +1573,104 @@ public abstract class JPRAParserContract
         JPRAParseErrorCode.EXPECTED_LIST_GOT_QUOTED_STRING));
     p.parseStatement(e);
   }
+
+  @Test
+  public final void testUnion_OK0()
+    throws Exception
+  {
+    final SExpressionType e = this.newFileSExpr("t-union-0.jpr");
+    final JPRAParserType p = this.newParser();
+
+    final StatementType<Unresolved, Untyped> s = p.parseStatement(e);
+    final TypeDeclUnion<Unresolved, Untyped> d = TypeDeclUnion.class.cast(s);
+
+    final List<UnionCaseDecl<Unresolved, Untyped>> case_order =
+      d.getCasesInDeclarationOrder();
+    final Map<UnionCaseName, UnionCaseDecl<Unresolved, Untyped>>
+      case_names = d.getCasesByName();
+
+    Assert.assertEquals(2L, (long) case_order.size());
+    Assert.assertEquals(2L, (long) case_names.size());
+
+    final UnionCaseName a_name = UnionCaseName.of(LEX_ZERO, "A");
+    final UnionCaseName b_name = UnionCaseName.of(LEX_ZERO, "B");
+    Assert.assertSame(case_names.get(a_name).get(), case_order.get(0));
+    Assert.assertSame(case_names.get(b_name).get(), case_order.get(1));
+
+    final TypeExprIntegerUnsigned<Unresolved, Untyped> tag =
+      TypeExprIntegerUnsigned.class.cast(d.getTag());
+    Assert.assertEquals(
+      BigInteger.valueOf(8L),
+      SizeExprConstant.class.cast(tag.getSize()).getValue());
+
+    final TypeExprName<Unresolved, Untyped> a_type =
+      TypeExprName.class.cast(case_order.get(0).getType());
+    Assert.assertEquals(
+      TypeName.of(LEX_ZERO, "T0"), a_type.getReference().type());
+  }
+
+  @Test
+  public final void testUnion_Error0()
+    throws Exception
+  {
+    final SExpressionType e = this.newFileSExpr("t-union-invalid-0.jpr");
+    final JPRAParserType p = this.newParser();
+
+    this.expected.expect(
+      new JPRACompilerParseExceptionMatcher(
+        JPRAParseErrorCode.SYNTAX_ERROR));
+    p.parseStatement(e);
+  }
+
+  @Test
+  public final void testUnion_Error1()
+    throws Exception
+  {
+    final SExpressionType e = this.newFileSExpr("t-union-invalid-1.jpr");
+    final JPRAParserType p = this.newParser();
+
+    this.expected.expect(
+      new JPRACompilerParseExceptionMatcher(
+        JPRAParseErrorCode.UNRECOGNIZED_UNION_CASE_KEYWORD));
+    p.parseStatement(e);
+  }
+
+  @Test
+  public final void testUnion_Error2()
+    throws Exception
+  {
+    final SExpressionType e = this.newFileSExpr("t-union-invalid-2.jpr");
+    final JPRAParserType p = this.newParser();
+
+    this.expected.expect(
+      new JPRACompilerParseExceptionMatcher(
+        JPRAParseErrorCode.BAD_UNION_CASE_NAME));
+    p.parseStatement(e);
+  }
+
+  @Test
+  public final void testUnion_Error3()
+    throws Exception
+  {
+    final SExpressionType e = this.newFileSExpr("t-union-invalid-3.jpr");
+    final JPRAParserType p = this.newParser();
+
+    this.expected.expect(
+      new JPRACompilerParseExceptionMatcher(
+        JPRAParseErrorCode.DUPLICATE_UNION_CASE_NAME));
+    p.parseStatement(e);
+  }
+
+  @Test
+  public final void testUnion_Error4()
+    throws Exception
+  {
+    final SExpressionType e = this.newFileSExpr("t-union-invalid-4.jpr");
+    final JPRAParserType p = this.newParser();
+
+    this.expected.expect(
+      new JPRACompilerParseExceptionMatcher(
+        JPRAParseErrorCode.SYNTAX_ERROR));
+    p.parseStatement(e);
+  }
 }
@@ -0,0 +1,192 @@
+/*
+ * Copyright © 2015 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jpra.tests.compiler.java;
+
+import com.io7m.jlexing.core.LexicalPosition;
+import com.io7m.jpra.compiler.java.JPRAJavaGenerator;
+import com.io7m.jpra.compiler.java.JPRAJavaGeneratorType;
+import com.io7m.jpra.compiler.java.JPRAJavaWriter;
+import com.io7m.jpra.compiler.java.JPRAJavaWriterType;
+import com.io7m.jpra.model.contexts.GlobalContextType;
+import com.io7m.jpra.model.contexts.GlobalContexts;
+import com.io7m.jpra.model.contexts.PackageContextType;
+import com.io7m.jpra.model.names.FieldName;
+import com.io7m.jpra.model.names.PackageNameQualified;
+import com.io7m.jpra.model.names.TypeName;
+import com.io7m.jpra.model.types.Size;
+import com.io7m.jpra.model.types.TIntegerSigned;
+import com.io7m.jpra.model.types.TRecord;
+import com.io7m.jpra.model.types.TRecordBuilderType;
+import com.io7m.jpra.model.types.TypeUserDefinedType;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public final class JPRAJavaWriterTest
+{
+  private static final LexicalPosition<URI> LEX_ZERO =
+    LexicalPosition.of(0, 0, Optional.empty());
+
+  private static final FileTime OLD_TIME = FileTime.fromMillis(0L);
+
+  private static PackageContextType newPackage(
+    final GlobalContextType gc,
+    final String name,
+    final String... types)
+  {
+    final PackageNameQualified p_name = PackageNameQualified.valueOf(name);
+    final Map<TypeName, TypeUserDefinedType> p_types = new HashMap<>();
+    final PackageContextType pc = new PackageContextType()
+    {
+      @Override
+      public GlobalContextType getGlobalContext()
+      {
+        return gc;
+      }
+
+      @Override
+      public Map<TypeName, TypeUserDefinedType> getTypes()
+      {
+        return p_types;
+      }
+
+      @Override
+      public PackageNameQualified getName()
+      {
+        return p_name;
+      }
+
+      @Override
+      public LexicalPosition<URI> lexical()
+      {
+        return LEX_ZERO;
+      }
+    };
+
+    for (final String type : types) {
+      final TypeName t_name = TypeName.of(LEX_ZERO, type);
+      final TRecordBuilderType rb =
+        TRecord.newBuilder(pc, gc.getFreshIdentifier(), t_name);
+      rb.addField(
+        FieldName.of(LEX_ZERO, "x"),
+        gc.getFreshIdentifier(),
+        new TIntegerSigned(LEX_ZERO, Size.valueOf(32L)));
+      p_types.put(t_name, rb.build());
+    }
+    return pc;
+  }
+
+  private static List<PackageContextType> newPackages()
+  {
+    final GlobalContextType gc =
+      GlobalContexts.newContext(new AlwaysEmptyLoader());
+    final List<PackageContextType> packs = new ArrayList<>();
+    packs.add(newPackage(gc, "x.y", "A", "B", "C"));
+    packs.add(newPackage(gc, "x.z", "D", "E"));
+    return packs;
+  }
+
+  private static List<Path> listFiles(
+    final Path dir)
+    throws IOException
+  {
+    try (Stream<Path> files = Files.walk(dir)) {
+      return files.filter(Files::isRegularFile)
+        .sorted()
+        .collect(Collectors.toList());
+    }
+  }
+
+  @Test
+  public void testWritePackagesUnchanged()
+    throws Exception
+  {
+    final JPRAJavaGeneratorType gen = JPRAJavaGenerator.newGenerator();
+    final JPRAJavaWriterType w = JPRAJavaWriter.newWriter(gen);
+    final List<PackageContextType> packs = newPackages();
+    final Path dir = Files.createTempDirectory("jpra-java-");
+
+    w.writePackages(dir, packs);
+
+    for (final PackageContextType p : packs) {
+      final Path p_dir = JPRAJavaWriter.getPathForPackage(dir, p.getName());
+      for (final TypeName t : p.getTypes().keySet()) {
+        Assert.assertTrue(Files.isRegularFile(
+          p_dir.resolve(gen.getRecordInterfaceName(t) + ".java")));
+      }
+    }
+
+    final List<Path> files = listFiles(dir);
+    Assert.assertFalse(files.isEmpty());
+    for (final Path file : files) {
+      Files.setLastModifiedTime(file, OLD_TIME);
+    }
+
+    final Path damaged = files.get(0);
+    final byte[] original = Files.readAllBytes(damaged);
+    Files.write(damaged, "damaged".getBytes(StandardCharsets.UTF_8));
+    Files.setLastModifiedTime(damaged, OLD_TIME);
+
+    final ExecutorService exec = Executors.newFixedThreadPool(2);
+    try {
+      w.writePackages(dir, packs, exec);
+    } finally {
+      exec.shutdown();
+    }
+
+    Assert.assertEquals(files, listFiles(dir));
+    Assert.assertArrayEquals(original, Files.readAllBytes(damaged));
+    Assert.assertNotEquals(OLD_TIME, Files.getLastModifiedTime(damaged));
+    for (final Path file : files) {
+      if (!file.equals(damaged)) {
+        Assert.assertEquals(OLD_TIME, Files.getLastModifiedTime(file));
+      }
+    }
+  }
+
+  @Test
+  public void testWritePackagesErrors()
+    throws Exception
+  {
+    final JPRAJavaWriterType w =
+      JPRAJavaWriter.newWriter(JPRAJavaGenerator.newGenerator());
+    final Path file = Files.createTempFile("jpra-java-", ".txt");
+
+    try {
+      w.writePackages(file, newPackages());
+      Assert.fail();
+    } catch (final IOException e) {
+      Assert.assertEquals(4L, (long) e.getSuppressed().length);
+    }
+  }
+}
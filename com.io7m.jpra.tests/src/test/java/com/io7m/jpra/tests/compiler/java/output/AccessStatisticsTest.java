@@ -0,0 +1,144 @@
+/*
+ * Copyright © 2015 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.jpra.tests.compiler.java.output;
+
+import com.io7m.jpra.runtime.java.JPRAAccessStatistics;
+import com.io7m.jpra.runtime.java.JPRACursor1DByteBufferedChecked;
+import com.io7m.jpra.runtime.java.JPRACursor1DType;
+import com.io7m.jpra.tests.compiler.java.generation.instrumented.Color565ByteBuffered;
+import com.io7m.jpra.tests.compiler.java.generation.instrumented.Color565Type;
+import com.io7m.jpra.tests.compiler.java.generation.instrumented.EmissionReadableType;
+import com.io7m.jpra.tests.compiler.java.generation.instrumented.EmitterByteBuffered;
+import com.io7m.jpra.tests.compiler.java.generation.instrumented.EmitterType;
+import com.io7m.jpra.tests.compiler.java.generation.instrumented.ParticleByteBuffered;
+import com.io7m.jpra.tests.compiler.java.generation.instrumented.ParticleType;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+public final class AccessStatisticsTest
+{
+  @Before
+  public void setUp()
+  {
+    ParticleByteBuffered.accessStatistics().reset();
+    Color565ByteBuffered.accessStatistics().reset();
+    EmitterByteBuffered.accessStatistics().reset();
+  }
+
+  @Test
+  public void testRecordFieldNames()
+  {
+    final JPRAAccessStatistics s = ParticleByteBuffered.accessStatistics();
+    Assert.assertEquals("Particle", s.typeName());
+    Assert.assertEquals(
+      List.of("position", "velocity", "mass", "id", "flags"),
+      s.fieldNames());
+  }
+
+  @Test
+  public void testRecordCounts()
+  {
+    final JPRACursor1DType<ParticleType> c =
+      JPRACursor1DByteBufferedChecked.newCursor(
+        ByteBuffer.allocate(4 * ParticleByteBuffered.sizeInOctets()),
+        ParticleByteBuffered::newValueWithOffset);
+    final ParticleType v = c.getElementView();
+
+    for (int index = 0; index < 4; ++index) {
+      c.setElementIndex(index);
+      v.setMass(1.0f);
+      v.getPositionWritable().setXYZ(1.0, 2.0, 3.0);
+      v.setFlagsAlive(true);
+      Assert.assertEquals(1.0f, v.getMass(), 0.0f);
+      Assert.assertEquals(2.0, v.getPositionReadable().y(), 0.0);
+    }
+
+    final JPRAAccessStatistics s = ParticleByteBuffered.accessStatistics();
+    Assert.assertEquals(4L, s.writes("mass"));
+    Assert.assertEquals(4L, s.reads("mass"));
+    Assert.assertEquals(4L, s.writes("position"));
+    Assert.assertEquals(4L, s.reads("position"));
+    Assert.assertEquals(4L, s.writes("flags"));
+    Assert.assertEquals(0L, s.reads("flags"));
+    Assert.assertEquals(0L, s.reads("velocity"));
+    Assert.assertEquals(0L, s.writes("velocity"));
+    Assert.assertEquals(0L, s.reads("id"));
+    Assert.assertEquals(0L, s.writes("id"));
+
+    s.reset();
+    Assert.assertEquals(0L, s.writes("mass"));
+  }
+
+  @Test
+  public void testPackedCounts()
+  {
+    final JPRACursor1DType<Color565Type> c =
+      JPRACursor1DByteBufferedChecked.newCursor(
+        ByteBuffer.allocate(2 * Color565ByteBuffered.sizeInOctets()),
+        Color565ByteBuffered::newValueWithOffset);
+    final Color565Type v = c.getElementView();
+
+    v.setR(1.0);
+    Assert.assertEquals(1.0, v.getR(), 0.0);
+    v.setGRaw(3);
+    v.set(1, 2, 3);
+
+    final JPRAAccessStatistics s = Color565ByteBuffered.accessStatistics();
+    Assert.assertEquals(2L, s.writes("r"));
+    Assert.assertEquals(1L, s.reads("r"));
+    Assert.assertEquals(2L, s.writes("g"));
+    Assert.assertEquals(0L, s.reads("g"));
+    Assert.assertEquals(1L, s.writes("b"));
+  }
+
+  @Test
+  public void testUnionFieldCounts()
+  {
+    final JPRACursor1DType<EmitterType> c =
+      JPRACursor1DByteBufferedChecked.newCursor(
+        ByteBuffer.allocate(2 * EmitterByteBuffered.sizeInOctets()),
+        EmitterByteBuffered::newValueWithOffset);
+    final EmitterType v = c.getElementView();
+
+    c.setElementIndex(1);
+    v.getEmissionWritable().selectParticle().setMass(2.0f);
+    Assert.assertEquals(
+      EmissionReadableType.TAG_PARTICLE, v.getEmissionReadable().getTag());
+    Assert.assertEquals(
+      2.0f, v.getEmissionReadable().getParticleReadable().getMass(), 0.0f);
+
+    final JPRAAccessStatistics s = EmitterByteBuffered.accessStatistics();
+    Assert.assertEquals(List.of("id", "emission"), s.fieldNames());
+    Assert.assertEquals(1L, s.writes("emission"));
+    Assert.assertEquals(2L, s.reads("emission"));
+    Assert.assertEquals(0L, s.reads("id"));
+    Assert.assertEquals(0L, s.writes("id"));
+
+    /*
+     * The union itself is not instrumented, but the case views are
+     * instances of the instrumented record implementations.
+     */
+
+    final JPRAAccessStatistics p = ParticleByteBuffered.accessStatistics();
+    Assert.assertEquals(1L, p.writes("mass"));
+    Assert.assertEquals(1L, p.reads("mass"));
+  }
+}
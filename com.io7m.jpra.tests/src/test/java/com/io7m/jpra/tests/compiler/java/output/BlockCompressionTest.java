@@ -0,0 +1,85 @@
+/*
+ * Copyright © 2015 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.jpra.tests.compiler.java.output;
+
+import com.io7m.ieee754b16.Binary16;
+import com.io7m.jpra.runtime.java.JPRABlockCodec;
+import com.io7m.jpra.runtime.java.JPRACursor1DByteBufferedChecked;
+import com.io7m.jpra.runtime.java.JPRACursor1DType;
+import com.io7m.jpra.tests.compiler.java.generation.code.FloatsByteBuffered;
+import com.io7m.jpra.tests.compiler.java.generation.code.FloatsType;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+public final class BlockCompressionTest
+{
+  @Test
+  public void testFloatsRoundTrip()
+  {
+    final int count = 256;
+    final JPRABlockCodec codec = FloatsByteBuffered.blockCodec();
+    Assert.assertEquals(
+      (long) FloatsByteBuffered.sizeInOctets(), (long) codec.size());
+
+    final ByteBuffer buf =
+      ByteBuffer.allocate(count * FloatsByteBuffered.sizeInOctets());
+    final JPRACursor1DType<FloatsType> c =
+      JPRACursor1DByteBufferedChecked.newCursor(
+        buf, FloatsByteBuffered::newValueWithOffset);
+    final FloatsType v = c.getElementView();
+
+    for (int index = 0; index < count; ++index) {
+      c.setElementIndex(index);
+      v.setF16(1.0);
+      v.setF32(2.0f);
+      v.setF64((double) index);
+    }
+
+    final ByteBuffer out =
+      ByteBuffer.allocate(codec.maximumCompressedSize(count));
+    final int written = codec.compressBlock(buf, 0, count, out);
+
+    /*
+     * The constant f16 and f32 columns collapse to a few octets, but the
+     * bit patterns of the doubles 0.0 .. 255.0 span almost all 64 bits and
+     * are stored nearly verbatim: the f64 column accounts for 8 of the 14
+     * octets of each element.
+     */
+
+    final int f64_octets = count * 8;
+    Assert.assertTrue(written <= f64_octets + 128);
+
+    out.flip();
+    final ByteBuffer result = ByteBuffer.allocate(buf.capacity());
+    Assert.assertEquals(
+      (long) count, (long) codec.decompressBlock(out, result, 0));
+
+    final JPRACursor1DType<FloatsType> rc =
+      JPRACursor1DByteBufferedChecked.newCursor(
+        result, FloatsByteBuffered::newValueWithOffset);
+    final FloatsType rv = rc.getElementView();
+    final double f16 = Binary16.unpackDouble(Binary16.packDouble(1.0));
+    for (int index = 0; index < count; ++index) {
+      rc.setElementIndex(index);
+      Assert.assertEquals(f16, rv.getF16(), 0.0);
+      Assert.assertEquals(2.0f, rv.getF32(), 0.0f);
+      Assert.assertEquals((double) index, rv.getF64(), 0.0);
+    }
+  }
+}
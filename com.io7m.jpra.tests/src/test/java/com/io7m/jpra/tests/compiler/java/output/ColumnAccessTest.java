@@ -0,0 +1,160 @@
+/*
+ * Copyright © 2015 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.jpra.tests.compiler.java.output;
+
+import com.io7m.ieee754b16.Binary16;
+import com.io7m.jpra.runtime.java.JPRACursor1DByteBufferedChecked;
+import com.io7m.jpra.runtime.java.JPRACursor1DType;
+import com.io7m.jpra.tests.compiler.java.generation.code.FloatsByteBuffered;
+import com.io7m.jpra.tests.compiler.java.generation.code.FloatsType;
+import com.io7m.jpra.tests.compiler.java.generation.code.IntegersUnsignedNormalizedByteBuffered;
+import com.io7m.jpra.tests.compiler.java.generation.code.IntegersUnsignedNormalizedType;
+import com.io7m.jpra.tests.compiler.java.generation.code.VectorsByteBuffered;
+import com.io7m.jpra.tests.compiler.java.generation.code.VectorsType;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+public final class ColumnAccessTest
+{
+  private static double half(
+    final double x)
+  {
+    return Binary16.unpackDouble(Binary16.packDouble(x));
+  }
+
+  @Test
+  public void testFloatsGatherScatter()
+  {
+    final int count = 16;
+    final ByteBuffer buf =
+      ByteBuffer.allocate(count * FloatsByteBuffered.sizeInOctets());
+    final JPRACursor1DType<FloatsType> c =
+      JPRACursor1DByteBufferedChecked.newCursor(
+        buf, FloatsByteBuffered::newValueWithOffset);
+    final FloatsType v = c.getElementView();
+
+    for (int index = 0; index < count; ++index) {
+      c.setElementIndex(index);
+      v.setF16((double) index);
+      v.setF32((float) index * 2.0f);
+      v.setF64((double) index * 3.0);
+    }
+    c.setElementIndex(5);
+
+    final float[] f32 = new float[count + 2];
+    FloatsByteBuffered.gatherF32(c, 4, 12, f32, 2);
+    for (int index = 0; index < 8; ++index) {
+      Assert.assertEquals((float) (index + 4) * 2.0f, f32[index + 2], 0.0f);
+    }
+    Assert.assertEquals(5L, (long) c.getElementIndex());
+
+    final double[] f16 = new double[count];
+    FloatsByteBuffered.gatherF16(c, 0, count, f16, 0);
+    for (int index = 0; index < count; ++index) {
+      Assert.assertEquals(half((double) index), f16[index], 0.0);
+    }
+
+    final double[] f64 = new double[count];
+    for (int index = 0; index < count; ++index) {
+      f64[index] = (double) -index;
+    }
+    FloatsByteBuffered.scatterF64(c, 0, count, f64, 0);
+    for (int index = 0; index < count; ++index) {
+      c.setElementIndex(index);
+      Assert.assertEquals((double) -index, v.getF64(), 0.0);
+      Assert.assertEquals((float) index * 2.0f, v.getF32(), 0.0f);
+    }
+  }
+
+  @Test
+  public void testNormalizedRaw()
+  {
+    final int count = 8;
+    final ByteBuffer buf = ByteBuffer.allocate(
+      count * IntegersUnsignedNormalizedByteBuffered.sizeInOctets());
+    final JPRACursor1DType<IntegersUnsignedNormalizedType> c =
+      JPRACursor1DByteBufferedChecked.newCursor(
+        buf, IntegersUnsignedNormalizedByteBuffered::newValueWithOffset);
+    final IntegersUnsignedNormalizedType v = c.getElementView();
+
+    final short[] src = new short[count];
+    for (int index = 0; index < count; ++index) {
+      src[index] = (short) (index + 1);
+    }
+    IntegersUnsignedNormalizedByteBuffered.scatterUn16Raw(
+      c, 0, count, src, 0);
+
+    for (int index = 0; index < count; ++index) {
+      c.setElementIndex(index);
+      Assert.assertEquals((long) (index + 1), (long) v.getUn16Raw());
+      Assert.assertEquals(0L, (long) v.getUn8Raw());
+    }
+  }
+
+  @Test
+  public void testVectorComponents()
+  {
+    final int count = 4;
+    final ByteBuffer buf =
+      ByteBuffer.allocate(count * VectorsByteBuffered.sizeInOctets());
+    final JPRACursor1DType<VectorsType> c =
+      JPRACursor1DByteBufferedChecked.newCursor(
+        buf, VectorsByteBuffered::newValueWithOffset);
+    final VectorsType v = c.getElementView();
+
+    for (int index = 0; index < count; ++index) {
+      c.setElementIndex(index);
+      v.getV3fWritable().setXYZ(index, index + 10.0, index + 20.0);
+      v.getV2hWritable().setXY(index, index + 0.5);
+      v.getV4iWritable().setXYZW(index, index + 1L, index + 2L, index + 3L);
+    }
+
+    final float[] y = new float[count];
+    VectorsByteBuffered.gatherV3fY(c, 0, count, y, 0);
+    final double[] hy = new double[count];
+    VectorsByteBuffered.gatherV2hY(c, 0, count, hy, 0);
+    final int[] w = new int[count];
+    VectorsByteBuffered.gatherV4iW(c, 0, count, w, 0);
+
+    for (int index = 0; index < count; ++index) {
+      Assert.assertEquals((float) index + 10.0f, y[index], 0.0f);
+      Assert.assertEquals(half((double) index + 0.5), hy[index], 0.0);
+      Assert.assertEquals((long) (index + 3), (long) w[index]);
+    }
+
+    final float[] z = {-1.0f, -2.0f};
+    VectorsByteBuffered.scatterV3fZ(c, 1, 3, z, 0);
+    c.setElementIndex(1);
+    Assert.assertEquals(-1.0, v.getV3fReadable().z(), 0.0);
+    Assert.assertEquals(11.0, v.getV3fReadable().y(), 0.0);
+    c.setElementIndex(2);
+    Assert.assertEquals(-2.0, v.getV3fReadable().z(), 0.0);
+  }
+
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void testArrayTooSmall()
+  {
+    final ByteBuffer buf =
+      ByteBuffer.allocate(4 * FloatsByteBuffered.sizeInOctets());
+    final JPRACursor1DType<FloatsType> c =
+      JPRACursor1DByteBufferedChecked.newCursor(
+        buf, FloatsByteBuffered::newValueWithOffset);
+    FloatsByteBuffered.gatherF32(c, 0, 4, new float[3], 0);
+  }
+}
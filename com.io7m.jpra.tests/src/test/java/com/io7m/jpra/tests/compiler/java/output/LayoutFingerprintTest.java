@@ -0,0 +1,54 @@
+/*
+ * Copyright © 2015 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.jpra.tests.compiler.java.output;
+
+import com.io7m.jpra.tests.compiler.java.generation.code.IntegersSignedByteBuffered;
+import com.io7m.jpra.tests.compiler.java.generation.code.IntegersUnsignedByteBuffered;
+import com.io7m.jpra.tests.compiler.java.generation.code.OpenGL4444ByteBuffered;
+import com.io7m.jpra.tests.compiler.java.generation.code.OpenGL565ByteBuffered;
+import org.junit.Assert;
+import org.junit.Test;
+
+public final class LayoutFingerprintTest
+{
+  @Test
+  public void testAccessor()
+  {
+    Assert.assertEquals(
+      IntegersSignedByteBuffered.LAYOUT_FINGERPRINT,
+      IntegersSignedByteBuffered.layoutFingerprint());
+    Assert.assertEquals(
+      OpenGL565ByteBuffered.LAYOUT_FINGERPRINT,
+      OpenGL565ByteBuffered.layoutFingerprint());
+  }
+
+  @Test
+  public void testScalarKindsDistinguished()
+  {
+    Assert.assertNotEquals(
+      IntegersSignedByteBuffered.layoutFingerprint(),
+      IntegersUnsignedByteBuffered.layoutFingerprint());
+  }
+
+  @Test
+  public void testPackedRangesDistinguished()
+  {
+    Assert.assertNotEquals(
+      OpenGL565ByteBuffered.layoutFingerprint(),
+      OpenGL4444ByteBuffered.layoutFingerprint());
+  }
+}
@@ -0,0 +1,227 @@
+/*
+ * Copyright © 2015 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.jpra.tests.compiler.java.output;
+
+import com.io7m.ieee754b16.Binary16;
+import com.io7m.jpra.runtime.java.JPRACursor1DByteBufferedChecked;
+import com.io7m.jpra.runtime.java.JPRACursor1DType;
+import com.io7m.jpra.tests.compiler.java.generation.v1.ParticleByteBuffered;
+import com.io7m.jpra.tests.compiler.java.generation.v1.ParticleType;
+import com.io7m.jpra.tests.compiler.java.generation.v2.ParticleMigrator;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+public final class MigratorTest
+{
+  private static final int V1_SIZE = 51;
+  private static final int V1_POSITION = 0;
+  private static final int V1_VELOCITY = 12;
+  private static final int V1_MASS = 24;
+  private static final int V1_ID = 28;
+  private static final int V1_CHARGE = 32;
+  private static final int V1_LEVEL = 34;
+  private static final int V1_COLOR = 35;
+  private static final int V1_NAME = 37;
+  private static final int V1_FLAGS = 49;
+
+  private static final int V2_SIZE = 58;
+  private static final int V2_ID = 0;
+  private static final int V2_POSITION = 2;
+  private static final int V2_VELOCITY = 26;
+  private static final int V2_MASS = 34;
+  private static final int V2_CHARGE = 36;
+  private static final int V2_LEVEL = 37;
+  private static final int V2_COLOR = 41;
+  private static final int V2_NAME = 45;
+  private static final int V2_FLAGS = 53;
+  private static final int V2_AGE = 54;
+
+  private static void putString(
+    final ByteBuffer buf,
+    final int offset,
+    final String text)
+  {
+    final byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+    buf.putInt(offset, bytes.length);
+    for (int index = 0; index < bytes.length; ++index) {
+      buf.put(offset + 4 + index, bytes[index]);
+    }
+  }
+
+  private static String getString(
+    final ByteBuffer buf,
+    final int offset)
+  {
+    final byte[] bytes = new byte[buf.getInt(offset)];
+    for (int index = 0; index < bytes.length; ++index) {
+      bytes[index] = buf.get(offset + 4 + index);
+    }
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private static ByteBuffer source()
+  {
+    final ByteBuffer src = ByteBuffer.allocate(V1_SIZE * 2);
+
+    src.putFloat(V1_POSITION, 1.5f);
+    src.putFloat(V1_POSITION + 4, 2.5f);
+    src.putFloat(V1_POSITION + 8, 3.5f);
+    src.putFloat(V1_VELOCITY, 4.0f);
+    src.putFloat(V1_VELOCITY + 4, 5.0f);
+    src.putFloat(V1_VELOCITY + 8, 6.0f);
+    src.putFloat(V1_MASS, 7.25f);
+    src.putInt(V1_ID, 70000);
+    src.putShort(V1_CHARGE, (short) -300);
+    src.put(V1_LEVEL, (byte) 0xff);
+    src.putShort(V1_COLOR, (short) 0xf800);
+    putString(src, V1_NAME, "h\u00e9llo");
+    src.put(V1_FLAGS, (byte) 0x80);
+
+    final int base = V1_SIZE;
+    src.putInt(base + V1_ID, 5);
+    src.putShort(base + V1_CHARGE, (short) 12);
+    src.put(base + V1_LEVEL, (byte) 51);
+    src.putShort(base + V1_COLOR, (short) 0x07e0);
+    putString(src, base + V1_NAME, "ab");
+    src.put(base + V1_FLAGS, (byte) 0x40);
+    return src;
+  }
+
+  private static void checkTarget(
+    final ByteBuffer dst,
+    final int base)
+  {
+    Assert.assertEquals((short) 0xffff, dst.getShort(base + V2_ID));
+    Assert.assertEquals(1.5, dst.getDouble(base + V2_POSITION), 0.0);
+    Assert.assertEquals(2.5, dst.getDouble(base + V2_POSITION + 8), 0.0);
+    Assert.assertEquals(3.5, dst.getDouble(base + V2_POSITION + 16), 0.0);
+    Assert.assertEquals(4.0f, dst.getFloat(base + V2_VELOCITY), 0.0f);
+    Assert.assertEquals(5.0f, dst.getFloat(base + V2_VELOCITY + 4), 0.0f);
+    Assert.assertEquals(
+      7.25, Binary16.unpackDouble(dst.getChar(base + V2_MASS)), 0.0);
+    Assert.assertEquals((byte) -128, dst.get(base + V2_CHARGE));
+    Assert.assertEquals(1.0f, dst.getFloat(base + V2_LEVEL), 0.0f);
+    Assert.assertEquals(0xff000000, dst.getInt(base + V2_COLOR));
+    Assert.assertEquals("h\u00e9l", getString(dst, base + V2_NAME));
+    Assert.assertEquals((byte) 0x20, dst.get(base + V2_FLAGS));
+    Assert.assertEquals(0, dst.getInt(base + V2_AGE));
+
+    final int next = base + V2_SIZE;
+    Assert.assertEquals((short) 5, dst.getShort(next + V2_ID));
+    Assert.assertEquals(0.0, dst.getDouble(next + V2_POSITION), 0.0);
+    Assert.assertEquals((byte) 12, dst.get(next + V2_CHARGE));
+    Assert.assertEquals(0.2f, dst.getFloat(next + V2_LEVEL), 0.000001f);
+    Assert.assertEquals(0x00ff0000, dst.getInt(next + V2_COLOR));
+    Assert.assertEquals("ab", getString(dst, next + V2_NAME));
+    Assert.assertEquals((byte) 0x80, dst.get(next + V2_FLAGS));
+    Assert.assertEquals(0, dst.getInt(next + V2_AGE));
+  }
+
+  private static ByteBuffer filled(
+    final int size)
+  {
+    final ByteBuffer b = ByteBuffer.allocate(size);
+    for (int index = 0; index < size; ++index) {
+      b.put(index, (byte) 0x7f);
+    }
+    return b;
+  }
+
+  @Test
+  public void testLayout()
+  {
+    final JPRACursor1DType<ParticleType> c =
+      JPRACursor1DByteBufferedChecked.newCursor(
+        ByteBuffer.allocate(V1_SIZE), ParticleByteBuffered::newValueWithOffset);
+    final ParticleType v = c.getElementView();
+
+    Assert.assertEquals((long) V1_SIZE, (long) v.sizeOctets());
+    Assert.assertEquals((long) V1_ID, (long) v.metaIdOffsetFromType());
+    Assert.assertEquals((long) V1_NAME, (long) v.metaNameOffsetFromType());
+    Assert.assertEquals((long) V1_FLAGS, (long) v.metaFlagsOffsetFromType());
+  }
+
+  @Test
+  public void testFingerprints()
+  {
+    Assert.assertEquals(
+      ParticleByteBuffered.LAYOUT_FINGERPRINT,
+      ParticleMigrator.SOURCE_LAYOUT_FINGERPRINT);
+    Assert.assertNotEquals(
+      ParticleMigrator.SOURCE_LAYOUT_FINGERPRINT,
+      ParticleMigrator.TARGET_LAYOUT_FINGERPRINT);
+  }
+
+  @Test
+  public void testMigrate()
+  {
+    final ByteBuffer src = source();
+    final ByteBuffer dst = filled(V2_SIZE * 3);
+
+    ParticleMigrator.migrate(src, 0, 2, dst, 1);
+    checkTarget(dst, V2_SIZE);
+
+    for (int index = 0; index < V2_SIZE; ++index) {
+      Assert.assertEquals((byte) 0x7f, dst.get(index));
+    }
+  }
+
+  @Test
+  public void testMigrateParallel()
+  {
+    final ByteBuffer src = source();
+    final ByteBuffer dst = filled(V2_SIZE * 2);
+
+    ParticleMigrator.migrateParallel(src, 0, 2, dst, 0, 1);
+    checkTarget(dst, 0);
+  }
+
+  @Test
+  public void testMigrateParallelEquivalent()
+  {
+    final int count = 1000;
+    final Random r = new Random(0x1234L);
+    final ByteBuffer src = ByteBuffer.allocate(V1_SIZE * count);
+    for (int index = 0; index < src.capacity(); ++index) {
+      src.put(index, (byte) r.nextInt());
+    }
+
+    final ByteBuffer dst0 = filled(V2_SIZE * count);
+    final ByteBuffer dst1 = filled(V2_SIZE * count);
+    ParticleMigrator.migrate(src, 0, count, dst0, 0);
+    ParticleMigrator.migrateParallel(src, 0, count, dst1, 0, 64);
+    Assert.assertEquals(dst0, dst1);
+  }
+
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void testMigrateSourceRange()
+  {
+    ParticleMigrator.migrate(
+      ByteBuffer.allocate(V1_SIZE), 0, 2, ByteBuffer.allocate(V2_SIZE * 2), 0);
+  }
+
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void testMigrateTargetRange()
+  {
+    ParticleMigrator.migrate(
+      ByteBuffer.allocate(V1_SIZE * 2), 0, 2, ByteBuffer.allocate(V2_SIZE), 0);
+  }
+}
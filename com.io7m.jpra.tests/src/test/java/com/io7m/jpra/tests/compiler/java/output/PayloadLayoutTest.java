@@ -0,0 +1,172 @@
+/*
+ * Copyright © 2015 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.jpra.tests.compiler.java.output;
+
+import com.io7m.jpra.runtime.java.JPRACursor1DByteBufferedChecked;
+import com.io7m.jpra.runtime.java.JPRACursor1DType;
+import com.io7m.jpra.runtime.java.JPRAPayloadLayout;
+import com.io7m.jpra.runtime.java.JPRAStringTruncation;
+import com.io7m.jpra.tests.compiler.java.generation.code.IntegersSignedByteBuffered;
+import com.io7m.jpra.tests.compiler.java.generation.code.IntegersSignedType;
+import com.io7m.jpra.tests.compiler.java.generation.code.NestedString0ByteBuffered;
+import com.io7m.jpra.tests.compiler.java.generation.code.NestedString0Type;
+import com.io7m.jpra.tests.compiler.java.generation.code.PaddedPackedByteBuffered;
+import com.io7m.jpra.tests.compiler.java.generation.code.PaddedPackedType;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+public final class PayloadLayoutTest
+{
+  @Test
+  public void testRecordLayout()
+  {
+    Assert.assertEquals(
+      JPRAPayloadLayout.of(
+        16, new int[]{0, 1, 2, 14}, new int[]{}, new byte[]{}),
+      IntegersSignedByteBuffered.payloadLayout());
+    Assert.assertEquals(
+      15L, (long) IntegersSignedByteBuffered.payloadLayout().significantOctets());
+    Assert.assertEquals(
+      24L, (long) NestedString0ByteBuffered.payloadLayout().significantOctets());
+  }
+
+  @Test
+  public void testStringLayout()
+  {
+    Assert.assertEquals(
+      JPRAPayloadLayout.of(
+        36,
+        new int[]{4, 4, 16, 4, 28, 4},
+        new int[]{},
+        new byte[]{},
+        new int[]{4, 4, 16, 4, 28, 4}),
+      NestedString0ByteBuffered.payloadLayout());
+  }
+
+  @Test
+  public void testStringStaleDataIgnored()
+  {
+    final ByteBuffer buf = ByteBuffer.allocate(2 * 36);
+    final JPRACursor1DType<NestedString0Type> c0 =
+      JPRACursor1DByteBufferedChecked.newCursor(
+        buf, NestedString0ByteBuffered::newValueWithOffset);
+    final JPRACursor1DType<NestedString0Type> c1 =
+      JPRACursor1DByteBufferedChecked.newCursor(
+        buf, NestedString0ByteBuffered::newValueWithOffset);
+    final NestedString0Type v0 = c0.getElementView();
+    final NestedString0Type v1 = c1.getElementView();
+    c1.setElementIndex(1);
+
+    v0.getSWritable().setValue("ABCD", JPRAStringTruncation.TRUNCATE);
+    v0.getSWritable().setValue("AB", JPRAStringTruncation.TRUNCATE);
+    v1.getSWritable().setValue("ABXY", JPRAStringTruncation.TRUNCATE);
+    v1.getSWritable().setValue("AB", JPRAStringTruncation.TRUNCATE);
+
+    Assert.assertTrue(v0.equalsBytes(v1));
+    Assert.assertEquals(-1L, (long) v0.mismatch(v1));
+    Assert.assertEquals(v0.hashBytes(), v1.hashBytes());
+
+    v1.getSWritable().setValue("AC", JPRAStringTruncation.TRUNCATE);
+    Assert.assertFalse(v0.equalsBytes(v1));
+    Assert.assertEquals(9L, (long) v0.mismatch(v1));
+    Assert.assertNotEquals(v0.hashBytes(), v1.hashBytes());
+
+    v1.getSWritable().setValue("ABX", JPRAStringTruncation.TRUNCATE);
+    Assert.assertEquals(7L, (long) v0.mismatch(v1));
+  }
+
+  @Test
+  public void testRecordPaddingIgnored()
+  {
+    final ByteBuffer buf = ByteBuffer.allocate(2 * 16);
+    final JPRACursor1DType<IntegersSignedType> c0 =
+      JPRACursor1DByteBufferedChecked.newCursor(
+        buf, IntegersSignedByteBuffered::newValueWithOffset);
+    final JPRACursor1DType<IntegersSignedType> c1 =
+      JPRACursor1DByteBufferedChecked.newCursor(
+        buf, IntegersSignedByteBuffered::newValueWithOffset);
+    final IntegersSignedType v0 = c0.getElementView();
+    final IntegersSignedType v1 = c1.getElementView();
+    c1.setElementIndex(1);
+
+    for (int index = 0; index < 2; ++index) {
+      c0.setElementIndex(index);
+      v0.setS8((byte) 0x23);
+      v0.setS16((short) 0x1234);
+      v0.setS32(0x12345678);
+      v0.setS64(0x1234567812345678L);
+    }
+
+    c0.setElementIndex(0);
+    buf.put(1, (byte) 0x7f);
+    buf.put(16 + 1, (byte) 0x10);
+
+    Assert.assertTrue(v0.equalsBytes(v1));
+    Assert.assertEquals(-1L, (long) v0.mismatch(v1));
+    Assert.assertEquals(v0.hashBytes(), v1.hashBytes());
+
+    v1.setS32(0x12345679);
+    Assert.assertFalse(v0.equalsBytes(v1));
+    Assert.assertEquals(7L, (long) v0.mismatch(v1));
+    Assert.assertNotEquals(v0.hashBytes(), v1.hashBytes());
+  }
+
+  @Test
+  public void testPackedLayout()
+  {
+    Assert.assertEquals(
+      JPRAPayloadLayout.of(
+        2, new int[]{1, 1}, new int[]{0}, new byte[]{(byte) 0xf8}),
+      PaddedPackedByteBuffered.payloadLayout());
+  }
+
+  @Test
+  public void testPackedPaddingIgnored()
+  {
+    final ByteBuffer buf = ByteBuffer.allocate(2 * 2);
+    buf.order(ByteOrder.LITTLE_ENDIAN);
+
+    final JPRACursor1DType<PaddedPackedType> c0 =
+      JPRACursor1DByteBufferedChecked.newCursor(
+        buf, PaddedPackedByteBuffered::newValueWithOffset);
+    final JPRACursor1DType<PaddedPackedType> c1 =
+      JPRACursor1DByteBufferedChecked.newCursor(
+        buf, PaddedPackedByteBuffered::newValueWithOffset);
+    final PaddedPackedType v0 = c0.getElementView();
+    final PaddedPackedType v1 = c1.getElementView();
+    c1.setElementIndex(1);
+
+    v0.setR(0b10101);
+    v0.setG(0xaa);
+    v1.setR(0b10101);
+    v1.setG(0xaa);
+
+    buf.put(0, (byte) ((int) buf.get(0) | 0b111));
+    Assert.assertTrue(v0.equalsBytes(v1));
+    Assert.assertEquals(v0.hashBytes(), v1.hashBytes());
+
+    v1.setR(0b10100);
+    Assert.assertEquals(0L, (long) v0.mismatch(v1));
+
+    v1.setR(0b10101);
+    v1.setG(0xab);
+    Assert.assertEquals(1L, (long) v0.mismatch(v1));
+  }
+}
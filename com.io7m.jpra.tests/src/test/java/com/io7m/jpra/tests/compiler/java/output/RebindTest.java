@@ -0,0 +1,139 @@
+/*
+ * Copyright © 2015 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.jpra.tests.compiler.java.output;
+
+import com.io7m.jpra.runtime.java.JPRABufferRing;
+import com.io7m.jpra.runtime.java.JPRACursor1DByteBufferedChecked;
+import com.io7m.jpra.runtime.java.JPRACursor1DRebindableType;
+import com.io7m.jpra.runtime.java.JPRAStringTruncation;
+import com.io7m.jpra.tests.compiler.java.generation.code.NestedString0ByteBuffered;
+import com.io7m.jpra.tests.compiler.java.generation.code.NestedString0Type;
+import com.io7m.jpra.tests.compiler.java.generation.code.OpenGL565ByteBuffered;
+import com.io7m.jpra.tests.compiler.java.generation.code.OpenGL565Type;
+import com.io7m.jpra.tests.compiler.java.generation.code.VectorsByteBuffered;
+import com.io7m.jpra.tests.compiler.java.generation.code.VectorsType;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+public final class RebindTest
+{
+  @Test
+  public void testRebindNested()
+  {
+    final ByteBuffer buf0 = ByteBuffer.allocate(2 * 36);
+    final ByteBuffer buf1 = ByteBuffer.allocate(2 * 36);
+    final JPRACursor1DRebindableType<NestedString0Type> c =
+      JPRACursor1DByteBufferedChecked.newCursor(
+        buf0, NestedString0ByteBuffered::newValueWithOffset);
+    final NestedString0Type v = c.getElementView();
+
+    c.setElementIndex(1);
+    v.getSWritable().setValue("ABCD", JPRAStringTruncation.TRUNCATE);
+    v.getNWritable().getSWritable().setValue("EFGH", JPRAStringTruncation.TRUNCATE);
+    v.getNWritable().getNWritable().getSWritable().setValue(
+      "IJKL", JPRAStringTruncation.TRUNCATE);
+
+    c.rebind(buf1);
+    Assert.assertEquals(0L, (long) c.getElementIndex());
+    c.setElementIndex(1);
+    Assert.assertEquals("", v.getSReadable().getNewValue());
+    Assert.assertEquals("", v.getNReadable().getSReadable().getNewValue());
+    Assert.assertEquals(
+      "", v.getNReadable().getNReadable().getSReadable().getNewValue());
+
+    v.getNWritable().getNWritable().getSWritable().setValue(
+      "MNOP", JPRAStringTruncation.TRUNCATE);
+
+    c.rebind(buf0);
+    c.setElementIndex(1);
+    Assert.assertEquals("ABCD", v.getSReadable().getNewValue());
+    Assert.assertEquals("EFGH", v.getNReadable().getSReadable().getNewValue());
+    Assert.assertEquals(
+      "IJKL", v.getNReadable().getNReadable().getSReadable().getNewValue());
+
+    c.rebind(buf1);
+    c.setElementIndex(1);
+    Assert.assertEquals(
+      "MNOP", v.getNReadable().getNReadable().getSReadable().getNewValue());
+  }
+
+  @Test
+  public void testRebindVectors()
+  {
+    final JPRABufferRing ring =
+      JPRABufferRing.allocate(2, 4 * 234, ByteBuffer::allocateDirect);
+    final JPRACursor1DRebindableType<VectorsType> c =
+      JPRACursor1DByteBufferedChecked.newCursor(
+        ring.current(), VectorsByteBuffered::newValueWithOffset);
+    final VectorsType v = c.getElementView();
+
+    for (int index = 0; index < 4; ++index) {
+      c.setElementIndex(index);
+      v.getV3dWritable().setXYZ(1.0, 2.0, 3.0);
+    }
+
+    ring.rotate(c);
+
+    for (int index = 0; index < 4; ++index) {
+      c.setElementIndex(index);
+      Assert.assertEquals(0.0, v.getV3dReadable().x(), 0.0);
+      Assert.assertEquals(0.0, v.getV3dReadable().y(), 0.0);
+      Assert.assertEquals(0.0, v.getV3dReadable().z(), 0.0);
+      v.getV3dWritable().setXYZ(4.0, 5.0, 6.0);
+    }
+
+    ring.rotate(c);
+
+    for (int index = 0; index < 4; ++index) {
+      c.setElementIndex(index);
+      Assert.assertEquals(1.0, v.getV3dReadable().x(), 0.0);
+      Assert.assertEquals(2.0, v.getV3dReadable().y(), 0.0);
+      Assert.assertEquals(3.0, v.getV3dReadable().z(), 0.0);
+    }
+  }
+
+  @Test
+  public void testRebindPacked()
+  {
+    final ByteBuffer buf0 = ByteBuffer.allocate(8 * 2);
+    final ByteBuffer buf1 = ByteBuffer.allocate(8 * 2);
+    final JPRACursor1DRebindableType<OpenGL565Type> c =
+      JPRACursor1DByteBufferedChecked.newCursor(
+        buf0, OpenGL565ByteBuffered::newValueWithOffset);
+    final OpenGL565Type v = c.getElementView();
+
+    c.setElementIndex(3);
+    v.setRRaw(7);
+    c.rebind(buf1);
+    c.setElementIndex(3);
+    Assert.assertEquals(0L, (long) v.getRRaw());
+    c.rebind(buf0);
+    c.setElementIndex(3);
+    Assert.assertEquals(7L, (long) v.getRRaw());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testRebindTooSmall()
+  {
+    final JPRACursor1DRebindableType<OpenGL565Type> c =
+      JPRACursor1DByteBufferedChecked.newCursor(
+        ByteBuffer.allocate(8 * 2), OpenGL565ByteBuffered::newValueWithOffset);
+    c.rebind(ByteBuffer.allocate(1));
+  }
+}
@@ -0,0 +1,386 @@
+/*
+ * Copyright © 2015 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.jpra.tests.compiler.java.output;
+
+import com.io7m.jpra.runtime.java.JPRACursor1DByteBufferedChecked;
+import com.io7m.jpra.runtime.java.JPRACursor1DRebindableType;
+import com.io7m.jpra.runtime.java.JPRACursor1DType;
+import com.io7m.jpra.runtime.java.JPRAPayloadLayout;
+import com.io7m.jpra.tests.compiler.java.generation.code.CircleReadableType;
+import com.io7m.jpra.tests.compiler.java.generation.code.ElementByteBuffered;
+import com.io7m.jpra.tests.compiler.java.generation.code.ElementMatcherType;
+import com.io7m.jpra.tests.compiler.java.generation.code.ElementReadableType;
+import com.io7m.jpra.tests.compiler.java.generation.code.ElementType;
+import com.io7m.jpra.tests.compiler.java.generation.code.GroupReadableType;
+import com.io7m.jpra.tests.compiler.java.generation.code.GroupType;
+import com.io7m.jpra.tests.compiler.java.generation.code.RectangleReadableType;
+import com.io7m.jpra.tests.compiler.java.generation.code.Shape32ByteBuffered;
+import com.io7m.jpra.tests.compiler.java.generation.code.Shape32ReadableType;
+import com.io7m.jpra.tests.compiler.java.generation.code.Shape32Type;
+import com.io7m.jpra.tests.compiler.java.generation.code.Shape64ByteBuffered;
+import com.io7m.jpra.tests.compiler.java.generation.code.Shape64MatcherType;
+import com.io7m.jpra.tests.compiler.java.generation.code.Shape64ReadableType;
+import com.io7m.jpra.tests.compiler.java.generation.code.Shape64Type;
+import com.io7m.jpra.tests.compiler.java.generation.code.ShapeByteBuffered;
+import com.io7m.jpra.tests.compiler.java.generation.code.ShapeMatcherType;
+import com.io7m.jpra.tests.compiler.java.generation.code.ShapeReadableType;
+import com.io7m.jpra.tests.compiler.java.generation.code.ShapeType;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+public final class UnionTest
+{
+  private static final class ShapeDescriber
+    implements ShapeMatcherType<String, RuntimeException>
+  {
+    @Override
+    public String matchCircle(final CircleReadableType c)
+    {
+      return String.format("circle %d", Integer.valueOf(c.getRadius()));
+    }
+
+    @Override
+    public String matchRectangle(final RectangleReadableType c)
+    {
+      return String.format(
+        "rectangle %dx%d",
+        Integer.valueOf(c.getWidth()),
+        Integer.valueOf(c.getHeight()));
+    }
+  }
+
+  private static final class ElementDescriber
+    implements ElementMatcherType<String, RuntimeException>
+  {
+    @Override
+    public String matchSingle(final CircleReadableType c)
+    {
+      return String.format("single %d", Integer.valueOf(c.getRadius()));
+    }
+
+    @Override
+    public String matchGroup(final GroupReadableType c)
+    {
+      return String.format(
+        "group %d %s",
+        Integer.valueOf(c.getId()),
+        c.getShapeReadable().matchCase(new ShapeDescriber()));
+    }
+  }
+
+  @Test
+  public void testTagConstants()
+  {
+    Assert.assertEquals(0L, ShapeReadableType.TAG_CIRCLE);
+    Assert.assertEquals(1L, ShapeReadableType.TAG_RECTANGLE);
+    Assert.assertEquals(0L, ElementReadableType.TAG_SINGLE);
+    Assert.assertEquals(1L, ElementReadableType.TAG_GROUP);
+    Assert.assertEquals(0L, Shape32ReadableType.TAG_CIRCLE);
+    Assert.assertEquals(1L, Shape32ReadableType.TAG_RECTANGLE);
+    Assert.assertEquals(0L, Shape64ReadableType.TAG_CIRCLE);
+    Assert.assertEquals(1L, Shape64ReadableType.TAG_RECTANGLE);
+  }
+
+  @Test
+  public void testSizes()
+  {
+    Assert.assertEquals(9L, (long) ShapeByteBuffered.sizeInOctets());
+    Assert.assertEquals(15L, (long) ElementByteBuffered.sizeInOctets());
+    Assert.assertEquals(12L, (long) Shape32ByteBuffered.sizeInOctets());
+    Assert.assertEquals(16L, (long) Shape64ByteBuffered.sizeInOctets());
+  }
+
+  @Test
+  public void testPayloadLayout()
+  {
+    Assert.assertEquals(
+      JPRAPayloadLayout.of(9, new int[]{0, 9}, new int[]{}, new byte[]{}),
+      ShapeByteBuffered.payloadLayout());
+  }
+
+  @Test
+  public void testSelectRoundTrip()
+  {
+    final ByteBuffer buf = ByteBuffer.allocate(2 * 9);
+    final JPRACursor1DType<ShapeType> c =
+      JPRACursor1DByteBufferedChecked.newCursor(
+        buf, ShapeByteBuffered::newValueWithOffset);
+    final ShapeType v = c.getElementView();
+
+    buf.put(0, (byte) 0xff);
+    v.selectCircle().setRadius(23);
+    c.setElementIndex(1);
+    v.selectRectangle().setWidth(3);
+    v.getRectangleWritable().setHeight(4);
+
+    Assert.assertEquals(0L, (long) buf.get(0));
+    Assert.assertEquals(23L, (long) buf.getInt(1));
+    Assert.assertEquals(1L, (long) buf.get(9));
+    Assert.assertEquals(3L, (long) buf.getInt(10));
+    Assert.assertEquals(4L, (long) buf.getInt(14));
+
+    c.setElementIndex(0);
+    Assert.assertEquals(ShapeReadableType.TAG_CIRCLE, v.getTag());
+    Assert.assertEquals(23L, (long) v.getCircleReadable().getRadius());
+
+    c.setElementIndex(1);
+    Assert.assertEquals(ShapeReadableType.TAG_RECTANGLE, v.getTag());
+    Assert.assertEquals(3L, (long) v.getRectangleReadable().getWidth());
+    Assert.assertEquals(4L, (long) v.getRectangleReadable().getHeight());
+  }
+
+  @Test
+  public void testCasesShareStorage()
+  {
+    final ByteBuffer buf = ByteBuffer.allocate(9);
+    final JPRACursor1DType<ShapeType> c =
+      JPRACursor1DByteBufferedChecked.newCursor(
+        buf, ShapeByteBuffered::newValueWithOffset);
+    final ShapeType v = c.getElementView();
+
+    v.selectRectangle().setWidth(3);
+    v.getCircleWritable().setRadius(5);
+
+    Assert.assertEquals(ShapeReadableType.TAG_RECTANGLE, v.getTag());
+    Assert.assertEquals(5L, (long) v.getRectangleReadable().getWidth());
+  }
+
+  @Test
+  public void testTag16()
+  {
+    final ByteBuffer buf = ByteBuffer.allocate(15);
+    final JPRACursor1DType<ElementType> c =
+      JPRACursor1DByteBufferedChecked.newCursor(
+        buf, ElementByteBuffered::newValueWithOffset);
+    final ElementType v = c.getElementView();
+
+    v.selectGroup();
+    Assert.assertEquals(1L, (long) buf.getShort(0));
+    Assert.assertEquals(ElementReadableType.TAG_GROUP, v.getTag());
+
+    buf.putShort(0, (short) 0xffff);
+    Assert.assertEquals(0xffffL, v.getTag());
+  }
+
+  @Test
+  public void testTag16LittleEndian()
+  {
+    final ByteBuffer buf = ByteBuffer.allocate(15);
+    buf.order(ByteOrder.LITTLE_ENDIAN);
+    final JPRACursor1DType<ElementType> c =
+      JPRACursor1DByteBufferedChecked.newCursor(
+        buf, ElementByteBuffered::newValueWithOffset);
+    final ElementType v = c.getElementView();
+
+    v.selectGroup();
+    Assert.assertEquals(1L, (long) buf.get(0));
+    Assert.assertEquals(0L, (long) buf.get(1));
+    Assert.assertEquals(ElementReadableType.TAG_GROUP, v.getTag());
+  }
+
+  @Test
+  public void testTag8()
+  {
+    final ByteBuffer buf = ByteBuffer.allocate(9);
+    final JPRACursor1DType<ShapeType> c =
+      JPRACursor1DByteBufferedChecked.newCursor(
+        buf, ShapeByteBuffered::newValueWithOffset);
+    final ShapeType v = c.getElementView();
+
+    v.selectRectangle();
+    Assert.assertEquals(1L, (long) buf.get(0));
+
+    buf.put(0, (byte) 0xff);
+    Assert.assertEquals(0xffL, v.getTag());
+  }
+
+  @Test
+  public void testTag32()
+  {
+    final ByteBuffer buf = ByteBuffer.allocate(12);
+    final JPRACursor1DType<Shape32Type> c =
+      JPRACursor1DByteBufferedChecked.newCursor(
+        buf, Shape32ByteBuffered::newValueWithOffset);
+    final Shape32Type v = c.getElementView();
+
+    v.selectRectangle().setWidth(3);
+    Assert.assertEquals(1L, (long) buf.getInt(0));
+    Assert.assertEquals(3L, (long) buf.getInt(4));
+    Assert.assertEquals(Shape32ReadableType.TAG_RECTANGLE, v.getTag());
+
+    buf.putInt(0, 0xffffffff);
+    Assert.assertEquals(0xffffffffL, v.getTag());
+  }
+
+  @Test
+  public void testTag64()
+  {
+    final ByteBuffer buf = ByteBuffer.allocate(16);
+    final JPRACursor1DType<Shape64Type> c =
+      JPRACursor1DByteBufferedChecked.newCursor(
+        buf, Shape64ByteBuffered::newValueWithOffset);
+    final Shape64Type v = c.getElementView();
+
+    v.selectRectangle().setWidth(3);
+    Assert.assertEquals(1L, buf.getLong(0));
+    Assert.assertEquals(3L, (long) buf.getInt(8));
+    Assert.assertEquals(Shape64ReadableType.TAG_RECTANGLE, v.getTag());
+
+    buf.putLong(0, -1L);
+    Assert.assertEquals(-1L, v.getTag());
+  }
+
+  @Test
+  public void testMatchCase()
+  {
+    final ByteBuffer buf = ByteBuffer.allocate(9);
+    final JPRACursor1DType<ShapeType> c =
+      JPRACursor1DByteBufferedChecked.newCursor(
+        buf, ShapeByteBuffered::newValueWithOffset);
+    final ShapeType v = c.getElementView();
+
+    v.selectCircle().setRadius(23);
+    Assert.assertEquals("circle 23", v.matchCase(new ShapeDescriber()));
+
+    v.selectRectangle().setWidth(3);
+    v.getRectangleWritable().setHeight(4);
+    Assert.assertEquals("rectangle 3x4", v.matchCase(new ShapeDescriber()));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testMatchCaseBadTag()
+  {
+    final ByteBuffer buf = ByteBuffer.allocate(9);
+    final JPRACursor1DType<ShapeType> c =
+      JPRACursor1DByteBufferedChecked.newCursor(
+        buf, ShapeByteBuffered::newValueWithOffset);
+    final ShapeType v = c.getElementView();
+
+    buf.put(0, (byte) 2);
+    v.matchCase(new ShapeDescriber());
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testMatchCaseBadTag64()
+  {
+    final ByteBuffer buf = ByteBuffer.allocate(16);
+    final JPRACursor1DType<Shape64Type> c =
+      JPRACursor1DByteBufferedChecked.newCursor(
+        buf, Shape64ByteBuffered::newValueWithOffset);
+    final Shape64Type v = c.getElementView();
+
+    buf.putLong(0, 1L << 32);
+    v.matchCase(new Shape64MatcherType<Void, RuntimeException>()
+    {
+      @Override
+      public Void matchCircle(final CircleReadableType c)
+      {
+        throw new AssertionError();
+      }
+
+      @Override
+      public Void matchRectangle(final RectangleReadableType c)
+      {
+        throw new AssertionError();
+      }
+    });
+  }
+
+  @Test
+  public void testNestedUnion()
+  {
+    final ByteBuffer buf = ByteBuffer.allocate(15);
+    final JPRACursor1DType<ElementType> c =
+      JPRACursor1DByteBufferedChecked.newCursor(
+        buf, ElementByteBuffered::newValueWithOffset);
+    final ElementType v = c.getElementView();
+
+    final GroupType g = v.selectGroup();
+    g.setId(7);
+    g.getShapeWritable().selectRectangle().setWidth(3);
+    g.getShapeWritable().getRectangleWritable().setHeight(4);
+
+    Assert.assertEquals(1L, (long) buf.getShort(0));
+    Assert.assertEquals(7L, (long) buf.getInt(2));
+    Assert.assertEquals(1L, (long) buf.get(6));
+    Assert.assertEquals(3L, (long) buf.getInt(7));
+    Assert.assertEquals(4L, (long) buf.getInt(11));
+
+    Assert.assertEquals(
+      "group 7 rectangle 3x4", v.matchCase(new ElementDescriber()));
+
+    v.selectSingle().setRadius(23);
+    Assert.assertEquals("single 23", v.matchCase(new ElementDescriber()));
+  }
+
+  @Test
+  public void testRebind()
+  {
+    final ByteBuffer buf0 = ByteBuffer.allocate(2 * 15);
+    final ByteBuffer buf1 = ByteBuffer.allocate(2 * 15);
+    final JPRACursor1DRebindableType<ElementType> c =
+      JPRACursor1DByteBufferedChecked.newCursor(
+        buf0, ElementByteBuffered::newValueWithOffset);
+    final ElementType v = c.getElementView();
+
+    c.setElementIndex(1);
+    v.selectGroup().setId(7);
+    v.getGroupWritable().getShapeWritable().selectCircle().setRadius(23);
+
+    c.rebind(buf1);
+    c.setElementIndex(1);
+    Assert.assertEquals("single 0", v.matchCase(new ElementDescriber()));
+    v.selectGroup().getShapeWritable().selectRectangle().setWidth(5);
+
+    c.rebind(buf0);
+    c.setElementIndex(1);
+    Assert.assertEquals(
+      "group 7 circle 23", v.matchCase(new ElementDescriber()));
+
+    c.rebind(buf1);
+    c.setElementIndex(1);
+    Assert.assertEquals(
+      "group 0 rectangle 5x0", v.matchCase(new ElementDescriber()));
+  }
+
+  @Test
+  public void testEqualsBytes()
+  {
+    final ByteBuffer buf = ByteBuffer.allocate(2 * 9);
+    final JPRACursor1DType<ShapeType> c0 =
+      JPRACursor1DByteBufferedChecked.newCursor(
+        buf, ShapeByteBuffered::newValueWithOffset);
+    final JPRACursor1DType<ShapeType> c1 =
+      JPRACursor1DByteBufferedChecked.newCursor(
+        buf, ShapeByteBuffered::newValueWithOffset);
+    final ShapeType v0 = c0.getElementView();
+    final ShapeType v1 = c1.getElementView();
+    c1.setElementIndex(1);
+
+    v0.selectCircle().setRadius(23);
+    v1.selectCircle().setRadius(23);
+    Assert.assertTrue(v0.equalsBytes(v1));
+    Assert.assertEquals(v0.hashBytes(), v1.hashBytes());
+
+    v1.selectRectangle();
+    Assert.assertFalse(v0.equalsBytes(v1));
+    Assert.assertEquals(0L, (long) v0.mismatch(v1));
+  }
+}
@@ -0,0 +1,219 @@
+/*
+ * Copyright © 2015 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.jpra.tests.compiler.java.output;
+
+import com.io7m.ieee754b16.Binary16;
+import com.io7m.jpra.runtime.java.JPRACursor1DByteBufferedChecked;
+import com.io7m.jpra.runtime.java.JPRACursor1DType;
+import com.io7m.jpra.runtime.java.JPRAStringTruncation;
+import com.io7m.jpra.tests.compiler.java.generation.code.BooleanSetsByteBuffered;
+import com.io7m.jpra.tests.compiler.java.generation.code.BooleanSetsType;
+import com.io7m.jpra.tests.compiler.java.generation.code.BooleanSetsValue;
+import com.io7m.jpra.tests.compiler.java.generation.code.IntegersSignedByteBuffered;
+import com.io7m.jpra.tests.compiler.java.generation.code.IntegersSignedType;
+import com.io7m.jpra.tests.compiler.java.generation.code.IntegersSignedValue;
+import com.io7m.jpra.tests.compiler.java.generation.code.MatricesByteBuffered;
+import com.io7m.jpra.tests.compiler.java.generation.code.MatricesType;
+import com.io7m.jpra.tests.compiler.java.generation.code.MatricesValue;
+import com.io7m.jpra.tests.compiler.java.generation.code.NestedString0ByteBuffered;
+import com.io7m.jpra.tests.compiler.java.generation.code.NestedString0Type;
+import com.io7m.jpra.tests.compiler.java.generation.code.NestedString0Value;
+import com.io7m.jpra.tests.compiler.java.generation.code.OpenGL565ByteBuffered;
+import com.io7m.jpra.tests.compiler.java.generation.code.OpenGL565Type;
+import com.io7m.jpra.tests.compiler.java.generation.code.OpenGL565Value;
+import com.io7m.jpra.tests.compiler.java.generation.code.VectorsByteBuffered;
+import com.io7m.jpra.tests.compiler.java.generation.code.VectorsType;
+import com.io7m.jpra.tests.compiler.java.generation.code.VectorsValue;
+import com.io7m.jtensors.core.unparameterized.matrices.Matrix2x2D;
+import com.io7m.jtensors.core.unparameterized.vectors.Vector2L;
+import com.io7m.jtensors.core.unparameterized.vectors.Vector3D;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+public final class ValueClassesTest
+{
+  @Test
+  public void testIntegersLoadStore()
+  {
+    final ByteBuffer buf =
+      ByteBuffer.allocate(4 * IntegersSignedByteBuffered.sizeInOctets());
+    final JPRACursor1DType<IntegersSignedType> c =
+      JPRACursor1DByteBufferedChecked.newCursor(
+        buf, IntegersSignedByteBuffered::newValueWithOffset);
+    final IntegersSignedType v = c.getElementView();
+
+    c.setElementIndex(1);
+    v.setS8((byte) 1);
+    v.setS16((short) 2);
+    v.setS32(3);
+    v.setS64(4L);
+
+    final IntegersSignedValue x = IntegersSignedValue.load(v);
+    Assert.assertEquals(1L, (long) x.getS8());
+    Assert.assertEquals(2L, (long) x.getS16());
+    Assert.assertEquals(3L, (long) x.getS32());
+    Assert.assertEquals(4L, x.getS64());
+    Assert.assertEquals(
+      IntegersSignedValue.of((byte) 1, (short) 2, 3, 4L), x);
+
+    v.setS32(100);
+    Assert.assertEquals(3L, (long) x.getS32());
+
+    c.setElementIndex(3);
+    x.store(v);
+    Assert.assertEquals(x, IntegersSignedValue.load(v));
+  }
+
+  @Test
+  public void testLoadAllStoreAll()
+  {
+    final ByteBuffer buf =
+      ByteBuffer.allocate(8 * IntegersSignedByteBuffered.sizeInOctets());
+    final JPRACursor1DType<IntegersSignedType> c =
+      JPRACursor1DByteBufferedChecked.newCursor(
+        buf, IntegersSignedByteBuffered::newValueWithOffset);
+    final IntegersSignedType v = c.getElementView();
+
+    for (int index = 0; index < 8; ++index) {
+      c.setElementIndex(index);
+      v.setS32(index * 10);
+    }
+    c.setElementIndex(7);
+
+    final List<IntegersSignedValue> list = new ArrayList<>();
+    IntegersSignedValue.loadAll(c, 2, 5, list);
+    Assert.assertEquals(7L, (long) c.getElementIndex());
+    Assert.assertEquals(3L, (long) list.size());
+    Assert.assertEquals(20L, (long) list.get(0).getS32());
+    Assert.assertEquals(40L, (long) list.get(2).getS32());
+
+    final IntegersSignedValue[] array = new IntegersSignedValue[4];
+    IntegersSignedValue.loadAll(c, 6, 8, array, 1);
+    Assert.assertNull(array[0]);
+    Assert.assertEquals(60L, (long) array[1].getS32());
+    Assert.assertEquals(70L, (long) array[2].getS32());
+    Assert.assertNull(array[3]);
+
+    IntegersSignedValue.storeAll(c, 0, list);
+    Assert.assertEquals(7L, (long) c.getElementIndex());
+    c.setElementIndex(0);
+    Assert.assertEquals(20L, (long) v.getS32());
+    c.setElementIndex(2);
+    Assert.assertEquals(40L, (long) v.getS32());
+  }
+
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void testLoadAllArrayTooSmall()
+  {
+    final JPRACursor1DType<IntegersSignedType> c =
+      JPRACursor1DByteBufferedChecked.newCursor(
+        ByteBuffer.allocate(8 * IntegersSignedByteBuffered.sizeInOctets()),
+        IntegersSignedByteBuffered::newValueWithOffset);
+    IntegersSignedValue.loadAll(c, 0, 8, new IntegersSignedValue[4], 0);
+  }
+
+  @Test
+  public void testVectorsMatrices()
+  {
+    final JPRACursor1DType<VectorsType> cv =
+      JPRACursor1DByteBufferedChecked.newCursor(
+        ByteBuffer.allocate(VectorsByteBuffered.sizeInOctets()),
+        VectorsByteBuffered::newValueWithOffset);
+    final VectorsType v = cv.getElementView();
+    v.getV3dWritable().setXYZ(1.0, 2.0, 3.0);
+    v.getV2lWritable().setXY(4L, 5L);
+    v.getV2hWritable().setXY(0.5, 0.25);
+
+    final VectorsValue vv = VectorsValue.load(v);
+    Assert.assertEquals(Vector3D.of(1.0, 2.0, 3.0), vv.getV3d());
+    Assert.assertEquals(Vector2L.of(4L, 5L), vv.getV2l());
+    Assert.assertEquals(
+      Binary16.unpackDouble(Binary16.packDouble(0.5)), vv.getV2h().x(), 0.0);
+
+    final JPRACursor1DType<MatricesType> cm =
+      JPRACursor1DByteBufferedChecked.newCursor(
+        ByteBuffer.allocate(2 * MatricesByteBuffered.sizeInOctets()),
+        MatricesByteBuffered::newValueWithOffset);
+    final MatricesType m = cm.getElementView();
+    final Matrix2x2D m2 = Matrix2x2D.of(1.0, 2.0, 3.0, 4.0);
+    m.getM2dWritable().setMatrix2x2D(m2);
+
+    final MatricesValue mv = MatricesValue.load(m);
+    Assert.assertEquals(m2, mv.getM2d());
+    cm.setElementIndex(1);
+    mv.store(m);
+    Assert.assertEquals(2.0, m.getM2dReadable().rowColumn(0, 1), 0.0);
+    Assert.assertEquals(3.0, m.getM2dReadable().rowColumn(1, 0), 0.0);
+  }
+
+  @Test
+  public void testNestedStrings()
+  {
+    final JPRACursor1DType<NestedString0Type> c =
+      JPRACursor1DByteBufferedChecked.newCursor(
+        ByteBuffer.allocate(2 * NestedString0ByteBuffered.sizeInOctets()),
+        NestedString0ByteBuffered::newValueWithOffset);
+    final NestedString0Type v = c.getElementView();
+    v.getSWritable().setValue("ABCD", JPRAStringTruncation.TRUNCATE);
+    v.getNWritable().getNWritable().getSWritable().setValue(
+      "IJKL", JPRAStringTruncation.TRUNCATE);
+
+    final NestedString0Value x = NestedString0Value.load(v);
+    Assert.assertEquals("ABCD", x.getS());
+    Assert.assertEquals("IJKL", x.getN().getN().getS());
+
+    c.setElementIndex(1);
+    x.store(v);
+    Assert.assertEquals(
+      "IJKL", v.getNReadable().getNReadable().getSReadable().getNewValue());
+    Assert.assertEquals(x, NestedString0Value.load(v));
+  }
+
+  @Test
+  public void testBooleanSetsPacked()
+  {
+    final JPRACursor1DType<BooleanSetsType> cb =
+      JPRACursor1DByteBufferedChecked.newCursor(
+        ByteBuffer.allocate(4), BooleanSetsByteBuffered::newValueWithOffset);
+    final BooleanSetsType b = cb.getElementView();
+    b.setB0A3(true);
+    b.setB0B15(true);
+
+    final BooleanSetsValue bv = BooleanSetsValue.load(b);
+    Assert.assertTrue(bv.getB0A3());
+    Assert.assertTrue(bv.getB0B15());
+    Assert.assertFalse(bv.getB0A0());
+
+    final JPRACursor1DType<OpenGL565Type> cp =
+      JPRACursor1DByteBufferedChecked.newCursor(
+        ByteBuffer.allocate(4), OpenGL565ByteBuffered::newValueWithOffset);
+    final OpenGL565Type p = cp.getElementView();
+    p.setRRaw(7);
+    p.setGRaw(33);
+    p.setBRaw(2);
+
+    final OpenGL565Value pv = OpenGL565Value.load(p);
+    Assert.assertEquals(OpenGL565Value.of(7, 33, 2), pv);
+    cp.setElementIndex(1);
+    pv.store(p);
+    Assert.assertEquals(33L, (long) p.getGRaw());
+  }
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright © 2015 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.jpra.tests.model;
+
+import com.io7m.jlexing.core.LexicalPosition;
+import com.io7m.jpra.model.contexts.GlobalContextType;
+import com.io7m.jpra.model.contexts.GlobalContexts;
+import com.io7m.jpra.model.contexts.PackageContextType;
+import com.io7m.jpra.model.names.FieldName;
+import com.io7m.jpra.model.names.PackageNameQualified;
+import com.io7m.jpra.model.names.PackageNameUnqualified;
+import com.io7m.jpra.model.names.TypeName;
+import com.io7m.jpra.model.types.Size;
+import com.io7m.jpra.model.types.TFloat;
+import com.io7m.jpra.model.types.TIntegerSigned;
+import com.io7m.jpra.model.types.TIntegerUnsigned;
+import com.io7m.jpra.model.types.TLayoutFingerprints;
+import com.io7m.jpra.model.types.TPacked;
+import com.io7m.jpra.model.types.TPackedBuilderType;
+import com.io7m.jpra.model.types.TRecord;
+import com.io7m.jpra.model.types.TRecordBuilderType;
+import com.io7m.jpra.model.types.TType;
+import io.vavr.collection.List;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.URI;
+import java.util.Optional;
+
+public final class TLayoutFingerprintsTest
+{
+  private static final LexicalPosition<URI> LEX_ZERO =
+    LexicalPosition.of(0, 0, Optional.empty());
+
+  private GlobalContextType gc;
+  private PackageContextType pc;
+
+  @Before
+  public void setup()
+    throws Exception
+  {
+    this.gc = GlobalContexts.newContext(new AlwaysEmptyLoader());
+    this.pc = this.gc.loadPackage(
+      new PackageNameQualified(
+        List.of(
+          PackageNameUnqualified.of(LEX_ZERO, "x"),
+          PackageNameUnqualified.of(LEX_ZERO, "y"))));
+  }
+
+  private TRecord record(
+    final String type_name,
+    final String[] names,
+    final TType[] types)
+  {
+    final TRecordBuilderType b = TRecord.newBuilder(
+      this.pc, this.gc.getFreshIdentifier(), TypeName.of(LEX_ZERO, type_name));
+    for (int index = 0; index < names.length; ++index) {
+      b.addField(
+        FieldName.of(LEX_ZERO, names[index]),
+        this.gc.getFreshIdentifier(),
+        types[index]);
+    }
+    return b.build();
+  }
+
+  private static TType signed(
+    final long bits)
+  {
+    return new TIntegerSigned(LEX_ZERO, Size.valueOf(bits));
+  }
+
+  private static TType unsigned(
+    final long bits)
+  {
+    return new TIntegerUnsigned(LEX_ZERO, Size.valueOf(bits));
+  }
+
+  private static TType floating(
+    final long bits)
+  {
+    return new TFloat(LEX_ZERO, Size.valueOf(bits));
+  }
+
+  @Test
+  public void testNamesIgnored()
+  {
+    final TRecord r0 = this.record(
+      "T", new String[]{"a", "b"}, new TType[]{signed(32L), floating(64L)});
+    final TRecord r1 = this.record(
+      "U", new String[]{"x", "y"}, new TType[]{signed(32L), floating(64L)});
+
+    Assert.assertEquals(r0.getLayoutFingerprint(), r1.getLayoutFingerprint());
+    Assert.assertEquals(
+      TLayoutFingerprints.fingerprint(r0), r0.getLayoutFingerprint());
+  }
+
+  @Test
+  public void testLayoutChangesDetected()
+  {
+    final TRecord r0 = this.record(
+      "T", new String[]{"a", "b"}, new TType[]{signed(32L), floating(64L)});
+    final TRecord r_order = this.record(
+      "T", new String[]{"b", "a"}, new TType[]{floating(64L), signed(32L)});
+    final TRecord r_kind = this.record(
+      "T", new String[]{"a", "b"}, new TType[]{unsigned(32L), floating(64L)});
+    final TRecord r_size = this.record(
+      "T", new String[]{"a", "b"}, new TType[]{signed(64L), floating(64L)});
+    final TRecord r_float = this.record(
+      "T", new String[]{"a", "b"}, new TType[]{floating(32L), floating(64L)});
+
+    final long f = r0.getLayoutFingerprint();
+    Assert.assertNotEquals(f, r_order.getLayoutFingerprint());
+    Assert.assertNotEquals(f, r_kind.getLayoutFingerprint());
+    Assert.assertNotEquals(f, r_size.getLayoutFingerprint());
+    Assert.assertNotEquals(f, r_float.getLayoutFingerprint());
+  }
+
+  @Test
+  public void testPackedBitRanges()
+  {
+    final TPackedBuilderType b0 = TPacked.newBuilder(
+      this.pc, this.gc.getFreshIdentifier(), TypeName.of(LEX_ZERO, "P"));
+    b0.addField(
+      FieldName.of(LEX_ZERO, "f0"),
+      this.gc.getFreshIdentifier(),
+      new TIntegerUnsigned(LEX_ZERO, Size.valueOf(4L)));
+    b0.addPaddingBits(LEX_ZERO, Size.valueOf(4L));
+
+    final TPackedBuilderType b1 = TPacked.newBuilder(
+      this.pc, this.gc.getFreshIdentifier(), TypeName.of(LEX_ZERO, "P"));
+    b1.addPaddingBits(LEX_ZERO, Size.valueOf(4L));
+    b1.addField(
+      FieldName.of(LEX_ZERO, "f0"),
+      this.gc.getFreshIdentifier(),
+      new TIntegerUnsigned(LEX_ZERO, Size.valueOf(4L)));
+
+    final TPacked p0 = b0.build();
+    final TPacked p1 = b1.build();
+    Assert.assertNotEquals(
+      p0.getLayoutFingerprint(), p1.getLayoutFingerprint());
+
+    final TRecord r0 = this.record("T", new String[]{"p"}, new TType[]{p0});
+    final TRecord r1 = this.record("T", new String[]{"p"}, new TType[]{p1});
+    Assert.assertNotEquals(
+      r0.getLayoutFingerprint(), r1.getLayoutFingerprint());
+  }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright © 2015 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.jpra.tests.runtime.java;
+
+import com.io7m.jpra.runtime.java.JPRAAccessStatistics;
+import org.junit.Assert;
+import org.junit.Test;
+
+public final class JPRAAccessStatisticsTest
+{
+  @Test
+  public void testCounts()
+  {
+    final JPRAAccessStatistics s = JPRAAccessStatistics.create("T", "a", "b");
+    Assert.assertEquals("T", s.typeName());
+    Assert.assertEquals(2L, (long) s.fieldNames().size());
+
+    s.recordRead(0);
+    s.recordRead(0);
+    s.recordWrite(1);
+
+    Assert.assertEquals(2L, s.reads(0));
+    Assert.assertEquals(2L, s.reads("a"));
+    Assert.assertEquals(0L, s.writes("a"));
+    Assert.assertEquals(1L, s.writes(1));
+    Assert.assertEquals(0L, s.reads("b"));
+
+    s.reset();
+    Assert.assertEquals(0L, s.reads("a"));
+    Assert.assertEquals(0L, s.writes("b"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testDuplicateField()
+  {
+    JPRAAccessStatistics.create("T", "a", "a");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testUnknownField()
+  {
+    JPRAAccessStatistics.create("T", "a").reads("z");
+  }
+
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void testBadIndex()
+  {
+    JPRAAccessStatistics.create("T", "a").recordWrite(1);
+  }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright © 2015 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.jpra.tests.runtime.java;
+
+import com.io7m.ieee754b16.Binary16;
+import com.io7m.jpra.runtime.java.JPRAAggregation;
+import com.io7m.jpra.runtime.java.JPRAScan;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ForkJoinPool;
+
+public final class JPRAAggregationTest
+{
+  private static final int SIZE = 8;
+
+  private static final JPRAScan.Field VALUE =
+    JPRAScan.Field.of(JPRAScan.Kind.INTEGER_SIGNED_32, 0);
+  private static final JPRAScan.Field NORMAL =
+    JPRAScan.Field.of(JPRAScan.Kind.INTEGER_UNSIGNED_NORMALIZED_8, 4);
+  private static final JPRAScan.Field HALF =
+    JPRAScan.Field.of(JPRAScan.Kind.FLOAT_16, 6);
+
+  private static ByteBuffer data(
+    final int count)
+  {
+    final ByteBuffer b = ByteBuffer.allocateDirect(count * SIZE);
+    for (int index = 0; index < count; ++index) {
+      final int base = index * SIZE;
+      b.putInt(base, index - 100);
+      b.put(base + 4, (byte) (index % 2 == 0 ? 0 : 255));
+      b.putChar(base + 6, (char) 0x3c00);
+    }
+    return b;
+  }
+
+  @Test
+  public void testSummarize()
+  {
+    final ByteBuffer b = data(1000);
+    final JPRAAggregation.Summary s =
+      JPRAAggregation.summarize(b, SIZE, VALUE, 0, 1000);
+
+    Assert.assertEquals(1000L, s.count());
+    Assert.assertEquals(-100.0, s.min(), 0.0);
+    Assert.assertEquals(899.0, s.max(), 0.0);
+    Assert.assertEquals(399500.0, s.sum(), 0.0);
+    Assert.assertEquals(399.5, s.mean(), 0.0);
+  }
+
+  @Test
+  public void testSummarizeEmpty()
+  {
+    final JPRAAggregation.Summary s =
+      JPRAAggregation.summarize(data(10), SIZE, VALUE, 5, 5);
+    Assert.assertEquals(0L, s.count());
+    Assert.assertTrue(Double.isNaN(s.mean()));
+  }
+
+  @Test
+  public void testSummarizeParallel()
+  {
+    final ByteBuffer b = data(100_000);
+    final JPRAAggregation.Summary p = JPRAAggregation.summarizeParallel(
+      ForkJoinPool.commonPool(), b, SIZE, VALUE, 3, 99_997, 1000);
+    final JPRAAggregation.Summary s =
+      JPRAAggregation.summarize(b, SIZE, VALUE, 3, 99_997);
+
+    Assert.assertEquals(s.count(), p.count());
+    Assert.assertEquals(s.sum(), p.sum(), 0.0);
+    Assert.assertEquals(s.min(), p.min(), 0.0);
+    Assert.assertEquals(s.max(), p.max(), 0.0);
+  }
+
+  @Test
+  public void testNormalizedAndHalf()
+  {
+    final ByteBuffer b = data(100);
+
+    final JPRAAggregation.Summary n =
+      JPRAAggregation.summarize(b, SIZE, NORMAL, 0, 100);
+    Assert.assertEquals(0.0, n.min(), 0.0);
+    Assert.assertEquals(1.0, n.max(), 0.0);
+    Assert.assertEquals(0.5, n.mean(), 0.0);
+
+    final double one = Binary16.unpackDouble((char) 0x3c00);
+    final JPRAAggregation.Summary h =
+      JPRAAggregation.summarize(b, SIZE, HALF, 0, 100);
+    Assert.assertEquals(one, h.min(), 0.0);
+    Assert.assertEquals(one, h.max(), 0.0);
+    Assert.assertEquals(100.0 * one, h.sum(), 1.0e-9);
+  }
+
+  @Test
+  public void testHistogram()
+  {
+    final ByteBuffer b = data(1000);
+    final JPRAAggregation.Histogram h =
+      JPRAAggregation.histogram(b, SIZE, VALUE, 0, 1000, 0.0, 800.0, 8);
+
+    Assert.assertEquals(8L, (long) h.binCount());
+    Assert.assertEquals(100L, h.below());
+    Assert.assertEquals(100L, h.above());
+    for (int index = 0; index < 8; ++index) {
+      Assert.assertEquals(100L, h.bin(index));
+      Assert.assertEquals(index * 100.0, h.binLowerBound(index), 0.0);
+    }
+
+    final JPRAAggregation.Histogram p = JPRAAggregation.histogramParallel(
+      ForkJoinPool.commonPool(), b, SIZE, VALUE, 0, 1000, 0.0, 800.0, 8, 64);
+    Assert.assertEquals(h.below(), p.below());
+    Assert.assertEquals(h.above(), p.above());
+    for (int index = 0; index < 8; ++index) {
+      Assert.assertEquals(h.bin(index), p.bin(index));
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testHistogramBadRange()
+  {
+    JPRAAggregation.histogram(data(10), SIZE, VALUE, 0, 10, 1.0, 1.0, 4);
+  }
+
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void testRangeTooLarge()
+  {
+    JPRAAggregation.summarize(data(10), SIZE, VALUE, 0, 11);
+  }
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright © 2015 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.jpra.tests.runtime.java;
+
+import com.io7m.jpra.runtime.java.JPRAArena;
+import com.io7m.jpra.runtime.java.JPRACursor1DType;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+public final class JPRAArenaTest
+{
+  @Test
+  public void testAllocateResolve()
+  {
+    try (JPRAArena a = JPRAArena.createDirect(100)) {
+      final JPRAArena.Region<RebindableValue> r =
+        a.region("Value", (b, c, o) -> new RebindableValue(b, 8), 8);
+
+      final long[] h = new long[13];
+      for (int index = 0; index < 13; ++index) {
+        h[index] = r.allocate();
+      }
+
+      Assert.assertEquals(0L, (long) JPRAArena.chunkOf(h[0]));
+      Assert.assertEquals(0L, (long) JPRAArena.offsetOf(h[0]));
+      Assert.assertEquals(0L, (long) JPRAArena.chunkOf(h[11]));
+      Assert.assertEquals(88L, (long) JPRAArena.offsetOf(h[11]));
+      Assert.assertEquals(1L, (long) JPRAArena.chunkOf(h[12]));
+      Assert.assertEquals(0L, (long) JPRAArena.offsetOf(h[12]));
+
+      Assert.assertEquals(2L, (long) r.chunkCount());
+      Assert.assertEquals(2L, (long) a.chunkCount());
+      Assert.assertEquals(13L * 8L, r.bytesUsed());
+      Assert.assertEquals(8L, r.bytesWasted());
+
+      final JPRACursor1DType<RebindableValue> c = r.resolve(h[11]);
+      Assert.assertEquals(11L, (long) c.getElementIndex());
+      Assert.assertSame(a.chunk(0), c.getElementView().buffer());
+
+      r.resolve(h[12]);
+      Assert.assertEquals(0L, (long) c.getElementIndex());
+      Assert.assertSame(a.chunk(1), c.getElementView().buffer());
+    }
+  }
+
+  @Test
+  public void testArrayTailWasted()
+  {
+    try (JPRAArena a = JPRAArena.createDirect(64)) {
+      final JPRAArena.Region<RebindableValue> r =
+        a.region("Value", (b, c, o) -> new RebindableValue(b, 8), 8);
+
+      r.allocateArray(5);
+      final long h = r.allocateArray(4);
+      Assert.assertEquals(1L, (long) JPRAArena.chunkOf(h));
+      Assert.assertEquals(24L, r.bytesWasted());
+      Assert.assertEquals(72L, r.bytesUsed());
+    }
+  }
+
+  @Test
+  public void testRegionsSeparateChunks()
+  {
+    try (JPRAArena a = JPRAArena.createDirect(64)) {
+      final JPRAArena.Region<RebindableValue> r0 =
+        a.region("A", (b, c, o) -> new RebindableValue(b, 8), 8);
+      final JPRAArena.Region<RebindableValue> r1 =
+        a.region("B", (b, c, o) -> new RebindableValue(b, 16), 16);
+
+      final long h0 = r0.allocate();
+      final long h1 = r1.allocate();
+      Assert.assertNotEquals(
+        (long) JPRAArena.chunkOf(h0), (long) JPRAArena.chunkOf(h1));
+      Assert.assertEquals(2L, (long) a.regions().size());
+
+      try {
+        r0.resolve(h1);
+        Assert.fail();
+      } catch (final IllegalArgumentException e) {
+        // Expected
+      }
+    }
+  }
+
+  @Test
+  public void testCloseReleases()
+  {
+    final List<ByteBuffer> released = new ArrayList<>();
+    final JPRAArena a =
+      JPRAArena.create(32, ByteBuffer::allocate, released::add);
+    final JPRAArena.Region<RebindableValue> r =
+      a.region("Value", (b, c, o) -> new RebindableValue(b, 8), 8);
+
+    final long h = r.allocate();
+    r.allocateArray(4);
+    a.close();
+    a.close();
+
+    Assert.assertEquals(2L, (long) released.size());
+    Assert.assertEquals(0L, (long) a.chunkCount());
+
+    try {
+      r.resolve(h);
+      Assert.fail();
+    } catch (final IllegalStateException e) {
+      // Expected
+    }
+    try {
+      r.allocate();
+      Assert.fail();
+    } catch (final IllegalStateException e) {
+      // Expected
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testElementTooLarge()
+  {
+    JPRAArena.createDirect(16)
+      .region("Value", (b, c, o) -> new RebindableValue(b, 32), 32);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testElementSizeMismatch()
+  {
+    JPRAArena.createDirect(64)
+      .region("Value", (b, c, o) -> new RebindableValue(b, 16), 8);
+  }
+
+  @Test
+  public void testResolveUnallocated()
+  {
+    try (JPRAArena a = JPRAArena.createDirect(64)) {
+      final JPRAArena.Region<RebindableValue> r =
+        a.region("Value", (b, c, o) -> new RebindableValue(b, 8), 8);
+
+      final long h0 = r.allocateArray(5);
+      final long h1 = r.allocate();
+      r.resolve(h1);
+
+      try {
+        r.resolve(h1 + 8L);
+        Assert.fail();
+      } catch (final IllegalArgumentException e) {
+        // Expected
+      }
+
+      r.allocateArray(4);
+      r.resolve(h1);
+
+      try {
+        r.resolve(h0 + 48L);
+        Assert.fail();
+      } catch (final IllegalArgumentException e) {
+        // Expected
+      }
+    }
+  }
+}
@@ -0,0 +1,235 @@
+/*
+ * Copyright © 2015 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.jpra.tests.runtime.java;
+
+import com.io7m.jpra.runtime.java.JPRABlockCodec;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+public final class JPRABlockCodecTest
+{
+  private static final int SIZE = 32;
+
+  /*
+   * A timestamp, a counter, an enum-like short, a flag octet, one octet of
+   * padding, an eight octet string, a float, and four octets of padding.
+   */
+
+  private static JPRABlockCodec codec()
+  {
+    return JPRABlockCodec.of(
+      SIZE,
+      new int[]{0, 8, 8, 4, 12, 2, 14, 1, 24, 4},
+      new int[]{16, 8});
+  }
+
+  private static ByteBuffer telemetry(
+    final int count,
+    final ByteOrder order)
+  {
+    final Random r = new Random(0x5678L);
+    final ByteBuffer b = ByteBuffer.allocate(count * SIZE).order(order);
+    long time = 1_600_000_000_000L;
+    for (int index = 0; index < count; ++index) {
+      final int base = index * SIZE;
+      time += 1000L + (long) r.nextInt(16);
+      b.putLong(base, time);
+      b.putInt(base + 8, -index);
+      b.putShort(base + 12, (short) r.nextInt(4));
+      b.put(base + 14, (byte) (index % 2));
+      b.put(base + 15, (byte) 0x7f);
+      for (int octet = 0; octet < 8; ++octet) {
+        b.put(base + 16 + octet, (byte) ('a' + r.nextInt(26)));
+      }
+      b.putFloat(base + 24, 23.5f);
+      b.putInt(base + 28, -1);
+    }
+    return b;
+  }
+
+  private static void checkEqualIgnoringPadding(
+    final ByteBuffer expected,
+    final ByteBuffer received,
+    final int count)
+  {
+    for (int index = 0; index < count * SIZE; ++index) {
+      final int offset = index % SIZE;
+      if (offset == 15 || offset >= 28) {
+        Assert.assertEquals(0L, (long) received.get(index));
+      } else {
+        Assert.assertEquals(
+          (long) expected.get(index), (long) received.get(index));
+      }
+    }
+  }
+
+  @Test
+  public void testBlockRoundTrip()
+  {
+    final JPRABlockCodec c = codec();
+    final ByteBuffer data = telemetry(1000, ByteOrder.BIG_ENDIAN);
+    final ByteBuffer out = ByteBuffer.allocate(c.maximumCompressedSize(1000));
+
+    final int written = c.compressBlock(data, 0, 1000, out);
+    Assert.assertEquals((long) written, (long) out.position());
+    Assert.assertTrue(written < (1000 * SIZE) / 2);
+
+    out.flip();
+    final ByteBuffer result = ByteBuffer.allocate(1000 * SIZE);
+    Assert.assertEquals(1000L, (long) c.decompressBlock(out, result, 0));
+    Assert.assertEquals((long) written, (long) out.position());
+    checkEqualIgnoringPadding(data, result, 1000);
+  }
+
+  @Test
+  public void testBlockExtremes()
+  {
+    final JPRABlockCodec c =
+      JPRABlockCodec.of(8, new int[]{0, 8}, new int[0]);
+    final long[] values = {
+      Long.MIN_VALUE, Long.MAX_VALUE, 0L, -1L, 1L, Long.MIN_VALUE,
+    };
+
+    final ByteBuffer data = ByteBuffer.allocate(values.length * 8);
+    for (int index = 0; index < values.length; ++index) {
+      data.putLong(index * 8, values[index]);
+    }
+
+    final ByteBuffer out =
+      ByteBuffer.allocate(c.maximumCompressedSize(values.length));
+    c.compressBlock(data, 0, values.length, out);
+    out.flip();
+
+    final ByteBuffer result = ByteBuffer.allocate(values.length * 8);
+    c.decompressBlock(out, result, 0);
+    for (int index = 0; index < values.length; ++index) {
+      Assert.assertEquals(values[index], result.getLong(index * 8));
+    }
+  }
+
+  @Test
+  public void testConstantColumns()
+  {
+    final JPRABlockCodec c =
+      JPRABlockCodec.of(4, new int[]{0, 2, 2, 2}, new int[0]);
+    final ByteBuffer data = ByteBuffer.allocate(4096 * 4);
+    for (int index = 0; index < 4096; ++index) {
+      data.putShort(index * 4, (short) 1234);
+      data.putShort(index * 4 + 2, (short) index);
+    }
+
+    final ByteBuffer out = ByteBuffer.allocate(c.maximumCompressedSize(4096));
+    final int written = c.compressBlock(data, 0, 4096, out);
+    Assert.assertTrue(written < 64);
+
+    out.flip();
+    final ByteBuffer result = ByteBuffer.allocate(4096 * 4);
+    c.decompressBlock(out, result, 0);
+    for (int index = 0; index < 4096 * 4; ++index) {
+      Assert.assertEquals((long) data.get(index), (long) result.get(index));
+    }
+  }
+
+  @Test
+  public void testStreamRandomAccess()
+    throws IOException
+  {
+    final JPRABlockCodec c = codec();
+    final ByteBuffer data = telemetry(1000, ByteOrder.LITTLE_ENDIAN);
+    final Path file = Files.createTempFile("jpra-block-codec", ".bin");
+
+    try {
+      try (SeekableByteChannel ch = Files.newByteChannel(
+        file, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+        try (JPRABlockCodec.Writer w =
+               c.newWriter(ch, 128, ByteOrder.LITTLE_ENDIAN)) {
+          w.write(data, 0, 1);
+          w.write(data, 1, 300);
+          w.write(data, 301, 699);
+          Assert.assertEquals(1000L, w.elementCount());
+        }
+      }
+      Assert.assertTrue(Files.size(file) < (long) (1000 * SIZE) / 2);
+
+      try (SeekableByteChannel ch = Files.newByteChannel(file)) {
+        final JPRABlockCodec.Reader r = c.newReader(ch);
+        Assert.assertEquals(1000L, r.elementCount());
+        Assert.assertEquals(8L, (long) r.blockCount());
+        Assert.assertEquals(128L, (long) r.blockElements());
+        Assert.assertEquals(104L, (long) r.blockElementCount(7));
+        Assert.assertEquals(ByteOrder.LITTLE_ENDIAN, r.byteOrder());
+
+        final ByteBuffer block = ByteBuffer.allocate(128 * SIZE);
+        Assert.assertEquals(104L, (long) r.readBlock(7, block, 0));
+        Assert.assertEquals(128L, (long) r.readBlock(3, block, 0));
+        for (int index = 0; index < 128 * SIZE; ++index) {
+          final int offset = index % SIZE;
+          if (offset != 15 && offset < 28) {
+            Assert.assertEquals(
+              (long) data.get((3 * 128 * SIZE) + index),
+              (long) block.get(index));
+          }
+        }
+
+        final ByteBuffer result = ByteBuffer.allocate(1000 * SIZE);
+        Assert.assertEquals(1000L, r.readAll(result));
+        checkEqualIgnoringPadding(data, result, 1000);
+      }
+    } finally {
+      Files.deleteIfExists(file);
+    }
+  }
+
+  @Test(expected = IOException.class)
+  public void testStreamWrongLayout()
+    throws IOException
+  {
+    final Path file = Files.createTempFile("jpra-block-codec", ".bin");
+    try {
+      try (SeekableByteChannel ch = Files.newByteChannel(
+        file, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+        codec().newWriter(ch, 16, ByteOrder.BIG_ENDIAN).close();
+      }
+      try (SeekableByteChannel ch = Files.newByteChannel(file)) {
+        JPRABlockCodec.of(SIZE, new int[]{0, 8}, new int[0]).newReader(ch);
+      }
+    } finally {
+      Files.deleteIfExists(file);
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testOverlappingColumns()
+  {
+    JPRABlockCodec.of(8, new int[]{0, 4, 2, 2}, new int[0]);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testBadColumnSize()
+  {
+    JPRABlockCodec.of(8, new int[]{0, 3}, new int[0]);
+  }
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright © 2015 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.jpra.tests.runtime.java;
+
+import com.io7m.jpra.runtime.java.JPRABufferPool;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+public final class JPRABufferPoolTest
+{
+  @Test
+  public void testSizeClasses()
+  {
+    final JPRABufferPool p = JPRABufferPool.create(64, 4096, 64, 4, false);
+    Assert.assertEquals(64L, (long) p.sizeClassOf(1));
+    Assert.assertEquals(64L, (long) p.sizeClassOf(64));
+    Assert.assertEquals(128L, (long) p.sizeClassOf(65));
+    Assert.assertEquals(4096L, (long) p.sizeClassOf(4096));
+
+    final ByteBuffer b = p.acquire(100);
+    Assert.assertTrue(b.isDirect());
+    Assert.assertEquals(128L, (long) b.capacity());
+    Assert.assertEquals(0L, (long) b.alignmentOffset(0, 64));
+    Assert.assertEquals(ByteOrder.BIG_ENDIAN, b.order());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testTooLarge()
+  {
+    JPRABufferPool.create(64, 4096, 64, 4, false).acquire(4097);
+  }
+
+  @Test
+  public void testReuse()
+  {
+    final JPRABufferPool p = JPRABufferPool.create(64, 4096, 64, 2, false);
+
+    final List<ByteBuffer> buffers = new ArrayList<>();
+    for (int index = 0; index < 4; ++index) {
+      buffers.add(p.acquire(256));
+    }
+    Assert.assertEquals(4L, p.allocationCount());
+
+    for (final ByteBuffer b : buffers) {
+      b.order(ByteOrder.LITTLE_ENDIAN);
+      b.position(10);
+      p.release(b);
+    }
+
+    for (int index = 0; index < 4; ++index) {
+      final ByteBuffer b = p.acquire(200);
+      Assert.assertTrue(buffers.stream().anyMatch(x -> x == b));
+      Assert.assertEquals(0L, (long) b.position());
+      Assert.assertEquals(ByteOrder.BIG_ENDIAN, b.order());
+    }
+    Assert.assertEquals(4L, p.allocationCount());
+
+    p.acquire(256);
+    Assert.assertEquals(5L, p.allocationCount());
+  }
+
+  @Test
+  public void testSharedAcrossThreads()
+    throws Exception
+  {
+    final JPRABufferPool p = JPRABufferPool.create(64, 4096, 64, 0, false);
+    final ByteBuffer b = p.acquire(64);
+    p.release(b);
+
+    final AtomicReference<ByteBuffer> r = new AtomicReference<>();
+    final Thread t = new Thread(() -> r.set(p.acquire(64)));
+    t.start();
+    t.join();
+    Assert.assertSame(b, r.get());
+  }
+
+  @Test
+  public void testConcurrent()
+    throws Exception
+  {
+    final JPRABufferPool p = JPRABufferPool.create(64, 4096, 64, 2, true);
+    final Thread[] threads = new Thread[4];
+    final ConcurrentHashMap<Thread, Throwable> errors =
+      new ConcurrentHashMap<>();
+
+    for (int index = 0; index < threads.length; ++index) {
+      threads[index] = new Thread(() -> {
+        try {
+          for (int iter = 0; iter < 1000; ++iter) {
+            final ByteBuffer b0 = p.acquire(64);
+            final ByteBuffer b1 = p.acquire(64);
+            b0.putInt(0, iter);
+            p.release(b1);
+            p.release(b0);
+          }
+        } catch (final Throwable e) {
+          errors.put(Thread.currentThread(), e);
+        }
+      });
+      threads[index].start();
+    }
+    for (final Thread t : threads) {
+      t.join();
+    }
+
+    Assert.assertTrue(errors.isEmpty());
+    Assert.assertTrue(p.outstanding().isEmpty());
+  }
+
+  @Test
+  public void testLeakDetection()
+  {
+    final JPRABufferPool p = JPRABufferPool.create(64, 4096, 64, 4, true);
+    Assert.assertTrue(p.isLeakDetectionEnabled());
+
+    final ByteBuffer b = p.acquire(64);
+    Assert.assertEquals(1L, (long) p.outstanding().size());
+    p.release(b);
+    Assert.assertEquals(0L, (long) p.outstanding().size());
+
+    try {
+      p.release(b);
+      Assert.fail();
+    } catch (final IllegalArgumentException e) {
+      // Expected
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testReleaseForeign()
+  {
+    JPRABufferPool.create(64, 4096, 64, 4, false)
+      .release(ByteBuffer.allocate(64));
+  }
+
+  @Test
+  public void testLease()
+  {
+    final JPRABufferPool p = JPRABufferPool.create(64, 4096, 64, 4, true);
+    try (JPRABufferPool.Lease<RebindableValue> lease =
+           p.acquireCursor((b, c, o) -> new RebindableValue(b, 12), 12, 10)) {
+      Assert.assertEquals(128L, (long) lease.buffer().capacity());
+      Assert.assertEquals(
+        120L, (long) lease.cursor().getElementView().buffer().capacity());
+
+      lease.cursor().setElementIndex(9);
+      try {
+        lease.cursor().setElementIndex(10);
+        Assert.fail();
+      } catch (final IndexOutOfBoundsException e) {
+        // Expected
+      }
+    }
+    Assert.assertTrue(p.outstanding().isEmpty());
+  }
+}
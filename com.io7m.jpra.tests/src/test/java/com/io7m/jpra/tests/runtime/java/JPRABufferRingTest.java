@@ -0,0 +1,120 @@
+/*
+ * Copyright © 2015 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.jpra.tests.runtime.java;
+
+import com.io7m.jpra.runtime.java.JPRABufferRing;
+import com.io7m.jpra.runtime.java.JPRACursor1DByteBufferedChecked;
+import com.io7m.jpra.runtime.java.JPRACursor1DRebindableType;
+import com.io7m.jpra.runtime.java.JPRAValueByteBufferedConstructorType;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+public final class JPRABufferRingTest
+{
+  @Rule public ExpectedException expected = ExpectedException.none();
+
+  @Test
+  public void testEmpty()
+  {
+    this.expected.expect(IllegalArgumentException.class);
+    JPRABufferRing.create(new ArrayList<>());
+    Assert.fail();
+  }
+
+  @Test
+  public void testCountZero()
+  {
+    this.expected.expect(IllegalArgumentException.class);
+    JPRABufferRing.allocate(0, 16, ByteBuffer::allocate);
+    Assert.fail();
+  }
+
+  @Test
+  public void testRotate()
+  {
+    final List<ByteBuffer> buffers = new ArrayList<>();
+    buffers.add(ByteBuffer.allocate(8));
+    buffers.add(ByteBuffer.allocate(8));
+    buffers.add(ByteBuffer.allocate(8));
+
+    final JPRABufferRing r = JPRABufferRing.create(buffers);
+    Assert.assertEquals(3L, (long) r.size());
+    Assert.assertEquals(0L, (long) r.currentIndex());
+    Assert.assertSame(buffers.get(0), r.current());
+    Assert.assertSame(buffers.get(0), r.buffer(0));
+    Assert.assertSame(buffers.get(2), r.buffer(1));
+    Assert.assertSame(buffers.get(1), r.buffer(2));
+
+    Assert.assertSame(buffers.get(1), r.rotate());
+    Assert.assertEquals(1L, (long) r.currentIndex());
+    Assert.assertSame(buffers.get(0), r.buffer(1));
+
+    Assert.assertSame(buffers.get(2), r.rotate());
+    Assert.assertSame(buffers.get(0), r.rotate());
+    Assert.assertEquals(0L, (long) r.currentIndex());
+  }
+
+  @Test
+  public void testBufferAgeOutOfRange()
+  {
+    final JPRABufferRing r = JPRABufferRing.allocate(2, 8, ByteBuffer::allocate);
+    this.expected.expect(IndexOutOfBoundsException.class);
+    r.buffer(2);
+    Assert.fail();
+  }
+
+  @Test
+  public void testRotateRebind()
+  {
+    final JPRABufferRing r = JPRABufferRing.allocate(2, 8, ByteBuffer::allocate);
+    final JPRAValueByteBufferedConstructorType<RebindableValue> cons =
+      (buffer, cursor, offset) -> new RebindableValue(buffer, 2);
+    final JPRACursor1DRebindableType<RebindableValue> c =
+      JPRACursor1DByteBufferedChecked.newCursor(r.current(), cons);
+
+    final ByteBuffer next = r.rotate(c);
+    Assert.assertSame(next, r.current());
+    Assert.assertSame(next, c.getElementView().buffer());
+  }
+
+  @Test
+  public void testRotateRebindRejected()
+  {
+    final List<ByteBuffer> buffers = new ArrayList<>();
+    buffers.add(ByteBuffer.allocate(8));
+    buffers.add(ByteBuffer.allocate(1));
+
+    final JPRABufferRing r = JPRABufferRing.create(buffers);
+    final JPRAValueByteBufferedConstructorType<RebindableValue> cons =
+      (buffer, cursor, offset) -> new RebindableValue(buffer, 2);
+    final JPRACursor1DRebindableType<RebindableValue> c =
+      JPRACursor1DByteBufferedChecked.newCursor(r.current(), cons);
+
+    try {
+      r.rotate(c);
+      Assert.fail();
+    } catch (final IllegalArgumentException e) {
+      Assert.assertEquals(0L, (long) r.currentIndex());
+    }
+  }
+}
@@ -0,0 +1,192 @@
+/*
+ * Copyright © 2015 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.jpra.tests.runtime.java;
+
+import com.io7m.jpra.runtime.java.JPRAContainer;
+import com.io7m.jpra.runtime.java.JPRACursor1DType;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+public final class JPRAContainerTest
+{
+  private static final String NAME = "com.example.Telemetry";
+  private static final long FINGERPRINT = 0x0123456789abcdefL;
+
+  private static Path write(
+    final ByteBuffer data,
+    final int count,
+    final int alignment,
+    final int checksum_block)
+    throws IOException
+  {
+    final Path file = Files.createTempFile("jpra-container", ".bin");
+    try (FileChannel ch = FileChannel.open(
+      file, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      JPRAContainer.write(
+        ch, NAME, FINGERPRINT, data, 12, count, alignment, checksum_block);
+    } catch (final IOException | RuntimeException e) {
+      Files.deleteIfExists(file);
+      throw e;
+    }
+    return file;
+  }
+
+  private static ByteBuffer data(
+    final int count,
+    final ByteOrder order)
+  {
+    final ByteBuffer b = ByteBuffer.allocate(count * 12).order(order);
+    for (int index = 0; index < count; ++index) {
+      b.putLong(index * 12, (long) index * 1000L);
+      b.putInt(index * 12 + 8, -index);
+    }
+    return b;
+  }
+
+  private static JPRAContainer.Mapped<RebindableValue> map(
+    final FileChannel ch,
+    final FileChannel.MapMode mode,
+    final String name,
+    final long fingerprint)
+    throws IOException
+  {
+    return JPRAContainer.map(
+      ch, mode, name, fingerprint, 12, (b, c, o) -> new RebindableValue(b, 12));
+  }
+
+  @Test
+  public void testRoundTrip()
+    throws IOException
+  {
+    final Path file = write(data(100, ByteOrder.LITTLE_ENDIAN), 100, 64, 16);
+    try (FileChannel ch = FileChannel.open(file)) {
+      final JPRAContainer.Mapped<RebindableValue> m =
+        map(ch, FileChannel.MapMode.READ_ONLY, NAME, FINGERPRINT);
+
+      Assert.assertEquals(100L, (long) m.elementCount());
+      Assert.assertEquals(7L, (long) m.checksumBlockCount());
+      Assert.assertEquals(-1L, (long) m.verify());
+
+      final ByteBuffer d = m.data();
+      Assert.assertEquals(ByteOrder.LITTLE_ENDIAN, d.order());
+      Assert.assertEquals(1200L, (long) d.capacity());
+      for (int index = 0; index < 100; ++index) {
+        Assert.assertEquals((long) index * 1000L, d.getLong(index * 12));
+        Assert.assertEquals((long) -index, (long) d.getInt(index * 12 + 8));
+      }
+
+      final JPRACursor1DType<RebindableValue> c = m.cursor();
+      c.setElementIndex(99);
+      Assert.assertSame(d, c.getElementView().buffer());
+    } finally {
+      Files.deleteIfExists(file);
+    }
+  }
+
+  @Test
+  public void testCorruption()
+    throws IOException
+  {
+    final Path file = write(data(100, ByteOrder.BIG_ENDIAN), 100, 8, 10);
+    try (FileChannel ch = FileChannel.open(
+      file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      final JPRAContainer.Mapped<RebindableValue> m =
+        map(ch, FileChannel.MapMode.READ_WRITE, NAME, FINGERPRINT);
+      Assert.assertEquals(-1L, (long) m.verify());
+
+      m.data().put(55 * 12, (byte) 0x7f);
+      Assert.assertEquals(5L, (long) m.verify());
+      Assert.assertFalse(m.verifyBlock(5));
+      Assert.assertTrue(m.verifyBlock(6));
+    } finally {
+      Files.deleteIfExists(file);
+    }
+  }
+
+  @Test
+  public void testNoChecksums()
+    throws IOException
+  {
+    final Path file = write(data(3, ByteOrder.BIG_ENDIAN), 3, 1, 0);
+    try (FileChannel ch = FileChannel.open(file)) {
+      Assert.assertEquals(48L + 21L + 36L, ch.size());
+      final JPRAContainer.Mapped<RebindableValue> m =
+        map(ch, FileChannel.MapMode.READ_ONLY, NAME, FINGERPRINT);
+      Assert.assertEquals(0L, (long) m.checksumBlockCount());
+      Assert.assertEquals(-1L, (long) m.verify());
+    } finally {
+      Files.deleteIfExists(file);
+    }
+  }
+
+  @Test(expected = IOException.class)
+  public void testWrongFingerprint()
+    throws IOException
+  {
+    final Path file = write(data(10, ByteOrder.BIG_ENDIAN), 10, 8, 0);
+    try (FileChannel ch = FileChannel.open(file)) {
+      map(ch, FileChannel.MapMode.READ_ONLY, NAME, FINGERPRINT + 1L);
+    } finally {
+      Files.deleteIfExists(file);
+    }
+  }
+
+  @Test(expected = IOException.class)
+  public void testWrongName()
+    throws IOException
+  {
+    final Path file = write(data(10, ByteOrder.BIG_ENDIAN), 10, 8, 0);
+    try (FileChannel ch = FileChannel.open(file)) {
+      map(ch, FileChannel.MapMode.READ_ONLY, "com.example.Other", FINGERPRINT);
+    } finally {
+      Files.deleteIfExists(file);
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testConstructorSizeMismatch()
+    throws IOException
+  {
+    final Path file = write(data(10, ByteOrder.BIG_ENDIAN), 10, 8, 0);
+    try (FileChannel ch = FileChannel.open(file)) {
+      JPRAContainer.map(
+        ch,
+        FileChannel.MapMode.READ_ONLY,
+        NAME,
+        FINGERPRINT,
+        12,
+        (b, c, o) -> new RebindableValue(b, 16));
+    } finally {
+      Files.deleteIfExists(file);
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testBadAlignment()
+    throws IOException
+  {
+    write(data(10, ByteOrder.BIG_ENDIAN), 10, 12, 0);
+  }
+}
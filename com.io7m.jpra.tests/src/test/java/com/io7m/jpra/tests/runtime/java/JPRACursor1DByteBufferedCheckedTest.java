@@ -17,6 +17,7 @@
 package com.io7m.jpra.tests.runtime.java;
 
 import com.io7m.jpra.runtime.java.JPRACursor1DByteBufferedChecked;
+import com.io7m.jpra.runtime.java.JPRACursor1DRebindableType;
 import com.io7m.jpra.runtime.java.JPRACursor1DType;
 import com.io7m.jpra.runtime.java.JPRAValueByteBufferedConstructorType;
 import com.io7m.jpra.runtime.java.JPRAValueType;
@@ -27,6 +28,8 @@ import org.junit.Test;
 import org.junit.rules.ExpectedException;
 
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
 
 public final class JPRACursor1DByteBufferedCheckedTest
 {
@@ -124,4 +127,72 @@ public final class JPRACursor1DByteBufferedCheckedTest
     c.setElementIndex(100);
     Assert.fail();
   }
+
+  @Test
+  public void testRebind()
+  {
+    final ByteBuffer buf0 = ByteBuffer.allocate(200);
+    final ByteBuffer buf1 = ByteBuffer.allocate(100);
+    final JPRAValueByteBufferedConstructorType<RebindableValue> cons =
+      (buffer, cursor, offset) -> new RebindableValue(buffer, 2);
+
+    final JPRACursor1DRebindableType<RebindableValue> c =
+      JPRACursor1DByteBufferedChecked.newCursor(buf0, cons);
+    final RebindableValue v = c.getElementView();
+
+    c.setElementIndex(99);
+    c.rebind(buf1);
+
+    Assert.assertSame(v, c.getElementView());
+    Assert.assertSame(buf1, v.buffer());
+    Assert.assertEquals(0L, (long) c.getElementIndex());
+    Assert.assertEquals(0L, c.getByteOffsetObservable().value());
+    Assert.assertEquals("[Cursor 0/49]", c.toString());
+
+    this.expected.expect(IndexOutOfBoundsException.class);
+    c.setElementIndex(50);
+    Assert.fail();
+  }
+
+  @Test
+  public void testRebindTooSmall()
+  {
+    final ByteBuffer buf0 = ByteBuffer.allocate(200);
+    final ByteBuffer buf1 = ByteBuffer.allocate(1);
+    final JPRAValueByteBufferedConstructorType<RebindableValue> cons =
+      (buffer, cursor, offset) -> new RebindableValue(buffer, 2);
+
+    final JPRACursor1DRebindableType<RebindableValue> c =
+      JPRACursor1DByteBufferedChecked.newCursor(buf0, cons);
+    c.setElementIndex(10);
+
+    try {
+      c.rebind(buf1);
+      Assert.fail();
+    } catch (final IllegalArgumentException e) {
+      Assert.assertSame(buf0, c.getElementView().buffer());
+      Assert.assertEquals(10L, (long) c.getElementIndex());
+    }
+  }
+
+  @Test
+  public void testRebindRecreatesView()
+  {
+    final ByteBuffer buf0 = ByteBuffer.allocate(100);
+    final ByteBuffer buf1 = ByteBuffer.allocate(100);
+    final List<ByteBuffer> created = new ArrayList<>();
+    final JPRAValueByteBufferedConstructorType<JPRAValueType> cons =
+      (buffer, cursor, offset) -> {
+        created.add(buffer);
+        return () -> 2;
+      };
+
+    final JPRACursor1DRebindableType<JPRAValueType> c =
+      JPRACursor1DByteBufferedChecked.newCursor(buf0, cons);
+
+    c.setElementIndex(10);
+    c.rebind(buf1);
+    Assert.assertEquals(List.of(buf0, buf1), created);
+    Assert.assertEquals(0L, (long) c.getElementIndex());
+  }
 }
@@ -17,6 +17,7 @@
 package com.io7m.jpra.tests.runtime.java;
 
 import com.io7m.jpra.runtime.java.JPRACursor2DByteBufferedChecked;
+import com.io7m.jpra.runtime.java.JPRACursor2DRebindableType;
 import com.io7m.jpra.runtime.java.JPRACursor2DType;
 import com.io7m.jpra.runtime.java.JPRAValueByteBufferedConstructorType;
 import com.io7m.jpra.runtime.java.JPRAValueType;
@@ -234,4 +235,40 @@ public final class JPRACursor2DByteBufferedCheckedTest
       Assert.assertEquals(text, c.toString());
     }
   }
+
+  @Test
+  public void testRebind()
+  {
+    final ByteBuffer buf0 = ByteBuffer.allocate(4 * 4 * 2);
+    final ByteBuffer buf1 = ByteBuffer.allocate(4 * 4 * 2);
+    final JPRAValueByteBufferedConstructorType<RebindableValue> cons =
+      (buffer, cursor, offset) -> new RebindableValue(buffer, 2);
+
+    final JPRACursor2DRebindableType<RebindableValue> c =
+      JPRACursor2DByteBufferedChecked.newCursor(buf0, 4, 4, cons);
+    c.setElementPosition(3, 3);
+    c.rebind(buf1);
+
+    Assert.assertSame(buf1, c.getElementView().buffer());
+    Assert.assertEquals(0L, (long) c.getElementX());
+    Assert.assertEquals(0L, (long) c.getElementY());
+    Assert.assertEquals(0L, c.getByteOffsetObservable().value());
+  }
+
+  @Test
+  public void testRebindTooSmall()
+  {
+    final ByteBuffer buf0 = ByteBuffer.allocate(4 * 4 * 2);
+    final JPRAValueByteBufferedConstructorType<RebindableValue> cons =
+      (buffer, cursor, offset) -> new RebindableValue(buffer, 2);
+
+    final JPRACursor2DRebindableType<RebindableValue> c =
+      JPRACursor2DByteBufferedChecked.newCursor(buf0, 4, 4, cons);
+
+    this.expected.expect(IllegalArgumentException.class);
+    this.expected.expectMessage(
+      new StringStartsWith("Buffer is too small to hold the specified region."));
+    c.rebind(ByteBuffer.allocate(4 * 4));
+    Assert.fail();
+  }
 }
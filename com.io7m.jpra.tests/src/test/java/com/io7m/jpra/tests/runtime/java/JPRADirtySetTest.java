@@ -0,0 +1,173 @@
+/*
+ * Copyright © 2015 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.jpra.tests.runtime.java;
+
+import com.io7m.jpra.runtime.java.JPRACursor1DByteBufferedChecked;
+import com.io7m.jpra.runtime.java.JPRACursor1DRebindableType;
+import com.io7m.jpra.runtime.java.JPRACursor1DTracking;
+import com.io7m.jpra.runtime.java.JPRADirtySet;
+import com.io7m.jpra.runtime.java.JPRAValueByteBufferedConstructorType;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+public final class JPRADirtySetTest
+{
+  private static List<String> ranges(final JPRADirtySet d)
+  {
+    final List<String> out = new ArrayList<>();
+    d.forEachRange((first, count) -> out.add(first + "+" + count));
+    return out;
+  }
+
+  @Test
+  public void testEmpty()
+  {
+    final JPRADirtySet d = JPRADirtySet.create(1000);
+    Assert.assertTrue(d.isEmpty());
+    Assert.assertEquals(0L, (long) d.dirtyCount());
+    Assert.assertEquals(List.of(), ranges(d));
+  }
+
+  @Test
+  public void testCoalesced()
+  {
+    final JPRADirtySet d = JPRADirtySet.create(10000);
+    d.mark(3);
+    d.mark(4);
+    d.mark(5);
+    d.markRange(60, 10);
+    d.markRange(70, 2);
+    d.mark(9999);
+
+    Assert.assertTrue(d.isDirty(4));
+    Assert.assertFalse(d.isDirty(6));
+    Assert.assertEquals(16L, (long) d.dirtyCount());
+    Assert.assertEquals(List.of("3+3", "60+12", "9999+1"), ranges(d));
+  }
+
+  @Test
+  public void testCoalescedAcrossWords()
+  {
+    final JPRADirtySet d = JPRADirtySet.create(10000);
+    d.markRange(0, 64 * 70);
+    Assert.assertEquals(List.of("0+4480"), ranges(d));
+  }
+
+  @Test
+  public void testByteRanges()
+  {
+    final JPRADirtySet d = JPRADirtySet.create(100);
+    d.markRange(2, 3);
+    d.mark(10);
+
+    final List<String> out = new ArrayList<>();
+    d.forEachByteRange(16, (offset, length) -> out.add(offset + "+" + length));
+    Assert.assertEquals(List.of("32+48", "160+16"), out);
+  }
+
+  @Test
+  public void testClear()
+  {
+    final JPRADirtySet d = JPRADirtySet.create(100000);
+    d.markRange(500, 5000);
+    d.mark(99999);
+    d.clear();
+    Assert.assertTrue(d.isEmpty());
+    Assert.assertEquals(List.of(), ranges(d));
+  }
+
+  @Test
+  public void testDrain()
+  {
+    final JPRADirtySet d = JPRADirtySet.create(1000);
+    d.markRange(10, 5);
+    d.markRange(100, 5);
+
+    final List<String> out = new ArrayList<>();
+    d.drainRanges((first, count) -> out.add(first + "+" + count));
+    Assert.assertEquals(List.of("10+5", "100+5"), out);
+    Assert.assertTrue(d.isEmpty());
+  }
+
+  @Test
+  public void testDrainFailure()
+  {
+    final JPRADirtySet d = JPRADirtySet.create(1000);
+    d.markRange(10, 5);
+    d.markRange(100, 5);
+    d.markRange(200, 5);
+
+    final List<String> out = new ArrayList<>();
+    try {
+      d.drainRanges((first, count) -> {
+        if (first == 100) {
+          throw new IOException("Failed");
+        }
+        out.add(first + "+" + count);
+      });
+      Assert.fail();
+    } catch (final IOException e) {
+      // Expected
+    }
+
+    Assert.assertEquals(List.of("10+5"), out);
+    Assert.assertEquals(List.of("100+5", "200+5"), ranges(d));
+  }
+
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void testMarkOutOfRange()
+  {
+    JPRADirtySet.create(10).mark(10);
+  }
+
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void testMarkRangeOutOfRange()
+  {
+    JPRADirtySet.create(10).markRange(8, 3);
+  }
+
+  @Test
+  public void testTrackingCursor()
+  {
+    final ByteBuffer buf = ByteBuffer.allocate(8 * 100);
+    final JPRAValueByteBufferedConstructorType<RebindableValue> cons =
+      (buffer, cursor, offset) -> new RebindableValue(buffer, 8);
+    final JPRACursor1DRebindableType<RebindableValue> d =
+      JPRACursor1DByteBufferedChecked.newCursor(buf, cons);
+    final JPRACursor1DTracking<RebindableValue> c =
+      JPRACursor1DTracking.newCursor(d, JPRADirtySet.create(100));
+
+    c.setElementIndex(5);
+    Assert.assertEquals(40L, c.getByteOffsetObservable().value());
+    Assert.assertTrue(c.dirtySet().isEmpty());
+
+    c.markDirty();
+    c.setElementIndexForWriting(6);
+    c.setElementIndexForWriting(50);
+    Assert.assertEquals(50L, (long) c.getElementIndex());
+    Assert.assertEquals(List.of("5+2", "50+1"), ranges(c.dirtySet()));
+
+    d.rebind(ByteBuffer.allocate(8 * 100));
+    Assert.assertEquals(0L, (long) c.getElementIndex());
+    Assert.assertEquals(3L, (long) c.dirtySet().dirtyCount());
+  }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright © 2015 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.jpra.tests.runtime.java;
+
+import com.io7m.jpra.runtime.java.JPRAHashIndex;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.util.Random;
+
+public final class JPRAHashIndexTest
+{
+  private static final int ELEMENT_SIZE = 16;
+  private static final int KEY_OFFSET = 4;
+
+  private static ByteBuffer data(
+    final long[] keys)
+  {
+    final ByteBuffer b = ByteBuffer.allocate(keys.length * ELEMENT_SIZE);
+    for (int index = 0; index < keys.length; ++index) {
+      b.putLong(index * ELEMENT_SIZE + KEY_OFFSET, keys[index]);
+    }
+    return b;
+  }
+
+  private static long[] randomKeys(
+    final int count)
+  {
+    final Random r = new Random(0x1234L);
+    final long[] keys = new long[count];
+    for (int index = 0; index < count; ++index) {
+      keys[index] = r.nextLong();
+    }
+    return keys;
+  }
+
+  @Test
+  public void testInsertFindRemove()
+  {
+    final long[] keys = randomKeys(1000);
+    final JPRAHashIndex i = JPRAHashIndex.create(
+      data(keys), ELEMENT_SIZE, KEY_OFFSET, 8, true, 0);
+
+    for (int index = 0; index < keys.length; ++index) {
+      Assert.assertEquals(-1L, (long) i.insert(index));
+    }
+    Assert.assertEquals(1000L, (long) i.size());
+    Assert.assertTrue(i.slots() >= 1334);
+
+    for (int index = 0; index < keys.length; ++index) {
+      Assert.assertEquals((long) index, (long) i.find(keys[index]));
+    }
+
+    for (int index = 0; index < keys.length; index += 2) {
+      Assert.assertEquals((long) index, (long) i.remove(keys[index]));
+    }
+    Assert.assertEquals(500L, (long) i.size());
+
+    for (int index = 0; index < keys.length; ++index) {
+      final long expected = (index % 2 == 0) ? -1L : (long) index;
+      Assert.assertEquals(expected, (long) i.find(keys[index]));
+    }
+    Assert.assertEquals(-1L, (long) i.remove(keys[0]));
+  }
+
+  @Test
+  public void testCollisionsAndReplace()
+  {
+    final ByteBuffer b = ByteBuffer.allocate(64 * ELEMENT_SIZE);
+    for (int index = 0; index < 64; ++index) {
+      b.putShort(index * ELEMENT_SIZE, (short) (index % 32 + 0x8000));
+    }
+
+    final JPRAHashIndex i =
+      JPRAHashIndex.create(b, ELEMENT_SIZE, 0, 2, false, 16);
+    for (int index = 0; index < 32; ++index) {
+      i.insert(index);
+    }
+    for (int index = 32; index < 64; ++index) {
+      Assert.assertEquals((long) (index - 32), (long) i.insert(index));
+    }
+    Assert.assertEquals(32L, (long) i.size());
+    Assert.assertEquals(33L, (long) i.find(0x8001L));
+    Assert.assertEquals(-1L, (long) i.find((long) (short) 0x8001));
+  }
+
+  @Test
+  public void testRebuildParallel()
+  {
+    final long[] keys = randomKeys(100_000);
+    for (int index = 0; index < 1000; ++index) {
+      keys[index + 5000] = keys[index];
+    }
+
+    final ByteBuffer d = data(keys);
+    final JPRAHashIndex s =
+      JPRAHashIndex.create(d, ELEMENT_SIZE, KEY_OFFSET, 8, true, 0);
+    final JPRAHashIndex p =
+      JPRAHashIndex.create(d, ELEMENT_SIZE, KEY_OFFSET, 8, true, 0);
+    s.rebuild(keys.length);
+    p.rebuildParallel(keys.length);
+
+    Assert.assertEquals(99_000L, (long) s.size());
+    Assert.assertEquals((long) s.size(), (long) p.size());
+    for (int index = 0; index < keys.length; ++index) {
+      Assert.assertEquals(
+        (long) s.find(keys[index]), (long) p.find(keys[index]));
+    }
+    Assert.assertEquals(5000L, (long) p.find(keys[0]));
+  }
+
+  @Test
+  public void testSaveLoad()
+    throws IOException
+  {
+    final long[] keys = randomKeys(500);
+    final ByteBuffer d = data(keys);
+    final JPRAHashIndex i =
+      JPRAHashIndex.create(d, ELEMENT_SIZE, KEY_OFFSET, 8, true, 0);
+    i.rebuild(keys.length);
+
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    i.save(Channels.newChannel(out));
+
+    final JPRAHashIndex k = JPRAHashIndex.load(
+      Channels.newChannel(new ByteArrayInputStream(out.toByteArray())),
+      d, ELEMENT_SIZE, KEY_OFFSET, 8, true);
+    Assert.assertEquals((long) i.size(), (long) k.size());
+    for (int index = 0; index < keys.length; ++index) {
+      Assert.assertEquals((long) index, (long) k.find(keys[index]));
+    }
+
+    try {
+      JPRAHashIndex.load(
+        Channels.newChannel(new ByteArrayInputStream(out.toByteArray())),
+        d, ELEMENT_SIZE, 0, 8, true);
+      Assert.fail();
+    } catch (final IOException e) {
+      // Expected
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testKeyOutOfElement()
+  {
+    JPRAHashIndex.create(ByteBuffer.allocate(16), 16, 12, 8, true, 0);
+  }
+}
@@ -0,0 +1,221 @@
+/*
+ * Copyright © 2015 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.jpra.tests.runtime.java;
+
+import com.io7m.jpra.runtime.java.JPRAMigration;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+public final class JPRAMigrationTest
+{
+  @Test
+  public void testSaturateSigned()
+  {
+    Assert.assertEquals(127L, JPRAMigration.saturateSigned(1000L, 8));
+    Assert.assertEquals(-128L, JPRAMigration.saturateSigned(-1000L, 8));
+    Assert.assertEquals(-3L, JPRAMigration.saturateSigned(-3L, 8));
+    Assert.assertEquals(
+      Long.MIN_VALUE, JPRAMigration.saturateSigned(Long.MIN_VALUE, 64));
+  }
+
+  @Test
+  public void testSaturateUnsigned()
+  {
+    Assert.assertEquals(0L, JPRAMigration.saturateUnsigned(-1L, 16));
+    Assert.assertEquals(65535L, JPRAMigration.saturateUnsigned(70000L, 16));
+    Assert.assertEquals(0L, JPRAMigration.saturateUnsigned(-1L, 64));
+    Assert.assertEquals(
+      Long.MAX_VALUE, JPRAMigration.saturateUnsigned(Long.MAX_VALUE, 64));
+  }
+
+  @Test
+  public void testSaturateUnsigned64()
+  {
+    Assert.assertEquals(255L, JPRAMigration.saturateUnsigned64(-1L, 8));
+    Assert.assertEquals(200L, JPRAMigration.saturateUnsigned64(200L, 8));
+    Assert.assertEquals(-1L, JPRAMigration.saturateUnsigned64(-1L, 64));
+    Assert.assertEquals(
+      127L, JPRAMigration.saturateUnsigned64ToSigned(-1L, 8));
+    Assert.assertEquals(
+      Long.MAX_VALUE, JPRAMigration.saturateUnsigned64ToSigned(-1L, 64));
+    Assert.assertEquals(
+      5L, JPRAMigration.saturateUnsigned64ToSigned(5L, 8));
+  }
+
+  @Test
+  public void testDoubleToInteger()
+  {
+    Assert.assertEquals(0L, JPRAMigration.doubleToSigned(Double.NaN, 32));
+    Assert.assertEquals(3L, JPRAMigration.doubleToSigned(2.6, 32));
+    Assert.assertEquals(-128L, JPRAMigration.doubleToSigned(-1.0e9, 8));
+    Assert.assertEquals(
+      Long.MAX_VALUE, JPRAMigration.doubleToSigned(1.0e30, 64));
+    Assert.assertEquals(0L, JPRAMigration.doubleToUnsigned(-5.0, 16));
+    Assert.assertEquals(65535L, JPRAMigration.doubleToUnsigned(1.0e9, 16));
+    Assert.assertEquals(-1L, JPRAMigration.doubleToUnsigned(1.0e30, 64));
+    Assert.assertEquals(
+      Long.MIN_VALUE,
+      JPRAMigration.doubleToUnsigned(9.223372036854775808E18, 64));
+  }
+
+  @Test
+  public void testUnsignedToDouble()
+  {
+    Assert.assertEquals(
+      1.8446744073709551616E19, JPRAMigration.unsignedToDouble(-1L), 0.0);
+    Assert.assertEquals(12.0, JPRAMigration.unsignedToDouble(12L), 0.0);
+  }
+
+  @Test
+  public void testNormalized()
+  {
+    Assert.assertEquals(
+      1.0, JPRAMigration.fromUnsignedNormalized(255L, 8), 0.0);
+    Assert.assertEquals(
+      -1.0, JPRAMigration.fromSignedNormalized(-128L, 8), 0.0);
+    Assert.assertEquals(
+      1.0, JPRAMigration.fromSignedNormalized(127L, 8), 0.0);
+    Assert.assertEquals(
+      0.0, JPRAMigration.fromSignedNormalized(0L, 8), 0.0);
+    Assert.assertEquals(127L, JPRAMigration.toSignedNormalized(2.0, 8));
+    Assert.assertEquals(-128L, JPRAMigration.toSignedNormalized(-2.0, 8));
+    Assert.assertEquals(0L, JPRAMigration.toUnsignedNormalized(-1.0, 8));
+    Assert.assertEquals(
+      65535L, JPRAMigration.toUnsignedNormalized(1.0, 16));
+
+    for (long raw = 0L; raw < 256L; ++raw) {
+      final double d = JPRAMigration.fromUnsignedNormalized(raw, 8);
+      Assert.assertEquals(raw, JPRAMigration.toUnsignedNormalized(d, 8));
+    }
+    for (long raw = -128L; raw < 128L; ++raw) {
+      final double d = JPRAMigration.fromSignedNormalized(raw, 8);
+      Assert.assertEquals(raw, JPRAMigration.toSignedNormalized(d, 8));
+    }
+  }
+
+  @Test
+  public void testPacked()
+  {
+    final ByteBuffer b = ByteBuffer.allocate(8);
+    JPRAMigration.putPacked(b, 1, 3, 0x123456L);
+    Assert.assertEquals(0x12, b.get(1));
+    Assert.assertEquals(0x34, b.get(2));
+    Assert.assertEquals(0x56, b.get(3));
+    Assert.assertEquals(0x123456L, JPRAMigration.getPacked(b, 1, 3));
+  }
+
+  @Test
+  public void testCopyZero()
+  {
+    final ByteBuffer src = ByteBuffer.allocate(32);
+    for (int index = 0; index < 32; ++index) {
+      src.put(index, (byte) (index + 1));
+    }
+
+    final ByteBuffer dst = ByteBuffer.allocate(32);
+    JPRAMigration.copy(src, 3, dst, 5, 19);
+    for (int index = 0; index < 32; ++index) {
+      final int expected = index >= 5 && index < 24 ? index - 1 : 0;
+      Assert.assertEquals(expected, dst.get(index));
+    }
+
+    JPRAMigration.zero(dst, 6, 17);
+    Assert.assertEquals(4, dst.get(5));
+    for (int index = 6; index < 23; ++index) {
+      Assert.assertEquals(0, dst.get(index));
+    }
+    Assert.assertEquals(22, dst.get(23));
+  }
+
+  private static ByteBuffer string(
+    final String text,
+    final int max)
+  {
+    final byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+    final ByteBuffer b = ByteBuffer.allocate(max + 4);
+    b.putInt(0, bytes.length);
+    for (int index = 0; index < bytes.length; ++index) {
+      b.put(4 + index, bytes[index]);
+    }
+    return b;
+  }
+
+  private static String read(
+    final ByteBuffer b,
+    final Charset charset)
+  {
+    final byte[] bytes = new byte[b.getInt(0)];
+    for (int index = 0; index < bytes.length; ++index) {
+      bytes[index] = b.get(4 + index);
+    }
+    return new String(bytes, charset);
+  }
+
+  @Test
+  public void testCopyStringTruncatesAtCharacter()
+  {
+    final ByteBuffer src = string("abéé", 8);
+    final ByteBuffer dst = ByteBuffer.allocate(4 + 5);
+    dst.put(8, (byte) 0x7f);
+
+    JPRAMigration.copyString(src, 0, 8, dst, 0, 5, true);
+    Assert.assertEquals(4, dst.getInt(0));
+    Assert.assertEquals("abé", read(dst, StandardCharsets.UTF_8));
+    Assert.assertEquals(0, dst.get(8));
+  }
+
+  @Test
+  public void testTranscodeString()
+  {
+    final ByteBuffer src = string("héllo", 16);
+    final ByteBuffer dst = ByteBuffer.allocate(4 + 8);
+
+    JPRAMigration.transcodeString(
+      src, 0, 16, StandardCharsets.UTF_8,
+      dst, 0, 8, StandardCharsets.UTF_16BE);
+    Assert.assertEquals(8, dst.getInt(0));
+    Assert.assertEquals("héll", read(dst, StandardCharsets.UTF_16BE));
+  }
+
+  @Test
+  public void testForEachRangeParallel()
+  {
+    final AtomicIntegerArray seen = new AtomicIntegerArray(1000);
+    JPRAMigration.forEachRangeParallel(3, 1000, 64, (from, to) -> {
+      Assert.assertTrue(to - from <= 64);
+      for (int index = from; index < to; ++index) {
+        seen.incrementAndGet(index);
+      }
+    });
+
+    for (int index = 0; index < 1000; ++index) {
+      Assert.assertEquals(index < 3 ? 0 : 1, seen.get(index));
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testForEachRangeParallelBadTaskSize()
+  {
+    JPRAMigration.forEachRangeParallel(0, 10, 0, (from, to) -> {
+    });
+  }
+}
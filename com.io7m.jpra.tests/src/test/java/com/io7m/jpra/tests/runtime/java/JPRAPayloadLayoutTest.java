@@ -0,0 +1,183 @@
+/*
+ * Copyright © 2015 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.jpra.tests.runtime.java;
+
+import com.io7m.jpra.runtime.java.JPRAPayloadLayout;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+public final class JPRAPayloadLayoutTest
+{
+  private static JPRAPayloadLayout layoutWithGap()
+  {
+    return JPRAPayloadLayout.of(
+      200,
+      new int[]{0, 3, 4, 12, 20, 180},
+      new int[]{3, 16},
+      new byte[]{(byte) 0x0f, (byte) 0x80});
+  }
+
+  @Test
+  public void testEqualIgnoresPadding()
+  {
+    final JPRAPayloadLayout layout = layoutWithGap();
+    final ByteBuffer a = ByteBuffer.allocate(200);
+    final ByteBuffer b = ByteBuffer.allocate(300);
+
+    for (int index = 0; index < 200; ++index) {
+      a.put(index, (byte) index);
+      b.put(100 + index, (byte) index);
+    }
+
+    a.put(3, (byte) 0xf3);
+    b.put(100 + 17, (byte) 0xff);
+    a.put(18, (byte) 0x01);
+
+    Assert.assertTrue(layout.equal(a, 0, b, 100));
+    Assert.assertEquals(-1L, (long) layout.mismatch(a, 0, b, 100));
+    Assert.assertEquals(layout.hash(a, 0), layout.hash(b, 100));
+  }
+
+  @Test
+  public void testMismatchFirst()
+  {
+    final JPRAPayloadLayout layout = layoutWithGap();
+    final ByteBuffer a = ByteBuffer.allocate(200);
+    final ByteBuffer b = ByteBuffer.allocate(200);
+
+    b.put(199, (byte) 1);
+    Assert.assertEquals(199L, (long) layout.mismatch(a, 0, b, 0));
+    b.put(16, (byte) 0x80);
+    Assert.assertEquals(16L, (long) layout.mismatch(a, 0, b, 0));
+    b.put(10, (byte) 1);
+    Assert.assertEquals(10L, (long) layout.mismatch(a, 0, b, 0));
+    b.put(3, (byte) 1);
+    Assert.assertEquals(3L, (long) layout.mismatch(a, 0, b, 0));
+    Assert.assertFalse(layout.equal(a, 0, b, 0));
+  }
+
+  @Test
+  public void testHashDependsOnlyOnOctets()
+  {
+    final JPRAPayloadLayout layout = layoutWithGap();
+    final ByteBuffer a = ByteBuffer.allocate(200).order(ByteOrder.BIG_ENDIAN);
+    final ByteBuffer b =
+      ByteBuffer.allocateDirect(200).order(ByteOrder.LITTLE_ENDIAN);
+
+    for (int index = 0; index < 200; ++index) {
+      a.put(index, (byte) (index * 7));
+      b.put(index, (byte) (index * 7));
+    }
+
+    Assert.assertEquals(layout.hash(a, 0), layout.hash(b, 0));
+    b.put(50, (byte) 0);
+    Assert.assertNotEquals(layout.hash(a, 0), layout.hash(b, 0));
+  }
+
+  private static JPRAPayloadLayout layoutWithString()
+  {
+    return JPRAPayloadLayout.of(
+      16,
+      new int[]{0, 4, 12, 4},
+      new int[]{},
+      new byte[]{},
+      new int[]{0, 8});
+  }
+
+  @Test
+  public void testStringStaleDataIgnored()
+  {
+    final JPRAPayloadLayout layout = layoutWithString();
+    final ByteBuffer a = ByteBuffer.allocate(16);
+    final ByteBuffer b = ByteBuffer.allocate(16);
+
+    for (int index = 4; index < 12; ++index) {
+      a.put(index, (byte) index);
+      b.put(index, (byte) (index * 3));
+    }
+
+    a.putInt(0, 1);
+    b.putInt(0, 1);
+    b.put(4, (byte) 4);
+
+    Assert.assertTrue(layout.equal(a, 0, b, 0));
+    Assert.assertEquals(-1L, (long) layout.mismatch(a, 0, b, 0));
+    Assert.assertEquals(layout.hash(a, 0), layout.hash(b, 0));
+    Assert.assertEquals(16L, (long) layout.significantOctets());
+
+    a.putInt(0, 2);
+    b.putInt(0, 2);
+    Assert.assertEquals(5L, (long) layout.mismatch(a, 0, b, 0));
+    Assert.assertNotEquals(layout.hash(a, 0), layout.hash(b, 0));
+
+    b.putInt(0, 1);
+    Assert.assertEquals(3L, (long) layout.mismatch(a, 0, b, 0));
+
+    b.putInt(0, 2);
+    b.put(13, (byte) 1);
+    Assert.assertEquals(5L, (long) layout.mismatch(a, 0, b, 0));
+  }
+
+  @Test
+  public void testStringLengthClamped()
+  {
+    final JPRAPayloadLayout layout = layoutWithString();
+    final ByteBuffer a = ByteBuffer.allocate(16);
+    final ByteBuffer b = ByteBuffer.allocate(16);
+
+    a.putInt(0, 1000);
+    b.putInt(0, 1000);
+    b.put(12, (byte) 1);
+    Assert.assertEquals(12L, (long) layout.mismatch(a, 0, b, 0));
+    Assert.assertNotEquals(layout.hash(a, 0), layout.hash(b, 0));
+
+    a.putInt(0, -1);
+    b.putInt(0, -1);
+    b.put(12, (byte) 0);
+    b.put(4, (byte) 1);
+    Assert.assertTrue(layout.equal(a, 0, b, 0));
+    Assert.assertEquals(layout.hash(a, 0), layout.hash(b, 0));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testStringOutOfBounds()
+  {
+    JPRAPayloadLayout.of(
+      8, new int[]{0, 4}, new int[]{}, new byte[]{}, new int[]{0, 8});
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testOverlappingRanges()
+  {
+    JPRAPayloadLayout.of(8, new int[]{0, 4, 2, 4}, new int[]{}, new byte[]{});
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testRangeOutOfBounds()
+  {
+    JPRAPayloadLayout.of(8, new int[]{4, 8}, new int[]{}, new byte[]{});
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testMaskCount()
+  {
+    JPRAPayloadLayout.of(8, new int[]{}, new int[]{1}, new byte[]{});
+  }
+}
@@ -0,0 +1,247 @@
+/*
+ * Copyright © 2015 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.jpra.tests.runtime.java;
+
+import com.io7m.jpra.runtime.java.JPRACursor1DByteBufferedChecked;
+import com.io7m.jpra.runtime.java.JPRACursor1DType;
+import com.io7m.jpra.runtime.java.JPRARecordChannelReader;
+import com.io7m.jpra.runtime.java.JPRARecordChannels;
+import com.io7m.jpra.runtime.java.JPRAValueByteBufferedConstructorType;
+import com.io7m.jpra.runtime.java.JPRAValueType;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+public final class JPRARecordChannelsTest
+{
+  @Rule public ExpectedException expected = ExpectedException.none();
+
+  private static ByteBuffer integers(final int count)
+  {
+    final ByteBuffer b = ByteBuffer.allocate(count * 4);
+    for (int index = 0; index < count; ++index) {
+      b.putInt(index * 4, index);
+    }
+    return b;
+  }
+
+  private static ReadableByteChannel trickle(final ByteBuffer data)
+  {
+    return new ReadableByteChannel()
+    {
+      private int position;
+
+      @Override
+      public int read(final ByteBuffer dst)
+      {
+        if (this.position >= data.capacity()) {
+          return -1;
+        }
+        if (!dst.hasRemaining()) {
+          return 0;
+        }
+        dst.put(data.get(this.position));
+        ++this.position;
+        return 1;
+      }
+
+      @Override
+      public boolean isOpen()
+      {
+        return true;
+      }
+
+      @Override
+      public void close()
+      {
+
+      }
+    };
+  }
+
+  @Test
+  public void testWriteElements()
+    throws IOException
+  {
+    final ByteBuffer b = integers(10);
+    b.position(3);
+
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    final long written = JPRARecordChannels.writeElements(
+      Channels.newChannel(out), b, 4, 2, 3);
+
+    Assert.assertEquals(12L, written);
+    Assert.assertEquals(3L, (long) b.position());
+
+    final ByteBuffer r = ByteBuffer.wrap(out.toByteArray());
+    Assert.assertEquals(2L, (long) r.getInt(0));
+    Assert.assertEquals(3L, (long) r.getInt(4));
+    Assert.assertEquals(4L, (long) r.getInt(8));
+  }
+
+  @Test
+  public void testWriteElementsOutOfRange()
+    throws IOException
+  {
+    this.expected.expect(IndexOutOfBoundsException.class);
+    JPRARecordChannels.writeElements(
+      Channels.newChannel(new ByteArrayOutputStream()), integers(10), 4, 8, 3);
+    Assert.fail();
+  }
+
+  @Test
+  public void testWriteCursorElements()
+    throws IOException
+  {
+    final ByteBuffer b = integers(10);
+    final JPRAValueByteBufferedConstructorType<JPRAValueType> cons =
+      (buffer, cursor, offset) -> () -> 4;
+    final JPRACursor1DType<JPRAValueType> c =
+      JPRACursor1DByteBufferedChecked.newCursor(b, cons);
+    c.setElementIndex(6);
+
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    final long written = JPRARecordChannels.writeCursorElements(
+      Channels.newChannel(out), b, c, 2);
+
+    Assert.assertEquals(8L, written);
+    Assert.assertEquals(6L, (long) c.getElementIndex());
+
+    final ByteBuffer r = ByteBuffer.wrap(out.toByteArray());
+    Assert.assertEquals(6L, (long) r.getInt(0));
+    Assert.assertEquals(7L, (long) r.getInt(4));
+  }
+
+  @Test
+  public void testWriteRangesTransfer()
+    throws IOException
+  {
+    final ByteBuffer b = integers(10);
+    final Path file = Files.createTempFile("jpra-channels", ".bin");
+
+    try {
+      try (FileChannel fc = FileChannel.open(file, StandardOpenOption.WRITE)) {
+        final long written = JPRARecordChannels.writeElementRanges(
+          fc, b, 4, new int[]{1, 5}, new int[]{2, 3});
+        Assert.assertEquals(20L, written);
+      }
+
+      final ByteArrayOutputStream out = new ByteArrayOutputStream();
+      try (FileChannel fc = FileChannel.open(file, StandardOpenOption.READ)) {
+        final long sent = JPRARecordChannels.transferElements(
+          fc, 0L, 4, 1L, 3L, Channels.newChannel(out));
+        Assert.assertEquals(12L, sent);
+      }
+
+      final ByteBuffer r = ByteBuffer.wrap(out.toByteArray());
+      Assert.assertEquals(2L, (long) r.getInt(0));
+      Assert.assertEquals(5L, (long) r.getInt(4));
+      Assert.assertEquals(6L, (long) r.getInt(8));
+    } finally {
+      Files.deleteIfExists(file);
+    }
+  }
+
+  @Test
+  public void testTransferPastEnd()
+    throws IOException
+  {
+    final Path file = Files.createTempFile("jpra-channels", ".bin");
+    try {
+      Files.write(file, new byte[8]);
+      try (FileChannel fc = FileChannel.open(file, StandardOpenOption.READ)) {
+        this.expected.expect(EOFException.class);
+        JPRARecordChannels.transferElements(
+          fc, 0L, 4, 0L, 3L, Channels.newChannel(new ByteArrayOutputStream()));
+      }
+    } finally {
+      Files.deleteIfExists(file);
+    }
+  }
+
+  @Test
+  public void testReaderPartialReads()
+    throws IOException
+  {
+    final JPRAValueByteBufferedConstructorType<JPRAValueType> cons =
+      (buffer, cursor, offset) -> () -> 4;
+    final JPRARecordChannelReader<JPRAValueType> r =
+      JPRARecordChannels.newReader(
+        trickle(integers(10)), 4, 3, ByteBuffer::allocateDirect, cons);
+
+    int expected_value = 0;
+    int batches = 0;
+    while (true) {
+      final int count = r.readBatch();
+      if (count == 0) {
+        break;
+      }
+      ++batches;
+      Assert.assertEquals((long) count, (long) r.batchElements());
+      for (int index = 0; index < count; ++index) {
+        r.cursor().setElementIndex(index);
+        final int offset = (int) r.cursor().getByteOffsetObservable().value();
+        Assert.assertEquals((long) expected_value, (long) r.buffer().getInt(offset));
+        ++expected_value;
+      }
+    }
+
+    Assert.assertEquals(10L, (long) expected_value);
+    Assert.assertEquals(4L, (long) batches);
+    Assert.assertTrue(r.isFinished());
+  }
+
+  @Test
+  public void testReaderTruncated()
+    throws IOException
+  {
+    final JPRAValueByteBufferedConstructorType<JPRAValueType> cons =
+      (buffer, cursor, offset) -> () -> 4;
+    final ByteBuffer data = ByteBuffer.allocate(6);
+    final JPRARecordChannelReader<JPRAValueType> r =
+      JPRARecordChannels.newReader(
+        trickle(data), 4, 3, ByteBuffer::allocate, cons);
+
+    this.expected.expect(EOFException.class);
+    r.readBatch();
+    Assert.fail();
+  }
+
+  @Test
+  public void testReaderSizeMismatch()
+  {
+    final JPRAValueByteBufferedConstructorType<JPRAValueType> cons =
+      (buffer, cursor, offset) -> () -> 8;
+
+    this.expected.expect(IllegalArgumentException.class);
+    JPRARecordChannels.newReader(
+      trickle(integers(10)), 4, 3, ByteBuffer::allocate, cons);
+    Assert.fail();
+  }
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright © 2015 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.jpra.tests.runtime.java;
+
+import com.io7m.jpra.runtime.java.JPRACursor1DType;
+import com.io7m.jpra.runtime.java.JPRARecordList;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+public final class JPRARecordListTest
+{
+  private static JPRARecordList<RebindableValue> list(
+    final int capacity)
+  {
+    return JPRARecordList.create(
+      (b, c, o) -> new RebindableValue(b, 8),
+      8,
+      capacity,
+      ByteBuffer::allocate);
+  }
+
+  private static void put(
+    final JPRARecordList<RebindableValue> list,
+    final long x)
+  {
+    final JPRACursor1DType<RebindableValue> c = list.cursor();
+    list.buffer().putLong((int) c.getByteOffsetObservable().value(), x);
+  }
+
+  private static long get(
+    final JPRARecordList<RebindableValue> list,
+    final int index)
+  {
+    final JPRACursor1DType<RebindableValue> c = list.cursor();
+    c.setElementIndex(index);
+    return list.buffer().getLong((int) c.getByteOffsetObservable().value());
+  }
+
+  @Test
+  public void testAppendGrow()
+  {
+    final JPRARecordList<RebindableValue> list = list(1);
+    Assert.assertTrue(list.isEmpty());
+    Assert.assertEquals(1L, (long) list.capacity());
+
+    for (int index = 0; index < 100; ++index) {
+      Assert.assertEquals((long) index, (long) list.append());
+      Assert.assertEquals((long) index, (long) list.cursor().getElementIndex());
+      put(list, (long) index * 3L);
+    }
+
+    Assert.assertEquals(100L, (long) list.size());
+    Assert.assertTrue(list.capacity() >= 100);
+    Assert.assertEquals(128L, (long) list.capacity());
+    Assert.assertSame(
+      list.buffer(), list.cursor().getElementView().buffer());
+
+    for (int index = 0; index < 100; ++index) {
+      Assert.assertEquals((long) index * 3L, get(list, index));
+    }
+  }
+
+  @Test
+  public void testGrowKeepsCursorIndex()
+  {
+    final JPRARecordList<RebindableValue> list = list(2);
+    list.append();
+    list.append();
+    list.cursor().setElementIndex(1);
+    list.ensureCapacity(10);
+    Assert.assertEquals(1L, (long) list.cursor().getElementIndex());
+    Assert.assertEquals(8L, list.cursor().getByteOffsetObservable().value());
+  }
+
+  @Test
+  public void testRemoveSwapLast()
+  {
+    final JPRARecordList<RebindableValue> list = list(4);
+    for (int index = 0; index < 4; ++index) {
+      list.append();
+      put(list, (long) index);
+    }
+
+    Assert.assertEquals(3L, (long) list.removeSwapLast(1));
+    Assert.assertEquals(3L, (long) list.size());
+    Assert.assertEquals(0L, get(list, 0));
+    Assert.assertEquals(3L, get(list, 1));
+    Assert.assertEquals(2L, get(list, 2));
+
+    Assert.assertEquals(-1L, (long) list.removeSwapLast(2));
+    Assert.assertEquals(2L, (long) list.size());
+
+    list.append();
+    Assert.assertEquals(0L, get(list, 2));
+  }
+
+  @Test
+  public void testTrimToSize()
+  {
+    final JPRARecordList<RebindableValue> list = list(16);
+    list.append();
+    put(list, 23L);
+    list.trimToSize();
+    Assert.assertEquals(1L, (long) list.capacity());
+    Assert.assertEquals(8L, (long) list.buffer().capacity());
+    Assert.assertEquals(23L, get(list, 0));
+
+    list.clear();
+    Assert.assertTrue(list.isEmpty());
+    list.trimToSize();
+    Assert.assertEquals(1L, (long) list.capacity());
+  }
+
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void testCursorBounded()
+  {
+    final JPRARecordList<RebindableValue> list = list(16);
+    list.append();
+    list.cursor().setElementIndex(1);
+  }
+
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void testRemoveBounded()
+  {
+    list(16).removeSwapLast(0);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testSizeMismatch()
+  {
+    JPRARecordList.create(
+      (b, c, o) -> new RebindableValue(b, 4),
+      8,
+      1,
+      ByteBuffer::allocate);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testCapacityNonPositive()
+  {
+    list(0);
+  }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright © 2015 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.jpra.tests.runtime.java;
+
+import com.io7m.jpra.runtime.java.JPRAScan;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.List;
+
+public final class JPRAScanTest
+{
+  private static final int SIZE = 16;
+
+  private static final JPRAScan.Field LIFE =
+    JPRAScan.Field.of(JPRAScan.Kind.FLOAT_32, 0);
+  private static final JPRAScan.Field TEAM =
+    JPRAScan.Field.of(JPRAScan.Kind.INTEGER_UNSIGNED_8, 4);
+  private static final JPRAScan.Field SCORE =
+    JPRAScan.Field.of(JPRAScan.Kind.INTEGER_SIGNED_32, 8);
+  private static final JPRAScan.Field ID =
+    JPRAScan.Field.of(JPRAScan.Kind.INTEGER_UNSIGNED_32, 12);
+
+  private static ByteBuffer particles(
+    final int count)
+  {
+    final ByteBuffer b = ByteBuffer.allocateDirect(count * SIZE);
+    for (int index = 0; index < count; ++index) {
+      final int base = index * SIZE;
+      b.putFloat(base, (float) (index % 10) - 2.0f);
+      b.put(base + 4, (byte) (index % 5 + 250));
+      b.putInt(base + 8, index - 50);
+      b.putInt(base + 12, 0xffff_0000 + index);
+    }
+    return b;
+  }
+
+  @Test
+  public void testSelect()
+  {
+    final ByteBuffer b = particles(100);
+    final JPRAScan s = JPRAScan.compile(
+      SIZE,
+      JPRAScan.Predicate.compare(LIFE, JPRAScan.Comparison.GREATER, 0.0)
+        .and(JPRAScan.Predicate.compare(
+          TEAM, JPRAScan.Comparison.EQUAL, 253L)));
+
+    final IntBuffer r = s.select(b, 0, 100);
+    for (int index = 0; index < 100; ++index) {
+      final boolean expected = index % 10 > 2 && index % 5 == 3;
+      Assert.assertEquals(expected, s.matches(b, index));
+    }
+    Assert.assertEquals(20L, (long) r.remaining());
+    Assert.assertEquals(3L, (long) r.get(0));
+    Assert.assertEquals(8L, (long) r.get(1));
+    Assert.assertEquals(20L, (long) s.count(b, 0, 100));
+  }
+
+  @Test
+  public void testCombinators()
+  {
+    final ByteBuffer b = particles(100);
+    final JPRAScan.Predicate low =
+      JPRAScan.Predicate.compare(SCORE, JPRAScan.Comparison.LESS, -40L);
+    final JPRAScan.Predicate high =
+      JPRAScan.Predicate.compare(
+        SCORE, JPRAScan.Comparison.GREATER_OR_EQUAL, 40L);
+    final JPRAScan.Predicate id =
+      JPRAScan.Predicate.compare(
+        ID, JPRAScan.Comparison.LESS_OR_EQUAL, 0xffff_0004L);
+
+    Assert.assertEquals(
+      20L, (long) JPRAScan.compile(SIZE, low.or(high)).count(b, 0, 100));
+    Assert.assertEquals(
+      80L,
+      (long) JPRAScan.compile(SIZE, low.or(high).negate()).count(b, 0, 100));
+    Assert.assertEquals(
+      5L, (long) JPRAScan.compile(SIZE, id).count(b, 0, 100));
+    Assert.assertEquals(
+      5L,
+      (long) JPRAScan.compile(
+        SIZE, JPRAScan.Predicate.all(List.of(low, id, id))).count(b, 0, 100));
+    Assert.assertEquals(
+      100L,
+      (long) JPRAScan.compile(SIZE, JPRAScan.Predicate.all(List.of()))
+        .count(b, 0, 100));
+  }
+
+  @Test
+  public void testSelectParallel()
+  {
+    final ByteBuffer b = particles(100_000);
+    final JPRAScan s = JPRAScan.compile(
+      SIZE,
+      JPRAScan.Predicate.compare(LIFE, JPRAScan.Comparison.GREATER, 4.5));
+
+    final IntBuffer seq = s.select(b, 10, 99_990);
+    final IntBuffer par = s.selectParallel(b, 10, 99_990, 1000);
+    Assert.assertEquals(seq, par);
+    Assert.assertEquals(29_994L, (long) par.remaining());
+  }
+
+  @Test
+  public void testProject()
+  {
+    final ByteBuffer b = particles(100);
+    final JPRAScan s = JPRAScan.compile(
+      SIZE,
+      JPRAScan.Predicate.compare(SCORE, JPRAScan.Comparison.EQUAL, 0L)
+        .or(JPRAScan.Predicate.compare(
+          SCORE, JPRAScan.Comparison.EQUAL, 1L)));
+
+    final IntBuffer r = s.select(b, 0, 100);
+    final long[] ids = s.projectLong(b, r, ID);
+    Assert.assertEquals(2L, (long) ids.length);
+    Assert.assertEquals(0xffff_0032L, ids[0]);
+    Assert.assertEquals(0xffff_0033L, ids[1]);
+
+    final double[] life = s.projectDouble(b, r, LIFE);
+    Assert.assertEquals(2L, (long) life.length);
+    Assert.assertEquals(-2.0, life[0], 0.0);
+    Assert.assertEquals(-1.0, life[1], 0.0);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testFieldTooLarge()
+  {
+    JPRAScan.compile(
+      8, JPRAScan.Predicate.compare(SCORE, JPRAScan.Comparison.EQUAL, 0L));
+  }
+
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void testRangeTooLarge()
+  {
+    JPRAScan.compile(
+      SIZE, JPRAScan.Predicate.compare(SCORE, JPRAScan.Comparison.EQUAL, 0L))
+      .select(particles(10), 0, 11);
+  }
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright © 2015 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.jpra.tests.runtime.java;
+
+import com.io7m.jpra.runtime.java.JPRASlotAllocator;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+public final class JPRASlotAllocatorTest
+{
+  private static JPRASlotAllocator<RebindableValue> allocator(
+    final int slots,
+    final boolean generations)
+  {
+    return JPRASlotAllocator.create(
+      ByteBuffer.allocate(slots * 8),
+      (b, c, o) -> new RebindableValue(b, 8),
+      generations);
+  }
+
+  @Test
+  public void testAllocateFree()
+  {
+    final JPRASlotAllocator<RebindableValue> a = allocator(4, true);
+    Assert.assertEquals(4L, (long) a.capacity());
+
+    final long h0 = a.allocate();
+    final long h1 = a.allocate();
+    final long h2 = a.allocate();
+    Assert.assertEquals(0L, (long) JPRASlotAllocator.slotOf(h0));
+    Assert.assertEquals(1L, (long) JPRASlotAllocator.slotOf(h1));
+    Assert.assertEquals(2L, (long) JPRASlotAllocator.slotOf(h2));
+    Assert.assertEquals(3L, (long) a.liveCount());
+
+    a.free(h1);
+    Assert.assertFalse(a.isValid(h1));
+    Assert.assertTrue(a.isValid(h0));
+    Assert.assertEquals(2L, (long) a.liveCount());
+
+    final long h3 = a.allocate();
+    Assert.assertEquals(1L, (long) JPRASlotAllocator.slotOf(h3));
+    Assert.assertEquals(1L, (long) JPRASlotAllocator.generationOf(h3));
+    Assert.assertTrue(a.isValid(h3));
+    Assert.assertFalse(a.isValid(h1));
+
+    final long h4 = a.allocate();
+    Assert.assertEquals(3L, (long) JPRASlotAllocator.slotOf(h4));
+    Assert.assertTrue(a.isFull());
+  }
+
+  @Test
+  public void testFreeListReusesMostRecent()
+  {
+    final JPRASlotAllocator<RebindableValue> a = allocator(8, false);
+    final long[] h = new long[8];
+    for (int index = 0; index < 8; ++index) {
+      h[index] = a.allocate();
+      Assert.assertEquals((long) index, h[index]);
+    }
+
+    a.free(h[2]);
+    a.free(h[5]);
+    a.free(h[6]);
+    Assert.assertEquals(6L, a.allocate());
+    Assert.assertEquals(5L, a.allocate());
+    Assert.assertEquals(2L, a.allocate());
+  }
+
+  @Test
+  public void testAllocateZeroFills()
+  {
+    final JPRASlotAllocator<RebindableValue> a = allocator(2, false);
+    final long h = a.allocate();
+    a.buffer().putLong(0, -1L);
+    a.free(h);
+    a.allocate();
+    Assert.assertEquals(0L, a.buffer().getLong(0));
+  }
+
+  @Test
+  public void testForEachLive()
+  {
+    final JPRASlotAllocator<RebindableValue> a = allocator(130, true);
+    final List<Long> handles = new ArrayList<>();
+    for (int index = 0; index < 130; ++index) {
+      handles.add(Long.valueOf(a.allocate()));
+    }
+    for (int index = 0; index < 130; ++index) {
+      if (index % 3 != 0) {
+        a.free(handles.get(index).longValue());
+      }
+    }
+
+    final List<Integer> seen = new ArrayList<>();
+    a.forEachLive(x -> {
+      seen.add(Integer.valueOf(JPRASlotAllocator.slotOf(x)));
+      a.free(x);
+    });
+
+    Assert.assertEquals(44L, (long) seen.size());
+    for (int index = 0; index < seen.size(); ++index) {
+      Assert.assertEquals((long) (index * 3), (long) seen.get(index).intValue());
+    }
+    Assert.assertEquals(0L, (long) a.liveCount());
+  }
+
+  @Test
+  public void testSelect()
+  {
+    final JPRASlotAllocator<RebindableValue> a = allocator(4, true);
+    a.allocate();
+    final long h = a.allocate();
+    final RebindableValue v = a.select(h);
+    Assert.assertSame(a.buffer(), v.buffer());
+  }
+
+  @Test
+  public void testClearInvalidates()
+  {
+    final JPRASlotAllocator<RebindableValue> a = allocator(4, true);
+    final long h = a.allocate();
+    a.clear();
+    Assert.assertFalse(a.isValid(h));
+    Assert.assertEquals(0L, (long) a.liveCount());
+    final long k = a.allocate();
+    Assert.assertEquals(0L, (long) JPRASlotAllocator.slotOf(k));
+    Assert.assertNotEquals(h, k);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testDoubleFree()
+  {
+    final JPRASlotAllocator<RebindableValue> a = allocator(4, false);
+    final long h = a.allocate();
+    a.free(h);
+    a.free(h);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testSelectStale()
+  {
+    final JPRASlotAllocator<RebindableValue> a = allocator(4, true);
+    final long h = a.allocate();
+    a.free(h);
+    a.allocate();
+    a.select(h);
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testFull()
+  {
+    final JPRASlotAllocator<RebindableValue> a = allocator(1, false);
+    a.allocate();
+    a.allocate();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testElementTooSmall()
+  {
+    JPRASlotAllocator.create(
+      ByteBuffer.allocate(8),
+      (b, c, o) -> new RebindableValue(b, 2),
+      false);
+  }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright © 2015 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.jpra.tests.runtime.java;
+
+import com.io7m.jpra.runtime.java.JPRAByteBufferedRebindableType;
+import com.io7m.jpra.runtime.java.JPRAValueType;
+
+import java.nio.ByteBuffer;
+
+final class RebindableValue
+  implements JPRAValueType, JPRAByteBufferedRebindableType
+{
+  private final int size;
+  private ByteBuffer buffer;
+
+  RebindableValue(
+    final ByteBuffer in_buffer,
+    final int in_size)
+  {
+    this.buffer = in_buffer;
+    this.size = in_size;
+  }
+
+  ByteBuffer buffer()
+  {
+    return this.buffer;
+  }
+
+  @Override
+  public void rebind(final ByteBuffer in_buffer)
+  {
+    this.buffer = in_buffer;
+  }
+
+  @Override
+  public int sizeOctets()
+  {
+    return this.size;
+  }
+}